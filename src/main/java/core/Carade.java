@@ -1,26 +1,35 @@
 package core;
 
 import core.db.CaradeDatabase;
+import core.db.CowSnapshot;
 import core.db.DataType;
 import core.commands.Command;
 import core.commands.CommandRegistry;
 import core.db.ValueEntry;
 import core.network.ClientHandler;
+import core.network.RespChannelInitializer;
+import core.network.Transport;
 import core.persistence.CommandLogger;
+import core.persistence.SavePoints;
+import core.persistence.rdb.LazyRdbLoader;
+import core.persistence.rdb.ParallelRdbEncoder;
+import core.persistence.rdb.ParallelRdbLoader;
 import core.persistence.rdb.RdbEncoder;
 import core.persistence.rdb.RdbParser;
+import core.server.ShardManager;
+import core.server.WriteSequencer;
 import core.structs.CaradeZSet;
 import core.structs.ZNode;
-import core.protocol.netty.NettyRespDecoder;
-import core.protocol.netty.NettyRespEncoder;
 
 import io.netty.bootstrap.ServerBootstrap;
-import io.netty.channel.ChannelFuture;
-import io.netty.channel.ChannelInitializer;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelOption;
 import io.netty.channel.EventLoopGroup;
-import io.netty.channel.nio.NioEventLoopGroup;
-import io.netty.channel.socket.SocketChannel;
-import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.MultiThreadIoEventLoopGroup;
+import io.netty.channel.WriteBufferWaterMark;
+import io.netty.channel.epoll.EpollChannelOption;
+import io.netty.channel.epoll.EpollMode;
+import io.netty.channel.unix.UnixChannelOption;
 
 import java.io.*;
 import java.util.*;
@@ -29,9 +38,15 @@ import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
-import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
 
+import core.utils.ByteStrings;
 import core.utils.Log;
+import core.structs.PackedHash;
+import core.structs.PackedSet;
+import core.structs.PackedList;
 
 /**
  * Project: Carade
@@ -44,6 +59,8 @@ public class Carade {
     // --- CONFIGURATION ---
     private static final String DUMP_FILE = "carade.dump";
     private static final String AOF_FILE = "carade.aof";
+    // Set when loadData only indexed the dump (rdb-lazy-load)
+    private static boolean lazyLoaded = false;
     public static Config config;
     
     // --- METRICS ---
@@ -138,9 +155,11 @@ public class Carade {
                 }
                 
                 if (v.type != req.expectedType) return;
+                CowSnapshot.beforeWrite(db.getStore(0), key);
+                if (req.targetKey != null) CowSnapshot.beforeWrite(db.getStore(req.dbIndex), req.targetKey);
                 
                 if (v.type == DataType.LIST) {
-                    ConcurrentLinkedDeque<String> list = (ConcurrentLinkedDeque<String>) v.getValue();
+                    Deque<String> list = (Deque<String>) v.getValue();
                     if (list.isEmpty()) return;
                     
                     String val = req.isLeft ? list.pollFirst() : list.pollLast();
@@ -152,11 +171,11 @@ public class Carade {
                              // BRPOPLPUSH logic: push to target
                              db.getStore(req.dbIndex).compute(req.targetKey, (k, valEntry) -> {
                                  if (valEntry == null) {
-                                     ConcurrentLinkedDeque<String> l = new ConcurrentLinkedDeque<>();
+                                     Deque<String> l = new PackedList();
                                      l.addFirst(val);
                                      return new ValueEntry(l, DataType.LIST, -1);
                                  } else if (valEntry.type == DataType.LIST) {
-                                     ((ConcurrentLinkedDeque<String>) valEntry.getValue()).addFirst(val);
+                                     ((Deque<String>) valEntry.getValue()).addFirst(val);
                                      return valEntry;
                                  }
                                  return valEntry;
@@ -164,13 +183,13 @@ public class Carade {
                              notifyWatchers(req.targetKey);
                         }
                         
-                        boolean completed = req.future.complete(Arrays.asList(key.getBytes(StandardCharsets.UTF_8), val.getBytes(StandardCharsets.UTF_8)));
+                        boolean completed = req.future.complete(Arrays.asList(key.getBytes(ByteStrings.CHARSET), val.getBytes(ByteStrings.CHARSET)));
                         if (!completed) {
                             if (req.isLeft) list.addFirst(val); else list.addLast(val); 
                             if (req.targetKey != null) {
                                  db.getStore(req.dbIndex).computeIfPresent(req.targetKey, (k, valEntry) -> {
                                      if (valEntry.type == DataType.LIST) {
-                                         ((ConcurrentLinkedDeque<String>) valEntry.getValue()).pollFirst();
+                                         ((Deque<String>) valEntry.getValue()).pollFirst();
                                      }
                                      return valEntry;
                                  });
@@ -180,9 +199,9 @@ public class Carade {
                         
                         if (aofHandler != null) {
                             if (req.targetKey != null) {
-                                aofHandler.log("RPOPLPUSH", key, req.targetKey);
+                                WriteSequencer.getInstance().appendAof("RPOPLPUSH", key, req.targetKey);
                             } else {
-                                aofHandler.log(req.isLeft ? "LPOP" : "RPOP", key);
+                                WriteSequencer.getInstance().appendAof(req.isLeft ? "LPOP" : "RPOP", key);
                             }
                         }
                         if (list.isEmpty()) db.remove(key);
@@ -199,9 +218,9 @@ public class Carade {
                     q.poll();
                     
                     boolean completed = req.future.complete(Arrays.asList(
-                        key.getBytes(StandardCharsets.UTF_8), 
-                        node.member.getBytes(StandardCharsets.UTF_8), 
-                        String.valueOf(node.score).getBytes(StandardCharsets.UTF_8)
+                        key.getBytes(ByteStrings.CHARSET), 
+                        node.member.getBytes(ByteStrings.CHARSET), 
+                        String.valueOf(node.score).getBytes(ByteStrings.CHARSET)
                     ));
                     
                     if (!completed) {
@@ -214,7 +233,7 @@ public class Carade {
                     // But if we support ZPOP commands, we can log ZPOP.
                     // However, we popped.
                     if (aofHandler != null) {
-                        aofHandler.log(req.isLeft ? "ZPOPMIN" : "ZPOPMAX", key);
+                        WriteSequencer.getInstance().appendAof(req.isLeft ? "ZPOPMIN" : "ZPOPMAX", key);
                     }
                     if (zset.size() == 0) db.remove(key);
                 }
@@ -229,6 +248,45 @@ public class Carade {
 
     private static volatile boolean isRunning = true;
 
+    // Unix domain socket listener for co-located clients; same pipeline and worker loops as TCP
+    private static Channel bindUnixSocket(Transport transport, EventLoopGroup bossGroup, EventLoopGroup workerGroup) throws Exception {
+        File socketFile = new File(config.unixSocket);
+        if (socketFile.exists() && !socketFile.delete()) { // Stale socket from a previous run
+            throw new IOException("Cannot remove stale unix socket " + socketFile);
+        }
+        ServerBootstrap ub = new ServerBootstrap();
+        ub.group(bossGroup, workerGroup)
+          .channel(transport.serverDomainSocketChannel())
+          .option(ChannelOption.SO_BACKLOG, config.tcpBacklog)
+          .childOption(ChannelOption.WRITE_BUFFER_WATER_MARK,
+                  new WriteBufferWaterMark(config.writeBufferLowWaterMark, config.writeBufferHighWaterMark))
+          .childHandler(new RespChannelInitializer(config.zeroCopyDecoder, config.unixSocketMaxClients));
+        Channel ch = ub.bind(transport.domainSocketAddress(config.unixSocket)).sync().channel();
+        if (config.unixSocketPerm != null && !config.unixSocketPerm.isEmpty()) {
+            Files.setPosixFilePermissions(socketFile.toPath(), parsePermissions(config.unixSocketPerm));
+        }
+        Log.info("🔌 Unix socket: " + socketFile.getAbsolutePath());
+        return ch;
+    }
+
+    // Octal mode such as "770" -> rwxrwx---
+    private static Set<PosixFilePermission> parsePermissions(String octal) {
+        int mode = Integer.parseInt(octal, 8);
+        StringBuilder sb = new StringBuilder();
+        String rwx = "rwx";
+        for (int bit = 8; bit >= 0; bit--) {
+            sb.append((mode & (1 << bit)) != 0 ? rwx.charAt(2 - bit % 3) : '-');
+        }
+        return PosixFilePermissions.fromString(sb.toString());
+    }
+
+    @SuppressWarnings("deprecation") // Netty 4.2 is edge-triggered by default; the option is still honoured
+    private static void applyEpollMode(ServerBootstrap b, boolean edgeTriggered) {
+        EpollMode mode = edgeTriggered ? EpollMode.EDGE_TRIGGERED : EpollMode.LEVEL_TRIGGERED;
+        b.option(EpollChannelOption.EPOLL_MODE, mode);
+        b.childOption(EpollChannelOption.EPOLL_MODE, mode);
+    }
+
     public static void printBanner() {
         Log.info("\n" +
                 "   ______                     __   \n" +
@@ -265,14 +323,32 @@ public class Carade {
         }
         defaultUser.password = config.password;
 
+        try {
+            savePoints = SavePoints.parse(config.save);
+        } catch (IllegalArgumentException e) {
+            Log.error("⚠️ " + e.getMessage() + ", automatic snapshots disabled");
+            savePoints = SavePoints.parse("");
+        }
+
         // Initialize AOF
         aofHandler = CommandLogger.getInstance();
+        aofHandler.setFsyncPolicy(CommandLogger.FsyncPolicy.parse(config.appendFsync));
         
         // Initialize DB
         db = new CaradeDatabase(config, aofHandler);
 
-        loadData();
-        aofHandler.replay(cmd -> executeAofCommand(cmd));
+        // The AOF holds the whole dataset when it has data (base + tail), loading dump.rdb as
+        // well would apply the tail twice. Without it, start from the dump and make it the AOF base.
+        if (aofHandler.hasData()) {
+            aofHandler.replay(db, Carade::executeAofCommand);
+        } else {
+            loadData();
+            if (db.size() > 0) {
+                // A lazily loaded dump becomes the AOF base as it is: rewriting it would decode every value
+                if (!lazyLoaded || !aofHandler.adoptBase(new File(DUMP_FILE))) aofHandler.rewrite(db);
+            }
+            if (lazyLoaded) LazyRdbLoader.warm(db);
+        }
 
         // 1. Janitor (Refactored to ScheduledExecutorService)
         ScheduledExecutorService janitor = Executors.newSingleThreadScheduledExecutor(r -> {
@@ -305,12 +381,8 @@ public class Carade {
                         Iterator<Map.Entry<String, ValueEntry>> it = iterators[currentDbIndex];
                         while (it.hasNext() && keysToCheck > 0) {
                             Map.Entry<String, ValueEntry> entry = it.next();
-                            if (entry.getValue().isExpired()) {
-                                it.remove();
-                                if (aofHandler != null) {
-                                    aofHandler.log("SELECT", String.valueOf(currentDbIndex));
-                                    aofHandler.log("DEL", entry.getKey());
-                                }
+                            if (entry.getValue().isExpired()
+                                    && db.removeInBackground(currentDbIndex, entry.getKey(), entry.getValue(), "expired") != CaradeDatabase.SKIPPED) {
                                 expiredCount++;
                             }
                             keysToCheck--;
@@ -329,11 +401,13 @@ public class Carade {
                     janitorState[1] = (currentDbIndex + 1) % CaradeDatabase.DB_COUNT;
                 }
 
-                // --- Maintenance (Slow Loop ~30s) ---
+                // --- Save points ---
                 long now = System.currentTimeMillis();
+                checkSavePoints(now);
+
+                // --- Maintenance (Slow Loop ~30s) ---
                 if (now - janitorState[0] > 30000) {
                     cleanupExpiredCursors();
-                    saveData();
                     Log.info("[Janitor] Cleanup cycle completed. Database size: " + db.size());
                     janitorState[0] = now;
                 }
@@ -362,37 +436,59 @@ public class Carade {
         monitor.setDaemon(true);
         monitor.start();
 
+        // Shard executors (shard execution mode only)
+        ShardManager.getInstance();
+
         printBanner();
 
         // 3. Start Netty Server
-        EventLoopGroup bossGroup = new NioEventLoopGroup(1);
-        EventLoopGroup workerGroup = new NioEventLoopGroup();
+        Transport transport = Transport.select(config.transport);
+        int acceptors = Math.max(1, config.acceptors);
+        if (acceptors > 1 && !transport.supportsReusePort()) {
+            Log.warn("⚠️ acceptors > 1 needs SO_REUSEPORT (epoll/io_uring), using a single acceptor");
+            acceptors = 1;
+        }
+        EventLoopGroup bossGroup = new MultiThreadIoEventLoopGroup(acceptors, transport.ioHandlerFactory());
+        EventLoopGroup workerGroup = new MultiThreadIoEventLoopGroup(config.ioThreads, transport.ioHandlerFactory());
         try {
             ServerBootstrap b = new ServerBootstrap();
             b.group(bossGroup, workerGroup)
-             .channel(NioServerSocketChannel.class)
-             .childHandler(new ChannelInitializer<SocketChannel>() {
-                 @Override
-                 public void initChannel(SocketChannel ch) throws Exception {
-                     ch.pipeline().addLast(new NettyRespDecoder());
-                     ch.pipeline().addLast(new NettyRespEncoder());
-                     ch.pipeline().addLast(new ClientHandler());
-                 }
-             });
-
-            ChannelFuture f = b.bind(config.port).sync();
-            Log.info("🔥 Ready on port " + config.port);
+             .channel(transport.serverSocketChannel())
+             .option(ChannelOption.SO_BACKLOG, config.tcpBacklog)
+             .childOption(ChannelOption.TCP_NODELAY, config.tcpNoDelay)
+             .childOption(ChannelOption.WRITE_BUFFER_WATER_MARK,
+                     new WriteBufferWaterMark(config.writeBufferLowWaterMark, config.writeBufferHighWaterMark));
+            if (config.socketReceiveBuffer > 0) b.childOption(ChannelOption.SO_RCVBUF, config.socketReceiveBuffer);
+            if (config.socketSendBuffer > 0) b.childOption(ChannelOption.SO_SNDBUF, config.socketSendBuffer);
+            if (transport == Transport.EPOLL) applyEpollMode(b, config.epollEdgeTriggered);
+            // Each acceptor is its own listening socket; the kernel spreads incoming connections across them
+            if (acceptors > 1) b.option(UnixChannelOption.SO_REUSEPORT, true);
+            b.childHandler(new RespChannelInitializer(config.zeroCopyDecoder));
+
+            List<Channel> listeners = new ArrayList<>();
+            for (int i = 0; i < acceptors; i++) {
+                listeners.add(b.bind(config.port).sync().channel());
+            }
+            if (config.unixSocket != null && !config.unixSocket.isEmpty()) {
+                listeners.add(bindUnixSocket(transport, bossGroup, workerGroup));
+            }
+            Log.info("🔥 Ready on port " + config.port + " (" + transport.name().toLowerCase() + ", " + acceptors + " acceptor" + (acceptors > 1 ? "s" : "") + ")");
             Log.info("🔒 Max Memory: " + (config.maxMemory == 0 ? "Unlimited" : config.maxMemory + " bytes"));
             
             Runtime.getRuntime().addShutdownHook(new Thread(() -> {
                 Log.info("\n🛑 Shutting down...");
+                ShardManager.getInstance().shutdown();
                 saveData();
+                WriteSequencer.getInstance().shutdown();
                 aofHandler.close();
+                if (config.unixSocket != null) new File(config.unixSocket).delete();
                 bossGroup.shutdownGracefully();
                 workerGroup.shutdownGracefully();
             }));
 
-            f.channel().closeFuture().sync();
+            for (Channel listener : listeners) {
+                listener.closeFuture().sync();
+            }
         } finally {
             bossGroup.shutdownGracefully();
             workerGroup.shutdownGracefully();
@@ -405,12 +501,21 @@ public class Carade {
     }
 
     // AOF Replay Logic
+    // Last command looked up during replay: AOFs are mostly runs of the same command
+    private static volatile Map.Entry<byte[], Command> lastAofCommand;
+
     public static void executeAofCommand(List<byte[]> parts) {
         if (parts.isEmpty()) return;
-        String cmdName = new String(parts.get(0), StandardCharsets.UTF_8).toUpperCase();
         try {
             // Note: aofClient maintains dbIndex state across calls
-            Command cmd = CommandRegistry.get(cmdName);
+            Map.Entry<byte[], Command> last = lastAofCommand;
+            Command cmd;
+            if (last != null && Arrays.equals(parts.get(0), last.getKey())) {
+                cmd = last.getValue();
+            } else {
+                cmd = CommandRegistry.get(new String(parts.get(0), ByteStrings.CHARSET).toUpperCase());
+                if (cmd != null) lastAofCommand = new AbstractMap.SimpleImmutableEntry<>(parts.get(0), cmd);
+            }
             if (cmd != null) {
                 // AOF Replay happens before server starts listening, so concurrency is less of an issue,
                 // but we should still respect the lock to be safe and consistent with Command logic.
@@ -419,13 +524,26 @@ public class Carade {
                 // But some commands might touch synchronized structures.
                 cmd.execute(aofClient, parts);
             } else {
-                 Log.error("⚠️ Unknown command in AOF: " + cmdName);
+                 Log.error("⚠️ Unknown command in AOF: " + new String(parts.get(0), ByteStrings.CHARSET));
             }
         } catch (Exception e) {
-            Log.error("⚠️ Error executing AOF command: " + cmdName + " - " + e.getMessage());
+            Log.error("⚠️ Error executing AOF command: " + new String(parts.get(0), ByteStrings.CHARSET) + " - " + e.getMessage());
         }
     }
 
+    /**
+     * Applies a command of the master's stream. Unlike an AOF replay, a BGSAVE on the
+     * replica may run meanwhile: the keys the command changes in place are preserved
+     * for it first, as ClientHandler does for clients.
+     */
+    public static void executeReplicatedCommand(List<byte[]> parts) {
+        if (parts.isEmpty()) return;
+        String name = new String(parts.get(0), ByteStrings.CHARSET).toUpperCase();
+        if (CowSnapshot.isActive()) aofClient.preserveForSnapshot(name, parts);
+        executeAofCommand(parts);
+        aofClient.accountMemory(name, parts);
+    }
+
     public static void resetAofClient() {
         aofClient.dbIndex = 0;
         aofClient.setInTransaction(false);
@@ -441,19 +559,64 @@ public class Carade {
     public static volatile long lastSaveTime = System.currentTimeMillis() / 1000;
     public static final AtomicBoolean isSaving = new AtomicBoolean(false);
     public static volatile boolean shutdownInitiated = false;
+    public static SavePoints savePoints = SavePoints.parse("");
+    public static volatile boolean lastSaveOk = true;
+    public static volatile long lastSaveAttempt = 0; // ms
+    public static volatile long saveStartedAt = 0; // ms, 0 = no save running
+    public static volatile long lastSaveDurationSec = -1;
+
+    // Starts a background save when a save point is reached (Janitor)
+    private static void checkSavePoints(long now) {
+        if (savePoints.isEmpty() || isSaving.get()) return;
+        // After a failed save, retry at most every RETRY_DELAY_MS
+        if (!lastSaveOk && now - lastSaveAttempt < SavePoints.RETRY_DELAY_MS) return;
+        long dirty = WriteSequencer.getInstance().getDirty();
+        if (savePoints.isDue(dirty, now / 1000 - lastSaveTime)) {
+            Log.info("💾 " + dirty + " changes since the last save, saving...");
+            startBackgroundSave();
+        }
+    }
+
+    /**
+     * Runs {@link #saveData()} on its own thread. Returns false if a save is already running.
+     */
+    public static boolean startBackgroundSave() {
+        if (isSaving.get()) return false;
+        new Thread(() -> {
+            try {
+                saveData();
+            } catch (RuntimeException e) {
+                Log.error("⚠️ Background save failed: " + e.getMessage());
+            }
+        }, "BGSave").start();
+        return true;
+    }
 
     public static void saveData() {
         if (!isSaving.compareAndSet(false, true)) {
              Log.warn("Background save already in progress, skipping.");
              return;
         }
+        long start = System.currentTimeMillis();
+        saveStartedAt = start;
+        lastSaveAttempt = start;
+        long changes = WriteSequencer.getInstance().getChanges();
         try {
-            new RdbEncoder().save(db, DUMP_FILE);
+            if ("parallel".equals(config.rdbFormat)) {
+                new ParallelRdbEncoder(config.rdbThreads, config.rdbSectionCompression).save(db, DUMP_FILE);
+            } else {
+                new RdbEncoder().save(db, DUMP_FILE);
+            }
             lastSaveTime = System.currentTimeMillis() / 1000;
+            WriteSequencer.getInstance().markSaved(changes);
+            lastSaveOk = true;
             Log.info("💾 Snapshot saved (RDB).");
         } catch (IOException e) {
+            lastSaveOk = false;
             Log.error("⚠️ Save failed: " + e.getMessage());
         } finally {
+            lastSaveDurationSec = (System.currentTimeMillis() - start) / 1000;
+            saveStartedAt = 0;
             isSaving.set(false);
         }
     }
@@ -462,7 +625,7 @@ public class Carade {
         int len = dis.readInt();
         byte[] bytes = new byte[len];
         dis.readFully(bytes);
-        return new String(bytes, java.nio.charset.StandardCharsets.UTF_8);
+        return new String(bytes, ByteStrings.CHARSET);
     }
 
     private static void loadData() {
@@ -477,7 +640,18 @@ public class Carade {
             
             String header = new String(magic);
 
-            if (header.equals("REDIS")) {
+            if (ParallelRdbLoader.isParallelRdb(magic)) {
+                 Log.info("📂 Detected parallel RDB file. Loading...");
+                 long start = System.currentTimeMillis();
+                 long keys = new ParallelRdbLoader(config.rdbThreads).load(db, f);
+                 Log.info("📂 Loaded " + keys + " keys (parallel RDB, " + (System.currentTimeMillis() - start) + "ms).");
+            } else if (header.equals("REDIS") && config.rdbLazyLoad) {
+                 Log.info("📂 Detected RDB file. Indexing keys (lazy load)...");
+                 long start = System.currentTimeMillis();
+                 long keys = new LazyRdbLoader().load(db, f);
+                 lazyLoaded = true;
+                 Log.info("📂 Indexed " + keys + " keys in " + (System.currentTimeMillis() - start) + "ms, values decode on first use.");
+            } else if (header.equals("REDIS")) {
                  Log.info("📂 Detected RDB file. Loading...");
                  new RdbParser(is).parse(db);
                  Log.info("📂 Loaded " + db.size() + " keys (RDB).");
@@ -502,17 +676,17 @@ public class Carade {
                             if (typeCode == 0) {
                                 type = DataType.STRING;
                                 String s = readString(dis);
-                                value = s.getBytes(StandardCharsets.UTF_8);
+                                value = s.getBytes(ByteStrings.CHARSET);
                             } else if (typeCode == 1) {
                                 type = DataType.LIST;
                                 int size = dis.readInt();
-                                ConcurrentLinkedDeque<String> list = new ConcurrentLinkedDeque<>();
+                                Deque<String> list = new PackedList();
                                 for (int i=0; i<size; i++) list.add(readString(dis));
                                 value = list;
                             } else if (typeCode == 2) {
                                 type = DataType.HASH;
                                 int size = dis.readInt();
-                                ConcurrentHashMap<String, String> map = new ConcurrentHashMap<>();
+                                Map<String, String> map = new PackedHash();
                                 for (int i=0; i<size; i++) {
                                     String k = readString(dis);
                                     String v = readString(dis);
@@ -522,7 +696,7 @@ public class Carade {
                             } else if (typeCode == 3) {
                                 type = DataType.SET;
                                 int size = dis.readInt();
-                                Set<String> set = ConcurrentHashMap.newKeySet();
+                                Set<String> set = new PackedSet();
                                 for (int i=0; i<size; i++) set.add(readString(dis));
                                 value = set;
                             } else if (typeCode == 4) {
@@ -1,5 +1,10 @@
 package core;
 
+import core.db.DataType;
+import core.db.TieredStore;
+import core.server.ShardManager;
+import core.server.WriteSequencer;
+
 import java.lang.management.ManagementFactory;
 
 public class CaradeServerContext implements ServerContext {
@@ -44,11 +49,71 @@ public class CaradeServerContext implements ServerContext {
         return Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory();
     }
 
+    @Override
+    public long getUsedMemoryDataset() {
+        return Carade.db.getDatasetMemory();
+    }
+
+    @Override
+    public long[] getUsedMemoryByType() {
+        DataType[] types = DataType.values();
+        long[] bytes = new long[types.length];
+        for (DataType t : types) bytes[t.ordinal()] = Carade.db.getDatasetMemory(t);
+        return bytes;
+    }
+
     @Override
     public long getMaxMemory() {
         return Carade.config.maxMemory;
     }
 
+    @Override
+    public String getMaxMemoryPolicy() {
+        return Carade.config.maxMemoryPolicy;
+    }
+
+    @Override
+    public long getTierSpills() {
+        TieredStore tier = Carade.db.getTieredStore();
+        return tier != null ? tier.getSpills() : 0;
+    }
+
+    @Override
+    public long getTierFaults() {
+        TieredStore tier = Carade.db.getTieredStore();
+        return tier != null ? tier.getFaults() : 0;
+    }
+
+    @Override
+    public long getTierAvgFaultMicros() {
+        TieredStore tier = Carade.db.getTieredStore();
+        return tier != null ? tier.getAvgFaultMicros() : 0;
+    }
+
+    @Override
+    public long getTierMaxFaultMicros() {
+        TieredStore tier = Carade.db.getTieredStore();
+        return tier != null ? tier.getMaxFaultMicros() : 0;
+    }
+
+    @Override
+    public long getTierDiskBytes() {
+        TieredStore tier = Carade.db.getTieredStore();
+        return tier != null ? tier.getDiskBytes() : 0;
+    }
+
+    @Override
+    public int getTierSegments() {
+        TieredStore tier = Carade.db.getTieredStore();
+        return tier != null ? tier.getSegments() : 0;
+    }
+
+    @Override
+    public long getTierCompactedSegments() {
+        TieredStore tier = Carade.db.getTieredStore();
+        return tier != null ? tier.getCompactedSegments() : 0;
+    }
+
     @Override
     public long getTotalCommandsProcessed() {
         return Carade.totalCommands.get();
@@ -64,6 +129,11 @@ public class CaradeServerContext implements ServerContext {
         return Carade.keyspaceMisses.get();
     }
 
+    @Override
+    public long getEvictedKeys() {
+        return Carade.db.getEvictedKeys();
+    }
+
     @Override
     public boolean isAofEnabled() {
         return Carade.aofHandler != null;
@@ -74,6 +144,72 @@ public class CaradeServerContext implements ServerContext {
         return Carade.lastSaveTime;
     }
 
+    @Override
+    public long getRdbChangesSinceLastSave() {
+        return WriteSequencer.getInstance().getDirty();
+    }
+
+    @Override
+    public boolean isRdbSaveInProgress() {
+        return Carade.isSaving.get();
+    }
+
+    @Override
+    public boolean isRdbLastSaveOk() {
+        return Carade.lastSaveOk;
+    }
+
+    @Override
+    public long getRdbLastSaveDurationSec() {
+        return Carade.lastSaveDurationSec;
+    }
+
+    @Override
+    public long getRdbCurrentSaveDurationSec() {
+        long started = Carade.saveStartedAt;
+        return started == 0 ? -1 : (System.currentTimeMillis() - started) / 1000;
+    }
+
+    @Override
+    public String getAofFsyncPolicy() {
+        return Carade.aofHandler != null ? Carade.aofHandler.getFsyncPolicy().name().toLowerCase() : "no";
+    }
+
+    @Override
+    public long getAofFsyncCount() {
+        return Carade.aofHandler != null ? Carade.aofHandler.getFsyncCount() : 0;
+    }
+
+    @Override
+    public long getAofLastFsyncMicros() {
+        return Carade.aofHandler != null ? Carade.aofHandler.getLastFsyncMicros() : 0;
+    }
+
+    @Override
+    public long getAofAvgFsyncMicros() {
+        return Carade.aofHandler != null ? Carade.aofHandler.getAvgFsyncMicros() : 0;
+    }
+
+    @Override
+    public long getAofMaxFsyncMicros() {
+        return Carade.aofHandler != null ? Carade.aofHandler.getMaxFsyncMicros() : 0;
+    }
+
+    @Override
+    public long getAofPendingBytes() {
+        return Carade.aofHandler != null ? Carade.aofHandler.getPendingBytes() : 0;
+    }
+
+    @Override
+    public long getAofDelayedFsyncs() {
+        return Carade.aofHandler != null ? Carade.aofHandler.getDelayedFsyncs() : 0;
+    }
+
+    @Override
+    public boolean isAofLastWriteOk() {
+        return Carade.aofHandler == null || Carade.aofHandler.getLastError() == null;
+    }
+
     @Override
     public int getAvailableProcessors() {
         return Runtime.getRuntime().availableProcessors();
@@ -83,4 +219,29 @@ public class CaradeServerContext implements ServerContext {
     public int getDbSize() {
         return Carade.db.size();
     }
+
+    @Override
+    public int getShardCount() {
+        return ShardManager.getInstance().getShardCount();
+    }
+
+    @Override
+    public long getCrossShardCommands() {
+        return ShardManager.getInstance().getCrossShardCommands();
+    }
+
+    @Override
+    public long[] getShardCommandCounts() {
+        return ShardManager.getInstance().getCommandCounts();
+    }
+
+    @Override
+    public long[] getShardBusyMicros() {
+        return ShardManager.getInstance().getBusyMicros();
+    }
+
+    @Override
+    public int[] getShardQueueDepths() {
+        return ShardManager.getInstance().getQueueDepths();
+    }
 }
@@ -9,12 +9,77 @@ public class Config {
     // Backward compat for ConfigGet
     public static final int PORT = 63790; 
     public static final String MAXMEMORY = "0"; 
+    public static final int DEFAULT_MAX_UNFLUSHED_BYTES = 64 * 1024;
 
     public String version = "0.3.4";
     public int port = 63790;
     public String password = "teasertopsecret";
     public long maxMemory = 268435456; // 256MB default
     public String maxMemoryPolicy = "noeviction"; 
+    public int maxMemorySamples = 5; // Keys sampled per DB and round by the LRU/LFU policies
+    // LFU counter: probability divisor of an increment, minutes per decrement without access
+    public int lfuLogFactor = 10;
+    public int lfuDecayTime = 1;
+    // Packed (listpack) encodings of small collections: most entries, longest entry in bytes
+    public int hashMaxListpackEntries = 128;
+    public int hashMaxListpackValue = 64;
+    public int setMaxIntsetEntries = 512;
+    public int setMaxListpackEntries = 128;
+    public int setMaxListpackValue = 64;
+    public int zsetMaxListpackEntries = 128;
+    public int zsetMaxListpackValue = 64;
+    public int listMaxListpackSize = -2; // Elements if positive, else -1..-5 = 4KB..64KB
+    public int listCompressDepth = 0; // Quicklist chunks left uncompressed at each end, 0 = none compressed
+    // Disk tier of maxmemory-policy tiered: segment directory, segment size, smallest serialized value worth spilling
+    public String tierDir = "tier";
+    public long tierSegmentSize = 64L * 1024 * 1024;
+    public int tierMinValueBytes = 64;
+    public boolean zeroCopyDecoder = false; // Decode arguments as slices of the read buffer
+    public int maxUnflushedBytes = DEFAULT_MAX_UNFLUSHED_BYTES; // Flush a pipelined burst early past this size
+    public boolean flushConsolidation = false; // Batch flushes of out-of-band pushes per event loop
+
+    // Network transport
+    public String transport = "auto"; // auto | nio | epoll | io_uring
+    public int acceptors = 1; // Listener channels bound with SO_REUSEPORT (native transports only)
+    public int ioThreads = 0; // Worker event loops, 0 = Netty default (2 * cores)
+    public boolean tcpNoDelay = true;
+    public int tcpBacklog = 511;
+    public int socketReceiveBuffer = 0; // SO_RCVBUF, 0 = OS default
+    public int socketSendBuffer = 0; // SO_SNDBUF, 0 = OS default
+    public int writeBufferLowWaterMark = 32 * 1024;
+    public int writeBufferHighWaterMark = 64 * 1024;
+    public boolean epollEdgeTriggered = true;
+
+    // Shared-nothing execution: keys are partitioned over this many single-threaded shards, 0 = striped locks
+    public int shards = 0;
+
+    // AOF durability: always | everysec | no
+    public String appendFsync = "everysec";
+
+    // Multi-part AOF: base + incremental files named after appendFilename inside appendDirname.
+    // An empty appendDirname keeps the single appendFilename file.
+    public String appendFilename = "carade.aof";
+    public String appendDirname = "appendonlydir";
+    // Encoding of the incremental files: resp | binary (varint records with CRC32C blocks, multi-part only)
+    public String appendFormat = "resp";
+
+    // Save points: "<seconds> <changes>" pairs, "" = no automatic snapshots
+    public String save = "3600 1 300 100 60 10000";
+
+    // Dump format: redis (RDB v9, single stream) | parallel (sections encoded and loaded on rdbThreads)
+    public String rdbFormat = "redis";
+    public int rdbThreads = 0; // 0 = one per core
+    public boolean rdbSectionCompression = true; // LZ4 per section (parallel format)
+    // Index the dump at startup and decode values on first use / in the background (redis format)
+    public boolean rdbLazyLoad = false;
+
+    // Slots of the write pipeline ring (commands waiting for AOF / backlog / replicas)
+    public int appendRingSize = 64 * 1024;
+
+    // Unix domain socket listener (disabled when unixSocket is null)
+    public String unixSocket = null;
+    public String unixSocketPerm = "700"; // Octal file mode of the socket
+    public int unixSocketMaxClients = 0; // 0 = unlimited
     public Map<String, User> users = new HashMap<>();
 
     public Config() {
@@ -81,6 +146,7 @@ public class Config {
     private static Config loadLegacy(File f, Config config) {
         try (BufferedReader br = new BufferedReader(new FileReader(f))) {
             String line;
+            boolean saveSeen = false;
             while ((line = br.readLine()) != null) {
                 line = line.trim();
                 if (line.isEmpty() || line.startsWith("#")) continue;
@@ -98,6 +164,53 @@ public class Config {
                         break;
                     case "maxmemory": config.maxMemory = parseMemory(val); break;
                     case "maxmemory-policy": config.maxMemoryPolicy = val; break;
+                    case "maxmemory-samples": config.maxMemorySamples = Integer.parseInt(val.trim()); break;
+                    case "lfu-log-factor": config.lfuLogFactor = Integer.parseInt(val.trim()); break;
+                    case "lfu-decay-time": config.lfuDecayTime = Integer.parseInt(val.trim()); break;
+                    case "hash-max-listpack-entries": config.hashMaxListpackEntries = Integer.parseInt(val.trim()); break;
+                    case "hash-max-listpack-value": config.hashMaxListpackValue = Integer.parseInt(val.trim()); break;
+                    case "set-max-intset-entries": config.setMaxIntsetEntries = Integer.parseInt(val.trim()); break;
+                    case "set-max-listpack-entries": config.setMaxListpackEntries = Integer.parseInt(val.trim()); break;
+                    case "set-max-listpack-value": config.setMaxListpackValue = Integer.parseInt(val.trim()); break;
+                    case "zset-max-listpack-entries": config.zsetMaxListpackEntries = Integer.parseInt(val.trim()); break;
+                    case "zset-max-listpack-value": config.zsetMaxListpackValue = Integer.parseInt(val.trim()); break;
+                    case "list-max-listpack-size": config.listMaxListpackSize = Integer.parseInt(val.trim()); break;
+                    case "list-compress-depth": config.listCompressDepth = Integer.parseInt(val.trim()); break;
+                    case "tier-dir": config.tierDir = unquote(val); break;
+                    case "tier-segment-size": config.tierSegmentSize = parseMemory(val); break;
+                    case "tier-min-value-size": config.tierMinValueBytes = (int) parseMemory(val); break;
+                    case "zero-copy-decoder": config.zeroCopyDecoder = parseBoolean(val); break;
+                    case "max-unflushed-bytes": config.maxUnflushedBytes = (int) parseMemory(val); break;
+                    case "flush-consolidation": config.flushConsolidation = parseBoolean(val); break;
+                    case "transport": config.transport = val.trim(); break;
+                    case "acceptors": config.acceptors = Integer.parseInt(val.trim()); break;
+                    case "io-threads": config.ioThreads = Integer.parseInt(val.trim()); break;
+                    case "tcp-nodelay": config.tcpNoDelay = parseBoolean(val); break;
+                    case "tcp-backlog": config.tcpBacklog = Integer.parseInt(val.trim()); break;
+                    case "socket-rcvbuf": config.socketReceiveBuffer = (int) parseMemory(val); break;
+                    case "socket-sndbuf": config.socketSendBuffer = (int) parseMemory(val); break;
+                    case "write-buffer-low-water-mark": config.writeBufferLowWaterMark = (int) parseMemory(val); break;
+                    case "write-buffer-high-water-mark": config.writeBufferHighWaterMark = (int) parseMemory(val); break;
+                    case "epoll-edge-triggered": config.epollEdgeTriggered = parseBoolean(val); break;
+                    case "shards": config.shards = Integer.parseInt(val.trim()); break;
+                    case "appendfsync": config.appendFsync = val.trim(); break;
+                    case "appendfilename": config.appendFilename = unquote(val); break;
+                    case "appenddirname": config.appendDirname = unquote(val); break;
+                    case "aof-format": config.appendFormat = val.trim().toLowerCase(); break;
+                    case "save":
+                        // Repeated "save" lines add rules; the first one replaces the defaults
+                        String rule = unquote(val);
+                        config.save = saveSeen && !rule.isEmpty() && !config.save.isEmpty() ? config.save + " " + rule : rule;
+                        saveSeen = true;
+                        break;
+                    case "rdb-format": config.rdbFormat = val.trim().toLowerCase(); break;
+                    case "rdb-threads": config.rdbThreads = Integer.parseInt(val.trim()); break;
+                    case "rdb-section-compression": config.rdbSectionCompression = parseBoolean(val); break;
+                    case "rdb-lazy-load": config.rdbLazyLoad = parseBoolean(val); break;
+                    case "append-ring-size": config.appendRingSize = Integer.parseInt(val.trim()); break;
+                    case "unixsocket": config.unixSocket = val.trim(); break;
+                    case "unixsocketperm": config.unixSocketPerm = val.trim(); break;
+                    case "unixsocket-maxclients": config.unixSocketMaxClients = Integer.parseInt(val.trim()); break;
                     case "user":
                         String[] uParts = val.split("\\s+");
                         if (uParts.length >= 2) {
@@ -118,6 +231,21 @@ public class Config {
         return config;
     }
 
+    // Redis style "yes"/"no", also accepts "true"/"false"
+    private static boolean parseBoolean(String val) {
+        val = val.trim();
+        return val.equalsIgnoreCase("yes") || val.equalsIgnoreCase("true");
+    }
+
+    // Value with optional surrounding quotes (appendfilename "carade.aof"), "" = empty
+    private static String unquote(String val) {
+        val = val.trim();
+        if (val.length() >= 2 && val.startsWith("\"") && val.endsWith("\"")) {
+            val = val.substring(1, val.length() - 1);
+        }
+        return val;
+    }
+
     private static long parseMemory(String val) {
         val = val.toUpperCase();
         long factor = 1;
@@ -14,20 +14,53 @@ public interface ServerContext {
     
     // Memory
     long getUsedMemory();
+    long getUsedMemoryDataset(); // Estimated keys and values, what maxmemory is compared with
+    long[] getUsedMemoryByType(); // Indexed by DataType ordinal
     long getMaxMemory();
+    String getMaxMemoryPolicy();
+
+    // Disk tier (maxmemory-policy tiered), zero until something was spilled
+    long getTierSpills();
+    long getTierFaults();
+    long getTierAvgFaultMicros();
+    long getTierMaxFaultMicros();
+    long getTierDiskBytes();
+    int getTierSegments();
+    long getTierCompactedSegments();
     
     // Stats
     long getTotalCommandsProcessed();
     long getKeyspaceHits();
     long getKeyspaceMisses();
+    long getEvictedKeys();
     
     // Persistence
     boolean isAofEnabled();
     long getLastSaveTime();
+    long getRdbChangesSinceLastSave();
+    boolean isRdbSaveInProgress();
+    boolean isRdbLastSaveOk();
+    long getRdbLastSaveDurationSec();
+    long getRdbCurrentSaveDurationSec(); // -1 when no save is running
+    String getAofFsyncPolicy();
+    long getAofFsyncCount();
+    long getAofLastFsyncMicros();
+    long getAofAvgFsyncMicros();
+    long getAofMaxFsyncMicros();
+    long getAofPendingBytes();
+    long getAofDelayedFsyncs();
+    boolean isAofLastWriteOk();
     
     // CPU
     int getAvailableProcessors();
     
     // Storage
     int getDbSize();
+
+    // Shards (shard execution mode, count 0 when disabled)
+    int getShardCount();
+    long getCrossShardCommands();
+    long[] getShardCommandCounts();
+    long[] getShardBusyMicros();
+    int[] getShardQueueDepths();
 }
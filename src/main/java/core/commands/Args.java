@@ -0,0 +1,61 @@
+package core.commands;
+
+import core.protocol.netty.RespArgs;
+import core.utils.ByteStrings;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reads command arguments without an intermediate byte[] copy.
+ *
+ * Arguments decoded in zero-copy mode ({@link RespArgs}) are read straight from the
+ * read buffer; any other list (MULTI queue, scripts, AOF replay) goes through get().
+ * Values that end up stored still have to be copied, but keys, numbers and option
+ * names no longer are.
+ */
+public final class Args {
+
+    private Args() {}
+
+    /**
+     * The argument as a byte string (see ByteStrings), or null for a null bulk string.
+     */
+    public static String string(List<byte[]> args, int index) {
+        if (args instanceof RespArgs) return ((RespArgs) args).getString(index);
+        byte[] arg = args.get(index);
+        return arg == null ? null : new String(arg, ByteStrings.CHARSET);
+    }
+
+    /**
+     * @throws NumberFormatException if the argument is not a valid 64-bit integer
+     */
+    public static long parseLong(List<byte[]> args, int index) {
+        if (args instanceof RespArgs) return ((RespArgs) args).parseLong(index);
+        byte[] arg = args.get(index);
+        if (arg == null) throw new NumberFormatException("null");
+        return Long.parseLong(new String(arg, ByteStrings.CHARSET));
+    }
+
+    /**
+     * ASCII case-insensitive match of an option name (EX, NX, ...).
+     */
+    public static boolean is(List<byte[]> args, int index, String option) {
+        if (args instanceof RespArgs) return ((RespArgs) args).equalsIgnoreCase(index, option);
+        byte[] arg = args.get(index);
+        return arg != null && new String(arg, ByteStrings.CHARSET).equalsIgnoreCase(option);
+    }
+
+    public static boolean isNull(List<byte[]> args, int index) {
+        if (args instanceof RespArgs) return ((RespArgs) args).length(index) < 0;
+        return args.get(index) == null;
+    }
+
+    /**
+     * {@code Arrays.hashCode} of the argument, used to pick its lock stripe and shard.
+     */
+    public static int hash(List<byte[]> args, int index) {
+        if (args instanceof RespArgs) return ((RespArgs) args).hash(index);
+        return Arrays.hashCode(args.get(index));
+    }
+}
@@ -18,6 +18,8 @@ import core.commands.pubsub.*;
 import core.commands.transaction.*;
 import core.commands.scripting.*;
 
+import io.netty.buffer.ByteBuf;
+
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
@@ -27,261 +29,265 @@ import java.util.Collections;
 
 public class CommandRegistry {
     private static final Map<String, CommandContainer> commands = new HashMap<>();
+    // Open-addressed table of canonical (upper-case) names, probed by a case-folded hash.
+    // Lets the dispatcher resolve a command name straight from the request bytes.
+    private static String[] nameTable = new String[512];
+    private static int nameCount = 0;
 
     static {
         // String
         register("GET", new GetCommand(), new CommandMetadata(2, Set.of("readonly", "fast"), 1, 1, 1));
         register("SET", new SetCommand(), new CommandMetadata(-3, Set.of("write", "denyoom"), 1, 1, 1));
-        register("SETNX", new SetNxCommand());
-        register("INCR", new IncrCommand());
-        register("DECR", new DecrCommand());
-        register("INCRBY", new IncrByCommand());
-        register("DECRBY", new DecrByCommand());
-        register("GETSET", new GetSetCommand());
-        register("STRLEN", new StrLenCommand());
-        register("BITCOUNT", new BitCountCommand());
-        register("BITOP", new BitOpCommand());
-        register("BITPOS", new BitPosCommand());
-        register("BITFIELD", new BitFieldCommand());
-        register("BITFIELD_RO", new BitFieldRoCommand());
-        register("SETBIT", new SetBitCommand());
-        register("GETBIT", new GetBitCommand());
-        register("MSET", new MSetCommand());
-        register("MGET", new MGetCommand());
-        register("APPEND", new AppendCommand());
-        register("GETRANGE", new GetRangeCommand());
-        register("SETRANGE", new SetRangeCommand());
-        register("SETEX", new SetExCommand());
-        register("PSETEX", new PSetExCommand());
-        register("MSETNX", new MSetNxCommand());
-        register("INCRBYFLOAT", new IncrByFloatCommand());
-        register("GETDEL", new GetDelCommand());
-        register("GETEX", new GetExCommand());
-        register("COPY", new CopyCommand());
-        register("MOVE", new MoveCommand());
-        register("RENAMENX", new RenameNxCommand());
-        register("LCS", new LcsCommand());
+        register("SETNX", new SetNxCommand(), new CommandMetadata(3, Set.of("write", "denyoom", "fast"), 1, 1, 1));
+        register("INCR", new IncrCommand(), new CommandMetadata(2, Set.of("write", "denyoom", "fast"), 1, 1, 1));
+        register("DECR", new DecrCommand(), new CommandMetadata(2, Set.of("write", "denyoom", "fast"), 1, 1, 1));
+        register("INCRBY", new IncrByCommand(), new CommandMetadata(3, Set.of("write", "denyoom", "fast"), 1, 1, 1));
+        register("DECRBY", new DecrByCommand(), new CommandMetadata(3, Set.of("write", "denyoom", "fast"), 1, 1, 1));
+        register("GETSET", new GetSetCommand(), new CommandMetadata(3, Set.of("write", "denyoom", "fast"), 1, 1, 1));
+        register("STRLEN", new StrLenCommand(), new CommandMetadata(2, Set.of("readonly", "fast"), 1, 1, 1));
+        register("BITCOUNT", new BitCountCommand(), new CommandMetadata(-2, Set.of("readonly"), 1, 1, 1));
+        register("BITOP", new BitOpCommand(), new CommandMetadata(-4, Set.of("write", "denyoom"), 2, -1, 1));
+        register("BITPOS", new BitPosCommand(), new CommandMetadata(-3, Set.of("readonly"), 1, 1, 1));
+        register("BITFIELD", new BitFieldCommand(), new CommandMetadata(-2, Set.of("write", "denyoom"), 1, 1, 1));
+        register("BITFIELD_RO", new BitFieldRoCommand(), new CommandMetadata(-2, Set.of("readonly", "fast"), 1, 1, 1));
+        register("SETBIT", new SetBitCommand(), new CommandMetadata(4, Set.of("write", "denyoom"), 1, 1, 1));
+        register("GETBIT", new GetBitCommand(), new CommandMetadata(3, Set.of("readonly", "fast"), 1, 1, 1));
+        register("MSET", new MSetCommand(), new CommandMetadata(-3, Set.of("write", "denyoom"), 1, -1, 2));
+        register("MGET", new MGetCommand(), new CommandMetadata(-2, Set.of("readonly", "fast"), 1, -1, 1));
+        register("APPEND", new AppendCommand(), new CommandMetadata(3, Set.of("write", "denyoom", "fast"), 1, 1, 1));
+        register("GETRANGE", new GetRangeCommand(), new CommandMetadata(4, Set.of("readonly"), 1, 1, 1));
+        register("SETRANGE", new SetRangeCommand(), new CommandMetadata(4, Set.of("write", "denyoom"), 1, 1, 1));
+        register("SETEX", new SetExCommand(), new CommandMetadata(4, Set.of("write", "denyoom"), 1, 1, 1));
+        register("PSETEX", new PSetExCommand(), new CommandMetadata(4, Set.of("write", "denyoom"), 1, 1, 1));
+        register("MSETNX", new MSetNxCommand(), new CommandMetadata(-3, Set.of("write", "denyoom"), 1, -1, 2));
+        register("INCRBYFLOAT", new IncrByFloatCommand(), new CommandMetadata(3, Set.of("write", "denyoom", "fast"), 1, 1, 1));
+        register("GETDEL", new GetDelCommand(), new CommandMetadata(2, Set.of("write", "fast"), 1, 1, 1));
+        register("GETEX", new GetExCommand(), new CommandMetadata(-2, Set.of("write", "fast"), 1, 1, 1));
+        register("COPY", new CopyCommand(), new CommandMetadata(-3, Set.of("write", "denyoom"), 1, 2, 1));
+        register("MOVE", new MoveCommand(), new CommandMetadata(3, Set.of("write", "fast"), 1, 1, 1));
+        register("RENAMENX", new RenameNxCommand(), new CommandMetadata(3, Set.of("write", "fast"), 1, 2, 1));
+        register("LCS", new LcsCommand(), new CommandMetadata(-3, Set.of("readonly"), 1, 2, 1));
 
         // Hash
-        register("HSET", new HSetCommand());
-        register("HGET", new HGetCommand());
-        register("HMSET", new HMSetCommand());
-        register("HMGET", new HmgetCommand());
-        register("HLEN", new HLenCommand());
-        register("HKEYS", new HKeysCommand());
-        register("HVALS", new HValsCommand());
-        register("HEXISTS", new HExistsCommand());
-        register("HGETALL", new HGetAllCommand());
-        register("HDEL", new HDelCommand());
-        register("HINCRBY", new HIncrByCommand());
-        register("HSETNX", new HSetNxCommand());
-        register("HINCRBYFLOAT", new HIncrByFloatCommand());
-        register("HEXPIRE", new HExpireCommand());
-        register("HTTL", new HTtlCommand());
-        register("HSTRLEN", new HStrLenCommand());
-        register("HRANDFIELD", new HRandFieldCommand());
+        register("HSET", new HSetCommand(), new CommandMetadata(-4, Set.of("write", "denyoom", "fast"), 1, 1, 1));
+        register("HGET", new HGetCommand(), new CommandMetadata(3, Set.of("readonly", "fast"), 1, 1, 1));
+        register("HMSET", new HMSetCommand(), new CommandMetadata(-4, Set.of("write", "denyoom", "fast"), 1, 1, 1));
+        register("HMGET", new HmgetCommand(), new CommandMetadata(-3, Set.of("readonly", "fast"), 1, 1, 1));
+        register("HLEN", new HLenCommand(), new CommandMetadata(2, Set.of("readonly", "fast"), 1, 1, 1));
+        register("HKEYS", new HKeysCommand(), new CommandMetadata(2, Set.of("readonly"), 1, 1, 1));
+        register("HVALS", new HValsCommand(), new CommandMetadata(2, Set.of("readonly"), 1, 1, 1));
+        register("HEXISTS", new HExistsCommand(), new CommandMetadata(3, Set.of("readonly", "fast"), 1, 1, 1));
+        register("HGETALL", new HGetAllCommand(), new CommandMetadata(2, Set.of("readonly"), 1, 1, 1));
+        register("HDEL", new HDelCommand(), new CommandMetadata(-3, Set.of("write", "fast"), 1, 1, 1));
+        register("HINCRBY", new HIncrByCommand(), new CommandMetadata(4, Set.of("write", "denyoom", "fast"), 1, 1, 1));
+        register("HSETNX", new HSetNxCommand(), new CommandMetadata(4, Set.of("write", "denyoom", "fast"), 1, 1, 1));
+        register("HINCRBYFLOAT", new HIncrByFloatCommand(), new CommandMetadata(4, Set.of("write", "denyoom", "fast"), 1, 1, 1));
+        register("HEXPIRE", new HExpireCommand(), new CommandMetadata(-6, Set.of("write", "fast"), 1, 1, 1));
+        register("HTTL", new HTtlCommand(), new CommandMetadata(-5, Set.of("readonly", "fast"), 1, 1, 1));
+        register("HSTRLEN", new HStrLenCommand(), new CommandMetadata(3, Set.of("readonly", "fast"), 1, 1, 1));
+        register("HRANDFIELD", new HRandFieldCommand(), new CommandMetadata(-2, Set.of("readonly"), 1, 1, 1));
 
         // List
-        register("LLEN", new LLenCommand());
-        register("LINDEX", new LIndexCommand());
-        register("LREM", new LRemCommand());
-        register("LPOP", new LPopCommand());
-        register("RPOP", new RPopCommand());
-        register("LPUSH", new LPushCommand());
-        register("RPUSH", new RPushCommand());
-        register("LTRIM", new LTrimCommand());
-        register("LRANGE", new LRangeCommand());
-        register("BLPOP", new BlPopCommand());
-        register("BRPOP", new BrPopCommand());
-        register("BRPOPLPUSH", new BrPopLPushCommand());
-        register("BLMOVE", new BlMoveCommand());
-        register("RPOPLPUSH", new RPopLPushCommand());
-        register("LMOVE", new LMoveCommand());
-        register("LPUSHX", new LPushXCommand());
-        register("RPUSHX", new RPushXCommand());
-        register("LSET", new LSetCommand());
-        register("LPOS", new LPosCommand());
-        register("LINSERT", new LInsertCommand());
-        register("LMPOP", new LmPopCommand());
-        register("BLMPOP", new BlmPopCommand());
-        register("ZMPOP", new ZmPopCommand());
-        register("BZMPOP", new BzmPopCommand());
+        register("LLEN", new LLenCommand(), new CommandMetadata(2, Set.of("readonly", "fast"), 1, 1, 1));
+        register("LINDEX", new LIndexCommand(), new CommandMetadata(3, Set.of("readonly"), 1, 1, 1));
+        register("LREM", new LRemCommand(), new CommandMetadata(4, Set.of("write"), 1, 1, 1));
+        register("LPOP", new LPopCommand(), new CommandMetadata(-2, Set.of("write", "fast"), 1, 1, 1));
+        register("RPOP", new RPopCommand(), new CommandMetadata(-2, Set.of("write", "fast"), 1, 1, 1));
+        register("LPUSH", new LPushCommand(), new CommandMetadata(-3, Set.of("write", "denyoom", "fast"), 1, 1, 1));
+        register("RPUSH", new RPushCommand(), new CommandMetadata(-3, Set.of("write", "denyoom", "fast"), 1, 1, 1));
+        register("LTRIM", new LTrimCommand(), new CommandMetadata(4, Set.of("write"), 1, 1, 1));
+        register("LRANGE", new LRangeCommand(), new CommandMetadata(4, Set.of("readonly"), 1, 1, 1));
+        register("BLPOP", new BlPopCommand(), new CommandMetadata(-3, Set.of("write", "blocking"), 1, -2, 1));
+        register("BRPOP", new BrPopCommand(), new CommandMetadata(-3, Set.of("write", "blocking"), 1, -2, 1));
+        register("BRPOPLPUSH", new BrPopLPushCommand(), new CommandMetadata(4, Set.of("write", "denyoom", "blocking"), 1, 2, 1));
+        register("BLMOVE", new BlMoveCommand(), new CommandMetadata(6, Set.of("write", "denyoom", "blocking"), 1, 2, 1));
+        register("RPOPLPUSH", new RPopLPushCommand(), new CommandMetadata(3, Set.of("write", "denyoom"), 1, 2, 1));
+        register("LMOVE", new LMoveCommand(), new CommandMetadata(5, Set.of("write", "denyoom"), 1, 2, 1));
+        register("LPUSHX", new LPushXCommand(), new CommandMetadata(-3, Set.of("write", "denyoom", "fast"), 1, 1, 1));
+        register("RPUSHX", new RPushXCommand(), new CommandMetadata(-3, Set.of("write", "denyoom", "fast"), 1, 1, 1));
+        register("LSET", new LSetCommand(), new CommandMetadata(4, Set.of("write", "denyoom"), 1, 1, 1));
+        register("LPOS", new LPosCommand(), new CommandMetadata(-3, Set.of("readonly"), 1, 1, 1));
+        register("LINSERT", new LInsertCommand(), new CommandMetadata(5, Set.of("write", "denyoom"), 1, 1, 1));
+        register("LMPOP", new LmPopCommand(), new CommandMetadata(-4, Set.of("write", "movablekeys"), 0, 0, 0));
+        register("BLMPOP", new BlmPopCommand(), new CommandMetadata(-5, Set.of("write", "blocking", "movablekeys"), 0, 0, 0));
+        register("ZMPOP", new ZmPopCommand(), new CommandMetadata(-4, Set.of("write", "movablekeys"), 0, 0, 0));
+        register("BZMPOP", new BzmPopCommand(), new CommandMetadata(-5, Set.of("write", "blocking", "movablekeys"), 0, 0, 0));
 
         // Set
-        register("SPOP", new SPopCommand());
-        register("SRANDMEMBER", new SRandMemberCommand());
-        register("SMOVE", new SMoveCommand());
-        register("SADD", new SAddCommand());
-        register("SMEMBERS", new SMembersCommand());
-        register("SREM", new SRemCommand());
-        register("SISMEMBER", new SIsMemberCommand());
-        register("SMISMEMBER", new SMIsMemberCommand());
-        register("SCARD", new SCardCommand());
-        register("SINTER", new SInterCommand());
-        register("SUNION", new SUnionCommand());
-        register("SDIFF", new SDiffCommand());
-        register("SINTERSTORE", new SInterStoreCommand());
-        register("SUNIONSTORE", new SUnionStoreCommand());
-        register("SDIFFSTORE", new SDiffStoreCommand());
-        register("SINTERCARD", new SInterCardCommand());
+        register("SPOP", new SPopCommand(), new CommandMetadata(-2, Set.of("write", "fast"), 1, 1, 1));
+        register("SRANDMEMBER", new SRandMemberCommand(), new CommandMetadata(-2, Set.of("readonly"), 1, 1, 1));
+        register("SMOVE", new SMoveCommand(), new CommandMetadata(4, Set.of("write", "fast"), 1, 2, 1));
+        register("SADD", new SAddCommand(), new CommandMetadata(-3, Set.of("write", "denyoom", "fast"), 1, 1, 1));
+        register("SMEMBERS", new SMembersCommand(), new CommandMetadata(2, Set.of("readonly"), 1, 1, 1));
+        register("SREM", new SRemCommand(), new CommandMetadata(-3, Set.of("write", "fast"), 1, 1, 1));
+        register("SISMEMBER", new SIsMemberCommand(), new CommandMetadata(3, Set.of("readonly", "fast"), 1, 1, 1));
+        register("SMISMEMBER", new SMIsMemberCommand(), new CommandMetadata(-3, Set.of("readonly", "fast"), 1, 1, 1));
+        register("SCARD", new SCardCommand(), new CommandMetadata(2, Set.of("readonly", "fast"), 1, 1, 1));
+        register("SINTER", new SInterCommand(), new CommandMetadata(-2, Set.of("readonly"), 1, -1, 1));
+        register("SUNION", new SUnionCommand(), new CommandMetadata(-2, Set.of("readonly"), 1, -1, 1));
+        register("SDIFF", new SDiffCommand(), new CommandMetadata(-2, Set.of("readonly"), 1, -1, 1));
+        register("SINTERSTORE", new SInterStoreCommand(), new CommandMetadata(-3, Set.of("write", "denyoom"), 1, -1, 1));
+        register("SUNIONSTORE", new SUnionStoreCommand(), new CommandMetadata(-3, Set.of("write", "denyoom"), 1, -1, 1));
+        register("SDIFFSTORE", new SDiffStoreCommand(), new CommandMetadata(-3, Set.of("write", "denyoom"), 1, -1, 1));
+        register("SINTERCARD", new SInterCardCommand(), new CommandMetadata(-3, Set.of("readonly", "movablekeys"), 0, 0, 0));
 
         // ZSet
-        register("ZREMRANGEBYSCORE", new ZRemRangeByScoreCommand());
-        register("ZREMRANGEBYRANK", new ZRemRangeByRankCommand());
-        register("ZREVRANGEBYLEX", new ZRevRangeByLexCommand());
-        register("ZLEXCOUNT", new ZLexCountCommand());
-        register("ZRANGEBYLEX", new ZRangeByLexCommand());
-        register("ZADD", new ZAddCommand());
-        register("ZRANGE", new ZRangeCommand());
-        register("ZREVRANGE", new ZRevRangeCommand());
-        register("ZRANK", new ZRankCommand());
-        register("ZREM", new ZRemCommand());
-        register("ZINCRBY", new ZIncrByCommand());
-        register("ZCARD", new ZCardCommand());
-        register("ZCOUNT", new ZCountCommand());
-        register("ZSCORE", new ZScoreCommand());
-        register("ZRANGEBYSCORE", new ZRangeByScoreCommand());
-        register("ZREVRANGEBYSCORE", new ZRevRangeByScoreCommand());
-        register("BZPOPMIN", new BzPopMinCommand());
-        register("BZPOPMAX", new BzPopMaxCommand());
-        register("ZPOPMIN", new ZPopMinCommand());
-        register("ZPOPMAX", new ZPopMaxCommand());
-        register("ZUNIONSTORE", new ZUnionStoreCommand());
-        register("ZINTERSTORE", new ZInterStoreCommand());
-        register("ZDIFF", new ZDiffCommand());
-        register("ZDIFFSTORE", new ZDiffStoreCommand());
-        register("ZINTER", new ZInterCommand());
-        register("ZUNION", new ZUnionCommand());
-        register("ZINTERCARD", new ZInterCardCommand());
-        register("ZRANGESTORE", new ZRangeStoreCommand());
-        register("ZREVRANK", new ZRevRankCommand());
-        register("ZMSCORE", new ZMScoreCommand());
-        register("ZRANDMEMBER", new ZRandMemberCommand());
+        register("ZREMRANGEBYSCORE", new ZRemRangeByScoreCommand(), new CommandMetadata(4, Set.of("write"), 1, 1, 1));
+        register("ZREMRANGEBYRANK", new ZRemRangeByRankCommand(), new CommandMetadata(4, Set.of("write"), 1, 1, 1));
+        register("ZREVRANGEBYLEX", new ZRevRangeByLexCommand(), new CommandMetadata(-4, Set.of("readonly"), 1, 1, 1));
+        register("ZLEXCOUNT", new ZLexCountCommand(), new CommandMetadata(4, Set.of("readonly", "fast"), 1, 1, 1));
+        register("ZRANGEBYLEX", new ZRangeByLexCommand(), new CommandMetadata(-4, Set.of("readonly"), 1, 1, 1));
+        register("ZADD", new ZAddCommand(), new CommandMetadata(-4, Set.of("write", "denyoom", "fast"), 1, 1, 1));
+        register("ZRANGE", new ZRangeCommand(), new CommandMetadata(-4, Set.of("readonly"), 1, 1, 1));
+        register("ZREVRANGE", new ZRevRangeCommand(), new CommandMetadata(-4, Set.of("readonly"), 1, 1, 1));
+        register("ZRANK", new ZRankCommand(), new CommandMetadata(-3, Set.of("readonly", "fast"), 1, 1, 1));
+        register("ZREM", new ZRemCommand(), new CommandMetadata(-3, Set.of("write", "fast"), 1, 1, 1));
+        register("ZINCRBY", new ZIncrByCommand(), new CommandMetadata(4, Set.of("write", "denyoom", "fast"), 1, 1, 1));
+        register("ZCARD", new ZCardCommand(), new CommandMetadata(2, Set.of("readonly", "fast"), 1, 1, 1));
+        register("ZCOUNT", new ZCountCommand(), new CommandMetadata(4, Set.of("readonly", "fast"), 1, 1, 1));
+        register("ZSCORE", new ZScoreCommand(), new CommandMetadata(3, Set.of("readonly", "fast"), 1, 1, 1));
+        register("ZRANGEBYSCORE", new ZRangeByScoreCommand(), new CommandMetadata(-4, Set.of("readonly"), 1, 1, 1));
+        register("ZREVRANGEBYSCORE", new ZRevRangeByScoreCommand(), new CommandMetadata(-4, Set.of("readonly"), 1, 1, 1));
+        register("BZPOPMIN", new BzPopMinCommand(), new CommandMetadata(-3, Set.of("write", "blocking", "fast"), 1, -2, 1));
+        register("BZPOPMAX", new BzPopMaxCommand(), new CommandMetadata(-3, Set.of("write", "blocking", "fast"), 1, -2, 1));
+        register("ZPOPMIN", new ZPopMinCommand(), new CommandMetadata(-2, Set.of("write", "fast"), 1, 1, 1));
+        register("ZPOPMAX", new ZPopMaxCommand(), new CommandMetadata(-2, Set.of("write", "fast"), 1, 1, 1));
+        register("ZUNIONSTORE", new ZUnionStoreCommand(), new CommandMetadata(-4, Set.of("write", "denyoom", "movablekeys"), 1, 1, 1));
+        register("ZINTERSTORE", new ZInterStoreCommand(), new CommandMetadata(-4, Set.of("write", "denyoom", "movablekeys"), 1, 1, 1));
+        register("ZDIFF", new ZDiffCommand(), new CommandMetadata(-3, Set.of("readonly", "movablekeys"), 0, 0, 0));
+        register("ZDIFFSTORE", new ZDiffStoreCommand(), new CommandMetadata(-4, Set.of("write", "denyoom", "movablekeys"), 1, 1, 1));
+        register("ZINTER", new ZInterCommand(), new CommandMetadata(-3, Set.of("readonly", "movablekeys"), 0, 0, 0));
+        register("ZUNION", new ZUnionCommand(), new CommandMetadata(-3, Set.of("readonly", "movablekeys"), 0, 0, 0));
+        register("ZINTERCARD", new ZInterCardCommand(), new CommandMetadata(-3, Set.of("readonly", "movablekeys"), 0, 0, 0));
+        register("ZRANGESTORE", new ZRangeStoreCommand(), new CommandMetadata(-5, Set.of("write", "denyoom"), 1, 2, 1));
+        register("ZREVRANK", new ZRevRankCommand(), new CommandMetadata(-3, Set.of("readonly", "fast"), 1, 1, 1));
+        register("ZMSCORE", new ZMScoreCommand(), new CommandMetadata(-3, Set.of("readonly", "fast"), 1, 1, 1));
+        register("ZRANDMEMBER", new ZRandMemberCommand(), new CommandMetadata(-2, Set.of("readonly"), 1, 1, 1));
 
         // Bloom
-        register("BF.ADD", new BfAddCommand());
-        register("BF.EXISTS", new BfExistsCommand());
-        register("BF.MADD", new BfMAddCommand());
-        register("BF.MEXISTS", new BfMExistsCommand());
+        register("BF.ADD", new BfAddCommand(), new CommandMetadata(3, Set.of("write", "denyoom"), 1, 1, 1));
+        register("BF.EXISTS", new BfExistsCommand(), new CommandMetadata(3, Set.of("readonly", "fast"), 1, 1, 1));
+        register("BF.MADD", new BfMAddCommand(), new CommandMetadata(-3, Set.of("write", "denyoom"), 1, 1, 1));
+        register("BF.MEXISTS", new BfMExistsCommand(), new CommandMetadata(-3, Set.of("readonly", "fast"), 1, 1, 1));
         
         // T-Digest
-        register("TD.ADD", new TdAddCommand());
-        register("TD.QUANTILE", new TdQuantileCommand());
-        register("TD.CDF", new TdCdfCommand());
-        register("TD.INFO", new TdInfoCommand());
+        register("TD.ADD", new TdAddCommand(), new CommandMetadata(-3, Set.of("write", "denyoom"), 1, 1, 1));
+        register("TD.QUANTILE", new TdQuantileCommand(), new CommandMetadata(-3, Set.of("write"), 1, 1, 1));
+        register("TD.CDF", new TdCdfCommand(), new CommandMetadata(-3, Set.of("write"), 1, 1, 1));
+        register("TD.INFO", new TdInfoCommand(), new CommandMetadata(2, Set.of("readonly"), 1, 1, 1));
 
         // JSON
-        register("JSON.SET", new JsonSetCommand());
-        register("JSON.GET", new JsonGetCommand());
-        register("JSON.DEL", new JsonDelCommand());
-        register("JSON.FORGET", new JsonDelCommand()); // Alias
-        register("JSON.TYPE", new JsonTypeCommand());
+        register("JSON.SET", new JsonSetCommand(), new CommandMetadata(-4, Set.of("write", "denyoom"), 1, 1, 1));
+        register("JSON.GET", new JsonGetCommand(), new CommandMetadata(-2, Set.of("readonly"), 1, 1, 1));
+        register("JSON.DEL", new JsonDelCommand(), new CommandMetadata(-2, Set.of("write"), 1, 1, 1));
+        register("JSON.FORGET", new JsonDelCommand(), new CommandMetadata(-2, Set.of("write"), 1, 1, 1)); // Alias
+        register("JSON.TYPE", new JsonTypeCommand(), new CommandMetadata(-2, Set.of("readonly"), 1, 1, 1));
         
         // HLL
-        register("PFADD", new PfAddCommand());
-        register("PFCOUNT", new PfCountCommand());
-        register("PFMERGE", new PfMergeCommand());
+        register("PFADD", new PfAddCommand(), new CommandMetadata(-2, Set.of("write", "denyoom", "fast"), 1, 1, 1));
+        register("PFCOUNT", new PfCountCommand(), new CommandMetadata(-2, Set.of("readonly"), 1, -1, 1));
+        register("PFMERGE", new PfMergeCommand(), new CommandMetadata(-2, Set.of("write", "denyoom"), 1, -1, 1));
         
         // Time / Generic
-        register("LATENCY", new LatencyCommand());
-        register("WAIT", new WaitCommand());
-        register("MIGRATE", new MigrateCommand());
-        register("PEXPIRE", new PexpireCommand());
-        register("PTTL", new PttlCommand());
-        register("EXPIREAT", new ExpireAtCommand());
-        register("PEXPIREAT", new PexpireAtCommand());
-        register("EXPIRETIME", new ExpireTimeCommand());
-        register("PEXPIRETIME", new PExpireTimeCommand());
-        register("PERSIST", new PersistCommand());
-        register("RANDOMKEY", new RandomKeyCommand());
-        register("SORT", new SortCommand());
-        register("SORT_RO", new SortRoCommand());
-        register("EXISTS", new ExistsCommand());
-        register("TYPE", new TypeCommand());
-        register("RENAME", new RenameCommand());
-        register("TTL", new TtlCommand());
-        register("EXPIRE", new ExpireCommand());
-        register("KEYS", new KeysCommand());
-        register("DEL", new DelCommand());
-        register("DUMP", new DumpCommand());
-        register("RESTORE", new RestoreCommand());
-        register("UNLINK", new UnlinkCommand());
-        register("SCAN", new ScanCommand());
-        register("HSCAN", new HScanCommand());
-        register("SSCAN", new SScanCommand());
-        register("ZSCAN", new ZScanCommand());
-        register("TOUCH", new TouchCommand());
+        register("LATENCY", new LatencyCommand(), new CommandMetadata(-2, Set.of("admin", "loading", "stale"), 0, 0, 0));
+        register("WAIT", new WaitCommand(), new CommandMetadata(3, Set.of("noscript"), 0, 0, 0));
+        register("MIGRATE", new MigrateCommand(), new CommandMetadata(-6, Set.of("write", "movablekeys"), 3, 3, 1));
+        register("PEXPIRE", new PexpireCommand(), new CommandMetadata(-3, Set.of("write", "fast"), 1, 1, 1));
+        register("PTTL", new PttlCommand(), new CommandMetadata(2, Set.of("readonly", "fast"), 1, 1, 1));
+        register("EXPIREAT", new ExpireAtCommand(), new CommandMetadata(-3, Set.of("write", "fast"), 1, 1, 1));
+        register("PEXPIREAT", new PexpireAtCommand(), new CommandMetadata(-3, Set.of("write", "fast"), 1, 1, 1));
+        register("EXPIRETIME", new ExpireTimeCommand(), new CommandMetadata(2, Set.of("readonly", "fast"), 1, 1, 1));
+        register("PEXPIRETIME", new PExpireTimeCommand(), new CommandMetadata(2, Set.of("readonly", "fast"), 1, 1, 1));
+        register("PERSIST", new PersistCommand(), new CommandMetadata(2, Set.of("write", "fast"), 1, 1, 1));
+        register("RANDOMKEY", new RandomKeyCommand(), new CommandMetadata(1, Set.of("readonly"), 0, 0, 0));
+        register("SORT", new SortCommand(), new CommandMetadata(-2, Set.of("write", "denyoom", "movablekeys"), 1, 1, 1));
+        register("SORT_RO", new SortRoCommand(), new CommandMetadata(-2, Set.of("readonly"), 1, 1, 1));
+        register("EXISTS", new ExistsCommand(), new CommandMetadata(-2, Set.of("readonly", "fast"), 1, -1, 1));
+        register("TYPE", new TypeCommand(), new CommandMetadata(2, Set.of("readonly", "fast"), 1, 1, 1));
+        register("RENAME", new RenameCommand(), new CommandMetadata(3, Set.of("write"), 1, 2, 1));
+        register("TTL", new TtlCommand(), new CommandMetadata(2, Set.of("readonly", "fast"), 1, 1, 1));
+        register("EXPIRE", new ExpireCommand(), new CommandMetadata(-3, Set.of("write", "fast"), 1, 1, 1));
+        register("KEYS", new KeysCommand(), new CommandMetadata(2, Set.of("readonly"), 0, 0, 0));
+        register("DEL", new DelCommand(), new CommandMetadata(-2, Set.of("write"), 1, -1, 1));
+        register("DUMP", new DumpCommand(), new CommandMetadata(2, Set.of("readonly"), 1, 1, 1));
+        register("RESTORE", new RestoreCommand(), new CommandMetadata(-4, Set.of("write", "denyoom"), 1, 1, 1));
+        register("UNLINK", new UnlinkCommand(), new CommandMetadata(-2, Set.of("write", "fast"), 1, -1, 1));
+        register("SCAN", new ScanCommand(), new CommandMetadata(-2, Set.of("readonly"), 0, 0, 0));
+        register("HSCAN", new HScanCommand(), new CommandMetadata(-3, Set.of("readonly"), 1, 1, 1));
+        register("SSCAN", new SScanCommand(), new CommandMetadata(-3, Set.of("readonly"), 1, 1, 1));
+        register("ZSCAN", new ZScanCommand(), new CommandMetadata(-3, Set.of("readonly"), 1, 1, 1));
+        register("TOUCH", new TouchCommand(), new CommandMetadata(-2, Set.of("readonly", "fast"), 1, -1, 1));
 
         // Server / Config
-        register("TIME", new TimeCommand());
-        register("CONFIG", new ConfigCommand());
-        register("RESET", new ResetCommand());
-        register("MEMORY", new MemoryCommand());
-        register("SLOWLOG", new SlowlogCommand());
-        register("INFO", new InfoCommand(new core.CaradeServerContext()));
-        register("DBSIZE", new DbSizeCommand());
-        register("FLUSHALL", new FlushAllCommand());
-        register("FLUSHDB", new FlushDbCommand());
-        register("BGREWRITEAOF", new BgRewriteAofCommand());
-        register("MONITOR", new MonitorCommand());
-        register("SWAPDB", new SwapDbCommand());
-        register("SAVE", new SaveCommand());
-        register("BGSAVE", new BgSaveCommand());
-        register("LASTSAVE", new LastSaveCommand());
-        register("SHUTDOWN", new ShutdownCommand());
-        register("ROLE", new RoleCommand());
-        register("LOLWUT", new LolwutCommand());
-        register("COMMAND", new CommandInfoCommand());
-        register("OBJECT", new ObjectCommand());
+        register("TIME", new TimeCommand(), new CommandMetadata(1, Set.of("loading", "stale", "fast"), 0, 0, 0));
+        register("CONFIG", new ConfigCommand(), new CommandMetadata(-2, Set.of("admin", "noscript", "loading", "stale"), 0, 0, 0));
+        register("RESET", new ResetCommand(), new CommandMetadata(1, Set.of("noscript", "loading", "stale", "fast"), 0, 0, 0));
+        register("MEMORY", new MemoryCommand(), new CommandMetadata(-2, Set.of("readonly"), 2, 2, 1));
+        register("SLOWLOG", new SlowlogCommand(), new CommandMetadata(-2, Set.of("admin", "loading", "stale"), 0, 0, 0));
+        register("INFO", new InfoCommand(new core.CaradeServerContext()), new CommandMetadata(-1, Set.of("loading", "stale"), 0, 0, 0));
+        register("DBSIZE", new DbSizeCommand(), new CommandMetadata(1, Set.of("readonly", "fast"), 0, 0, 0));
+        register("FLUSHALL", new FlushAllCommand(), new CommandMetadata(-1, Set.of("write"), 0, 0, 0));
+        register("FLUSHDB", new FlushDbCommand(), new CommandMetadata(-1, Set.of("write"), 0, 0, 0));
+        register("BGREWRITEAOF", new BgRewriteAofCommand(), new CommandMetadata(1, Set.of("admin", "noscript"), 0, 0, 0));
+        register("MONITOR", new MonitorCommand(), new CommandMetadata(1, Set.of("admin", "noscript", "loading", "stale"), 0, 0, 0));
+        register("SWAPDB", new SwapDbCommand(), new CommandMetadata(3, Set.of("write", "fast"), 0, 0, 0));
+        register("SAVE", new SaveCommand(), new CommandMetadata(1, Set.of("admin", "noscript"), 0, 0, 0));
+        register("BGSAVE", new BgSaveCommand(), new CommandMetadata(-1, Set.of("admin", "noscript"), 0, 0, 0));
+        register("LASTSAVE", new LastSaveCommand(), new CommandMetadata(1, Set.of("loading", "stale", "fast"), 0, 0, 0));
+        register("SHUTDOWN", new ShutdownCommand(), new CommandMetadata(-1, Set.of("admin", "noscript", "loading", "stale"), 0, 0, 0));
+        register("ROLE", new RoleCommand(), new CommandMetadata(1, Set.of("noscript", "loading", "stale", "fast"), 0, 0, 0));
+        register("LOLWUT", new LolwutCommand(), new CommandMetadata(-1, Set.of("readonly", "fast"), 0, 0, 0));
+        register("COMMAND", new CommandInfoCommand(), new CommandMetadata(-1, Set.of("loading", "stale"), 0, 0, 0));
+        register("OBJECT", new ObjectCommand(), new CommandMetadata(-2, Set.of("readonly"), 2, 2, 1));
 
         // Scripting
-        register("EVAL", new EvalCommand());
-        register("EVALSHA", new EvalShaCommand());
-        register("EVAL_RO", new EvalRoCommand());
-        register("EVALSHA_RO", new EvalShaRoCommand());
-        register("SCRIPT", new ScriptCommand());
+        register("EVAL", new EvalCommand(), new CommandMetadata(-3, Set.of("noscript", "movablekeys"), 0, 0, 0));
+        register("EVALSHA", new EvalShaCommand(), new CommandMetadata(-3, Set.of("noscript", "movablekeys"), 0, 0, 0));
+        register("EVAL_RO", new EvalRoCommand(), new CommandMetadata(-3, Set.of("readonly", "noscript", "movablekeys"), 0, 0, 0));
+        register("EVALSHA_RO", new EvalShaRoCommand(), new CommandMetadata(-3, Set.of("readonly", "noscript", "movablekeys"), 0, 0, 0));
+        register("SCRIPT", new ScriptCommand(), new CommandMetadata(-2, Set.of("noscript"), 0, 0, 0));
 
         // GEO
-        register("GEOADD", new GeoAddCommand());
-        register("GEODIST", new GeoDistCommand());
-        register("GEORADIUS", new GeoRadiusCommand());
-        register("GEORADIUSBYMEMBER", new GeoRadiusByMemberCommand());
-        register("GEOHASH", new GeoHashCommand());
-        register("GEOPOS", new GeoPosCommand());
-        register("GEOSEARCH", new GeoSearchCommand());
-        register("GEOSEARCHSTORE", new GeoSearchStoreCommand());
+        register("GEOADD", new GeoAddCommand(), new CommandMetadata(-5, Set.of("write", "denyoom"), 1, 1, 1));
+        register("GEODIST", new GeoDistCommand(), new CommandMetadata(-4, Set.of("readonly"), 1, 1, 1));
+        register("GEORADIUS", new GeoRadiusCommand(), new CommandMetadata(-6, Set.of("write", "denyoom", "movablekeys"), 1, 1, 1));
+        register("GEORADIUSBYMEMBER", new GeoRadiusByMemberCommand(), new CommandMetadata(-5, Set.of("write", "denyoom", "movablekeys"), 1, 1, 1));
+        register("GEOHASH", new GeoHashCommand(), new CommandMetadata(-2, Set.of("readonly"), 1, 1, 1));
+        register("GEOPOS", new GeoPosCommand(), new CommandMetadata(-2, Set.of("readonly"), 1, 1, 1));
+        register("GEOSEARCH", new GeoSearchCommand(), new CommandMetadata(-7, Set.of("readonly"), 1, 1, 1));
+        register("GEOSEARCHSTORE", new GeoSearchStoreCommand(), new CommandMetadata(-8, Set.of("write", "denyoom"), 1, 2, 1));
         
         // Connection
-        register("ECHO", new EchoCommand());
-        register("SELECT", new SelectCommand());
-        register("PING", new PingCommand());
-        register("QUIT", new QuitCommand());
-        register("AUTH", new AuthCommand());
+        register("ECHO", new EchoCommand(), new CommandMetadata(2, Set.of("fast"), 0, 0, 0));
+        register("SELECT", new SelectCommand(), new CommandMetadata(2, Set.of("loading", "stale", "fast"), 0, 0, 0));
+        register("PING", new PingCommand(), new CommandMetadata(-1, Set.of("fast"), 0, 0, 0));
+        register("QUIT", new QuitCommand(), new CommandMetadata(-1, Set.of("noscript", "loading", "stale", "fast"), 0, 0, 0));
+        register("AUTH", new AuthCommand(), new CommandMetadata(-2, Set.of("noscript", "loading", "stale", "fast"), 0, 0, 0));
 
         // PubSub
-        register("SUBSCRIBE", new SubscribeCommand());
-        register("UNSUBSCRIBE", new UnsubscribeCommand());
-        register("PSUBSCRIBE", new PSubscribeCommand());
-        register("PUNSUBSCRIBE", new PUnsubscribeCommand());
-        register("PUBLISH", new PublishCommand());
-        register("PUBSUB", new PubSubCommand());
+        register("SUBSCRIBE", new SubscribeCommand(), new CommandMetadata(-2, Set.of("pubsub", "noscript", "loading", "stale"), 0, 0, 0));
+        register("UNSUBSCRIBE", new UnsubscribeCommand(), new CommandMetadata(-1, Set.of("pubsub", "noscript", "loading", "stale"), 0, 0, 0));
+        register("PSUBSCRIBE", new PSubscribeCommand(), new CommandMetadata(-2, Set.of("pubsub", "noscript", "loading", "stale"), 0, 0, 0));
+        register("PUNSUBSCRIBE", new PUnsubscribeCommand(), new CommandMetadata(-1, Set.of("pubsub", "noscript", "loading", "stale"), 0, 0, 0));
+        register("PUBLISH", new PublishCommand(), new CommandMetadata(3, Set.of("pubsub", "loading", "stale", "fast"), 0, 0, 0));
+        register("PUBSUB", new PubSubCommand(), new CommandMetadata(-2, Set.of("pubsub", "loading", "stale"), 0, 0, 0));
 
         // Transactions
-        register("MULTI", new MultiCommand());
-        register("EXEC", new ExecCommand());
-        register("DISCARD", new DiscardCommand());
-        register("WATCH", new WatchCommand());
-        register("UNWATCH", new UnwatchCommand());
+        register("MULTI", new MultiCommand(), new CommandMetadata(1, Set.of("noscript", "loading", "stale", "fast"), 0, 0, 0));
+        register("EXEC", new ExecCommand(), new CommandMetadata(1, Set.of("noscript", "loading", "stale"), 0, 0, 0));
+        register("DISCARD", new DiscardCommand(), new CommandMetadata(1, Set.of("noscript", "loading", "stale", "fast"), 0, 0, 0));
+        register("WATCH", new WatchCommand(), new CommandMetadata(-2, Set.of("noscript", "loading", "stale", "fast"), 1, -1, 1));
+        register("UNWATCH", new UnwatchCommand(), new CommandMetadata(1, Set.of("noscript", "loading", "stale", "fast"), 0, 0, 0));
 
         // Replication
-        register("REPLICAOF", new ReplicaOfCommand());
-        register("SLAVEOF", new ReplicaOfCommand());
-        register("PSYNC", new PsyncCommand());
-        register("SYNC", new PsyncCommand());
-        register("REPLCONF", new ReplconfCommand());
+        register("REPLICAOF", new ReplicaOfCommand(), new CommandMetadata(3, Set.of("admin", "noscript", "stale"), 0, 0, 0));
+        register("SLAVEOF", new ReplicaOfCommand(), new CommandMetadata(3, Set.of("admin", "noscript", "stale"), 0, 0, 0));
+        register("PSYNC", new PsyncCommand(), new CommandMetadata(-3, Set.of("admin", "noscript"), 0, 0, 0));
+        register("SYNC", new PsyncCommand(), new CommandMetadata(1, Set.of("admin", "noscript"), 0, 0, 0));
+        register("REPLCONF", new ReplconfCommand(), new CommandMetadata(-1, Set.of("admin", "noscript", "loading", "stale"), 0, 0, 0));
         
         // CLIENT command router
-        register("CLIENT", new ClientCommand());
+        register("CLIENT", new ClientCommand(), new CommandMetadata(-2, Set.of("admin", "noscript", "loading", "stale"), 0, 0, 0));
     }
 
     public static void register(String name, Command command) {
@@ -290,7 +296,83 @@ public class CommandRegistry {
     }
 
     public static void register(String name, Command command, CommandMetadata metadata) {
-        commands.put(name, new CommandContainer(command, metadata));
+        if (commands.put(name, new CommandContainer(command, metadata)) == null) {
+            indexName(name);
+        }
+    }
+
+    private static synchronized void indexName(String name) {
+        if ((nameCount + 1) * 2 > nameTable.length) {
+            String[] old = nameTable;
+            nameTable = new String[old.length * 2];
+            for (String n : old) {
+                if (n != null) insertName(nameTable, n);
+            }
+        }
+        insertName(nameTable, name);
+        nameCount++;
+    }
+
+    private static void insertName(String[] table, String name) {
+        int mask = table.length - 1;
+        int i = foldedHash(name) & mask;
+        while (table[i] != null) i = (i + 1) & mask;
+        table[i] = name;
+    }
+
+    private static int foldedHash(String name) {
+        int h = 0;
+        for (int i = 0; i < name.length(); i++) h = 31 * h + toUpper(name.charAt(i));
+        return mix(h);
+    }
+
+    private static int mix(int h) {
+        return h ^ (h >>> 16);
+    }
+
+    private static int toUpper(int c) {
+        return (c >= 'a' && c <= 'z') ? c - 32 : c;
+    }
+
+    /**
+     * Resolves a command name sent by a client to its registered upper-case name
+     * without allocating. Returns null if no such command is registered.
+     */
+    public static String lookupName(byte[] name) {
+        if (name == null) return null;
+        int h = 0;
+        for (byte b : name) h = 31 * h + toUpper(b & 0xFF);
+        String[] table = nameTable;
+        int mask = table.length - 1;
+        for (int i = mix(h) & mask; table[i] != null; i = (i + 1) & mask) {
+            String candidate = table[i];
+            if (candidate.length() != name.length) continue;
+            int j = 0;
+            while (j < name.length && toUpper(name[j] & 0xFF) == candidate.charAt(j)) j++;
+            if (j == name.length) return candidate;
+        }
+        return null;
+    }
+
+    /**
+     * Same as {@link #lookupName(byte[])} but reads the readable bytes of a buffer in place.
+     */
+    public static String lookupName(ByteBuf name) {
+        if (name == null) return null;
+        int start = name.readerIndex();
+        int len = name.readableBytes();
+        int h = 0;
+        for (int k = 0; k < len; k++) h = 31 * h + toUpper(name.getByte(start + k) & 0xFF);
+        String[] table = nameTable;
+        int mask = table.length - 1;
+        for (int i = mix(h) & mask; table[i] != null; i = (i + 1) & mask) {
+            String candidate = table[i];
+            if (candidate.length() != len) continue;
+            int j = 0;
+            while (j < len && toUpper(name.getByte(start + j) & 0xFF) == candidate.charAt(j)) j++;
+            if (j == len) return candidate;
+        }
+        return null;
     }
 
     public static Command getCommand(String name) {
@@ -302,6 +384,11 @@ public class CommandRegistry {
         return getCommand(name);
     }
 
+    public static CommandMetadata getMetadata(String name) {
+        CommandContainer container = commands.get(name);
+        return container != null ? container.getMetadata() : null;
+    }
+
     public static Map<String, CommandContainer> getAll() {
         return Collections.unmodifiableMap(commands);
     }
@@ -6,7 +6,7 @@ import core.db.DataType;
 import core.db.ValueEntry;
 import core.network.ClientHandler;
 import core.structs.BloomFilter;
-import java.nio.charset.StandardCharsets;
+import core.utils.ByteStrings;
 import java.util.List;
 
 public class BfExistsCommand implements Command {
@@ -16,8 +16,8 @@ public class BfExistsCommand implements Command {
             client.sendError("usage: BF.EXISTS key item");
             return;
         }
-        String key = new String(args.get(1), StandardCharsets.UTF_8);
-        String item = new String(args.get(2), StandardCharsets.UTF_8);
+        String key = new String(args.get(1), ByteStrings.CHARSET);
+        String item = new String(args.get(2), ByteStrings.CHARSET);
         ValueEntry entry = Carade.db.get(client.getDbIndex(), key);
         if (entry == null) client.sendInteger(0);
         else if (entry.type != DataType.BLOOM) client.sendError("WRONGTYPE");
@@ -7,7 +7,7 @@ import core.db.ValueEntry;
 import core.network.ClientHandler;
 import core.structs.BloomFilter;
 import core.protocol.Resp;
-import java.nio.charset.StandardCharsets;
+import core.utils.ByteStrings;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -18,7 +18,7 @@ public class BfMAddCommand implements Command {
             client.sendError("usage: BF.MADD key item [item ...]");
             return;
         }
-        String key = new String(args.get(1), StandardCharsets.UTF_8);
+        String key = new String(args.get(1), ByteStrings.CHARSET);
         List<Object> results = new ArrayList<>();
         
         try {
@@ -36,7 +36,7 @@ public class BfMAddCommand implements Command {
                     }
                     
                     for (int i = 2; i < args.size(); i++) {
-                        String item = new String(args.get(i), StandardCharsets.UTF_8);
+                        String item = new String(args.get(i), ByteStrings.CHARSET);
                         results.add(bf.add(item));
                     }
                     
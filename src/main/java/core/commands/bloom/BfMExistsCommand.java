@@ -7,7 +7,7 @@ import core.db.ValueEntry;
 import core.network.ClientHandler;
 import core.structs.BloomFilter;
 import core.protocol.Resp;
-import java.nio.charset.StandardCharsets;
+import core.utils.ByteStrings;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -18,7 +18,7 @@ public class BfMExistsCommand implements Command {
             client.sendError("usage: BF.MEXISTS key item [item ...]");
             return;
         }
-        String key = new String(args.get(1), StandardCharsets.UTF_8);
+        String key = new String(args.get(1), ByteStrings.CHARSET);
         ValueEntry entry = Carade.db.get(client.getDbIndex(), key);
         
         List<Object> results = new ArrayList<>();
@@ -31,7 +31,7 @@ public class BfMExistsCommand implements Command {
         } else {
             BloomFilter bf = (BloomFilter) entry.getValue();
             for (int i = 2; i < args.size(); i++) {
-                String item = new String(args.get(i), StandardCharsets.UTF_8);
+                String item = new String(args.get(i), ByteStrings.CHARSET);
                 results.add(bf.exists(item));
             }
         }
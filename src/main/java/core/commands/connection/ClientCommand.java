@@ -2,7 +2,7 @@ package core.commands.connection;
 
 import core.commands.Command;
 import core.network.ClientHandler;
-import java.nio.charset.StandardCharsets;
+import core.utils.ByteStrings;
 import java.util.List;
 
 public class ClientCommand implements Command {
@@ -13,7 +13,7 @@ public class ClientCommand implements Command {
             return;
         }
         
-        String sub = new String(args.get(1), StandardCharsets.UTF_8).toUpperCase();
+        String sub = new String(args.get(1), ByteStrings.CHARSET).toUpperCase();
         
         switch (sub) {
             case "SETNAME":
@@ -3,7 +3,7 @@ package core.commands.connection;
 import core.commands.Command;
 import core.network.ClientHandler;
 import core.protocol.Resp;
-import java.nio.charset.StandardCharsets;
+import core.utils.ByteStrings;
 import java.util.List;
 
 public class ClientGetNameCommand implements Command {
@@ -13,7 +13,7 @@ public class ClientGetNameCommand implements Command {
         if (name == null) {
             client.sendResponse(Resp.bulkString((byte[])null), "(nil)");
         } else {
-            client.sendResponse(Resp.bulkString(name.getBytes(StandardCharsets.UTF_8)), name);
+            client.sendResponse(Resp.bulkString(name.getBytes(ByteStrings.CHARSET)), name);
         }
     }
 }
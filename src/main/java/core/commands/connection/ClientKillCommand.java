@@ -3,7 +3,7 @@ package core.commands.connection;
 import core.Carade;
 import core.commands.Command;
 import core.network.ClientHandler;
-import java.nio.charset.StandardCharsets;
+import core.utils.ByteStrings;
 import java.util.List;
 
 public class ClientKillCommand implements Command {
@@ -17,12 +17,12 @@ public class ClientKillCommand implements Command {
         // CLIENT KILL [ip:port] [ID client-id] ...
         // Simplified: CLIENT KILL ID <id> or CLIENT KILL ADDR <addr> (implicitly second arg)
         
-        String filterType = new String(args.get(2), StandardCharsets.UTF_8).toUpperCase();
+        String filterType = new String(args.get(2), ByteStrings.CHARSET).toUpperCase();
         int killed = 0;
         
         if (filterType.equals("ID") && args.size() >= 4) {
              try {
-                 long id = Long.parseLong(new String(args.get(3), StandardCharsets.UTF_8));
+                 long id = Long.parseLong(new String(args.get(3), ByteStrings.CHARSET));
                  for (ClientHandler c : Carade.connectedClients) {
                      if (System.identityHashCode(c) == id) {
                          c.close();
@@ -35,7 +35,7 @@ public class ClientKillCommand implements Command {
              }
         } else {
              // Try to treat arg 2 as address
-             String addr = new String(args.get(2), StandardCharsets.UTF_8);
+             String addr = new String(args.get(2), ByteStrings.CHARSET);
              for (ClientHandler c : Carade.connectedClients) {
                  if (c.getRemoteAddress().contains(addr)) {
                      c.close();
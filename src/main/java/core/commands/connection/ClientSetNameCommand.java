@@ -3,7 +3,7 @@ package core.commands.connection;
 import core.commands.Command;
 import core.network.ClientHandler;
 import core.protocol.Resp;
-import java.nio.charset.StandardCharsets;
+import core.utils.ByteStrings;
 import java.util.List;
 
 public class ClientSetNameCommand implements Command {
@@ -13,7 +13,7 @@ public class ClientSetNameCommand implements Command {
             client.sendResponse(Resp.error("usage: CLIENT SETNAME connection-name"), "(error) usage: CLIENT SETNAME connection-name");
             return;
         }
-        String name = new String(args.get(2), StandardCharsets.UTF_8);
+        String name = new String(args.get(2), ByteStrings.CHARSET);
         client.setClientName(name);
         client.sendResponse(Resp.simpleString("OK"), "OK");
     }
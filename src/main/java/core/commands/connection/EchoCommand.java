@@ -3,7 +3,7 @@ package core.commands.connection;
 import core.commands.Command;
 import core.network.ClientHandler;
 import core.protocol.Resp;
-import java.nio.charset.StandardCharsets;
+import core.utils.ByteStrings;
 import java.util.List;
 
 public class EchoCommand implements Command {
@@ -14,6 +14,6 @@ public class EchoCommand implements Command {
             return;
         }
         byte[] msg = args.get(1);
-        client.sendResponse(Resp.bulkString(msg), new String(msg, StandardCharsets.UTF_8));
+        client.sendResponse(Resp.bulkString(msg), new String(msg, ByteStrings.CHARSET));
     }
 }
@@ -3,7 +3,7 @@ package core.commands.connection;
 import core.commands.Command;
 import core.network.ClientHandler;
 import core.protocol.Resp;
-import java.nio.charset.StandardCharsets;
+import core.utils.ByteStrings;
 import java.util.List;
 
 public class SelectCommand implements Command {
@@ -15,10 +15,10 @@ public class SelectCommand implements Command {
         }
         
         try {
-            int index = Integer.parseInt(new String(args.get(1), StandardCharsets.UTF_8));
+            int index = Integer.parseInt(new String(args.get(1), ByteStrings.CHARSET));
             if (index >= 0 && index < core.db.CaradeDatabase.DB_COUNT) {
                 client.dbIndex = index;
-                core.Carade.aofHandler.log("SELECT", String.valueOf(index));
+                core.server.WriteSequencer.getInstance().appendAof("SELECT", String.valueOf(index));
                 client.sendResponse(Resp.simpleString("OK"), "OK");
             } else {
                 client.sendError("ERR DB index is out of range");
@@ -5,7 +5,7 @@ import core.commands.Command;
 import core.db.CaradeDatabase;
 import core.db.ValueEntry;
 import core.network.ClientHandler;
-import java.nio.charset.StandardCharsets;
+import core.utils.ByteStrings;
 import java.util.List;
 
 public class CopyCommand implements Command {
@@ -16,21 +16,21 @@ public class CopyCommand implements Command {
             return;
         }
         
-        String source = new String(args.get(1), StandardCharsets.UTF_8);
-        String destination = new String(args.get(2), StandardCharsets.UTF_8);
+        String source = new String(args.get(1), ByteStrings.CHARSET);
+        String destination = new String(args.get(2), ByteStrings.CHARSET);
         
         int targetDb = client.getDbIndex();
         boolean replace = false;
         
         for (int i = 3; i < args.size(); i++) {
-            String arg = new String(args.get(i), StandardCharsets.UTF_8).toUpperCase();
+            String arg = new String(args.get(i), ByteStrings.CHARSET).toUpperCase();
             if (arg.equals("DB")) {
                 if (i + 1 >= args.size()) {
                     client.sendError("ERR syntax error");
                     return;
                 }
                 try {
-                    targetDb = Integer.parseInt(new String(args.get(++i), StandardCharsets.UTF_8));
+                    targetDb = Integer.parseInt(new String(args.get(++i), ByteStrings.CHARSET));
                 } catch (NumberFormatException e) {
                     client.sendError("ERR value is not an integer or out of range");
                     return;
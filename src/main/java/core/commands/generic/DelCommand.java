@@ -5,7 +5,7 @@ import core.commands.Command;
 import core.db.ValueEntry;
 import core.network.ClientHandler;
 import core.protocol.Resp;
-import java.nio.charset.StandardCharsets;
+import core.utils.ByteStrings;
 import java.util.List;
 
 public class DelCommand implements Command {
@@ -16,7 +16,7 @@ public class DelCommand implements Command {
             return;
         }
         
-        String key = new String(args.get(1), StandardCharsets.UTF_8);
+        String key = new String(args.get(1), ByteStrings.CHARSET);
         final int[] ret = {0};
         
         client.executeWrite(() -> {
@@ -6,9 +6,9 @@ import core.db.DataType;
 import core.db.ValueEntry;
 import core.network.ClientHandler;
 import core.persistence.rdb.RdbEncoder;
+import core.utils.ByteStrings;
 import java.io.ByteArrayOutputStream;
 import java.io.DataOutputStream;
-import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 public class DumpCommand implements Command {
@@ -19,7 +19,7 @@ public class DumpCommand implements Command {
             return;
         }
 
-        String key = new String(args.get(1), StandardCharsets.UTF_8);
+        String key = new String(args.get(1), ByteStrings.CHARSET);
         ValueEntry v = Carade.db.get(client.getDbIndex(), key);
         
         if (v == null) {
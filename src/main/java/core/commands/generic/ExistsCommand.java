@@ -4,7 +4,7 @@ import core.Carade;
 import core.commands.Command;
 import core.db.ValueEntry;
 import core.network.ClientHandler;
-import java.nio.charset.StandardCharsets;
+import core.utils.ByteStrings;
 import java.util.List;
 
 public class ExistsCommand implements Command {
@@ -14,7 +14,7 @@ public class ExistsCommand implements Command {
             client.sendError("usage: EXISTS key");
             return;
         }
-        String key = new String(args.get(1), StandardCharsets.UTF_8);
+        String key = new String(args.get(1), ByteStrings.CHARSET);
         ValueEntry entry = Carade.db.get(client.getDbIndex(), key);
         client.sendInteger(entry == null ? 0 : 1);
     }
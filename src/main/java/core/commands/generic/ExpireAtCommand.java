@@ -4,7 +4,7 @@ import core.Carade;
 import core.commands.Command;
 import core.network.ClientHandler;
 import core.protocol.Resp;
-import java.nio.charset.StandardCharsets;
+import core.utils.ByteStrings;
 import java.util.List;
 
 public class ExpireAtCommand implements Command {
@@ -15,10 +15,10 @@ public class ExpireAtCommand implements Command {
             return;
         }
 
-        String key = new String(args.get(1), StandardCharsets.UTF_8);
+        String key = new String(args.get(1), ByteStrings.CHARSET);
         try {
-            long timestamp = Long.parseLong(new String(args.get(2), StandardCharsets.UTF_8));
-            String timestampStr = new String(args.get(2), StandardCharsets.UTF_8);
+            long timestamp = Long.parseLong(new String(args.get(2), ByteStrings.CHARSET));
+            String timestampStr = new String(args.get(2), ByteStrings.CHARSET);
             
             final int[] ret = {0};
             
@@ -3,7 +3,7 @@ package core.commands.generic;
 import core.Carade;
 import core.commands.Command;
 import core.network.ClientHandler;
-import java.nio.charset.StandardCharsets;
+import core.utils.ByteStrings;
 import java.util.List;
 
 public class ExpireCommand implements Command {
@@ -13,9 +13,9 @@ public class ExpireCommand implements Command {
             client.sendError("usage: EXPIRE key seconds");
             return;
         }
-        String key = new String(args.get(1), StandardCharsets.UTF_8);
+        String key = new String(args.get(1), ByteStrings.CHARSET);
         try {
-            long seconds = Long.parseLong(new String(args.get(2), StandardCharsets.UTF_8));
+            long seconds = Long.parseLong(new String(args.get(2), ByteStrings.CHARSET));
             long expireAt = System.currentTimeMillis() + (seconds * 1000);
             
             final int[] ret = {0};
@@ -4,7 +4,7 @@ import core.Carade;
 import core.commands.Command;
 import core.network.ClientHandler;
 import core.protocol.Resp;
-import java.nio.charset.StandardCharsets;
+import core.utils.ByteStrings;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -15,14 +15,14 @@ public class KeysCommand implements Command {
             client.sendError("usage: KEYS pattern");
             return;
         }
-        String pattern = new String(args.get(1), StandardCharsets.UTF_8);
+        String pattern = new String(args.get(1), ByteStrings.CHARSET);
         List<byte[]> keys = new ArrayList<>();
         List<String> keyStrings = new ArrayList<>();
         int dbIndex = client.getDbIndex();
         
         if (pattern.equals("*")) {
             for(String k : Carade.db.keySet(dbIndex)) {
-                keys.add(k.getBytes(StandardCharsets.UTF_8));
+                keys.add(k.getBytes(ByteStrings.CHARSET));
                 keyStrings.add(k);
             }
         } else {
@@ -30,7 +30,7 @@ public class KeysCommand implements Command {
             java.util.regex.Pattern p = java.util.regex.Pattern.compile(regex);
             for (String k : Carade.db.keySet(dbIndex)) {
                 if (p.matcher(k).matches()) {
-                    keys.add(k.getBytes(StandardCharsets.UTF_8));
+                    keys.add(k.getBytes(ByteStrings.CHARSET));
                     keyStrings.add(k);
                 }
             }
@@ -6,13 +6,13 @@ import core.db.ValueEntry;
 import core.network.ClientHandler;
 import core.persistence.rdb.RdbEncoder;
 import core.protocol.Resp;
+import core.utils.ByteStrings;
 import java.io.ByteArrayOutputStream;
 import java.io.DataOutputStream;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.InetAddress;
 import java.net.Socket;
-import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -25,16 +25,16 @@ public class MigrateCommand implements Command {
         }
         
         try {
-            String host = new String(args.get(1), StandardCharsets.UTF_8);
-            int port = Integer.parseInt(new String(args.get(2), StandardCharsets.UTF_8));
-            String key = new String(args.get(3), StandardCharsets.UTF_8);
-            int timeout = Integer.parseInt(new String(args.get(5), StandardCharsets.UTF_8));
+            String host = new String(args.get(1), ByteStrings.CHARSET);
+            int port = Integer.parseInt(new String(args.get(2), ByteStrings.CHARSET));
+            String key = new String(args.get(3), ByteStrings.CHARSET);
+            int timeout = Integer.parseInt(new String(args.get(5), ByteStrings.CHARSET));
             
             boolean copy = false;
             boolean replace = false;
             
             for (int i = 6; i < args.size(); i++) {
-                String opt = new String(args.get(i), StandardCharsets.UTF_8).toUpperCase();
+                String opt = new String(args.get(i), ByteStrings.CHARSET).toUpperCase();
                 if (opt.equals("COPY")) copy = true;
                 else if (opt.equals("REPLACE")) replace = true;
             }
@@ -82,11 +82,11 @@ public class MigrateCommand implements Command {
                 
                 // RESTORE key ttl value [REPLACE]
                 List<byte[]> cmdParts = new ArrayList<>();
-                cmdParts.add("RESTORE".getBytes(StandardCharsets.UTF_8));
-                cmdParts.add(key.getBytes(StandardCharsets.UTF_8));
-                cmdParts.add("0".getBytes(StandardCharsets.UTF_8)); // TTL 0 = no expire
+                cmdParts.add("RESTORE".getBytes(ByteStrings.CHARSET));
+                cmdParts.add(key.getBytes(ByteStrings.CHARSET));
+                cmdParts.add("0".getBytes(ByteStrings.CHARSET)); // TTL 0 = no expire
                 cmdParts.add(dumpPayload);
-                if (replace) cmdParts.add("REPLACE".getBytes(StandardCharsets.UTF_8));
+                if (replace) cmdParts.add("REPLACE".getBytes(ByteStrings.CHARSET));
                 
                 out.write(Resp.array(cmdParts));
                 out.flush();
@@ -5,7 +5,7 @@ import core.commands.Command;
 import core.db.CaradeDatabase;
 import core.db.ValueEntry;
 import core.network.ClientHandler;
-import java.nio.charset.StandardCharsets;
+import core.utils.ByteStrings;
 import java.util.List;
 
 public class MoveCommand implements Command {
@@ -16,10 +16,10 @@ public class MoveCommand implements Command {
             return;
         }
         
-        String key = new String(args.get(1), StandardCharsets.UTF_8);
+        String key = new String(args.get(1), ByteStrings.CHARSET);
         int targetDb;
         try {
-            targetDb = Integer.parseInt(new String(args.get(2), StandardCharsets.UTF_8));
+            targetDb = Integer.parseInt(new String(args.get(2), ByteStrings.CHARSET));
         } catch (NumberFormatException e) {
             client.sendError("ERR value is not an integer or out of range");
             return;
@@ -5,7 +5,11 @@ import core.commands.Command;
 import core.db.DataType;
 import core.db.ValueEntry;
 import core.network.ClientHandler;
-import java.nio.charset.StandardCharsets;
+import core.structs.CaradeZSet;
+import core.structs.PackedHash;
+import core.structs.PackedList;
+import core.structs.PackedSet;
+import core.utils.ByteStrings;
 import java.util.List;
 
 public class ObjectCommand implements Command {
@@ -16,8 +20,8 @@ public class ObjectCommand implements Command {
             return;
         }
 
-        String sub = new String(args.get(1), StandardCharsets.UTF_8).toUpperCase();
-        String key = new String(args.get(2), StandardCharsets.UTF_8);
+        String sub = new String(args.get(1), ByteStrings.CHARSET).toUpperCase();
+        String key = new String(args.get(2), ByteStrings.CHARSET);
         ValueEntry v = Carade.db.get(client.getDbIndex(), key);
 
         if (v == null) {
@@ -27,30 +31,37 @@ public class ObjectCommand implements Command {
 
         switch (sub) {
             case "ENCODING":
-                // In Carade, we don't have complex encodings (e.g., ziplist vs linkedlist) visible mostly.
-                // But we can map DataType to standard Redis encoding names for compatibility.
                 String enc = "raw";
+                Object value = v.getValue();
                 if (v.type == DataType.STRING) {
                     try {
-                        Long.parseLong(new String((byte[])v.getValue()));
+                        Long.parseLong(new String((byte[]) value));
                         enc = "int";
                     } catch (Exception e) { enc = "raw"; }
-                } else if (v.type == DataType.LIST) enc = "quicklist"; // Pretend
-                else if (v.type == DataType.SET) enc = "hashtable";
-                else if (v.type == DataType.HASH) enc = "hashtable";
-                else if (v.type == DataType.ZSET) enc = "skiplist";
+                } else if (value instanceof PackedList) enc = ((PackedList) value).encoding();
+                else if (value instanceof PackedSet) enc = ((PackedSet) value).encoding();
+                else if (value instanceof PackedHash) enc = ((PackedHash) value).encoding();
+                else if (value instanceof CaradeZSet) enc = ((CaradeZSet) value).encoding();
+                else if (v.type == DataType.LIST) enc = "quicklist";
+                else if (v.type == DataType.SET || v.type == DataType.HASH) enc = "hashtable";
                 client.sendBulkString(enc);
                 break;
             case "REFCOUNT":
                 client.sendInteger(1); // No refcount impl
                 break;
             case "IDLETIME":
-                long idle = (System.currentTimeMillis() - v.lastAccessed) / 1000;
-                client.sendInteger(idle);
+                if (Carade.config.maxMemoryPolicy.contains("lfu")) {
+                    client.sendError("ERR An LFU maxmemory policy is selected, idle time not tracked. Please note that when switching between policies at runtime LRU and LFU data will take some time to adjust.");
+                    return;
+                }
+                client.sendInteger(v.getIdleTime() / 1000);
                 break;
             case "FREQ":
-                // LFU freq
-                client.sendInteger(v.frequency);
+                if (!Carade.config.maxMemoryPolicy.contains("lfu")) {
+                    client.sendError("ERR An LFU maxmemory policy is not selected, access frequency not tracked. Please note that when switching between policies at runtime LRU and LFU data will take some time to adjust.");
+                    return;
+                }
+                client.sendInteger(v.getFrequency());
                 break;
             default:
                 client.sendError("ERR unknown subcommand for 'object'");
@@ -4,7 +4,7 @@ import core.Carade;
 import core.commands.Command;
 import core.db.ValueEntry;
 import core.network.ClientHandler;
-import java.nio.charset.StandardCharsets;
+import core.utils.ByteStrings;
 import java.util.List;
 
 public class PExpireTimeCommand implements Command {
@@ -15,7 +15,7 @@ public class PExpireTimeCommand implements Command {
             return;
         }
         
-        String key = new String(args.get(1), StandardCharsets.UTF_8);
+        String key = new String(args.get(1), ByteStrings.CHARSET);
         ValueEntry val = Carade.db.get(client.getDbIndex(), key);
         
         if (val == null) {
@@ -5,7 +5,8 @@ import core.commands.Command;
 import core.db.ValueEntry;
 import core.network.ClientHandler;
 import core.protocol.Resp;
-import java.nio.charset.StandardCharsets;
+import core.server.WriteSequencer;
+import core.utils.ByteStrings;
 import java.util.List;
 
 public class PersistCommand implements Command {
@@ -15,7 +16,7 @@ public class PersistCommand implements Command {
             client.sendResponse(Resp.error("usage: PERSIST key"), "(error) usage: PERSIST key");
             return;
         }
-        String key = new String(args.get(1), StandardCharsets.UTF_8);
+        String key = new String(args.get(1), ByteStrings.CHARSET);
         ValueEntry entry = Carade.db.get(client.dbIndex, key);
         if (entry == null) {
             client.sendResponse(Resp.integer(0), "(integer) 0");
@@ -24,7 +25,7 @@ public class PersistCommand implements Command {
         } else {
             entry.setExpireAt(-1);
             if (Carade.aofHandler != null) {
-                Carade.aofHandler.log("PERSIST", key);
+                WriteSequencer.getInstance().appendAof("PERSIST", key);
             }
             client.sendResponse(Resp.integer(1), "(integer) 1");
         }
@@ -4,7 +4,8 @@ import core.Carade;
 import core.commands.Command;
 import core.network.ClientHandler;
 import core.protocol.Resp;
-import java.nio.charset.StandardCharsets;
+import core.server.WriteSequencer;
+import core.utils.ByteStrings;
 import java.util.List;
 
 public class PexpireAtCommand implements Command {
@@ -15,16 +16,16 @@ public class PexpireAtCommand implements Command {
             return;
         }
 
-        String key = new String(args.get(1), StandardCharsets.UTF_8);
+        String key = new String(args.get(1), ByteStrings.CHARSET);
         try {
-            long timestamp = Long.parseLong(new String(args.get(2), StandardCharsets.UTF_8));
+            long timestamp = Long.parseLong(new String(args.get(2), ByteStrings.CHARSET));
             final int[] ret = {0};
             Carade.db.getStorage(client.dbIndex).computeIfPresent(key, (k, v) -> {
                 v.setExpireAt(timestamp);
                 ret[0] = 1;
                 return v;
             });
-            if (ret[0] == 1) Carade.aofHandler.log("PEXPIREAT", key, String.valueOf(timestamp));
+            if (ret[0] == 1) WriteSequencer.getInstance().appendAof("PEXPIREAT", key, String.valueOf(timestamp));
             client.sendResponse(Resp.integer(ret[0]), "(integer) " + ret[0]);
         } catch (NumberFormatException e) {
             client.sendError("ERR value is not an integer or out of range");
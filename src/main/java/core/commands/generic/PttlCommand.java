@@ -5,7 +5,7 @@ import core.commands.Command;
 import core.db.ValueEntry;
 import core.network.ClientHandler;
 import core.protocol.Resp;
-import java.nio.charset.StandardCharsets;
+import core.utils.ByteStrings;
 import java.util.List;
 
 public class PttlCommand implements Command {
@@ -16,7 +16,7 @@ public class PttlCommand implements Command {
             return;
         }
 
-        String key = new String(args.get(1), StandardCharsets.UTF_8);
+        String key = new String(args.get(1), ByteStrings.CHARSET);
         ValueEntry entry = Carade.db.get(client.dbIndex, key);
         
         if (entry == null) {
@@ -4,7 +4,7 @@ import core.Carade;
 import core.commands.Command;
 import core.db.ValueEntry;
 import core.network.ClientHandler;
-import java.nio.charset.StandardCharsets;
+import core.utils.ByteStrings;
 import java.util.List;
 
 public class RenameNxCommand implements Command {
@@ -14,8 +14,8 @@ public class RenameNxCommand implements Command {
             client.sendError("usage: RENAMENX key newkey");
             return;
         }
-        String oldKey = new String(args.get(1), StandardCharsets.UTF_8);
-        String newKey = new String(args.get(2), StandardCharsets.UTF_8);
+        String oldKey = new String(args.get(1), ByteStrings.CHARSET);
+        String newKey = new String(args.get(2), ByteStrings.CHARSET);
         
         final int[] result = {0}; // 0 = no op, 1 = renamed, -1 = error no such key
         
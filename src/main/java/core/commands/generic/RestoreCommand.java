@@ -5,10 +5,17 @@ import core.commands.Command;
 import core.db.DataType;
 import core.db.ValueEntry;
 import core.network.ClientHandler;
+import core.structs.PackedHash;
+import core.structs.PackedSet;
+import core.structs.PackedList;
+import core.utils.ByteStrings;
 import java.io.ByteArrayInputStream;
 import java.io.DataInputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.Deque;
 
 public class RestoreCommand implements Command {
     @Override
@@ -18,10 +25,10 @@ public class RestoreCommand implements Command {
             return;
         }
 
-        String key = new String(args.get(1), StandardCharsets.UTF_8);
+        String key = new String(args.get(1), ByteStrings.CHARSET);
         long ttl;
         try {
-            ttl = Long.parseLong(new String(args.get(2), StandardCharsets.UTF_8));
+            ttl = Long.parseLong(new String(args.get(2), ByteStrings.CHARSET));
         } catch (NumberFormatException e) {
             client.sendError("ERR value is not an integer or out of range");
             return;
@@ -30,7 +37,7 @@ public class RestoreCommand implements Command {
         
         boolean replace = false;
         if (args.size() > 4) {
-            if (new String(args.get(4), StandardCharsets.UTF_8).equalsIgnoreCase("REPLACE")) {
+            if (new String(args.get(4), ByteStrings.CHARSET).equalsIgnoreCase("REPLACE")) {
                 replace = true;
             } else {
                 client.sendError("ERR syntax error");
@@ -67,21 +74,21 @@ public class RestoreCommand implements Command {
                 } else if (typeCode == 1) { // LIST
                     type = DataType.LIST;
                     long len = readLen(dis);
-                    java.util.concurrent.ConcurrentLinkedDeque<String> list = new java.util.concurrent.ConcurrentLinkedDeque<>();
-                    for (int i=0; i<len; i++) list.add(new String(readString(dis), StandardCharsets.UTF_8));
+                    java.util.Deque<String> list = new core.structs.PackedList();
+                    for (int i=0; i<len; i++) list.add(new String(readString(dis), ByteStrings.CHARSET));
                     value = list;
                 } else if (typeCode == 2) { // SET
                     type = DataType.SET;
                     long len = readLen(dis);
-                    java.util.Set<String> set = java.util.concurrent.ConcurrentHashMap.newKeySet();
-                    for (int i=0; i<len; i++) set.add(new String(readString(dis), StandardCharsets.UTF_8));
+                    java.util.Set<String> set = new core.structs.PackedSet();
+                    for (int i=0; i<len; i++) set.add(new String(readString(dis), ByteStrings.CHARSET));
                     value = set;
                 } else if (typeCode == 3) { // ZSET
                     type = DataType.ZSET;
                     long len = readLen(dis);
                     core.structs.CaradeZSet zset = new core.structs.CaradeZSet();
                     for (int i=0; i<len; i++) {
-                        String member = new String(readString(dis), StandardCharsets.UTF_8);
+                        String member = new String(readString(dis), ByteStrings.CHARSET);
                         // Score is stored as string in encoder
                         byte[] scoreBytes = readString(dis); 
                         String sScore = new String(scoreBytes, StandardCharsets.US_ASCII);
@@ -95,10 +102,10 @@ public class RestoreCommand implements Command {
                 } else if (typeCode == 4) { // HASH
                     type = DataType.HASH;
                     long len = readLen(dis);
-                    java.util.concurrent.ConcurrentHashMap<String, String> map = new java.util.concurrent.ConcurrentHashMap<>();
+                    java.util.Map<String, String> map = new core.structs.PackedHash();
                     for (int i=0; i<len; i++) {
-                         String k = new String(readString(dis), StandardCharsets.UTF_8);
-                         String v = new String(readString(dis), StandardCharsets.UTF_8);
+                         String k = new String(readString(dis), ByteStrings.CHARSET);
+                         String v = new String(readString(dis), ByteStrings.CHARSET);
                          map.put(k, v);
                     }
                     value = map;
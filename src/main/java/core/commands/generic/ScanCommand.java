@@ -7,16 +7,16 @@ import core.db.ValueEntry;
 import core.network.ClientHandler;
 import core.protocol.Resp;
 import core.structs.CaradeZSet;
+import core.structs.ZNode;
 import core.structs.CaradeHash;
+import core.utils.ByteStrings;
 
-import java.nio.charset.StandardCharsets;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
 
 public class ScanCommand implements Command {
     @Override
     public void execute(ClientHandler client, List<byte[]> args) {
-         String cmd = new String(args.get(0), StandardCharsets.UTF_8).toUpperCase();
+         String cmd = new String(args.get(0), ByteStrings.CHARSET).toUpperCase();
          int cursorIdx = cmd.equals("SCAN") ? 1 : 2;
          if (args.size() <= cursorIdx) {
              client.sendError("wrong number of arguments for '" + cmd.toLowerCase() + "' command");
@@ -25,22 +25,22 @@ public class ScanCommand implements Command {
          
          String key = null;
          if (!cmd.equals("SCAN")) {
-             key = new String(args.get(1), StandardCharsets.UTF_8);
+             key = new String(args.get(1), ByteStrings.CHARSET);
          }
 
-         String cursor = new String(args.get(cursorIdx), StandardCharsets.UTF_8);
+         String cursor = new String(args.get(cursorIdx), ByteStrings.CHARSET);
          String pattern = null;
          String typeFilter = null;
          int count = 10;
          
          for (int i = cursorIdx + 1; i < args.size(); i++) {
-             String arg = new String(args.get(i), StandardCharsets.UTF_8).toUpperCase();
+             String arg = new String(args.get(i), ByteStrings.CHARSET).toUpperCase();
              if (arg.equals("MATCH") && i + 1 < args.size()) {
-                 pattern = new String(args.get(++i), StandardCharsets.UTF_8);
+                 pattern = new String(args.get(++i), ByteStrings.CHARSET);
              } else if (arg.equals("COUNT") && i + 1 < args.size()) {
-                 try { count = Integer.parseInt(new String(args.get(++i), StandardCharsets.UTF_8)); } catch (Exception e) {}
+                 try { count = Integer.parseInt(new String(args.get(++i), ByteStrings.CHARSET)); } catch (Exception e) {}
              } else if (arg.equals("TYPE") && i + 1 < args.size()) {
-                 typeFilter = new String(args.get(++i), StandardCharsets.UTF_8).toUpperCase();
+                 typeFilter = new String(args.get(++i), ByteStrings.CHARSET).toUpperCase();
              }
          }
          
@@ -61,21 +61,21 @@ public class ScanCommand implements Command {
              } else {
                  ValueEntry entry = Carade.db.get(dbIndex, key);
                  if (entry == null) {
-                      client.send(client.isResp(), Resp.array(Arrays.asList("0".getBytes(StandardCharsets.UTF_8), Resp.array(Collections.emptyList()))), null);
+                      client.send(client.isResp(), Resp.array(Arrays.asList("0".getBytes(ByteStrings.CHARSET), Resp.array(Collections.emptyList()))), null);
                      return;
                  }
                  if (cmd.equals("HSCAN") && entry.type == DataType.HASH) {
                      if (entry.getValue() instanceof CaradeHash) {
                          it = ((CaradeHash)entry.getValue()).map.entrySet().iterator();
                      } else {
-                         it = ((ConcurrentHashMap<String, String>)entry.getValue()).entrySet().iterator();
+                         it = ((Map<String, String>)entry.getValue()).entrySet().iterator();
                      }
                  } else if (cmd.equals("SSCAN") && entry.type == DataType.SET) {
                      it = ((Set<String>)entry.getValue()).iterator();
                  } else if (cmd.equals("ZSCAN") && entry.type == DataType.ZSET) {
-                     it = ((CaradeZSet)entry.getValue()).scores.entrySet().iterator();
+                     it = ((CaradeZSet)entry.getValue()).scanIterator();
                  } else {
-                     client.send(client.isResp(), Resp.array(Arrays.asList("0".getBytes(StandardCharsets.UTF_8), Resp.array(Collections.emptyList()))), null);
+                     client.send(client.isResp(), Resp.array(Arrays.asList("0".getBytes(ByteStrings.CHARSET), Resp.array(Collections.emptyList()))), null);
                      return;
                  }
              }
@@ -111,21 +111,21 @@ public class ScanCommand implements Command {
                  }
                  
                  if (matches && (regex == null || regex.matcher(k).matches())) {
-                     results.add(k.getBytes(StandardCharsets.UTF_8));
+                     results.add(k.getBytes(ByteStrings.CHARSET));
                  }
              } else if (cmd.equals("HSCAN")) {
                  Map.Entry<String, String> e = (Map.Entry<String, String>) next;
                  if (regex == null || regex.matcher(e.getKey()).matches()) {
-                     results.add(e.getKey().getBytes(StandardCharsets.UTF_8));
-                     results.add(e.getValue().getBytes(StandardCharsets.UTF_8));
+                     results.add(e.getKey().getBytes(ByteStrings.CHARSET));
+                     results.add(e.getValue().getBytes(ByteStrings.CHARSET));
                  }
              } else if (cmd.equals("ZSCAN")) {
-                 Map.Entry<String, Double> e = (Map.Entry<String, Double>) next;
-                 if (regex == null || regex.matcher(e.getKey()).matches()) {
-                     results.add(e.getKey().getBytes(StandardCharsets.UTF_8));
-                     String s = String.valueOf(e.getValue());
+                 ZNode e = (ZNode) next;
+                 if (regex == null || regex.matcher(e.member).matches()) {
+                     results.add(e.member.getBytes(ByteStrings.CHARSET));
+                     String s = String.valueOf(e.score);
                      if (s.endsWith(".0")) s = s.substring(0, s.length()-2);
-                     results.add(s.getBytes(StandardCharsets.UTF_8));
+                     results.add(s.getBytes(ByteStrings.CHARSET));
                  }
              }
          }
@@ -137,7 +137,7 @@ public class ScanCommand implements Command {
          
          if (client.isResp()) {
              List<byte[]> outer = new ArrayList<>();
-             outer.add(cursor.getBytes(StandardCharsets.UTF_8));
+             outer.add(cursor.getBytes(ByteStrings.CHARSET));
              outer.add(Resp.array(results));
              client.send(true, Resp.array(outer), null);
          } else {
@@ -145,7 +145,7 @@ public class ScanCommand implements Command {
              sb.append("1) \"").append(cursor).append("\"\n");
              sb.append("2) ");
              for (int i=0; i<results.size(); i++) {
-                 sb.append(i==0 ? "" : "\n   ").append(i+1).append(") \"").append(new String(results.get(i), StandardCharsets.UTF_8)).append("\"");
+                 sb.append(i==0 ? "" : "\n   ").append(i+1).append(") \"").append(new String(results.get(i), ByteStrings.CHARSET)).append("\"");
              }
              client.send(false, null, sb.toString());
          }
@@ -7,11 +7,10 @@ import core.db.ValueEntry;
 import core.network.ClientHandler;
 import core.structs.CaradeZSet;
 import core.structs.ZNode;
+import core.structs.PackedList;
+import core.utils.ByteStrings;
 
-import java.nio.charset.StandardCharsets;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentLinkedDeque;
 
 public class SortCommand implements Command {
     @Override
@@ -21,7 +20,7 @@ public class SortCommand implements Command {
             return;
         }
 
-        String key = new String(args.get(1), StandardCharsets.UTF_8);
+        String key = new String(args.get(1), ByteStrings.CHARSET);
         ValueEntry entry = Carade.db.get(client.dbIndex, key);
 
         if (entry == null) {
@@ -36,7 +35,7 @@ public class SortCommand implements Command {
             list.addAll((Collection<String>) entry.getValue());
         } else if (entry.type == DataType.ZSET) {
             CaradeZSet zset = (CaradeZSet) entry.getValue();
-            for (ZNode node : zset.sorted) {
+            for (ZNode node : zset) {
                 list.add(node.member);
             }
         } else {
@@ -54,14 +53,14 @@ public class SortCommand implements Command {
         List<String> getPatterns = new ArrayList<>();
 
         for (int i = 2; i < args.size(); i++) {
-            String arg = new String(args.get(i), StandardCharsets.UTF_8).toUpperCase();
+            String arg = new String(args.get(i), ByteStrings.CHARSET).toUpperCase();
             if (arg.equals("BY") && i + 1 < args.size()) {
-                byPattern = new String(args.get(++i), StandardCharsets.UTF_8);
+                byPattern = new String(args.get(++i), ByteStrings.CHARSET);
             } else if (arg.equals("LIMIT") && i + 2 < args.size()) {
-                limitOffset = Integer.parseInt(new String(args.get(++i), StandardCharsets.UTF_8));
-                limitCount = Integer.parseInt(new String(args.get(++i), StandardCharsets.UTF_8));
+                limitOffset = Integer.parseInt(new String(args.get(++i), ByteStrings.CHARSET));
+                limitCount = Integer.parseInt(new String(args.get(++i), ByteStrings.CHARSET));
             } else if (arg.equals("GET") && i + 1 < args.size()) {
-                getPatterns.add(new String(args.get(++i), StandardCharsets.UTF_8));
+                getPatterns.add(new String(args.get(++i), ByteStrings.CHARSET));
             } else if (arg.equals("ASC")) {
                 desc = false;
             } else if (arg.equals("DESC")) {
@@ -69,7 +68,7 @@ public class SortCommand implements Command {
             } else if (arg.equals("ALPHA")) {
                 alpha = true;
             } else if (arg.equals("STORE") && i + 1 < args.size()) {
-                storeKey = new String(args.get(++i), StandardCharsets.UTF_8);
+                storeKey = new String(args.get(++i), ByteStrings.CHARSET);
             }
         }
 
@@ -148,7 +147,7 @@ public class SortCommand implements Command {
             final String fStoreKey = storeKey;
             
             client.executeWrite(() -> {
-                ConcurrentLinkedDeque<String> storedList = new ConcurrentLinkedDeque<>(toStore);
+                Deque<String> storedList = new PackedList(toStore);
                 Carade.db.put(client.dbIndex, fStoreKey, new ValueEntry(storedList, DataType.LIST, -1));
                 Carade.notifyWatchers(fStoreKey);
             }, "SORT", key, "STORE", storeKey); // Simplified AOF args for brevity, ideally full args
@@ -157,7 +156,7 @@ public class SortCommand implements Command {
         } else {
             List<byte[]> respList = new ArrayList<>();
             for (String s : resultList) {
-                respList.add(s == null ? null : s.getBytes(StandardCharsets.UTF_8));
+                respList.add(s == null ? null : s.getBytes(ByteStrings.CHARSET));
             }
             client.sendArray(respList);
         }
@@ -182,11 +181,11 @@ public class SortCommand implements Command {
 
         if (hashField != null) {
             if (entry.type != DataType.HASH) return null;
-            ConcurrentHashMap<String, String> map = (ConcurrentHashMap<String, String>) entry.getValue();
+            Map<String, String> map = (Map<String, String>) entry.getValue();
             return map.get(hashField);
         } else {
             if (entry.type != DataType.STRING) return null;
-            return new String((byte[]) entry.getValue(), StandardCharsets.UTF_8);
+            return new String((byte[]) entry.getValue(), ByteStrings.CHARSET);
         }
     }
 }
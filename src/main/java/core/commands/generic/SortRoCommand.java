@@ -7,10 +7,9 @@ import core.db.ValueEntry;
 import core.network.ClientHandler;
 import core.structs.CaradeZSet;
 import core.structs.ZNode;
+import core.utils.ByteStrings;
 
-import java.nio.charset.StandardCharsets;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
 
 public class SortRoCommand implements Command {
     @Override
@@ -20,7 +19,7 @@ public class SortRoCommand implements Command {
             return;
         }
 
-        String key = new String(args.get(1), StandardCharsets.UTF_8);
+        String key = new String(args.get(1), ByteStrings.CHARSET);
         ValueEntry entry = Carade.db.get(client.dbIndex, key);
 
         if (entry == null) {
@@ -35,7 +34,7 @@ public class SortRoCommand implements Command {
             list.addAll((Collection<String>) entry.getValue());
         } else if (entry.type == DataType.ZSET) {
             CaradeZSet zset = (CaradeZSet) entry.getValue();
-            for (ZNode node : zset.sorted) {
+            for (ZNode node : zset) {
                 list.add(node.member);
             }
         } else {
@@ -51,14 +50,14 @@ public class SortRoCommand implements Command {
         List<String> getPatterns = new ArrayList<>();
 
         for (int i = 2; i < args.size(); i++) {
-            String arg = new String(args.get(i), StandardCharsets.UTF_8).toUpperCase();
+            String arg = new String(args.get(i), ByteStrings.CHARSET).toUpperCase();
             if (arg.equals("BY") && i + 1 < args.size()) {
-                byPattern = new String(args.get(++i), StandardCharsets.UTF_8);
+                byPattern = new String(args.get(++i), ByteStrings.CHARSET);
             } else if (arg.equals("LIMIT") && i + 2 < args.size()) {
-                limitOffset = Integer.parseInt(new String(args.get(++i), StandardCharsets.UTF_8));
-                limitCount = Integer.parseInt(new String(args.get(++i), StandardCharsets.UTF_8));
+                limitOffset = Integer.parseInt(new String(args.get(++i), ByteStrings.CHARSET));
+                limitCount = Integer.parseInt(new String(args.get(++i), ByteStrings.CHARSET));
             } else if (arg.equals("GET") && i + 1 < args.size()) {
-                getPatterns.add(new String(args.get(++i), StandardCharsets.UTF_8));
+                getPatterns.add(new String(args.get(++i), ByteStrings.CHARSET));
             } else if (arg.equals("ASC")) {
                 desc = false;
             } else if (arg.equals("DESC")) {
@@ -136,7 +135,7 @@ public class SortRoCommand implements Command {
 
         List<byte[]> respList = new ArrayList<>();
         for (String s : resultList) {
-            respList.add(s == null ? null : s.getBytes(StandardCharsets.UTF_8));
+            respList.add(s == null ? null : s.getBytes(ByteStrings.CHARSET));
         }
         client.sendArray(respList);
     }
@@ -159,16 +158,16 @@ public class SortRoCommand implements Command {
 
         if (hashField != null) {
             if (entry.type != DataType.HASH) return null;
-            ConcurrentHashMap<String, String> map;
+            Map<String, String> map;
             if (entry.getValue() instanceof core.structs.CaradeHash) {
                 map = ((core.structs.CaradeHash) entry.getValue()).map;
             } else {
-                map = (ConcurrentHashMap<String, String>) entry.getValue();
+                map = (Map<String, String>) entry.getValue();
             }
             return map.get(hashField);
         } else {
             if (entry.type != DataType.STRING) return null;
-            return new String((byte[]) entry.getValue(), StandardCharsets.UTF_8);
+            return new String((byte[]) entry.getValue(), ByteStrings.CHARSET);
         }
     }
 }
@@ -4,7 +4,7 @@ import core.Carade;
 import core.commands.Command;
 import core.db.ValueEntry;
 import core.network.ClientHandler;
-import java.nio.charset.StandardCharsets;
+import core.utils.ByteStrings;
 import java.util.List;
 
 public class TouchCommand implements Command {
@@ -17,7 +17,7 @@ public class TouchCommand implements Command {
         
         int touched = 0;
         for (int i = 1; i < args.size(); i++) {
-            String key = new String(args.get(i), StandardCharsets.UTF_8);
+            String key = new String(args.get(i), ByteStrings.CHARSET);
             // get() automatically calls touch()
             ValueEntry v = Carade.db.get(client.getDbIndex(), key);
             if (v != null) {
@@ -4,7 +4,7 @@ import core.Carade;
 import core.commands.Command;
 import core.db.ValueEntry;
 import core.network.ClientHandler;
-import java.nio.charset.StandardCharsets;
+import core.utils.ByteStrings;
 import java.util.List;
 
 public class TtlCommand implements Command {
@@ -14,7 +14,7 @@ public class TtlCommand implements Command {
             client.sendError("usage: TTL key");
             return;
         }
-        String key = new String(args.get(1), StandardCharsets.UTF_8);
+        String key = new String(args.get(1), ByteStrings.CHARSET);
         ValueEntry entry = Carade.db.get(client.getDbIndex(), key);
         if (entry == null) client.sendInteger(-2);
         else if (entry.expireAt == -1) client.sendInteger(-1);
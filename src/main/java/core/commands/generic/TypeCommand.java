@@ -4,7 +4,7 @@ import core.Carade;
 import core.commands.Command;
 import core.db.ValueEntry;
 import core.network.ClientHandler;
-import java.nio.charset.StandardCharsets;
+import core.utils.ByteStrings;
 import java.util.List;
 
 public class TypeCommand implements Command {
@@ -14,7 +14,7 @@ public class TypeCommand implements Command {
             client.sendError("usage: TYPE key");
             return;
         }
-        String key = new String(args.get(1), StandardCharsets.UTF_8);
+        String key = new String(args.get(1), ByteStrings.CHARSET);
         ValueEntry entry = Carade.db.get(client.getDbIndex(), key);
         client.sendSimpleString(entry == null ? "none" : entry.type.name().toLowerCase());
     }
@@ -5,7 +5,7 @@ import core.commands.Command;
 import core.db.ValueEntry;
 import core.network.ClientHandler;
 import core.structs.CaradeZSet;
-import java.nio.charset.StandardCharsets;
+import core.utils.ByteStrings;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
@@ -19,7 +19,7 @@ public class UnlinkCommand implements Command {
             return;
         }
         
-        String unlinkKey = new String(args.get(1), StandardCharsets.UTF_8);
+        String unlinkKey = new String(args.get(1), ByteStrings.CHARSET);
         final int[] unlinkRet = {0};
         
         client.executeWrite(() -> {
@@ -36,9 +36,7 @@ public class UnlinkCommand implements Command {
                             if (val instanceof Collection) ((Collection<?>)val).clear();
                             else if (val instanceof Map) ((Map<?,?>)val).clear();
                             else if (val instanceof CaradeZSet) {
-                                 CaradeZSet z = (CaradeZSet) val;
-                                 z.scores.clear();
-                                 z.sorted.clear();
+                                 ((CaradeZSet) val).clear();
                             }
                         } catch (Exception e) {} // Ignore
                     });
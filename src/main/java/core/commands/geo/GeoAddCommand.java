@@ -6,10 +6,10 @@ import core.db.CaradeDatabase;
 import core.db.ValueEntry;
 import core.db.DataType;
 import core.structs.CaradeZSet;
+import core.utils.ByteStrings;
 import core.utils.GeoUtils;
 import java.util.ArrayList;
 import java.util.List;
-import java.nio.charset.StandardCharsets;
 
 public class GeoAddCommand implements Command {
     @Override
@@ -21,7 +21,7 @@ public class GeoAddCommand implements Command {
             return;
         }
 
-        String key = new String(args.get(1), StandardCharsets.UTF_8);
+        String key = new String(args.get(1), ByteStrings.CHARSET);
         
         // Prepare data before acquiring write lock
         List<Double> scores = new ArrayList<>();
@@ -31,9 +31,9 @@ public class GeoAddCommand implements Command {
         int argIndex = 2;
         while (argIndex < args.size()) {
             try {
-                String lonStr = new String(args.get(argIndex++), StandardCharsets.UTF_8);
-                String latStr = new String(args.get(argIndex++), StandardCharsets.UTF_8);
-                String member = new String(args.get(argIndex++), StandardCharsets.UTF_8);
+                String lonStr = new String(args.get(argIndex++), ByteStrings.CHARSET);
+                String latStr = new String(args.get(argIndex++), ByteStrings.CHARSET);
+                String member = new String(args.get(argIndex++), ByteStrings.CHARSET);
                 
                 double lon = Double.parseDouble(lonStr);
                 double lat = Double.parseDouble(latStr);
@@ -6,6 +6,7 @@ import core.db.CaradeDatabase;
 import core.db.ValueEntry;
 import core.db.DataType;
 import core.structs.CaradeZSet;
+import core.utils.ByteStrings;
 import core.utils.GeoUtils;
 import java.util.List;
 
@@ -24,9 +25,9 @@ public class GeoDistCommand implements Command {
             return;
         }
 
-        String key = new String(args.get(1));
-        String member1 = new String(args.get(2));
-        String member2 = new String(args.get(3));
+        String key = new String(args.get(1), ByteStrings.CHARSET);
+        String member1 = new String(args.get(2), ByteStrings.CHARSET);
+        String member2 = new String(args.get(3), ByteStrings.CHARSET);
         String unit = args.size() > 4 ? new String(args.get(4)) : "m";
 
         CaradeDatabase db = CaradeDatabase.getInstance();
@@ -36,7 +37,7 @@ public class GeoDistCommand implements Command {
             return;
         }
 
-        CaradeZSet zset = (CaradeZSet) entry.value;
+        CaradeZSet zset = (CaradeZSet) entry.getValue();
         Double score1 = zset.score(member1);
         Double score2 = zset.score(member2);
 
@@ -6,7 +6,7 @@ import core.db.DataType;
 import core.db.ValueEntry;
 import core.network.ClientHandler;
 import core.structs.CaradeZSet;
-import java.nio.charset.StandardCharsets;
+import core.utils.ByteStrings;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -20,7 +20,7 @@ public class GeoHashCommand implements Command {
             return;
         }
         
-        String key = new String(args.get(1), StandardCharsets.UTF_8);
+        String key = new String(args.get(1), ByteStrings.CHARSET);
         ValueEntry entry = Carade.db.get(client.getDbIndex(), key);
         
         List<byte[]> response = new ArrayList<>();
@@ -36,12 +36,12 @@ public class GeoHashCommand implements Command {
         } else {
             CaradeZSet zset = (CaradeZSet) entry.getValue();
             for (int i = 2; i < args.size(); i++) {
-                String member = new String(args.get(i), StandardCharsets.UTF_8);
+                String member = new String(args.get(i), ByteStrings.CHARSET);
                 Double score = zset.score(member);
                 if (score == null) {
                     response.add(null);
                 } else {
-                    response.add(toGeoHash(score.longValue()).getBytes(StandardCharsets.UTF_8));
+                    response.add(toGeoHash(score.longValue()).getBytes(ByteStrings.CHARSET));
                 }
             }
         }
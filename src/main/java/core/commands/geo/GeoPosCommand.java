@@ -6,8 +6,8 @@ import core.db.DataType;
 import core.db.ValueEntry;
 import core.network.ClientHandler;
 import core.structs.CaradeZSet;
+import core.utils.ByteStrings;
 import core.utils.GeoUtils;
-import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -19,7 +19,7 @@ public class GeoPosCommand implements Command {
             return;
         }
         
-        String key = new String(args.get(1), StandardCharsets.UTF_8);
+        String key = new String(args.get(1), ByteStrings.CHARSET);
         ValueEntry entry = Carade.db.get(client.getDbIndex(), key);
         
         List<Object> response = new ArrayList<>(); // List of Lists or Nulls
@@ -35,15 +35,15 @@ public class GeoPosCommand implements Command {
         } else {
             CaradeZSet zset = (CaradeZSet) entry.getValue();
             for (int i = 2; i < args.size(); i++) {
-                String member = new String(args.get(i), StandardCharsets.UTF_8);
+                String member = new String(args.get(i), ByteStrings.CHARSET);
                 Double score = zset.score(member);
                 if (score == null) {
                     response.add(null);
                 } else {
                     double[] latlon = GeoUtils.decode(score.longValue());
                     List<byte[]> coord = new ArrayList<>();
-                    coord.add(String.valueOf(latlon[1]).getBytes(StandardCharsets.UTF_8)); // Longitude first
-                    coord.add(String.valueOf(latlon[0]).getBytes(StandardCharsets.UTF_8)); // Latitude second
+                    coord.add(String.valueOf(latlon[1]).getBytes(ByteStrings.CHARSET)); // Longitude first
+                    coord.add(String.valueOf(latlon[0]).getBytes(ByteStrings.CHARSET)); // Latitude second
                     response.add(coord);
                 }
             }
@@ -6,8 +6,9 @@ import core.db.DataType;
 import core.db.ValueEntry;
 import core.network.ClientHandler;
 import core.structs.CaradeZSet;
+import core.structs.ZNode;
+import core.utils.ByteStrings;
 import core.utils.GeoUtils;
-import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -19,16 +20,16 @@ public class GeoRadiusByMemberCommand implements Command {
             return;
         }
 
-        String key = new String(args.get(1), StandardCharsets.UTF_8);
-        String member = new String(args.get(2), StandardCharsets.UTF_8);
+        String key = new String(args.get(1), ByteStrings.CHARSET);
+        String member = new String(args.get(2), ByteStrings.CHARSET);
         double radius;
         try {
-            radius = Double.parseDouble(new String(args.get(3), StandardCharsets.UTF_8));
+            radius = Double.parseDouble(new String(args.get(3), ByteStrings.CHARSET));
         } catch (NumberFormatException e) {
             client.sendError("ERR value is not a float");
             return;
         }
-        String unit = new String(args.get(4), StandardCharsets.UTF_8);
+        String unit = new String(args.get(4), ByteStrings.CHARSET);
 
         ValueEntry v = Carade.db.get(client.getDbIndex(), key);
         if (v == null || v.type != DataType.ZSET) {
@@ -37,7 +38,7 @@ public class GeoRadiusByMemberCommand implements Command {
         }
 
         CaradeZSet zset = (CaradeZSet) v.getValue();
-        Double score = zset.scores.get(member);
+        Double score = zset.score(member);
         if (score == null) {
             client.sendError("ERR could not decode requested zset member");
             return;
@@ -64,13 +65,13 @@ public class GeoRadiusByMemberCommand implements Command {
         else if (unit.equals("ft")) meters *= 0.3048;
         else if (unit.equals("mi")) meters *= 1609.34;
         
-        for (java.util.Map.Entry<String, Double> entry : zset.scores.entrySet()) {
-            double[] pos = GeoUtils.decode(entry.getValue().longValue());
+        for (ZNode node : zset) {
+            double[] pos = GeoUtils.decode((long) node.score);
             double dist = GeoUtils.distance(targetLat, targetLon, pos[0], pos[1]);
             
             if (dist <= meters) {
                 // Formatting result based on options (omitted for brevity, returning members)
-                result.add(entry.getKey().getBytes(StandardCharsets.UTF_8));
+                result.add(node.member.getBytes(ByteStrings.CHARSET));
             }
         }
         
@@ -6,11 +6,12 @@ import core.db.CaradeDatabase;
 import core.db.ValueEntry;
 import core.db.DataType;
 import core.structs.CaradeZSet;
+import core.structs.ZNode;
+import core.utils.ByteStrings;
 import core.utils.GeoUtils;
 import java.util.List;
 import java.util.ArrayList;
 import java.util.Comparator;
-import java.util.Map;
 
 public class GeoRadiusCommand implements Command {
     @Override
@@ -30,7 +31,7 @@ public class GeoRadiusCommand implements Command {
         }
 
         try {
-            String key = new String(args.get(1));
+            String key = new String(args.get(1), ByteStrings.CHARSET);
             double lon = Double.parseDouble(new String(args.get(2)));
             double lat = Double.parseDouble(new String(args.get(3)));
             double radius = Double.parseDouble(new String(args.get(4)));
@@ -59,21 +60,21 @@ public class GeoRadiusCommand implements Command {
                 return;
             }
 
-            CaradeZSet zset = (CaradeZSet) entry.value;
+            CaradeZSet zset = (CaradeZSet) entry.getValue();
             double radiusMeters = GeoUtils.convertToMeters(radius, unit);
             
             List<GeoResult> results = new ArrayList<>();
 
             // Naive implementation
-            for (Map.Entry<String, Double> e : zset.scores.entrySet()) {
-                String member = e.getKey();
-                Double score = e.getValue();
+            for (ZNode e : zset) {
+                String member = e.member;
+                double score = e.score;
                 
-                double[] coords = GeoUtils.decode(score.longValue());
+                double[] coords = GeoUtils.decode((long) score);
                 double dist = GeoUtils.distance(lat, lon, coords[0], coords[1]);
                 
                 if (dist <= radiusMeters) {
-                    results.add(new GeoResult(member, dist, score.longValue(), coords));
+                    results.add(new GeoResult(member, dist, (long) score, coords));
                 }
             }
             
@@ -87,10 +88,10 @@ public class GeoRadiusCommand implements Command {
             List<Object> response = new ArrayList<>();
             for (GeoResult r : results) {
                 if (!withCoord && !withDist && !withHash) {
-                    response.add(r.member.getBytes());
+                    response.add(r.member.getBytes(ByteStrings.CHARSET));
                 } else {
                     List<Object> item = new ArrayList<>();
-                    item.add(r.member.getBytes());
+                    item.add(r.member.getBytes(ByteStrings.CHARSET));
                     if (withDist) {
                         item.add(String.format("%.4f", GeoUtils.convertDistance(r.dist, unit)).getBytes());
                     }
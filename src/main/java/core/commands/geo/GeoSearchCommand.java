@@ -6,12 +6,12 @@ import core.db.CaradeDatabase;
 import core.db.ValueEntry;
 import core.db.DataType;
 import core.structs.CaradeZSet;
+import core.structs.ZNode;
+import core.utils.ByteStrings;
 import core.utils.GeoUtils;
 import java.util.List;
 import java.util.ArrayList;
 import java.util.Comparator;
-import java.util.Map;
-import java.nio.charset.StandardCharsets;
 
 public class GeoSearchCommand implements Command {
     @Override
@@ -23,7 +23,7 @@ public class GeoSearchCommand implements Command {
         }
 
         try {
-            String key = new String(args.get(1), StandardCharsets.UTF_8);
+            String key = new String(args.get(1), ByteStrings.CHARSET);
             CaradeDatabase db = CaradeDatabase.getInstance();
             ValueEntry entry = db.get(client.getDbIndex(), key);
             
@@ -39,10 +39,10 @@ public class GeoSearchCommand implements Command {
             int argIdx = 2;
             
             // 1. Parse Origin
-            String originType = new String(args.get(argIdx++), StandardCharsets.UTF_8).toUpperCase();
+            String originType = new String(args.get(argIdx++), ByteStrings.CHARSET).toUpperCase();
             if (originType.equals("FROMMEMBER")) {
                 if (argIdx >= args.size()) { client.sendError("ERR syntax error"); return; }
-                String member = new String(args.get(argIdx++), StandardCharsets.UTF_8);
+                String member = new String(args.get(argIdx++), ByteStrings.CHARSET);
                 Double score = zset.score(member);
                 if (score == null) {
                     client.sendError("ERR member not found");
@@ -53,8 +53,8 @@ public class GeoSearchCommand implements Command {
                 originLon = coords[1];
             } else if (originType.equals("FROMLONLAT")) {
                 if (argIdx + 1 >= args.size()) { client.sendError("ERR syntax error"); return; }
-                originLon = Double.parseDouble(new String(args.get(argIdx++), StandardCharsets.UTF_8));
-                originLat = Double.parseDouble(new String(args.get(argIdx++), StandardCharsets.UTF_8));
+                originLon = Double.parseDouble(new String(args.get(argIdx++), ByteStrings.CHARSET));
+                originLat = Double.parseDouble(new String(args.get(argIdx++), ByteStrings.CHARSET));
             } else {
                 client.sendError("ERR syntax error");
                 return;
@@ -62,21 +62,21 @@ public class GeoSearchCommand implements Command {
             
             // 2. Parse Shape
             if (argIdx >= args.size()) { client.sendError("ERR syntax error"); return; }
-            String shapeType = new String(args.get(argIdx++), StandardCharsets.UTF_8).toUpperCase();
+            String shapeType = new String(args.get(argIdx++), ByteStrings.CHARSET).toUpperCase();
             
             double radiusMeters = -1;
             double widthMeters = -1, heightMeters = -1;
             
             if (shapeType.equals("BYRADIUS")) {
                 if (argIdx + 1 >= args.size()) { client.sendError("ERR syntax error"); return; }
-                double r = Double.parseDouble(new String(args.get(argIdx++), StandardCharsets.UTF_8));
-                String u = new String(args.get(argIdx++), StandardCharsets.UTF_8);
+                double r = Double.parseDouble(new String(args.get(argIdx++), ByteStrings.CHARSET));
+                String u = new String(args.get(argIdx++), ByteStrings.CHARSET);
                 radiusMeters = GeoUtils.convertToMeters(r, u);
             } else if (shapeType.equals("BYBOX")) {
                 if (argIdx + 2 >= args.size()) { client.sendError("ERR syntax error"); return; }
-                double w = Double.parseDouble(new String(args.get(argIdx++), StandardCharsets.UTF_8));
-                double h = Double.parseDouble(new String(args.get(argIdx++), StandardCharsets.UTF_8));
-                String u = new String(args.get(argIdx++), StandardCharsets.UTF_8);
+                double w = Double.parseDouble(new String(args.get(argIdx++), ByteStrings.CHARSET));
+                double h = Double.parseDouble(new String(args.get(argIdx++), ByteStrings.CHARSET));
+                String u = new String(args.get(argIdx++), ByteStrings.CHARSET);
                 widthMeters = GeoUtils.convertToMeters(w, u);
                 heightMeters = GeoUtils.convertToMeters(h, u);
             } else {
@@ -93,28 +93,28 @@ public class GeoSearchCommand implements Command {
             int count = Integer.MAX_VALUE;
             
             while (argIdx < args.size()) {
-                String opt = new String(args.get(argIdx++), StandardCharsets.UTF_8).toUpperCase();
+                String opt = new String(args.get(argIdx++), ByteStrings.CHARSET).toUpperCase();
                 if (opt.equals("ASC")) sortAsc = true;
                 else if (opt.equals("DESC")) sortDesc = true;
                 else if (opt.equals("WITHCOORD")) withCoord = true;
                 else if (opt.equals("WITHDIST")) withDist = true;
                 else if (opt.equals("WITHHASH")) withHash = true;
                 else if (opt.equals("COUNT")) {
-                    if (argIdx < args.size()) count = Integer.parseInt(new String(args.get(argIdx++), StandardCharsets.UTF_8));
+                    if (argIdx < args.size()) count = Integer.parseInt(new String(args.get(argIdx++), ByteStrings.CHARSET));
                 }
             }
             
             // Search
             List<GeoResult> results = new ArrayList<>();
-            for (Map.Entry<String, Double> e : zset.scores.entrySet()) {
-                String member = e.getKey();
-                Double score = e.getValue();
-                double[] coords = GeoUtils.decode(score.longValue());
+            for (ZNode e : zset) {
+                String member = e.member;
+                double score = e.score;
+                double[] coords = GeoUtils.decode((long) score);
                 
                 if (radiusMeters > 0) {
                     double dist = GeoUtils.distance(originLat, originLon, coords[0], coords[1]);
                     if (dist <= radiusMeters) {
-                        results.add(new GeoResult(member, dist, score.longValue(), coords));
+                        results.add(new GeoResult(member, dist, (long) score, coords));
                     }
                 } else {
                     // Box check: rough approximation using latitude/longitude diffs converted to meters
@@ -127,7 +127,7 @@ public class GeoSearchCommand implements Command {
                     
                     if (latMeters <= heightMeters/2 && lonMeters <= widthMeters/2) {
                         double dist = GeoUtils.distance(originLat, originLon, coords[0], coords[1]);
-                         results.add(new GeoResult(member, dist, score.longValue(), coords));
+                         results.add(new GeoResult(member, dist, (long) score, coords));
                     }
                 }
             }
@@ -148,16 +148,16 @@ public class GeoSearchCommand implements Command {
             List<Object> response = new ArrayList<>();
             for (GeoResult r : results) {
                 if (!withCoord && !withDist && !withHash) {
-                    response.add(r.member.getBytes(StandardCharsets.UTF_8));
+                    response.add(r.member.getBytes(ByteStrings.CHARSET));
                 } else {
                     List<Object> item = new ArrayList<>();
-                    item.add(r.member.getBytes(StandardCharsets.UTF_8));
-                    if (withDist) item.add(String.format("%.4f", r.dist).getBytes(StandardCharsets.UTF_8)); 
+                    item.add(r.member.getBytes(ByteStrings.CHARSET));
+                    if (withDist) item.add(String.format("%.4f", r.dist).getBytes(ByteStrings.CHARSET)); 
                     if (withHash) item.add(r.hash);
                     if (withCoord) {
                         List<byte[]> c = new ArrayList<>();
-                        c.add(String.format("%.6f", r.coords[1]).getBytes(StandardCharsets.UTF_8));
-                        c.add(String.format("%.6f", r.coords[0]).getBytes(StandardCharsets.UTF_8));
+                        c.add(String.format("%.6f", r.coords[1]).getBytes(ByteStrings.CHARSET));
+                        c.add(String.format("%.6f", r.coords[0]).getBytes(ByteStrings.CHARSET));
                         item.add(c);
                     }
                     response.add(item);
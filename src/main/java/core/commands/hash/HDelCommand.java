@@ -4,9 +4,9 @@ import core.Carade;
 import core.commands.Command;
 import core.db.DataType;
 import core.network.ClientHandler;
-import java.nio.charset.StandardCharsets;
+import core.utils.ByteStrings;
 import java.util.List;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Map;
 
 public class HDelCommand implements Command {
     @Override
@@ -16,14 +16,14 @@ public class HDelCommand implements Command {
             return;
         }
         
-        String key = new String(args.get(1), StandardCharsets.UTF_8);
-        String field = new String(args.get(2), StandardCharsets.UTF_8);
+        String key = new String(args.get(1), ByteStrings.CHARSET);
+        String field = new String(args.get(2), ByteStrings.CHARSET);
         final int[] ret = {0};
         
         client.executeWrite(() -> {
             Carade.db.getStore(client.getDbIndex()).computeIfPresent(key, (k, v) -> {
                 if (v.type == DataType.HASH) {
-                    ConcurrentHashMap<String, String> map = (ConcurrentHashMap<String, String>) v.getValue();
+                    Map<String, String> map = (Map<String, String>) v.getValue();
                     if (map.remove(field) != null) ret[0] = 1;
                     if (map.isEmpty()) return null;
                 }
@@ -5,9 +5,9 @@ import core.commands.Command;
 import core.db.DataType;
 import core.db.ValueEntry;
 import core.network.ClientHandler;
-import java.nio.charset.StandardCharsets;
+import core.utils.ByteStrings;
 import java.util.List;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Map;
 
 public class HExistsCommand implements Command {
     @Override
@@ -17,14 +17,14 @@ public class HExistsCommand implements Command {
             return;
         }
 
-        String key = new String(args.get(1), StandardCharsets.UTF_8);
-        String field = new String(args.get(2), StandardCharsets.UTF_8);
+        String key = new String(args.get(1), ByteStrings.CHARSET);
+        String field = new String(args.get(2), ByteStrings.CHARSET);
         ValueEntry entry = Carade.db.get(client.dbIndex, key);
 
         if (entry == null || entry.type != DataType.HASH) {
             client.sendInteger(0);
         } else {
-            ConcurrentHashMap<String, String> map = (ConcurrentHashMap<String, String>) entry.getValue();
+            Map<String, String> map = (Map<String, String>) entry.getValue();
             client.sendInteger(map.containsKey(field) ? 1 : 0);
         }
     }
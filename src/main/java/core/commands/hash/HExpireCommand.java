@@ -5,9 +5,10 @@ import core.commands.Command;
 import core.db.DataType;
 import core.network.ClientHandler;
 import core.structs.CaradeHash;
-import java.nio.charset.StandardCharsets;
+import core.utils.ByteStrings;
 import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.Map;
 
 public class HExpireCommand implements Command {
     @Override
@@ -18,10 +19,10 @@ public class HExpireCommand implements Command {
             return;
         }
 
-        String key = new String(args.get(1), StandardCharsets.UTF_8);
+        String key = new String(args.get(1), ByteStrings.CHARSET);
         long seconds;
         try {
-            seconds = Long.parseLong(new String(args.get(2), StandardCharsets.UTF_8));
+            seconds = Long.parseLong(new String(args.get(2), ByteStrings.CHARSET));
         } catch (NumberFormatException e) {
             client.sendError("ERR value is not an integer or out of range");
             return;
@@ -38,12 +39,12 @@ public class HExpireCommand implements Command {
                     if (v.getValue() instanceof CaradeHash) {
                          hash = (CaradeHash) v.getValue();
                     } else {
-                         hash = new CaradeHash((ConcurrentHashMap<String, String>) v.getValue());
+                         hash = new CaradeHash(new ConcurrentHashMap<>((Map<String, String>) v.getValue()));
                          v.setValue(hash);
                     }
                     
                     for (int i = 3; i < args.size(); i++) {
-                         String field = new String(args.get(i), StandardCharsets.UTF_8);
+                         String field = new String(args.get(i), ByteStrings.CHARSET);
                          if (hash.map.containsKey(field)) {
                              hash.setExpiry(field, expireAt);
                              ret[0]++; // Simplified return count of updated fields
@@ -53,7 +54,7 @@ public class HExpireCommand implements Command {
                 return v;
             });
             // Notify if changed?
-        }, "HEXPIRE", (Object[]) args.subList(1, args.size()).stream().map(b -> new String(b, StandardCharsets.UTF_8)).toArray());
+        }, "HEXPIRE", (Object[]) args.subList(1, args.size()).stream().map(b -> new String(b, ByteStrings.CHARSET)).toArray());
         
         client.sendInteger(ret[0]);
     }
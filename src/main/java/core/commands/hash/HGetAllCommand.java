@@ -5,12 +5,11 @@ import core.commands.Command;
 import core.db.DataType;
 import core.db.ValueEntry;
 import core.network.ClientHandler;
-import java.nio.charset.StandardCharsets;
+import core.utils.ByteStrings;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
 public class HGetAllCommand implements Command {
     @Override
@@ -20,17 +19,17 @@ public class HGetAllCommand implements Command {
             return;
         }
 
-        String key = new String(args.get(1), StandardCharsets.UTF_8);
+        String key = new String(args.get(1), ByteStrings.CHARSET);
         ValueEntry entry = Carade.db.get(client.getDbIndex(), key);
         
         if (entry == null || entry.type != DataType.HASH) {
             client.sendArray(Collections.emptyList());
         } else {
-            ConcurrentHashMap<String, String> map = (ConcurrentHashMap<String, String>) entry.getValue();
+            Map<String, String> map = (Map<String, String>) entry.getValue();
             List<byte[]> flat = new ArrayList<>();
             for (Map.Entry<String, String> e : map.entrySet()) {
-                flat.add(e.getKey().getBytes(StandardCharsets.UTF_8));
-                flat.add(e.getValue().getBytes(StandardCharsets.UTF_8));
+                flat.add(e.getKey().getBytes(ByteStrings.CHARSET));
+                flat.add(e.getValue().getBytes(ByteStrings.CHARSET));
             }
             client.sendArray(flat);
         }
@@ -1,14 +1,15 @@
 package core.commands.hash;
 
 import core.Carade;
+import core.commands.Args;
 import core.commands.Command;
 import core.db.DataType;
 import core.db.ValueEntry;
 import core.network.ClientHandler;
 import core.protocol.Resp;
-import java.nio.charset.StandardCharsets;
+import core.utils.ByteStrings;
 import java.util.List;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Map;
 
 public class HGetCommand implements Command {
     @Override
@@ -18,15 +19,15 @@ public class HGetCommand implements Command {
             return;
         }
         
-        String key = new String(args.get(1), StandardCharsets.UTF_8);
-        String field = new String(args.get(2), StandardCharsets.UTF_8);
+        String key = Args.string(args, 1);
+        String field = Args.string(args, 2);
         ValueEntry entry = Carade.db.get(client.dbIndex, key);
         if (entry == null || entry.type != DataType.HASH) {
             client.sendResponse(Resp.bulkString((byte[])null), "(nil)");
         } else {
-            ConcurrentHashMap<String, String> map = (ConcurrentHashMap<String, String>) entry.getValue();
+            Map<String, String> map = (Map<String, String>) entry.getValue();
             String val = map.get(field);
-            client.sendResponse(Resp.bulkString(val != null ? val.getBytes(StandardCharsets.UTF_8) : null), val != null ? val : "(nil)");
+            client.sendResponse(Resp.bulkString(val != null ? val.getBytes(ByteStrings.CHARSET) : null), val != null ? val : "(nil)");
         }
     }
 }
@@ -5,9 +5,10 @@ import core.commands.Command;
 import core.db.DataType;
 import core.db.ValueEntry;
 import core.network.ClientHandler;
-import java.nio.charset.StandardCharsets;
+import core.structs.PackedHash;
+import core.utils.ByteStrings;
 import java.util.List;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Map;
 
 public class HIncrByFloatCommand implements Command {
     @Override
@@ -18,25 +19,25 @@ public class HIncrByFloatCommand implements Command {
         }
 
         Carade.performEvictionIfNeeded();
-        String key = new String(args.get(1), StandardCharsets.UTF_8);
-        String field = new String(args.get(2), StandardCharsets.UTF_8);
+        String key = new String(args.get(1), ByteStrings.CHARSET);
+        String field = new String(args.get(2), ByteStrings.CHARSET);
         final double[] ret = {0.0};
         
         try {
-            double incr = Double.parseDouble(new String(args.get(3), StandardCharsets.UTF_8));
-            String incrStr = new String(args.get(3), StandardCharsets.UTF_8);
+            double incr = Double.parseDouble(new String(args.get(3), ByteStrings.CHARSET));
+            String incrStr = new String(args.get(3), ByteStrings.CHARSET);
             
             client.executeWrite(() -> {
                 Carade.db.getStore(client.getDbIndex()).compute(key, (k, v) -> {
                     if (v == null) {
-                        ConcurrentHashMap<String, String> map = new ConcurrentHashMap<>();
+                        Map<String, String> map = new PackedHash();
                         map.put(field, String.valueOf(incr));
                         ret[0] = incr;
                         return new ValueEntry(map, DataType.HASH, -1);
                     } else if (v.type != DataType.HASH) {
                         throw new RuntimeException("WRONGTYPE");
                     } else {
-                        ConcurrentHashMap<String, String> map = (ConcurrentHashMap<String, String>) v.getValue();
+                        Map<String, String> map = (Map<String, String>) v.getValue();
                         map.compute(field, (f, val) -> {
                             double oldVal = 0;
                             if (val != null) {
@@ -5,11 +5,11 @@ import core.commands.Command;
 import core.db.DataType;
 import core.db.ValueEntry;
 import core.network.ClientHandler;
-import java.nio.charset.StandardCharsets;
+import core.utils.ByteStrings;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Map;
 
 public class HKeysCommand implements Command {
     @Override
@@ -19,16 +19,16 @@ public class HKeysCommand implements Command {
             return;
         }
 
-        String key = new String(args.get(1), StandardCharsets.UTF_8);
+        String key = new String(args.get(1), ByteStrings.CHARSET);
         ValueEntry entry = Carade.db.get(client.dbIndex, key);
 
         if (entry == null || entry.type != DataType.HASH) {
             client.sendArray(Collections.emptyList());
         } else {
-            ConcurrentHashMap<String, String> map = (ConcurrentHashMap<String, String>) entry.getValue();
+            Map<String, String> map = (Map<String, String>) entry.getValue();
             List<byte[]> keys = new ArrayList<>();
             for (String k : map.keySet()) {
-                keys.add(k.getBytes(StandardCharsets.UTF_8));
+                keys.add(k.getBytes(ByteStrings.CHARSET));
             }
             client.sendArray(keys);
         }
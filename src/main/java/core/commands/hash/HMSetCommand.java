@@ -6,9 +6,10 @@ import core.db.DataType;
 import core.db.ValueEntry;
 import core.network.ClientHandler;
 import core.structs.CaradeHash;
-import java.nio.charset.StandardCharsets;
+import core.structs.PackedHash;
+import core.utils.ByteStrings;
 import java.util.List;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Map;
 
 public class HMSetCommand implements Command {
     @Override
@@ -20,17 +21,17 @@ public class HMSetCommand implements Command {
         }
         
         Carade.performEvictionIfNeeded();
-        String key = new String(args.get(1), StandardCharsets.UTF_8);
+        String key = new String(args.get(1), ByteStrings.CHARSET);
 
         try {
             Object[] logArgs = new Object[args.size()-1];
-            for(int i=1; i<args.size(); i++) logArgs[i-1] = new String(args.get(i), StandardCharsets.UTF_8);
+            for(int i=1; i<args.size(); i++) logArgs[i-1] = new String(args.get(i), ByteStrings.CHARSET);
             
             client.executeWrite(() -> {
                 Carade.db.getStore(client.getDbIndex()).compute(key, (k, v) -> {
-                    ConcurrentHashMap<String, String> map;
+                    Map<String, String> map;
                     if (v == null) {
-                        map = new ConcurrentHashMap<>();
+                        map = new PackedHash();
                         v = new ValueEntry(map, DataType.HASH, -1);
                     } else if (v.type != DataType.HASH) {
                         throw new RuntimeException("WRONGTYPE Operation against a key holding the wrong kind of value");
@@ -38,13 +39,13 @@ public class HMSetCommand implements Command {
                         if (v.getValue() instanceof CaradeHash) {
                             map = ((CaradeHash) v.getValue()).map;
                         } else {
-                            map = (ConcurrentHashMap<String, String>) v.getValue();
+                            map = (Map<String, String>) v.getValue();
                         }
                     }
                     
                     for (int i = 2; i < args.size(); i += 2) {
-                        String field = new String(args.get(i), StandardCharsets.UTF_8);
-                        String val = new String(args.get(i+1), StandardCharsets.UTF_8);
+                        String field = new String(args.get(i), ByteStrings.CHARSET);
+                        String val = new String(args.get(i+1), ByteStrings.CHARSET);
                         map.put(field, val);
                     }
                     
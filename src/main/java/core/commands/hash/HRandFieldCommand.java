@@ -6,9 +6,8 @@ import core.db.DataType;
 import core.db.ValueEntry;
 import core.network.ClientHandler;
 import core.structs.CaradeHash;
-import java.nio.charset.StandardCharsets;
+import core.utils.ByteStrings;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
 
 public class HRandFieldCommand implements Command {
     @Override
@@ -18,14 +17,14 @@ public class HRandFieldCommand implements Command {
             return;
         }
 
-        String key = new String(args.get(1), StandardCharsets.UTF_8);
+        String key = new String(args.get(1), ByteStrings.CHARSET);
         long count = 1;
         boolean hasCount = false;
         boolean withValues = false;
 
         if (args.size() > 2) {
             try {
-                count = Long.parseLong(new String(args.get(2), StandardCharsets.UTF_8));
+                count = Long.parseLong(new String(args.get(2), ByteStrings.CHARSET));
                 hasCount = true;
             } catch (NumberFormatException e) {
                 client.sendError("ERR value is not an integer or out of range");
@@ -33,7 +32,7 @@ public class HRandFieldCommand implements Command {
             }
             
             if (args.size() > 3) {
-                String opt = new String(args.get(3), StandardCharsets.UTF_8).toUpperCase();
+                String opt = new String(args.get(3), ByteStrings.CHARSET).toUpperCase();
                 if (opt.equals("WITHVALUES")) {
                     withValues = true;
                 } else {
@@ -54,11 +53,11 @@ public class HRandFieldCommand implements Command {
             return;
         }
         
-        ConcurrentHashMap<String, String> map;
+        Map<String, String> map;
         if (v.getValue() instanceof CaradeHash) {
             map = ((CaradeHash) v.getValue()).map;
         } else {
-            map = (ConcurrentHashMap<String, String>) v.getValue();
+            map = (Map<String, String>) v.getValue();
         }
         
         if (map.isEmpty()) {
@@ -107,10 +106,10 @@ public class HRandFieldCommand implements Command {
     }
     
     private void addResult(List<byte[]> response, String key, Map<String, String> map, boolean withValues) {
-        response.add(key.getBytes(StandardCharsets.UTF_8));
+        response.add(key.getBytes(ByteStrings.CHARSET));
         if (withValues) {
             String val = map.get(key);
-            response.add(val == null ? new byte[0] : val.getBytes(StandardCharsets.UTF_8));
+            response.add(val == null ? new byte[0] : val.getBytes(ByteStrings.CHARSET));
         }
     }
 }
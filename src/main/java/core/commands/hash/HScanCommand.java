@@ -7,9 +7,8 @@ import core.db.ValueEntry;
 import core.network.ClientHandler;
 import core.protocol.Resp;
 import core.structs.CaradeHash;
-import java.nio.charset.StandardCharsets;
+import core.utils.ByteStrings;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
 
 public class HScanCommand implements Command {
     @Override
@@ -19,18 +18,18 @@ public class HScanCommand implements Command {
             return;
         }
 
-        String key = new String(args.get(1), StandardCharsets.UTF_8);
-        String cursor = new String(args.get(2), StandardCharsets.UTF_8);
+        String key = new String(args.get(1), ByteStrings.CHARSET);
+        String cursor = new String(args.get(2), ByteStrings.CHARSET);
         String pattern = null;
         int count = 10;
 
         for (int i = 3; i < args.size(); i++) {
-            String arg = new String(args.get(i), StandardCharsets.UTF_8).toUpperCase();
+            String arg = new String(args.get(i), ByteStrings.CHARSET).toUpperCase();
             if (arg.equals("MATCH") && i + 1 < args.size()) {
-                pattern = new String(args.get(++i), StandardCharsets.UTF_8);
+                pattern = new String(args.get(++i), ByteStrings.CHARSET);
             } else if (arg.equals("COUNT") && i + 1 < args.size()) {
                 try {
-                    count = Integer.parseInt(new String(args.get(++i), StandardCharsets.UTF_8));
+                    count = Integer.parseInt(new String(args.get(++i), ByteStrings.CHARSET));
                 } catch (Exception e) {}
             }
         }
@@ -48,13 +47,13 @@ public class HScanCommand implements Command {
         if (cursor.equals("0")) {
             ValueEntry entry = Carade.db.get(dbIndex, key);
             if (entry == null || entry.type != DataType.HASH) {
-                client.send(client.isResp(), Resp.array(Arrays.asList("0".getBytes(StandardCharsets.UTF_8), Resp.array(Collections.emptyList()))), null);
+                client.send(client.isResp(), Resp.array(Arrays.asList("0".getBytes(ByteStrings.CHARSET), Resp.array(Collections.emptyList()))), null);
                 return;
             }
             if (entry.getValue() instanceof CaradeHash) {
                 it = ((CaradeHash) entry.getValue()).map.entrySet().iterator();
             } else {
-                it = ((ConcurrentHashMap<String, String>) entry.getValue()).entrySet().iterator();
+                it = ((Map<String, String>) entry.getValue()).entrySet().iterator();
             }
             sc = new Carade.ScanCursor(it, null);
             String newCursor = String.valueOf(Carade.cursorIdGen.getAndIncrement());
@@ -77,8 +76,8 @@ public class HScanCommand implements Command {
             Map.Entry<String, String> e = (Map.Entry<String, String>) it.next();
             found++;
             if (regex == null || regex.matcher(e.getKey()).matches()) {
-                results.add(e.getKey().getBytes(StandardCharsets.UTF_8));
-                results.add(e.getValue().getBytes(StandardCharsets.UTF_8));
+                results.add(e.getKey().getBytes(ByteStrings.CHARSET));
+                results.add(e.getValue().getBytes(ByteStrings.CHARSET));
             }
         }
 
@@ -89,7 +88,7 @@ public class HScanCommand implements Command {
 
         if (client.isResp()) {
             List<byte[]> outer = new ArrayList<>();
-            outer.add(cursor.getBytes(StandardCharsets.UTF_8));
+            outer.add(cursor.getBytes(ByteStrings.CHARSET));
             outer.add(Resp.array(results));
             client.send(true, Resp.array(outer), null);
         } else {
@@ -97,7 +96,7 @@ public class HScanCommand implements Command {
             sb.append("1) \"").append(cursor).append("\"\n");
             sb.append("2) ");
             for (int i = 0; i < results.size(); i++) {
-                sb.append(i == 0 ? "" : "\n   ").append(i + 1).append(") \"").append(new String(results.get(i), StandardCharsets.UTF_8)).append("\"");
+                sb.append(i == 0 ? "" : "\n   ").append(i + 1).append(") \"").append(new String(results.get(i), ByteStrings.CHARSET)).append("\"");
             }
             client.send(false, null, sb.toString());
         }
@@ -1,14 +1,15 @@
 package core.commands.hash;
 
 import core.Carade;
+import core.commands.Args;
 import core.commands.Command;
 import core.db.DataType;
 import core.db.ValueEntry;
 import core.network.ClientHandler;
 import core.protocol.Resp;
-import java.nio.charset.StandardCharsets;
+import core.structs.PackedHash;
 import java.util.List;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Map;
 
 public class HSetCommand implements Command {
     @Override
@@ -20,29 +21,29 @@ public class HSetCommand implements Command {
         }
         
         Carade.performEvictionIfNeeded();
-        String key = new String(args.get(1), StandardCharsets.UTF_8);
+        String key = Args.string(args, 1);
         final int[] ret = {0}; // Number of fields added
 
         try {
             // Prepare log args
             Object[] logArgs = new Object[args.size()-1];
-            for(int i=1; i<args.size(); i++) logArgs[i-1] = new String(args.get(i), StandardCharsets.UTF_8);
+            for(int i=1; i<args.size(); i++) logArgs[i-1] = Args.string(args, i);
             
             client.executeWrite(() -> {
                 Carade.db.getStore(client.dbIndex).compute(key, (k, v) -> {
-                    ConcurrentHashMap<String, String> map;
+                    Map<String, String> map;
                     if (v == null) {
-                        map = new ConcurrentHashMap<>();
+                        map = new PackedHash();
                         v = new ValueEntry(map, DataType.HASH, -1);
                     } else if (v.type != DataType.HASH) {
                         throw new RuntimeException("WRONGTYPE Operation against a key holding the wrong kind of value");
                     } else {
-                        map = (ConcurrentHashMap<String, String>) v.getValue();
+                        map = (Map<String, String>) v.getValue();
                     }
                     
                     for (int i = 2; i < args.size(); i += 2) {
-                        String field = new String(args.get(i), StandardCharsets.UTF_8);
-                        String val = new String(args.get(i+1), StandardCharsets.UTF_8);
+                        String field = (String) logArgs[i-1];
+                        String val = (String) logArgs[i];
                         if (map.put(field, val) == null) ret[0]++; 
                     }
                     
@@ -6,9 +6,9 @@ import core.db.DataType;
 import core.db.ValueEntry;
 import core.network.ClientHandler;
 import core.structs.CaradeHash;
-import java.nio.charset.StandardCharsets;
+import core.utils.ByteStrings;
 import java.util.List;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Map;
 
 public class HStrLenCommand implements Command {
     @Override
@@ -18,8 +18,8 @@ public class HStrLenCommand implements Command {
             return;
         }
 
-        String key = new String(args.get(1), StandardCharsets.UTF_8);
-        String field = new String(args.get(2), StandardCharsets.UTF_8);
+        String key = new String(args.get(1), ByteStrings.CHARSET);
+        String field = new String(args.get(2), ByteStrings.CHARSET);
         
         ValueEntry v = Carade.db.get(client.getDbIndex(), key);
         if (v == null) {
@@ -31,11 +31,11 @@ public class HStrLenCommand implements Command {
             return;
         }
         
-        ConcurrentHashMap<String, String> map;
+        Map<String, String> map;
         if (v.getValue() instanceof CaradeHash) {
             map = ((CaradeHash) v.getValue()).map;
         } else {
-            map = (ConcurrentHashMap<String, String>) v.getValue();
+            map = (Map<String, String>) v.getValue();
         }
         
         String val = map.get(field);
@@ -6,9 +6,10 @@ import core.db.DataType;
 import core.db.ValueEntry;
 import core.network.ClientHandler;
 import core.structs.CaradeHash;
-import java.nio.charset.StandardCharsets;
+import core.utils.ByteStrings;
 import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.Map;
 
 public class HTtlCommand implements Command {
     @Override
@@ -19,8 +20,8 @@ public class HTtlCommand implements Command {
             return;
         }
 
-        String key = new String(args.get(1), StandardCharsets.UTF_8);
-        String field = new String(args.get(2), StandardCharsets.UTF_8);
+        String key = new String(args.get(1), ByteStrings.CHARSET);
+        String field = new String(args.get(2), ByteStrings.CHARSET);
         
         ValueEntry v = Carade.db.get(client.getDbIndex(), key);
         if (v == null || v.type != DataType.HASH) {
@@ -32,7 +33,7 @@ public class HTtlCommand implements Command {
         if (v.getValue() instanceof CaradeHash) {
              hash = (CaradeHash) v.getValue();
         } else {
-             hash = new CaradeHash((ConcurrentHashMap<String, String>) v.getValue());
+             hash = new CaradeHash(new ConcurrentHashMap<>((Map<String, String>) v.getValue()));
              v.setValue(hash);
         }
         
@@ -5,10 +5,10 @@ import core.commands.Command;
 import core.db.DataType;
 import core.db.ValueEntry;
 import core.network.ClientHandler;
-import java.nio.charset.StandardCharsets;
+import core.utils.ByteStrings;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Map;
 
 public class HmgetCommand implements Command {
     @Override
@@ -18,7 +18,7 @@ public class HmgetCommand implements Command {
             return;
         }
 
-        String key = new String(args.get(1), StandardCharsets.UTF_8);
+        String key = new String(args.get(1), ByteStrings.CHARSET);
         ValueEntry entry = Carade.db.get(client.dbIndex, key);
 
         List<byte[]> results = new ArrayList<>();
@@ -32,11 +32,11 @@ public class HmgetCommand implements Command {
             client.sendError("WRONGTYPE Operation against a key holding the wrong kind of value");
             return;
         } else {
-            ConcurrentHashMap<String, String> map = (ConcurrentHashMap<String, String>) entry.getValue();
+            Map<String, String> map = (Map<String, String>) entry.getValue();
             for (int i = 2; i < args.size(); i++) {
-                String field = new String(args.get(i), StandardCharsets.UTF_8);
+                String field = new String(args.get(i), ByteStrings.CHARSET);
                 String val = map.get(field);
-                results.add(val != null ? val.getBytes(StandardCharsets.UTF_8) : null);
+                results.add(val != null ? val.getBytes(ByteStrings.CHARSET) : null);
             }
         }
 
@@ -6,8 +6,8 @@ import core.db.ValueEntry;
 import core.network.ClientHandler;
 import core.Carade;
 import core.structs.HyperLogLog;
+import core.utils.ByteStrings;
 import java.util.List;
-import java.nio.charset.StandardCharsets;
 
 public class PfAddCommand implements Command {
     @Override
@@ -17,7 +17,7 @@ public class PfAddCommand implements Command {
             return;
         }
 
-        String key = new String(args.get(1), StandardCharsets.UTF_8);
+        String key = new String(args.get(1), ByteStrings.CHARSET);
         final int[] ret = {0};
         
         // This is a write command
@@ -35,7 +35,7 @@ public class PfAddCommand implements Command {
                 
                 boolean changed = false;
                 for (int i = 2; i < args.size(); i++) {
-                    String elem = new String(args.get(i), StandardCharsets.UTF_8);
+                    String elem = new String(args.get(i), ByteStrings.CHARSET);
                     if (hll.add(elem)) changed = true;
                 }
                 
@@ -48,7 +48,7 @@ public class PfAddCommand implements Command {
                 return v;
             });
             if (ret[0] == 1) Carade.notifyWatchers(key);
-        }, "PFADD", (Object[]) args.stream().skip(1).map(b -> new String(b, StandardCharsets.UTF_8)).toArray());
+        }, "PFADD", (Object[]) args.stream().skip(1).map(b -> new String(b, ByteStrings.CHARSET)).toArray());
 
         client.sendInteger(ret[0]);
     }
@@ -6,8 +6,8 @@ import core.db.ValueEntry;
 import core.network.ClientHandler;
 import core.Carade;
 import core.structs.HyperLogLog;
+import core.utils.ByteStrings;
 import java.util.List;
-import java.nio.charset.StandardCharsets;
 
 public class PfCountCommand implements Command {
     @Override
@@ -19,7 +19,7 @@ public class PfCountCommand implements Command {
 
         if (args.size() == 2) {
             // Single key optimization
-            String key = new String(args.get(1), StandardCharsets.UTF_8);
+            String key = new String(args.get(1), ByteStrings.CHARSET);
             ValueEntry entry = Carade.db.get(client.dbIndex, key);
             
             if (entry == null) {
@@ -38,7 +38,7 @@ public class PfCountCommand implements Command {
             // Merge multiple HLLs temporarily
             HyperLogLog merged = new HyperLogLog();
             for (int i = 1; i < args.size(); i++) {
-                String key = new String(args.get(i), StandardCharsets.UTF_8);
+                String key = new String(args.get(i), ByteStrings.CHARSET);
                 ValueEntry entry = Carade.db.get(client.dbIndex, key);
                 
                 if (entry != null) {
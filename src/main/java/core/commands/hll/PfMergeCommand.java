@@ -6,7 +6,7 @@ import core.db.DataType;
 import core.db.ValueEntry;
 import core.network.ClientHandler;
 import core.structs.HyperLogLog;
-import java.nio.charset.StandardCharsets;
+import core.utils.ByteStrings;
 import java.util.List;
 
 public class PfMergeCommand implements Command {
@@ -17,7 +17,7 @@ public class PfMergeCommand implements Command {
             return;
         }
 
-        String destKey = new String(args.get(1), StandardCharsets.UTF_8);
+        String destKey = new String(args.get(1), ByteStrings.CHARSET);
 
         client.executeWrite(() -> {
             HyperLogLog merged = new HyperLogLog();
@@ -33,7 +33,7 @@ public class PfMergeCommand implements Command {
 
             // Merge others
             for (int i = 2; i < args.size(); i++) {
-                String srcKey = new String(args.get(i), StandardCharsets.UTF_8);
+                String srcKey = new String(args.get(i), ByteStrings.CHARSET);
                 ValueEntry srcVal = Carade.db.get(client.getDbIndex(), srcKey);
                 if (srcVal != null) {
                     if (srcVal.type != DataType.HYPERLOGLOG) {
@@ -46,6 +46,6 @@ public class PfMergeCommand implements Command {
             Carade.db.put(client.getDbIndex(), destKey, new ValueEntry(merged, DataType.HYPERLOGLOG, -1));
             client.sendSimpleString("OK");
             
-        }, "PFMERGE", args.stream().map(b -> new String(b, StandardCharsets.UTF_8)).toArray());
+        }, "PFMERGE", args.stream().map(b -> new String(b, ByteStrings.CHARSET)).toArray());
     }
 }
@@ -5,6 +5,7 @@ import core.db.DataType;
 import core.db.CaradeDatabase;
 import core.db.ValueEntry;
 import core.network.ClientHandler;
+import core.utils.ByteStrings;
 import com.fasterxml.jackson.databind.JsonNode;
 import java.util.List;
 
@@ -16,7 +17,7 @@ public class JsonGetCommand implements Command {
             return;
         }
 
-        String key = new String(args.get(0));
+        String key = new String(args.get(0), ByteStrings.CHARSET);
         String path = args.size() > 1 ? new String(args.get(1)) : "$";
 
         CaradeDatabase db = CaradeDatabase.getInstance();
@@ -39,7 +40,7 @@ public class JsonGetCommand implements Command {
         if (result == null) {
             client.sendNull();
         } else {
-            client.sendBulkString(JsonUtils.stringify(result));
+            client.sendBulkString(ByteStrings.fromText(JsonUtils.stringify(result)));
         }
     }
 }
@@ -5,6 +5,7 @@ import core.db.DataType;
 import core.db.CaradeDatabase;
 import core.db.ValueEntry;
 import core.network.ClientHandler;
+import core.utils.ByteStrings;
 import com.fasterxml.jackson.databind.JsonNode;
 import java.util.List;
 import java.io.IOException;
@@ -17,7 +18,7 @@ public class JsonSetCommand implements Command {
             return;
         }
 
-        String key = new String(args.get(0));
+        String key = new String(args.get(0), ByteStrings.CHARSET);
         String path = new String(args.get(1));
         String jsonStr = new String(args.get(2));
         
@@ -59,6 +60,6 @@ public class JsonSetCommand implements Command {
                 entry.setValue(updatedRoot);
                 client.sendSimpleString("OK");
             }
-        }, "JSON.SET", key, path, jsonStr);
+        }, "JSON.SET", key, args.get(1), args.get(2));
     }
 }
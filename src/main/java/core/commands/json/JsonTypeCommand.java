@@ -5,6 +5,7 @@ import core.commands.Command;
 import core.db.DataType;
 import core.db.ValueEntry;
 import core.network.ClientHandler;
+import core.utils.ByteStrings;
 import com.fasterxml.jackson.databind.JsonNode;
 import java.nio.charset.StandardCharsets;
 import java.util.List;
@@ -17,7 +18,7 @@ public class JsonTypeCommand implements Command {
             return;
         }
 
-        String key = new String(args.get(1), StandardCharsets.UTF_8);
+        String key = new String(args.get(1), ByteStrings.CHARSET);
         String path = args.size() > 2 ? new String(args.get(2), StandardCharsets.UTF_8) : "$";
 
         ValueEntry entry = Carade.db.get(client.getDbIndex(), key);
@@ -5,11 +5,12 @@ import core.commands.Command;
 import core.db.DataType;
 import core.db.ValueEntry;
 import core.network.ClientHandler;
-import java.nio.charset.StandardCharsets;
-import java.util.concurrent.ConcurrentLinkedDeque;
+import core.structs.PackedList;
+import core.utils.ByteStrings;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.List;
 import java.util.Arrays;
+import java.util.Deque;
 
 public class BlMoveCommand implements Command {
     @Override
@@ -20,11 +21,11 @@ public class BlMoveCommand implements Command {
         }
 
         try {
-            double timeout = Double.parseDouble(new String(args.get(5), StandardCharsets.UTF_8));
-            String source = new String(args.get(1), StandardCharsets.UTF_8);
-            String destKey = new String(args.get(2), StandardCharsets.UTF_8);
-            String whereFrom = new String(args.get(3), StandardCharsets.UTF_8).toUpperCase();
-            String whereTo = new String(args.get(4), StandardCharsets.UTF_8).toUpperCase();
+            double timeout = Double.parseDouble(new String(args.get(5), ByteStrings.CHARSET));
+            String source = new String(args.get(1), ByteStrings.CHARSET);
+            String destKey = new String(args.get(2), ByteStrings.CHARSET);
+            String whereFrom = new String(args.get(3), ByteStrings.CHARSET).toUpperCase();
+            String whereTo = new String(args.get(4), ByteStrings.CHARSET).toUpperCase();
             
             if (!Arrays.asList("LEFT", "RIGHT").contains(whereFrom) || !Arrays.asList("LEFT", "RIGHT").contains(whereTo)) {
                 client.sendError("ERR syntax error");
@@ -34,14 +35,14 @@ public class BlMoveCommand implements Command {
             boolean served = false;
             ValueEntry entry = Carade.db.get(client.getDbIndex(), source);
             if (entry != null && entry.type == DataType.LIST) {
-                ConcurrentLinkedDeque<String> list = (ConcurrentLinkedDeque<String>) entry.getValue();
+                Deque<String> list = (Deque<String>) entry.getValue();
                 if (!list.isEmpty()) {
                     final String[] valRef = {null};
                     
                     client.executeWrite(() -> {
                         ValueEntry e = Carade.db.get(client.getDbIndex(), source);
                         if (e != null && e.type == DataType.LIST) {
-                            ConcurrentLinkedDeque<String> l = (ConcurrentLinkedDeque<String>) e.getValue();
+                            Deque<String> l = (Deque<String>) e.getValue();
                             valRef[0] = whereFrom.equals("RIGHT") ? l.pollLast() : l.pollFirst();
                             
                             if (valRef[0] != null) {
@@ -51,11 +52,11 @@ public class BlMoveCommand implements Command {
                                 client.executeWrite(() -> {
                                     Carade.db.getStore(client.getDbIndex()).compute(destKey, (dk, dv) -> {
                                          if (dv == null) {
-                                             ConcurrentLinkedDeque<String> dl = new ConcurrentLinkedDeque<>();
+                                             Deque<String> dl = new PackedList();
                                              if (whereTo.equals("LEFT")) dl.addFirst(valRef[0]); else dl.addLast(valRef[0]);
                                              return new ValueEntry(dl, DataType.LIST, -1);
                                          } else if (dv.type == DataType.LIST) {
-                                             ConcurrentLinkedDeque<String> dl = (ConcurrentLinkedDeque<String>) dv.getValue();
+                                             Deque<String> dl = (Deque<String>) dv.getValue();
                                              if (whereTo.equals("LEFT")) dl.addFirst(valRef[0]); else dl.addLast(valRef[0]);
                                              return dv;
                                          }
@@ -92,7 +93,7 @@ public class BlMoveCommand implements Command {
                      } else {
                          // We rely on Carade.checkBlockers to have moved the element.
                          if (result.size() >= 2) {
-                              client.sendBulkString(new String(result.get(1), StandardCharsets.UTF_8));
+                              client.sendBulkString(new String(result.get(1), ByteStrings.CHARSET));
                          } else {
                               client.sendNull();
                          }
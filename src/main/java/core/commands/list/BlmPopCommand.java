@@ -6,11 +6,11 @@ import core.db.DataType;
 import core.db.ValueEntry;
 import core.network.ClientHandler;
 import core.protocol.Resp;
-import java.nio.charset.StandardCharsets;
+import core.utils.ByteStrings;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.ConcurrentLinkedDeque;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.Deque;
 
 public class BlmPopCommand implements Command {
     @Override
@@ -22,8 +22,8 @@ public class BlmPopCommand implements Command {
         }
 
         try {
-            double timeout = Double.parseDouble(new String(args.get(1), StandardCharsets.UTF_8));
-            int numKeys = Integer.parseInt(new String(args.get(2), StandardCharsets.UTF_8));
+            double timeout = Double.parseDouble(new String(args.get(1), ByteStrings.CHARSET));
+            int numKeys = Integer.parseInt(new String(args.get(2), ByteStrings.CHARSET));
             
             if (numKeys <= 0) {
                  client.sendError("ERR numkeys must be positive");
@@ -36,10 +36,10 @@ public class BlmPopCommand implements Command {
             
             List<String> keys = new ArrayList<>();
             for (int i = 0; i < numKeys; i++) {
-                keys.add(new String(args.get(3 + i), StandardCharsets.UTF_8));
+                keys.add(new String(args.get(3 + i), ByteStrings.CHARSET));
             }
             
-            String direction = new String(args.get(3 + numKeys), StandardCharsets.UTF_8).toUpperCase();
+            String direction = new String(args.get(3 + numKeys), ByteStrings.CHARSET).toUpperCase();
             boolean isLeft = direction.equals("LEFT");
             if (!isLeft && !direction.equals("RIGHT")) {
                 client.sendError("ERR syntax error");
@@ -48,13 +48,13 @@ public class BlmPopCommand implements Command {
 
             int count = 1;
             if (args.size() > 3 + numKeys + 1) {
-                String nextArg = new String(args.get(3 + numKeys + 1), StandardCharsets.UTF_8).toUpperCase();
+                String nextArg = new String(args.get(3 + numKeys + 1), ByteStrings.CHARSET).toUpperCase();
                 if (nextArg.equals("COUNT")) {
                      if (args.size() <= 3 + numKeys + 2) {
                          client.sendError("ERR syntax error");
                          return;
                      }
-                     count = Integer.parseInt(new String(args.get(3 + numKeys + 2), StandardCharsets.UTF_8));
+                     count = Integer.parseInt(new String(args.get(3 + numKeys + 2), ByteStrings.CHARSET));
                 }
             }
 
@@ -63,7 +63,7 @@ public class BlmPopCommand implements Command {
             for (String k : keys) {
                 ValueEntry v = Carade.db.get(client.dbIndex, k);
                 if (v != null && v.type == DataType.LIST) {
-                     ConcurrentLinkedDeque<String> list = (ConcurrentLinkedDeque<String>) v.getValue();
+                     Deque<String> list = (Deque<String>) v.getValue();
                      if (!list.isEmpty()) {
                          targetKey = k;
                          break;
@@ -81,7 +81,7 @@ public class BlmPopCommand implements Command {
                 client.executeWrite(() -> {
                      ValueEntry v = Carade.db.get(client.dbIndex, finalKey);
                      if (v != null && v.type == DataType.LIST) {
-                         ConcurrentLinkedDeque<String> list = (ConcurrentLinkedDeque<String>) v.getValue();
+                         Deque<String> list = (Deque<String>) v.getValue();
                          for (int i=0; i<finalCount; i++) {
                              String val = finalIsLeft ? list.pollFirst() : list.pollLast();
                              if (val != null) popped.add(val);
@@ -93,9 +93,9 @@ public class BlmPopCommand implements Command {
                 }, "BLMPOP", targetKey, String.valueOf(count), direction);
                 
                 List<byte[]> resp = new ArrayList<>();
-                resp.add(finalKey.getBytes(StandardCharsets.UTF_8));
+                resp.add(finalKey.getBytes(ByteStrings.CHARSET));
                 List<byte[]> elements = new ArrayList<>();
-                for (String s : popped) elements.add(s.getBytes(StandardCharsets.UTF_8));
+                for (String s : popped) elements.add(s.getBytes(ByteStrings.CHARSET));
                 resp.add(Resp.array(elements));
                 client.sendResponse(Resp.array(resp), null);
                 return;
@@ -6,11 +6,11 @@ import core.db.DataType;
 import core.db.ValueEntry;
 import core.network.ClientHandler;
 import core.protocol.Resp;
-import java.nio.charset.StandardCharsets;
-import java.util.concurrent.ConcurrentLinkedDeque;
+import core.utils.ByteStrings;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Deque;
 
 public class BrPopCommand implements Command {
     @Override
@@ -21,15 +21,15 @@ public class BrPopCommand implements Command {
         }
 
         try {
-            double timeout = Double.parseDouble(new String(args.get(args.size()-1), StandardCharsets.UTF_8));
+            double timeout = Double.parseDouble(new String(args.get(args.size()-1), ByteStrings.CHARSET));
             List<String> keys = new ArrayList<>();
-            for(int i=1; i<args.size()-1; i++) keys.add(new String(args.get(i), StandardCharsets.UTF_8));
+            for(int i=1; i<args.size()-1; i++) keys.add(new String(args.get(i), ByteStrings.CHARSET));
             
             boolean served = false;
             for (String k : keys) {
                 ValueEntry entry = Carade.db.get(client.getDbIndex(), k);
                 if (entry != null && entry.type == DataType.LIST) {
-                    ConcurrentLinkedDeque<String> list = (ConcurrentLinkedDeque<String>) entry.getValue();
+                    Deque<String> list = (Deque<String>) entry.getValue();
                     if (!list.isEmpty()) {
                         final String[] valRef = {null};
                         final String finalKey = k;
@@ -37,7 +37,7 @@ public class BrPopCommand implements Command {
                         client.executeWrite(() -> {
                             ValueEntry e = Carade.db.get(client.getDbIndex(), finalKey);
                             if (e != null && e.type == DataType.LIST) {
-                                ConcurrentLinkedDeque<String> l = (ConcurrentLinkedDeque<String>) e.getValue();
+                                Deque<String> l = (Deque<String>) e.getValue();
                                 valRef[0] = l.pollLast();
                                 
                                 if (valRef[0] != null) {
@@ -49,8 +49,8 @@ public class BrPopCommand implements Command {
                         
                         if (valRef[0] != null) {
                              List<byte[]> resp = new ArrayList<>();
-                             resp.add(k.getBytes(StandardCharsets.UTF_8));
-                             resp.add(valRef[0].getBytes(StandardCharsets.UTF_8));
+                             resp.add(k.getBytes(ByteStrings.CHARSET));
+                             resp.add(valRef[0].getBytes(ByteStrings.CHARSET));
                              client.send(client.isResp(), Resp.array(resp), null);
                              served = true;
                              break;
@@ -5,10 +5,11 @@ import core.commands.Command;
 import core.db.DataType;
 import core.db.ValueEntry;
 import core.network.ClientHandler;
-import java.nio.charset.StandardCharsets;
-import java.util.concurrent.ConcurrentLinkedDeque;
+import core.structs.PackedList;
+import core.utils.ByteStrings;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.List;
+import java.util.Deque;
 
 public class BrPopLPushCommand implements Command {
     @Override
@@ -19,21 +20,21 @@ public class BrPopLPushCommand implements Command {
         }
 
         try {
-            double timeout = Double.parseDouble(new String(args.get(3), StandardCharsets.UTF_8));
-            String source = new String(args.get(1), StandardCharsets.UTF_8);
-            String destKey = new String(args.get(2), StandardCharsets.UTF_8);
+            double timeout = Double.parseDouble(new String(args.get(3), ByteStrings.CHARSET));
+            String source = new String(args.get(1), ByteStrings.CHARSET);
+            String destKey = new String(args.get(2), ByteStrings.CHARSET);
             
             boolean served = false;
             ValueEntry entry = Carade.db.get(client.getDbIndex(), source);
             if (entry != null && entry.type == DataType.LIST) {
-                ConcurrentLinkedDeque<String> list = (ConcurrentLinkedDeque<String>) entry.getValue();
+                Deque<String> list = (Deque<String>) entry.getValue();
                 if (!list.isEmpty()) {
                     final String[] valRef = {null};
                     
                     client.executeWrite(() -> {
                         ValueEntry e = Carade.db.get(client.getDbIndex(), source);
                         if (e != null && e.type == DataType.LIST) {
-                            ConcurrentLinkedDeque<String> l = (ConcurrentLinkedDeque<String>) e.getValue();
+                            Deque<String> l = (Deque<String>) e.getValue();
                             valRef[0] = l.pollLast(); // RPOPLPUSH pops from tail
                             
                             if (valRef[0] != null) {
@@ -43,11 +44,11 @@ public class BrPopLPushCommand implements Command {
                                 client.executeWrite(() -> {
                                     Carade.db.getStore(client.getDbIndex()).compute(destKey, (dk, dv) -> {
                                          if (dv == null) {
-                                             ConcurrentLinkedDeque<String> dl = new ConcurrentLinkedDeque<>();
+                                             Deque<String> dl = new PackedList();
                                              dl.addFirst(valRef[0]);
                                              return new ValueEntry(dl, DataType.LIST, -1);
                                          } else if (dv.type == DataType.LIST) {
-                                             ConcurrentLinkedDeque<String> dl = (ConcurrentLinkedDeque<String>) dv.getValue();
+                                             Deque<String> dl = (Deque<String>) dv.getValue();
                                              dl.addFirst(valRef[0]);
                                              return dv;
                                          }
@@ -78,7 +79,7 @@ public class BrPopLPushCommand implements Command {
                      } else {
                          // result is [source, value]
                          if (result.size() >= 2) {
-                              client.sendBulkString(new String(result.get(1), StandardCharsets.UTF_8));
+                              client.sendBulkString(new String(result.get(1), ByteStrings.CHARSET));
                          } else {
                               client.sendNull();
                          }
@@ -5,10 +5,9 @@ import core.commands.Command;
 import core.db.DataType;
 import core.db.ValueEntry;
 import core.network.ClientHandler;
-import java.nio.charset.StandardCharsets;
-import java.util.Iterator;
+import core.structs.PackedList;
+import core.utils.ByteStrings;
 import java.util.List;
-import java.util.concurrent.ConcurrentLinkedDeque;
 
 public class LIndexCommand implements Command {
     @Override
@@ -18,10 +17,10 @@ public class LIndexCommand implements Command {
             return;
         }
 
-        String key = new String(args.get(1), StandardCharsets.UTF_8);
+        String key = new String(args.get(1), ByteStrings.CHARSET);
         int index;
         try {
-            index = Integer.parseInt(new String(args.get(2), StandardCharsets.UTF_8));
+            index = Integer.parseInt(new String(args.get(2), ByteStrings.CHARSET));
         } catch (NumberFormatException e) {
             client.sendError("ERR value is not an integer or out of range");
             return;
@@ -33,39 +32,16 @@ public class LIndexCommand implements Command {
         } else if (entry.type != DataType.LIST) {
             client.sendError("WRONGTYPE Operation against a key holding the wrong kind of value");
         } else {
-            ConcurrentLinkedDeque<String> list = (ConcurrentLinkedDeque<String>) entry.getValue();
-            int size = list.size();
+            PackedList list = (PackedList) entry.getValue();
+            if (index < 0) index += list.size();
             
-            if (index < 0) index += size;
-            
-            if (index < 0 || index >= size) {
-                client.sendNull();
-                return;
-            }
-            
-            // Access by iteration
-            // Optimization: if index is closer to end, use descending iterator?
-            // ConcurrentLinkedDeque iterator is weakly consistent.
-            // But descending iterator also works.
-            
-            String val = null;
-            if (index < size / 2) {
-                Iterator<String> it = list.iterator();
-                for (int i = 0; i <= index && it.hasNext(); i++) {
-                    val = it.next();
-                }
-            } else {
-                Iterator<String> it = list.descendingIterator();
-                int target = size - 1 - index;
-                for (int i = 0; i <= target && it.hasNext(); i++) {
-                    val = it.next();
-                }
-            }
+            // Skips whole quicklist chunks
+            String val = list.get(index);
             
             if (val != null) {
                 client.sendBulkString(val);
             } else {
-                client.sendNull(); // Should not happen if size check was correct but race condition possible
+                client.sendNull();
             }
         }
     }
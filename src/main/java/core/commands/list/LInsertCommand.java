@@ -5,9 +5,9 @@ import core.commands.Command;
 import core.db.DataType;
 import core.db.ValueEntry;
 import core.network.ClientHandler;
-import java.nio.charset.StandardCharsets;
+import core.structs.PackedList;
+import core.utils.ByteStrings;
 import java.util.List;
-import java.util.concurrent.ConcurrentLinkedDeque;
 
 public class LInsertCommand implements Command {
     @Override
@@ -17,10 +17,10 @@ public class LInsertCommand implements Command {
             return;
         }
 
-        String key = new String(args.get(1), StandardCharsets.UTF_8);
-        String position = new String(args.get(2), StandardCharsets.UTF_8).toUpperCase();
-        String pivot = new String(args.get(3), StandardCharsets.UTF_8);
-        String element = new String(args.get(4), StandardCharsets.UTF_8);
+        String key = new String(args.get(1), ByteStrings.CHARSET);
+        String position = new String(args.get(2), ByteStrings.CHARSET).toUpperCase();
+        String pivot = new String(args.get(3), ByteStrings.CHARSET);
+        String element = new String(args.get(4), ByteStrings.CHARSET);
 
         if (!position.equals("BEFORE") && !position.equals("AFTER")) {
             client.sendError("ERR syntax error");
@@ -39,38 +39,20 @@ public class LInsertCommand implements Command {
                 throw new RuntimeException("WRONGTYPE Operation against a key holding the wrong kind of value");
             }
 
-            ConcurrentLinkedDeque<String> list = (ConcurrentLinkedDeque<String>) v.getValue();
+            PackedList list = (PackedList) v.getValue();
             if (list.isEmpty()) {
                 client.sendInteger(0);
                 return;
             }
             
-            boolean found = false;
-            ConcurrentLinkedDeque<String> newList = new ConcurrentLinkedDeque<>();
-            for (String s : list) {
-                if (!found && s.equals(pivot)) {
-                    found = true;
-                    if (position.equals("BEFORE")) {
-                        newList.add(element);
-                        newList.add(s);
-                    } else {
-                        newList.add(s);
-                        newList.add(element);
-                    }
-                } else {
-                    newList.add(s);
-                }
-            }
-
-            if (!found) {
+            if (!list.insert(pivot, element, position.equals("BEFORE"))) {
                 client.sendInteger(-1);
                 return;
             }
 
-            v.setValue(newList);
             v.touch();
             Carade.notifyWatchers(key);
-            client.sendInteger(newList.size());
+            client.sendInteger(list.size());
 
         }, "LINSERT", logArgs);
     }
@@ -5,10 +5,11 @@ import core.commands.Command;
 import core.db.DataType;
 import core.db.ValueEntry;
 import core.network.ClientHandler;
-import java.nio.charset.StandardCharsets;
-import java.util.concurrent.ConcurrentLinkedDeque;
+import core.structs.PackedList;
+import core.utils.ByteStrings;
 import java.util.List;
 import java.util.Arrays;
+import java.util.Deque;
 
 public class LMoveCommand implements Command {
     @Override
@@ -18,10 +19,10 @@ public class LMoveCommand implements Command {
             return;
         }
 
-        String source = new String(args.get(1), StandardCharsets.UTF_8);
-        String destination = new String(args.get(2), StandardCharsets.UTF_8);
-        String whereFrom = new String(args.get(3), StandardCharsets.UTF_8).toUpperCase();
-        String whereTo = new String(args.get(4), StandardCharsets.UTF_8).toUpperCase();
+        String source = new String(args.get(1), ByteStrings.CHARSET);
+        String destination = new String(args.get(2), ByteStrings.CHARSET);
+        String whereFrom = new String(args.get(3), ByteStrings.CHARSET).toUpperCase();
+        String whereTo = new String(args.get(4), ByteStrings.CHARSET).toUpperCase();
         
         if (!Arrays.asList("LEFT", "RIGHT").contains(whereFrom) || !Arrays.asList("LEFT", "RIGHT").contains(whereTo)) {
             client.sendError("ERR syntax error");
@@ -33,7 +34,7 @@ public class LMoveCommand implements Command {
             client.executeWrite(() -> {
                 ValueEntry entry = Carade.db.get(client.getDbIndex(), source);
                 if (entry != null && entry.type == DataType.LIST) {
-                    ConcurrentLinkedDeque<String> srcList = (ConcurrentLinkedDeque<String>) entry.getValue();
+                    Deque<String> srcList = (Deque<String>) entry.getValue();
                     String val = whereFrom.equals("RIGHT") ? srcList.pollLast() : srcList.pollFirst();
                     if (val != null) {
                         if (srcList.isEmpty()) Carade.db.remove(client.getDbIndex(), source);
@@ -41,11 +42,11 @@ public class LMoveCommand implements Command {
                         
                         Carade.db.getStore(client.getDbIndex()).compute(destination, (k, v) -> {
                             if (v == null) {
-                                ConcurrentLinkedDeque<String> list = new ConcurrentLinkedDeque<>();
+                                Deque<String> list = new PackedList();
                                 if (whereTo.equals("LEFT")) list.addFirst(val); else list.addLast(val);
                                 return new ValueEntry(list, DataType.LIST, -1);
                             } else if (v.type == DataType.LIST) {
-                                ConcurrentLinkedDeque<String> l = (ConcurrentLinkedDeque<String>) v.getValue();
+                                Deque<String> l = (Deque<String>) v.getValue();
                                 if (whereTo.equals("LEFT")) l.addFirst(val); else l.addLast(val);
                                 return v;
                             }
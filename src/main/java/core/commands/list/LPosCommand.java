@@ -5,9 +5,9 @@ import core.commands.Command;
 import core.db.DataType;
 import core.db.ValueEntry;
 import core.network.ClientHandler;
-import java.nio.charset.StandardCharsets;
+import core.utils.ByteStrings;
 import java.util.List;
-import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.Deque;
 
 public class LPosCommand implements Command {
     @Override
@@ -17,8 +17,8 @@ public class LPosCommand implements Command {
             return;
         }
         
-        String key = new String(args.get(1), StandardCharsets.UTF_8);
-        String element = new String(args.get(2), StandardCharsets.UTF_8);
+        String key = new String(args.get(1), ByteStrings.CHARSET);
+        String element = new String(args.get(2), ByteStrings.CHARSET);
         
         ValueEntry v = Carade.db.get(client.getDbIndex(), key);
         if (v == null) {
@@ -30,7 +30,7 @@ public class LPosCommand implements Command {
             return;
         }
         
-        ConcurrentLinkedDeque<String> list = (ConcurrentLinkedDeque<String>) v.getValue();
+        Deque<String> list = (Deque<String>) v.getValue();
         int index = 0;
         boolean found = false;
         for (String s : list) {
@@ -1,14 +1,14 @@
 package core.commands.list;
 
 import core.Carade;
+import core.commands.Args;
 import core.commands.Command;
 import core.db.DataType;
 import core.db.ValueEntry;
 import core.network.ClientHandler;
-import java.nio.charset.StandardCharsets;
+import core.structs.PackedList;
 import java.util.Deque;
 import java.util.List;
-import java.util.concurrent.ConcurrentLinkedDeque;
 
 public class LPushCommand implements Command {
     @Override
@@ -18,25 +18,25 @@ public class LPushCommand implements Command {
             return;
         }
         Carade.performEvictionIfNeeded();
-        String key = new String(args.get(1), StandardCharsets.UTF_8);
+        String key = Args.string(args, 1);
         try {
             Object[] logArgs = new Object[args.size()-1];
-            for(int i=1; i<args.size(); i++) logArgs[i-1] = new String(args.get(i), StandardCharsets.UTF_8);
+            for(int i=1; i<args.size(); i++) logArgs[i-1] = Args.string(args, i);
 
             client.executeWrite(() -> {
                 Carade.db.getStore(client.getDbIndex()).compute(key, (k, v) -> {
-                    ConcurrentLinkedDeque<String> list;
+                    Deque<String> list;
                     if (v == null) {
-                        list = new ConcurrentLinkedDeque<>();
+                        list = new PackedList();
                         v = new ValueEntry(list, DataType.LIST, -1);
                     } else if (v.type != DataType.LIST) {
                         throw new RuntimeException("WRONGTYPE");
                     } else {
-                        list = (ConcurrentLinkedDeque<String>) v.getValue();
+                        list = (Deque<String>) v.getValue();
                     }
                     
                     for (int i = 2; i < args.size(); i++) {
-                        String val = new String(args.get(i), StandardCharsets.UTF_8);
+                        String val = (String) logArgs[i-1];
                         list.addFirst(val);
                     }
                     
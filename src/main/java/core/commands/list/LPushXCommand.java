@@ -5,9 +5,9 @@ import core.commands.Command;
 import core.db.DataType;
 import core.db.ValueEntry;
 import core.network.ClientHandler;
-import java.nio.charset.StandardCharsets;
+import core.utils.ByteStrings;
 import java.util.List;
-import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.Deque;
 
 public class LPushXCommand implements Command {
     @Override
@@ -16,10 +16,10 @@ public class LPushXCommand implements Command {
             client.sendError("usage: LPUSHX key value [value ...]");
             return;
         }
-        String key = new String(args.get(1), StandardCharsets.UTF_8);
+        String key = new String(args.get(1), ByteStrings.CHARSET);
         
         Object[] logArgs = new Object[args.size()-1];
-        for(int i=1; i<args.size(); i++) logArgs[i-1] = new String(args.get(i), StandardCharsets.UTF_8);
+        for(int i=1; i<args.size(); i++) logArgs[i-1] = new String(args.get(i), ByteStrings.CHARSET);
 
         client.executeWrite(() -> {
             ValueEntry v = Carade.db.get(client.getDbIndex(), key);
@@ -31,9 +31,9 @@ public class LPushXCommand implements Command {
                 throw new RuntimeException("WRONGTYPE Operation against a key holding the wrong kind of value");
             }
             
-            ConcurrentLinkedDeque<String> list = (ConcurrentLinkedDeque<String>) v.getValue();
+            Deque<String> list = (Deque<String>) v.getValue();
             for (int i = 2; i < args.size(); i++) {
-                String val = new String(args.get(i), StandardCharsets.UTF_8);
+                String val = new String(args.get(i), ByteStrings.CHARSET);
                 list.addFirst(val);
             }
             v.touch();
@@ -6,8 +6,8 @@ import core.db.DataType;
 import core.db.ValueEntry;
 import core.network.ClientHandler;
 import core.protocol.Resp;
-import java.nio.charset.StandardCharsets;
-import java.util.concurrent.ConcurrentLinkedDeque;
+import core.structs.PackedList;
+import core.utils.ByteStrings;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
@@ -21,7 +21,7 @@ public class LRangeCommand implements Command {
             return;
         }
         
-        String key = new String(args.get(1), StandardCharsets.UTF_8);
+        String key = new String(args.get(1), ByteStrings.CHARSET);
         ValueEntry entry = Carade.db.get(client.getDbIndex(), key);
         if (entry == null) {
             client.sendArray(Collections.emptyList());
@@ -29,10 +29,10 @@ public class LRangeCommand implements Command {
             client.sendError("WRONGTYPE");
         } else {
             try {
-                ConcurrentLinkedDeque<String> list = (ConcurrentLinkedDeque<String>) entry.getValue();
-                int size = list.size(); // Approximate size
-                int start = Integer.parseInt(new String(args.get(2), StandardCharsets.UTF_8));
-                int end = Integer.parseInt(new String(args.get(3), StandardCharsets.UTF_8));
+                PackedList list = (PackedList) entry.getValue();
+                int size = list.size();
+                int start = Integer.parseInt(new String(args.get(2), ByteStrings.CHARSET));
+                int end = Integer.parseInt(new String(args.get(3), ByteStrings.CHARSET));
                 
                 if (start < 0) start += size;
                 if (end < 0) end += size;
@@ -40,16 +40,13 @@ public class LRangeCommand implements Command {
                 
                 List<byte[]> sub = new ArrayList<>();
                 List<String> subStr = new ArrayList<>();
-                if (start <= end) {
-                    Iterator<String> it = list.iterator();
-                    int idx = 0;
-                    while (it.hasNext() && idx <= end) {
+                if (start <= end && start < size) {
+                    // Seeks to start by skipping whole quicklist chunks
+                    Iterator<String> it = list.iterator(start);
+                    for (int idx = start; it.hasNext() && idx <= end; idx++) {
                         String s = it.next();
-                        if (idx >= start) {
-                            sub.add(s.getBytes(StandardCharsets.UTF_8));
-                            subStr.add(s);
-                        }
-                        idx++;
+                        sub.add(s.getBytes(ByteStrings.CHARSET));
+                        subStr.add(s);
                     }
                 }
                 if (client.isResp()) client.send(true, Resp.array(sub), null);
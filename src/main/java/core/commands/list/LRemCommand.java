@@ -5,10 +5,10 @@ import core.commands.Command;
 import core.db.DataType;
 import core.db.ValueEntry;
 import core.network.ClientHandler;
-import java.nio.charset.StandardCharsets;
+import core.utils.ByteStrings;
 import java.util.Iterator;
 import java.util.List;
-import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.Deque;
 
 public class LRemCommand implements Command {
     @Override
@@ -18,27 +18,24 @@ public class LRemCommand implements Command {
             return;
         }
 
-        String key = new String(args.get(1), StandardCharsets.UTF_8);
+        String key = new String(args.get(1), ByteStrings.CHARSET);
         final int[] removedCount = {0};
 
         try {
-            int count = Integer.parseInt(new String(args.get(2), StandardCharsets.UTF_8));
-            String element = new String(args.get(3), StandardCharsets.UTF_8);
+            int count = Integer.parseInt(new String(args.get(2), ByteStrings.CHARSET));
+            String element = new String(args.get(3), ByteStrings.CHARSET);
 
             client.executeWrite(() -> {
                 Carade.db.getStore(client.dbIndex).computeIfPresent(key, (k, v) -> {
                     if (v.type != DataType.LIST) return v;
 
-                    ConcurrentLinkedDeque<String> list = (ConcurrentLinkedDeque<String>) v.getValue();
+                    Deque<String> list = (Deque<String>) v.getValue();
                     int toRemove = count;
                     int removed = 0;
                     
-                    if (toRemove == 0) {
-                        // Remove all occurrences
-                        while (list.removeFirstOccurrence(element)) {
-                            removed++;
-                        }
-                    } else if (toRemove > 0) {
+                    if (toRemove >= 0) {
+                        // 0: all occurrences, in one pass
+                        if (toRemove == 0) toRemove = Integer.MAX_VALUE;
                         Iterator<String> it = list.iterator();
                         while (it.hasNext() && removed < toRemove) {
                             if (it.next().equals(element)) {
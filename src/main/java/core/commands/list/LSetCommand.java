@@ -5,9 +5,9 @@ import core.commands.Command;
 import core.db.DataType;
 import core.db.ValueEntry;
 import core.network.ClientHandler;
-import java.nio.charset.StandardCharsets;
+import core.structs.PackedList;
+import core.utils.ByteStrings;
 import java.util.List;
-import java.util.concurrent.ConcurrentLinkedDeque;
 
 public class LSetCommand implements Command {
     @Override
@@ -17,15 +17,15 @@ public class LSetCommand implements Command {
             return;
         }
         
-        String key = new String(args.get(1), StandardCharsets.UTF_8);
+        String key = new String(args.get(1), ByteStrings.CHARSET);
         int index;
         try {
-            index = Integer.parseInt(new String(args.get(2), StandardCharsets.UTF_8));
+            index = Integer.parseInt(new String(args.get(2), ByteStrings.CHARSET));
         } catch (NumberFormatException e) {
             client.sendError("ERR value is not an integer or out of range");
             return;
         }
-        String newVal = new String(args.get(3), StandardCharsets.UTF_8);
+        String newVal = new String(args.get(3), ByteStrings.CHARSET);
 
         Object[] logArgs = new Object[]{key, String.valueOf(index), newVal};
 
@@ -38,24 +38,12 @@ public class LSetCommand implements Command {
                 throw new RuntimeException("WRONGTYPE Operation against a key holding the wrong kind of value");
             }
             
-            ConcurrentLinkedDeque<String> list = (ConcurrentLinkedDeque<String>) v.getValue();
-            int size = list.size();
-            int idx = index;
-            if (idx < 0) idx = size + idx;
+            PackedList list = (PackedList) v.getValue();
+            long idx = index < 0 ? (long) list.size() + index : index;
             
-            if (idx < 0 || idx >= size) {
+            if (!list.set(idx, newVal)) {
                 throw new RuntimeException("ERR index out of range");
             }
-            
-            // Rebuild list to set value
-            ConcurrentLinkedDeque<String> newList = new ConcurrentLinkedDeque<>();
-            int current = 0;
-            for (String s : list) {
-                if (current == idx) newList.add(newVal);
-                else newList.add(s);
-                current++;
-            }
-            v.setValue(newList);
             v.touch();
             Carade.notifyWatchers(key);
             client.sendSimpleString("OK");
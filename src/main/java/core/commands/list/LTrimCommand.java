@@ -5,8 +5,8 @@ import core.commands.Command;
 import core.db.DataType;
 import core.db.ValueEntry;
 import core.network.ClientHandler;
-import java.nio.charset.StandardCharsets;
-import java.util.concurrent.ConcurrentLinkedDeque;
+import core.structs.PackedList;
+import core.utils.ByteStrings;
 import java.util.List;
 
 public class LTrimCommand implements Command {
@@ -17,7 +17,7 @@ public class LTrimCommand implements Command {
             return;
         }
         
-        String key = new String(args.get(1), StandardCharsets.UTF_8);
+        String key = new String(args.get(1), ByteStrings.CHARSET);
         ValueEntry entry = Carade.db.get(client.getDbIndex(), key);
         if (entry == null) {
             client.sendSimpleString("OK");
@@ -25,13 +25,13 @@ public class LTrimCommand implements Command {
             client.sendError("WRONGTYPE");
         } else {
             try {
-                int start = Integer.parseInt(new String(args.get(2), StandardCharsets.UTF_8));
-                int stop = Integer.parseInt(new String(args.get(3), StandardCharsets.UTF_8));
+                int start = Integer.parseInt(new String(args.get(2), ByteStrings.CHARSET));
+                int stop = Integer.parseInt(new String(args.get(3), ByteStrings.CHARSET));
                 
                 client.executeWrite(() -> {
                     ValueEntry e = Carade.db.get(client.getDbIndex(), key);
                     if (e != null && e.type == DataType.LIST) {
-                        ConcurrentLinkedDeque<String> list = (ConcurrentLinkedDeque<String>) e.getValue();
+                        PackedList list = (PackedList) e.getValue();
                         int size = list.size();
                         int s = start;
                         int st = stop;
@@ -45,14 +45,8 @@ public class LTrimCommand implements Command {
                             Carade.db.remove(client.getDbIndex(), key);
                         } else {
                             if (st >= size) st = size - 1;
-                            int keep = st - s + 1;
-                            
-                            // Remove from head
-                            for (int i = 0; i < s; i++) list.pollFirst();
-                            
-                            // Remove from tail
-                            int removeTail = list.size() - keep;
-                            for (int i = 0; i < removeTail; i++) list.pollLast();
+                            // Drops whole quicklist chunks at both ends
+                            list.trim(s, st);
                         }
                         Carade.notifyWatchers(key);
                     }
@@ -6,10 +6,10 @@ import core.db.DataType;
 import core.db.ValueEntry;
 import core.network.ClientHandler;
 import core.protocol.Resp;
-import java.nio.charset.StandardCharsets;
+import core.utils.ByteStrings;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.Deque;
 
 public class LmPopCommand implements Command {
     @Override
@@ -21,7 +21,7 @@ public class LmPopCommand implements Command {
         }
         
         try {
-            int numKeys = Integer.parseInt(new String(args.get(1), StandardCharsets.UTF_8));
+            int numKeys = Integer.parseInt(new String(args.get(1), ByteStrings.CHARSET));
             if (numKeys <= 0) {
                  client.sendError("ERR numkeys must be positive");
                  return;
@@ -33,10 +33,10 @@ public class LmPopCommand implements Command {
             
             List<String> keys = new ArrayList<>();
             for (int i = 0; i < numKeys; i++) {
-                keys.add(new String(args.get(2 + i), StandardCharsets.UTF_8));
+                keys.add(new String(args.get(2 + i), ByteStrings.CHARSET));
             }
             
-            String direction = new String(args.get(2 + numKeys), StandardCharsets.UTF_8).toUpperCase();
+            String direction = new String(args.get(2 + numKeys), ByteStrings.CHARSET).toUpperCase();
             if (!direction.equals("LEFT") && !direction.equals("RIGHT")) {
                 client.sendError("ERR syntax error");
                 return;
@@ -45,13 +45,13 @@ public class LmPopCommand implements Command {
             
             int count = 1;
             if (args.size() > 2 + numKeys + 1) {
-                String nextArg = new String(args.get(2 + numKeys + 1), StandardCharsets.UTF_8).toUpperCase();
+                String nextArg = new String(args.get(2 + numKeys + 1), ByteStrings.CHARSET).toUpperCase();
                 if (nextArg.equals("COUNT")) {
                      if (args.size() <= 2 + numKeys + 2) {
                          client.sendError("ERR syntax error");
                          return;
                      }
-                     count = Integer.parseInt(new String(args.get(2 + numKeys + 2), StandardCharsets.UTF_8));
+                     count = Integer.parseInt(new String(args.get(2 + numKeys + 2), ByteStrings.CHARSET));
                      if (count <= 0) {
                           client.sendError("ERR count must be positive");
                           return;
@@ -67,7 +67,7 @@ public class LmPopCommand implements Command {
             for (String k : keys) {
                 ValueEntry v = Carade.db.get(client.dbIndex, k);
                 if (v != null && v.type == DataType.LIST) {
-                     ConcurrentLinkedDeque<String> list = (ConcurrentLinkedDeque<String>) v.getValue();
+                     Deque<String> list = (Deque<String>) v.getValue();
                      if (!list.isEmpty()) {
                          targetKey = k;
                          break;
@@ -89,7 +89,7 @@ public class LmPopCommand implements Command {
             client.executeWrite(() -> {
                  ValueEntry v = Carade.db.get(client.dbIndex, finalKey);
                  if (v != null && v.type == DataType.LIST) {
-                     ConcurrentLinkedDeque<String> list = (ConcurrentLinkedDeque<String>) v.getValue();
+                     Deque<String> list = (Deque<String>) v.getValue();
                      for (int i=0; i<finalCount; i++) {
                          String val = finalIsLeft ? list.pollFirst() : list.pollLast();
                          if (val != null) popped.add(val);
@@ -107,9 +107,9 @@ public class LmPopCommand implements Command {
                 client.sendNull();
             } else {
                 List<byte[]> resp = new ArrayList<>();
-                resp.add(finalKey.getBytes(StandardCharsets.UTF_8));
+                resp.add(finalKey.getBytes(ByteStrings.CHARSET));
                 List<byte[]> elements = new ArrayList<>();
-                for (String s : popped) elements.add(s.getBytes(StandardCharsets.UTF_8));
+                for (String s : popped) elements.add(s.getBytes(ByteStrings.CHARSET));
                 resp.add(Resp.array(elements));
                 
                 client.sendResponse(Resp.array(resp), null);
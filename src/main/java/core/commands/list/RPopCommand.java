@@ -6,9 +6,9 @@ import core.db.DataType;
 import core.db.ValueEntry;
 import core.network.ClientHandler;
 import core.protocol.Resp;
-import java.nio.charset.StandardCharsets;
+import core.utils.ByteStrings;
 import java.util.List;
-import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.Deque;
 
 public class RPopCommand implements Command {
     @Override
@@ -18,14 +18,14 @@ public class RPopCommand implements Command {
             return;
         }
         
-        String key = new String(args.get(1), StandardCharsets.UTF_8);
+        String key = new String(args.get(1), ByteStrings.CHARSET);
         ValueEntry entry = Carade.db.get(client.dbIndex, key);
         if (entry == null) {
             client.sendResponse(Resp.bulkString((byte[])null), "(nil)");
         } else if (entry.type != DataType.LIST) {
             client.sendError("WRONGTYPE Operation against a key holding the wrong kind of value");
         } else {
-            ConcurrentLinkedDeque<String> list = (ConcurrentLinkedDeque<String>) entry.getValue();
+            Deque<String> list = (Deque<String>) entry.getValue();
             if (list.isEmpty()) {
                 client.sendResponse(Resp.bulkString((byte[])null), "(nil)");
             } else {
@@ -33,7 +33,7 @@ public class RPopCommand implements Command {
                 client.executeWrite(() -> {
                     ValueEntry e = Carade.db.get(client.dbIndex, key);
                     if (e != null && e.type == DataType.LIST) {
-                        ConcurrentLinkedDeque<String> l = (ConcurrentLinkedDeque<String>) e.getValue();
+                        Deque<String> l = (Deque<String>) e.getValue();
                         valRef[0] = l.pollLast();
                         if (valRef[0] != null) {
                             if (l.isEmpty()) Carade.db.remove(client.dbIndex, key);
@@ -44,7 +44,7 @@ public class RPopCommand implements Command {
 
                 String val = valRef[0];
                 if (val != null) {
-                    client.sendResponse(Resp.bulkString(val.getBytes(StandardCharsets.UTF_8)), val);
+                    client.sendResponse(Resp.bulkString(val.getBytes(ByteStrings.CHARSET)), val);
                 } else {
                     client.sendResponse(Resp.bulkString((byte[])null), "(nil)");
                 }
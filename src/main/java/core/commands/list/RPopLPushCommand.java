@@ -5,9 +5,10 @@ import core.commands.Command;
 import core.db.DataType;
 import core.db.ValueEntry;
 import core.network.ClientHandler;
-import java.nio.charset.StandardCharsets;
-import java.util.concurrent.ConcurrentLinkedDeque;
+import core.structs.PackedList;
+import core.utils.ByteStrings;
 import java.util.List;
+import java.util.Deque;
 
 public class RPopLPushCommand implements Command {
     @Override
@@ -17,8 +18,8 @@ public class RPopLPushCommand implements Command {
             return;
         }
 
-        String source = new String(args.get(1), StandardCharsets.UTF_8);
-        String destination = new String(args.get(2), StandardCharsets.UTF_8);
+        String source = new String(args.get(1), ByteStrings.CHARSET);
+        String destination = new String(args.get(2), ByteStrings.CHARSET);
         
         final String[] valRef = {null};
         try {
@@ -27,7 +28,7 @@ public class RPopLPushCommand implements Command {
                 if (entry == null || entry.type != DataType.LIST) {
                     // Will handle send outside or allow null valRef
                 } else {
-                    ConcurrentLinkedDeque<String> srcList = (ConcurrentLinkedDeque<String>) entry.getValue();
+                    Deque<String> srcList = (Deque<String>) entry.getValue();
                     String val = srcList.pollLast();
                     if (val != null) {
                         if (srcList.isEmpty()) Carade.db.remove(client.getDbIndex(), source);
@@ -35,11 +36,11 @@ public class RPopLPushCommand implements Command {
                         
                         Carade.db.getStore(client.getDbIndex()).compute(destination, (k, v) -> {
                             if (v == null) {
-                                ConcurrentLinkedDeque<String> list = new ConcurrentLinkedDeque<>();
+                                Deque<String> list = new PackedList();
                                 list.addFirst(val);
                                 return new ValueEntry(list, DataType.LIST, -1);
                             } else if (v.type == DataType.LIST) {
-                                ((ConcurrentLinkedDeque<String>) v.getValue()).addFirst(val);
+                                ((Deque<String>) v.getValue()).addFirst(val);
                                 return v;
                             }
                             throw new RuntimeException("WRONGTYPE");
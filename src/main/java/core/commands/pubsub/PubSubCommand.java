@@ -3,7 +3,7 @@ package core.commands.pubsub;
 import core.Carade;
 import core.commands.Command;
 import core.network.ClientHandler;
-import java.nio.charset.StandardCharsets;
+import core.utils.ByteStrings;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -15,17 +15,17 @@ public class PubSubCommand implements Command {
             return;
         }
 
-        String sub = new String(args.get(1), StandardCharsets.UTF_8).toUpperCase();
+        String sub = new String(args.get(1), ByteStrings.CHARSET).toUpperCase();
         
         if (sub.equals("CHANNELS")) {
             
             List<String> channels = Carade.pubSub.getChannels();
-            String pattern = (args.size() > 2) ? new String(args.get(2), StandardCharsets.UTF_8) : null;
+            String pattern = (args.size() > 2) ? new String(args.get(2), ByteStrings.CHARSET) : null;
             
             List<byte[]> result = new ArrayList<>();
             for (String ch : channels) {
                 if (pattern == null || matches(pattern, ch)) {
-                    result.add(ch.getBytes(StandardCharsets.UTF_8));
+                    result.add(ch.getBytes(ByteStrings.CHARSET));
                 }
             }
             client.sendArray(result);
@@ -34,8 +34,8 @@ public class PubSubCommand implements Command {
             // PUBSUB NUMSUB [channel-1 ... channel-N]
             List<Object> result = new ArrayList<>();
             for (int i = 2; i < args.size(); i++) {
-                String ch = new String(args.get(i), StandardCharsets.UTF_8);
-                result.add(ch.getBytes(StandardCharsets.UTF_8));
+                String ch = new String(args.get(i), ByteStrings.CHARSET);
+                result.add(ch.getBytes(ByteStrings.CHARSET));
                 result.add((long) Carade.pubSub.getNumSub(ch));
             }
             client.sendMixedArray(result);
@@ -3,7 +3,7 @@ package core.commands.pubsub;
 import core.Carade;
 import core.commands.Command;
 import core.network.ClientHandler;
-import java.nio.charset.StandardCharsets;
+import core.utils.ByteStrings;
 import java.util.List;
 
 public class PublishCommand implements Command {
@@ -13,8 +13,8 @@ public class PublishCommand implements Command {
             client.sendError("usage: PUBLISH channel message");
             return;
         }
-        String channel = new String(args.get(1), StandardCharsets.UTF_8);
-        String msg = new String(args.get(2), StandardCharsets.UTF_8);
+        String channel = new String(args.get(1), ByteStrings.CHARSET);
+        String msg = new String(args.get(2), ByteStrings.CHARSET);
         int count = Carade.pubSub.publish(channel, msg);
         client.sendInteger(count);
     }
@@ -4,7 +4,7 @@ import core.Carade;
 import core.commands.Command;
 import core.network.ClientHandler;
 import core.protocol.Resp;
-import java.nio.charset.StandardCharsets;
+import core.utils.ByteStrings;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -16,14 +16,14 @@ public class SubscribeCommand implements Command {
             return;
         }
         for (int i = 1; i < args.size(); i++) {
-            String channel = new String(args.get(i), StandardCharsets.UTF_8);
+            String channel = new String(args.get(i), ByteStrings.CHARSET);
             Carade.pubSub.subscribe(channel, client);
             client.isSubscribed = true;
             if (client.isResp()) {
                 List<byte[]> resp = new ArrayList<>();
-                resp.add("subscribe".getBytes(StandardCharsets.UTF_8));
-                resp.add(channel.getBytes(StandardCharsets.UTF_8));
-                resp.add("1".getBytes(StandardCharsets.UTF_8));
+                resp.add("subscribe".getBytes(ByteStrings.CHARSET));
+                resp.add(channel.getBytes(ByteStrings.CHARSET));
+                resp.add("1".getBytes(ByteStrings.CHARSET));
                 client.send(true, Resp.array(resp), null);
             } else {
                 client.send(false, null, "Subscribed to channel: " + channel);
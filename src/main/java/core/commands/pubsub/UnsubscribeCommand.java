@@ -4,7 +4,7 @@ import core.Carade;
 import core.commands.Command;
 import core.network.ClientHandler;
 import core.protocol.Resp;
-import java.nio.charset.StandardCharsets;
+import core.utils.ByteStrings;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -18,22 +18,22 @@ public class UnsubscribeCommand implements Command {
                 client.isSubscribed = false; 
                 if (client.isResp()) {
                     List<byte[]> resp = new ArrayList<>();
-                    resp.add("unsubscribe".getBytes(StandardCharsets.UTF_8));
+                    resp.add("unsubscribe".getBytes(ByteStrings.CHARSET));
                     resp.add(null);
-                    resp.add("0".getBytes(StandardCharsets.UTF_8));
+                    resp.add("0".getBytes(ByteStrings.CHARSET));
                     client.send(true, Resp.array(resp), null);
                 }
                 else client.send(false, null, "Unsubscribed from all");
             }
         } else {
             for (int i = 1; i < args.size(); i++) {
-                String channel = new String(args.get(i), StandardCharsets.UTF_8);
+                String channel = new String(args.get(i), ByteStrings.CHARSET);
                 Carade.pubSub.unsubscribe(channel, client);
                 if (client.isResp()) {
                     List<byte[]> resp = new ArrayList<>();
-                    resp.add("unsubscribe".getBytes(StandardCharsets.UTF_8));
-                    resp.add(channel.getBytes(StandardCharsets.UTF_8));
-                    resp.add("0".getBytes(StandardCharsets.UTF_8));
+                    resp.add("unsubscribe".getBytes(ByteStrings.CHARSET));
+                    resp.add(channel.getBytes(ByteStrings.CHARSET));
+                    resp.add("0".getBytes(ByteStrings.CHARSET));
                     client.send(true, Resp.array(resp), null);
                 }
                 else client.send(false, null, "Unsubscribed from: " + channel);
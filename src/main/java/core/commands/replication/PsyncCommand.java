@@ -7,19 +7,19 @@ import core.protocol.Resp;
 import core.replication.ReplicationBacklog;
 import core.replication.ReplicationManager;
 import core.server.WriteSequencer;
+import core.utils.ByteStrings;
 import java.io.*;
-import java.nio.charset.StandardCharsets;
 import java.util.*;
 
 public class PsyncCommand implements Command {
     @Override
     public void execute(ClientHandler client, List<byte[]> args) {
         // Parse arguments: PSYNC <replid> <offset>
-        String reqReplId = (args.size() > 1) ? new String(args.get(1), StandardCharsets.UTF_8) : "?";
+        String reqReplId = (args.size() > 1) ? new String(args.get(1), ByteStrings.CHARSET) : "?";
         long reqOffset = -1;
         if (args.size() > 2) {
             try {
-                reqOffset = Long.parseLong(new String(args.get(2), StandardCharsets.UTF_8));
+                reqOffset = Long.parseLong(new String(args.get(2), ByteStrings.CHARSET));
             } catch (NumberFormatException e) { reqOffset = -1; }
         }
 
@@ -32,7 +32,7 @@ public class PsyncCommand implements Command {
         if (reqOffset != -1 && backlog.isValidOffset(reqOffset)) {
             // +CONTINUE
             String msg = "CONTINUE\r\n";
-            client.sendResponse(("+"+msg).getBytes(StandardCharsets.UTF_8), null);
+            client.sendResponse(("+"+msg).getBytes(ByteStrings.CHARSET), null);
             
             // Send the missing data portion from the backlog
             // Calculate the amount to read: from reqOffset to current
@@ -66,7 +66,7 @@ public class PsyncCommand implements Command {
             
             // 4. Send RDB Bulk String Header
             String bulkHeader = "$" + length + "\r\n";
-            client.sendResponse(bulkHeader.getBytes(StandardCharsets.UTF_8), null);
+            client.sendResponse(bulkHeader.getBytes(ByteStrings.CHARSET), null);
             
             // Send file content
             try (FileInputStream fis = new FileInputStream(tempRdb)) {
@@ -81,7 +81,7 @@ public class PsyncCommand implements Command {
                     }
                 }
             }
-            client.sendResponse("\r\n".getBytes(StandardCharsets.UTF_8), null);
+            client.sendResponse("\r\n".getBytes(ByteStrings.CHARSET), null);
             
         } catch (IOException e) {
              e.printStackTrace();
@@ -4,7 +4,7 @@ import core.commands.Command;
 import core.network.ClientHandler;
 import core.replication.ReplicationManager;
 import core.protocol.Resp;
-import java.nio.charset.StandardCharsets;
+import core.utils.ByteStrings;
 import java.util.List;
 
 public class ReplicaOfCommand implements Command {
@@ -15,8 +15,8 @@ public class ReplicaOfCommand implements Command {
             return;
         }
 
-        String host = new String(args.get(1), StandardCharsets.UTF_8);
-        String portStr = new String(args.get(2), StandardCharsets.UTF_8);
+        String host = new String(args.get(1), ByteStrings.CHARSET);
+        String portStr = new String(args.get(2), ByteStrings.CHARSET);
 
         if (host.equalsIgnoreCase("NO") && portStr.equalsIgnoreCase("ONE")) {
             ReplicationManager.getInstance().slaveOf(null, -1);
@@ -2,6 +2,7 @@ package core.commands.scripting;
 
 import core.commands.Command;
 import core.network.ClientHandler;
+import core.utils.ByteStrings;
 import core.scripting.ScriptManager;
 import core.protocol.Resp;
 import java.nio.charset.StandardCharsets;
@@ -40,12 +41,12 @@ public class EvalCommand implements Command {
 
         List<String> keys = new ArrayList<>();
         for (int i = 0; i < numKeys; i++) {
-            keys.add(new String(args.get(3 + i), StandardCharsets.UTF_8));
+            keys.add(new String(args.get(3 + i), ByteStrings.CHARSET));
         }
 
         List<String> scriptArgs = new ArrayList<>();
         for (int i = 3 + numKeys; i < args.size(); i++) {
-            scriptArgs.add(new String(args.get(i), StandardCharsets.UTF_8));
+            scriptArgs.add(new String(args.get(i), ByteStrings.CHARSET));
         }
 
         try {
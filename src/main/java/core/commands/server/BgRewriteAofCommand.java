@@ -3,6 +3,7 @@ package core.commands.server;
 import core.Carade;
 import core.commands.Command;
 import core.network.ClientHandler;
+import core.server.WriteSequencer;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 
@@ -11,6 +12,8 @@ public class BgRewriteAofCommand implements Command {
     public void execute(ClientHandler client, List<byte[]> args) {
         CompletableFuture.runAsync(() -> {
             System.out.println("🔄 Starting Background AOF Rewrite...");
+            // Writes still in the pipeline are already in the DB; append them before the snapshot starts
+            WriteSequencer.getInstance().sync();
             Carade.aofHandler.rewrite(Carade.db);
         });
         client.sendSimpleString("Background append only file rewriting started");
@@ -3,6 +3,7 @@ package core.commands.server;
 import core.Carade;
 import core.commands.Command;
 import core.network.ClientHandler;
+import core.utils.ByteStrings;
 import java.util.List;
 
 public class ClientPauseCommand implements Command {
@@ -15,7 +16,7 @@ public class ClientPauseCommand implements Command {
         
         long timeout;
         try {
-            timeout = Long.parseLong(new String(args.get(1), java.nio.charset.StandardCharsets.UTF_8));
+            timeout = Long.parseLong(new String(args.get(1), ByteStrings.CHARSET));
         } catch (NumberFormatException e) {
             client.sendError("ERR timeout is not an integer or out of range");
             return;
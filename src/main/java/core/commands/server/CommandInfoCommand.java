@@ -5,7 +5,7 @@ import core.commands.CommandContainer;
 import core.commands.CommandMetadata;
 import core.commands.CommandRegistry;
 import core.network.ClientHandler;
-import java.nio.charset.StandardCharsets;
+import core.utils.ByteStrings;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -17,7 +17,7 @@ public class CommandInfoCommand implements Command {
         // args[0] is "COMMAND"
         String sub = "";
         if (args.size() > 1) {
-            sub = new String(args.get(1), StandardCharsets.UTF_8).toUpperCase();
+            sub = new String(args.get(1), ByteStrings.CHARSET).toUpperCase();
         }
 
         if (sub.equals("COUNT")) {
@@ -29,7 +29,7 @@ public class CommandInfoCommand implements Command {
              // COMMAND INFO [cmd ...]
              List<String> requestedCommands = new ArrayList<>();
              for (int i = 2; i < args.size(); i++) {
-                 requestedCommands.add(new String(args.get(i), StandardCharsets.UTF_8).toUpperCase());
+                 requestedCommands.add(new String(args.get(i), ByteStrings.CHARSET).toUpperCase());
              }
              
              List<Object> reply = new ArrayList<>();
@@ -56,13 +56,13 @@ public class CommandInfoCommand implements Command {
 
     private List<Object> formatCommandInfo(String name, CommandMetadata meta) {
         List<Object> info = new ArrayList<>();
-        info.add(name.toLowerCase().getBytes(StandardCharsets.UTF_8)); // Name
+        info.add(name.toLowerCase().getBytes(ByteStrings.CHARSET)); // Name
         info.add(meta.getArity()); // Arity
         
         // Flags
         List<byte[]> flags = new ArrayList<>();
         for (String flag : meta.getFlags()) {
-            flags.add(flag.getBytes(StandardCharsets.UTF_8));
+            flags.add(flag.getBytes(ByteStrings.CHARSET));
         }
         info.add(flags); 
         
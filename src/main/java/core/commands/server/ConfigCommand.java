@@ -54,11 +54,39 @@ public class ConfigCommand implements Command {
             result.add("maxmemory-policy".getBytes(StandardCharsets.UTF_8));
             result.add(Carade.config.maxMemoryPolicy.getBytes(StandardCharsets.UTF_8));
         }
+        if (pattern.equals("*") || pattern.equalsIgnoreCase("maxmemory-samples")) {
+            result.add("maxmemory-samples".getBytes(StandardCharsets.UTF_8));
+            result.add(String.valueOf(Carade.config.maxMemorySamples).getBytes(StandardCharsets.UTF_8));
+        }
+        if (pattern.equals("*") || pattern.equalsIgnoreCase("lfu-log-factor")) {
+            result.add("lfu-log-factor".getBytes(StandardCharsets.UTF_8));
+            result.add(String.valueOf(Carade.config.lfuLogFactor).getBytes(StandardCharsets.UTF_8));
+        }
+        if (pattern.equals("*") || pattern.equalsIgnoreCase("lfu-decay-time")) {
+            result.add("lfu-decay-time".getBytes(StandardCharsets.UTF_8));
+            result.add(String.valueOf(Carade.config.lfuDecayTime).getBytes(StandardCharsets.UTF_8));
+        }
+        addInt(result, pattern, "hash-max-listpack-entries", Carade.config.hashMaxListpackEntries);
+        addInt(result, pattern, "hash-max-listpack-value", Carade.config.hashMaxListpackValue);
+        addInt(result, pattern, "set-max-intset-entries", Carade.config.setMaxIntsetEntries);
+        addInt(result, pattern, "set-max-listpack-entries", Carade.config.setMaxListpackEntries);
+        addInt(result, pattern, "set-max-listpack-value", Carade.config.setMaxListpackValue);
+        addInt(result, pattern, "zset-max-listpack-entries", Carade.config.zsetMaxListpackEntries);
+        addInt(result, pattern, "zset-max-listpack-value", Carade.config.zsetMaxListpackValue);
+        addInt(result, pattern, "list-max-listpack-size", Carade.config.listMaxListpackSize);
+        addInt(result, pattern, "list-compress-depth", Carade.config.listCompressDepth);
         // Add more as needed
 
         client.sendResponse(Resp.array(result), null);
     }
 
+    private void addInt(List<byte[]> result, String pattern, String name, int value) {
+        if (pattern.equals("*") || pattern.equalsIgnoreCase(name)) {
+            result.add(name.getBytes(StandardCharsets.UTF_8));
+            result.add(String.valueOf(value).getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
     private void handleSet(ClientHandler client, List<byte[]> args) {
         if (args.size() < 4) {
              client.sendError("usage: CONFIG SET parameter value");
@@ -76,6 +104,50 @@ public class ConfigCommand implements Command {
                 case "maxmemory-policy":
                     Carade.config.maxMemoryPolicy = value;
                     break;
+                case "maxmemory-samples":
+                    int samples = Integer.parseInt(value);
+                    if (samples < 1) throw new NumberFormatException();
+                    Carade.config.maxMemorySamples = samples;
+                    break;
+                case "lfu-log-factor":
+                    int factor = Integer.parseInt(value);
+                    if (factor < 0) throw new NumberFormatException();
+                    Carade.config.lfuLogFactor = factor;
+                    break;
+                case "lfu-decay-time":
+                    int decay = Integer.parseInt(value);
+                    if (decay < 0) throw new NumberFormatException();
+                    Carade.config.lfuDecayTime = decay;
+                    break;
+                case "hash-max-listpack-entries":
+                    Carade.config.hashMaxListpackEntries = nonNegative(value);
+                    break;
+                case "hash-max-listpack-value":
+                    Carade.config.hashMaxListpackValue = nonNegative(value);
+                    break;
+                case "set-max-intset-entries":
+                    Carade.config.setMaxIntsetEntries = nonNegative(value);
+                    break;
+                case "set-max-listpack-entries":
+                    Carade.config.setMaxListpackEntries = nonNegative(value);
+                    break;
+                case "set-max-listpack-value":
+                    Carade.config.setMaxListpackValue = nonNegative(value);
+                    break;
+                case "zset-max-listpack-entries":
+                    Carade.config.zsetMaxListpackEntries = nonNegative(value);
+                    break;
+                case "zset-max-listpack-value":
+                    Carade.config.zsetMaxListpackValue = nonNegative(value);
+                    break;
+                case "list-max-listpack-size":
+                    int size = Integer.parseInt(value);
+                    if (size == 0 || size < -5) throw new NumberFormatException();
+                    Carade.config.listMaxListpackSize = size;
+                    break;
+                case "list-compress-depth":
+                    Carade.config.listCompressDepth = nonNegative(value);
+                    break;
                 case "requirepass":
                     Carade.config.password = value;
                     // Also update default user?
@@ -93,6 +165,12 @@ public class ConfigCommand implements Command {
         }
     }
 
+    private int nonNegative(String value) {
+        int n = Integer.parseInt(value);
+        if (n < 0) throw new NumberFormatException();
+        return n;
+    }
+
     private void handleResetStat(ClientHandler client) {
         Carade.totalCommands.set(0);
         Carade.keyspaceHits.set(0);
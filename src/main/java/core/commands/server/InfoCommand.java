@@ -2,8 +2,9 @@ package core.commands.server;
 
 import core.ServerContext;
 import core.commands.Command;
+import core.db.DataType;
 import core.network.ClientHandler;
-import java.nio.charset.StandardCharsets;
+import core.utils.ByteStrings;
 import java.util.List;
 
 public class InfoCommand implements Command {
@@ -16,8 +17,11 @@ public class InfoCommand implements Command {
     @Override
     public void execute(ClientHandler client, List<byte[]> args) {
         String section = "all";
-        if (args != null && !args.isEmpty()) {
-            section = new String(args.get(0), StandardCharsets.UTF_8).toLowerCase();
+        // Dispatched commands carry their own name first ("INFO memory")
+        int first = args != null && !args.isEmpty()
+                && new String(args.get(0), ByteStrings.CHARSET).equalsIgnoreCase("INFO") ? 1 : 0;
+        if (args != null && args.size() > first) {
+            section = new String(args.get(first), ByteStrings.CHARSET).toLowerCase();
         }
 
         StringBuilder info = new StringBuilder();
@@ -30,6 +34,7 @@ public class InfoCommand implements Command {
         if (all || section.equals("stats")) appendStats(info);
         if (all || section.equals("cpu")) appendCpu(info);
         if (all || section.equals("keyspace")) appendKeyspace(info);
+        if (section.equals("shards") || (all && context.getShardCount() > 0)) appendShards(info);
 
         client.sendBulkString(info.toString());
     }
@@ -53,14 +58,49 @@ public class InfoCommand implements Command {
     private void appendMemory(StringBuilder info) {
         info.append("# Memory\r\n");
         info.append("used_memory:").append(context.getUsedMemory()).append("\r\n");
+        info.append("used_memory_dataset:").append(context.getUsedMemoryDataset()).append("\r\n");
+        long[] byType = context.getUsedMemoryByType();
+        for (DataType type : DataType.values()) {
+            info.append("used_memory_").append(type.name().toLowerCase()).append(":").append(byType[type.ordinal()]).append("\r\n");
+        }
         info.append("maxmemory:").append(context.getMaxMemory()).append("\r\n");
+        info.append("maxmemory_policy:").append(context.getMaxMemoryPolicy()).append("\r\n");
+        if (context.getMaxMemoryPolicy().equals("tiered") || context.getTierSpills() > 0) {
+            long hits = context.getKeyspaceHits();
+            long faults = context.getTierFaults();
+            // Share of keyspace hits served from heap, without reading a segment
+            double hitRate = hits == 0 ? 1.0 : (double) Math.max(0, hits - faults) / hits;
+            info.append("tier_spills:").append(context.getTierSpills()).append("\r\n");
+            info.append("tier_faults:").append(faults).append("\r\n");
+            info.append("tier_hit_rate:").append(String.format(java.util.Locale.US, "%.4f", hitRate)).append("\r\n");
+            info.append("tier_avg_fault_latency_us:").append(context.getTierAvgFaultMicros()).append("\r\n");
+            info.append("tier_max_fault_latency_us:").append(context.getTierMaxFaultMicros()).append("\r\n");
+            info.append("tier_disk_bytes:").append(context.getTierDiskBytes()).append("\r\n");
+            info.append("tier_segments:").append(context.getTierSegments()).append("\r\n");
+            info.append("tier_compacted_segments:").append(context.getTierCompactedSegments()).append("\r\n");
+        }
         info.append("\r\n");
     }
 
     private void appendPersistence(StringBuilder info) {
         info.append("# Persistence\r\n");
         info.append("aof_enabled:").append(context.isAofEnabled() ? 1 : 0).append("\r\n");
+        info.append("rdb_changes_since_last_save:").append(context.getRdbChangesSinceLastSave()).append("\r\n");
+        info.append("rdb_bgsave_in_progress:").append(context.isRdbSaveInProgress() ? 1 : 0).append("\r\n");
         info.append("rdb_last_save_time:").append(context.getLastSaveTime()).append("\r\n");
+        info.append("rdb_last_bgsave_status:").append(context.isRdbLastSaveOk() ? "ok" : "err").append("\r\n");
+        info.append("rdb_last_bgsave_time_sec:").append(context.getRdbLastSaveDurationSec()).append("\r\n");
+        info.append("rdb_current_bgsave_time_sec:").append(context.getRdbCurrentSaveDurationSec()).append("\r\n");
+        if (context.isAofEnabled()) {
+            info.append("aof_fsync_policy:").append(context.getAofFsyncPolicy()).append("\r\n");
+            info.append("aof_fsyncs:").append(context.getAofFsyncCount()).append("\r\n");
+            info.append("aof_last_fsync_latency_us:").append(context.getAofLastFsyncMicros()).append("\r\n");
+            info.append("aof_avg_fsync_latency_us:").append(context.getAofAvgFsyncMicros()).append("\r\n");
+            info.append("aof_max_fsync_latency_us:").append(context.getAofMaxFsyncMicros()).append("\r\n");
+            info.append("aof_pending_bytes:").append(context.getAofPendingBytes()).append("\r\n");
+            info.append("aof_delayed_fsync:").append(context.getAofDelayedFsyncs()).append("\r\n");
+            info.append("aof_last_write_status:").append(context.isAofLastWriteOk() ? "ok" : "err").append("\r\n");
+        }
         info.append("\r\n");
     }
 
@@ -69,6 +109,7 @@ public class InfoCommand implements Command {
         info.append("total_commands_processed:").append(context.getTotalCommandsProcessed()).append("\r\n");
         info.append("keyspace_hits:").append(context.getKeyspaceHits()).append("\r\n");
         info.append("keyspace_misses:").append(context.getKeyspaceMisses()).append("\r\n");
+        info.append("evicted_keys:").append(context.getEvictedKeys()).append("\r\n");
         info.append("\r\n");
     }
 
@@ -92,4 +133,28 @@ public class InfoCommand implements Command {
             info.append("\r\n");
         }
     }
+
+    private void appendShards(StringBuilder info) {
+        info.append("# Shards\r\n");
+        int count = context.getShardCount();
+        info.append("shards:").append(count).append("\r\n");
+        info.append("cross_shard_commands:").append(context.getCrossShardCommands()).append("\r\n");
+        if (count > 0) {
+            long[] commands = context.getShardCommandCounts();
+            long[] busy = context.getShardBusyMicros();
+            int[] queued = context.getShardQueueDepths();
+            long min = Long.MAX_VALUE, max = 0;
+            for (int i = 0; i < count; i++) {
+                info.append("shard").append(i).append(":commands=").append(commands[i])
+                    .append(",busy_us=").append(busy[i])
+                    .append(",queued=").append(queued[i]).append("\r\n");
+                min = Math.min(min, commands[i]);
+                max = Math.max(max, commands[i]);
+            }
+            // 1.00 = perfectly even load, lower = hotter busiest shard
+            double balance = max == 0 ? 1.0 : (double) min / max;
+            info.append("shard_balance:").append(String.format(java.util.Locale.US, "%.2f", balance)).append("\r\n");
+        }
+        info.append("\r\n");
+    }
 }
@@ -2,7 +2,7 @@ package core.commands.server;
 
 import core.commands.Command;
 import core.network.ClientHandler;
-import java.nio.charset.StandardCharsets;
+import core.utils.ByteStrings;
 import java.util.List;
 
 public class MemoryCommand implements Command {
@@ -13,7 +13,7 @@ public class MemoryCommand implements Command {
             return;
         }
         
-        String sub = new String(args.get(1), StandardCharsets.UTF_8).toUpperCase();
+        String sub = new String(args.get(1), ByteStrings.CHARSET).toUpperCase();
         
         if (sub.equals("USAGE")) {
             new MemoryUsageCommand().execute(client, args);
@@ -2,10 +2,14 @@ package core.commands.server;
 
 import core.Carade;
 import core.commands.Command;
+import core.db.CaradeDatabase;
+import core.db.DataType;
+import core.db.MemoryEstimator;
 import core.network.ClientHandler;
-import java.nio.charset.StandardCharsets;
+import core.utils.ByteStrings;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 
 public class MemoryStatsCommand implements Command {
     @Override
@@ -13,56 +17,70 @@ public class MemoryStatsCommand implements Command {
         List<Object> stats = new ArrayList<>();
         
         Runtime rt = Runtime.getRuntime();
+        long heapUsed = rt.totalMemory() - rt.freeMemory();
+        long dataset = Carade.db.getDatasetMemory();
+        int keys = Carade.db.size();
         
-        stats.add("peak.allocated".getBytes(StandardCharsets.UTF_8));
+        stats.add("peak.allocated".getBytes(ByteStrings.CHARSET));
         stats.add(rt.totalMemory());
         
-        stats.add("total.allocated".getBytes(StandardCharsets.UTF_8));
+        stats.add("total.allocated".getBytes(ByteStrings.CHARSET));
         stats.add(rt.totalMemory());
         
-        stats.add("startup.allocated".getBytes(StandardCharsets.UTF_8));
+        stats.add("startup.allocated".getBytes(ByteStrings.CHARSET));
         stats.add(0); // Dummy
         
-        stats.add("replication.backlog".getBytes(StandardCharsets.UTF_8));
+        stats.add("replication.backlog".getBytes(ByteStrings.CHARSET));
         stats.add(1024*1024); // Dummy
         
-        stats.add("clients.slaves".getBytes(StandardCharsets.UTF_8));
+        stats.add("clients.slaves".getBytes(ByteStrings.CHARSET));
         stats.add(0); // Dummy
         
-        stats.add("clients.normal".getBytes(StandardCharsets.UTF_8));
+        stats.add("clients.normal".getBytes(ByteStrings.CHARSET));
         stats.add(Carade.activeConnections.get());
         
-        stats.add("aof.buffer".getBytes(StandardCharsets.UTF_8));
+        stats.add("aof.buffer".getBytes(ByteStrings.CHARSET));
         stats.add(0); // Dummy
         
-        stats.add("lua.caches".getBytes(StandardCharsets.UTF_8));
+        stats.add("lua.caches".getBytes(ByteStrings.CHARSET));
         stats.add(0);
         
-        stats.add("db.0".getBytes(StandardCharsets.UTF_8));
-        List<Object> dbStats = new ArrayList<>();
-        dbStats.add("overhead.hashtable.main".getBytes(StandardCharsets.UTF_8));
-        dbStats.add(Carade.db.size() * 32); // Rough
-        dbStats.add("overhead.hashtable.expires".getBytes(StandardCharsets.UTF_8));
-        dbStats.add(0);
-        stats.add(dbStats);
-        
-        stats.add("overhead.total".getBytes(StandardCharsets.UTF_8));
-        stats.add((rt.totalMemory() - rt.freeMemory()));
-        
-        stats.add("keys.count".getBytes(StandardCharsets.UTF_8));
-        stats.add(Carade.db.size());
-        
-        stats.add("keys.bytes-per-key".getBytes(StandardCharsets.UTF_8));
-        stats.add(Carade.db.size() == 0 ? 0 : (rt.totalMemory() - rt.freeMemory()) / Carade.db.size());
-        
-        stats.add("dataset.bytes".getBytes(StandardCharsets.UTF_8));
-        stats.add(rt.totalMemory() - rt.freeMemory());
+        for (int i = 0; i < CaradeDatabase.DB_COUNT; i++) {
+            int size = Carade.db.size(i);
+            if (size == 0) continue;
+            stats.add(("db." + i).getBytes(ByteStrings.CHARSET));
+            List<Object> dbStats = new ArrayList<>();
+            dbStats.add("overhead.hashtable.main".getBytes(ByteStrings.CHARSET));
+            dbStats.add((long) size * MemoryEstimator.ENTRY_OVERHEAD);
+            dbStats.add("overhead.hashtable.expires".getBytes(ByteStrings.CHARSET));
+            dbStats.add(0);
+            dbStats.add("dataset.bytes".getBytes(ByteStrings.CHARSET));
+            dbStats.add(Carade.db.getDatasetMemory(i));
+            stats.add(dbStats);
+        }
+        
+        stats.add("overhead.total".getBytes(ByteStrings.CHARSET));
+        stats.add(Math.max(0, heapUsed - dataset));
+        
+        stats.add("keys.count".getBytes(ByteStrings.CHARSET));
+        stats.add(keys);
+        
+        stats.add("keys.bytes-per-key".getBytes(ByteStrings.CHARSET));
+        stats.add(keys == 0 ? 0 : dataset / keys);
+        
+        stats.add("dataset.bytes".getBytes(ByteStrings.CHARSET));
+        stats.add(dataset);
+
+        for (DataType type : DataType.values()) {
+            stats.add(("dataset." + type.name().toLowerCase()).getBytes(ByteStrings.CHARSET));
+            stats.add(Carade.db.getDatasetMemory(type));
+        }
         
-        stats.add("dataset.percentage".getBytes(StandardCharsets.UTF_8));
-        stats.add("50.0".getBytes(StandardCharsets.UTF_8)); // Fake
+        stats.add("dataset.percentage".getBytes(ByteStrings.CHARSET));
+        stats.add(String.format(Locale.US, "%.2f", heapUsed == 0 ? 0.0 : Math.min(100.0, dataset * 100.0 / heapUsed)).getBytes(ByteStrings.CHARSET));
         
-        stats.add("peak.percentage".getBytes(StandardCharsets.UTF_8));
-        stats.add("50.0".getBytes(StandardCharsets.UTF_8)); // Fake
+        stats.add("peak.percentage".getBytes(ByteStrings.CHARSET));
+        stats.add("50.0".getBytes(ByteStrings.CHARSET)); // Fake
 
         client.sendMixedArray(stats);
     }
@@ -4,9 +4,9 @@ import core.commands.Command;
 import core.network.ClientHandler;
 import core.Carade;
 import core.protocol.Resp;
+import core.utils.ByteStrings;
 import java.util.ArrayList;
 import java.util.List;
-import java.nio.charset.StandardCharsets;
 
 public class SlowlogCommand implements Command {
     @Override
@@ -16,7 +16,7 @@ public class SlowlogCommand implements Command {
              return;
         }
         
-        String sub = new String(args.get(1), StandardCharsets.UTF_8).toUpperCase();
+        String sub = new String(args.get(1), ByteStrings.CHARSET).toUpperCase();
         if (sub.equals("LEN")) {
             client.sendInteger(Carade.slowLog.size());
         } else if (sub.equals("RESET")) {
@@ -26,7 +26,7 @@ public class SlowlogCommand implements Command {
             int count = 10;
             if (args.size() >= 3) {
                 try {
-                    count = Integer.parseInt(new String(args.get(2), StandardCharsets.UTF_8));
+                    count = Integer.parseInt(new String(args.get(2), ByteStrings.CHARSET));
                 } catch (NumberFormatException e) {
                      client.sendError("ERR value is not an integer or out of range");
                      return;
@@ -43,7 +43,7 @@ public class SlowlogCommand implements Command {
             
             int found = 0;
             for (int i = logs.size() - 1; i >= 0 && found < count; i--) {
-                result.add(logs.get(i).getBytes(StandardCharsets.UTF_8));
+                result.add(logs.get(i).getBytes(ByteStrings.CHARSET));
                 found++;
             }
             
@@ -5,7 +5,7 @@ import core.commands.Command;
 import core.db.CaradeDatabase;
 import core.db.ValueEntry;
 import core.network.ClientHandler;
-import java.nio.charset.StandardCharsets;
+import core.utils.ByteStrings;
 import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -19,8 +19,8 @@ public class SwapDbCommand implements Command {
         
         int idx1, idx2;
         try {
-            idx1 = Integer.parseInt(new String(args.get(1), StandardCharsets.UTF_8));
-            idx2 = Integer.parseInt(new String(args.get(2), StandardCharsets.UTF_8));
+            idx1 = Integer.parseInt(new String(args.get(1), ByteStrings.CHARSET));
+            idx2 = Integer.parseInt(new String(args.get(2), ByteStrings.CHARSET));
         } catch (NumberFormatException e) {
             client.sendError("ERR value is not an integer or out of range");
             return;
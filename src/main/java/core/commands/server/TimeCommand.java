@@ -3,9 +3,9 @@ package core.commands.server;
 import core.commands.Command;
 import core.network.ClientHandler;
 import core.protocol.Resp;
+import core.utils.ByteStrings;
 import java.util.ArrayList;
 import java.util.List;
-import java.nio.charset.StandardCharsets;
 
 public class TimeCommand implements Command {
     @Override
@@ -15,8 +15,8 @@ public class TimeCommand implements Command {
         long micros = (now % 1000) * 1000;
         
         List<byte[]> response = new ArrayList<>();
-        response.add(String.valueOf(seconds).getBytes(StandardCharsets.UTF_8));
-        response.add(String.valueOf(micros).getBytes(StandardCharsets.UTF_8));
+        response.add(String.valueOf(seconds).getBytes(ByteStrings.CHARSET));
+        response.add(String.valueOf(micros).getBytes(ByteStrings.CHARSET));
         
         client.sendResponse(Resp.array(response), null);
     }
@@ -5,10 +5,10 @@ import core.commands.Command;
 import core.db.DataType;
 import core.db.ValueEntry;
 import core.network.ClientHandler;
-import java.nio.charset.StandardCharsets;
+import core.structs.PackedSet;
+import core.utils.ByteStrings;
 import java.util.List;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
 
 public class SAddCommand implements Command {
     @Override
@@ -19,15 +19,15 @@ public class SAddCommand implements Command {
         }
         
         Carade.performEvictionIfNeeded();
-        String key = new String(args.get(1), StandardCharsets.UTF_8);
-        String member = new String(args.get(2), StandardCharsets.UTF_8);
+        String key = new String(args.get(1), ByteStrings.CHARSET);
+        String member = new String(args.get(2), ByteStrings.CHARSET);
         final int[] ret = {0};
         
         try {
             client.executeWrite(() -> {
                 Carade.db.getStore(client.getDbIndex()).compute(key, (k, v) -> {
                     if (v == null) {
-                        Set<String> set = ConcurrentHashMap.newKeySet();
+                        Set<String> set = new PackedSet();
                         set.add(member);
                         ret[0] = 1;
                         return new ValueEntry(set, DataType.SET, -1);
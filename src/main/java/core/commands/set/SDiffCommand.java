@@ -5,7 +5,7 @@ import core.commands.Command;
 import core.db.DataType;
 import core.db.ValueEntry;
 import core.network.ClientHandler;
-import java.nio.charset.StandardCharsets;
+import core.utils.ByteStrings;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
@@ -19,7 +19,7 @@ public class SDiffCommand implements Command {
             return;
         }
 
-        String firstKey = new String(args.get(1), StandardCharsets.UTF_8);
+        String firstKey = new String(args.get(1), ByteStrings.CHARSET);
         ValueEntry entry = Carade.db.get(client.getDbIndex(), firstKey);
         Set<String> result = new HashSet<>();
         if (entry != null && entry.type == DataType.SET) {
@@ -27,14 +27,14 @@ public class SDiffCommand implements Command {
         }
         
         for (int i = 2; i < args.size(); i++) {
-             ValueEntry e = Carade.db.get(client.getDbIndex(), new String(args.get(i), StandardCharsets.UTF_8));
+             ValueEntry e = Carade.db.get(client.getDbIndex(), new String(args.get(i), ByteStrings.CHARSET));
              if (e != null && e.type == DataType.SET) {
                  result.removeAll((Set<String>) e.getValue());
              }
         }
         
         List<byte[]> resp = new ArrayList<>();
-        for(String s : result) resp.add(s.getBytes(StandardCharsets.UTF_8));
+        for(String s : result) resp.add(s.getBytes(ByteStrings.CHARSET));
         client.sendArray(resp);
     }
 }
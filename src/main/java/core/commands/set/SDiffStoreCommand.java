@@ -5,11 +5,11 @@ import core.commands.Command;
 import core.db.DataType;
 import core.db.ValueEntry;
 import core.network.ClientHandler;
-import java.nio.charset.StandardCharsets;
+import core.structs.PackedSet;
+import core.utils.ByteStrings;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
 
 public class SDiffStoreCommand implements Command {
     @Override
@@ -19,21 +19,21 @@ public class SDiffStoreCommand implements Command {
             return;
         }
 
-        String destination = new String(args.get(1), StandardCharsets.UTF_8);
+        String destination = new String(args.get(1), ByteStrings.CHARSET);
         final int[] sizeRef = {0};
         
         Object[] cmdArgs = new Object[args.size()-1];
-        for(int i=1; i<args.size(); i++) cmdArgs[i-1] = new String(args.get(i), StandardCharsets.UTF_8);
+        for(int i=1; i<args.size(); i++) cmdArgs[i-1] = new String(args.get(i), ByteStrings.CHARSET);
         
         client.executeWrite(() -> {
             Set<String> res = new HashSet<>();
-            String firstKey = new String(args.get(2), StandardCharsets.UTF_8);
+            String firstKey = new String(args.get(2), ByteStrings.CHARSET);
             ValueEntry entry = Carade.db.get(client.getDbIndex(), firstKey);
             if (entry != null && entry.type == DataType.SET) {
                 res.addAll((Set<String>) entry.getValue());
             }
             for (int i = 3; i < args.size(); i++) {
-                 ValueEntry e = Carade.db.get(client.getDbIndex(), new String(args.get(i), StandardCharsets.UTF_8));
+                 ValueEntry e = Carade.db.get(client.getDbIndex(), new String(args.get(i), ByteStrings.CHARSET));
                  if (e != null && e.type == DataType.SET) {
                      res.removeAll((Set<String>) e.getValue());
                  }
@@ -42,7 +42,7 @@ public class SDiffStoreCommand implements Command {
             if (res.isEmpty()) {
                 Carade.db.remove(client.getDbIndex(), destination);
             } else {
-                Set<String> newSet = ConcurrentHashMap.newKeySet();
+                Set<String> newSet = new PackedSet();
                 newSet.addAll(res);
                 Carade.db.put(client.getDbIndex(), destination, new ValueEntry(newSet, DataType.SET, -1));
             }
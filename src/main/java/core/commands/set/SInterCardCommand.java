@@ -5,7 +5,10 @@ import core.commands.Command;
 import core.db.DataType;
 import core.db.ValueEntry;
 import core.network.ClientHandler;
-import java.nio.charset.StandardCharsets;
+import core.structs.IntSet;
+import core.structs.PackedSet;
+import core.utils.ByteStrings;
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -19,7 +22,7 @@ public class SInterCardCommand implements Command {
         }
 
         try {
-            int numKeys = Integer.parseInt(new String(args.get(1), StandardCharsets.UTF_8));
+            int numKeys = Integer.parseInt(new String(args.get(1), ByteStrings.CHARSET));
             if (numKeys <= 0) {
                  client.sendError("ERR numkeys must be positive");
                  return;
@@ -31,13 +34,13 @@ public class SInterCardCommand implements Command {
 
             int limit = 0; // 0 means unlimited
             if (args.size() > 2 + numKeys) {
-                String nextArg = new String(args.get(2 + numKeys), StandardCharsets.UTF_8).toUpperCase();
+                String nextArg = new String(args.get(2 + numKeys), ByteStrings.CHARSET).toUpperCase();
                 if (nextArg.equals("LIMIT")) {
                      if (args.size() <= 2 + numKeys + 1) {
                          client.sendError("ERR syntax error");
                          return;
                      }
-                     limit = Integer.parseInt(new String(args.get(2 + numKeys + 1), StandardCharsets.UTF_8));
+                     limit = Integer.parseInt(new String(args.get(2 + numKeys + 1), ByteStrings.CHARSET));
                      if (limit < 0) {
                          client.sendError("ERR limit must be positive");
                          return;
@@ -48,7 +51,7 @@ public class SInterCardCommand implements Command {
                 }
             }
 
-            String firstKey = new String(args.get(2), StandardCharsets.UTF_8);
+            String firstKey = new String(args.get(2), ByteStrings.CHARSET);
             ValueEntry entry = Carade.db.get(client.getDbIndex(), firstKey);
             
             if (entry == null || entry.type != DataType.SET) {
@@ -56,24 +59,28 @@ public class SInterCardCommand implements Command {
                  return;
             }
             
-            Set<String> result = new HashSet<>((Set<String>) entry.getValue());
+            List<Set<String>> sets = new ArrayList<>();
+            sets.add((Set<String>) entry.getValue());
             for (int i = 1; i < numKeys; i++) {
-                 if (result.isEmpty()) break;
-                 if (limit > 0 && result.size() <= limit) {
-                     // Optimization: if intermediate result is small, we still intersect?
-                     // Actually, intersection only shrinks. So if we are already below limit, we just continue.
-                     // The limit applies to FINAL cardinality.
-                 }
-                 
-                 ValueEntry e = Carade.db.get(client.getDbIndex(), new String(args.get(2 + i), StandardCharsets.UTF_8));
+                 ValueEntry e = Carade.db.get(client.getDbIndex(), new String(args.get(2 + i), ByteStrings.CHARSET));
                  if (e == null || e.type != DataType.SET) {
-                     result.clear();
-                     break;
+                     client.sendInteger(0);
+                     return;
                  }
-                 result.retainAll((Set<String>) e.getValue());
+                 sets.add((Set<String>) e.getValue());
+            }
+
+            // All integers: merge the sorted arrays
+            byte[] ints = PackedSet.intersectIntSets(sets);
+            Set<String> result = null;
+            if (ints == null) {
+                result = new HashSet<>(sets.get(0));
+                for (int i = 1; i < sets.size() && !result.isEmpty(); i++) {
+                     result.retainAll(sets.get(i));
+                }
             }
             
-            int size = result.size();
+            int size = ints != null ? IntSet.length(ints) : result.size();
             if (limit > 0 && size > limit) size = limit;
             
             client.sendInteger(size);
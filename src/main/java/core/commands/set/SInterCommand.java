@@ -5,7 +5,9 @@ import core.commands.Command;
 import core.db.DataType;
 import core.db.ValueEntry;
 import core.network.ClientHandler;
-import java.nio.charset.StandardCharsets;
+import core.structs.IntSet;
+import core.structs.PackedSet;
+import core.utils.ByteStrings;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
@@ -20,7 +22,7 @@ public class SInterCommand implements Command {
             return;
         }
 
-        String firstKey = new String(args.get(1), StandardCharsets.UTF_8);
+        String firstKey = new String(args.get(1), ByteStrings.CHARSET);
         ValueEntry entry = Carade.db.get(client.getDbIndex(), firstKey);
         
         if (entry == null || entry.type != DataType.SET) {
@@ -28,18 +30,35 @@ public class SInterCommand implements Command {
              return;
         }
         
-        Set<String> result = new HashSet<>((Set<String>) entry.getValue());
+        List<Set<String>> sets = new ArrayList<>();
+        sets.add((Set<String>) entry.getValue());
         for (int i = 2; i < args.size(); i++) {
-             ValueEntry e = Carade.db.get(client.getDbIndex(), new String(args.get(i), StandardCharsets.UTF_8));
+             ValueEntry e = Carade.db.get(client.getDbIndex(), new String(args.get(i), ByteStrings.CHARSET));
              if (e == null || e.type != DataType.SET) {
-                 result.clear();
-                 break;
+                 client.sendArray(Collections.emptyList());
+                 return;
              }
-             result.retainAll((Set<String>) e.getValue());
+             sets.add((Set<String>) e.getValue());
+        }
+
+        // All integers: merge the sorted arrays
+        byte[] ints = PackedSet.intersectIntSets(sets);
+        if (ints != null) {
+            List<byte[]> resp = new ArrayList<>(IntSet.length(ints));
+            for (int i = 0; i < IntSet.length(ints); i++) {
+                resp.add(String.valueOf(IntSet.get(ints, i)).getBytes(ByteStrings.CHARSET));
+            }
+            client.sendArray(resp);
+            return;
+        }
+
+        Set<String> result = new HashSet<>(sets.get(0));
+        for (int i = 1; i < sets.size() && !result.isEmpty(); i++) {
+             result.retainAll(sets.get(i));
         }
         
         List<byte[]> resp = new ArrayList<>();
-        for(String s : result) resp.add(s.getBytes(StandardCharsets.UTF_8));
+        for(String s : result) resp.add(s.getBytes(ByteStrings.CHARSET));
         client.sendArray(resp);
     }
 }
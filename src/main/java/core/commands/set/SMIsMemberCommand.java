@@ -5,7 +5,7 @@ import core.commands.Command;
 import core.db.DataType;
 import core.db.ValueEntry;
 import core.network.ClientHandler;
-import java.nio.charset.StandardCharsets;
+import core.utils.ByteStrings;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
@@ -18,7 +18,7 @@ public class SMIsMemberCommand implements Command {
             return;
         }
 
-        String key = new String(args.get(1), StandardCharsets.UTF_8);
+        String key = new String(args.get(1), ByteStrings.CHARSET);
         ValueEntry v = Carade.db.get(client.getDbIndex(), key);
 
         List<Object> result = new ArrayList<>();
@@ -33,7 +33,7 @@ public class SMIsMemberCommand implements Command {
         } else {
             Set<String> set = (Set<String>) v.getValue();
             for (int i = 2; i < args.size(); i++) {
-                String member = new String(args.get(i), StandardCharsets.UTF_8);
+                String member = new String(args.get(i), ByteStrings.CHARSET);
                 result.add(set.contains(member) ? 1L : 0L);
             }
         }
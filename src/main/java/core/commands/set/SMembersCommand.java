@@ -5,7 +5,7 @@ import core.commands.Command;
 import core.db.DataType;
 import core.db.ValueEntry;
 import core.network.ClientHandler;
-import java.nio.charset.StandardCharsets;
+import core.utils.ByteStrings;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -19,7 +19,7 @@ public class SMembersCommand implements Command {
             return;
         }
 
-        String key = new String(args.get(1), StandardCharsets.UTF_8);
+        String key = new String(args.get(1), ByteStrings.CHARSET);
         ValueEntry entry = Carade.db.get(client.getDbIndex(), key);
         
         if (entry == null || entry.type != DataType.SET) {
@@ -28,7 +28,7 @@ public class SMembersCommand implements Command {
             Set<String> set = (Set<String>) entry.getValue();
             List<byte[]> list = new ArrayList<>();
             for(String s : set) {
-                list.add(s.getBytes(StandardCharsets.UTF_8));
+                list.add(s.getBytes(ByteStrings.CHARSET));
             }
             client.sendArray(list);
         }
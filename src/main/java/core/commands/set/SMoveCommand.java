@@ -5,10 +5,10 @@ import core.commands.Command;
 import core.db.DataType;
 import core.db.ValueEntry;
 import core.network.ClientHandler;
-import java.nio.charset.StandardCharsets;
+import core.structs.PackedSet;
+import core.utils.ByteStrings;
 import java.util.List;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
 
 public class SMoveCommand implements Command {
     @Override
@@ -18,9 +18,9 @@ public class SMoveCommand implements Command {
             return;
         }
         
-        String source = new String(args.get(1), StandardCharsets.UTF_8);
-        String destination = new String(args.get(2), StandardCharsets.UTF_8);
-        String member = new String(args.get(3), StandardCharsets.UTF_8);
+        String source = new String(args.get(1), ByteStrings.CHARSET);
+        String destination = new String(args.get(2), ByteStrings.CHARSET);
+        String member = new String(args.get(3), ByteStrings.CHARSET);
         
         final int[] result = {0};
         
@@ -56,7 +56,7 @@ public class SMoveCommand implements Command {
                 // Add to destination
                 Carade.db.getStore(client.dbIndex).compute(destination, (k, v) -> {
                     if (v == null) {
-                        Set<String> set = ConcurrentHashMap.newKeySet();
+                        Set<String> set = new PackedSet();
                         set.add(member);
                         return new ValueEntry(set, DataType.SET, -1);
                     } else {
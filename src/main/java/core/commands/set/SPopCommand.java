@@ -5,7 +5,7 @@ import core.commands.Command;
 import core.db.DataType;
 import core.db.ValueEntry;
 import core.network.ClientHandler;
-import java.nio.charset.StandardCharsets;
+import core.utils.ByteStrings;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.ThreadLocalRandom;
@@ -18,12 +18,12 @@ public class SPopCommand implements Command {
             return;
         }
 
-        String key = new String(args.get(1), StandardCharsets.UTF_8);
+        String key = new String(args.get(1), ByteStrings.CHARSET);
         int count = 1;
         boolean hasCount = false;
         if (args.size() > 2) {
             try {
-                count = Integer.parseInt(new String(args.get(2), StandardCharsets.UTF_8));
+                count = Integer.parseInt(new String(args.get(2), ByteStrings.CHARSET));
                 hasCount = true;
             } catch (NumberFormatException e) {
                 client.sendError("ERR value is not an integer or out of range");
@@ -76,7 +76,7 @@ public class SPopCommand implements Command {
         } else {
              if (finalHasCount) {
                  List<byte[]> resp = new java.util.ArrayList<>();
-                 for (String s : popped) resp.add(s.getBytes(StandardCharsets.UTF_8));
+                 for (String s : popped) resp.add(s.getBytes(ByteStrings.CHARSET));
                  client.sendArray(resp);
              } else {
                  if (popped.isEmpty()) client.sendNull();
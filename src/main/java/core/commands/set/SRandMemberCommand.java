@@ -5,7 +5,7 @@ import core.commands.Command;
 import core.db.DataType;
 import core.db.ValueEntry;
 import core.network.ClientHandler;
-import java.nio.charset.StandardCharsets;
+import core.utils.ByteStrings;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -20,12 +20,12 @@ public class SRandMemberCommand implements Command {
             return;
         }
 
-        String key = new String(args.get(1), StandardCharsets.UTF_8);
+        String key = new String(args.get(1), ByteStrings.CHARSET);
         int count = 1;
         boolean hasCount = false;
         if (args.size() > 2) {
             try {
-                count = Integer.parseInt(new String(args.get(2), StandardCharsets.UTF_8));
+                count = Integer.parseInt(new String(args.get(2), ByteStrings.CHARSET));
                 hasCount = true;
             } catch (NumberFormatException e) {
                 client.sendError("ERR value is not an integer or out of range");
@@ -71,7 +71,7 @@ public class SRandMemberCommand implements Command {
         if (count > 0) {
             if (absCount >= arr.length) {
                 // Return all
-                for (Object o : arr) result.add(((String)o).getBytes(StandardCharsets.UTF_8));
+                for (Object o : arr) result.add(((String)o).getBytes(ByteStrings.CHARSET));
             } else {
                 // Pick distinct
                 // Shuffle logic on the array copy or similar
@@ -82,14 +82,14 @@ public class SRandMemberCommand implements Command {
                     Object temp = arr[i];
                     arr[i] = arr[idx];
                     arr[idx] = temp;
-                    result.add(((String)arr[i]).getBytes(StandardCharsets.UTF_8));
+                    result.add(((String)arr[i]).getBytes(ByteStrings.CHARSET));
                 }
             }
         } else {
             // Allow duplicates
             for (int i = 0; i < absCount; i++) {
                 int idx = ThreadLocalRandom.current().nextInt(arr.length);
-                result.add(((String)arr[idx]).getBytes(StandardCharsets.UTF_8));
+                result.add(((String)arr[idx]).getBytes(ByteStrings.CHARSET));
             }
         }
         
@@ -4,7 +4,7 @@ import core.Carade;
 import core.commands.Command;
 import core.db.DataType;
 import core.network.ClientHandler;
-import java.nio.charset.StandardCharsets;
+import core.utils.ByteStrings;
 import java.util.List;
 import java.util.Set;
 
@@ -16,8 +16,8 @@ public class SRemCommand implements Command {
             return;
         }
 
-        String key = new String(args.get(1), StandardCharsets.UTF_8);
-        String member = new String(args.get(2), StandardCharsets.UTF_8);
+        String key = new String(args.get(1), ByteStrings.CHARSET);
+        String member = new String(args.get(2), ByteStrings.CHARSET);
         final int[] ret = {0};
         
         client.executeWrite(() -> {
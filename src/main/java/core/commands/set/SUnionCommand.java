@@ -5,7 +5,7 @@ import core.commands.Command;
 import core.db.DataType;
 import core.db.ValueEntry;
 import core.network.ClientHandler;
-import java.nio.charset.StandardCharsets;
+import core.utils.ByteStrings;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
@@ -21,14 +21,14 @@ public class SUnionCommand implements Command {
 
         Set<String> result = new HashSet<>();
         for (int i = 1; i < args.size(); i++) {
-             ValueEntry e = Carade.db.get(client.getDbIndex(), new String(args.get(i), StandardCharsets.UTF_8));
+             ValueEntry e = Carade.db.get(client.getDbIndex(), new String(args.get(i), ByteStrings.CHARSET));
              if (e != null && e.type == DataType.SET) {
                  result.addAll((Set<String>) e.getValue());
              }
         }
         
         List<byte[]> resp = new ArrayList<>();
-        for(String s : result) resp.add(s.getBytes(StandardCharsets.UTF_8));
+        for(String s : result) resp.add(s.getBytes(ByteStrings.CHARSET));
         client.sendArray(resp);
     }
 }
@@ -6,8 +6,8 @@ import core.db.DataType;
 import core.db.ValueEntry;
 import core.network.ClientHandler;
 import core.protocol.Resp;
+import core.utils.ByteStrings;
 
-import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 public class AppendCommand implements Command {
@@ -18,7 +18,7 @@ public class AppendCommand implements Command {
             return;
         }
 
-        String key = new String(args.get(1), StandardCharsets.UTF_8);
+        String key = new String(args.get(1), ByteStrings.CHARSET);
         byte[] val = args.get(2);
         
         final long[] ret = {0};
@@ -44,7 +44,7 @@ public class AppendCommand implements Command {
                     }
                 });
                 Carade.notifyWatchers(key);
-            }, "APPEND", key, new String(val, StandardCharsets.UTF_8));
+            }, "APPEND", key, new String(val, ByteStrings.CHARSET));
 
             client.sendResponse(Resp.integer(ret[0]), "(integer) " + ret[0]);
         } catch (RuntimeException e) {
@@ -5,8 +5,8 @@ import core.db.DataType;
 import core.db.ValueEntry;
 import core.network.ClientHandler;
 import core.Carade;
+import core.utils.ByteStrings;
 import java.util.List;
-import java.nio.charset.StandardCharsets;
 
 public class BitCountCommand implements Command {
     @Override
@@ -16,7 +16,7 @@ public class BitCountCommand implements Command {
             return;
         }
 
-        String key = new String(args.get(1), StandardCharsets.UTF_8);
+        String key = new String(args.get(1), ByteStrings.CHARSET);
         ValueEntry entry = Carade.db.get(client.dbIndex, key);
 
         if (entry == null) {
@@ -35,8 +35,8 @@ public class BitCountCommand implements Command {
 
         if (args.size() >= 4) {
             try {
-                start = Long.parseLong(new String(args.get(2), StandardCharsets.UTF_8));
-                end = Long.parseLong(new String(args.get(3), StandardCharsets.UTF_8));
+                start = Long.parseLong(new String(args.get(2), ByteStrings.CHARSET));
+                end = Long.parseLong(new String(args.get(3), ByteStrings.CHARSET));
                 if (start < 0) start += bytes.length;
                 if (end < 0) end += bytes.length;
                 if (start < 0) start = 0;
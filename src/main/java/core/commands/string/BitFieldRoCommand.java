@@ -5,7 +5,7 @@ import core.commands.Command;
 import core.db.DataType;
 import core.db.ValueEntry;
 import core.network.ClientHandler;
-import java.nio.charset.StandardCharsets;
+import core.utils.ByteStrings;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -17,7 +17,7 @@ public class BitFieldRoCommand implements Command {
             return;
         }
 
-        String key = new String(args.get(1), StandardCharsets.UTF_8);
+        String key = new String(args.get(1), ByteStrings.CHARSET);
         List<Long> results = new ArrayList<>();
         
         try {
@@ -32,10 +32,10 @@ public class BitFieldRoCommand implements Command {
 
             int i = 2;
             while (i < args.size()) {
-                String sub = new String(args.get(i++), StandardCharsets.UTF_8).toUpperCase();
+                String sub = new String(args.get(i++), ByteStrings.CHARSET).toUpperCase();
                 if (sub.equals("GET")) {
-                    String type = new String(args.get(i++), StandardCharsets.UTF_8);
-                    int offset = Integer.parseInt(new String(args.get(i++), StandardCharsets.UTF_8));
+                    String type = new String(args.get(i++), ByteStrings.CHARSET);
+                    int offset = Integer.parseInt(new String(args.get(i++), ByteStrings.CHARSET));
                     results.add(getBitfield(bytes, type, offset));
                 } else {
                      client.sendError("ERR syntax error, BITFIELD_RO only supports GET");
@@ -5,8 +5,8 @@ import core.db.DataType;
 import core.db.ValueEntry;
 import core.network.ClientHandler;
 import core.Carade;
+import core.utils.ByteStrings;
 import java.util.List;
-import java.nio.charset.StandardCharsets;
 
 public class BitOpCommand implements Command {
     @Override
@@ -16,8 +16,8 @@ public class BitOpCommand implements Command {
             return;
         }
 
-        String op = new String(args.get(1), StandardCharsets.UTF_8).toUpperCase();
-        String destKey = new String(args.get(2), StandardCharsets.UTF_8);
+        String op = new String(args.get(1), ByteStrings.CHARSET).toUpperCase();
+        String destKey = new String(args.get(2), ByteStrings.CHARSET);
         
         // Check OP validity
         if (!op.equals("AND") && !op.equals("OR") && !op.equals("XOR") && !op.equals("NOT")) {
@@ -35,7 +35,7 @@ public class BitOpCommand implements Command {
         int maxLen = 0;
         
         for (int i = 3; i < args.size(); i++) {
-            String key = new String(args.get(i), StandardCharsets.UTF_8);
+            String key = new String(args.get(i), ByteStrings.CHARSET);
             ValueEntry entry = Carade.db.get(client.dbIndex, key);
             if (entry == null) {
                 srcValues[i-3] = null;
@@ -90,7 +90,7 @@ public class BitOpCommand implements Command {
                 Carade.db.put(client.dbIndex, destKey, new ValueEntry(finalRes, DataType.STRING, -1));
             }
             Carade.notifyWatchers(destKey);
-        }, "BITOP", (Object[]) args.stream().skip(1).map(b -> new String(b, StandardCharsets.UTF_8)).toArray());
+        }, "BITOP", (Object[]) args.stream().skip(1).map(b -> new String(b, ByteStrings.CHARSET)).toArray());
         
         client.sendInteger(res.length);
     }
@@ -5,7 +5,7 @@ import core.commands.Command;
 import core.db.DataType;
 import core.db.ValueEntry;
 import core.network.ClientHandler;
-import java.nio.charset.StandardCharsets;
+import core.utils.ByteStrings;
 import java.util.List;
 
 public class BitPosCommand implements Command {
@@ -16,10 +16,10 @@ public class BitPosCommand implements Command {
             return;
         }
 
-        String key = new String(args.get(1), StandardCharsets.UTF_8);
+        String key = new String(args.get(1), ByteStrings.CHARSET);
         int bit;
         try {
-            bit = Integer.parseInt(new String(args.get(2), StandardCharsets.UTF_8));
+            bit = Integer.parseInt(new String(args.get(2), ByteStrings.CHARSET));
         } catch (NumberFormatException e) {
             client.sendError("ERR value is not an integer or out of range");
             return;
@@ -46,7 +46,7 @@ public class BitPosCommand implements Command {
         
         if (args.size() > 3) {
             try {
-                start = Integer.parseInt(new String(args.get(3), StandardCharsets.UTF_8));
+                start = Integer.parseInt(new String(args.get(3), ByteStrings.CHARSET));
             } catch (NumberFormatException e) {
                 client.sendError("ERR value is not an integer or out of range");
                 return;
@@ -54,7 +54,7 @@ public class BitPosCommand implements Command {
         }
         if (args.size() > 4) {
             try {
-                end = Integer.parseInt(new String(args.get(4), StandardCharsets.UTF_8));
+                end = Integer.parseInt(new String(args.get(4), ByteStrings.CHARSET));
             } catch (NumberFormatException e) {
                 client.sendError("ERR value is not an integer or out of range");
                 return;
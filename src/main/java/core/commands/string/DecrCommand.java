@@ -1,11 +1,12 @@
 package core.commands.string;
 
 import core.Carade;
+import core.commands.Args;
 import core.commands.Command;
 import core.db.DataType;
 import core.db.ValueEntry;
 import core.network.ClientHandler;
-import java.nio.charset.StandardCharsets;
+import core.utils.ByteStrings;
 import java.util.List;
 
 public class DecrCommand implements Command {
@@ -16,7 +17,7 @@ public class DecrCommand implements Command {
             return;
         }
         Carade.performEvictionIfNeeded();
-        String key = new String(args.get(1), StandardCharsets.UTF_8);
+        String key = Args.string(args, 1);
         final long[] ret = {0};
         try {
             client.executeWrite(() -> {
@@ -28,7 +29,7 @@ public class DecrCommand implements Command {
                         throw new RuntimeException("WRONGTYPE Operation against a key holding the wrong kind of value");
                     } else {
                         try {
-                            val = Long.parseLong(new String((byte[])v.getValue(), StandardCharsets.UTF_8));
+                            val = Long.parseLong(new String((byte[])v.getValue(), ByteStrings.CHARSET));
                         } catch (NumberFormatException e) {
                             throw new RuntimeException("ERR value is not an integer or out of range");
                         }
@@ -37,7 +38,7 @@ public class DecrCommand implements Command {
                     val--;
                     ret[0] = val;
                     
-                    ValueEntry newV = new ValueEntry(String.valueOf(val).getBytes(StandardCharsets.UTF_8), DataType.STRING, -1);
+                    ValueEntry newV = new ValueEntry(String.valueOf(val).getBytes(ByteStrings.CHARSET), DataType.STRING, -1);
                     if (v != null) newV.expireAt = v.expireAt;
                     newV.touch();
                     return newV;
@@ -5,7 +5,7 @@ import core.commands.Command;
 import core.db.DataType;
 import core.db.ValueEntry;
 import core.network.ClientHandler;
-import java.nio.charset.StandardCharsets;
+import core.utils.ByteStrings;
 import java.util.List;
 
 public class GetBitCommand implements Command {
@@ -15,9 +15,9 @@ public class GetBitCommand implements Command {
             client.sendError("usage: GETBIT key offset");
             return;
         }
-        String key = new String(args.get(1), StandardCharsets.UTF_8);
+        String key = new String(args.get(1), ByteStrings.CHARSET);
         try {
-            int offset = Integer.parseInt(new String(args.get(2), StandardCharsets.UTF_8));
+            int offset = Integer.parseInt(new String(args.get(2), ByteStrings.CHARSET));
             ValueEntry entry = Carade.db.get(client.getDbIndex(), key);
             if (entry == null) {
                 client.sendInteger(0);
@@ -1,12 +1,13 @@
 package core.commands.string;
 
 import core.Carade;
+import core.commands.Args;
 import core.commands.Command;
 import core.db.DataType;
 import core.db.ValueEntry;
 import core.network.ClientHandler;
 import core.protocol.Resp;
-import java.nio.charset.StandardCharsets;
+import core.utils.ByteStrings;
 import java.util.List;
 
 public class GetCommand implements Command {
@@ -17,7 +18,7 @@ public class GetCommand implements Command {
             return;
         }
 
-        String key = new String(args.get(1), StandardCharsets.UTF_8);
+        String key = Args.string(args, 1);
         ValueEntry entry = Carade.db.get(client.dbIndex, key);
         
         if (entry == null) {
@@ -27,7 +28,7 @@ public class GetCommand implements Command {
                 client.sendError("WRONGTYPE Operation against a key holding the wrong kind of value");
             } else {
                 byte[] v = (byte[]) entry.getValue();
-                client.sendResponse(Resp.bulkString(v), new String(v, StandardCharsets.UTF_8));
+                client.sendResponse(Resp.bulkString(v), new String(v, ByteStrings.CHARSET));
             }
         }
     }
@@ -6,7 +6,7 @@ import core.db.DataType;
 import core.db.ValueEntry;
 import core.network.ClientHandler;
 import core.protocol.Resp;
-import java.nio.charset.StandardCharsets;
+import core.utils.ByteStrings;
 import java.util.List;
 
 public class GetDelCommand implements Command {
@@ -17,7 +17,7 @@ public class GetDelCommand implements Command {
             return;
         }
 
-        String key = new String(args.get(1), StandardCharsets.UTF_8);
+        String key = new String(args.get(1), ByteStrings.CHARSET);
         
         // Check state (safe because we hold lock)
         ValueEntry entry = Carade.db.get(client.getDbIndex(), key);
@@ -39,6 +39,6 @@ public class GetDelCommand implements Command {
             Carade.notifyWatchers(key);
         }, "DEL", key);
         
-        client.sendResponse(Resp.bulkString(val), new String(val, StandardCharsets.UTF_8));
+        client.sendResponse(Resp.bulkString(val), new String(val, ByteStrings.CHARSET));
     }
 }
@@ -7,7 +7,7 @@ import core.db.ValueEntry;
 import core.network.ClientHandler;
 import core.protocol.Resp;
 import core.server.WriteSequencer;
-import java.nio.charset.StandardCharsets;
+import core.utils.ByteStrings;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -19,17 +19,17 @@ public class GetExCommand implements Command {
             return;
         }
 
-        String key = new String(args.get(1), StandardCharsets.UTF_8);
+        String key = new String(args.get(1), ByteStrings.CHARSET);
         
         // Parse options
         long expireAt = -2; // -2: no change, -1: persist
         boolean persist = false;
         
         for (int i = 2; i < args.size(); i++) {
-            String opt = new String(args.get(i), StandardCharsets.UTF_8).toUpperCase();
+            String opt = new String(args.get(i), ByteStrings.CHARSET).toUpperCase();
             if (opt.equals("EX") && i + 1 < args.size()) {
                 try {
-                    long sec = Long.parseLong(new String(args.get(++i), StandardCharsets.UTF_8));
+                    long sec = Long.parseLong(new String(args.get(++i), ByteStrings.CHARSET));
                     expireAt = System.currentTimeMillis() + (sec * 1000);
                 } catch (NumberFormatException e) {
                     client.sendError("ERR value is not an integer or out of range");
@@ -37,7 +37,7 @@ public class GetExCommand implements Command {
                 }
             } else if (opt.equals("PX") && i + 1 < args.size()) {
                  try {
-                    long ms = Long.parseLong(new String(args.get(++i), StandardCharsets.UTF_8));
+                    long ms = Long.parseLong(new String(args.get(++i), ByteStrings.CHARSET));
                     expireAt = System.currentTimeMillis() + ms;
                 } catch (NumberFormatException e) {
                     client.sendError("ERR value is not an integer or out of range");
@@ -67,7 +67,7 @@ public class GetExCommand implements Command {
         
         // If no options provided, behave like GET
         if (expireAt == -2 && !persist) {
-            client.sendResponse(Resp.bulkString(val), new String(val, StandardCharsets.UTF_8));
+            client.sendResponse(Resp.bulkString(val), new String(val, ByteStrings.CHARSET));
             return;
         }
         
@@ -76,12 +76,12 @@ public class GetExCommand implements Command {
         // Prepare AOF command
         List<byte[]> aofArgs = new ArrayList<>();
         if (persist) {
-            aofArgs.add("PERSIST".getBytes(StandardCharsets.UTF_8));
-            aofArgs.add(key.getBytes(StandardCharsets.UTF_8));
+            aofArgs.add("PERSIST".getBytes(ByteStrings.CHARSET));
+            aofArgs.add(key.getBytes(ByteStrings.CHARSET));
         } else {
-            aofArgs.add("PEXPIREAT".getBytes(StandardCharsets.UTF_8));
-            aofArgs.add(key.getBytes(StandardCharsets.UTF_8));
-            aofArgs.add(String.valueOf(finalExpireAt).getBytes(StandardCharsets.UTF_8));
+            aofArgs.add("PEXPIREAT".getBytes(ByteStrings.CHARSET));
+            aofArgs.add(key.getBytes(ByteStrings.CHARSET));
+            aofArgs.add(String.valueOf(finalExpireAt).getBytes(ByteStrings.CHARSET));
         }
         byte[] cmdBytes = Resp.array(aofArgs);
 
@@ -92,6 +92,6 @@ public class GetExCommand implements Command {
              }
         }, cmdBytes);
         
-        client.sendResponse(Resp.bulkString(val), new String(val, StandardCharsets.UTF_8));
+        client.sendResponse(Resp.bulkString(val), new String(val, ByteStrings.CHARSET));
     }
 }
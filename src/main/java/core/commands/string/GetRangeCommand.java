@@ -6,8 +6,8 @@ import core.db.DataType;
 import core.db.ValueEntry;
 import core.network.ClientHandler;
 import core.protocol.Resp;
+import core.utils.ByteStrings;
 
-import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 public class GetRangeCommand implements Command {
@@ -18,11 +18,11 @@ public class GetRangeCommand implements Command {
             return;
         }
 
-        String key = new String(args.get(1), StandardCharsets.UTF_8);
+        String key = new String(args.get(1), ByteStrings.CHARSET);
         ValueEntry entry = Carade.db.get(client.dbIndex, key);
 
         if (entry == null) {
-            client.sendResponse(Resp.bulkString("".getBytes(StandardCharsets.UTF_8)), "\"\"");
+            client.sendResponse(Resp.bulkString("".getBytes(ByteStrings.CHARSET)), "\"\"");
             return;
         }
         
@@ -32,8 +32,8 @@ public class GetRangeCommand implements Command {
         }
 
         try {
-            int start = Integer.parseInt(new String(args.get(2), StandardCharsets.UTF_8));
-            int end = Integer.parseInt(new String(args.get(3), StandardCharsets.UTF_8));
+            int start = Integer.parseInt(new String(args.get(2), ByteStrings.CHARSET));
+            int end = Integer.parseInt(new String(args.get(3), ByteStrings.CHARSET));
             
             byte[] val = (byte[]) entry.getValue();
             int len = val.length;
@@ -46,13 +46,13 @@ public class GetRangeCommand implements Command {
             if (end >= len) end = len - 1;
             
             if (start > end || len == 0) {
-                client.sendResponse(Resp.bulkString("".getBytes(StandardCharsets.UTF_8)), "\"\"");
+                client.sendResponse(Resp.bulkString("".getBytes(ByteStrings.CHARSET)), "\"\"");
                 return;
             }
             
             byte[] sub = new byte[end - start + 1];
             System.arraycopy(val, start, sub, 0, sub.length);
-            client.sendResponse(Resp.bulkString(sub), new String(sub, StandardCharsets.UTF_8));
+            client.sendResponse(Resp.bulkString(sub), new String(sub, ByteStrings.CHARSET));
             
         } catch (NumberFormatException e) {
             client.sendError("ERR value is not an integer or out of range");
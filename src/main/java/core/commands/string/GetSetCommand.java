@@ -5,7 +5,7 @@ import core.commands.Command;
 import core.db.DataType;
 import core.db.ValueEntry;
 import core.network.ClientHandler;
-import java.nio.charset.StandardCharsets;
+import core.utils.ByteStrings;
 import java.util.List;
 
 public class GetSetCommand implements Command {
@@ -16,7 +16,7 @@ public class GetSetCommand implements Command {
             return;
         }
 
-        String key = new String(args.get(1), StandardCharsets.UTF_8);
+        String key = new String(args.get(1), ByteStrings.CHARSET);
         byte[] newValue = args.get(2);
         final byte[][] oldValRef = {null};
 
@@ -39,7 +39,7 @@ public class GetSetCommand implements Command {
         if (oldValRef[0] == null) {
             client.sendNull();
         } else {
-            client.sendBulkString(new String(oldValRef[0], StandardCharsets.UTF_8));
+            client.sendBulkString(new String(oldValRef[0], ByteStrings.CHARSET));
         }
     }
 }
\ No newline at end of file
@@ -1,12 +1,13 @@
 package core.commands.string;
 
 import core.Carade;
+import core.commands.Args;
 import core.commands.Command;
 import core.db.DataType;
 import core.db.ValueEntry;
 import core.network.ClientHandler;
 import core.protocol.Resp;
-import java.nio.charset.StandardCharsets;
+import core.utils.ByteStrings;
 import java.util.List;
 
 public class IncrByCommand implements Command {
@@ -18,12 +19,11 @@ public class IncrByCommand implements Command {
         }
 
         Carade.performEvictionIfNeeded();
-        String key = new String(args.get(1), StandardCharsets.UTF_8);
+        String key = Args.string(args, 1);
         final long[] ret = {0};
 
         try {
-            long incr = Long.parseLong(new String(args.get(2), StandardCharsets.UTF_8));
-            String incrStr = new String(args.get(2), StandardCharsets.UTF_8);
+            long incr = Args.parseLong(args, 2);
 
             client.executeWrite(() -> {
                 Carade.db.getStore(client.dbIndex).compute(key, (k, v) -> {
@@ -34,7 +34,7 @@ public class IncrByCommand implements Command {
                         throw new RuntimeException("WRONGTYPE Operation against a key holding the wrong kind of value");
                     } else {
                         try {
-                            val = Long.parseLong(new String((byte[])v.getValue(), StandardCharsets.UTF_8));
+                            val = Long.parseLong(new String((byte[])v.getValue(), ByteStrings.CHARSET));
                         } catch (NumberFormatException e) {
                             throw new RuntimeException("ERR value is not an integer or out of range");
                         }
@@ -43,13 +43,13 @@ public class IncrByCommand implements Command {
                     val += incr;
                     ret[0] = val;
                     
-                    ValueEntry newV = new ValueEntry(String.valueOf(val).getBytes(StandardCharsets.UTF_8), DataType.STRING, -1);
+                    ValueEntry newV = new ValueEntry(String.valueOf(val).getBytes(ByteStrings.CHARSET), DataType.STRING, -1);
                     if (v != null) newV.expireAt = v.expireAt;
                     newV.touch();
                     return newV;
                 });
                 Carade.notifyWatchers(key);
-            }, "INCRBY", key, incrStr);
+            }, "INCRBY", key, incr);
             
             client.sendResponse(Resp.integer(ret[0]), "(integer) " + ret[0]);
         } catch (NumberFormatException e) {
@@ -6,7 +6,7 @@ import core.db.DataType;
 import core.db.ValueEntry;
 import core.network.ClientHandler;
 import core.protocol.Resp;
-import java.nio.charset.StandardCharsets;
+import core.utils.ByteStrings;
 import java.util.List;
 
 public class IncrByFloatCommand implements Command {
@@ -18,12 +18,12 @@ public class IncrByFloatCommand implements Command {
         }
 
         Carade.performEvictionIfNeeded();
-        String key = new String(args.get(1), StandardCharsets.UTF_8);
+        String key = new String(args.get(1), ByteStrings.CHARSET);
         final double[] ret = {0.0};
 
         try {
-            double incr = Double.parseDouble(new String(args.get(2), StandardCharsets.UTF_8));
-            String incrStr = new String(args.get(2), StandardCharsets.UTF_8);
+            double incr = Double.parseDouble(new String(args.get(2), ByteStrings.CHARSET));
+            String incrStr = new String(args.get(2), ByteStrings.CHARSET);
 
             client.executeWrite(() -> {
                 Carade.db.getStore(client.dbIndex).compute(key, (k, v) -> {
@@ -34,7 +34,7 @@ public class IncrByFloatCommand implements Command {
                         throw new RuntimeException("WRONGTYPE Operation against a key holding the wrong kind of value");
                     } else {
                         try {
-                            val = Double.parseDouble(new String((byte[])v.getValue(), StandardCharsets.UTF_8));
+                            val = Double.parseDouble(new String((byte[])v.getValue(), ByteStrings.CHARSET));
                         } catch (NumberFormatException e) {
                             throw new RuntimeException("ERR value is not a valid float");
                         }
@@ -44,7 +44,7 @@ public class IncrByFloatCommand implements Command {
                     ret[0] = val;
                     
                     // Format appropriately? Redis often avoids scientific notation for simple cases, but Double.toString() is okay for MVP
-                    ValueEntry newV = new ValueEntry(String.valueOf(val).getBytes(StandardCharsets.UTF_8), DataType.STRING, -1);
+                    ValueEntry newV = new ValueEntry(String.valueOf(val).getBytes(ByteStrings.CHARSET), DataType.STRING, -1);
                     if (v != null) newV.expireAt = v.expireAt;
                     newV.touch();
                     return newV;
@@ -5,7 +5,7 @@ import core.commands.Command;
 import core.db.DataType;
 import core.db.ValueEntry;
 import core.network.ClientHandler;
-import java.nio.charset.StandardCharsets;
+import core.utils.ByteStrings;
 import java.util.List;
 
 public class LcsCommand implements Command {
@@ -16,12 +16,12 @@ public class LcsCommand implements Command {
             return;
         }
 
-        String key1 = new String(args.get(1), StandardCharsets.UTF_8);
-        String key2 = new String(args.get(2), StandardCharsets.UTF_8);
+        String key1 = new String(args.get(1), ByteStrings.CHARSET);
+        String key2 = new String(args.get(2), ByteStrings.CHARSET);
         boolean lenOnly = false;
         
         if (args.size() > 3) {
-            String opt = new String(args.get(3), StandardCharsets.UTF_8).toUpperCase();
+            String opt = new String(args.get(3), ByteStrings.CHARSET).toUpperCase();
             if (opt.equals("LEN")) {
                 lenOnly = true;
             } 
@@ -36,8 +36,8 @@ public class LcsCommand implements Command {
             return;
         }
         
-        String s1 = (v1 == null) ? "" : new String((byte[])v1.getValue(), StandardCharsets.UTF_8);
-        String s2 = (v2 == null) ? "" : new String((byte[])v2.getValue(), StandardCharsets.UTF_8);
+        String s1 = (v1 == null) ? "" : new String((byte[])v1.getValue(), ByteStrings.CHARSET);
+        String s2 = (v2 == null) ? "" : new String((byte[])v2.getValue(), ByteStrings.CHARSET);
         
         if (lenOnly) {
             int l = computeLcsLen(s1, s2);
@@ -6,7 +6,7 @@ import core.db.DataType;
 import core.db.ValueEntry;
 import core.network.ClientHandler;
 import core.protocol.Resp;
-import java.nio.charset.StandardCharsets;
+import core.utils.ByteStrings;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -20,7 +20,7 @@ public class MGetCommand implements Command {
         if (client.isResp()) {
             List<byte[]> results = new ArrayList<>();
             for (int i = 1; i < args.size(); i++) {
-                String key = new String(args.get(i), StandardCharsets.UTF_8);
+                String key = new String(args.get(i), ByteStrings.CHARSET);
                 ValueEntry entry = Carade.db.get(client.getDbIndex(), key);
                 if (entry == null || entry.type != DataType.STRING) {
                     results.add(null);
@@ -32,12 +32,12 @@ public class MGetCommand implements Command {
         } else {
             List<String> results = new ArrayList<>();
             for (int i = 1; i < args.size(); i++) {
-                String key = new String(args.get(i), StandardCharsets.UTF_8);
+                String key = new String(args.get(i), ByteStrings.CHARSET);
                 ValueEntry entry = Carade.db.get(client.getDbIndex(), key);
                 if (entry == null || entry.type != DataType.STRING) {
                     results.add(null);
                 } else {
-                    results.add(new String((byte[]) entry.getValue(), StandardCharsets.UTF_8));
+                    results.add(new String((byte[]) entry.getValue(), ByteStrings.CHARSET));
                 }
             }
             StringBuilder sb = new StringBuilder();
@@ -5,7 +5,7 @@ import core.commands.Command;
 import core.db.DataType;
 import core.db.ValueEntry;
 import core.network.ClientHandler;
-import java.nio.charset.StandardCharsets;
+import core.utils.ByteStrings;
 import java.util.List;
 
 public class MSetCommand implements Command {
@@ -19,13 +19,13 @@ public class MSetCommand implements Command {
         
         Object[] logArgs = new Object[args.size() - 1];
         for(int i=1; i<args.size(); i++) {
-            if ((i-1) % 2 == 0) logArgs[i-1] = new String(args.get(i), StandardCharsets.UTF_8);
+            if ((i-1) % 2 == 0) logArgs[i-1] = new String(args.get(i), ByteStrings.CHARSET);
             else logArgs[i-1] = args.get(i);
         }
 
         client.executeWrite(() -> {
             for (int i = 1; i < args.size(); i += 2) {
-                String key = new String(args.get(i), StandardCharsets.UTF_8);
+                String key = new String(args.get(i), ByteStrings.CHARSET);
                 byte[] val = args.get(i + 1);
                 Carade.db.put(client.getDbIndex(), key, new ValueEntry(val, DataType.STRING, -1));
                 Carade.notifyWatchers(key);
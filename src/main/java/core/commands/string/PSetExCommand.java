@@ -7,7 +7,7 @@ import core.db.ValueEntry;
 import core.network.ClientHandler;
 import core.protocol.Resp;
 import core.server.WriteSequencer;
-import java.nio.charset.StandardCharsets;
+import core.utils.ByteStrings;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -21,10 +21,10 @@ public class PSetExCommand implements Command {
 
         Carade.performEvictionIfNeeded();
         
-        String key = new String(args.get(1), StandardCharsets.UTF_8);
+        String key = new String(args.get(1), ByteStrings.CHARSET);
         long ms;
         try {
-            ms = Long.parseLong(new String(args.get(2), StandardCharsets.UTF_8));
+            ms = Long.parseLong(new String(args.get(2), ByteStrings.CHARSET));
         } catch (NumberFormatException e) {
             client.sendError("ERR value is not an integer or out of range");
             return;
@@ -39,9 +39,9 @@ public class PSetExCommand implements Command {
         long expireAt = System.currentTimeMillis() + ms;
         
         List<byte[]> aofArgs = new ArrayList<>();
-        aofArgs.add("PSETEX".getBytes(StandardCharsets.UTF_8));
-        aofArgs.add(key.getBytes(StandardCharsets.UTF_8));
-        aofArgs.add(String.valueOf(ms).getBytes(StandardCharsets.UTF_8));
+        aofArgs.add("PSETEX".getBytes(ByteStrings.CHARSET));
+        aofArgs.add(args.get(1));
+        aofArgs.add(String.valueOf(ms).getBytes(ByteStrings.CHARSET));
         aofArgs.add(val);
         
         byte[] cmdBytes = Resp.array(aofArgs);
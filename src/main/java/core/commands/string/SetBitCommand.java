@@ -5,7 +5,7 @@ import core.commands.Command;
 import core.db.DataType;
 import core.db.ValueEntry;
 import core.network.ClientHandler;
-import java.nio.charset.StandardCharsets;
+import core.utils.ByteStrings;
 import java.util.List;
 
 public class SetBitCommand implements Command {
@@ -16,13 +16,13 @@ public class SetBitCommand implements Command {
             return;
         }
         Carade.performEvictionIfNeeded();
-        String key = new String(args.get(1), StandardCharsets.UTF_8);
+        String key = new String(args.get(1), ByteStrings.CHARSET);
         final int[] oldBit = {0};
         try {
-            int offset = Integer.parseInt(new String(args.get(2), StandardCharsets.UTF_8));
-            int val = Integer.parseInt(new String(args.get(3), StandardCharsets.UTF_8));
-            String offsetStr = new String(args.get(2), StandardCharsets.UTF_8);
-            String valStr = new String(args.get(3), StandardCharsets.UTF_8);
+            int offset = Integer.parseInt(new String(args.get(2), ByteStrings.CHARSET));
+            int val = Integer.parseInt(new String(args.get(3), ByteStrings.CHARSET));
+            String offsetStr = new String(args.get(2), ByteStrings.CHARSET);
+            String valStr = new String(args.get(3), ByteStrings.CHARSET);
 
             if (val != 0 && val != 1) {
                 client.sendError("ERR bit is not an integer or out of range");
@@ -1,14 +1,15 @@
 package core.commands.string;
 
 import core.Carade;
+import core.commands.Args;
 import core.commands.Command;
 import core.db.DataType;
 import core.db.ValueEntry;
 import core.network.ClientHandler;
 import core.protocol.Resp;
 import core.server.WriteSequencer;
+import core.utils.ByteStrings;
 
-import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -25,29 +26,28 @@ public class SetCommand implements Command {
         boolean nx = false;
         boolean xx = false;
         
-        String key = new String(args.get(1), StandardCharsets.UTF_8);
+        String key = Args.string(args, 1);
         byte[] val = args.get(2);
         
         // Parse options
         for (int i = 3; i < args.size(); i++) {
-            String arg = new String(args.get(i), StandardCharsets.UTF_8).toUpperCase();
-            if (arg.equals("EX") && i + 1 < args.size()) {
+            if (Args.is(args, i, "EX") && i + 1 < args.size()) {
                  try { 
-                    ttlVal = Long.parseLong(new String(args.get(++i), StandardCharsets.UTF_8)) * 1000 + System.currentTimeMillis(); 
+                    ttlVal = Args.parseLong(args, ++i) * 1000 + System.currentTimeMillis(); 
                 } catch (Exception e) {
                     client.sendError("ERR value is not an integer or out of range");
                     return;
                 }
-            } else if (arg.equals("PX") && i + 1 < args.size()) {
+            } else if (Args.is(args, i, "PX") && i + 1 < args.size()) {
                  try { 
-                    ttlVal = Long.parseLong(new String(args.get(++i), StandardCharsets.UTF_8)) + System.currentTimeMillis(); 
+                    ttlVal = Args.parseLong(args, ++i) + System.currentTimeMillis(); 
                 } catch (Exception e) {
                     client.sendError("ERR value is not an integer or out of range");
                     return;
                 }
-            } else if (arg.equals("NX")) {
+            } else if (Args.is(args, i, "NX")) {
                 nx = true;
-            } else if (arg.equals("XX")) {
+            } else if (Args.is(args, i, "XX")) {
                 xx = true;
             }
         }
@@ -70,14 +70,14 @@ public class SetCommand implements Command {
 
         // Construct AOF args for correct logging
         List<byte[]> aofArgs = new ArrayList<>();
-        aofArgs.add("SET".getBytes(StandardCharsets.UTF_8));
-        aofArgs.add(key.getBytes(StandardCharsets.UTF_8));
+        aofArgs.add("SET".getBytes(ByteStrings.CHARSET));
+        aofArgs.add(args.get(1));
         aofArgs.add(val);
         if (finalTtl != -1) {
             long seconds = (finalTtl - System.currentTimeMillis()) / 1000;
             if (seconds < 0) seconds = 1;
-            aofArgs.add("EX".getBytes(StandardCharsets.UTF_8));
-            aofArgs.add(String.valueOf(seconds).getBytes(StandardCharsets.UTF_8));
+            aofArgs.add("EX".getBytes(ByteStrings.CHARSET));
+            aofArgs.add(String.valueOf(seconds).getBytes(ByteStrings.CHARSET));
         }
         byte[] cmdBytes = Resp.array(aofArgs);
 
@@ -2,9 +2,9 @@ package core.commands.string;
 
 import core.commands.Command;
 import core.network.ClientHandler;
+import core.utils.ByteStrings;
 import java.util.ArrayList;
 import java.util.List;
-import java.nio.charset.StandardCharsets;
 
 public class SetExCommand implements Command {
     @Override
@@ -15,10 +15,10 @@ public class SetExCommand implements Command {
         }
         // SETEX key seconds value -> SET key value EX seconds
         List<byte[]> newArgs = new ArrayList<>();
-        newArgs.add("SET".getBytes(StandardCharsets.UTF_8));
+        newArgs.add("SET".getBytes(ByteStrings.CHARSET));
         newArgs.add(args.get(1)); // key
         newArgs.add(args.get(3)); // value
-        newArgs.add("EX".getBytes(StandardCharsets.UTF_8));
+        newArgs.add("EX".getBytes(ByteStrings.CHARSET));
         newArgs.add(args.get(2)); // seconds
         
         new SetCommand().execute(client, newArgs);
@@ -6,7 +6,8 @@ import core.db.DataType;
 import core.db.ValueEntry;
 import core.network.ClientHandler;
 import core.protocol.Resp;
-import java.nio.charset.StandardCharsets;
+import core.server.WriteSequencer;
+import core.utils.ByteStrings;
 import java.util.List;
 
 public class SetNxCommand implements Command {
@@ -17,7 +18,7 @@ public class SetNxCommand implements Command {
             return;
         }
 
-        String key = new String(args.get(1), StandardCharsets.UTF_8);
+        String key = new String(args.get(1), ByteStrings.CHARSET);
         byte[] val = args.get(2);
 
         if (Carade.db.exists(client.dbIndex, key)) {
@@ -28,7 +29,7 @@ public class SetNxCommand implements Command {
         Carade.performEvictionIfNeeded();
         Carade.db.put(client.dbIndex, key, new ValueEntry(val, DataType.STRING, -1));
         Carade.notifyWatchers(key);
-        Carade.aofHandler.log("SETNX", key, val);
+        WriteSequencer.getInstance().appendAof("SETNX", key, val);
         
         client.sendResponse(Resp.integer(1), "(integer) 1");
     }
@@ -6,8 +6,8 @@ import core.db.DataType;
 import core.db.ValueEntry;
 import core.network.ClientHandler;
 import core.protocol.Resp;
+import core.utils.ByteStrings;
 
-import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 public class SetRangeCommand implements Command {
@@ -18,11 +18,11 @@ public class SetRangeCommand implements Command {
             return;
         }
 
-        String key = new String(args.get(1), StandardCharsets.UTF_8);
+        String key = new String(args.get(1), ByteStrings.CHARSET);
         final int[] ret = {0};
         
         try {
-            int offset = Integer.parseInt(new String(args.get(2), StandardCharsets.UTF_8));
+            int offset = Integer.parseInt(new String(args.get(2), ByteStrings.CHARSET));
             byte[] val = args.get(3);
             
             if (offset < 0) {
@@ -63,7 +63,7 @@ public class SetRangeCommand implements Command {
                     return v;
                 });
                 Carade.notifyWatchers(key);
-            }, "SETRANGE", key, String.valueOf(offset), new String(val, StandardCharsets.UTF_8));
+            }, "SETRANGE", key, String.valueOf(offset), new String(val, ByteStrings.CHARSET));
 
             client.sendResponse(Resp.integer(ret[0]), "(integer) " + ret[0]);
             
@@ -6,6 +6,7 @@ import core.db.DataType;
 import core.db.ValueEntry;
 import core.network.ClientHandler;
 import core.structs.tdigest.TDigest;
+import core.utils.ByteStrings;
 
 import java.util.List;
 
@@ -17,7 +18,7 @@ public class TdAddCommand implements Command {
             return;
         }
 
-        String key = new String(args.get(1));
+        String key = new String(args.get(1), ByteStrings.CHARSET);
         
         client.executeWrite(() -> {
             CaradeDatabase db = CaradeDatabase.getInstance();
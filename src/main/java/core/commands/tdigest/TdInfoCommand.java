@@ -6,8 +6,8 @@ import core.db.DataType;
 import core.db.ValueEntry;
 import core.network.ClientHandler;
 import core.structs.tdigest.TDigest;
+import core.utils.ByteStrings;
 
-import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -19,7 +19,7 @@ public class TdInfoCommand implements Command {
             return;
         }
 
-        String key = new String(args.get(1), StandardCharsets.UTF_8);
+        String key = new String(args.get(1), ByteStrings.CHARSET);
         ValueEntry entry = CaradeDatabase.getInstance().get(client.getDbIndex(), key);
 
         if (entry == null) {
@@ -35,11 +35,11 @@ public class TdInfoCommand implements Command {
         TDigest digest = (TDigest) entry.getValue();
         
         List<Object> info = new ArrayList<>();
-        info.add("Compression".getBytes(StandardCharsets.UTF_8));
-        info.add(String.valueOf(digest.getCompression()).getBytes(StandardCharsets.UTF_8));
-        info.add("Centroids".getBytes(StandardCharsets.UTF_8));
+        info.add("Compression".getBytes(ByteStrings.CHARSET));
+        info.add(String.valueOf(digest.getCompression()).getBytes(ByteStrings.CHARSET));
+        info.add("Centroids".getBytes(ByteStrings.CHARSET));
         info.add((long)digest.centroidCount()); 
-        info.add("Count".getBytes(StandardCharsets.UTF_8));
+        info.add("Count".getBytes(ByteStrings.CHARSET));
         info.add(digest.size()); 
         
         client.sendMixedArray(info);
@@ -6,8 +6,8 @@ import core.db.DataType;
 import core.db.ValueEntry;
 import core.network.ClientHandler;
 import core.structs.tdigest.TDigest;
+import core.utils.ByteStrings;
 
-import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -19,7 +19,7 @@ public class TdQuantileCommand implements Command {
             return;
         }
 
-        String key = new String(args.get(1), StandardCharsets.UTF_8);
+        String key = new String(args.get(1), ByteStrings.CHARSET);
         
         client.executeWrite(() -> {
             ValueEntry entry = CaradeDatabase.getInstance().get(client.getDbIndex(), key);
@@ -39,14 +39,14 @@ public class TdQuantileCommand implements Command {
 
             for (int i = 2; i < args.size(); i++) {
                 try {
-                    double q = Double.parseDouble(new String(args.get(i), StandardCharsets.UTF_8));
+                    double q = Double.parseDouble(new String(args.get(i), ByteStrings.CHARSET));
                     if (q < 0 || q > 1) {
                         client.sendError("ERR quantile out of range");
                         return;
                     }
                     double val = digest.quantile(q);
                     // Use standard string representation
-                    results.add(String.valueOf(val).getBytes(StandardCharsets.UTF_8));
+                    results.add(String.valueOf(val).getBytes(ByteStrings.CHARSET));
                 } catch (NumberFormatException e) {
                     client.sendError("ERR value is not a valid float");
                     return;
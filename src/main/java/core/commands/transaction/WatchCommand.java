@@ -2,7 +2,7 @@ package core.commands.transaction;
 
 import core.commands.Command;
 import core.network.ClientHandler;
-import java.nio.charset.StandardCharsets;
+import core.utils.ByteStrings;
 import java.util.List;
 
 public class WatchCommand implements Command {
@@ -15,7 +15,7 @@ public class WatchCommand implements Command {
                 client.sendError("usage: WATCH key [key ...]");
             } else {
                 for (int i = 1; i < args.size(); i++) {
-                    String key = new String(args.get(i), StandardCharsets.UTF_8);
+                    String key = new String(args.get(i), ByteStrings.CHARSET);
                     client.addWatch(key);
                 }
                 client.sendSimpleString("OK");
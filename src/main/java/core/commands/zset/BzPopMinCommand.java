@@ -8,7 +8,7 @@ import core.network.ClientHandler;
 import core.structs.CaradeZSet;
 import core.structs.ZNode;
 import core.protocol.Resp;
-import java.nio.charset.StandardCharsets;
+import core.utils.ByteStrings;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -24,7 +24,7 @@ public class BzPopMinCommand implements Command {
 
         double timeout = 0;
         try {
-            timeout = Double.parseDouble(new String(args.get(args.size() - 1), StandardCharsets.UTF_8));
+            timeout = Double.parseDouble(new String(args.get(args.size() - 1), ByteStrings.CHARSET));
         } catch (NumberFormatException e) {
             client.sendError("ERR timeout is not a float or out of range");
             return;
@@ -32,7 +32,7 @@ public class BzPopMinCommand implements Command {
 
         List<String> keys = new ArrayList<>();
         for (int i = 1; i < args.size() - 1; i++) {
-            keys.add(new String(args.get(i), StandardCharsets.UTF_8));
+            keys.add(new String(args.get(i), ByteStrings.CHARSET));
         }
 
         boolean served = false;
@@ -63,9 +63,9 @@ public class BzPopMinCommand implements Command {
                      if (nodeRef[0] != null) {
                          if (client.isResp()) {
                              client.send(true, Resp.array(Arrays.asList(
-                                 finalKey.getBytes(StandardCharsets.UTF_8),
-                                 nodeRef[0].member.getBytes(StandardCharsets.UTF_8),
-                                 String.valueOf(nodeRef[0].score).getBytes(StandardCharsets.UTF_8)
+                                 finalKey.getBytes(ByteStrings.CHARSET),
+                                 nodeRef[0].member.getBytes(ByteStrings.CHARSET),
+                                 String.valueOf(nodeRef[0].score).getBytes(ByteStrings.CHARSET)
                              )), null);
                          } else {
                               client.send(false, null, "1) \"" + finalKey + "\"\n2) \"" + nodeRef[0].member + "\"\n3) \"" + nodeRef[0].score + "\"");
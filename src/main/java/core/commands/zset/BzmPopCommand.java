@@ -8,7 +8,7 @@ import core.network.ClientHandler;
 import core.structs.CaradeZSet;
 import core.structs.ZNode;
 import core.protocol.Resp;
-import java.nio.charset.StandardCharsets;
+import core.utils.ByteStrings;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.ConcurrentLinkedQueue;
@@ -23,8 +23,8 @@ public class BzmPopCommand implements Command {
         }
 
         try {
-            double timeout = Double.parseDouble(new String(args.get(1), StandardCharsets.UTF_8));
-            int numKeys = Integer.parseInt(new String(args.get(2), StandardCharsets.UTF_8));
+            double timeout = Double.parseDouble(new String(args.get(1), ByteStrings.CHARSET));
+            int numKeys = Integer.parseInt(new String(args.get(2), ByteStrings.CHARSET));
             
             if (numKeys <= 0) {
                  client.sendError("ERR numkeys must be positive");
@@ -37,10 +37,10 @@ public class BzmPopCommand implements Command {
             
             List<String> keys = new ArrayList<>();
             for (int i = 0; i < numKeys; i++) {
-                keys.add(new String(args.get(3 + i), StandardCharsets.UTF_8));
+                keys.add(new String(args.get(3 + i), ByteStrings.CHARSET));
             }
             
-            String direction = new String(args.get(3 + numKeys), StandardCharsets.UTF_8).toUpperCase();
+            String direction = new String(args.get(3 + numKeys), ByteStrings.CHARSET).toUpperCase();
             if (!direction.equals("MIN") && !direction.equals("MAX")) {
                 client.sendError("ERR syntax error");
                 return;
@@ -49,13 +49,13 @@ public class BzmPopCommand implements Command {
 
             int count = 1;
             if (args.size() > 3 + numKeys + 1) {
-                String nextArg = new String(args.get(3 + numKeys + 1), StandardCharsets.UTF_8).toUpperCase();
+                String nextArg = new String(args.get(3 + numKeys + 1), ByteStrings.CHARSET).toUpperCase();
                 if (nextArg.equals("COUNT")) {
                      if (args.size() <= 3 + numKeys + 2) {
                          client.sendError("ERR syntax error");
                          return;
                      }
-                     count = Integer.parseInt(new String(args.get(3 + numKeys + 2), StandardCharsets.UTF_8));
+                     count = Integer.parseInt(new String(args.get(3 + numKeys + 2), ByteStrings.CHARSET));
                 }
             }
 
@@ -91,12 +91,12 @@ public class BzmPopCommand implements Command {
                 }, "BZMPOP", targetKey, String.valueOf(count), direction);
                 
                 List<byte[]> resp = new ArrayList<>();
-                resp.add(finalKey.getBytes(StandardCharsets.UTF_8));
+                resp.add(finalKey.getBytes(ByteStrings.CHARSET));
                 List<byte[]> elements = new ArrayList<>();
                 for (ZNode node : popped) {
                     List<byte[]> pair = new ArrayList<>();
-                    pair.add(node.member.getBytes(StandardCharsets.UTF_8));
-                    pair.add(String.valueOf(node.score).getBytes(StandardCharsets.UTF_8));
+                    pair.add(node.member.getBytes(ByteStrings.CHARSET));
+                    pair.add(String.valueOf(node.score).getBytes(ByteStrings.CHARSET));
                     elements.add(Resp.array(pair));
                 }
                 resp.add(Resp.array(elements));
@@ -6,7 +6,7 @@ import core.db.DataType;
 import core.db.ValueEntry;
 import core.network.ClientHandler;
 import core.structs.CaradeZSet;
-import java.nio.charset.StandardCharsets;
+import core.utils.ByteStrings;
 import java.util.List;
 
 public class ZAddCommand implements Command {
@@ -18,12 +18,12 @@ public class ZAddCommand implements Command {
         }
 
         Carade.performEvictionIfNeeded();
-        String key = new String(args.get(1), StandardCharsets.UTF_8);
+        String key = new String(args.get(1), ByteStrings.CHARSET);
         final int[] addedCount = {0};
         
         try {
             String[] cmdArgs = new String[args.size()-1];
-            for(int i=1; i<args.size(); i++) cmdArgs[i-1] = new String(args.get(i), StandardCharsets.UTF_8);
+            for(int i=1; i<args.size(); i++) cmdArgs[i-1] = new String(args.get(i), ByteStrings.CHARSET);
             
             client.executeWrite(() -> {
                 Carade.db.getStore(client.getDbIndex()).compute(key, (k, v) -> {
@@ -39,8 +39,8 @@ public class ZAddCommand implements Command {
                     
                     for (int i = 2; i < args.size(); i += 2) {
                         try {
-                            double score = Double.parseDouble(new String(args.get(i), StandardCharsets.UTF_8));
-                            String member = new String(args.get(i+1), StandardCharsets.UTF_8);
+                            double score = Double.parseDouble(new String(args.get(i), ByteStrings.CHARSET));
+                            String member = new String(args.get(i+1), ByteStrings.CHARSET);
                             addedCount[0] += zset.add(score, member);
                         } catch (Exception ex) {}
                     }
@@ -7,11 +7,9 @@ import core.db.ValueEntry;
 import core.network.ClientHandler;
 import core.structs.CaradeZSet;
 import core.structs.ZNode;
-import java.nio.charset.StandardCharsets;
+import core.utils.ByteStrings;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.HashSet;
-import java.util.Set;
 
 public class ZDiffCommand implements Command {
     @Override
@@ -23,7 +21,7 @@ public class ZDiffCommand implements Command {
 
         int numKeys;
         try {
-            numKeys = Integer.parseInt(new String(args.get(1), StandardCharsets.UTF_8));
+            numKeys = Integer.parseInt(new String(args.get(1), ByteStrings.CHARSET));
         } catch (NumberFormatException e) {
             client.sendError("ERR value is not an integer or out of range");
             return;
@@ -34,7 +32,7 @@ public class ZDiffCommand implements Command {
 
         boolean withScores = false;
         if (args.size() > 2 + numKeys) {
-            String lastArg = new String(args.get(args.size() - 1), StandardCharsets.UTF_8).toUpperCase();
+            String lastArg = new String(args.get(args.size() - 1), ByteStrings.CHARSET).toUpperCase();
             if (lastArg.equals("WITHSCORES")) {
                 withScores = true;
             } else {
@@ -43,7 +41,7 @@ public class ZDiffCommand implements Command {
             }
         }
 
-        String firstKey = new String(args.get(2), StandardCharsets.UTF_8);
+        String firstKey = new String(args.get(2), ByteStrings.CHARSET);
         ValueEntry v = Carade.db.get(client.getDbIndex(), firstKey);
         
         // ZDIFF: Elements in first set that are NOT in others.
@@ -57,33 +55,38 @@ public class ZDiffCommand implements Command {
         CaradeZSet firstZSet = (CaradeZSet) v.getValue();
         
         // We can copy the first set logic, then remove elements present in others.
-        // Since we need to output ordered result (by score), we can iterate firstZSet.sorted
+        // Since we need to output ordered result (by score), we can iterate firstZSet
         // and check if member exists in others.
         
         List<byte[]> result = new ArrayList<>();
         
-        // Build exclusion set from other keys
-        // We only care about member presence for diff.
-        Set<String> exclusion = new HashSet<>();
+        // Other keys: we only care about member presence for diff.
+        List<CaradeZSet> others = new ArrayList<>();
         
         for (int i = 1; i < numKeys; i++) {
-             String key = new String(args.get(2 + i), StandardCharsets.UTF_8);
+             String key = new String(args.get(2 + i), ByteStrings.CHARSET);
              ValueEntry ev = Carade.db.get(client.getDbIndex(), key);
              if (ev != null && ev.type == DataType.ZSET) {
-                 CaradeZSet z = (CaradeZSet) ev.getValue();
-                 exclusion.addAll(z.scores.keySet());
+                 others.add((CaradeZSet) ev.getValue());
              }
         }
         
-        for (ZNode node : firstZSet.sorted) {
-            if (!exclusion.contains(node.member)) {
-                result.add(node.member.getBytes(StandardCharsets.UTF_8));
+        for (ZNode node : firstZSet) {
+            if (!excluded(others, node.member)) {
+                result.add(node.member.getBytes(ByteStrings.CHARSET));
                 if (withScores) {
-                    result.add(String.valueOf(node.score).getBytes(StandardCharsets.UTF_8));
+                    result.add(String.valueOf(node.score).getBytes(ByteStrings.CHARSET));
                 }
             }
         }
         
         client.sendArray(result);
     }
+
+    static boolean excluded(List<CaradeZSet> others, String member) {
+        for (CaradeZSet z : others) {
+            if (z.contains(member)) return true;
+        }
+        return false;
+    }
 }
@@ -7,10 +7,9 @@ import core.db.ValueEntry;
 import core.network.ClientHandler;
 import core.structs.CaradeZSet;
 import core.structs.ZNode;
-import java.nio.charset.StandardCharsets;
+import core.utils.ByteStrings;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Set;
-import java.util.HashSet;
 
 public class ZDiffStoreCommand implements Command {
     @Override
@@ -20,10 +19,10 @@ public class ZDiffStoreCommand implements Command {
             return;
         }
 
-        String destKey = new String(args.get(1), StandardCharsets.UTF_8);
+        String destKey = new String(args.get(1), ByteStrings.CHARSET);
         int numKeys;
         try {
-            numKeys = Integer.parseInt(new String(args.get(2), StandardCharsets.UTF_8));
+            numKeys = Integer.parseInt(new String(args.get(2), ByteStrings.CHARSET));
         } catch (NumberFormatException e) {
             client.sendError("ERR value is not an integer or out of range");
             return;
@@ -34,11 +33,11 @@ public class ZDiffStoreCommand implements Command {
             return;
         }
 
-        String firstKey = new String(args.get(3), StandardCharsets.UTF_8);
+        String firstKey = new String(args.get(3), ByteStrings.CHARSET);
         
         // Log args for AOF
         Object[] logArgs = new Object[args.size()-1];
-        for(int i=1; i<args.size(); i++) logArgs[i-1] = new String(args.get(i), StandardCharsets.UTF_8);
+        for(int i=1; i<args.size(); i++) logArgs[i-1] = new String(args.get(i), ByteStrings.CHARSET);
         
         client.executeWrite(() -> {
             ValueEntry v = Carade.db.get(client.getDbIndex(), firstKey);
@@ -50,30 +49,29 @@ public class ZDiffStoreCommand implements Command {
             }
             
             CaradeZSet firstZSet = (CaradeZSet) v.getValue();
-            Set<String> exclusion = new HashSet<>();
+            List<CaradeZSet> others = new ArrayList<>();
             
             for (int i = 1; i < numKeys; i++) {
-                 String key = new String(args.get(3 + i), StandardCharsets.UTF_8);
+                 String key = new String(args.get(3 + i), ByteStrings.CHARSET);
                  ValueEntry ev = Carade.db.get(client.getDbIndex(), key);
                  if (ev != null && ev.type == DataType.ZSET) {
-                     CaradeZSet z = (CaradeZSet) ev.getValue();
-                     exclusion.addAll(z.scores.keySet());
+                     others.add((CaradeZSet) ev.getValue());
                  }
             }
             
             CaradeZSet newZSet = new CaradeZSet();
-            for (ZNode node : firstZSet.sorted) {
-                if (!exclusion.contains(node.member)) {
+            for (ZNode node : firstZSet) {
+                if (!ZDiffCommand.excluded(others, node.member)) {
                     newZSet.add(node.score, node.member);
                 }
             }
             
-            if (newZSet.scores.isEmpty()) {
+            if (newZSet.isEmpty()) {
                 Carade.db.remove(client.getDbIndex(), destKey);
                 client.sendInteger(0);
             } else {
                 Carade.db.put(client.getDbIndex(), destKey, new ValueEntry(newZSet, DataType.ZSET, -1));
-                client.sendInteger(newZSet.scores.size());
+                client.sendInteger(newZSet.size());
             }
             
         }, "ZDIFFSTORE", logArgs);
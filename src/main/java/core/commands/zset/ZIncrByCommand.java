@@ -6,7 +6,7 @@ import core.db.DataType;
 import core.db.ValueEntry;
 import core.network.ClientHandler;
 import core.structs.CaradeZSet;
-import java.nio.charset.StandardCharsets;
+import core.utils.ByteStrings;
 import java.util.List;
 
 public class ZIncrByCommand implements Command {
@@ -17,12 +17,12 @@ public class ZIncrByCommand implements Command {
             return;
         }
         Carade.performEvictionIfNeeded();
-        String key = new String(args.get(1), StandardCharsets.UTF_8);
-        String member = new String(args.get(3), StandardCharsets.UTF_8);
+        String key = new String(args.get(1), ByteStrings.CHARSET);
+        String member = new String(args.get(3), ByteStrings.CHARSET);
         final double[] ret = {0.0};
         try {
-            double incr = Double.parseDouble(new String(args.get(2), StandardCharsets.UTF_8));
-            String incrStr = new String(args.get(2), StandardCharsets.UTF_8);
+            double incr = Double.parseDouble(new String(args.get(2), ByteStrings.CHARSET));
+            String incrStr = new String(args.get(2), ByteStrings.CHARSET);
             
             client.executeWrite(() -> {
                 Carade.db.getStore(client.getDbIndex()).compute(key, (k, v) -> {
@@ -6,7 +6,8 @@ import core.db.DataType;
 import core.db.ValueEntry;
 import core.network.ClientHandler;
 import core.structs.CaradeZSet;
-import java.nio.charset.StandardCharsets;
+import core.structs.ZNode;
+import core.utils.ByteStrings;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -20,7 +21,7 @@ public class ZInterCardCommand implements Command {
 
         int numKeys;
         try {
-            numKeys = Integer.parseInt(new String(args.get(1), StandardCharsets.UTF_8));
+            numKeys = Integer.parseInt(new String(args.get(1), ByteStrings.CHARSET));
         } catch (NumberFormatException e) {
             client.sendError("ERR value is not an integer or out of range");
             return;
@@ -32,14 +33,14 @@ public class ZInterCardCommand implements Command {
                 client.sendError("ERR syntax error");
                 return;
             }
-            keys.add(new String(args.get(2 + i), StandardCharsets.UTF_8));
+            keys.add(new String(args.get(2 + i), ByteStrings.CHARSET));
         }
         
         long limit = 0; // 0 means unlimited
         if (args.size() > 2 + numKeys) {
-             if (args.size() == 4 + numKeys && new String(args.get(2 + numKeys), StandardCharsets.UTF_8).equalsIgnoreCase("LIMIT")) {
+             if (args.size() == 4 + numKeys && new String(args.get(2 + numKeys), ByteStrings.CHARSET).equalsIgnoreCase("LIMIT")) {
                  try {
-                     limit = Long.parseLong(new String(args.get(3 + numKeys), StandardCharsets.UTF_8));
+                     limit = Long.parseLong(new String(args.get(3 + numKeys), ByteStrings.CHARSET));
                  } catch (NumberFormatException e) {
                      client.sendError("ERR value is not an integer or out of range");
                      return;
@@ -62,12 +63,12 @@ public class ZInterCardCommand implements Command {
                 return;
             }
             CaradeZSet z = (CaradeZSet) v.getValue();
-            if (z.scores.isEmpty()) {
+            if (z.isEmpty()) {
                 client.sendInteger(0);
                 return;
             }
-            if (z.scores.size() < smallestSize) {
-                smallestSize = z.scores.size();
+            if (z.size() < smallestSize) {
+                smallestSize = z.size();
                 smallest = z;
             }
         }
@@ -78,12 +79,13 @@ public class ZInterCardCommand implements Command {
         }
         
         int intersectCount = 0;
-        for (String member : smallest.scores.keySet()) {
+        for (ZNode node : smallest) {
+            String member = node.member;
             boolean presentInAll = true;
             for (String key : keys) {
                 ValueEntry v = Carade.db.get(client.getDbIndex(), key);
                 CaradeZSet z = (CaradeZSet) v.getValue();
-                if (!z.scores.containsKey(member)) {
+                if (!z.contains(member)) {
                     presentInAll = false;
                     break;
                 }
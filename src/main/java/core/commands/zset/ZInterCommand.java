@@ -7,7 +7,7 @@ import core.db.ValueEntry;
 import core.network.ClientHandler;
 import core.structs.CaradeZSet;
 import core.structs.ZNode;
-import java.nio.charset.StandardCharsets;
+import core.utils.ByteStrings;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -23,7 +23,7 @@ public class ZInterCommand implements Command {
 
         int numKeys;
         try {
-            numKeys = Integer.parseInt(new String(args.get(1), StandardCharsets.UTF_8));
+            numKeys = Integer.parseInt(new String(args.get(1), ByteStrings.CHARSET));
         } catch (NumberFormatException e) {
             client.sendError("ERR value is not an integer or out of range");
             return;
@@ -35,7 +35,7 @@ public class ZInterCommand implements Command {
                 client.sendError("ERR syntax error");
                 return;
             }
-            keys.add(new String(args.get(2 + i), StandardCharsets.UTF_8));
+            keys.add(new String(args.get(2 + i), ByteStrings.CHARSET));
         }
 
         // Parse options
@@ -45,7 +45,7 @@ public class ZInterCommand implements Command {
         boolean withScores = false;
 
         while (currentArg < args.size()) {
-            String arg = new String(args.get(currentArg), StandardCharsets.UTF_8).toUpperCase();
+            String arg = new String(args.get(currentArg), ByteStrings.CHARSET).toUpperCase();
             if (arg.equals("WEIGHTS")) {
                 currentArg++;
                 for (int i = 0; i < numKeys; i++) {
@@ -54,7 +54,7 @@ public class ZInterCommand implements Command {
                         return;
                     }
                     try {
-                        weights.add(Double.parseDouble(new String(args.get(currentArg), StandardCharsets.UTF_8)));
+                        weights.add(Double.parseDouble(new String(args.get(currentArg), ByteStrings.CHARSET)));
                     } catch (NumberFormatException e) {
                         client.sendError("ERR weight value is not a float");
                         return;
@@ -67,7 +67,7 @@ public class ZInterCommand implements Command {
                     client.sendError("ERR syntax error");
                     return;
                 }
-                aggregate = new String(args.get(currentArg), StandardCharsets.UTF_8).toUpperCase();
+                aggregate = new String(args.get(currentArg), ByteStrings.CHARSET).toUpperCase();
                 currentArg++;
             } else if (arg.equals("WITHSCORES")) {
                 withScores = true;
@@ -102,23 +102,23 @@ public class ZInterCommand implements Command {
             }
             
             CaradeZSet zset = (CaradeZSet) v.getValue();
-            if (zset.scores.isEmpty()) {
+            if (zset.isEmpty()) {
                 client.sendArray(new ArrayList<>());
                 return;
             }
             
             if (first) {
-                for (Map.Entry<String, Double> entry : zset.scores.entrySet()) {
-                    finalMap.put(entry.getKey(), entry.getValue() * weight);
+                for (ZNode node : zset) {
+                    finalMap.put(node.member, node.score * weight);
                 }
                 first = false;
             } else {
                 Map<String, Double> nextMap = new HashMap<>();
-                for (Map.Entry<String, Double> entry : zset.scores.entrySet()) {
-                    String member = entry.getKey();
+                for (ZNode node : zset) {
+                    String member = node.member;
                     if (finalMap.containsKey(member)) {
                         double oldScore = finalMap.get(member);
-                        double newScore = entry.getValue() * weight;
+                        double newScore = node.score * weight;
                         
                         if (aggregate.equals("SUM")) {
                             nextMap.put(member, oldScore + newScore);
@@ -141,10 +141,10 @@ public class ZInterCommand implements Command {
         }
         
         List<byte[]> result = new ArrayList<>();
-        for (ZNode node : resultZSet.sorted) {
-            result.add(node.member.getBytes(StandardCharsets.UTF_8));
+        for (ZNode node : resultZSet) {
+            result.add(node.member.getBytes(ByteStrings.CHARSET));
             if (withScores) {
-                result.add(String.valueOf(node.score).getBytes(StandardCharsets.UTF_8));
+                result.add(String.valueOf(node.score).getBytes(ByteStrings.CHARSET));
             }
         }
         
@@ -6,7 +6,8 @@ import core.db.DataType;
 import core.db.ValueEntry;
 import core.network.ClientHandler;
 import core.structs.CaradeZSet;
-import java.nio.charset.StandardCharsets;
+import core.structs.ZNode;
+import core.utils.ByteStrings;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -22,8 +23,8 @@ public class ZInterStoreCommand implements Command {
         }
         
         try {
-            String dest = new String(args.get(1), StandardCharsets.UTF_8);
-            int numKeys = Integer.parseInt(new String(args.get(2), StandardCharsets.UTF_8));
+            String dest = new String(args.get(1), ByteStrings.CHARSET);
+            int numKeys = Integer.parseInt(new String(args.get(2), ByteStrings.CHARSET));
             if (numKeys < 1) {
                 client.sendError("ERR at least 1 input key is needed for ZINTERSTORE");
                 return;
@@ -32,7 +33,7 @@ public class ZInterStoreCommand implements Command {
             List<String> srcKeys = new ArrayList<>();
             for(int i=0; i<numKeys; i++) {
                 if (3+i >= args.size()) throw new IndexOutOfBoundsException();
-                srcKeys.add(new String(args.get(3+i), StandardCharsets.UTF_8));
+                srcKeys.add(new String(args.get(3+i), ByteStrings.CHARSET));
             }
             
             int nextArg = 3 + numKeys;
@@ -40,15 +41,15 @@ public class ZInterStoreCommand implements Command {
             String aggregate = "SUM";
             
             while(nextArg < args.size()) {
-                String arg = new String(args.get(nextArg++), StandardCharsets.UTF_8).toUpperCase();
+                String arg = new String(args.get(nextArg++), ByteStrings.CHARSET).toUpperCase();
                 if (arg.equals("WEIGHTS")) {
                     for(int i=0; i<numKeys; i++) {
                         if (nextArg >= args.size()) throw new IllegalArgumentException("ERR syntax error");
-                        weights.add(Double.parseDouble(new String(args.get(nextArg++), StandardCharsets.UTF_8)));
+                        weights.add(Double.parseDouble(new String(args.get(nextArg++), ByteStrings.CHARSET)));
                     }
                 } else if (arg.equals("AGGREGATE")) {
                     if (nextArg >= args.size()) throw new IllegalArgumentException("ERR syntax error");
-                    aggregate = new String(args.get(nextArg++), StandardCharsets.UTF_8).toUpperCase();
+                    aggregate = new String(args.get(nextArg++), ByteStrings.CHARSET).toUpperCase();
                 }
             }
             if (weights.isEmpty()) for(int i=0; i<numKeys; i++) weights.add(1.0);
@@ -58,7 +59,7 @@ public class ZInterStoreCommand implements Command {
             
             // Serialize args roughly
             Object[] cmdArgs = new Object[args.size()-1];
-            for(int i=1; i<args.size(); i++) cmdArgs[i-1] = new String(args.get(i), StandardCharsets.UTF_8);
+            for(int i=1; i<args.size(); i++) cmdArgs[i-1] = new String(args.get(i), ByteStrings.CHARSET);
 
             final List<Double> finalWeights = weights;
             
@@ -69,8 +70,8 @@ public class ZInterStoreCommand implements Command {
                 ValueEntry e = Carade.db.get(client.getDbIndex(), srcKeys.get(0));
                 if (e != null && e.type == DataType.ZSET) {
                     CaradeZSet zs = (CaradeZSet) e.getValue();
-                    for(Map.Entry<String, Double> entry : zs.scores.entrySet()) {
-                        finalScores.put(entry.getKey(), entry.getValue() * finalWeights.get(0));
+                    for(ZNode node : zs) {
+                        finalScores.put(node.member, node.score * finalWeights.get(0));
                     }
                 }
                 
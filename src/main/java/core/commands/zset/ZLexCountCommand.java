@@ -6,10 +6,8 @@ import core.db.DataType;
 import core.db.ValueEntry;
 import core.network.ClientHandler;
 import core.structs.CaradeZSet;
-import core.structs.ZNode;
-import java.nio.charset.StandardCharsets;
+import core.utils.ByteStrings;
 import java.util.List;
-import java.util.NavigableSet;
 
 public class ZLexCountCommand implements Command {
     @Override
@@ -19,9 +17,9 @@ public class ZLexCountCommand implements Command {
             return;
         }
 
-        String key = new String(args.get(1), StandardCharsets.UTF_8);
-        String min = new String(args.get(2), StandardCharsets.UTF_8);
-        String max = new String(args.get(3), StandardCharsets.UTF_8);
+        String key = new String(args.get(1), ByteStrings.CHARSET);
+        String min = new String(args.get(2), ByteStrings.CHARSET);
+        String max = new String(args.get(3), ByteStrings.CHARSET);
 
         ValueEntry v = Carade.db.get(client.getDbIndex(), key);
         if (v == null) {
@@ -36,54 +34,13 @@ public class ZLexCountCommand implements Command {
         CaradeZSet zset = (CaradeZSet) v.getValue();
 
         try {
-            ZNode minNode;
-            boolean minInc = true;
-            if (min.equals("-")) {
-                minNode = new ZNode(Double.NEGATIVE_INFINITY, "");
-            } else if (min.equals("+")) {
-                minNode = new ZNode(Double.POSITIVE_INFINITY, "");
-            } else {
-                if (!min.startsWith("(") && !min.startsWith("[")) {
-                     client.sendError("ERR min or max not valid string range item");
-                     return;
-                }
-                minInc = min.startsWith("[");
-                minNode = new ZNode(0, min.substring(1));
+            CaradeZSet.LexRange range = CaradeZSet.LexRange.parse(min, max);
+            if (range == null) {
+                client.sendError("ERR min or max not valid string range item");
+                return;
             }
             
-            ZNode maxNode;
-            boolean maxInc = true;
-            if (max.equals("+")) {
-                maxNode = new ZNode(Double.POSITIVE_INFINITY, "");
-            } else if (max.equals("-")) {
-                maxNode = new ZNode(Double.NEGATIVE_INFINITY, "");
-            } else {
-                if (!max.startsWith("(") && !max.startsWith("[")) {
-                     client.sendError("ERR min or max not valid string range item");
-                     return;
-                }
-                maxInc = max.startsWith("[");
-                maxNode = new ZNode(0, max.substring(1));
-            }
-            
-            NavigableSet<ZNode> subset;
-            if (minNode.score == Double.NEGATIVE_INFINITY && maxNode.score == Double.POSITIVE_INFINITY) {
-                subset = zset.sorted;
-            } else if (minNode.score == Double.NEGATIVE_INFINITY) {
-                subset = zset.sorted.headSet(maxNode, maxInc);
-            } else if (maxNode.score == Double.POSITIVE_INFINITY) {
-                subset = zset.sorted.tailSet(minNode, minInc);
-            } else {
-                try {
-                    subset = zset.sorted.subSet(minNode, minInc, maxNode, maxInc);
-                } catch (IllegalArgumentException e) {
-                    // Start > End
-                    client.sendInteger(0);
-                    return;
-                }
-            }
-            
-            client.sendInteger(subset.size());
+            client.sendInteger(zset.rangeByLex(range).size());
             
         } catch (IllegalArgumentException e) {
             client.sendError("ERR " + e.getMessage());
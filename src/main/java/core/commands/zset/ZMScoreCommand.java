@@ -6,7 +6,7 @@ import core.db.DataType;
 import core.db.ValueEntry;
 import core.network.ClientHandler;
 import core.structs.CaradeZSet;
-import java.nio.charset.StandardCharsets;
+import core.utils.ByteStrings;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -18,7 +18,7 @@ public class ZMScoreCommand implements Command {
             return;
         }
         
-        String key = new String(args.get(1), StandardCharsets.UTF_8);
+        String key = new String(args.get(1), ByteStrings.CHARSET);
         ValueEntry entry = Carade.db.get(client.getDbIndex(), key);
         
         // Prepare response list
@@ -37,7 +37,7 @@ public class ZMScoreCommand implements Command {
         } else {
             CaradeZSet zset = (CaradeZSet) entry.getValue();
             for (int i = 2; i < args.size(); i++) {
-                String member = new String(args.get(i), StandardCharsets.UTF_8);
+                String member = new String(args.get(i), ByteStrings.CHARSET);
                 Double score = zset.score(member);
                 if (score == null) {
                     response.add(null);
@@ -48,7 +48,7 @@ public class ZMScoreCommand implements Command {
                     } else {
                         s = String.valueOf(score);
                     }
-                    response.add(s.getBytes(StandardCharsets.UTF_8));
+                    response.add(s.getBytes(ByteStrings.CHARSET));
                 }
             }
         }
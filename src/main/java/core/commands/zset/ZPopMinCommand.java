@@ -7,7 +7,7 @@ import core.db.ValueEntry;
 import core.network.ClientHandler;
 import core.structs.CaradeZSet;
 import core.structs.ZNode;
-import java.nio.charset.StandardCharsets;
+import core.utils.ByteStrings;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -18,11 +18,11 @@ public class ZPopMinCommand implements Command {
             client.sendError("usage: ZPOPMIN key [count]");
             return;
         }
-        String key = new String(args.get(1), StandardCharsets.UTF_8);
+        String key = new String(args.get(1), ByteStrings.CHARSET);
         int count = 1;
         if (args.size() > 2) {
             try {
-                count = Integer.parseInt(new String(args.get(2), StandardCharsets.UTF_8));
+                count = Integer.parseInt(new String(args.get(2), ByteStrings.CHARSET));
             } catch (NumberFormatException e) {
                 client.sendError("ERR value is not an integer or out of range");
                 return;
@@ -38,10 +38,10 @@ public class ZPopMinCommand implements Command {
                  CaradeZSet zset = (CaradeZSet) entry.getValue();
                  List<ZNode> popped = zset.popMin(finalCount);
                  for (ZNode node : popped) {
-                     result.add(node.member.getBytes(StandardCharsets.UTF_8));
+                     result.add(node.member.getBytes(ByteStrings.CHARSET));
                      String s = String.valueOf(node.score);
                      if (s.endsWith(".0")) s = s.substring(0, s.length()-2);
-                     result.add(s.getBytes(StandardCharsets.UTF_8));
+                     result.add(s.getBytes(ByteStrings.CHARSET));
                  }
                  if (!popped.isEmpty()) Carade.notifyWatchers(key);
                  if (zset.size() == 0) Carade.db.remove(client.getDbIndex(), key);
@@ -7,9 +7,11 @@ import core.db.ValueEntry;
 import core.network.ClientHandler;
 import core.protocol.Resp;
 import core.structs.CaradeZSet;
+import core.structs.ZNode;
+import core.utils.ByteStrings;
 
-import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
 
 public class ZRandMemberCommand implements Command {
     @Override
@@ -19,7 +21,7 @@ public class ZRandMemberCommand implements Command {
             return;
         }
         
-        String key = new String(args.get(1), StandardCharsets.UTF_8);
+        String key = new String(args.get(1), ByteStrings.CHARSET);
         ValueEntry entry = Carade.db.get(client.dbIndex, key);
         
         if (entry == null) {
@@ -44,7 +46,7 @@ public class ZRandMemberCommand implements Command {
         
         if (args.size() > 2) {
             try {
-                String countStr = new String(args.get(2), StandardCharsets.UTF_8);
+                String countStr = new String(args.get(2), ByteStrings.CHARSET);
                 // check if arg 2 is "WITHSCORES" (if count is optional? No, syntax is key [count [WITHSCORES]])
                 // Redis docs: ZRANDMEMBER key [count [WITHSCORES]]
                 // If 3rd arg exists, it MUST be count. WITHSCORES is 4th, or implied if 3rd is count?
@@ -57,7 +59,7 @@ public class ZRandMemberCommand implements Command {
                 hasCount = true;
                 
                 if (args.size() > 3) {
-                     String opt = new String(args.get(3), StandardCharsets.UTF_8).toUpperCase();
+                     String opt = new String(args.get(3), ByteStrings.CHARSET).toUpperCase();
                      if (opt.equals("WITHSCORES")) {
                          withScores = true;
                      } else {
@@ -73,51 +75,55 @@ public class ZRandMemberCommand implements Command {
             }
         }
         
-        List<String> keys = new ArrayList<>(zset.scores.keySet());
-        
         if (!hasCount) {
             // Return single element (Bulk String)
-            Random rand = new Random();
-            String member = keys.get(rand.nextInt(keys.size()));
-            client.sendBulkString(member);
+            client.sendBulkString(zset.randomMember().member);
             return;
         }
         
         // Count provided -> Return Array
         List<byte[]> result = new ArrayList<>();
-        Random rand = new Random();
+        int size = zset.size();
         
         if (count > 0) {
             // Distinct
-            if (count >= keys.size()) {
-                for (String m : keys) {
-                    addResult(result, m, zset, withScores);
+            if (count >= size) {
+                for (ZNode node : zset) {
+                    addResult(result, node, withScores);
                 }
-            } else {
-                Collections.shuffle(keys);
+            } else if (count * 3L > size) {
+                List<ZNode> nodes = new ArrayList<>(size);
+                for (ZNode node : zset) nodes.add(node);
+                Collections.shuffle(nodes);
                 for (int i = 0; i < count; i++) {
-                    addResult(result, keys.get(i), zset, withScores);
+                    addResult(result, nodes.get(i), withScores);
+                }
+            } else {
+                // Few of many: draw distinct ranks
+                Set<Long> ranks = new HashSet<>();
+                ThreadLocalRandom rand = ThreadLocalRandom.current();
+                while (ranks.size() < count) {
+                    long rank = rand.nextInt(size);
+                    if (ranks.add(rank)) addResult(result, zset.byRank(rank), withScores);
                 }
             }
         } else {
             // Allow duplicates (count < 0)
             int num = Math.abs(count);
             for (int i = 0; i < num; i++) {
-                String m = keys.get(rand.nextInt(keys.size()));
-                addResult(result, m, zset, withScores);
+                addResult(result, zset.randomMember(), withScores);
             }
         }
         
         client.sendResponse(Resp.array(result), null);
     }
     
-    private void addResult(List<byte[]> result, String member, CaradeZSet zset, boolean withScores) {
-        result.add(member.getBytes(StandardCharsets.UTF_8));
+    private void addResult(List<byte[]> result, ZNode node, boolean withScores) {
+        result.add(node.member.getBytes(ByteStrings.CHARSET));
         if (withScores) {
-            Double s = zset.scores.get(member);
-            String scoreStr = (s == null) ? "0" : String.valueOf(s);
+            String scoreStr = String.valueOf(node.score);
             if (scoreStr.endsWith(".0")) scoreStr = scoreStr.substring(0, scoreStr.length()-2);
-            result.add(scoreStr.getBytes(StandardCharsets.UTF_8));
+            result.add(scoreStr.getBytes(ByteStrings.CHARSET));
         }
     }
 }
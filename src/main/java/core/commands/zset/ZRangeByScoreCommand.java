@@ -8,22 +8,21 @@ import core.network.ClientHandler;
 import core.structs.CaradeZSet;
 import core.structs.ZNode;
 import core.protocol.Resp;
-import java.nio.charset.StandardCharsets;
+import core.utils.ByteStrings;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
-import java.util.NavigableSet;
 
 public class ZRangeByScoreCommand implements Command {
     @Override
     public void execute(ClientHandler client, List<byte[]> args) {
-        String cmd = new String(args.get(0), StandardCharsets.UTF_8).toUpperCase();
+        String cmd = new String(args.get(0), ByteStrings.CHARSET).toUpperCase();
         if (args.size() < 4) {
             client.sendError("usage: " + cmd + " key min max [WITHSCORES] [LIMIT offset count]");
             return;
         }
-        String key = new String(args.get(1), StandardCharsets.UTF_8);
+        String key = new String(args.get(1), ByteStrings.CHARSET);
         ValueEntry entry = Carade.db.get(client.getDbIndex(), key);
         if (entry == null || entry.type != DataType.ZSET) {
             if (entry != null && entry.type != DataType.ZSET) {
@@ -37,11 +36,11 @@ public class ZRangeByScoreCommand implements Command {
                 // Parse min/max based on command
                 String minStr, maxStr;
                 if (cmd.equals("ZRANGEBYSCORE")) {
-                    minStr = new String(args.get(2), StandardCharsets.UTF_8).toLowerCase();
-                    maxStr = new String(args.get(3), StandardCharsets.UTF_8).toLowerCase();
+                    minStr = new String(args.get(2), ByteStrings.CHARSET).toLowerCase();
+                    maxStr = new String(args.get(3), ByteStrings.CHARSET).toLowerCase();
                 } else {
-                    maxStr = new String(args.get(2), StandardCharsets.UTF_8).toLowerCase();
-                    minStr = new String(args.get(3), StandardCharsets.UTF_8).toLowerCase();
+                    maxStr = new String(args.get(2), ByteStrings.CHARSET).toLowerCase();
+                    minStr = new String(args.get(3), ByteStrings.CHARSET).toLowerCase();
                 }
                 
                 boolean minExclusive = minStr.startsWith("(");
@@ -58,38 +57,33 @@ public class ZRangeByScoreCommand implements Command {
                 int count = Integer.MAX_VALUE;
                 
                 for (int i = 4; i < args.size(); i++) {
-                    String arg = new String(args.get(i), StandardCharsets.UTF_8).toUpperCase();
+                    String arg = new String(args.get(i), ByteStrings.CHARSET).toUpperCase();
                     if (arg.equals("WITHSCORES")) {
                         withScores = true;
                     } else if (arg.equals("LIMIT") && i + 2 < args.size()) {
-                        offset = Integer.parseInt(new String(args.get(++i), StandardCharsets.UTF_8));
-                        count = Integer.parseInt(new String(args.get(++i), StandardCharsets.UTF_8));
+                        offset = Integer.parseInt(new String(args.get(++i), ByteStrings.CHARSET));
+                        count = Integer.parseInt(new String(args.get(++i), ByteStrings.CHARSET));
                     }
                 }
                 
                 CaradeZSet zset = (CaradeZSet) entry.getValue();
-                NavigableSet<ZNode> subset = zset.rangeByScore(min, !minExclusive, max, !maxExclusive);
+                CaradeZSet.Range subset = zset.rangeByScore(min, !minExclusive, max, !maxExclusive);
                 
-                Iterator<ZNode> it = cmd.equals("ZRANGEBYSCORE") ? subset.iterator() : subset.descendingIterator();
-                
-                // Apply LIMIT
-                int skipped = 0;
-                while (skipped < offset && it.hasNext()) {
-                    it.next();
-                    skipped++;
-                }
+                // LIMIT offset: seek by rank rather than skipping
+                int skip = Math.max(offset, 0);
+                Iterator<ZNode> it = cmd.equals("ZRANGEBYSCORE") ? subset.iterator(skip) : subset.descendingIterator(skip);
                 
                 List<byte[]> result = new ArrayList<>();
                 List<String> resultStr = new ArrayList<>();
                 int added = 0;
                 while (it.hasNext() && added < count) {
                     ZNode node = it.next();
-                    result.add(node.member.getBytes(StandardCharsets.UTF_8));
+                    result.add(node.member.getBytes(ByteStrings.CHARSET));
                     resultStr.add(node.member);
                     if (withScores) {
                         String s = String.valueOf(node.score);
                         if (s.endsWith(".0")) s = s.substring(0, s.length()-2);
-                        result.add(s.getBytes(StandardCharsets.UTF_8));
+                        result.add(s.getBytes(ByteStrings.CHARSET));
                         resultStr.add(s);
                     }
                     added++;
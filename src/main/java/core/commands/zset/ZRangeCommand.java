@@ -8,7 +8,7 @@ import core.network.ClientHandler;
 import core.structs.CaradeZSet;
 import core.structs.ZNode;
 import core.protocol.Resp;
-import java.nio.charset.StandardCharsets;
+import core.utils.ByteStrings;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
@@ -22,8 +22,8 @@ public class ZRangeCommand implements Command {
             return;
         }
         
-        String key = new String(args.get(1), StandardCharsets.UTF_8);
-        boolean withScores = args.size() > 4 && new String(args.get(args.size()-1), StandardCharsets.UTF_8).equalsIgnoreCase("WITHSCORES");
+        String key = new String(args.get(1), ByteStrings.CHARSET);
+        boolean withScores = args.size() > 4 && new String(args.get(args.size()-1), ByteStrings.CHARSET).equalsIgnoreCase("WITHSCORES");
         
         ValueEntry entry = Carade.db.get(client.getDbIndex(), key);
         if (entry == null || entry.type != DataType.ZSET) {
@@ -34,33 +34,21 @@ public class ZRangeCommand implements Command {
             }
         } else {
             try {
-                int start = Integer.parseInt(new String(args.get(2), StandardCharsets.UTF_8));
-                int end = Integer.parseInt(new String(args.get(3), StandardCharsets.UTF_8));
+                int start = Integer.parseInt(new String(args.get(2), ByteStrings.CHARSET));
+                int end = Integer.parseInt(new String(args.get(3), ByteStrings.CHARSET));
                 CaradeZSet zset = (CaradeZSet) entry.getValue();
-                int size = zset.size();
-                
-                if (start < 0) start += size;
-                if (end < 0) end += size;
-                if (start < 0) start = 0;
-                
                 List<byte[]> result = new ArrayList<>();
                 List<String> resultStr = new ArrayList<>();
-                if (start <= end) {
-                    Iterator<ZNode> it = zset.sorted.iterator();
-                    int idx = 0;
-                    while (it.hasNext() && idx <= end) {
-                        ZNode node = it.next();
-                        if (idx >= start) {
-                            result.add(node.member.getBytes(StandardCharsets.UTF_8));
-                            resultStr.add(node.member);
-                            if (withScores) {
-                                String s = String.valueOf(node.score);
-                                if (s.endsWith(".0")) s = s.substring(0, s.length()-2);
-                                result.add(s.getBytes(StandardCharsets.UTF_8));
-                                resultStr.add(s);
-                            }
-                        }
-                        idx++;
+                Iterator<ZNode> it = zset.rangeByRank(start, end).iterator();
+                while (it.hasNext()) {
+                    ZNode node = it.next();
+                    result.add(node.member.getBytes(ByteStrings.CHARSET));
+                    resultStr.add(node.member);
+                    if (withScores) {
+                        String s = String.valueOf(node.score);
+                        if (s.endsWith(".0")) s = s.substring(0, s.length()-2);
+                        result.add(s.getBytes(ByteStrings.CHARSET));
+                        resultStr.add(s);
                     }
                 }
                 
@@ -7,7 +7,7 @@ import core.db.ValueEntry;
 import core.network.ClientHandler;
 import core.structs.CaradeZSet;
 import core.structs.ZNode;
-import java.nio.charset.StandardCharsets;
+import core.utils.ByteStrings;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Collections;
@@ -20,8 +20,8 @@ public class ZRangeStoreCommand implements Command {
             return;
         }
 
-        String dst = new String(args.get(1), StandardCharsets.UTF_8);
-        String src = new String(args.get(2), StandardCharsets.UTF_8);
+        String dst = new String(args.get(1), ByteStrings.CHARSET);
+        String src = new String(args.get(2), ByteStrings.CHARSET);
         
         client.executeWrite(() -> {
             ValueEntry v = Carade.db.get(client.getDbIndex(), src);
@@ -34,8 +34,8 @@ public class ZRangeStoreCommand implements Command {
             // Logic similar to ZRANGE but store
             
             // Argument parsing
-            String minStr = new String(args.get(3), StandardCharsets.UTF_8);
-            String maxStr = new String(args.get(4), StandardCharsets.UTF_8);
+            String minStr = new String(args.get(3), ByteStrings.CHARSET);
+            String maxStr = new String(args.get(4), ByteStrings.CHARSET);
             
             boolean byScore = false;
             boolean byLex = false;
@@ -45,7 +45,7 @@ public class ZRangeStoreCommand implements Command {
             
             int idx = 5;
             while (idx < args.size()) {
-                String arg = new String(args.get(idx), StandardCharsets.UTF_8).toUpperCase();
+                String arg = new String(args.get(idx), ByteStrings.CHARSET).toUpperCase();
                 if (arg.equals("BYSCORE")) byScore = true;
                 else if (arg.equals("BYLEX")) byLex = true;
                 else if (arg.equals("REV")) rev = true;
@@ -53,8 +53,8 @@ public class ZRangeStoreCommand implements Command {
                     if (idx + 2 >= args.size()) {
                          throw new RuntimeException("ERR syntax error");
                     }
-                    offset = Integer.parseInt(new String(args.get(idx+1), StandardCharsets.UTF_8));
-                    count = Integer.parseInt(new String(args.get(idx+2), StandardCharsets.UTF_8));
+                    offset = Integer.parseInt(new String(args.get(idx+1), ByteStrings.CHARSET));
+                    count = Integer.parseInt(new String(args.get(idx+2), ByteStrings.CHARSET));
                     idx += 2;
                 }
                 idx++;
@@ -77,41 +77,20 @@ public class ZRangeStoreCommand implements Command {
                      throw new RuntimeException("ERR min or max is not a float");
                  }
                  
-                 // Iterate sorted
-                 for (ZNode node : zset.sorted) {
-                     boolean gteMin = minExc ? node.score > min : node.score >= min;
-                     boolean lteMax = maxExc ? node.score < max : node.score <= max;
-                     if (gteMin && lteMax) {
-                         result.add(node);
-                     }
+                 for (ZNode node : zset.rangeByScore(min, !minExc, max, !maxExc)) {
+                     result.add(node);
                  }
                  
                  if (rev) Collections.reverse(result);
                  
             } else if (byLex) {
-                 result.addAll(zset.sorted); 
+                 for (ZNode node : zset) result.add(node);
             } else {
                  // Index based
                  int start = Integer.parseInt(minStr);
                  int end = Integer.parseInt(maxStr);
-                 int size = zset.size();
-                 
-                 if (start < 0) start = size + start;
-                 if (end < 0) end = size + end;
-                 if (start < 0) start = 0;
-                 if (end >= size) end = size - 1;
-                 if (start > end || start >= size) {
-                     result = new ArrayList<>();
-                 } else {
-                     // Need O(N) iteration as SkipListSet doesn't support random access
-                     int current = 0;
-                     for (ZNode node : zset.sorted) {
-                         if (current >= start && current <= end) {
-                             result.add(node);
-                         }
-                         current++;
-                         if (current > end) break;
-                     }
+                 for (ZNode node : zset.rangeByRank(start, end)) {
+                     result.add(node);
                  }
                  
                  if (rev) Collections.reverse(result);
@@ -138,6 +117,6 @@ public class ZRangeStoreCommand implements Command {
                 client.sendInteger(newZ.size());
             }
 
-        }, "ZRANGESTORE", args.stream().map(b -> new String(b, StandardCharsets.UTF_8)).toArray());
+        }, "ZRANGESTORE", args.stream().map(b -> new String(b, ByteStrings.CHARSET)).toArray());
     }
 }
@@ -5,8 +5,7 @@ import core.commands.Command;
 import core.db.DataType;
 import core.network.ClientHandler;
 import core.structs.CaradeZSet;
-import core.structs.ZNode;
-import java.nio.charset.StandardCharsets;
+import core.utils.ByteStrings;
 import java.util.List;
 
 public class ZRemCommand implements Command {
@@ -17,20 +16,16 @@ public class ZRemCommand implements Command {
              return;
          }
          
-         String key = new String(args.get(1), StandardCharsets.UTF_8);
-         String member = new String(args.get(2), StandardCharsets.UTF_8);
+         String key = new String(args.get(1), ByteStrings.CHARSET);
+         String member = new String(args.get(2), ByteStrings.CHARSET);
          final int[] ret = {0};
          
          client.executeWrite(() -> {
              Carade.db.getStore(client.getDbIndex()).computeIfPresent(key, (k, v) -> {
                  if (v.type == DataType.ZSET) {
                      CaradeZSet zset = (CaradeZSet) v.getValue();
-                     Double score = zset.scores.remove(member);
-                     if (score != null) {
-                         zset.sorted.remove(new ZNode(score, member));
-                         ret[0] = 1;
-                     }
-                     if (zset.scores.isEmpty()) return null;
+                     if (zset.remove(member)) ret[0] = 1;
+                     if (zset.isEmpty()) return null;
                  }
                  return v;
              });
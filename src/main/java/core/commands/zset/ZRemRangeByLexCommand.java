@@ -6,11 +6,8 @@ import core.db.DataType;
 import core.db.ValueEntry;
 import core.network.ClientHandler;
 import core.structs.CaradeZSet;
-import core.structs.ZNode;
-import java.nio.charset.StandardCharsets;
-import java.util.ArrayList;
+import core.utils.ByteStrings;
 import java.util.List;
-import java.util.NavigableSet;
 
 public class ZRemRangeByLexCommand implements Command {
     @Override
@@ -20,9 +17,9 @@ public class ZRemRangeByLexCommand implements Command {
             return;
         }
 
-        String key = new String(args.get(1), StandardCharsets.UTF_8);
-        String min = new String(args.get(2), StandardCharsets.UTF_8);
-        String max = new String(args.get(3), StandardCharsets.UTF_8);
+        String key = new String(args.get(1), ByteStrings.CHARSET);
+        String min = new String(args.get(2), ByteStrings.CHARSET);
+        String max = new String(args.get(3), ByteStrings.CHARSET);
 
         Object[] logArgs = new Object[]{key, min, max};
         
@@ -38,70 +35,20 @@ public class ZRemRangeByLexCommand implements Command {
 
             CaradeZSet zset = (CaradeZSet) v.getValue();
             
-            ZNode minNode;
-            boolean minInc = true;
-            if (min.equals("-")) {
-                minNode = new ZNode(Double.NEGATIVE_INFINITY, "");
-            } else if (min.equals("+")) {
-                minNode = new ZNode(Double.POSITIVE_INFINITY, "");
-            } else {
-                if (!min.startsWith("(") && !min.startsWith("[")) {
-                     throw new RuntimeException("ERR min or max not valid string range item");
-                }
-                minInc = min.startsWith("[");
-                minNode = new ZNode(0, min.substring(1));
-            }
-            
-            ZNode maxNode;
-            boolean maxInc = true;
-            if (max.equals("+")) {
-                maxNode = new ZNode(Double.POSITIVE_INFINITY, "");
-            } else if (max.equals("-")) {
-                maxNode = new ZNode(Double.NEGATIVE_INFINITY, "");
-            } else {
-                 if (!max.startsWith("(") && !max.startsWith("[")) {
-                     throw new RuntimeException("ERR min or max not valid string range item");
-                }
-                maxInc = max.startsWith("[");
-                maxNode = new ZNode(0, max.substring(1));
-            }
-            
-            NavigableSet<ZNode> subset;
-             if (minNode.score == Double.NEGATIVE_INFINITY && maxNode.score == Double.POSITIVE_INFINITY) {
-                subset = zset.sorted;
-            } else if (minNode.score == Double.NEGATIVE_INFINITY) {
-                subset = zset.sorted.headSet(maxNode, maxInc);
-            } else if (maxNode.score == Double.POSITIVE_INFINITY) {
-                subset = zset.sorted.tailSet(minNode, minInc);
-            } else {
-                try {
-                    subset = zset.sorted.subSet(minNode, minInc, maxNode, maxInc);
-                } catch (IllegalArgumentException e) {
-                    client.sendInteger(0);
-                    return;
-                }
-            }
-            
-            List<String> toRemove = new ArrayList<>();
-            for (ZNode node : subset) {
-                toRemove.add(node.member);
-            }
-            
-            for (String member : toRemove) {
-                Double score = zset.scores.remove(member);
-                if (score != null) {
-                    zset.sorted.remove(new ZNode(score, member));
-                }
+            CaradeZSet.LexRange range = CaradeZSet.LexRange.parse(min, max);
+            if (range == null) {
+                throw new RuntimeException("ERR min or max not valid string range item");
             }
+            long removed = zset.rangeByLex(range).remove();
             
-            if (zset.scores.isEmpty()) {
+            if (zset.isEmpty()) {
                 Carade.db.remove(client.getDbIndex(), key);
             } else {
                 v.touch();
                 Carade.notifyWatchers(key);
             }
             
-            client.sendInteger(toRemove.size());
+            client.sendInteger(removed);
             
         }, "ZREMRANGEBYLEX", logArgs);
     }
@@ -6,10 +6,7 @@ import core.db.DataType;
 import core.db.ValueEntry;
 import core.network.ClientHandler;
 import core.structs.CaradeZSet;
-import core.structs.ZNode;
-import java.nio.charset.StandardCharsets;
-import java.util.ArrayList;
-import java.util.Iterator;
+import core.utils.ByteStrings;
 import java.util.List;
 
 public class ZRemRangeByRankCommand implements Command {
@@ -20,48 +17,19 @@ public class ZRemRangeByRankCommand implements Command {
             return;
         }
 
-        String key = new String(args.get(1), StandardCharsets.UTF_8);
+        String key = new String(args.get(1), ByteStrings.CHARSET);
         final int[] removedCount = {0};
 
         try {
-            int start = Integer.parseInt(new String(args.get(2), StandardCharsets.UTF_8));
-            int stop = Integer.parseInt(new String(args.get(3), StandardCharsets.UTF_8));
+            int start = Integer.parseInt(new String(args.get(2), ByteStrings.CHARSET));
+            int stop = Integer.parseInt(new String(args.get(3), ByteStrings.CHARSET));
             
             client.executeWrite(() -> {
                 Carade.db.getStore(client.dbIndex).computeIfPresent(key, (k, v) -> {
                     if (v.type != DataType.ZSET) return v;
 
                     CaradeZSet zset = (CaradeZSet) v.getValue();
-                    int size = zset.size();
-                    int s = start;
-                    int e = stop;
-
-                    if (s < 0) s += size;
-                    if (e < 0) e += size;
-                    if (s < 0) s = 0;
-                    
-                    if (s > e || s >= size) return v; // Nothing to remove
-
-                    if (e >= size) e = size - 1;
-                    
-                    // Identify nodes to remove
-                    List<ZNode> toRemove = new ArrayList<>();
-                    Iterator<ZNode> it = zset.sorted.iterator();
-                    int idx = 0;
-                    while (it.hasNext()) {
-                        ZNode node = it.next();
-                        if (idx >= s && idx <= e) {
-                            toRemove.add(node);
-                        }
-                        if (idx > e) break;
-                        idx++;
-                    }
-                    
-                    removedCount[0] = toRemove.size();
-                    for (ZNode node : toRemove) {
-                        zset.scores.remove(node.member);
-                        zset.sorted.remove(node);
-                    }
+                    removedCount[0] = (int) zset.rangeByRank(start, stop).remove();
                     
                     if (zset.size() == 0) return null;
                     return v;
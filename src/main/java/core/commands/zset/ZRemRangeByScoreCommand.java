@@ -6,11 +6,8 @@ import core.db.DataType;
 import core.db.ValueEntry;
 import core.network.ClientHandler;
 import core.structs.CaradeZSet;
-import core.structs.ZNode;
-import java.nio.charset.StandardCharsets;
-import java.util.ArrayList;
+import core.utils.ByteStrings;
 import java.util.List;
-import java.util.NavigableSet;
 
 public class ZRemRangeByScoreCommand implements Command {
     @Override
@@ -20,12 +17,12 @@ public class ZRemRangeByScoreCommand implements Command {
             return;
         }
 
-        String key = new String(args.get(1), StandardCharsets.UTF_8);
+        String key = new String(args.get(1), ByteStrings.CHARSET);
         final int[] removedCount = {0};
 
         try {
-            String minStr = new String(args.get(2), StandardCharsets.UTF_8).toLowerCase();
-            String maxStr = new String(args.get(3), StandardCharsets.UTF_8).toLowerCase();
+            String minStr = new String(args.get(2), ByteStrings.CHARSET).toLowerCase();
+            String maxStr = new String(args.get(3), ByteStrings.CHARSET).toLowerCase();
 
             boolean minExclusive = minStr.startsWith("(");
             if (minExclusive) minStr = minStr.substring(1);
@@ -43,20 +40,7 @@ public class ZRemRangeByScoreCommand implements Command {
                     if (v.type != DataType.ZSET) return v; // Throwing exception here would be caught
                     
                     CaradeZSet zset = (CaradeZSet) v.getValue();
-                    NavigableSet<ZNode> subset = zset.rangeByScore(min, !finalMinExclusive, max, !finalMaxExclusive);
-                    
-                    // Avoid concurrent modification if we remove from the set we are iterating?
-                    // sorted.subSet returns a view. Removing from view removes from backing set.
-                    // But we also need to remove from `scores` map.
-                    
-                    // Better to collect items to remove first.
-                    List<ZNode> toRemove = new ArrayList<>(subset);
-                    removedCount[0] = toRemove.size();
-                    
-                    for (ZNode node : toRemove) {
-                        zset.scores.remove(node.member);
-                        zset.sorted.remove(node);
-                    }
+                    removedCount[0] = (int) zset.rangeByScore(min, !finalMinExclusive, max, !finalMaxExclusive).remove();
                     
                     if (zset.size() == 0) return null;
                     return v;
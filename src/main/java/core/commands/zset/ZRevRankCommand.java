@@ -6,8 +6,7 @@ import core.db.DataType;
 import core.db.ValueEntry;
 import core.network.ClientHandler;
 import core.structs.CaradeZSet;
-import core.structs.ZNode;
-import java.nio.charset.StandardCharsets;
+import core.utils.ByteStrings;
 import java.util.List;
 
 public class ZRevRankCommand implements Command {
@@ -18,26 +17,17 @@ public class ZRevRankCommand implements Command {
             return;
         }
         
-        String key = new String(args.get(1), StandardCharsets.UTF_8);
-        String member = new String(args.get(2), StandardCharsets.UTF_8);
+        String key = new String(args.get(1), ByteStrings.CHARSET);
+        String member = new String(args.get(2), ByteStrings.CHARSET);
         ValueEntry entry = Carade.db.get(client.getDbIndex(), key);
         if (entry == null || entry.type != DataType.ZSET) {
                 if (entry != null) client.sendError("WRONGTYPE Operation against a key holding the wrong kind of value");
                 else client.sendNull();
         } else {
             CaradeZSet zset = (CaradeZSet) entry.getValue();
-            Double score = zset.score(member);
-            if (score == null) {
-                client.sendNull();
-            } else {
-                // O(N) scan using descendingSet
-                int rank = 0;
-                for (ZNode node : zset.sorted.descendingSet()) {
-                    if (node.member.equals(member)) break;
-                    rank++;
-                }
-                client.sendInteger(rank);
-            }
+            long rank = zset.revRank(member);
+            if (rank < 0) client.sendNull();
+            else client.sendInteger(rank);
         }
     }
 }
@@ -7,7 +7,8 @@ import core.db.ValueEntry;
 import core.network.ClientHandler;
 import core.protocol.Resp;
 import core.structs.CaradeZSet;
-import java.nio.charset.StandardCharsets;
+import core.structs.ZNode;
+import core.utils.ByteStrings;
 import java.util.*;
 
 public class ZScanCommand implements Command {
@@ -18,18 +19,18 @@ public class ZScanCommand implements Command {
             return;
         }
 
-        String key = new String(args.get(1), StandardCharsets.UTF_8);
-        String cursor = new String(args.get(2), StandardCharsets.UTF_8);
+        String key = new String(args.get(1), ByteStrings.CHARSET);
+        String cursor = new String(args.get(2), ByteStrings.CHARSET);
         String pattern = null;
         int count = 10;
 
         for (int i = 3; i < args.size(); i++) {
-            String arg = new String(args.get(i), StandardCharsets.UTF_8).toUpperCase();
+            String arg = new String(args.get(i), ByteStrings.CHARSET).toUpperCase();
             if (arg.equals("MATCH") && i + 1 < args.size()) {
-                pattern = new String(args.get(++i), StandardCharsets.UTF_8);
+                pattern = new String(args.get(++i), ByteStrings.CHARSET);
             } else if (arg.equals("COUNT") && i + 1 < args.size()) {
                 try {
-                    count = Integer.parseInt(new String(args.get(++i), StandardCharsets.UTF_8));
+                    count = Integer.parseInt(new String(args.get(++i), ByteStrings.CHARSET));
                 } catch (Exception e) {}
             }
         }
@@ -47,10 +48,10 @@ public class ZScanCommand implements Command {
         if (cursor.equals("0")) {
             ValueEntry entry = Carade.db.get(dbIndex, key);
             if (entry == null || entry.type != DataType.ZSET) {
-                client.send(client.isResp(), Resp.array(Arrays.asList("0".getBytes(StandardCharsets.UTF_8), Resp.array(Collections.emptyList()))), null);
+                client.send(client.isResp(), Resp.array(Arrays.asList("0".getBytes(ByteStrings.CHARSET), Resp.array(Collections.emptyList()))), null);
                 return;
             }
-            it = ((CaradeZSet) entry.getValue()).scores.entrySet().iterator();
+            it = ((CaradeZSet) entry.getValue()).scanIterator();
             sc = new Carade.ScanCursor(it, null);
             String newCursor = String.valueOf(Carade.cursorIdGen.getAndIncrement());
             Carade.scanRegistry.put(newCursor, sc);
@@ -69,13 +70,13 @@ public class ZScanCommand implements Command {
         List<byte[]> results = new ArrayList<>();
         int found = 0;
         while (it.hasNext() && found < count) {
-            Map.Entry<String, Double> e = (Map.Entry<String, Double>) it.next();
+            ZNode e = (ZNode) it.next();
             found++;
-            if (regex == null || regex.matcher(e.getKey()).matches()) {
-                results.add(e.getKey().getBytes(StandardCharsets.UTF_8));
-                String s = String.valueOf(e.getValue());
+            if (regex == null || regex.matcher(e.member).matches()) {
+                results.add(e.member.getBytes(ByteStrings.CHARSET));
+                String s = String.valueOf(e.score);
                 if (s.endsWith(".0")) s = s.substring(0, s.length() - 2);
-                results.add(s.getBytes(StandardCharsets.UTF_8));
+                results.add(s.getBytes(ByteStrings.CHARSET));
             }
         }
 
@@ -86,7 +87,7 @@ public class ZScanCommand implements Command {
 
         if (client.isResp()) {
             List<byte[]> outer = new ArrayList<>();
-            outer.add(cursor.getBytes(StandardCharsets.UTF_8));
+            outer.add(cursor.getBytes(ByteStrings.CHARSET));
             outer.add(Resp.array(results));
             client.send(true, Resp.array(outer), null);
         } else {
@@ -94,7 +95,7 @@ public class ZScanCommand implements Command {
             sb.append("1) \"").append(cursor).append("\"\n");
             sb.append("2) ");
             for (int i = 0; i < results.size(); i++) {
-                sb.append(i == 0 ? "" : "\n   ").append(i + 1).append(") \"").append(new String(results.get(i), StandardCharsets.UTF_8)).append("\"");
+                sb.append(i == 0 ? "" : "\n   ").append(i + 1).append(") \"").append(new String(results.get(i), ByteStrings.CHARSET)).append("\"");
             }
             client.send(false, null, sb.toString());
         }
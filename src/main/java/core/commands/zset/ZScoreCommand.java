@@ -6,7 +6,7 @@ import core.db.DataType;
 import core.db.ValueEntry;
 import core.network.ClientHandler;
 import core.structs.CaradeZSet;
-import java.nio.charset.StandardCharsets;
+import core.utils.ByteStrings;
 import java.util.List;
 
 public class ZScoreCommand implements Command {
@@ -16,8 +16,8 @@ public class ZScoreCommand implements Command {
             client.sendError("usage: ZSCORE key member");
             return;
         }
-        String key = new String(args.get(1), StandardCharsets.UTF_8);
-        String member = new String(args.get(2), StandardCharsets.UTF_8);
+        String key = new String(args.get(1), ByteStrings.CHARSET);
+        String member = new String(args.get(2), ByteStrings.CHARSET);
         ValueEntry entry = Carade.db.get(client.getDbIndex(), key);
          if (entry == null || entry.type != DataType.ZSET) {
              if (entry != null && entry.type != DataType.ZSET) client.sendError("WRONGTYPE");
@@ -6,7 +6,8 @@ import core.db.DataType;
 import core.db.ValueEntry;
 import core.network.ClientHandler;
 import core.structs.CaradeZSet;
-import java.nio.charset.StandardCharsets;
+import core.structs.ZNode;
+import core.utils.ByteStrings;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -21,8 +22,8 @@ public class ZUnionStoreCommand implements Command {
         }
         
         try {
-            String dest = new String(args.get(1), StandardCharsets.UTF_8);
-            int numKeys = Integer.parseInt(new String(args.get(2), StandardCharsets.UTF_8));
+            String dest = new String(args.get(1), ByteStrings.CHARSET);
+            int numKeys = Integer.parseInt(new String(args.get(2), ByteStrings.CHARSET));
             if (numKeys < 1) {
                 client.sendError("ERR at least 1 input key is needed for ZUNIONSTORE");
                 return;
@@ -31,7 +32,7 @@ public class ZUnionStoreCommand implements Command {
             List<String> srcKeys = new ArrayList<>();
             for(int i=0; i<numKeys; i++) {
                 if (3+i >= args.size()) throw new IndexOutOfBoundsException();
-                srcKeys.add(new String(args.get(3+i), StandardCharsets.UTF_8));
+                srcKeys.add(new String(args.get(3+i), ByteStrings.CHARSET));
             }
             
             int nextArg = 3 + numKeys;
@@ -39,15 +40,15 @@ public class ZUnionStoreCommand implements Command {
             String aggregate = "SUM";
             
             while(nextArg < args.size()) {
-                String arg = new String(args.get(nextArg++), StandardCharsets.UTF_8).toUpperCase();
+                String arg = new String(args.get(nextArg++), ByteStrings.CHARSET).toUpperCase();
                 if (arg.equals("WEIGHTS")) {
                     for(int i=0; i<numKeys; i++) {
                         if (nextArg >= args.size()) throw new IllegalArgumentException("ERR syntax error");
-                        weights.add(Double.parseDouble(new String(args.get(nextArg++), StandardCharsets.UTF_8)));
+                        weights.add(Double.parseDouble(new String(args.get(nextArg++), ByteStrings.CHARSET)));
                     }
                 } else if (arg.equals("AGGREGATE")) {
                     if (nextArg >= args.size()) throw new IllegalArgumentException("ERR syntax error");
-                    aggregate = new String(args.get(nextArg++), StandardCharsets.UTF_8).toUpperCase();
+                    aggregate = new String(args.get(nextArg++), ByteStrings.CHARSET).toUpperCase();
                 }
             }
             if (weights.isEmpty()) for(int i=0; i<numKeys; i++) weights.add(1.0);
@@ -57,7 +58,7 @@ public class ZUnionStoreCommand implements Command {
             
             // Serialize args roughly
             Object[] cmdArgs = new Object[args.size()-1];
-            for(int i=1; i<args.size(); i++) cmdArgs[i-1] = new String(args.get(i), StandardCharsets.UTF_8);
+            for(int i=1; i<args.size(); i++) cmdArgs[i-1] = new String(args.get(i), ByteStrings.CHARSET);
 
             final List<Double> finalWeights = weights;
             
@@ -70,9 +71,9 @@ public class ZUnionStoreCommand implements Command {
                     ValueEntry e = Carade.db.get(client.getDbIndex(), k);
                     if (e != null && e.type == DataType.ZSET) {
                         CaradeZSet zs = (CaradeZSet) e.getValue();
-                        for(Map.Entry<String, Double> entry : zs.scores.entrySet()) {
-                            String member = entry.getKey();
-                            double score = entry.getValue() * w;
+                        for(ZNode node : zs) {
+                            String member = node.member;
+                            double score = node.score * w;
                             finalScores.merge(member, score, (oldV, newV) -> {
                                 if (aggOp.equals("MIN")) return Math.min(oldV, newV);
                                 if (aggOp.equals("MAX")) return Math.max(oldV, newV);
@@ -8,7 +8,7 @@ import core.network.ClientHandler;
 import core.structs.CaradeZSet;
 import core.structs.ZNode;
 import core.protocol.Resp;
-import java.nio.charset.StandardCharsets;
+import core.utils.ByteStrings;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -22,7 +22,7 @@ public class ZmPopCommand implements Command {
         }
         
         try {
-            int numKeys = Integer.parseInt(new String(args.get(1), StandardCharsets.UTF_8));
+            int numKeys = Integer.parseInt(new String(args.get(1), ByteStrings.CHARSET));
             if (numKeys <= 0) {
                  client.sendError("ERR numkeys must be positive");
                  return;
@@ -34,10 +34,10 @@ public class ZmPopCommand implements Command {
             
             List<String> keys = new ArrayList<>();
             for (int i = 0; i < numKeys; i++) {
-                keys.add(new String(args.get(2 + i), StandardCharsets.UTF_8));
+                keys.add(new String(args.get(2 + i), ByteStrings.CHARSET));
             }
             
-            String direction = new String(args.get(2 + numKeys), StandardCharsets.UTF_8).toUpperCase();
+            String direction = new String(args.get(2 + numKeys), ByteStrings.CHARSET).toUpperCase();
             if (!direction.equals("MIN") && !direction.equals("MAX")) {
                 client.sendError("ERR syntax error");
                 return;
@@ -46,13 +46,13 @@ public class ZmPopCommand implements Command {
             
             int count = 1;
             if (args.size() > 2 + numKeys + 1) {
-                String nextArg = new String(args.get(2 + numKeys + 1), StandardCharsets.UTF_8).toUpperCase();
+                String nextArg = new String(args.get(2 + numKeys + 1), ByteStrings.CHARSET).toUpperCase();
                 if (nextArg.equals("COUNT")) {
                      if (args.size() <= 2 + numKeys + 2) {
                          client.sendError("ERR syntax error");
                          return;
                      }
-                     count = Integer.parseInt(new String(args.get(2 + numKeys + 2), StandardCharsets.UTF_8));
+                     count = Integer.parseInt(new String(args.get(2 + numKeys + 2), ByteStrings.CHARSET));
                      if (count <= 0) {
                           client.sendError("ERR count must be positive");
                           return;
@@ -105,12 +105,12 @@ public class ZmPopCommand implements Command {
                 client.sendNull();
             } else {
                 List<byte[]> resp = new ArrayList<>();
-                resp.add(finalKey.getBytes(StandardCharsets.UTF_8));
+                resp.add(finalKey.getBytes(ByteStrings.CHARSET));
                 List<byte[]> elements = new ArrayList<>();
                 for (ZNode node : popped) {
                     List<byte[]> pair = new ArrayList<>();
-                    pair.add(node.member.getBytes(StandardCharsets.UTF_8));
-                    pair.add(String.valueOf(node.score).getBytes(StandardCharsets.UTF_8));
+                    pair.add(node.member.getBytes(ByteStrings.CHARSET));
+                    pair.add(String.valueOf(node.score).getBytes(ByteStrings.CHARSET));
                     elements.add(Resp.array(pair));
                 }
                 resp.add(Resp.array(elements));
@@ -4,8 +4,10 @@ import core.Config;
 import core.persistence.CommandLogger;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicInteger;
-import core.Carade; 
+import java.util.concurrent.atomic.AtomicLong;
+import core.Carade;
+import core.structs.Listpack;
+import core.utils.ByteStrings;
 
 public class CaradeDatabase {
     // Array of databases
@@ -29,15 +31,24 @@ public class CaradeDatabase {
 
     private final Config config;
     private final CommandLogger aofHandler;
-    private final AtomicInteger writeCounter = new AtomicInteger(0);
+    // Time one write may spend evicting
+    private static final long EVICTION_TIME_LIMIT_NANOS = 500_000;
+    private final Eviction eviction;
+    private final AtomicLong evictedKeys = new AtomicLong();
+    // Bulk load (AOF replay): no eviction, no keyspace notifications
+    private volatile boolean loading = false;
+    // Disk tier of maxmemory-policy tiered, created on first use
+    private volatile TieredStore tieredStore;
 
     @SuppressWarnings("unchecked")
     public CaradeDatabase(Config config, CommandLogger aofHandler) {
         this.config = config;
         this.aofHandler = aofHandler;
+        this.eviction = new Eviction(this, config);
+        Listpack.use(config);
         this.databases = new ConcurrentHashMap[DB_COUNT];
         for (int i = 0; i < DB_COUNT; i++) {
-            this.databases[i] = new ConcurrentHashMap<>();
+            this.databases[i] = new Keyspace();
         }
         this.store = this.databases[0]; 
         INSTANCE = this;
@@ -48,6 +59,15 @@ public class CaradeDatabase {
         return databases[dbIndex];
     }
 
+    /**
+     * Replaces an empty DB map by one sized for expectedKeys (bulk load), so it is not
+     * rehashed while filling.
+     */
+    public void presize(int dbIndex, long expectedKeys) {
+        if (!getStore(dbIndex).isEmpty()) return;
+        databases[dbIndex] = new Keyspace((int) Math.min(expectedKeys, 1 << 30));
+    }
+
     public ValueEntry get(int dbIndex, String key) {
         ConcurrentHashMap<String, ValueEntry> db = getStore(dbIndex);
         ValueEntry v = db.get(key);
@@ -71,8 +91,17 @@ public class CaradeDatabase {
         return get(0, key);
     }
 
+    public void setLoading(boolean loading) {
+        this.loading = loading;
+    }
+
+    public boolean isLoading() {
+        return loading;
+    }
+
     public void put(int dbIndex, String key, ValueEntry value) {
         performEvictionIfNeeded(dbIndex);
+        CowSnapshot.beforeWrite(getStore(dbIndex), key);
         boolean exists = getStore(dbIndex).containsKey(key);
         getStore(dbIndex).put(key, value);
         notify(dbIndex, key, exists ? "set" : "new"); 
@@ -83,6 +112,7 @@ public class CaradeDatabase {
     }
     
     public ValueEntry remove(int dbIndex, String key) {
+        CowSnapshot.beforeWrite(getStore(dbIndex), key);
         ValueEntry v = getStore(dbIndex).remove(key);
         if (v != null) {
             notify(dbIndex, key, "del");
@@ -95,6 +125,7 @@ public class CaradeDatabase {
     }
     
     protected void notify(int dbIndex, String key, String event) {
+        if (loading) return;
         try {
             if (Carade.pubSub == null) return; 
             String channelKey = "__keyspace@" + dbIndex + "__:" + key;
@@ -104,74 +135,151 @@ public class CaradeDatabase {
         } catch (Exception e) {}
     }
 
+    /**
+     * Memory compared with maxmemory: the estimated size of the dataset (see {@link Keyspace}).
+     */
     protected long getUsedMemory() {
-        return Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory();
+        return getDatasetMemory();
+    }
+
+    /**
+     * Estimated heap bytes of all keys and values.
+     */
+    public long getDatasetMemory() {
+        long total = 0;
+        for (int i = 0; i < DB_COUNT; i++) total += getDatasetMemory(i);
+        return total;
+    }
+
+    public long getDatasetMemory(int dbIndex) {
+        ConcurrentHashMap<String, ValueEntry> map = getStore(dbIndex);
+        return map instanceof Keyspace ? ((Keyspace) map).memory() : 0;
+    }
+
+    public long getDatasetMemory(DataType type) {
+        long total = 0;
+        for (int i = 0; i < DB_COUNT; i++) {
+            ConcurrentHashMap<String, ValueEntry> map = getStore(i);
+            if (map instanceof Keyspace) total += ((Keyspace) map).memory(type);
+        }
+        return total;
     }
     
+    /**
+     * Evicts keys of any DB, picked by the maxmemory policy, until the dataset is back
+     * under maxmemory or EVICTION_TIME_LIMIT_NANOS ran out (the next write goes on).
+     */
     public void performEvictionIfNeeded(int dbIndex) {
-        if (config.maxMemory <= 0) return;
-        if (writeCounter.incrementAndGet() % 50 != 0) return;
+        if (config.maxMemory <= 0 || loading) return;
         long used = getUsedMemory();
         if (used < config.maxMemory) return;
         
         String policy = config.maxMemoryPolicy;
         if (policy.equals("noeviction")) return;
+        if (policy.equals("tiered")) {
+            // Nothing is lost: cold values move to disk, off the write path
+            tieredStore().requestSpill(dbIndex);
+            return;
+        }
         
-        System.out.println("🧹 [Eviction][DB"+dbIndex+"] Policy: " + policy + ". Usage: " + (used/1024/1024) + "MB");
-        
-        ConcurrentHashMap<String, ValueEntry> db = getStore(dbIndex);
-        int attempts = 0;
-        Iterator<String> it = db.keySet().iterator();
-        
-        while (used > config.maxMemory && !db.isEmpty() && attempts < 100) {
-            String bestKey = null;
-            
-            if (policy.contains("random")) {
-                if (it.hasNext()) bestKey = it.next();
-                if (policy.contains("volatile")) {
-                    ValueEntry v = db.get(bestKey);
-                    if (v == null || v.expireAt == -1) bestKey = null;
+        synchronized (eviction) {
+            long deadline = System.nanoTime() + EVICTION_TIME_LIMIT_NANOS;
+            int samples = Math.max(1, config.maxMemorySamples);
+            long queued = 0; // Victims handed to their shard, not removed yet
+            Set<ValueEntry> busy = null; // Victims a command holds, left for the next pass
+            while (used - queued > config.maxMemory && System.nanoTime() < deadline) {
+                Eviction.Candidate victim = eviction.nextVictim(policy, samples, busy);
+                if (victim == null) break; // Nothing the policy may evict
+                int outcome = removeInBackground(victim.dbIndex, victim.key, victim.entry, "evicted");
+                if (outcome == SKIPPED) {
+                    if (busy == null) busy = Collections.newSetFromMap(new IdentityHashMap<>());
+                    busy.add(victim.entry);
+                    continue;
                 }
-            } else {
-                long bestVal = Long.MAX_VALUE;
-                int samples = 0;
-                boolean isLfu = policy.contains("lfu");
-
-                while (it.hasNext() && samples < 5) {
-                    String key = it.next();
-                    ValueEntry v = db.get(key);
-                    if (v != null) {
-                        boolean eligible = true;
-                        if (policy.contains("volatile") && v.expireAt == -1) eligible = false;
-                        
-                        if (eligible) {
-                            long val = isLfu ? v.frequency : v.lastAccessed;
-                            if (val < bestVal) {
-                                bestVal = val;
-                                bestKey = key;
-                            }
-                        }
-                    }
-                    samples++;
-                }
-            }
-            
-            if (!it.hasNext()) it = db.keySet().iterator(); 
-            
-            if (bestKey != null) {
-                db.remove(bestKey);
-                notify(dbIndex, bestKey, "evicted");
-                if (aofHandler != null) aofHandler.log("DEL", bestKey); 
+                if (outcome == QUEUED) queued += victim.entry.getMemory();
+                used = getUsedMemory();
             }
-            
-            used = getUsedMemory();
-            attempts++;
         }
     }
+
+    // Outcomes of removeInBackground
+    public static final int SKIPPED = 0;
+    public static final int REMOVED = 1;
+    public static final int QUEUED = 2;
+
+    /**
+     * Removes key if it still maps to entry, for a background pass (eviction, active
+     * expiry) that does not own the key: under the key's stripe write lock, skipping
+     * the key while a command holds it, or on the owning shard in shard mode. Fires
+     * event and logs SELECT and DEL as one AOF entry.
+     */
+    public int removeInBackground(int dbIndex, String key, ValueEntry entry, String event) {
+        core.server.ShardManager shards = core.server.ShardManager.getInstance();
+        if (shards.isEnabled()) {
+            byte[] raw = ByteStrings.bytes(key);
+            if (shards.isOwner(raw)) return removeOwned(dbIndex, key, entry, event) ? REMOVED : SKIPPED;
+            shards.post(raw, () -> removeOwned(dbIndex, key, entry, event));
+            return QUEUED;
+        }
+        core.server.LockManager.Scope scope = core.server.LockManager.getInstance().tryAcquireKey(key);
+        if (scope == null) return SKIPPED;
+        try {
+            return removeOwned(dbIndex, key, entry, event) ? REMOVED : SKIPPED;
+        } finally {
+            scope.release();
+        }
+    }
+
+    private boolean removeOwned(int dbIndex, String key, ValueEntry entry, String event) {
+        ConcurrentHashMap<String, ValueEntry> db = getStore(dbIndex);
+        CowSnapshot.beforeWrite(db, key);
+        if (!db.remove(key, entry)) return false;
+        if (event.equals("evicted")) evictedKeys.incrementAndGet();
+        notify(dbIndex, key, event);
+        if (aofHandler != null) {
+            core.server.WriteSequencer.getInstance().appendAof(dbIndex, "DEL", key);
+        }
+        return true;
+    }
+
+    public long getEvictedKeys() {
+        return evictedKeys.get();
+    }
+
+    /**
+     * A key of dbIndex picked at random, or null if the DB is empty.
+     */
+    public String randomKey(int dbIndex) {
+        ConcurrentHashMap<String, ValueEntry> map = getStore(dbIndex);
+        if (map instanceof Keyspace) return ((Keyspace) map).randomKey();
+        Iterator<String> it = map.keySet().iterator();
+        return it.hasNext() ? it.next() : null;
+    }
     
     public void performEvictionIfNeeded() {
         performEvictionIfNeeded(0);
     }
+
+    /**
+     * The disk tier, created (in config.tierDir) on first use.
+     */
+    public TieredStore tieredStore() {
+        TieredStore t = tieredStore;
+        if (t != null) return t;
+        synchronized (this) {
+            if (tieredStore == null) {
+                tieredStore = new TieredStore(this, new java.io.File(config.tierDir), config.tierSegmentSize, config.tierMinValueBytes);
+            }
+            return tieredStore;
+        }
+    }
+
+    /**
+     * The disk tier, or null if nothing was spilled since startup.
+     */
+    public TieredStore getTieredStore() {
+        return tieredStore;
+    }
     
     public int size(int dbIndex) {
         return getStore(dbIndex).size();
@@ -182,6 +290,7 @@ public class CaradeDatabase {
     }
     
     public void clear(int dbIndex) {
+        CowSnapshot.beforeClear(getStore(dbIndex));
         getStore(dbIndex).clear();
     }
     
@@ -191,6 +300,7 @@ public class CaradeDatabase {
     
     public void clearAll() {
         for(int i=0; i<DB_COUNT; i++) {
+            CowSnapshot.beforeClear(databases[i]);
             databases[i].clear();
         }
     }
@@ -209,8 +319,7 @@ public class CaradeDatabase {
              Iterator<Map.Entry<String, ValueEntry>> it = databases[i].entrySet().iterator();
              while (it.hasNext()) {
                  Map.Entry<String, ValueEntry> e = it.next();
-                 if (e.getValue().isExpired(now)) {
-                     it.remove();
+                 if (e.getValue().isExpired(now) && databases[i].remove(e.getKey(), e.getValue())) {
                      notify(i, e.getKey(), "expired");
                  }
              }
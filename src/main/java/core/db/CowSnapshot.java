@@ -0,0 +1,268 @@
+package core.db;
+
+import core.Carade;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Copy-on-write, point-in-time view of the keyspace, used to write RDB files
+ * (SAVE, BGSAVE, the periodic save, AOF rewrite) while writes continue.
+ *
+ * {@link #begin} marks the epoch at a quiescent point: it holds the global write lock
+ * just long enough to publish the snapshot, so no command straddles the epoch.
+ * From then on a writer about to change a key the snapshot has not written yet first
+ * preserves the key's epoch value ({@link #beforeWrite}). The snapshot thread visits
+ * every key once, taking the preserved copy when there is one and the live value
+ * otherwise, and stamps live entries with its epoch so later writes to them copy nothing.
+ * A key and its preservation are serialized by a small striped lock, never the global lock.
+ *
+ * DB maps are tracked by identity (SWAPDB moves maps, not keys). One snapshot runs
+ * at a time; a second {@link #begin} waits for the first to {@link #end}.
+ */
+public final class CowSnapshot {
+
+    public interface Visitor {
+        // Called before the entries of a DB; size is a hint
+        void db(int dbIndex, long size) throws IOException;
+
+        void entry(String key, ValueEntry value) throws IOException;
+    }
+
+    // Epoch value of a key: a copy, or null when it did not exist (or was expired) at the epoch
+    private static final class Preserved {
+        final ValueEntry value;
+        boolean written;
+
+        Preserved(ValueEntry value) {
+            this.value = value;
+        }
+    }
+
+    private static final int STRIPES = 256;
+    private static final AtomicLong EPOCHS = new AtomicLong();
+    private static final Semaphore RUNNING = new Semaphore(1);
+    private static volatile CowSnapshot active;
+
+    private final long epoch;
+    private final ConcurrentHashMap<String, ValueEntry>[] maps;
+    private final ConcurrentHashMap<String, Preserved>[] preserved;
+    private final Object[] stripes = new Object[STRIPES];
+    private final AtomicLong preservedKeys = new AtomicLong();
+
+    @SuppressWarnings("unchecked")
+    private CowSnapshot(CaradeDatabase db) {
+        this.epoch = EPOCHS.incrementAndGet();
+        this.maps = db.databases.clone();
+        this.preserved = new ConcurrentHashMap[maps.length];
+        for (int i = 0; i < maps.length; i++) preserved[i] = new ConcurrentHashMap<>();
+        for (int i = 0; i < STRIPES; i++) stripes[i] = new Object();
+    }
+
+    public static CowSnapshot begin(CaradeDatabase db) {
+        return begin(db, null);
+    }
+
+    /**
+     * Marks the epoch. Waits for a running snapshot to end first.
+     * atEpoch (may be null) runs while no command executes, right at the epoch.
+     */
+    public static CowSnapshot begin(CaradeDatabase db, Runnable atEpoch) {
+        RUNNING.acquireUninterruptibly();
+        ReentrantReadWriteLock global = Carade.globalRWLock;
+        // A caller inside a shared scope (e.g. SHUTDOWN) cannot upgrade; its own command is the only straddler
+        boolean quiesce = global.getReadHoldCount() == 0;
+        if (quiesce) global.writeLock().lock();
+        try {
+            if (atEpoch != null) atEpoch.run();
+            CowSnapshot snapshot = new CowSnapshot(db);
+            active = snapshot;
+            return snapshot;
+        } catch (RuntimeException e) {
+            RUNNING.release();
+            throw e;
+        } finally {
+            if (quiesce) global.writeLock().unlock();
+        }
+    }
+
+    public static boolean isActive() {
+        return active != null;
+    }
+
+    /**
+     * Writers call this (holding the key's lock) before changing or removing a key.
+     */
+    public static void beforeWrite(ConcurrentHashMap<String, ValueEntry> map, String key) {
+        CowSnapshot s = active;
+        if (s != null) s.preserve(map, key);
+    }
+
+    /**
+     * Before a map is emptied (FLUSHDB / FLUSHALL): keeps every key not written yet.
+     * The values are dropped from the map, so they are kept without copying.
+     */
+    public static void beforeClear(ConcurrentHashMap<String, ValueEntry> map) {
+        CowSnapshot s = active;
+        if (s == null) return;
+        int slot = s.slotOf(map);
+        if (slot < 0) return;
+        for (Map.Entry<String, ValueEntry> e : map.entrySet()) {
+            synchronized (s.stripe(e.getKey())) {
+                ValueEntry v = e.getValue();
+                if (v.savedEpoch != s.epoch && !s.preserved[slot].containsKey(e.getKey())) {
+                    s.preserved[slot].put(e.getKey(), new Preserved(v.isExpired() ? null : v));
+                    s.preservedKeys.incrementAndGet();
+                }
+            }
+        }
+    }
+
+    private int slotOf(ConcurrentHashMap<String, ValueEntry> map) {
+        for (int i = 0; i < maps.length; i++) {
+            if (maps[i] == map) return i;
+        }
+        return -1;
+    }
+
+    private Object stripe(String key) {
+        int h = key.hashCode();
+        return stripes[(h ^ (h >>> 16)) & (STRIPES - 1)];
+    }
+
+    private void preserve(ConcurrentHashMap<String, ValueEntry> map, String key) {
+        int slot = slotOf(map);
+        if (slot < 0) return;
+        ConcurrentHashMap<String, Preserved> kept = preserved[slot];
+        if (kept.containsKey(key)) return;
+        synchronized (stripe(key)) {
+            if (kept.containsKey(key)) return;
+            ValueEntry v = map.get(key);
+            if (v != null && v.savedEpoch == epoch) return; // Already in the snapshot
+            kept.put(key, new Preserved(v == null || v.isExpired() ? null : v.copy()));
+            preservedKeys.incrementAndGet();
+        }
+    }
+
+    /**
+     * Streams the epoch view, DB by DB. Keys removed since the epoch come after the
+     * live keys of their DB.
+     */
+    public void write(Visitor out) throws IOException {
+        for (int i = 0; i < maps.length; i++) {
+            if (maps[i].isEmpty() && preserved[i].isEmpty()) continue;
+            out.db(i, maps[i].size());
+            writeKeys(i, maps[i].keySet().spliterator(), out);
+            writeRemoved(i, out);
+        }
+    }
+
+    public int dbCount() {
+        return maps.length;
+    }
+
+    public long size(int dbIndex) {
+        return maps[dbIndex].size();
+    }
+
+    /**
+     * Splits the keys of a DB into ranges of about maxKeys keys, for writers that
+     * encode ranges in parallel ({@link #writeKeys} is safe to call concurrently).
+     */
+    public List<Spliterator<String>> split(int dbIndex, long maxKeys) {
+        List<Spliterator<String>> done = new ArrayList<>();
+        Deque<Spliterator<String>> todo = new ArrayDeque<>();
+        todo.push(maps[dbIndex].keySet().spliterator());
+        while (!todo.isEmpty()) {
+            Spliterator<String> s = todo.pop();
+            Spliterator<String> prefix = s.estimateSize() > maxKeys ? s.trySplit() : null;
+            if (prefix == null) {
+                done.add(s);
+            } else {
+                todo.push(s);
+                todo.push(prefix);
+            }
+        }
+        return done;
+    }
+
+    /**
+     * Writes the epoch value of the given keys of a DB.
+     */
+    public void writeKeys(int dbIndex, Spliterator<String> keys, Visitor out) throws IOException {
+        ConcurrentHashMap<String, ValueEntry> map = maps[dbIndex];
+        ConcurrentHashMap<String, Preserved> kept = preserved[dbIndex];
+        IOException[] failed = new IOException[1];
+        keys.forEachRemaining(key -> {
+            if (failed[0] != null) return;
+            synchronized (stripe(key)) {
+                try {
+                    Preserved p = kept.get(key);
+                    if (p != null) {
+                        writePreserved(out, key, p);
+                    } else {
+                        ValueEntry v = map.get(key);
+                        if (v != null && v.savedEpoch != epoch) {
+                            v.savedEpoch = epoch;
+                            if (!v.isExpired()) out.entry(key, v);
+                        }
+                    }
+                } catch (IOException e) {
+                    failed[0] = e;
+                }
+            }
+        });
+        if (failed[0] != null) throw failed[0];
+    }
+
+    /**
+     * Writes the preserved keys of a DB not written by {@link #writeKeys}, i.e. the keys
+     * removed since the epoch. Call it once every range of the DB is written.
+     */
+    public void writeRemoved(int dbIndex, Visitor out) throws IOException {
+        for (Map.Entry<String, Preserved> e : preserved[dbIndex].entrySet()) {
+            synchronized (stripe(e.getKey())) {
+                writePreserved(out, e.getKey(), e.getValue());
+            }
+        }
+    }
+
+    /**
+     * Whether {@link #writeRemoved} has anything left to write for this DB.
+     */
+    public boolean hasRemoved(int dbIndex) {
+        for (Preserved p : preserved[dbIndex].values()) {
+            if (!p.written && p.value != null) return true;
+        }
+        return false;
+    }
+
+    private static void writePreserved(Visitor out, String key, Preserved p) throws IOException {
+        if (p.written) return;
+        p.written = true;
+        if (p.value != null) out.entry(key, p.value);
+    }
+
+    /**
+     * Keys copied by writers so far (the copy-on-write cost of this snapshot).
+     */
+    public long getPreservedKeys() {
+        return preservedKeys.get();
+    }
+
+    public void end() {
+        if (active == this) {
+            active = null;
+            RUNNING.release();
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package core.db;
+
+import core.Config;
+import core.utils.Time;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Victim selection of the maxmemory policies, and the access data they use.
+ *
+ * Each {@link ValueEntry} keeps its access data in one int, read according to the policy
+ * in force (as in Redis, switching between LRU and LFU at runtime takes a while to settle):
+ * <ul>
+ *   <li>LRU: a 24-bit clock in seconds, wrapping every 194 days.</li>
+ *   <li>LFU: the minute of the last decay in the high 16 bits and a logarithmic counter in
+ *   the low 8. The counter grows with probability 1 / ((counter - 5) * lfu-log-factor + 1),
+ *   and loses one every lfu-decay-time minutes without access.</li>
+ * </ul>
+ *
+ * LRU and LFU victims come from a pool of the best candidates among the keys sampled, so
+ * far, in all DBs: every round adds maxmemory-samples keys of each DB, and the key idlest
+ * of the pool goes first. Random policies pick straight from the sampling table.
+ */
+public final class Eviction {
+    public static final int LRU_CLOCK_MAX = (1 << 24) - 1;
+    public static final int LRU_CLOCK_RESOLUTION = 1000; // ms
+    public static final int LFU_INIT_VAL = 5;
+    static final int POOL_SIZE = 16;
+    // Rounds of pool population without a valid candidate before giving up
+    private static final int MAX_ROUNDS = 8;
+
+    // Config of the current database (for the access data of new and touched entries)
+    private static volatile Config config = new Config();
+    private static volatile Mode mode = new Mode(config.maxMemoryPolicy);
+
+    private static final class Mode {
+        final String policy;
+        final boolean lfu;
+
+        Mode(String policy) {
+            this.policy = policy;
+            this.lfu = policy != null && policy.contains("lfu");
+        }
+    }
+
+    static final class Candidate {
+        final String key;
+        final ValueEntry entry;
+        final int dbIndex;
+        final long idle;
+
+        Candidate(String key, ValueEntry entry, int dbIndex, long idle) {
+            this.key = key;
+            this.entry = entry;
+            this.dbIndex = dbIndex;
+            this.idle = idle;
+        }
+    }
+
+    private final CaradeDatabase db;
+    // Ascending idle, packed at the front
+    private final Candidate[] pool = new Candidate[POOL_SIZE];
+    // Next DB of the random policies
+    private int nextDb;
+
+    Eviction(CaradeDatabase db, Config config) {
+        this.db = db;
+        Eviction.config = config;
+    }
+
+    static boolean lfuPolicy() {
+        Mode m = mode;
+        String policy = config.maxMemoryPolicy;
+        if (m.policy != policy) mode = m = new Mode(policy);
+        return m.lfu;
+    }
+
+    public static int lruClock() {
+        return (int) ((Time.now() / LRU_CLOCK_RESOLUTION) & LRU_CLOCK_MAX);
+    }
+
+    static int initialAccess() {
+        return lfuPolicy() ? lfuTime() << 8 | LFU_INIT_VAL : lruClock();
+    }
+
+    /**
+     * The access data after one more access.
+     */
+    static int access(int lru) {
+        if (!lfuPolicy()) return lruClock();
+        int counter = lfuLogIncr(frequency(lru), config.lfuLogFactor);
+        return lfuTime() << 8 | counter;
+    }
+
+    public static long idleMillis(int lru) {
+        int clock = lruClock();
+        long idle = clock >= lru ? clock - lru : clock + (LRU_CLOCK_MAX - lru);
+        return idle * LRU_CLOCK_RESOLUTION;
+    }
+
+    // Minutes, wrapping every 45 days
+    private static int lfuTime() {
+        return (int) ((Time.now() / 60_000) & 0xFFFF);
+    }
+
+    /**
+     * The LFU counter of lru, less one per lfu-decay-time minutes since its last access.
+     */
+    public static int frequency(int lru) {
+        int ldt = lru >>> 8;
+        int counter = lru & 255;
+        int now = lfuTime();
+        long elapsed = now >= ldt ? now - ldt : 65535 - ldt + now;
+        long periods = config.lfuDecayTime > 0 ? elapsed / config.lfuDecayTime : 0;
+        return periods > counter ? 0 : counter - (int) periods;
+    }
+
+    static int lfuLogIncr(int counter, int logFactor) {
+        if (counter == 255) return counter;
+        int base = Math.max(0, counter - LFU_INIT_VAL);
+        double p = 1.0 / (base * (double) logFactor + 1);
+        return ThreadLocalRandom.current().nextDouble() < p ? counter + 1 : counter;
+    }
+
+    /**
+     * Picks the next key to evict under policy, still in its DB when picked, or null if
+     * no key qualifies (e.g. volatile-* without keys with a TTL). Callers serialize on
+     * this.
+     */
+    Candidate nextVictim(String policy, int samples) {
+        return nextVictim(policy, samples, null);
+    }
+
+    /**
+     * Like {@link #nextVictim(String, int)}, passing over the entries in skip (victims
+     * the current pass could not take, e.g. held by a command).
+     */
+    Candidate nextVictim(String policy, int samples, Set<ValueEntry> skip) {
+        boolean volatileOnly = policy.startsWith("volatile");
+        if (policy.contains("random")) return randomVictim(volatileOnly, samples);
+        boolean lfu = policy.contains("lfu");
+        for (int round = 0; round < MAX_ROUNDS; round++) {
+            boolean sampled = false;
+            for (int i = 0; i < CaradeDatabase.DB_COUNT; i++) {
+                sampled |= populate(i, samples, volatileOnly, lfu, skip);
+            }
+            for (int k = POOL_SIZE - 1; k >= 0; k--) {
+                Candidate c = pool[k];
+                if (c == null) continue;
+                pool[k] = null;
+                if (db.getStore(c.dbIndex).get(c.key) == c.entry) return c;
+            }
+            if (!sampled) return null;
+        }
+        return null;
+    }
+
+    // Adds the sampled keys of one DB that beat the pool; false if none qualified
+    private boolean populate(int dbIndex, int samples, boolean volatileOnly, boolean lfu, Set<ValueEntry> skip) {
+        ConcurrentHashMap<String, ValueEntry> map = db.getStore(dbIndex);
+        if (!(map instanceof Keyspace) || map.isEmpty()) return false;
+        String[] keys = new String[samples];
+        ValueEntry[] entries = new ValueEntry[samples];
+        int n = ((Keyspace) map).sample(keys, entries);
+        boolean eligible = false;
+        for (int j = 0; j < n; j++) {
+            ValueEntry v = entries[j];
+            if (volatileOnly && v.expireAt == -1) continue;
+            if (skip != null && skip.contains(v)) continue;
+            eligible = true;
+            long idle = lfu ? 255 - frequency(v.lru) : idleMillis(v.lru);
+            insert(new Candidate(keys[j], v, dbIndex, idle));
+        }
+        return eligible;
+    }
+
+    private void insert(Candidate c) {
+        for (int i = 0; i < POOL_SIZE && pool[i] != null; i++) {
+            if (pool[i].entry == c.entry) {
+                // Sampled again: drop the old score
+                System.arraycopy(pool, i + 1, pool, i, POOL_SIZE - i - 1);
+                pool[POOL_SIZE - 1] = null;
+                break;
+            }
+        }
+        int k = 0;
+        while (k < POOL_SIZE && pool[k] != null && pool[k].idle < c.idle) k++;
+        if (k == 0 && pool[POOL_SIZE - 1] != null) return; // Full, and no better than any
+        if (k < POOL_SIZE && pool[k] == null) {
+            pool[k] = c;
+            return;
+        }
+        if (pool[POOL_SIZE - 1] == null) {
+            // Room at the end: shift the idler ones right
+            System.arraycopy(pool, k, pool, k + 1, POOL_SIZE - k - 1);
+        } else {
+            // Full: drop the least idle one
+            k--;
+            System.arraycopy(pool, 1, pool, 0, k);
+        }
+        pool[k] = c;
+    }
+
+    private Candidate randomVictim(boolean volatileOnly, int samples) {
+        int n = volatileOnly ? samples : 1;
+        String[] keys = new String[n];
+        ValueEntry[] entries = new ValueEntry[n];
+        for (int i = 0; i < CaradeDatabase.DB_COUNT; i++) {
+            int dbIndex = nextDb;
+            nextDb = (nextDb + 1) % CaradeDatabase.DB_COUNT;
+            ConcurrentHashMap<String, ValueEntry> map = db.getStore(dbIndex);
+            if (!(map instanceof Keyspace) || map.isEmpty()) continue;
+            int found = ((Keyspace) map).sample(keys, entries);
+            for (int j = 0; j < found; j++) {
+                if (volatileOnly && entries[j].expireAt == -1) continue;
+                if (map.get(keys[j]) == entries[j]) return new Candidate(keys[j], entries[j], dbIndex, 0);
+            }
+        }
+        return null;
+    }
+}
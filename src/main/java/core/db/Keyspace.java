@@ -0,0 +1,325 @@
+package core.db;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * The map of one DB, keeping a running estimate of the heap its keys and values use.
+ *
+ * Every entry carries its own estimate ({@link ValueEntry#getMemory()}), charged when the
+ * entry enters the map and released when it leaves; all writes go through compute, so an
+ * entry is charged and released under the lock of its map bin. Values changed in place
+ * are re-estimated by {@link ValueEntry#resized()}, which ClientHandler calls for the keys
+ * of every write command.
+ *
+ * The keys are also kept in a sampling table, so eviction and RANDOMKEY can pick keys at
+ * random, which a ConcurrentHashMap cannot do. The table is split in stripes (each entry
+ * goes to the stripe of a random one, and remembers its slot) to keep writers of
+ * different keys off a common lock.
+ *
+ * Remove keys through the map (remove, compute, ...), not through iterators of its views:
+ * those bypass the accounting and the sampling table.
+ */
+public class Keyspace extends ConcurrentHashMap<String, ValueEntry> {
+    private final LongAdder memory = new LongAdder();
+    private final LongAdder[] typeMemory = new LongAdder[DataType.values().length];
+
+    private static final int STRIPES = 16;
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    // Keys and entries of one part of the sampling table, packed at the front (guarded by this)
+    private static final class Stripe {
+        String[] keys = new String[8];
+        ValueEntry[] entries = new ValueEntry[8];
+        int size;
+    }
+
+    public Keyspace() {
+        this(16);
+    }
+
+    public Keyspace(int initialCapacity) {
+        super(initialCapacity);
+        for (int i = 0; i < typeMemory.length; i++) typeMemory[i] = new LongAdder();
+        for (int i = 0; i < STRIPES; i++) stripes[i] = new Stripe();
+    }
+
+    /**
+     * Estimated bytes of all keys and values.
+     */
+    public long memory() {
+        return memory.sum();
+    }
+
+    public long memory(DataType type) {
+        return typeMemory[type.ordinal()].sum();
+    }
+
+    /**
+     * Fills keys and entries with entries picked at random, and returns how many it found.
+     * All of them if the map has no more entries than the arrays hold; otherwise picks
+     * are independent, so an entry may come twice. A pick may have left the map since.
+     */
+    public int sample(String[] keys, ValueEntry[] entries) {
+        int want = Math.min(keys.length, entries.length);
+        int n = 0;
+        if (mappingCount() <= want) {
+            for (Stripe stripe : stripes) {
+                synchronized (stripe) {
+                    for (int i = 0; i < stripe.size && n < want; i++, n++) {
+                        keys[n] = stripe.keys[i];
+                        entries[n] = stripe.entries[i];
+                    }
+                }
+            }
+            return n;
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int pick = 0; pick < want; pick++) {
+            int s = random.nextInt(STRIPES);
+            for (int tries = 0; tries < STRIPES; tries++, s = (s + 1) & (STRIPES - 1)) {
+                Stripe stripe = stripes[s];
+                synchronized (stripe) {
+                    if (stripe.size == 0) continue;
+                    int i = random.nextInt(stripe.size);
+                    keys[n] = stripe.keys[i];
+                    entries[n] = stripe.entries[i];
+                    n++;
+                    break;
+                }
+            }
+        }
+        return n;
+    }
+
+    /**
+     * A key picked at random, or null if the map is empty.
+     */
+    public String randomKey() {
+        String[] key = new String[1];
+        return sample(key, new ValueEntry[1]) == 0 ? null : key[0];
+    }
+
+    @Override
+    public ValueEntry put(String key, ValueEntry value) {
+        if (value == null) throw new NullPointerException();
+        ValueEntry[] old = new ValueEntry[1];
+        super.compute(key, (k, o) -> {
+            old[0] = o;
+            swap(k, o, value);
+            return value;
+        });
+        return old[0];
+    }
+
+    @Override
+    public void putAll(Map<? extends String, ? extends ValueEntry> m) {
+        for (Map.Entry<? extends String, ? extends ValueEntry> e : m.entrySet()) put(e.getKey(), e.getValue());
+    }
+
+    @Override
+    public ValueEntry putIfAbsent(String key, ValueEntry value) {
+        if (value == null) throw new NullPointerException();
+        ValueEntry[] old = new ValueEntry[1];
+        super.compute(key, (k, o) -> {
+            if (o != null) {
+                old[0] = o;
+                return o;
+            }
+            swap(k, null, value);
+            return value;
+        });
+        return old[0];
+    }
+
+    @Override
+    public ValueEntry remove(Object key) {
+        if (!(key instanceof String)) return null;
+        ValueEntry[] old = new ValueEntry[1];
+        super.compute((String) key, (k, o) -> {
+            old[0] = o;
+            if (o != null) swap(k, o, null);
+            return null;
+        });
+        return old[0];
+    }
+
+    @Override
+    public boolean remove(Object key, Object value) {
+        if (!(key instanceof String) || value == null) return false;
+        boolean[] removed = new boolean[1];
+        super.compute((String) key, (k, o) -> {
+            if (o == null || !o.equals(value)) return o;
+            swap(k, o, null);
+            removed[0] = true;
+            return null;
+        });
+        return removed[0];
+    }
+
+    @Override
+    public ValueEntry replace(String key, ValueEntry value) {
+        if (value == null) throw new NullPointerException();
+        ValueEntry[] old = new ValueEntry[1];
+        super.compute(key, (k, o) -> {
+            if (o == null) return null;
+            old[0] = o;
+            swap(k, o, value);
+            return value;
+        });
+        return old[0];
+    }
+
+    @Override
+    public boolean replace(String key, ValueEntry oldValue, ValueEntry newValue) {
+        if (oldValue == null || newValue == null) throw new NullPointerException();
+        boolean[] replaced = new boolean[1];
+        super.compute(key, (k, o) -> {
+            if (o == null || !o.equals(oldValue)) return o;
+            swap(k, o, newValue);
+            replaced[0] = true;
+            return newValue;
+        });
+        return replaced[0];
+    }
+
+    @Override
+    public ValueEntry compute(String key, BiFunction<? super String, ? super ValueEntry, ? extends ValueEntry> fn) {
+        return super.compute(key, (k, o) -> {
+            ValueEntry n = fn.apply(k, o);
+            swap(k, o, n);
+            return n;
+        });
+    }
+
+    @Override
+    public ValueEntry computeIfAbsent(String key, Function<? super String, ? extends ValueEntry> fn) {
+        return super.compute(key, (k, o) -> {
+            if (o != null) return o;
+            ValueEntry n = fn.apply(k);
+            swap(k, null, n);
+            return n;
+        });
+    }
+
+    @Override
+    public ValueEntry computeIfPresent(String key, BiFunction<? super String, ? super ValueEntry, ? extends ValueEntry> fn) {
+        return super.compute(key, (k, o) -> {
+            if (o == null) return null;
+            ValueEntry n = fn.apply(k, o);
+            swap(k, o, n);
+            return n;
+        });
+    }
+
+    @Override
+    public ValueEntry merge(String key, ValueEntry value, BiFunction<? super ValueEntry, ? super ValueEntry, ? extends ValueEntry> fn) {
+        if (value == null) throw new NullPointerException();
+        return super.compute(key, (k, o) -> {
+            ValueEntry n = o == null ? value : fn.apply(o, value);
+            swap(k, o, n);
+            return n;
+        });
+    }
+
+    @Override
+    public void clear() {
+        for (String key : keySet()) remove(key);
+    }
+
+    // Called with the bin of key locked
+    private void swap(String key, ValueEntry old, ValueEntry now) {
+        if (old == now) {
+            // Same entry, possibly changed in place
+            if (now != null) resize(now);
+            return;
+        }
+        if (old != null) release(old);
+        if (now != null) charge(key, now);
+    }
+
+    private void charge(String key, ValueEntry v) {
+        synchronized (v) {
+            // Moved here without leaving its previous DB first (e.g. MOVE)
+            if (v.owner != null) v.owner.release(v);
+            v.owner = this;
+            v.keyMemory = MemoryEstimator.keySize(key);
+            v.memory = v.keyMemory + MemoryEstimator.valueSize(v);
+            add(v.type, v.memory);
+            index(key, v);
+        }
+    }
+
+    private void release(ValueEntry v) {
+        synchronized (v) {
+            if (v.owner != this) return;
+            add(v.type, -v.memory);
+            v.owner = null;
+            v.memory = 0;
+            unindex(v);
+        }
+    }
+
+    // v.slot is 0 outside the table, else (index + 1) << 4 | stripe
+
+    private void index(String key, ValueEntry v) {
+        int s = ThreadLocalRandom.current().nextInt(STRIPES);
+        Stripe stripe = stripes[s];
+        synchronized (stripe) {
+            if (stripe.size == stripe.keys.length) resize(stripe, stripe.size * 2);
+            int i = stripe.size++;
+            stripe.keys[i] = key;
+            stripe.entries[i] = v;
+            v.slot = (i + 1) << 4 | s;
+        }
+    }
+
+    private void unindex(ValueEntry v) {
+        // The stripe of an entry never changes, its index may (guarded by the stripe)
+        if (v.slot == 0) return;
+        int s = v.slot & (STRIPES - 1);
+        Stripe stripe = stripes[s];
+        synchronized (stripe) {
+            int i = (v.slot >>> 4) - 1;
+            int last = --stripe.size;
+            if (i != last) {
+                // Fill the hole with the last entry
+                stripe.keys[i] = stripe.keys[last];
+                stripe.entries[i] = stripe.entries[last];
+                stripe.entries[i].slot = (i + 1) << 4 | s;
+            }
+            stripe.keys[last] = null;
+            stripe.entries[last] = null;
+            v.slot = 0;
+            if (stripe.keys.length > 8 && stripe.size < stripe.keys.length / 4) resize(stripe, stripe.keys.length / 2);
+        }
+    }
+
+    private static void resize(Stripe stripe, int capacity) {
+        stripe.keys = Arrays.copyOf(stripe.keys, capacity);
+        stripe.entries = Arrays.copyOf(stripe.entries, capacity);
+    }
+
+    /**
+     * Re-estimates an entry of this map after its value changed.
+     */
+    void resize(ValueEntry v) {
+        synchronized (v) {
+            if (v.owner != this) return;
+            long size = v.keyMemory + MemoryEstimator.valueSize(v);
+            add(v.type, size - v.memory);
+            v.memory = size;
+        }
+    }
+
+    private void add(DataType type, long delta) {
+        if (delta == 0) return;
+        memory.add(delta);
+        if (type != null) typeMemory[type.ordinal()].add(delta);
+    }
+}
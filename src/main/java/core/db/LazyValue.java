@@ -0,0 +1,9 @@
+package core.db;
+
+/**
+ * A value that is still in its serialized form, e.g. a key of a lazily loaded snapshot.
+ * {@link ValueEntry#getValue()} replaces it with the decoded value on first access.
+ */
+public interface LazyValue {
+    Object load();
+}
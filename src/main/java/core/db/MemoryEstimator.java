@@ -0,0 +1,159 @@
+package core.db;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import core.structs.BloomFilter;
+import core.structs.CaradeHash;
+import core.structs.CaradeZSet;
+import core.structs.HyperLogLog;
+import core.structs.PackedHash;
+import core.structs.PackedList;
+import core.structs.PackedSet;
+import core.structs.Quicklist;
+import core.structs.tdigest.TDigest;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Heap size estimates of keys and values, for a 64-bit JVM with compressed references.
+ *
+ * Collections larger than the sample count are estimated from their first elements:
+ * average element size times element count, the way Redis' MEMORY USAGE samples. That
+ * keeps an estimate cheap enough to refresh after every write.
+ */
+public final class MemoryEstimator {
+    public static final int DEFAULT_SAMPLES = 32;
+
+    // Keyspace node and table slot, ValueEntry, sampling table slot
+    public static final long ENTRY_OVERHEAD = 40 + 64 + 8;
+    // String object + its byte[] header (compact strings)
+    private static final long STRING_OVERHEAD = 24 + 16;
+    private static final long ARRAY_OVERHEAD = 16;
+    private static final long MAP_OVERHEAD = 64;
+    // ConcurrentHashMap node + table slot
+    private static final long MAP_NODE = 40;
+    // ConcurrentLinkedDeque node
+    private static final long LIST_NODE = 24;
+    // Quicklist chunk node: links, array references, sizes
+    private static final long QUICKLIST_NODE = 40;
+    // Skip list node (score, member, links) with its next and span arrays
+    private static final long ZSET_NODE = 40 + 24 + 24;
+    // LazyValue references (offsets into a dump or a tier segment)
+    private static final long LAZY_VALUE = 32;
+    // PackedHash / PackedSet / PackedList / listpack CaradeZSet wrapper
+    private static final long PACKED_OVERHEAD = 32;
+
+    private MemoryEstimator() {}
+
+    public static long keySize(String key) {
+        return ENTRY_OVERHEAD + stringSize(key);
+    }
+
+    /**
+     * The key, its entry and its value.
+     */
+    public static long estimate(String key, ValueEntry v, int samples) {
+        return keySize(key) + valueSize(v, samples);
+    }
+
+    public static long valueSize(ValueEntry v) {
+        return valueSize(v, DEFAULT_SAMPLES);
+    }
+
+    /**
+     * Size of the value as stored: a value still on disk or compressed counts as such.
+     * samples 0 means every element.
+     */
+    public static long valueSize(ValueEntry v, int samples) {
+        Object value = v.peekValue();
+        if (value == null) return 0;
+        if (value instanceof LazyValue) return LAZY_VALUE;
+        if (value instanceof byte[]) return align(ARRAY_OVERHEAD + ((byte[]) value).length);
+        if (value instanceof String) return stringSize((String) value);
+        long packed = packedBytes(value);
+        if (packed >= 0) return PACKED_OVERHEAD + align(ARRAY_OVERHEAD + packed);
+        if (value instanceof CaradeZSet) {
+            CaradeZSet zset = (CaradeZSet) value;
+            return MAP_OVERHEAD * 2 + sampled(zset, zset.size(), samples, n -> MAP_NODE + ZSET_NODE + stringSize(n.member));
+        }
+        if (value instanceof PackedList) {
+            // Promoted to a quicklist: chunks, some compressed
+            Quicklist q = ((PackedList) value).table();
+            return PACKED_OVERHEAD + 32 + q.nodeCount() * (QUICKLIST_NODE + ARRAY_OVERHEAD) + q.storedBytes();
+        }
+        if (value instanceof CaradeHash) {
+            CaradeHash hash = (CaradeHash) value;
+            return MAP_OVERHEAD + mapSize(hash.map, samples) + hash.expirations.size() * (MAP_NODE + 16 + MAP_NODE);
+        }
+        if (value instanceof Map) return mapSize((Map<?, ?>) value, samples);
+        if (value instanceof Collection) {
+            Collection<?> c = (Collection<?>) value;
+            // Sets are maps of member to Boolean.TRUE; lists are deques of nodes
+            long node = v.type == DataType.SET ? MAP_NODE : LIST_NODE;
+            return MAP_OVERHEAD + sampled(c, c.size(), samples, e -> node + elementSize(e));
+        }
+        if (value instanceof BloomFilter) return 64 + align(ARRAY_OVERHEAD + ((BloomFilter) value).getBitSize() / 8);
+        if (value instanceof HyperLogLog) return 32 + align(ARRAY_OVERHEAD + ((HyperLogLog) value).registerCount());
+        if (value instanceof TDigest) return 96 + ((TDigest) value).centroidCount() * 32L;
+        if (value instanceof JsonNode) return jsonSize((JsonNode) value, samples, 0);
+        return 64;
+    }
+
+    // Bytes of a listpack-encoded value, or -1
+    private static long packedBytes(Object value) {
+        if (value instanceof PackedHash) return ((PackedHash) value).packedBytes();
+        if (value instanceof PackedSet) return ((PackedSet) value).packedBytes();
+        if (value instanceof PackedList) return ((PackedList) value).packedBytes();
+        if (value instanceof CaradeZSet) return ((CaradeZSet) value).packedBytes();
+        return -1;
+    }
+
+    public static long stringSize(String s) {
+        return align(STRING_OVERHEAD + s.length());
+    }
+
+    private static long mapSize(Map<?, ?> map, int samples) {
+        return MAP_OVERHEAD + sampled(map.entrySet(), map.size(), samples,
+                e -> MAP_NODE + elementSize(e.getKey()) + elementSize(e.getValue()));
+    }
+
+    private static long elementSize(Object e) {
+        if (e instanceof String) return stringSize((String) e);
+        if (e instanceof byte[]) return align(ARRAY_OVERHEAD + ((byte[]) e).length);
+        return 16;
+    }
+
+    private static long jsonSize(JsonNode node, int samples, int depth) {
+        if (node.isContainerNode()) {
+            if (depth >= 8) return 64L * node.size();
+            int d = depth + 1;
+            if (node.isObject()) {
+                return 48 + sampled(node.properties(), node.size(), samples,
+                        e -> MAP_NODE + stringSize(e.getKey()) + jsonSize(e.getValue(), samples, d));
+            }
+            return 48 + sampled(node, node.size(), samples, e -> 8 + jsonSize(e, samples, d));
+        }
+        if (node.isTextual()) return 16 + stringSize(node.textValue());
+        return 24;
+    }
+
+    private interface Sizer<T> {
+        long size(T element);
+    }
+
+    // Sum of the element sizes, extrapolated from the first samples elements (all if samples is 0)
+    private static <T> long sampled(Iterable<T> elements, int count, int samples, Sizer<T> sizer) {
+        if (count == 0) return 0;
+        long sum = 0;
+        int seen = 0;
+        for (T e : elements) {
+            sum += sizer.size(e);
+            if (++seen == samples) break;
+        }
+        return seen == 0 ? 0 : seen >= count ? sum : sum * count / seen;
+    }
+
+    private static long align(long size) {
+        return (size + 7) & ~7L;
+    }
+}
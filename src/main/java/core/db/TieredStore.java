@@ -0,0 +1,402 @@
+package core.db;
+
+import core.Carade;
+import core.persistence.rdb.RdbEncoder;
+import core.persistence.rdb.RdbParser;
+import core.persistence.rdb.SerializedValue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.ref.Cleaner;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Disk tier of maxmemory-policy tiered: instead of evicting, cold values are moved to
+ * append-only segment files and the keys (with type, TTL and access metadata) stay in heap.
+ *
+ * A spilled value is a {@link Spilled} reference holding the RDB serialization's place in
+ * a segment; {@link ValueEntry#getValue()} faults it back in on the first access, and
+ * {@link RdbEncoder} copies it into dumps and AOF rewrites without decoding it.
+ *
+ * Spilling replaces values in place, so it runs on the "Tier-Spiller" thread with the
+ * global lock held exclusively: no command holds a reference to a value being moved.
+ * The "Tier-Compactor" moves the live values out of sealed segments that are mostly dead
+ * (overwritten, deleted or faulted back in). A segment file is deleted once nothing
+ * references it any more, including a snapshot still writing one of its values.
+ *
+ * Segments only live as long as the process: the directory is emptied on startup, and
+ * durability stays with RDB and AOF.
+ */
+public class TieredStore {
+    private static final Cleaner CLEANER = Cleaner.create();
+
+    // Keys sampled per spilled value, the coldest one is spilled
+    private static final int SAMPLES = 5;
+    // Values spilled per request of the write path
+    private static final int SPILL_BATCH = 64;
+    private static final long COMPACT_INTERVAL_MS = 10_000;
+    // Sealed segments with less live data than this are compacted
+    private static final int COMPACT_LIVE_PERCENT = 50;
+
+    /**
+     * A value moved to a segment.
+     */
+    public static final class Spilled implements SerializedValue {
+        private final Segment segment;
+        private final long offset;
+        private final int length;
+        private final int type;
+
+        Spilled(Segment segment, long offset, int length, int type) {
+            this.segment = segment;
+            this.offset = offset;
+            this.length = length;
+            this.type = type;
+        }
+
+        @Override
+        public Object load() {
+            long start = System.nanoTime();
+            try {
+                byte[] bytes = segment.read(offset, length);
+                Object value = new RdbParser(new ByteArrayInputStream(bytes)).loadObject(type).getValue();
+                segment.store.recordFault(System.nanoTime() - start);
+                return value;
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot read spilled value at offset " + offset + " of " + segment.storage.path, e);
+            }
+        }
+
+        @Override
+        public int rdbType() {
+            return type;
+        }
+
+        @Override
+        public void writeTo(DataOutputStream out) throws IOException {
+            out.write(segment.read(offset, length));
+        }
+
+        public int length() {
+            return length;
+        }
+    }
+
+    static final class Segment {
+        final TieredStore store;
+        final Storage storage;
+
+        Segment(TieredStore store, Storage storage) {
+            this.store = store;
+            this.storage = storage;
+        }
+
+        byte[] read(long offset, int length) throws IOException {
+            ByteBuffer buf = ByteBuffer.allocate(length);
+            long pos = offset;
+            while (buf.hasRemaining()) {
+                int n = storage.channel.read(buf, pos);
+                if (n < 0) throw new EOFException("Segment " + storage.path + " is shorter than expected");
+                pos += n;
+            }
+            return buf.array();
+        }
+    }
+
+    // File of a segment, closed and deleted once its Segment is unreachable
+    private static final class Storage implements Runnable {
+        final Path path;
+        final FileChannel channel;
+        final AtomicLong diskBytes;
+        final AtomicInteger segments;
+        volatile long size;
+
+        Storage(Path path, AtomicLong diskBytes, AtomicInteger segments) throws IOException {
+            this.path = path;
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+            this.diskBytes = diskBytes;
+            this.segments = segments;
+            segments.incrementAndGet();
+        }
+
+        @Override
+        public void run() {
+            try {
+                channel.close();
+                Files.deleteIfExists(path);
+            } catch (IOException e) {
+                System.err.println("⚠️ Cannot delete tier segment " + path + ": " + e.getMessage());
+            }
+            diskBytes.addAndGet(-size);
+            segments.decrementAndGet();
+        }
+    }
+
+    // Resumable walk over one DB, so successive samples do not start over
+    private static final class Cursor {
+        final ConcurrentHashMap<String, ValueEntry> map;
+        Iterator<ValueEntry> it;
+
+        Cursor(ConcurrentHashMap<String, ValueEntry> map) {
+            this.map = map;
+            this.it = map.values().iterator();
+        }
+
+        ValueEntry next() {
+            if (!it.hasNext()) it = map.values().iterator();
+            return it.hasNext() ? it.next() : null;
+        }
+    }
+
+    private final CaradeDatabase db;
+    private final File dir;
+    private final long segmentSize;
+    private final int minValueBytes;
+
+    private Segment active; // Guarded by this
+    private long nextSegmentId;
+    private final Cursor[] cursors = new Cursor[CaradeDatabase.DB_COUNT];
+
+    private final ExecutorService spiller;
+    private final ScheduledExecutorService compactor;
+    private final AtomicBoolean spillPending = new AtomicBoolean();
+
+    private final AtomicLong spills = new AtomicLong();
+    private final AtomicLong faults = new AtomicLong();
+    private final AtomicLong faultNanos = new AtomicLong();
+    private final AtomicLong maxFaultNanos = new AtomicLong();
+    private final AtomicLong diskBytes = new AtomicLong();
+    private final AtomicInteger segments = new AtomicInteger();
+    private final AtomicLong compactedSegments = new AtomicLong();
+
+    public TieredStore(CaradeDatabase db, File dir, long segmentSize, int minValueBytes) {
+        this.db = db;
+        this.dir = dir;
+        this.segmentSize = segmentSize;
+        this.minValueBytes = minValueBytes;
+        dir.mkdirs();
+        File[] stale = dir.listFiles((d, name) -> name.startsWith("tier-") && name.endsWith(".seg"));
+        if (stale != null) {
+            for (File f : stale) f.delete();
+        }
+        this.spiller = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "Tier-Spiller");
+            t.setDaemon(true);
+            return t;
+        });
+        this.compactor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "Tier-Compactor");
+            t.setDaemon(true);
+            t.setPriority(Thread.MIN_PRIORITY);
+            return t;
+        });
+        compactor.scheduleWithFixedDelay(() -> {
+            try {
+                compact();
+            } catch (Exception e) {
+                System.err.println("⚠️ Tier compaction failed: " + e.getMessage());
+            }
+        }, COMPACT_INTERVAL_MS, COMPACT_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Asks the spiller for a batch of cold values of dbIndex. Returns at once; a request
+     * made while a batch is pending is dropped.
+     */
+    public void requestSpill(int dbIndex) {
+        if (!spillPending.compareAndSet(false, true)) return;
+        spiller.execute(() -> {
+            Carade.globalRWLock.writeLock().lock();
+            try {
+                spillColdValues(dbIndex, SPILL_BATCH);
+            } finally {
+                Carade.globalRWLock.writeLock().unlock();
+                spillPending.set(false);
+            }
+        });
+    }
+
+    /**
+     * Spills up to max values of dbIndex, each the least recently used of a few sampled
+     * keys. The caller must keep commands out (see {@link #requestSpill}).
+     * Returns the number of values spilled.
+     */
+    public int spillColdValues(int dbIndex, int max) {
+        ConcurrentHashMap<String, ValueEntry> map = db.getStore(dbIndex);
+        Cursor cursor = cursors[dbIndex];
+        if (cursor == null || cursor.map != map) cursors[dbIndex] = cursor = new Cursor(map);
+
+        long now = core.utils.Time.now();
+        int spilled = 0;
+        int budget = max * SAMPLES * 4;
+        while (spilled < max && budget > 0 && !map.isEmpty()) {
+            ValueEntry best = null;
+            for (int i = 0; i < SAMPLES && budget > 0; i++, budget--) {
+                ValueEntry v = cursor.next();
+                if (v == null || v.isExpired(now) || v.peekValue() instanceof LazyValue) continue;
+                if (best == null || v.getIdleTime() > best.getIdleTime()) best = v;
+            }
+            if (best == null) continue;
+            try {
+                if (spill(best)) spilled++;
+            } catch (IOException e) {
+                System.err.println("⚠️ Cannot spill to " + dir + ": " + e.getMessage());
+                break;
+            }
+        }
+        return spilled;
+    }
+
+    /**
+     * Moves the value of v to the active segment. Values whose serialization is under
+     * the minimum size, or that are already on disk, stay as they are.
+     */
+    public boolean spill(ValueEntry v) throws IOException {
+        synchronized (v) {
+            Object stored = v.peekValue();
+            if (stored == null || stored instanceof LazyValue) return false;
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try {
+                new RdbEncoder().encodeValue(new DataOutputStream(bytes), v);
+            } catch (IOException | RuntimeException e) {
+                return false; // No RDB encoding for this value
+            }
+            if (bytes.size() < minValueBytes) return false;
+            v.setValue(append(bytes.toByteArray(), RdbEncoder.typeOf(v)));
+        }
+        spills.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * One compaction pass: sums the live bytes of every sealed segment, then moves the
+     * values out of those under {@link #COMPACT_LIVE_PERCENT}. Returns the number of
+     * segments emptied. Skipped while a snapshot runs (it may hold values removed since).
+     */
+    public int compact() throws IOException {
+        if (CowSnapshot.isActive()) return 0;
+        Segment current;
+        synchronized (this) {
+            current = active;
+        }
+        Map<Segment, long[]> live = new IdentityHashMap<>();
+        for (int i = 0; i < CaradeDatabase.DB_COUNT; i++) {
+            for (ValueEntry v : db.getStore(i).values()) {
+                Spilled s = spilledIn(v);
+                if (s != null && s.segment != current) live.computeIfAbsent(s.segment, k -> new long[1])[0] += s.length;
+            }
+        }
+        Set<Segment> sparse = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Map.Entry<Segment, long[]> e : live.entrySet()) {
+            if (e.getValue()[0] * 100 < e.getKey().storage.size * COMPACT_LIVE_PERCENT) sparse.add(e.getKey());
+        }
+        if (sparse.isEmpty()) return 0;
+
+        for (int i = 0; i < CaradeDatabase.DB_COUNT; i++) {
+            for (ValueEntry v : db.getStore(i).values()) {
+                Spilled s = spilledIn(v);
+                if (s == null || !sparse.contains(s.segment)) continue;
+                synchronized (v) {
+                    // Faulted in or replaced meanwhile
+                    if (v.peekValue() != s) continue;
+                    v.setValue(append(s.segment.read(s.offset, s.length), s.type));
+                }
+            }
+        }
+        compactedSegments.addAndGet(sparse.size());
+        return sparse.size();
+    }
+
+    private Spilled spilledIn(ValueEntry v) {
+        Object stored = v.peekValue();
+        if (!(stored instanceof Spilled)) return null;
+        Spilled s = (Spilled) stored;
+        return s.segment.store == this ? s : null;
+    }
+
+    private synchronized Spilled append(byte[] bytes, int type) throws IOException {
+        if (active == null || (active.storage.size > 0 && active.storage.size + bytes.length > segmentSize)) {
+            Path path = new File(dir, "tier-" + (nextSegmentId++) + ".seg").toPath();
+            Storage storage = new Storage(path, diskBytes, segments);
+            active = new Segment(this, storage);
+            CLEANER.register(active, storage);
+        }
+        Storage storage = active.storage;
+        long offset = storage.size;
+        ByteBuffer buf = ByteBuffer.wrap(bytes);
+        long pos = offset;
+        while (buf.hasRemaining()) pos += storage.channel.write(buf, pos);
+        storage.size = pos;
+        diskBytes.addAndGet(bytes.length);
+        return new Spilled(active, offset, bytes.length, type);
+    }
+
+    private void recordFault(long nanos) {
+        faults.incrementAndGet();
+        faultNanos.addAndGet(nanos);
+        maxFaultNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    /**
+     * Stops the spiller and the compactor. Segments are deleted as their values go.
+     */
+    public void shutdown() {
+        spiller.shutdownNow();
+        compactor.shutdownNow();
+    }
+
+    public long getSpills() {
+        return spills.get();
+    }
+
+    public long getFaults() {
+        return faults.get();
+    }
+
+    public long getAvgFaultMicros() {
+        long n = faults.get();
+        return n == 0 ? 0 : faultNanos.get() / n / 1000;
+    }
+
+    public long getMaxFaultMicros() {
+        return maxFaultNanos.get() / 1000;
+    }
+
+    /**
+     * Bytes of the segment files not deleted yet, dead values included.
+     */
+    public long getDiskBytes() {
+        return diskBytes.get();
+    }
+
+    public int getSegments() {
+        return segments.get();
+    }
+
+    public long getCompactedSegments() {
+        return compactedSegments.get();
+    }
+}
@@ -3,28 +3,50 @@ package core.db;
 import java.io.*;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentLinkedDeque;
+import core.structs.CaradeHash;
 import core.structs.CaradeZSet;
+import core.structs.PackedHash;
+import core.structs.PackedList;
+import core.structs.PackedSet;
 
 public class ValueEntry implements Serializable {
     public Object value; 
     public DataType type;
     public long expireAt = -1;
-    public long lastAccessed;
-    public int frequency = 0;
+    // LRU clock of the last access or, under an LFU policy, its minute and log counter (see Eviction)
+    public int lru;
+    // Epoch of the last CowSnapshot that wrote this entry
+    public transient volatile long savedEpoch = 0;
+    // Heap estimate charged to owner, the Keyspace holding the entry (guarded by this)
+    transient volatile Keyspace owner;
+    transient long memory;
+    transient long keyMemory;
+    // Place in the sampling table of owner (see Keyspace)
+    transient int slot;
     
     public ValueEntry(Object value, DataType type, long expireAt) {
         this.value = value;
         this.type = type;
         this.expireAt = expireAt;
-        this.lastAccessed = core.utils.Time.now();
+        this.lru = Eviction.initialAccess();
     }
     
     public void touch() {
-        this.lastAccessed = core.utils.Time.now();
-        if (this.frequency < Integer.MAX_VALUE) {
-            this.frequency++;
-        }
+        this.lru = Eviction.access(lru);
+    }
+
+    /**
+     * Milliseconds since the last access (LRU policies; one second resolution).
+     */
+    public long getIdleTime() {
+        return Eviction.idleMillis(lru);
+    }
+
+    /**
+     * The decayed LFU counter (LFU policies), 0 to 255.
+     */
+    public int getFrequency() {
+        return Eviction.frequency(lru);
     }
     
     public boolean isExpired() {
@@ -39,89 +61,46 @@ public class ValueEntry implements Serializable {
     public void setExpireAt(long expireAt) { this.expireAt = expireAt; }
 
     public synchronized Object getValue() {
-        if (value instanceof byte[] && type != DataType.STRING) {
-            inflate();
+        Object stored = value;
+        if (value instanceof LazyValue) {
+            value = ((LazyValue) value).load();
         }
+        if (value != stored) resized();
+        return value;
+    }
+
+    /**
+     * Estimated heap bytes of the key, this entry and its value, as last accounted
+     * (0 while the entry is in no DB).
+     */
+    public synchronized long getMemory() {
+        return memory;
+    }
+
+    /**
+     * Re-estimates the memory of this entry after its value changed in place.
+     */
+    public void resized() {
+        Keyspace k = owner;
+        if (k != null) k.resize(this);
+    }
+
+    /**
+     * The value as stored, without inflating or loading it (a {@link LazyValue} stays one).
+     */
+    public synchronized Object peekValue() {
         return value;
     }
     
     public synchronized void setValue(Object val) {
         this.value = val;
+        resized();
     }
     
-    public synchronized void compress() {
-        if (value instanceof byte[]) return; 
-        
-        try {
-            if (type == DataType.LIST) {
-                ConcurrentLinkedDeque<String> list = (ConcurrentLinkedDeque<String>) value;
-                if (list.size() < 512) { 
-                    ByteArrayOutputStream bos = new ByteArrayOutputStream();
-                    DataOutputStream dos = new DataOutputStream(bos);
-                    dos.writeInt(list.size());
-                    for(String s : list) {
-                        byte[] b = s.getBytes("UTF-8");
-                        dos.writeInt(b.length);
-                        dos.write(b);
-                    }
-                    this.value = bos.toByteArray();
-                }
-            } else if (type == DataType.HASH) {
-                ConcurrentHashMap<String, String> map = (ConcurrentHashMap<String, String>) value;
-                if (map.size() < 512) {
-                     ByteArrayOutputStream bos = new ByteArrayOutputStream();
-                    DataOutputStream dos = new DataOutputStream(bos);
-                    dos.writeInt(map.size());
-                    for(Map.Entry<String, String> e : map.entrySet()) {
-                        byte[] k = e.getKey().getBytes("UTF-8");
-                        byte[] v = e.getValue().getBytes("UTF-8");
-                        dos.writeInt(k.length);
-                        dos.write(k);
-                        dos.writeInt(v.length);
-                        dos.write(v);
-                    }
-                    this.value = bos.toByteArray();
-                }
-            }
-        } catch (Exception e) {}
-    }
-    
-    private void inflate() {
-        try {
-            byte[] data = (byte[]) value;
-            DataInputStream dis = new DataInputStream(new ByteArrayInputStream(data));
-            
-            if (type == DataType.LIST) {
-                int size = dis.readInt();
-                ConcurrentLinkedDeque<String> list = new ConcurrentLinkedDeque<>();
-                for(int i=0; i<size; i++) {
-                    int len = dis.readInt();
-                    byte[] b = new byte[len];
-                    dis.readFully(b);
-                    list.add(new String(b, "UTF-8"));
-                }
-                this.value = list;
-            } else if (type == DataType.HASH) {
-                int size = dis.readInt();
-                ConcurrentHashMap<String, String> map = new ConcurrentHashMap<>();
-                for(int i=0; i<size; i++) {
-                     int klen = dis.readInt();
-                     byte[] kb = new byte[klen];
-                     dis.readFully(kb);
-                     int vlen = dis.readInt();
-                     byte[] vb = new byte[vlen];
-                     dis.readFully(vb);
-                     map.put(new String(kb, "UTF-8"), new String(vb, "UTF-8"));
-                }
-                this.value = map;
-            }
-        } catch (Exception e) {}
-    }
-
     @SuppressWarnings("unchecked")
     public ValueEntry copy() {
         Object newVal = null;
-        Object val = getValue(); // Ensure inflated
+        Object val = getValue(); // Ensure loaded
         
         switch (type) {
             case STRING:
@@ -132,14 +111,20 @@ public class ValueEntry implements Serializable {
                 }
                 break;
             case LIST:
-                newVal = new ConcurrentLinkedDeque<>((ConcurrentLinkedDeque<String>) val);
+                newVal = val instanceof PackedList ? ((PackedList) val).copy() : new PackedList((Deque<String>) val);
                 break;
             case SET:
-                newVal = java.util.Collections.newSetFromMap(new java.util.concurrent.ConcurrentHashMap<>());
-                ((Set<String>)newVal).addAll((Set<String>) val);
+                newVal = new PackedSet((Set<String>) val);
                 break;
             case HASH:
-                newVal = new ConcurrentHashMap<>((ConcurrentHashMap<String, String>) val);
+                if (val instanceof CaradeHash) {
+                    CaradeHash hash = (CaradeHash) val;
+                    CaradeHash h = new CaradeHash(new ConcurrentHashMap<>(hash.map));
+                    h.expirations.putAll(hash.expirations);
+                    newVal = h;
+                } else {
+                    newVal = new PackedHash((Map<String, String>) val);
+                }
                 break;
             case ZSET:
                 newVal = ((CaradeZSet) val).copy();
@@ -154,7 +139,7 @@ public class ValueEntry implements Serializable {
                 newVal = ((core.structs.tdigest.TDigest) val).copy();
                 break;
             case JSON:
-                newVal = val; // Immutable structure or handled by library (Jackson JsonNode is immutable)
+                newVal = ((com.fasterxml.jackson.databind.JsonNode) val).deepCopy(); // ObjectNode / ArrayNode are mutable
                 break;
         }
         
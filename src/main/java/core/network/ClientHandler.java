@@ -3,18 +3,27 @@ package core.network;
 import core.Carade;
 import core.Config;
 import core.PubSub;
+import core.commands.Args;
 import core.commands.Command;
+import core.commands.CommandMetadata;
 import core.commands.CommandRegistry;
+import core.db.CowSnapshot;
+import core.db.ValueEntry;
 import core.protocol.Resp;
+import core.protocol.netty.RespArgs;
+import core.protocol.netty.RespWriter;
+import core.server.LockManager;
+import core.server.ShardManager;
 import core.server.WriteSequencer;
+import core.utils.ByteStrings;
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.util.ReferenceCountUtil;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
-import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
@@ -41,6 +50,27 @@ public class ClientHandler extends ChannelInboundHandlerAdapter implements PubSu
     private OutputStream captureBuffer = null; // For capturing output during transactions
     private boolean disableAofLogging = false;
 
+    // Write batching: replies produced while a read burst is being handled are only written,
+    // channelReadComplete flushes them with a single syscall. Only touched on the event loop.
+    private boolean inReadBurst = false;
+    private boolean hasUnflushed = false;
+    private int unflushedBytes = 0;
+    private int maxUnflushedBytes = Config.DEFAULT_MAX_UNFLUSHED_BYTES;
+    private boolean flushConsolidation = false;
+
+    // appendfsync always: replies of a burst are flushed only once its last write is durable
+    private boolean durableReplies = false;
+    private long awaitingSequence = -1;
+
+    // Shard mode: replies (and the durability sequence) of a command running on a shard thread.
+    // Guarded by this; the loop emits them in order once the command completed.
+    private List<Object> shardReplies = null;
+    private long shardSequence = -1;
+    // Shard mode, event loop only: a command is in flight on a shard, and the messages read
+    // meanwhile, handled in order once it completed
+    private boolean inFlight = false;
+    private final ArrayDeque<Object> deferred = new ArrayDeque<>();
+
     public void setDisableAofLogging(boolean disable) {
         this.disableAofLogging = disable;
     }
@@ -84,6 +114,12 @@ public class ClientHandler extends ChannelInboundHandlerAdapter implements PubSu
     @Override
     public void channelActive(ChannelHandlerContext ctx) throws Exception {
         this.ctx = ctx;
+        Config config = Carade.config;
+        if (config != null) {
+            this.maxUnflushedBytes = config.maxUnflushedBytes;
+            this.flushConsolidation = config.flushConsolidation;
+        }
+        this.durableReplies = WriteSequencer.getInstance().isDurableRepliesRequired();
         Carade.activeConnections.incrementAndGet();
         Carade.connectedClients.add(this);
         super.channelActive(ctx);
@@ -95,6 +131,12 @@ public class ClientHandler extends ChannelInboundHandlerAdapter implements PubSu
         super.channelInactive(ctx);
     }
 
+    @Override
+    public void channelReadComplete(ChannelHandlerContext ctx) throws Exception {
+        endReadBurst();
+        super.channelReadComplete(ctx);
+    }
+
     @Override
     public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
         // cause.printStackTrace();
@@ -102,6 +144,7 @@ public class ClientHandler extends ChannelInboundHandlerAdapter implements PubSu
     }
     
     private void cleanup() {
+        while (!deferred.isEmpty()) ReferenceCountUtil.release(deferred.poll());
         Carade.pubSub.unsubscribeAll(this);
         core.replication.ReplicationManager.getInstance().removeReplica(this);
         Carade.monitors.remove(this);
@@ -157,10 +200,11 @@ public class ClientHandler extends ChannelInboundHandlerAdapter implements PubSu
                          ByteBuf b = (ByteBuf) data;
                          byte[] arr = new byte[b.readableBytes()];
                          b.getBytes(b.readerIndex(), arr);
+                         b.release();
                          captureBuffer.write(arr);
                     }
                 } else if (!isResp && textData != null) {
-                    captureBuffer.write((textData + "\n").getBytes(StandardCharsets.UTF_8));
+                    captureBuffer.write((textData + "\n").getBytes(ByteStrings.CHARSET));
                 }
             } catch (IOException e) {
                 e.printStackTrace();
@@ -168,21 +212,94 @@ public class ClientHandler extends ChannelInboundHandlerAdapter implements PubSu
             return;
         }
 
-        if (ctx == null) return;
+        if (ctx == null) {
+            ReferenceCountUtil.release(data);
+            return;
+        }
         
         if (isResp) {
-            if (data != null) ctx.writeAndFlush(data);
+            if (data != null) emit(data);
+        } else {
+             ReferenceCountUtil.release(data);
+             if (textData != null) emit(textData + "\n");
+        }
+    }
+
+    private void emit(Object msg) {
+        if (shardReplies != null && !ctx.executor().inEventLoop()) {
+            shardReplies.add(msg);
+            return;
+        }
+        if (inReadBurst && ctx.executor().inEventLoop()) {
+            ctx.write(msg);
+            hasUnflushed = true;
+            unflushedBytes += sizeOf(msg);
+            // Large pipelined replies should not pile up until the end of the burst
+            // (unless they must wait for the AOF, see holdUntilDurable)
+            if (unflushedBytes >= maxUnflushedBytes && !durableReplies) flushPending();
+        } else if (flushConsolidation) {
+            // Pushes (pub/sub, blocking wakeups, replication) are flushed at the end of the loop's current batch
+            FlushBatch.write(ctx, msg);
         } else {
-             if (textData != null) ctx.writeAndFlush(textData + "\n");
+            ctx.writeAndFlush(msg);
+        }
+    }
+
+    private static int sizeOf(Object msg) {
+        if (msg instanceof ByteBuf) return ((ByteBuf) msg).readableBytes();
+        if (msg instanceof byte[]) return ((byte[]) msg).length;
+        if (msg instanceof String) return ((String) msg).length();
+        return 0;
+    }
+
+    private void flushPending() {
+        if (hasUnflushed) {
+            hasUnflushed = false;
+            unflushedBytes = 0;
+            ctx.flush();
         }
     }
 
+    private void endReadBurst() {
+        inReadBurst = false;
+        if (holdUntilDurable()) return;
+        flushPending();
+    }
+
+    /**
+     * appendfsync always: if the burst wrote to the AOF, stop reading and flush its
+     * replies once the pipeline has forced that write. Returns false if nothing to wait for.
+     */
+    private boolean holdUntilDurable() {
+        long seq = awaitingSequence;
+        if (seq < 0) return false;
+        awaitingSequence = -1;
+        WriteSequencer sequencer = WriteSequencer.getInstance();
+        if (!hasUnflushed || sequencer.isDurable(seq)) return false;
+        ctx.channel().config().setAutoRead(false);
+        sequencer.whenDurable(seq, () -> ctx.executor().execute(() -> {
+            flushPending();
+            ctx.channel().config().setAutoRead(true);
+        }));
+        return true;
+    }
+
+    private void closeAfterFlush() {
+        flushPending();
+        ctx.close();
+    }
+
+    // RESP replies are encoded straight into a pooled buffer unless they are being captured (EXEC)
+    private boolean directReplies() {
+        return currentIsResp && ctx != null && captureBuffer == null;
+    }
+
     // Deprecated / Adapted signature for existing commands
     public void send(OutputStream out, boolean isResp, byte[] respData, String textData) {
         if (out instanceof ByteArrayOutputStream) {
             try {
                 if (isResp && respData != null) out.write(respData);
-                else if (!isResp && textData != null) out.write((textData + "\n").getBytes(StandardCharsets.UTF_8));
+                else if (!isResp && textData != null) out.write((textData + "\n").getBytes(ByteStrings.CHARSET));
             } catch (IOException e) {}
             return;
         }
@@ -191,8 +308,8 @@ public class ClientHandler extends ChannelInboundHandlerAdapter implements PubSu
     }
     
     // For ExecCommand to write raw buffer
-    public void writeDirect(Object msg) {
-        if (ctx != null) ctx.writeAndFlush(msg);
+    public synchronized void writeDirect(Object msg) {
+        if (ctx != null) emit(msg);
     }
     
     public void scheduleTimeout(Runnable task, long delayMs) {
@@ -214,35 +331,35 @@ public class ClientHandler extends ChannelInboundHandlerAdapter implements PubSu
     }
     
     public void sendSimpleString(String msg) {
-        send(currentIsResp, Resp.simpleString(msg), msg);
+        send(currentIsResp, directReplies() ? RespWriter.simpleString(ctx.alloc(), msg) : Resp.simpleString(msg), msg);
     }
 
     public void sendError(String msg) {
-        send(currentIsResp, Resp.error(msg), "(error) " + msg);
+        send(currentIsResp, directReplies() ? RespWriter.error(ctx.alloc(), msg) : Resp.error(msg), "(error) " + msg);
     }
 
     public void sendInteger(long i) {
-        send(currentIsResp, Resp.integer(i), "(integer) " + i);
+        send(currentIsResp, directReplies() ? RespWriter.integer(ctx.alloc(), i) : Resp.integer(i), "(integer) " + i);
     }
     
     public void sendNull() {
-        send(currentIsResp, Resp.bulkString((byte[])null), "(nil)");
+        send(currentIsResp, directReplies() ? RespWriter.nullBulk() : Resp.bulkString((byte[])null), "(nil)");
     }
     
     public void sendBulkString(String s) {
-        send(currentIsResp, Resp.bulkString(s), s == null ? "(nil)" : "\"" + s + "\"");
+        send(currentIsResp, directReplies() ? RespWriter.bulkString(ctx.alloc(), s) : Resp.bulkString(s), s == null ? "(nil)" : "\"" + s + "\"");
     }
     
     public void sendArray(List<byte[]> list) {
         if (currentIsResp) {
-            send(true, Resp.array(list), null);
+            send(true, directReplies() ? RespWriter.array(ctx.alloc(), list) : Resp.array(list), null);
         } else {
             StringBuilder sb = new StringBuilder();
             if (list == null || list.isEmpty()) {
                 sb.append("(empty list or set)");
             } else {
                 for (int i = 0; i < list.size(); i++) {
-                    sb.append(i + 1).append(") \"").append(new String(list.get(i), StandardCharsets.UTF_8)).append("\"\n");
+                    sb.append(i + 1).append(") \"").append(new String(list.get(i), ByteStrings.CHARSET)).append("\"\n");
                 }
             }
             send(false, null, sb.toString().trim());
@@ -251,7 +368,7 @@ public class ClientHandler extends ChannelInboundHandlerAdapter implements PubSu
     
     public void sendMixedArray(List<Object> list) {
          if (currentIsResp) {
-             send(true, Resp.mixedArray(list), null);
+             send(true, directReplies() ? RespWriter.mixedArray(ctx.alloc(), list) : Resp.mixedArray(list), null);
          } else {
              send(false, null, mixedArrayToString(list, 0).trim());
          }
@@ -259,21 +376,23 @@ public class ClientHandler extends ChannelInboundHandlerAdapter implements PubSu
 
     public void executeWrite(Runnable dbOp, String cmdName, Object... args) {
         byte[] serializedCmd = null;
+        int keys = 1;
         if (!disableAofLogging) {
             List<byte[]> parts = new ArrayList<>();
-            parts.add(cmdName.getBytes(StandardCharsets.UTF_8));
+            parts.add(cmdName.getBytes(ByteStrings.CHARSET));
             for (Object arg : args) {
                 if (arg instanceof String) {
-                    parts.add(((String) arg).getBytes(StandardCharsets.UTF_8));
+                    parts.add(((String) arg).getBytes(ByteStrings.CHARSET));
                 } else if (arg instanceof byte[]) {
                     parts.add((byte[]) arg);
                 } else {
-                    parts.add(String.valueOf(arg).getBytes(StandardCharsets.UTF_8));
+                    parts.add(String.valueOf(arg).getBytes(ByteStrings.CHARSET));
                 }
             }
             serializedCmd = Resp.array(parts);
+            keys = LockManager.getInstance().countKeys(cmdName, parts);
         }
-        WriteSequencer.getInstance().executeWrite(dbOp, serializedCmd);
+        WriteSequencer.getInstance().executeWrite(dbOp, serializedCmd, keys);
     }
     
     private String mixedArrayToString(List<Object> list, int level) {
@@ -285,7 +404,7 @@ public class ClientHandler extends ChannelInboundHandlerAdapter implements PubSu
             
             sb.append(i + 1).append(") ");
             if (o instanceof byte[]) {
-                sb.append("\"").append(new String((byte[]) o, StandardCharsets.UTF_8)).append("\"\n");
+                sb.append("\"").append(new String((byte[]) o, ByteStrings.CHARSET)).append("\"\n");
             } else if (o instanceof Long || o instanceof Integer) {
                 sb.append("(integer) ").append(o).append("\n");
             } else if (o instanceof List) {
@@ -317,17 +436,17 @@ public class ClientHandler extends ChannelInboundHandlerAdapter implements PubSu
         if (currentIsResp) {
             if (pattern != null) {
                 List<byte[]> resp = new ArrayList<>();
-                resp.add("pmessage".getBytes(StandardCharsets.UTF_8));
-                resp.add(pattern.getBytes(StandardCharsets.UTF_8));
-                resp.add(channel.getBytes(StandardCharsets.UTF_8));
-                resp.add(message.getBytes(StandardCharsets.UTF_8));
-                send(true, Resp.array(resp), null);
+                resp.add("pmessage".getBytes(ByteStrings.CHARSET));
+                resp.add(pattern.getBytes(ByteStrings.CHARSET));
+                resp.add(channel.getBytes(ByteStrings.CHARSET));
+                resp.add(message.getBytes(ByteStrings.CHARSET));
+                send(true, directReplies() ? RespWriter.array(ctx.alloc(), resp) : Resp.array(resp), null);
             } else {
                 List<byte[]> resp = new ArrayList<>();
-                resp.add("message".getBytes(StandardCharsets.UTF_8));
-                resp.add(channel.getBytes(StandardCharsets.UTF_8));
-                resp.add(message.getBytes(StandardCharsets.UTF_8));
-                send(true, Resp.array(resp), null);
+                resp.add("message".getBytes(ByteStrings.CHARSET));
+                resp.add(channel.getBytes(ByteStrings.CHARSET));
+                resp.add(message.getBytes(ByteStrings.CHARSET));
+                send(true, directReplies() ? RespWriter.array(ctx.alloc(), resp) : Resp.array(resp), null);
             }
         } else {
             if (pattern != null) send(false, null, "[MSG][" + pattern + "] " + channel + ": " + message);
@@ -343,31 +462,57 @@ public class ClientHandler extends ChannelInboundHandlerAdapter implements PubSu
 
     @Override
     public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        inReadBurst = true;
+        if (inFlight) {
+            // Keeps pipeline order behind the command running on a shard
+            deferred.add(msg);
+            ctx.channel().config().setAutoRead(false);
+            return;
+        }
         if (msg instanceof List) {
             List<byte[]> parts = (List<byte[]>) msg;
             
             if (Carade.pauseEndTime > System.currentTimeMillis()) {
                  long diff = Carade.pauseEndTime - System.currentTimeMillis();
                  if (diff > 0) {
+                     // Ownership of a zero-copy RespArgs moves to the deferred read
                      ctx.executor().schedule(() -> {
                          try {
                              channelRead(ctx, msg); 
-                         } catch (Exception e) {}
+                         } catch (Exception e) {
+                         } finally {
+                             // No channelReadComplete follows a deferred read
+                             endReadBurst();
+                         }
                      }, diff, TimeUnit.MILLISECONDS);
                      return;
                  }
             }
 
-            handleCommand(parts);
+            try {
+                handleCommand(parts);
+            } finally {
+                // Zero-copy arguments are slices of the read buffer; free them once the command ran
+                // (a command in flight on a shard frees them when it completes)
+                if (!inFlight) ReferenceCountUtil.release(msg);
+            }
         }
     }
 
+    private static String commandName(List<byte[]> parts) {
+        String name = parts instanceof RespArgs
+                ? CommandRegistry.lookupName(((RespArgs) parts).slice(0))
+                : CommandRegistry.lookupName(parts.get(0));
+        // Unknown commands still need a name for errors, MONITOR and ACL checks
+        return name != null ? name : new String(parts.get(0), ByteStrings.CHARSET).toUpperCase();
+    }
+
     private void handleCommand(List<byte[]> parts) {
         if (parts.isEmpty()) return;
         Carade.totalCommands.incrementAndGet();
 
         long startTime = System.nanoTime();
-        String cmd = new String(parts.get(0), StandardCharsets.UTF_8).toUpperCase();
+        String cmd = commandName(parts);
         
         boolean isResp = true; 
         this.currentIsResp = true;
@@ -379,7 +524,7 @@ public class ClientHandler extends ChannelInboundHandlerAdapter implements PubSu
             sb.append(String.format(java.util.Locale.US, "%.6f", now / 1000.0)).append(" [").append(dbIndex).append(" ").append(ctx != null && ctx.channel().remoteAddress() != null ? ctx.channel().remoteAddress() : "0.0.0.0:0").append("] ");
             sb.append("\"").append(cmd).append("\"");
             for (int i = 1; i < parts.size(); i++) {
-                sb.append(" \"").append(new String(parts.get(i), StandardCharsets.UTF_8)).append("\"");
+                sb.append(" \"").append(new String(parts.get(i), ByteStrings.CHARSET)).append("\"");
             }
             String logLine = sb.toString();
             for (ClientHandler monitor : Carade.monitors) {
@@ -392,7 +537,7 @@ public class ClientHandler extends ChannelInboundHandlerAdapter implements PubSu
         // Handle Monitor mode blocking
         if (isMonitor) {
             if (cmd.equals("QUIT")) {
-                ctx.close();
+                closeAfterFlush();
                 return;
             }
             return; 
@@ -401,7 +546,7 @@ public class ClientHandler extends ChannelInboundHandlerAdapter implements PubSu
         // Handle Subs commands in Sub mode
         if (isSubscribed) {
             if (cmd.equals("QUIT")) {
-                ctx.close();
+                closeAfterFlush();
                 return;
             }
             if (!Arrays.asList("SUBSCRIBE", "UNSUBSCRIBE", "PSUBSCRIBE", "PUNSUBSCRIBE").contains(cmd)) {
@@ -423,68 +568,167 @@ public class ClientHandler extends ChannelInboundHandlerAdapter implements PubSu
              return;
         }
 
+        // Writes whose AOF append failed are not acknowledged as done; refuse new ones meanwhile
+        String aofError = WriteSequencer.getInstance().getAofError();
+        if (aofError != null) {
+            CommandMetadata meta = CommandRegistry.getMetadata(cmd);
+            if (meta != null && meta.getFlags().contains("write")) {
+                sendError("MISCONF Errors writing to the AOF file: " + aofError);
+                return;
+            }
+        }
+
         try {
             // Handle Transactions Pre-check (Execution Logic moved to ExecCommand, but Dispatcher still needs to know about Queueing)
             if (isInTransaction && !cmd.equals("AUTH") && !cmd.equals("QUIT") && !cmd.equals("EXEC") && !cmd.equals("DISCARD") && !cmd.equals("WATCH")) {
-                transactionQueue.add(parts);
-                send(isResp, Resp.simpleString("QUEUED"), "QUEUED");
+                // Queued commands outlive the read buffer
+                transactionQueue.add(parts instanceof RespArgs ? ((RespArgs) parts).detach() : parts);
+                sendSimpleString("QUEUED");
                 return;
             }
 
-            boolean needsWriteLock = isWriteCommand(cmd) || Arrays.asList("BGREWRITEAOF", "EXEC", "MULTI", "DISCARD").contains(cmd);
-            
-            // Note: EXEC needs write lock because it executes write commands
-
-            if (needsWriteLock) {
-                Carade.globalRWLock.writeLock().lock();
-                try {
-                    executeCommand(parts, null, isResp); 
-                } finally {
-                    Carade.globalRWLock.writeLock().unlock();
-                }
-            } else {
-                Carade.globalRWLock.readLock().lock();
-                try {
-                    executeCommand(parts, null, isResp);
-                } finally {
-                    Carade.globalRWLock.readLock().unlock();
-                }
+            ShardManager shards = ShardManager.getInstance();
+            if (shards.isEnabled() && ctx != null && submitToShard(shards, cmd, parts, isResp, startTime)) {
+                return; // Completes on the event loop, see completeSharded
+            }
+            // Global lock (shared or exclusive) + key stripes, see LockManager
+            LockManager.Scope scope = LockManager.getInstance().acquire(cmd, parts);
+            try {
+                executeCommand(parts, null, isResp);
+            } finally {
+                scope.release();
             }
             
             if (cmd.equals("QUIT")) {
-                ctx.close();
+                closeAfterFlush();
             }
 
         } catch (Exception e) { 
             sendError("ERR " + e.getMessage());
         } finally {
-            long duration = System.nanoTime() - startTime;
-            if (duration > 10_000_000) { // 10ms
-                StringBuilder sb = new StringBuilder();
-                sb.append(System.currentTimeMillis()).append(" ");
-                sb.append(duration / 1000).append("us "); // microseconds
-                for (byte[] part : parts) {
-                    sb.append(new String(part, StandardCharsets.UTF_8)).append(" ");
-                }
-                Carade.slowLog.add(sb.toString().trim());
-                while (Carade.slowLog.size() > Carade.SLOWLOG_MAX_LEN) {
-                    Carade.slowLog.poll();
-                }
+            if (!inFlight) logIfSlow(parts, startTime);
+        }
+    }
+
+    private static void logIfSlow(List<byte[]> parts, long startTime) {
+        long duration = System.nanoTime() - startTime;
+        if (duration > 10_000_000) { // 10ms
+            StringBuilder sb = new StringBuilder();
+            sb.append(System.currentTimeMillis()).append(" ");
+            sb.append(duration / 1000).append("us "); // microseconds
+            for (byte[] part : parts) {
+                sb.append(new String(part, ByteStrings.CHARSET)).append(" ");
+            }
+            Carade.slowLog.add(sb.toString().trim());
+            while (Carade.slowLog.size() > Carade.SLOWLOG_MAX_LEN) {
+                Carade.slowLog.poll();
             }
         }
     }
-    
+
+    /**
+     * Queues the command on the shard owning its keys. The event loop goes on with other
+     * connections; this one reads nothing more until completeSharded ran, so replies keep
+     * pipeline order. Returns false if the command is not routed to a shard.
+     */
+    private boolean submitToShard(ShardManager shards, String cmd, List<byte[]> parts, boolean isResp, long startTime) {
+        synchronized (this) {
+            shardReplies = new ArrayList<>();
+        }
+        inFlight = true;
+        boolean routed = shards.submit(cmd, parts, () -> executeCommand(parts, null, isResp),
+                error -> ctx.executor().execute(() -> completeSharded(parts, startTime, error)));
+        if (!routed) {
+            inFlight = false;
+            synchronized (this) {
+                shardReplies = null;
+            }
+        }
+        return routed;
+    }
+
+    // Event loop: writes the replies of the command that ran on a shard, then resumes reading
+    private void completeSharded(List<byte[]> parts, long startTime, Throwable error) {
+        List<Object> replies;
+        long seq;
+        synchronized (this) {
+            replies = shardReplies;
+            seq = shardSequence;
+            shardReplies = null;
+            shardSequence = -1;
+        }
+        inReadBurst = true;
+        for (Object reply : replies) emit(reply);
+        if (error != null) sendError("ERR " + error.getMessage());
+        if (seq > awaitingSequence) awaitingSequence = seq;
+        logIfSlow(parts, startTime);
+        ReferenceCountUtil.release(parts);
+        inFlight = false;
+
+        // Commands read meanwhile, until one goes to a shard again
+        while (!inFlight && !deferred.isEmpty()) {
+            try {
+                channelRead(ctx, deferred.poll());
+            } catch (Exception e) {
+                ctx.close();
+            }
+        }
+        if (!inFlight) ctx.channel().config().setAutoRead(true);
+        endReadBurst();
+    }
+
     public void executeCommand(List<byte[]> parts, OutputStream out, boolean isResp) throws IOException {
-        String cmd = new String(parts.get(0), StandardCharsets.UTF_8).toUpperCase();
+        String cmd = commandName(parts);
         
         Command cmdObj = CommandRegistry.get(cmd);
         if (cmdObj != null) {
+             if (CowSnapshot.isActive()) preserveForSnapshot(cmd, parts);
              cmdObj.execute(this, parts);
+             accountMemory(cmd, parts);
+             if (durableReplies) awaitDurable(WriteSequencer.takeLastSequence());
         } else {
              send(out, isResp, Resp.error("ERR unknown command"), "(error) ERR unknown command");
         }
     }
 
+    // Replies wait for seq to be durable; a shard thread hands it to the loop with its replies
+    private void awaitDurable(long seq) {
+        if (ctx != null && !ctx.executor().inEventLoop()) {
+            synchronized (this) {
+                if (seq > shardSequence) shardSequence = seq;
+            }
+        } else if (seq > awaitingSequence) {
+            awaitingSequence = seq;
+        }
+    }
+
+    /**
+     * Lets a running snapshot keep the epoch value of the keys a write command is about
+     * to change (commands update values in place). Caller holds the keys' locks.
+     */
+    public void preserveForSnapshot(String cmd, List<byte[]> parts) {
+        CommandMetadata meta = CommandRegistry.getMetadata(cmd);
+        if (meta == null || !meta.getFlags().contains("write")) return;
+        ConcurrentHashMap<String, ValueEntry> map = Carade.db.getStore(dbIndex);
+        for (int idx : LockManager.getInstance().collectKeys(cmd, meta, parts)) {
+            CowSnapshot.beforeWrite(map, Args.string(parts, idx));
+        }
+    }
+
+    /**
+     * Re-estimates the memory of the keys a write command may have changed in place
+     * (see core.db.Keyspace). Caller holds the keys' locks.
+     */
+    public void accountMemory(String cmd, List<byte[]> parts) {
+        CommandMetadata meta = CommandRegistry.getMetadata(cmd);
+        if (meta == null || !meta.getFlags().contains("write")) return;
+        ConcurrentHashMap<String, ValueEntry> map = Carade.db.getStore(dbIndex);
+        for (int idx : LockManager.getInstance().collectKeys(cmd, meta, parts)) {
+            ValueEntry v = map.get(Args.string(parts, idx));
+            if (v != null) v.resized();
+        }
+    }
+
     public String getRemoteAddress() {
         if (ctx != null && ctx.channel().remoteAddress() != null) {
             return ctx.channel().remoteAddress().toString();
@@ -493,6 +737,9 @@ public class ClientHandler extends ChannelInboundHandlerAdapter implements PubSu
     }
 
     public void close() {
-        if (ctx != null) ctx.close();
+        if (ctx != null) {
+            ctx.flush();
+            ctx.close();
+        }
     }
 }
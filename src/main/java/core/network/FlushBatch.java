@@ -0,0 +1,61 @@
+package core.network;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.util.concurrent.FastThreadLocal;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+/**
+ * Per event loop flush consolidation for replies written outside a read burst
+ * (blocking-pop wakeups, pub/sub pushes, replication stream).
+ *
+ * Instead of one writeAndFlush per message, the message is written and the
+ * connection is queued; a single task drains the queue after everything already
+ * submitted to the loop has run, so N pushes to the same client cost one flush.
+ * All state is confined to the event loop thread.
+ */
+final class FlushBatch implements Runnable {
+
+    private static final FastThreadLocal<FlushBatch> BATCH = new FastThreadLocal<FlushBatch>() {
+        @Override
+        protected FlushBatch initialValue() {
+            return new FlushBatch();
+        }
+    };
+
+    private final Set<ChannelHandlerContext> pending = Collections.newSetFromMap(new IdentityHashMap<>());
+    private boolean scheduled;
+
+    private FlushBatch() { }
+
+    /**
+     * Writes msg and flushes it with the current batch. Safe to call from any thread.
+     */
+    static void write(ChannelHandlerContext ctx, Object msg) {
+        if (ctx.executor().inEventLoop()) {
+            BATCH.get().add(ctx, msg);
+        } else {
+            ctx.executor().execute(() -> BATCH.get().add(ctx, msg));
+        }
+    }
+
+    private void add(ChannelHandlerContext ctx, Object msg) {
+        ctx.write(msg);
+        pending.add(ctx);
+        if (!scheduled) {
+            scheduled = true;
+            ctx.executor().execute(this);
+        }
+    }
+
+    @Override
+    public void run() {
+        scheduled = false;
+        for (ChannelHandlerContext ctx : pending) {
+            ctx.flush();
+        }
+        pending.clear();
+    }
+}
@@ -0,0 +1,56 @@
+package core.network;
+
+import core.protocol.Resp;
+import core.protocol.netty.NettyRespDecoder;
+import core.protocol.netty.NettyRespEncoder;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelInitializer;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Client pipeline shared by every listener (TCP and Unix domain socket):
+ * NettyRespDecoder -> NettyRespEncoder -> ClientHandler.
+ *
+ * Optionally caps the number of connections accepted through this listener;
+ * extra clients get "-ERR max number of clients reached" and are closed.
+ */
+@ChannelHandler.Sharable
+public class RespChannelInitializer extends ChannelInitializer<Channel> {
+
+    private final boolean zeroCopyDecoder;
+    private final int maxClients; // 0 = unlimited
+    private final AtomicInteger clients = new AtomicInteger();
+
+    public RespChannelInitializer(boolean zeroCopyDecoder) {
+        this(zeroCopyDecoder, 0);
+    }
+
+    public RespChannelInitializer(boolean zeroCopyDecoder, int maxClients) {
+        this.zeroCopyDecoder = zeroCopyDecoder;
+        this.maxClients = maxClients;
+    }
+
+    @Override
+    protected void initChannel(Channel ch) {
+        if (maxClients > 0) {
+            if (clients.incrementAndGet() > maxClients) {
+                clients.decrementAndGet();
+                ch.writeAndFlush(Unpooled.wrappedBuffer(Resp.error("ERR max number of clients reached")))
+                  .addListener(ChannelFutureListener.CLOSE);
+                return;
+            }
+            ch.closeFuture().addListener(f -> clients.decrementAndGet());
+        }
+        ch.pipeline().addLast(new NettyRespDecoder(zeroCopyDecoder));
+        ch.pipeline().addLast(new NettyRespEncoder());
+        ch.pipeline().addLast(new ClientHandler());
+    }
+
+    public int getConnectedClients() {
+        return clients.get();
+    }
+}
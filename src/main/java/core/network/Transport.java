@@ -0,0 +1,97 @@
+package core.network;
+
+import core.utils.Log;
+import io.netty.channel.IoHandlerFactory;
+import io.netty.channel.ServerChannel;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollIoHandler;
+import io.netty.channel.epoll.EpollServerDomainSocketChannel;
+import io.netty.channel.epoll.EpollServerSocketChannel;
+import io.netty.channel.nio.NioIoHandler;
+import io.netty.channel.socket.nio.NioServerDomainSocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.unix.DomainSocketAddress;
+import io.netty.channel.uring.IoUring;
+import io.netty.channel.uring.IoUringIoHandler;
+import io.netty.channel.uring.IoUringServerDomainSocketChannel;
+import io.netty.channel.uring.IoUringServerSocketChannel;
+
+import java.net.SocketAddress;
+import java.net.UnixDomainSocketAddress;
+import java.util.Locale;
+
+/**
+ * Netty I/O transport used by the listeners.
+ *
+ * The native transports ship with netty-all but only load on Linux with a
+ * matching native library; {@link #select(String)} falls back to NIO otherwise.
+ */
+public enum Transport {
+    NIO,
+    EPOLL,
+    IO_URING;
+
+    /**
+     * Resolves the configured transport name: "nio", "epoll", "io_uring" or
+     * "auto" (epoll when available, else NIO).
+     */
+    public static Transport select(String name) {
+        String n = name == null ? "auto" : name.trim().toLowerCase(Locale.ROOT).replace('-', '_');
+        switch (n) {
+            case "nio":
+                return NIO;
+            case "epoll":
+                if (Epoll.isAvailable()) return EPOLL;
+                Log.warn("⚠️ epoll transport unavailable (" + Epoll.unavailabilityCause() + "), using nio");
+                return NIO;
+            case "io_uring":
+            case "iouring":
+                if (IoUring.isAvailable()) return IO_URING;
+                Log.warn("⚠️ io_uring transport unavailable (" + IoUring.unavailabilityCause() + "), using nio");
+                return NIO;
+            case "auto":
+                return Epoll.isAvailable() ? EPOLL : NIO;
+            default:
+                Log.warn("⚠️ Unknown transport '" + name + "', using nio");
+                return NIO;
+        }
+    }
+
+    public IoHandlerFactory ioHandlerFactory() {
+        switch (this) {
+            case EPOLL: return EpollIoHandler.newFactory();
+            case IO_URING: return IoUringIoHandler.newFactory();
+            default: return NioIoHandler.newFactory();
+        }
+    }
+
+    public Class<? extends ServerChannel> serverSocketChannel() {
+        switch (this) {
+            case EPOLL: return EpollServerSocketChannel.class;
+            case IO_URING: return IoUringServerSocketChannel.class;
+            default: return NioServerSocketChannel.class;
+        }
+    }
+
+    public Class<? extends ServerChannel> serverDomainSocketChannel() {
+        switch (this) {
+            case EPOLL: return EpollServerDomainSocketChannel.class;
+            case IO_URING: return IoUringServerDomainSocketChannel.class;
+            default: return NioServerDomainSocketChannel.class;
+        }
+    }
+
+    /**
+     * Native channels use Netty's own address type, NIO the JDK one.
+     */
+    public SocketAddress domainSocketAddress(String path) {
+        return this == NIO ? UnixDomainSocketAddress.of(path) : new DomainSocketAddress(path);
+    }
+
+    /**
+     * Whether several server channels can bind the same port (SO_REUSEPORT).
+     */
+    public boolean supportsReusePort() {
+        return this != NIO;
+    }
+}
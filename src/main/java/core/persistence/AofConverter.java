@@ -0,0 +1,108 @@
+package core.persistence;
+
+import core.protocol.Resp;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * Converts an AOF file between RESP and the binary encoding of {@link BinaryAofEncoder}.
+ * An RDB preamble is copied unchanged; either format is accepted as input.
+ *
+ * Usage: java -cp carade.jar core.persistence.AofConverter to-binary|to-resp &lt;input&gt; &lt;output&gt;
+ *
+ * Relative expiries become absolute when converting to binary, counted from the time of
+ * the conversion (a RESP replay would count them from the time of the replay).
+ */
+public class AofConverter {
+    private static final int BLOCK_BYTES = 64 * 1024;
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 3 || !(args[0].equals("to-binary") || args[0].equals("to-resp"))) {
+            System.err.println("Usage: AofConverter to-binary|to-resp <input> <output>");
+            System.exit(1);
+        }
+        File in = new File(args[1]);
+        File out = new File(args[2]);
+        long commands = args[0].equals("to-binary") ? toBinary(in, out) : toResp(in, out);
+        System.out.println("Converted " + commands + " commands: " + in.length() + " -> " + out.length() + " bytes");
+    }
+
+    /**
+     * Writes the commands of in to out in the binary encoding. Returns the number of commands read.
+     */
+    public static long toBinary(File in, File out) throws IOException {
+        try (OutputStream os = new BufferedOutputStream(new FileOutputStream(out), 1024 * 1024)) {
+            long offset = copyPreamble(in, os);
+            BinaryAofEncoder encoder = new BinaryAofEncoder();
+            encoder.writeHeader(os);
+            ByteArrayOutputStream block = new ByteArrayOutputStream(BLOCK_BYTES * 2);
+            AofLoader loader = new AofLoader();
+            try {
+                loader.loadCommands(in, offset, args -> {
+                    encoder.add(args);
+                    if (encoder.pendingSize() >= BLOCK_BYTES) writeBlock(encoder, block, os);
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            writeBlock(encoder, block, os);
+            return loader.getCommands();
+        }
+    }
+
+    /**
+     * Writes the commands of in to out as RESP. Returns the number of commands read.
+     */
+    public static long toResp(File in, File out) throws IOException {
+        try (OutputStream os = new BufferedOutputStream(new FileOutputStream(out), 1024 * 1024)) {
+            long offset = copyPreamble(in, os);
+            AofLoader loader = new AofLoader();
+            try {
+                loader.loadCommands(in, offset, args -> {
+                    try {
+                        os.write(Resp.array(args));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            return loader.getCommands();
+        }
+    }
+
+    private static void writeBlock(BinaryAofEncoder encoder, ByteArrayOutputStream block, OutputStream os) {
+        encoder.finishBlock(block);
+        try {
+            block.writeTo(os);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        block.reset();
+    }
+
+    // Copies the RDB preamble of in (if any) to out and returns its length
+    private static long copyPreamble(File in, OutputStream out) throws IOException {
+        long length = AofLoader.preambleLength(in);
+        try (InputStream is = new FileInputStream(in)) {
+            byte[] buf = new byte[64 * 1024];
+            long left = length;
+            while (left > 0) {
+                int n = is.read(buf, 0, (int) Math.min(buf.length, left));
+                if (n < 0) throw new IOException("Unexpected end of RDB preamble");
+                out.write(buf, 0, n);
+                left -= n;
+            }
+        }
+        return length;
+    }
+}
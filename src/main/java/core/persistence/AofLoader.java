@@ -0,0 +1,377 @@
+package core.persistence;
+
+import core.db.CaradeDatabase;
+import core.persistence.rdb.RdbConstants;
+import core.persistence.rdb.RdbParser;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+
+/**
+ * Fast AOF loader.
+ *
+ * The command part of a file is memory-mapped in large windows and parsed in place:
+ * lengths are decoded straight from the buffer and each argument is copied once into
+ * its byte[]. A command crossing the end of a window is parsed again from the start
+ * of the next window. A file starting with an RDB preamble (AOF base) is handed to
+ * {@link RdbParser} first. Progress and throughput are logged about once per second.
+ *
+ * An incomplete command at the end of the last window (crash during an append) is
+ * reported and ignored, like aof-load-truncated in Redis.
+ *
+ * Files in the binary encoding of {@link BinaryAofEncoder} are read the same way, block by
+ * block; a block is executed only once its CRC32C matched. A checksum mismatch in the last
+ * block is treated like a torn append, anywhere else it fails the load.
+ */
+public class AofLoader {
+    static final int DEFAULT_WINDOW = 64 * 1024 * 1024;
+    private static final long PROGRESS_INTERVAL_MS = 1000;
+
+    private final int initialWindow;
+
+    private long commands;
+    private long bytes;
+    private long totalBytes;
+    private final long start = System.nanoTime();
+    private long lastProgress = System.currentTimeMillis();
+
+    // Result of readNumber and readVarint
+    private long number;
+    // Opcode dictionary of the binary file being loaded, null for RESP
+    private byte[][] dictionary;
+
+    public AofLoader() {
+        this(DEFAULT_WINDOW);
+    }
+
+    AofLoader(int window) {
+        this.initialWindow = window;
+    }
+
+    /**
+     * Sets the size of everything that will be loaded, for the progress percentage.
+     */
+    public void setTotalBytes(long totalBytes) {
+        this.totalBytes = totalBytes;
+    }
+
+    /**
+     * Loads one AOF file: the RDB preamble (if any) into db, then every command through executor.
+     */
+    public void load(File file, CaradeDatabase db, Consumer<List<byte[]>> executor) throws IOException {
+        long offset = 0;
+        byte[] magic;
+        try (InputStream in = new FileInputStream(file)) {
+            magic = in.readNBytes(RdbConstants.RDB_MAGIC.length());
+        }
+        if (Arrays.equals(magic, RdbConstants.RDB_MAGIC.getBytes(StandardCharsets.US_ASCII))) {
+            long t = System.currentTimeMillis();
+            try (CountingInputStream in = new CountingInputStream(new BufferedInputStream(new FileInputStream(file), 1024 * 1024))) {
+                new RdbParser(in).parse(db);
+                offset = in.count;
+            }
+            bytes += offset;
+            System.out.println("   Loaded RDB snapshot from " + file.getName() + " (" + (System.currentTimeMillis() - t) + "ms)");
+        }
+        loadCommands(file, offset, executor);
+    }
+
+    /**
+     * Size of the RDB preamble at the start of file, 0 if it has none.
+     */
+    public static long preambleLength(File file) throws IOException {
+        try (CountingInputStream in = new CountingInputStream(new BufferedInputStream(new FileInputStream(file), 1024 * 1024))) {
+            byte[] magic = in.readNBytes(RdbConstants.RDB_MAGIC.length());
+            if (!Arrays.equals(magic, RdbConstants.RDB_MAGIC.getBytes(StandardCharsets.US_ASCII))) return 0;
+            in.readNBytes(4); // Version
+            new RdbParser(in).parseBody((dbIndex, key, value) -> { });
+            return in.count;
+        }
+    }
+
+    /**
+     * Passes every command of file from offset on (RESP or binary) to executor.
+     */
+    public void loadCommands(File file, long offset, Consumer<List<byte[]>> executor) throws IOException {
+        long headerEnd = readBinaryHeader(file, offset);
+        if (headerEnd >= 0) {
+            bytes += headerEnd - offset;
+            offset = headerEnd;
+        }
+        try (FileChannel ch = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = ch.size();
+            long pos = offset;
+            int window = initialWindow;
+            while (pos < size) {
+                int len = (int) Math.min(window, size - pos);
+                ByteBuffer b = ch.map(FileChannel.MapMode.READ_ONLY, pos, len);
+                int p = 0;
+                while (p < len) {
+                    int next;
+                    if (dictionary != null) {
+                        next = parseBlock(b, p, len, pos, size, executor);
+                        if (next >= 0) progress();
+                    } else {
+                        List<byte[]> args = new ArrayList<>();
+                        next = parseCommand(b, p, len, args, pos);
+                        if (next >= 0 && !args.isEmpty()) {
+                            executor.accept(args);
+                            commands++;
+                            if ((commands & 0xFFFF) == 0) progress();
+                        }
+                    }
+                    if (next < 0) break;
+                    bytes += next - p;
+                    p = next;
+                }
+                if (p < len) {
+                    if (pos + len >= size) {
+                        System.err.println("⚠️ AOF " + file.getName() + " ends with an incomplete command at offset "
+                                + (pos + p) + ", ignoring the last " + (len - p) + " bytes");
+                        return;
+                    }
+                    if (p == 0) {
+                        // One command larger than the window
+                        window = (int) Math.min((long) window * 2, Integer.MAX_VALUE - 8);
+                        continue;
+                    }
+                }
+                pos += p;
+                progress();
+            }
+        }
+    }
+
+    // Reads the header of a binary file into dictionary. Returns where the blocks start,
+    // -1 (dictionary null) if the commands at offset are RESP.
+    private long readBinaryHeader(File file, long offset) throws IOException {
+        dictionary = null;
+        try (CountingInputStream in = new CountingInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            in.skipNBytes(offset);
+            in.count = 0;
+            if (!BinaryAofEncoder.isBinary(in.readNBytes(BinaryAofEncoder.MAGIC.length()))) return -1;
+            int version = in.read();
+            if (version != BinaryAofEncoder.VERSION) {
+                throw new IOException("Unknown binary AOF version " + version + " in " + file.getName());
+            }
+            byte[][] names = new byte[(int) readVarint(in)][];
+            for (int i = 0; i < names.length; i++) {
+                names[i] = in.readNBytes((int) readVarint(in));
+            }
+            dictionary = names;
+            return offset + in.count;
+        }
+    }
+
+    private static long readVarint(InputStream in) throws IOException {
+        long v = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.read();
+            if (b < 0) throw new IOException("Truncated binary AOF header");
+            v |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return v;
+        }
+        throw new IOException("Bad varint in binary AOF header");
+    }
+
+    // Parses one block at p and executes its records. Returns the position after the block,
+    // or -1 if the window ends inside it.
+    private int parseBlock(ByteBuffer b, int p, int limit, long base, long fileSize,
+                           Consumer<List<byte[]>> executor) throws IOException {
+        int start = p;
+        p = readVarint(b, p, limit, base);
+        if (p < 0) return -1;
+        long len = number;
+        if (p + len + 4 > limit) {
+            if (len > Integer.MAX_VALUE - 16) throw new IOException("Bad binary AOF block length at offset " + (base + start));
+            return -1;
+        }
+        int end = p + (int) len;
+        CRC32C crc = new CRC32C();
+        crc.update(b.slice(p, (int) len));
+        if ((int) crc.getValue() != b.getInt(end)) {
+            if (base + end + 4 == fileSize) {
+                System.err.println("⚠️ AOF block at offset " + (base + start) + " fails its checksum (torn write), ignoring the last "
+                        + (end + 4 - start) + " bytes");
+                return end + 4;
+            }
+            throw new IOException("Checksum mismatch in AOF block at offset " + (base + start));
+        }
+        while (p < end) {
+            p = readVarint(b, p, end, base);
+            if (p < 0) break;
+            long opcode = number;
+            List<byte[]> args = new ArrayList<>();
+            if (opcode > 0) {
+                if (opcode > dictionary.length) throw new IOException("Unknown opcode " + opcode + " at offset " + (base + p));
+                args.add(dictionary[(int) opcode - 1]);
+            } else {
+                p = readArg(b, p, end, args, base);
+                if (p < 0) break;
+            }
+            p = readVarint(b, p, end, base);
+            if (p < 0) break;
+            long argc = number;
+            for (long i = 0; i < argc && p >= 0; i++) p = readArg(b, p, end, args, base);
+            if (p < 0) break;
+            executor.accept(args);
+            commands++;
+        }
+        if (p != end) throw new IOException("Corrupt AOF block at offset " + (base + start));
+        return end + 4;
+    }
+
+    private int readArg(ByteBuffer b, int p, int limit, List<byte[]> args, long base) throws IOException {
+        p = readVarint(b, p, limit, base);
+        if (p < 0) return -1;
+        long h = number;
+        if ((h & 1) != 0) {
+            long zigzag = h >>> 1;
+            args.add(Long.toString((zigzag >>> 1) ^ -(zigzag & 1)).getBytes(StandardCharsets.US_ASCII));
+            return p;
+        }
+        long len = h >>> 1;
+        if (p + len > limit) return -1;
+        byte[] arg = new byte[(int) len];
+        b.get(p, arg);
+        args.add(arg);
+        return p + (int) len;
+    }
+
+    // Unsigned LEB128 into number. Returns the position after it, -1 past the limit.
+    private int readVarint(ByteBuffer b, int p, int limit, long base) throws IOException {
+        long v = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            if (p >= limit) return -1;
+            int c = b.get(p++);
+            v |= (long) (c & 0x7F) << shift;
+            if ((c & 0x80) == 0) {
+                number = v;
+                return p;
+            }
+        }
+        throw new IOException("Bad varint at offset " + (base + p));
+    }
+
+    // Parses "*<n>\r\n" followed by n bulk strings at p. Returns the position after the
+    // command, or -1 if the window ends inside it.
+    private int parseCommand(ByteBuffer b, int p, int limit, List<byte[]> args, long base) throws IOException {
+        if (b.get(p) != '*') {
+            throw new IOException("Bad AOF format at offset " + (base + p) + ": expected '*'");
+        }
+        p = readNumber(b, p + 1, limit, base);
+        if (p < 0) return -1;
+        long count = number;
+        for (long i = 0; i < count; i++) {
+            if (p >= limit) return -1;
+            if (b.get(p) != '$') {
+                throw new IOException("Bad AOF format at offset " + (base + p) + ": expected '$'");
+            }
+            p = readNumber(b, p + 1, limit, base);
+            if (p < 0) return -1;
+            long len = number;
+            if (len < 0 || p + len + 2 > limit) {
+                if (len < 0) throw new IOException("Bad AOF format at offset " + (base + p) + ": negative length");
+                return -1;
+            }
+            byte[] arg = new byte[(int) len];
+            b.get(p, arg);
+            p += (int) len;
+            if (b.get(p) != '\r' || b.get(p + 1) != '\n') {
+                throw new IOException("Bad AOF format at offset " + (base + p) + ": expected CRLF");
+            }
+            p += 2;
+            args.add(arg);
+        }
+        return p;
+    }
+
+    // Decimal up to CRLF into number. Returns the position after the CRLF, -1 past the limit.
+    private int readNumber(ByteBuffer b, int p, int limit, long base) throws IOException {
+        long n = 0;
+        boolean negative = false;
+        if (p < limit && b.get(p) == '-') {
+            negative = true;
+            p++;
+        }
+        while (p < limit) {
+            byte c = b.get(p);
+            if (c == '\r') {
+                if (p + 1 >= limit) return -1;
+                if (b.get(p + 1) != '\n') break;
+                number = negative ? -n : n;
+                return p + 2;
+            }
+            if (c < '0' || c > '9') break;
+            n = n * 10 + (c - '0');
+            p++;
+        }
+        if (p >= limit) return -1;
+        throw new IOException("Bad AOF format at offset " + (base + p) + ": invalid length");
+    }
+
+    private void progress() {
+        long now = System.currentTimeMillis();
+        if (now - lastProgress < PROGRESS_INTERVAL_MS) return;
+        lastProgress = now;
+        String pct = totalBytes > 0 ? String.format(" (%d%%)", bytes * 100 / totalBytes) : "";
+        System.out.println(String.format("   Loaded %d MB%s, %d commands, %.0f MB/s",
+                bytes >> 20, pct, commands, getMegabytesPerSecond()));
+    }
+
+    public long getCommands() {
+        return commands;
+    }
+
+    public long getBytes() {
+        return bytes;
+    }
+
+    public double getMegabytesPerSecond() {
+        double secs = (System.nanoTime() - start) / 1e9;
+        return secs > 0 ? bytes / 1048576.0 / secs : 0;
+    }
+
+    // Counts the bytes handed to the RDB parser, i.e. where the command tail starts
+    private static final class CountingInputStream extends FilterInputStream {
+        long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) count++;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buf, int off, int len) throws IOException {
+            int n = super.read(buf, off, len);
+            if (n > 0) count += n;
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long s = super.skip(n);
+            count += s;
+            return s;
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package core.persistence;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Manifest of a multi-part AOF (appenddirname).
+ *
+ * One line per file, in load order:
+ * <pre>
+ * file carade.aof.3.base.rdb seq 3 type b
+ * file carade.aof.3.incr.aof seq 3 type i
+ * file carade.aof.4.incr.aof seq 4 type i
+ * </pre>
+ * The base is a snapshot (RDB, or RESP commands for a migrated single-file AOF);
+ * the incremental segments hold the commands logged after it, oldest first.
+ * A base with seq N covers every segment with a lower seq.
+ */
+public class AofManifest {
+    public static final char BASE = 'b';
+    public static final char INCR = 'i';
+
+    public static final class Entry {
+        public final String file;
+        public final long seq;
+        public final char type;
+
+        Entry(String file, long seq, char type) {
+            this.file = file;
+            this.seq = seq;
+            this.type = type;
+        }
+    }
+
+    private final String prefix;
+    private Entry base;
+    private final List<Entry> incrs = new ArrayList<>();
+
+    public AofManifest(String prefix) {
+        this.prefix = prefix;
+    }
+
+    public static String manifestName(String prefix) {
+        return prefix + ".manifest";
+    }
+
+    public static AofManifest load(File file, String prefix) throws IOException {
+        AofManifest m = new AofManifest(prefix);
+        for (String line : Files.readAllLines(file.toPath(), StandardCharsets.UTF_8)) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) continue;
+            String[] parts = line.split("\\s+");
+            String name = null;
+            long seq = -1;
+            char type = 0;
+            for (int i = 0; i + 1 < parts.length; i += 2) {
+                switch (parts[i]) {
+                    case "file": name = parts[i + 1]; break;
+                    case "seq": seq = Long.parseLong(parts[i + 1]); break;
+                    case "type": type = parts[i + 1].charAt(0); break;
+                    default: break; // Unknown attributes are ignored
+                }
+            }
+            if (name == null || seq < 0 || (type != BASE && type != INCR)) {
+                throw new IOException("Invalid AOF manifest line: " + line);
+            }
+            if (type == BASE) {
+                if (m.base != null) throw new IOException("AOF manifest has more than one base file");
+                m.base = new Entry(name, seq, BASE);
+            } else {
+                m.incrs.add(new Entry(name, seq, INCR));
+            }
+        }
+        return m;
+    }
+
+    /**
+     * Writes the manifest to a temp file, forces it and renames it over the old one,
+     * so a crash leaves either the old or the new manifest.
+     */
+    public void save(File file) throws IOException {
+        StringBuilder sb = new StringBuilder();
+        for (Entry e : files()) {
+            sb.append("file ").append(e.file).append(" seq ").append(e.seq).append(" type ").append(e.type).append('\n');
+        }
+        File tmp = new File(file.getParentFile(), "temp-" + file.getName());
+        try (FileChannel ch = FileChannel.open(tmp.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer bb = ByteBuffer.wrap(sb.toString().getBytes(StandardCharsets.UTF_8));
+            while (bb.hasRemaining()) ch.write(bb);
+            ch.force(true);
+        }
+        Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public Entry getBase() {
+        return base;
+    }
+
+    public List<Entry> getIncrs() {
+        return Collections.unmodifiableList(incrs);
+    }
+
+    /**
+     * Base first, then the incremental segments in order.
+     */
+    public List<Entry> files() {
+        List<Entry> all = new ArrayList<>(incrs.size() + 1);
+        if (base != null) all.add(base);
+        all.addAll(incrs);
+        return all;
+    }
+
+    public Entry lastIncr() {
+        return incrs.isEmpty() ? null : incrs.get(incrs.size() - 1);
+    }
+
+    private long nextSeq() {
+        long seq = base != null ? base.seq : 0;
+        for (Entry e : incrs) seq = Math.max(seq, e.seq);
+        return seq + 1;
+    }
+
+    /**
+     * Appends a new incremental segment and returns it.
+     */
+    public Entry addIncr() {
+        long seq = nextSeq();
+        Entry e = new Entry(prefix + "." + seq + ".incr.aof", seq, INCR);
+        incrs.add(e);
+        return e;
+    }
+
+    public void removeIncr(Entry e) {
+        incrs.remove(e);
+    }
+
+    /**
+     * Installs a new base file that covers every segment below seq.
+     * Returns the entries it replaces (old base and covered segments).
+     */
+    public List<Entry> setBase(String file, long seq) {
+        List<Entry> obsolete = new ArrayList<>();
+        if (base != null) obsolete.add(base);
+        base = new Entry(file, seq, BASE);
+        incrs.removeIf(e -> {
+            if (e.seq >= seq) return false;
+            obsolete.add(e);
+            return true;
+        });
+        return obsolete;
+    }
+
+    public static String baseName(String prefix, long seq, boolean rdb) {
+        return prefix + "." + seq + ".base." + (rdb ? "rdb" : "aof");
+    }
+}
@@ -0,0 +1,288 @@
+package core.persistence;
+
+import core.commands.CommandRegistry;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.zip.CRC32C;
+
+/**
+ * Compact binary AOF encoding (appendformat binary), read back by {@link AofLoader}.
+ *
+ * Layout:
+ * <pre>
+ * "CAOFB" version(byte) names(varint) (length(varint) name)*    header: the opcode dictionary
+ * block*    length(varint) payload crc32c(int, of the payload)
+ * payload   record*
+ * record    opcode(varint) argc(varint) arg*
+ *           opcode n &gt; 0 is dictionary name n-1; 0 means the name follows as an arg
+ * arg       h(varint): even h, h/2 raw bytes follow; odd h, the integer unzigzag(h/2)
+ *           whose canonical decimal form is the argument
+ * </pre>
+ * The dictionary is the sorted command table at the time the file was created, so opcodes
+ * stay valid when commands are added later. One block holds what one channel write holds;
+ * replay applies a block only once its checksum matched.
+ *
+ * Commands are rewritten on the way in:
+ * - relative expiries (SET ... EX/PX, SETEX, PSETEX, EXPIRE, PEXPIRE) become PEXPIREAT
+ *   with the absolute time of the append, so a replay no longer pushes deadlines back;
+ * - a SELECT of the DB the log is already in is dropped;
+ * - consecutive DELs (the janitor's expirations) are merged into one multi-key DEL.
+ */
+public class BinaryAofEncoder {
+    public static final String MAGIC = "CAOFB";
+    public static final int VERSION = 1;
+
+    private static final byte[] DEL = "DEL".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] SET = "SET".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] PEXPIREAT = "PEXPIREAT".getBytes(StandardCharsets.US_ASCII);
+
+    private final List<String> names;
+    private final Map<String, Integer> opcodes = new HashMap<>();
+
+    private final ByteArrayOutputStream payload = new ByteArrayOutputStream(64 * 1024);
+    private final List<byte[]> pendingDel = new ArrayList<>();
+    // DB of the last SELECT written, -1 until this encoder wrote one
+    private int db = -1;
+
+    /**
+     * Encoder with the opcodes of the current command table.
+     */
+    public BinaryAofEncoder() {
+        this(CommandRegistry.getAll().keySet());
+    }
+
+    BinaryAofEncoder(Collection<String> commands) {
+        this.names = new ArrayList<>(new TreeSet<>(commands));
+        for (int i = 0; i < names.size(); i++) opcodes.put(names.get(i), i + 1);
+    }
+
+    public static boolean isBinary(byte[] magic) {
+        return magic.length >= MAGIC.length()
+                && new String(magic, 0, MAGIC.length(), StandardCharsets.US_ASCII).equals(MAGIC);
+    }
+
+    public void writeHeader(OutputStream out) throws IOException {
+        ByteArrayOutputStream header = new ByteArrayOutputStream();
+        header.write(MAGIC.getBytes(StandardCharsets.US_ASCII));
+        header.write(VERSION);
+        writeVarint(header, names.size());
+        for (String name : names) {
+            byte[] b = name.getBytes(StandardCharsets.US_ASCII);
+            writeVarint(header, b.length);
+            header.write(b);
+        }
+        header.writeTo(out);
+    }
+
+    /**
+     * Adds the commands serialized as RESP arrays, one after the other (usually a single
+     * one; an expiration or eviction is SELECT and DEL in one entry).
+     */
+    public void add(byte[] resp) {
+        int[] p = {0};
+        while (p[0] < resp.length) add(parseResp(resp, p));
+    }
+
+    /**
+     * Adds one command to the current block.
+     */
+    public void add(List<byte[]> args) {
+        if (args.isEmpty()) return;
+        byte[] name = args.get(0);
+        int argc = args.size();
+
+        if (is(name, "DEL") && argc > 1) {
+            for (int i = 1; i < argc; i++) pendingDel.add(args.get(i));
+            return;
+        }
+        if (is(name, "SELECT") && argc == 2) {
+            Long index = parseLong(args.get(1));
+            if (index != null && index == db) return;
+            flushDel();
+            db = index != null ? index.intValue() : -1;
+            record(args);
+            return;
+        }
+        flushDel();
+
+        long now = System.currentTimeMillis();
+        Long at = null;
+        if (is(name, "SET") && argc == 5) {
+            if (is(args.get(3), "EX")) at = deadline(now, args.get(4), 1000);
+            else if (is(args.get(3), "PX")) at = deadline(now, args.get(4), 1);
+            if (at != null) {
+                record(List.of(SET, args.get(1), args.get(2)));
+                record(List.of(PEXPIREAT, args.get(1), ascii(at)));
+                return;
+            }
+        } else if ((is(name, "SETEX") || is(name, "PSETEX")) && argc == 4) {
+            at = deadline(now, args.get(2), is(name, "SETEX") ? 1000 : 1);
+            if (at != null) {
+                record(List.of(SET, args.get(1), args.get(3)));
+                record(List.of(PEXPIREAT, args.get(1), ascii(at)));
+                return;
+            }
+        } else if ((is(name, "EXPIRE") || is(name, "PEXPIRE") || is(name, "EXPIREAT")) && argc == 3) {
+            at = deadline(is(name, "EXPIREAT") ? 0 : now, args.get(2), is(name, "PEXPIRE") ? 1 : 1000);
+            if (at != null) {
+                record(List.of(PEXPIREAT, args.get(1), ascii(at)));
+                return;
+            }
+        }
+        record(args);
+    }
+
+    /**
+     * Bytes waiting for {@link #finishBlock}.
+     */
+    public int pendingSize() {
+        return payload.size() + pendingDel.size() * 16;
+    }
+
+    /**
+     * Writes the commands added since the last call as one checksummed block (nothing if none).
+     */
+    public void finishBlock(ByteArrayOutputStream out) {
+        flushDel();
+        if (payload.size() == 0) return;
+        CRC32C crc = new CRC32C();
+        byte[] bytes = payload.toByteArray();
+        crc.update(bytes);
+        writeVarint(out, bytes.length);
+        out.write(bytes, 0, bytes.length);
+        int c = (int) crc.getValue();
+        out.write(c >>> 24);
+        out.write(c >>> 16);
+        out.write(c >>> 8);
+        out.write(c);
+        payload.reset();
+    }
+
+    private void flushDel() {
+        if (pendingDel.isEmpty()) return;
+        List<byte[]> del = new ArrayList<>(pendingDel.size() + 1);
+        del.add(DEL);
+        del.addAll(pendingDel);
+        pendingDel.clear();
+        record(del);
+    }
+
+    private void record(List<byte[]> args) {
+        String name = new String(args.get(0), StandardCharsets.US_ASCII).toUpperCase(Locale.ROOT);
+        Integer opcode = opcodes.get(name);
+        if (opcode != null) {
+            writeVarint(payload, opcode);
+        } else {
+            writeVarint(payload, 0);
+            writeArg(payload, args.get(0));
+        }
+        writeVarint(payload, args.size() - 1);
+        for (int i = 1; i < args.size(); i++) writeArg(payload, args.get(i));
+    }
+
+    private static void writeArg(ByteArrayOutputStream out, byte[] arg) {
+        Long n = parseLong(arg);
+        if (n != null) {
+            long zigzag = (n << 1) ^ (n >> 63);
+            // Integers up to 62 bits of zigzag fit in the header next to the tag bit
+            if (zigzag >>> 62 == 0) {
+                writeVarint(out, (zigzag << 1) | 1);
+                return;
+            }
+        }
+        writeVarint(out, (long) arg.length << 1);
+        out.write(arg, 0, arg.length);
+    }
+
+    static void writeVarint(ByteArrayOutputStream out, long v) {
+        while ((v & ~0x7FL) != 0) {
+            out.write((int) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        out.write((int) v);
+    }
+
+    // The value of a canonical decimal ("0", "-12", no leading zeros or '+'), else null
+    static Long parseLong(byte[] b) {
+        int len = b.length;
+        if (len == 0 || len > 20) return null;
+        int i = 0;
+        boolean negative = b[0] == '-';
+        if (negative) {
+            if (len == 1) return null;
+            i = 1;
+        }
+        if (b[i] == '0' && (len > i + 1 || negative)) return null;
+        long n = 0;
+        for (; i < len; i++) {
+            int d = b[i] - '0';
+            if (d < 0 || d > 9) return null;
+            // Accumulate negatively so Long.MIN_VALUE parses too
+            if (n < (Long.MIN_VALUE + d) / 10) return null;
+            n = n * 10 - d;
+        }
+        if (negative) return n;
+        return n == Long.MIN_VALUE ? null : -n;
+    }
+
+    // base + value * scale in milliseconds, null if value is not an integer or it overflows
+    private static Long deadline(long base, byte[] value, long scale) {
+        Long n = parseLong(value);
+        if (n == null) return null;
+        try {
+            return Math.addExact(base, Math.multiplyExact(n, scale));
+        } catch (ArithmeticException e) {
+            return null;
+        }
+    }
+
+    private static byte[] ascii(long n) {
+        return Long.toString(n).getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static boolean is(byte[] arg, String name) {
+        if (arg.length != name.length()) return false;
+        for (int i = 0; i < arg.length; i++) {
+            int c = arg[i];
+            if (c >= 'a' && c <= 'z') c -= 32;
+            if (c != name.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    // "*<n>\r\n" followed by n "$<len>\r\n<bytes>\r\n", at p[0]; leaves p[0] after it
+    static List<byte[]> parseResp(byte[] resp, int[] p) {
+        if (p[0] >= resp.length || resp[p[0]] != '*') throw new IllegalArgumentException("Not a RESP array");
+        p[0]++;
+        int count = (int) readDecimal(resp, p);
+        List<byte[]> args = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            if (resp[p[0]] != '$') throw new IllegalArgumentException("Not a RESP bulk string");
+            p[0]++;
+            int len = (int) readDecimal(resp, p);
+            byte[] arg = new byte[len];
+            System.arraycopy(resp, p[0], arg, 0, len);
+            p[0] += len + 2;
+            args.add(arg);
+        }
+        return args;
+    }
+
+    private static long readDecimal(byte[] b, int[] p) {
+        long n = 0;
+        int i = p[0];
+        while (b[i] != '\r') n = n * 10 + (b[i++] - '0');
+        p[0] = i + 2;
+        return n;
+    }
+}
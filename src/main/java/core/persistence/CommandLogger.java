@@ -1,48 +1,239 @@
 package core.persistence;
 
+import core.Carade;
+import core.Config;
 import core.db.CaradeDatabase;
-import core.db.ValueEntry;
-import core.db.DataType;
-import core.structs.CaradeZSet;
+import core.persistence.rdb.RdbEncoder;
 import core.protocol.Resp;
+import core.server.WriteSequencer;
+import core.utils.ByteStrings;
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 import java.nio.charset.StandardCharsets;
 
+/**
+ * Append Only File.
+ *
+ * Two layouts:
+ * - Multi-part (appenddirname set, the server default): a directory holding a base snapshot
+ *   in RDB format, numbered incremental segments and a manifest listing them
+ *   (see {@link AofManifest}). A rewrite switches new writes to a fresh segment, snapshots
+ *   the dataset into a new base and drops the files the base covers. Loading reads the
+ *   base at RDB speed and replays only the segments after it.
+ * - Single file (appenddirname empty, tests): one file; a rewrite replaces it with an RDB
+ *   preamble followed by the commands logged while the snapshot was written.
+ *
+ * Incremental files are RESP by default; with aof-format binary (multi-part only) they use the
+ * compact encoding of {@link BinaryAofEncoder}, a checksummed block per channel write.
+ */
 public class CommandLogger {
-    private final String filename;
-    private OutputStream outStream;
+
+    /**
+     * appendfsync policy.
+     * ALWAYS: the write pipeline forces every batch before its replies go out (group commit).
+     * EVERYSEC: buffered, written and forced once per second by the background thread.
+     * NO: written once per second, the OS decides when it reaches the disk.
+     */
+    public enum FsyncPolicy {
+        ALWAYS, EVERYSEC, NO;
+
+        public static FsyncPolicy parse(String value) {
+            if (value == null) return EVERYSEC;
+            switch (value.trim().toLowerCase(Locale.ROOT)) {
+                case "always": return ALWAYS;
+                case "no": return NO;
+                default: return EVERYSEC;
+            }
+        }
+    }
+
+    // Buffered bytes are written to the channel once this much is pending
+    private static final int WRITE_THRESHOLD = 64 * 1024;
+
+    private String filename; // File being appended to (the last incremental segment when multi-part)
+    private volatile FileChannel channel;
+
+    // Multi-part layout, dir is null for a single file
+    private final File dir;
+    private final String prefix;
+    private AofManifest manifest;
+    // DB selected by the last logged SELECT; restated at the head of a new segment
+    private int currentDb = 0;
+    // Binary encoding of the current segment, null when logging RESP
+    private final boolean binary;
+    private BinaryAofEncoder encoder;
+    private final AtomicBoolean rewriteInProgress = new AtomicBoolean(false);
+    private static final byte[] SELECT_PREFIX = "*2\r\n$6\r\nSELECT\r\n$".getBytes(StandardCharsets.US_ASCII);
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(WRITE_THRESHOLD);
     private final ScheduledExecutorService flusher;
+    // force() runs here in everysec mode so a slow disk never stalls the flusher tick
+    private final ExecutorService fsyncer;
+    private volatile FsyncPolicy fsyncPolicy = FsyncPolicy.EVERYSEC;
+
+    // Serializes force() calls and channel switches; taken after the logger lock, never before
+    private final Object fsyncLock = new Object();
+    private volatile boolean fsyncInProgress = false;
+    private final AtomicLong writtenBytes = new AtomicLong(); // bytes handed to the channel
+    private volatile long syncedBytes = 0;                      // bytes known to be on disk
+    private final AtomicLong fsyncCount = new AtomicLong();
+    private final AtomicLong fsyncTotalNanos = new AtomicLong();
+    private volatile long lastFsyncNanos = 0;
+    private volatile long maxFsyncNanos = 0;
+    private final AtomicLong delayedFsyncs = new AtomicLong();
+    // Last failure of a write / a force, null once one succeeded again
+    private volatile String writeError = null;
+    private volatile String fsyncError = null;
     // Buffer for commands received during rewrite
     private final ConcurrentLinkedQueue<byte[]> rewriteBuffer = new ConcurrentLinkedQueue<>();
     private volatile boolean isRewriting = false;
+    // Set while replaying: commands re-executed from the AOF must not be appended to it again
+    private volatile boolean loading = false;
     
     private static CommandLogger INSTANCE;
 
     public static synchronized CommandLogger getInstance() {
         if (INSTANCE == null) {
-            INSTANCE = new CommandLogger("carade.aof");
+            Config config = Carade.config;
+            if (config == null) {
+                INSTANCE = new CommandLogger("carade.aof");
+            } else if (config.appendDirname == null || config.appendDirname.isEmpty()) {
+                INSTANCE = new CommandLogger(config.appendFilename);
+            } else {
+                INSTANCE = new CommandLogger(new File(config.appendDirname), config.appendFilename,
+                        "binary".equals(config.appendFormat));
+            }
+            if (config != null && "binary".equals(config.appendFormat) && INSTANCE.dir == null) {
+                System.err.println("⚠️ aof-format binary needs appenddirname (multi-part AOF), logging RESP");
+            }
         }
         return INSTANCE;
     }
 
     private CommandLogger(String filename) {
-        this.filename = filename;
+        this(null, filename);
+    }
+
+    /**
+     * Multi-part AOF in dir, files named after prefix (e.g. carade.aof.1.incr.aof).
+     * A null dir keeps the single-file layout, prefix being the file name.
+     */
+    public CommandLogger(File dir, String prefix) {
+        this(dir, prefix, false);
+    }
+
+    /**
+     * Same, incremental files in the binary encoding when binary is set (multi-part only).
+     */
+    public CommandLogger(File dir, String prefix, boolean binary) {
+        this.dir = dir;
+        this.prefix = prefix;
+        this.binary = binary && dir != null;
         INSTANCE = this; 
         try {
-            this.outStream = new BufferedOutputStream(new FileOutputStream(filename, true));
+            if (dir != null) {
+                openManifest();
+            } else {
+                this.filename = prefix;
+                this.channel = openChannel(filename);
+            }
         } catch (IOException e) {
             System.err.println("⚠️ Could not open AOF file: " + e.getMessage());
         }
 
-        // Background flusher (fsync every 1s)
+        // Background flusher (write + fsync every 1s, depending on the policy)
         this.flusher = Executors.newSingleThreadScheduledExecutor(r -> {
             Thread t = new Thread(r, "AOF-Flusher");
             t.setDaemon(true);
             return t;
         });
-        this.flusher.scheduleAtFixedRate(this::flush, 1, 1, TimeUnit.SECONDS);
+        this.fsyncer = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "AOF-Fsync");
+            t.setDaemon(true);
+            return t;
+        });
+        this.flusher.scheduleAtFixedRate(this::tick, 1, 1, TimeUnit.SECONDS);
+    }
+
+    private static FileChannel openChannel(String filename) throws IOException {
+        return FileChannel.open(new File(filename).toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private File manifestFile() {
+        return new File(dir, AofManifest.manifestName(prefix));
+    }
+
+    // Loads (or creates) the manifest and opens its last incremental segment
+    private void openManifest() throws IOException {
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Cannot create AOF directory " + dir);
+        }
+        File manifestFile = manifestFile();
+        if (manifestFile.exists()) {
+            manifest = AofManifest.load(manifestFile, prefix);
+        } else {
+            manifest = new AofManifest(prefix);
+            // A single-file AOF from an older version becomes the base
+            String baseName = AofManifest.baseName(prefix, 1, false);
+            File migrated = new File(dir, baseName);
+            File legacy = new File(prefix);
+            if (legacy.isFile() && legacy.length() > 0 && !migrated.exists()) {
+                Files.move(legacy.toPath(), migrated.toPath());
+                System.out.println("📂 Moved " + legacy + " to " + migrated + " (multi-part AOF)");
+            }
+            if (migrated.isFile()) {
+                manifest.setBase(baseName, 1);
+            }
+        }
+        AofManifest.Entry incr = manifest.lastIncr();
+        if (incr == null || !hasFormat(new File(dir, incr.file))) {
+            // Never mix encodings in one file: a format change starts a new segment
+            incr = manifest.addIncr();
+        }
+        manifest.save(manifestFile);
+        this.filename = new File(dir, incr.file).getPath();
+        this.channel = openChannel(filename);
+        startSegment(new File(filename).length() == 0);
+    }
+
+    // Whether an existing segment is empty or already in the configured encoding
+    private boolean hasFormat(File f) throws IOException {
+        if (!f.exists() || f.length() == 0) return true;
+        byte[] magic;
+        try (InputStream in = new FileInputStream(f)) {
+            magic = in.readNBytes(BinaryAofEncoder.MAGIC.length());
+        }
+        return BinaryAofEncoder.isBinary(magic) == binary;
+    }
+
+    // Fresh encoder for the segment just opened; an empty one gets the binary header
+    private void startSegment(boolean empty) {
+        if (!binary) return;
+        encoder = new BinaryAofEncoder();
+        if (empty) {
+            try {
+                encoder.writeHeader(buffer);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    public void setFsyncPolicy(FsyncPolicy policy) {
+        this.fsyncPolicy = policy;
+    }
+
+    public FsyncPolicy getFsyncPolicy() {
+        return fsyncPolicy;
     }
     
     // For testing or manual init
@@ -50,98 +241,398 @@ public class CommandLogger {
         this(file.getAbsolutePath());
     }
 
+    // For testing: appends go to ch from now on (e.g. a closed one, to fail them)
+    synchronized void replaceChannel(FileChannel ch) {
+        synchronized (fsyncLock) {
+            channel = ch;
+        }
+    }
+
+    // For testing
+    static FileChannel openAppend(File file) throws IOException {
+        return openChannel(file.getPath());
+    }
+
     public synchronized void log(String cmd, Object... args) {
         List<byte[]> parts = new ArrayList<>();
-        parts.add(cmd.getBytes(StandardCharsets.UTF_8));
+        parts.add(cmd.getBytes(ByteStrings.CHARSET));
         for (Object arg : args) {
             if (arg instanceof String) {
-                parts.add(((String) arg).getBytes(StandardCharsets.UTF_8));
+                parts.add(((String) arg).getBytes(ByteStrings.CHARSET));
             } else if (arg instanceof byte[]) {
                 parts.add((byte[]) arg);
             } else {
-                parts.add(String.valueOf(arg).getBytes(StandardCharsets.UTF_8));
+                parts.add(String.valueOf(arg).getBytes(ByteStrings.CHARSET));
             }
         }
         log(Resp.array(parts));
     }
     
+    /**
+     * Buffers the command. A failure to hand a full buffer to the OS is only recorded
+     * (see {@link #getLastError()}): the bytes stay buffered for the next attempt.
+     */
     public synchronized void log(byte[] commandBytes) {
-        if (outStream != null && commandBytes != null) {
+        append(commandBytes);
+        if (bufferedBytes() >= WRITE_THRESHOLD) {
             try {
-                outStream.write(commandBytes);
+                writeBuffer();
             } catch (IOException e) {
                 System.err.println("⚠️ Failed to write to AOF: " + e.getMessage());
             }
         }
+    }
+
+    /**
+     * Appends a batch of serialized commands with a single lock acquisition. Throws if
+     * the buffer was due to be written and could not be; the batch stays buffered and
+     * is written by the next successful flush or fsync.
+     */
+    public synchronized void log(byte[][] batch, int count) throws IOException {
+        for (int i = 0; i < count; i++) {
+            append(batch[i]);
+        }
+        if (bufferedBytes() >= WRITE_THRESHOLD) {
+            writeBuffer();
+        }
+    }
+
+    // Caller holds the logger lock
+    private void append(byte[] commandBytes) {
+        if (loading) return;
+        if (channel != null && commandBytes != null) {
+            if (dir != null) trackSelect(commandBytes);
+            if (encoder != null) {
+                encoder.add(commandBytes);
+            } else {
+                buffer.write(commandBytes, 0, commandBytes.length);
+            }
+        }
         
         if (isRewriting) {
             rewriteBuffer.add(commandBytes);
         }
     }
 
-    public synchronized void flush() {
-        if (outStream != null) {
+    // Follows the DB the log is in, from "*2\r\n$6\r\nSELECT\r\n$<n>\r\n<index>\r\n"
+    private void trackSelect(byte[] cmd) {
+        int n = SELECT_PREFIX.length;
+        if (cmd.length <= n || cmd[0] != '*') return;
+        for (int i = 0; i < n; i++) {
+            if (cmd[i] != SELECT_PREFIX[i]) return;
+        }
+        while (n < cmd.length && cmd[n] != '\n') n++;
+        int db = 0;
+        for (int i = n + 1; i < cmd.length && cmd[i] >= '0' && cmd[i] <= '9'; i++) {
+            db = db * 10 + (cmd[i] - '0');
+        }
+        currentDb = db;
+    }
+
+    /**
+     * Hands buffered commands to the OS (page cache). Does not force them to disk.
+     */
+    public synchronized void flush() throws IOException {
+        writeBuffer();
+    }
+
+    // Caller holds the logger lock
+    private int bufferedBytes() {
+        return buffer.size() + (encoder != null ? encoder.pendingSize() : 0);
+    }
+
+    // Caller holds the logger lock. On failure the bytes not written stay buffered.
+    private void writeBuffer() throws IOException {
+        if (encoder != null) encoder.finishBlock(buffer);
+        if (channel == null || buffer.size() == 0) return;
+        ByteBuffer bb = ByteBuffer.wrap(buffer.toByteArray());
+        try {
+            while (bb.hasRemaining()) channel.write(bb);
+            writeError = null;
+        } catch (IOException e) {
+            writeError = describe(e);
+            throw e;
+        } finally {
+            writtenBytes.addAndGet(bb.position());
+            buffer.reset();
+            if (bb.hasRemaining()) buffer.write(bb.array(), bb.position(), bb.remaining());
+        }
+    }
+
+    /**
+     * Writes everything logged so far and forces it to disk. Concurrent callers
+     * queue on one lock; a caller whose bytes were covered by the force that just
+     * finished returns without issuing another one (group commit).
+     * Throws if the write or the force failed: nothing logged so far counts as durable.
+     */
+    public void fsync() throws IOException {
+        long target;
+        synchronized (this) {
+            writeBuffer();
+            target = writtenBytes.get();
+        }
+        synchronized (fsyncLock) {
+            FileChannel ch = channel;
+            if (ch == null || syncedBytes >= target) return;
+            long covered = writtenBytes.get();
+            fsyncInProgress = true;
+            long start = System.nanoTime();
             try {
-                outStream.flush();
+                ch.force(false);
+                syncedBytes = Math.max(syncedBytes, covered);
+                fsyncError = null;
             } catch (IOException e) {
-                // ignore
+                fsyncError = describe(e);
+                throw e;
+            } finally {
+                fsyncInProgress = false;
+                recordFsync(System.nanoTime() - start);
             }
         }
     }
 
+    private void recordFsync(long nanos) {
+        fsyncCount.incrementAndGet();
+        fsyncTotalNanos.addAndGet(nanos);
+        lastFsyncNanos = nanos;
+        if (nanos > maxFsyncNanos) maxFsyncNanos = nanos;
+    }
+
+    // Once per second
+    private void tick() {
+        try {
+            flush();
+        } catch (IOException e) {
+            System.err.println("⚠️ Failed to write to AOF: " + e.getMessage());
+        }
+        if (fsyncPolicy != FsyncPolicy.EVERYSEC) return;
+        if (fsyncInProgress) {
+            // Previous fsync still running: the disk is slower than the write rate
+            delayedFsyncs.incrementAndGet();
+            return;
+        }
+        fsyncer.execute(() -> {
+            try {
+                fsync();
+            } catch (IOException e) {
+                System.err.println("⚠️ AOF fsync failed: " + e.getMessage());
+            }
+        });
+    }
+
+    private static String describe(IOException e) {
+        return e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+    }
+
+    /**
+     * The last write or fsync error, or null if the last attempt of each succeeded.
+     * Writes are refused meanwhile (MISCONF), as their replies could not be backed by the AOF.
+     */
+    public String getLastError() {
+        String error = writeError;
+        return error != null ? error : fsyncError;
+    }
+
+    // --- Metrics (INFO persistence) ---
+
+    public long getFsyncCount() {
+        return fsyncCount.get();
+    }
+
+    public long getLastFsyncMicros() {
+        return lastFsyncNanos / 1000;
+    }
+
+    public long getMaxFsyncMicros() {
+        return maxFsyncNanos / 1000;
+    }
+
+    public long getAvgFsyncMicros() {
+        long count = fsyncCount.get();
+        return count == 0 ? 0 : fsyncTotalNanos.get() / count / 1000;
+    }
+
+    public long getDelayedFsyncs() {
+        return delayedFsyncs.get();
+    }
+
+    /**
+     * Bytes logged but not yet known to be on disk (buffered + written without fsync).
+     */
+    public long getPendingBytes() {
+        int buffered;
+        synchronized (this) {
+            buffered = bufferedBytes();
+        }
+        return buffered + Math.max(0, writtenBytes.get() - syncedBytes);
+    }
+
+    public boolean isRewriteInProgress() {
+        return rewriteInProgress.get();
+    }
+
+    /**
+     * Compacts the AOF into a snapshot of db. Multi-part: writes continue in a new segment
+     * while the snapshot becomes its base. Single file: the file is replaced by an RDB
+     * preamble plus the commands logged meanwhile.
+     */
     public void rewrite(CaradeDatabase db) {
-        isRewriting = true;
-        rewriteBuffer.clear();
-        
-        String tempFile = filename + ".tmp";
-        OutputStream tempOut = null;
+        if (!rewriteInProgress.compareAndSet(false, true)) {
+            System.err.println("⚠️ AOF Rewrite already in progress.");
+            return;
+        }
         try {
-            tempOut = new BufferedOutputStream(new FileOutputStream(tempFile));
-            
-            for (int i=0; i<CaradeDatabase.DB_COUNT; i++) {
-                if (db.size(i) == 0) continue;
-                
-                // Switch to DB i
-                writeCommand(tempOut, "SELECT", String.valueOf(i).getBytes(StandardCharsets.UTF_8));
-                
-                for (Map.Entry<String, ValueEntry> entry : db.entrySet(i)) {
-                    String key = entry.getKey();
-                    ValueEntry val = entry.getValue();
-                    if (val.isExpired()) continue;
-
-                    // Reconstruct commands based on type
-                    if (val.type == DataType.STRING) {
-                         byte[] v = (byte[]) val.value;
-                         if (val.expireAt > 0) {
-                             long ttl = (val.expireAt - System.currentTimeMillis()) / 1000;
-                             if (ttl <= 0) continue; // Expired
-                             writeCommand(tempOut, "SET", key.getBytes(StandardCharsets.UTF_8), v, "EX".getBytes(StandardCharsets.UTF_8), String.valueOf(ttl).getBytes(StandardCharsets.UTF_8));
-                         } else {
-                             writeCommand(tempOut, "SET", key.getBytes(StandardCharsets.UTF_8), v);
-                         }
-                    } else if (val.type == DataType.LIST) {
-                        ConcurrentLinkedDeque<String> list = (ConcurrentLinkedDeque<String>) val.value;
-                        for (String s : list) {
-                            writeCommand(tempOut, "RPUSH", key.getBytes(StandardCharsets.UTF_8), s.getBytes(StandardCharsets.UTF_8));
-                        }
-                    } else if (val.type == DataType.HASH) {
-                        ConcurrentHashMap<String, String> map = (ConcurrentHashMap<String, String>) val.value;
-                        for (Map.Entry<String, String> e : map.entrySet()) {
-                            writeCommand(tempOut, "HSET", key.getBytes(StandardCharsets.UTF_8), e.getKey().getBytes(StandardCharsets.UTF_8), e.getValue().getBytes(StandardCharsets.UTF_8));
-                        }
-                    } else if (val.type == DataType.SET) {
-                        Set<String> set = (Set<String>) val.value;
-                        for (String s : set) {
-                            writeCommand(tempOut, "SADD", key.getBytes(StandardCharsets.UTF_8), s.getBytes(StandardCharsets.UTF_8));
-                        }
-                    } else if (val.type == DataType.ZSET) {
-                        CaradeZSet zset = (CaradeZSet) val.value;
-                        for (Map.Entry<String, Double> e : zset.scores.entrySet()) {
-                             writeCommand(tempOut, "ZADD", key.getBytes(StandardCharsets.UTF_8), String.valueOf(e.getValue()).getBytes(StandardCharsets.UTF_8), e.getKey().getBytes(StandardCharsets.UTF_8));
+            if (dir != null) {
+                rewriteMultiPart(db);
+            } else {
+                rewriteSingleFile(db);
+            }
+        } finally {
+            rewriteInProgress.set(false);
+        }
+    }
+
+    private void rewriteMultiPart(CaradeDatabase db) {
+        try {
+            AofManifest.Entry[] incr = new AofManifest.Entry[1];
+            File temp = new File(dir, "temp-rewriteaof-" + prefix);
+            try (FileOutputStream fos = new FileOutputStream(temp)) {
+                DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(fos, 1024 * 1024));
+                // The new segment starts exactly at the snapshot epoch: every write is either
+                // in the base or in the segment, never in both
+                new RdbEncoder().encode(db, dos, () -> {
+                    WriteSequencer.syncPending();
+                    synchronized (this) {
+                        try {
+                            incr[0] = rotate();
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
                         }
                     }
+                });
+                dos.flush();
+                fos.getFD().sync(); // The base must be durable before the manifest points to it
+            } catch (UncheckedIOException e) {
+                temp.delete();
+                throw e.getCause();
+            }
+
+            String baseName = AofManifest.baseName(prefix, incr[0].seq, true);
+            Files.move(temp.toPath(), new File(dir, baseName).toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            List<AofManifest.Entry> obsolete;
+            synchronized (this) {
+                obsolete = manifest.setBase(baseName, incr[0].seq);
+                manifest.save(manifestFile());
+            }
+            for (AofManifest.Entry e : obsolete) {
+                new File(dir, e.file).delete();
+            }
+            System.out.println("✅ AOF Rewrite successful (base " + baseName + ").");
+        } catch (IOException e) {
+            System.err.println("⚠️ AOF Rewrite failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Makes an existing RDB file the base of an AOF that has no data yet, e.g. the dump a lazy
+     * load just indexed: the file is linked (or copied) instead of encoded again. Returns false
+     * if the AOF cannot take it (single file, data already logged); rewrite instead.
+     */
+    public boolean adoptBase(File rdb) {
+        if (dir == null || hasData()) return false;
+        if (!rewriteInProgress.compareAndSet(false, true)) return false;
+        try {
+            File temp = new File(dir, "temp-rewriteaof-" + prefix);
+            Files.deleteIfExists(temp.toPath());
+            try {
+                Files.createLink(temp.toPath(), rdb.getAbsoluteFile().toPath());
+            } catch (IOException | UnsupportedOperationException e) {
+                Files.copy(rdb.toPath(), temp.toPath());
+                try (FileChannel ch = FileChannel.open(temp.toPath(), StandardOpenOption.WRITE)) {
+                    ch.force(true);
                 }
             }
+
+            AofManifest.Entry incr;
+            synchronized (this) {
+                incr = rotate();
+            }
+            String baseName = AofManifest.baseName(prefix, incr.seq, true);
+            Files.move(temp.toPath(), new File(dir, baseName).toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            List<AofManifest.Entry> obsolete;
+            synchronized (this) {
+                obsolete = manifest.setBase(baseName, incr.seq);
+                manifest.save(manifestFile());
+            }
+            for (AofManifest.Entry e : obsolete) {
+                new File(dir, e.file).delete();
+            }
+            System.out.println("✅ AOF base taken from " + rdb.getName() + " (" + baseName + ").");
+            return true;
+        } catch (IOException e) {
+            System.err.println("⚠️ Could not use " + rdb.getName() + " as the AOF base: " + e.getMessage());
+            return false;
+        } finally {
+            rewriteInProgress.set(false);
+        }
+    }
+
+    /**
+     * Starts a new incremental segment; later writes go there. Caller holds the logger lock.
+     * The old segment is written and forced before it is closed.
+     */
+    private AofManifest.Entry rotate() throws IOException {
+        AofManifest.Entry incr = manifest.addIncr();
+        FileChannel next = openChannel(new File(dir, incr.file).getPath());
+        try {
+            manifest.save(manifestFile());
+        } catch (IOException e) {
+            manifest.removeIncr(incr);
+            next.close();
+            new File(dir, incr.file).delete();
+            throw e;
+        }
+
+        writeBuffer();
+        synchronized (fsyncLock) {
+            if (channel != null) {
+                channel.force(false);
+                channel.close();
+            }
+            channel = next;
+            syncedBytes = writtenBytes.get();
+        }
+        filename = new File(dir, incr.file).getPath();
+        startSegment(true);
+
+        // Replay starts every segment in DB 0
+        if (currentDb != 0) {
+            log("SELECT", String.valueOf(currentDb));
+        }
+        return incr;
+    }
+
+    private void rewriteSingleFile(CaradeDatabase db) {
+        String tempFile = filename + ".tmp";
+        OutputStream tempOut = null;
+        try {
+            FileOutputStream tempFos = new FileOutputStream(tempFile);
+            tempOut = new BufferedOutputStream(tempFos, 1024 * 1024);
+            
+            // RDB preamble: the snapshot loads at RDB speed instead of one command per element
+            DataOutputStream dos = new DataOutputStream(tempOut);
+            new RdbEncoder().encode(db, dos, () -> {
+                // Writes after the epoch are not in the snapshot: buffer them from here on
+                WriteSequencer.syncPending();
+                synchronized (this) {
+                    isRewriting = true;
+                    rewriteBuffer.clear();
+                }
+            });
+            dos.flush();
             
             // Append commands that happened during rewrite
             synchronized(this) {
@@ -149,15 +640,20 @@ public class CommandLogger {
                     tempOut.write(cmd);
                 }
                 tempOut.flush();
+                tempFos.getFD().sync(); // The new file must be durable before it replaces the old one
                 isRewriting = false;
                 rewriteBuffer.clear();
                 
                 tempOut.close();
                 tempOut = null;
 
-                if (outStream != null) {
-                    outStream.flush();
-                    outStream.close();
+                writeBuffer();
+                synchronized (fsyncLock) {
+                    if (channel != null) {
+                        channel.force(false);
+                        channel.close();
+                        channel = null;
+                    }
                 }
 
                 File temp = new File(tempFile);
@@ -171,7 +667,11 @@ public class CommandLogger {
                 }
                 
                 try {
-                   this.outStream = new BufferedOutputStream(new FileOutputStream(filename, true));
+                   synchronized (fsyncLock) {
+                       this.channel = openChannel(filename);
+                       // The rewritten file was forced before the rename
+                       this.syncedBytes = writtenBytes.get();
+                   }
                 } catch (IOException e) {
                     System.err.println("⚠️ FATAL: Could not re-open AOF: " + e.getMessage());
                 }
@@ -184,54 +684,117 @@ public class CommandLogger {
             if (tempOut != null) try { tempOut.close(); } catch (IOException e) {}
         }
     }
-    
-    private void writeCommand(OutputStream out, String cmd, byte[]... args) throws IOException {
-        List<byte[]> parts = new ArrayList<>();
-        parts.add(cmd.getBytes(StandardCharsets.UTF_8));
-        for (byte[] arg : args) parts.add(arg);
-        out.write(Resp.array(parts));
+
+    // Files to load, in order: the base, then the incremental segments
+    private synchronized List<File> aofFiles() {
+        List<File> files = new ArrayList<>();
+        if (dir == null) {
+            File f = new File(filename);
+            if (f.exists()) files.add(f);
+            return files;
+        }
+        if (manifest == null) return files;
+        for (AofManifest.Entry e : manifest.files()) {
+            File f = new File(dir, e.file);
+            if (f.exists()) {
+                files.add(f);
+            } else {
+                System.err.println("⚠️ AOF file listed in the manifest is missing: " + f);
+            }
+        }
+        return files;
     }
-    
-    public void replay(java.util.function.Consumer<List<byte[]>> commandExecutor) {
-        File f = new File(filename);
-        if (!f.exists()) return;
+
+    /**
+     * Whether the AOF holds anything to load.
+     */
+    public boolean hasData() {
+        for (File f : aofFiles()) {
+            if (f.length() > 0) return true;
+        }
+        return false;
+    }
+
+    public void replay(Consumer<List<byte[]>> commandExecutor) {
+        replay(CaradeDatabase.getInstance(), commandExecutor);
+    }
+
+    /**
+     * Loads the AOF: a snapshot (RDB base or preamble) straight into db, commands
+     * through the executor.
+     */
+    public void replay(CaradeDatabase db, Consumer<List<byte[]>> commandExecutor) {
+        List<File> files = aofFiles();
+        if (files.isEmpty()) return;
         
         System.out.println("📂 Replaying AOF...");
-        try (InputStream fis = new BufferedInputStream(new FileInputStream(f), 1024 * 1024)) { // 1MB Buffer
-            long count = 0;
-            long start = System.currentTimeMillis();
-            while (true) {
-                Resp.Request req = Resp.parse(fis);
-                if (req == null) break;
-                
-                if (!req.args.isEmpty()) {
-                    commandExecutor.accept(req.args);
-                    count++;
-                    if (count % 100000 == 0) {
-                        System.out.println("   Loaded " + count + " commands... (" + (System.currentTimeMillis() - start) + "ms)");
-                    }
+        long start = System.currentTimeMillis();
+        AofLoader loader = new AofLoader();
+        long total = 0;
+        for (File f : files) total += f.length();
+        loader.setTotalBytes(total);
+
+        // Replayed commands are neither logged again nor replicated; no eviction or keyspace events
+        loading = true;
+        db.setLoading(true);
+        try {
+            for (File f : files) {
+                try {
+                    loader.load(f, db, commandExecutor);
+                } catch (IOException e) {
+                    System.err.println("⚠️ Error replaying AOF " + f.getName() + ": " + e.getMessage());
                 }
             }
-            System.out.println("✅ Replay finished. " + count + " commands processed in " + (System.currentTimeMillis() - start) + "ms.");
-        } catch (IOException e) {
-            System.err.println("⚠️ Error replaying AOF: " + e.getMessage());
+        } finally {
+            WriteSequencer.syncPending();
+            db.setLoading(false);
+            loading = false;
         }
+        long ms = System.currentTimeMillis() - start;
+        System.out.println(String.format("✅ Replay finished. %d commands, %d MB in %dms (%.0f MB/s, %d cmd/s).",
+                loader.getCommands(), loader.getBytes() >> 20, ms, loader.getMegabytesPerSecond(),
+                ms > 0 ? loader.getCommands() * 1000 / ms : loader.getCommands()));
+    }
+
+    /**
+     * True while {@link #replay} runs: writes are not appended, replicated or counted.
+     */
+    public boolean isLoading() {
+        return loading;
     }
     
     public void close() {
         flusher.shutdown();
+        fsyncer.shutdown();
         try {
             if (!flusher.awaitTermination(2, TimeUnit.SECONDS)) {
                 flusher.shutdownNow();
             }
+            fsyncer.awaitTermination(2, TimeUnit.SECONDS);
         } catch (InterruptedException e) {
             flusher.shutdownNow();
         }
-        if (outStream != null) {
+        try {
+            if (fsyncPolicy != FsyncPolicy.NO) {
+                fsync();
+            }
+        } catch (IOException e) {
+            System.err.println("⚠️ AOF fsync failed: " + e.getMessage());
+        }
+        synchronized (this) {
             try {
-                outStream.flush();
-                outStream.close();
-            } catch (IOException e) { }
+                writeBuffer();
+            } catch (IOException e) {
+                System.err.println("⚠️ Failed to write to AOF: " + e.getMessage());
+            }
+            synchronized (fsyncLock) {
+                if (channel != null) {
+                    try {
+                        channel.close();
+                    } catch (IOException e) { }
+                    channel = null;
+                }
+            }
         }
     }
 }
@@ -0,0 +1,74 @@
+package core.persistence;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Save points: "save &lt;seconds&gt; &lt;changes&gt;" rules. A snapshot is due once, for any rule,
+ * at least changes writes happened and seconds elapsed since the last successful save.
+ * An empty spec ("save \"\"") disables automatic snapshots.
+ */
+public final class SavePoints {
+    // Wait between automatic attempts after a failed save
+    public static final long RETRY_DELAY_MS = 5000;
+
+    private final long[] seconds;
+    private final long[] changes;
+
+    private SavePoints(long[] seconds, long[] changes) {
+        this.seconds = seconds;
+        this.changes = changes;
+    }
+
+    /**
+     * Parses "3600 1 300 100 60 10000" (pairs of seconds and changes).
+     */
+    public static SavePoints parse(String spec) {
+        String s = spec == null ? "" : spec.trim();
+        if (s.length() >= 2 && s.startsWith("\"") && s.endsWith("\"")) s = s.substring(1, s.length() - 1).trim();
+        if (s.isEmpty()) return new SavePoints(new long[0], new long[0]);
+
+        String[] parts = s.split("\\s+");
+        if (parts.length % 2 != 0) throw new IllegalArgumentException("save needs <seconds> <changes> pairs: " + spec);
+        List<long[]> rules = new ArrayList<>();
+        for (int i = 0; i < parts.length; i += 2) {
+            long sec = Long.parseLong(parts[i]);
+            long ch = Long.parseLong(parts[i + 1]);
+            if (sec < 1 || ch < 0) throw new IllegalArgumentException("Invalid save point: " + parts[i] + " " + parts[i + 1]);
+            rules.add(new long[]{sec, ch});
+        }
+        long[] sec = new long[rules.size()];
+        long[] ch = new long[rules.size()];
+        for (int i = 0; i < sec.length; i++) {
+            sec[i] = rules.get(i)[0];
+            ch[i] = rules.get(i)[1];
+        }
+        return new SavePoints(sec, ch);
+    }
+
+    public boolean isEmpty() {
+        return seconds.length == 0;
+    }
+
+    /**
+     * @param dirty writes since the last successful save
+     * @param elapsedSeconds seconds since the last successful save
+     */
+    public boolean isDue(long dirty, long elapsedSeconds) {
+        if (dirty <= 0) return false;
+        for (int i = 0; i < seconds.length; i++) {
+            if (dirty >= changes[i] && elapsedSeconds >= seconds[i]) return true;
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < seconds.length; i++) {
+            if (i > 0) sb.append(' ');
+            sb.append(seconds[i]).append(' ').append(changes[i]);
+        }
+        return sb.toString();
+    }
+}
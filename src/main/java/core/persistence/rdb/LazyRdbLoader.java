@@ -0,0 +1,181 @@
+package core.persistence.rdb;
+
+import core.db.CaradeDatabase;
+import core.db.DataType;
+import core.db.ValueEntry;
+
+import java.io.BufferedInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Lazy snapshot loading (rdb-lazy-load yes).
+ *
+ * The dump is read once, sequentially, to build the key index: every key goes into the
+ * database with its type and expiry, and its value stays a reference to its bytes in the
+ * memory-mapped file. {@link ValueEntry#getValue()} decodes a value the first time it is
+ * used and {@link #warm} decodes the rest in the background, so startup time grows with
+ * the number of keys rather than with the size of the data.
+ *
+ * {@link RdbEncoder} copies values that are still in the file as they are. The mapping stays
+ * valid when the dump is replaced, since saves rename a new file over it.
+ */
+public class LazyRdbLoader {
+    // Mapped regions start every REGION bytes and overlap so that most values fit in one
+    private static final long REGION = 1L << 30;
+    private static final long OVERLAP = 64L << 20;
+
+    /**
+     * A value still in the mapped dump.
+     */
+    public static final class Value implements SerializedValue {
+        private final Mapping file;
+        private final long offset;
+        private final int length;
+        private final int type;
+
+        Value(Mapping file, long offset, int length, int type) {
+            this.file = file;
+            this.offset = offset;
+            this.length = length;
+            this.type = type;
+        }
+
+        @Override
+        public Object load() {
+            try {
+                return new RdbParser(new BufferInputStream(file.slice(offset, length))).loadObject(type).getValue();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot decode value at offset " + offset + " of the dump", e);
+            }
+        }
+
+        @Override
+        public int rdbType() {
+            return type;
+        }
+
+        @Override
+        public void writeTo(DataOutputStream out) throws IOException {
+            ByteBuffer b = file.slice(offset, length);
+            byte[] chunk = new byte[Math.min(length, 64 * 1024)];
+            while (b.hasRemaining()) {
+                int n = Math.min(chunk.length, b.remaining());
+                b.get(chunk, 0, n);
+                out.write(chunk, 0, n);
+            }
+        }
+    }
+
+    static final class Mapping {
+        private final FileChannel channel;
+        private final ByteBuffer[] regions;
+
+        Mapping(File file) throws IOException {
+            channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+            long size = channel.size();
+            regions = new ByteBuffer[(int) ((size + REGION - 1) / REGION)];
+            for (int i = 0; i < regions.length; i++) {
+                long start = i * REGION;
+                regions[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(REGION + OVERLAP, size - start));
+            }
+        }
+
+        ByteBuffer slice(long offset, int length) throws IOException {
+            int r = (int) (offset / REGION);
+            long at = offset - r * REGION;
+            if (at + length <= regions[r].capacity()) return regions[r].slice((int) at, length);
+            // Crosses the overlap: map it on its own
+            return channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+        }
+    }
+
+    /**
+     * Indexes file into db. Returns the number of keys.
+     */
+    public long load(CaradeDatabase db, File file) throws IOException {
+        Mapping mapping = new Mapping(file);
+        long[] keys = new long[1];
+        try (CountingInputStream in = new CountingInputStream(new BufferedInputStream(new FileInputStream(file), 1024 * 1024))) {
+            RdbParser parser = new RdbParser(in);
+            parser.readHeader();
+            parser.parseBody((dbIndex, key, value) -> {
+                db.getStore(dbIndex).put(key, value);
+                keys[0]++;
+            }, type -> {
+                DataType dataType = RdbParser.dataTypeOf(type);
+                if (dataType == null) return parser.loadObject(type); // Generic object of older versions
+                long start = in.count;
+                parser.skipObject(type);
+                long length = in.count - start;
+                if (length > Integer.MAX_VALUE) throw new IOException("Value too large at offset " + start);
+                return new ValueEntry(new Value(mapping, start, (int) length, type), dataType, -1);
+            });
+        }
+        return keys[0];
+    }
+
+    /**
+     * Decodes every value still in the file on a background thread.
+     */
+    public static Thread warm(CaradeDatabase db) {
+        Thread t = new Thread(() -> {
+            long start = System.currentTimeMillis();
+            long decoded = 0;
+            for (int i = 0; i < CaradeDatabase.DB_COUNT; i++) {
+                for (ValueEntry v : db.getStore(i).values()) {
+                    if (!(v.peekValue() instanceof Value)) continue;
+                    try {
+                        v.getValue();
+                        decoded++;
+                    } catch (UncheckedIOException e) {
+                        System.err.println("⚠️ " + e.getMessage());
+                    }
+                }
+            }
+            System.out.println("🔥 Warmed " + decoded + " lazily loaded values in " + (System.currentTimeMillis() - start) + "ms");
+        }, "RDB-Warmer");
+        t.setDaemon(true);
+        t.setPriority(Thread.MIN_PRIORITY);
+        t.start();
+        return t;
+    }
+
+    // Position in the file, i.e. where each value starts
+    private static final class CountingInputStream extends FilterInputStream {
+        long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) count++;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buf, int off, int len) throws IOException {
+            int n = super.read(buf, off, len);
+            if (n > 0) count += n;
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long s = super.skip(n);
+            count += s;
+            return s;
+        }
+    }
+}
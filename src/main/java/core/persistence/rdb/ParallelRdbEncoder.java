@@ -0,0 +1,219 @@
+package core.persistence.rdb;
+
+import core.db.CaradeDatabase;
+import core.db.CowSnapshot;
+import core.db.ValueEntry;
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32C;
+
+/**
+ * Writes a snapshot as independent sections, encoded (and loaded, see {@link ParallelRdbLoader})
+ * on several threads.
+ *
+ * Layout:
+ * <pre>
+ * "CPRDB" version(int)
+ * section*     RDB body (SELECTDB, entries, EOF), optionally as one LZ4 block
+ * index        per section: db(int) keys(int) flags(int) offset(long) stored(int) raw(int) crc32c(int)
+ * indexOffset(long) sections(int) "CPRDB"
+ * </pre>
+ * Every DB is cut into key ranges of about {@link #SECTION_KEYS} keys, so a single large DB
+ * spreads over all threads. Entries use the regular RDB encoding of {@link RdbEncoder}.
+ */
+public class ParallelRdbEncoder {
+    public static final int SECTION_KEYS = 64 * 1024;
+    static final int INDEX_ENTRY_BYTES = 4 + 4 + 4 + 8 + 4 + 4 + 4;
+    static final int FOOTER_BYTES = 8 + 4 + 5;
+    static final int HEADER_BYTES = 5 + 4;
+
+    static final class Section {
+        int db;
+        int keys;
+        int flags;
+        long offset;
+        int stored;
+        int raw;
+        int crc;
+    }
+
+    private interface Body {
+        void write(CowSnapshot.Visitor out) throws IOException;
+    }
+
+    private final int threads;
+    private final boolean lz4;
+
+    private long position;
+    private final List<Section> index = new ArrayList<>();
+
+    public ParallelRdbEncoder(int threads, boolean lz4) {
+        this.threads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.lz4 = lz4;
+    }
+
+    /**
+     * Writes the snapshot to a temp file next to filepath, forces it and renames it over filepath.
+     */
+    public void save(CaradeDatabase db, String filepath) throws IOException {
+        File target = new File(filepath).getAbsoluteFile();
+        File temp = new File(target.getParentFile(), "temp-" + target.getName());
+        try (FileChannel ch = FileChannel.open(temp.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            encode(db, ch);
+            ch.force(true);
+        }
+        Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public synchronized void encode(CaradeDatabase db, FileChannel out) throws IOException {
+        position = 0;
+        index.clear();
+        AtomicInteger ids = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "RDB-Encoder-" + ids.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        CowSnapshot snapshot = CowSnapshot.begin(db);
+        try {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            header.put(RdbConstants.PARALLEL_MAGIC.getBytes(StandardCharsets.US_ASCII));
+            header.putInt(RdbConstants.PARALLEL_VERSION);
+            append(out, header.flip());
+
+            List<Future<?>> pending = new ArrayList<>();
+            for (int i = 0; i < snapshot.dbCount(); i++) {
+                if (snapshot.size(i) == 0) continue;
+                int dbIndex = i;
+                for (Spliterator<String> range : snapshot.split(i, SECTION_KEYS)) {
+                    pending.add(pool.submit(() -> {
+                        writeSection(out, dbIndex, v -> snapshot.writeKeys(dbIndex, range, v));
+                        return null;
+                    }));
+                }
+            }
+            for (Future<?> f : pending) {
+                try {
+                    f.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while saving");
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
+                    throw new IOException("Section encoding failed: " + e.getCause(), e.getCause());
+                }
+            }
+
+            // Keys removed since the epoch, once every range of their DB is written
+            for (int i = 0; i < snapshot.dbCount(); i++) {
+                int dbIndex = i;
+                if (snapshot.hasRemoved(i)) writeSection(out, i, v -> snapshot.writeRemoved(dbIndex, v));
+            }
+
+            writeIndex(out);
+        } finally {
+            snapshot.end();
+            pool.shutdownNow();
+        }
+    }
+
+    private void writeSection(FileChannel out, int dbIndex, Body body) throws IOException {
+        RdbEncoder encoder = new RdbEncoder();
+        ByteArrayOutputStream bos = new ByteArrayOutputStream(1 << 16);
+        DataOutputStream dos = new DataOutputStream(bos);
+        encoder.writeDbHeader(dos, dbIndex, SECTION_KEYS);
+        int[] keys = new int[1];
+        body.write(new CowSnapshot.Visitor() {
+            @Override
+            public void db(int index, long size) {
+            }
+
+            @Override
+            public void entry(String key, ValueEntry value) throws IOException {
+                encoder.writeEntry(dos, key, value);
+                keys[0]++;
+            }
+        });
+        if (keys[0] == 0) return;
+        dos.write(RdbConstants.RDB_OPCODE_EOF);
+        dos.flush();
+
+        byte[] raw = bos.toByteArray();
+        byte[] stored = raw;
+        int flags = 0;
+        if (lz4) {
+            LZ4Compressor compressor = LZ4Factory.fastestInstance().fastCompressor();
+            byte[] compressed = compressor.compress(raw);
+            if (compressed.length < raw.length) {
+                stored = compressed;
+                flags |= RdbConstants.SECTION_LZ4;
+            }
+        }
+
+        CRC32C crc = new CRC32C();
+        crc.update(stored);
+        Section s = new Section();
+        s.db = dbIndex;
+        s.keys = keys[0];
+        s.flags = flags;
+        s.stored = stored.length;
+        s.raw = raw.length;
+        s.crc = (int) crc.getValue();
+        synchronized (index) {
+            s.offset = position;
+            position += stored.length;
+            index.add(s);
+        }
+        // Positional write: sections reserve their range and write concurrently
+        ByteBuffer bb = ByteBuffer.wrap(stored);
+        long at = s.offset;
+        while (bb.hasRemaining()) at += out.write(bb, at);
+    }
+
+    private void append(FileChannel out, ByteBuffer bb) throws IOException {
+        long at;
+        synchronized (index) {
+            at = position;
+            position += bb.remaining();
+        }
+        while (bb.hasRemaining()) at += out.write(bb, at);
+    }
+
+    private void writeIndex(FileChannel out) throws IOException {
+        long indexOffset = position;
+        ByteBuffer bb = ByteBuffer.allocate(index.size() * INDEX_ENTRY_BYTES + FOOTER_BYTES);
+        for (Section s : index) {
+            bb.putInt(s.db).putInt(s.keys).putInt(s.flags).putLong(s.offset).putInt(s.stored).putInt(s.raw).putInt(s.crc);
+        }
+        bb.putLong(indexOffset).putInt(index.size());
+        bb.put(RdbConstants.PARALLEL_MAGIC.getBytes(StandardCharsets.US_ASCII));
+        append(out, bb.flip());
+    }
+
+    /**
+     * Sections written by the last {@link #encode}.
+     */
+    public synchronized int getSectionCount() {
+        return index.size();
+    }
+}
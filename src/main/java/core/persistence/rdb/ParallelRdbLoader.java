@@ -0,0 +1,140 @@
+package core.persistence.rdb;
+
+import core.db.CaradeDatabase;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4SafeDecompressor;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32C;
+
+/**
+ * Loads a snapshot written by {@link ParallelRdbEncoder}.
+ *
+ * The file is memory-mapped; the index at its end gives the key count of every DB, so the
+ * maps are sized once up front, and the sections are then decoded by a fork-join pool
+ * straight into them (no eviction or keyspace events while loading).
+ */
+public class ParallelRdbLoader {
+    private final int threads;
+
+    public ParallelRdbLoader(int threads) {
+        this.threads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+    }
+
+    public static boolean isParallelRdb(byte[] magic) {
+        return new String(magic, StandardCharsets.US_ASCII).startsWith(RdbConstants.PARALLEL_MAGIC);
+    }
+
+    /**
+     * Loads every section into db and returns the number of keys loaded.
+     */
+    public long load(CaradeDatabase db, File file) throws IOException {
+        try (FileChannel ch = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            List<ParallelRdbEncoder.Section> sections = readIndex(ch);
+
+            long[] keys = new long[CaradeDatabase.DB_COUNT];
+            for (ParallelRdbEncoder.Section s : sections) {
+                if (s.db < 0 || s.db >= CaradeDatabase.DB_COUNT) throw new IOException("Invalid DB index in section: " + s.db);
+                keys[s.db] += s.keys;
+            }
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] > 0) db.presize(i, keys[i]);
+            }
+
+            List<Callable<Long>> tasks = new ArrayList<>(sections.size());
+            for (ParallelRdbEncoder.Section s : sections) {
+                tasks.add(() -> loadSection(ch, db, s));
+            }
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            try {
+                long loaded = 0;
+                for (Future<Long> f : pool.invokeAll(tasks)) {
+                    loaded += f.get();
+                }
+                return loaded;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while loading");
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
+                throw new IOException("Section decoding failed: " + e.getCause(), e.getCause());
+            } finally {
+                pool.shutdownNow();
+            }
+        }
+    }
+
+    private List<ParallelRdbEncoder.Section> readIndex(FileChannel ch) throws IOException {
+        long size = ch.size();
+        if (size < ParallelRdbEncoder.HEADER_BYTES + ParallelRdbEncoder.FOOTER_BYTES) {
+            throw new IOException("Truncated parallel RDB file");
+        }
+        ByteBuffer header = ch.map(FileChannel.MapMode.READ_ONLY, 0, ParallelRdbEncoder.HEADER_BYTES);
+        byte[] magic = new byte[5];
+        header.get(magic);
+        if (!isParallelRdb(magic)) throw new IOException("Invalid parallel RDB magic");
+        int version = header.getInt();
+        if (version != RdbConstants.PARALLEL_VERSION) throw new IOException("Unknown parallel RDB version: " + version);
+
+        ByteBuffer footer = ch.map(FileChannel.MapMode.READ_ONLY, size - ParallelRdbEncoder.FOOTER_BYTES, ParallelRdbEncoder.FOOTER_BYTES);
+        long indexOffset = footer.getLong();
+        int count = footer.getInt();
+        footer.get(magic);
+        if (!isParallelRdb(magic) || count < 0
+                || indexOffset + (long) count * ParallelRdbEncoder.INDEX_ENTRY_BYTES != size - ParallelRdbEncoder.FOOTER_BYTES) {
+            throw new IOException("Corrupt parallel RDB index (truncated file?)");
+        }
+
+        ByteBuffer idx = ch.map(FileChannel.MapMode.READ_ONLY, indexOffset, (long) count * ParallelRdbEncoder.INDEX_ENTRY_BYTES);
+        List<ParallelRdbEncoder.Section> sections = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ParallelRdbEncoder.Section s = new ParallelRdbEncoder.Section();
+            s.db = idx.getInt();
+            s.keys = idx.getInt();
+            s.flags = idx.getInt();
+            s.offset = idx.getLong();
+            s.stored = idx.getInt();
+            s.raw = idx.getInt();
+            s.crc = idx.getInt();
+            if (s.offset < ParallelRdbEncoder.HEADER_BYTES || s.offset + s.stored > indexOffset) {
+                throw new IOException("Section out of bounds at " + s.offset);
+            }
+            sections.add(s);
+        }
+        return sections;
+    }
+
+    private long loadSection(FileChannel ch, CaradeDatabase db, ParallelRdbEncoder.Section s) throws IOException {
+        ByteBuffer stored = ch.map(FileChannel.MapMode.READ_ONLY, s.offset, s.stored);
+        CRC32C crc = new CRC32C();
+        crc.update(stored.duplicate());
+        if ((int) crc.getValue() != s.crc) throw new IOException("Checksum mismatch in section at " + s.offset);
+
+        ByteBuffer body = stored;
+        if ((s.flags & RdbConstants.SECTION_LZ4) != 0) {
+            LZ4SafeDecompressor decompressor = LZ4Factory.fastestInstance().safeDecompressor();
+            ByteBuffer raw = ByteBuffer.allocate(s.raw);
+            int n = decompressor.decompress(stored, 0, s.stored, raw, 0, s.raw);
+            if (n != s.raw) throw new IOException("Bad LZ4 section at " + s.offset);
+            body = raw;
+        }
+
+        long[] loaded = new long[1];
+        new RdbParser(new BufferInputStream(body)).parseBody((dbIndex, key, value) -> {
+            db.getStore(dbIndex).put(key, value);
+            loaded[0]++;
+        });
+        return loaded[0];
+    }
+}
@@ -5,6 +5,11 @@ public class RdbConstants {
     public static final String RDB_MAGIC = "REDIS";
     public static final int RDB_VERSION = 9;
 
+    // Parallel (sectioned) snapshot, see ParallelRdbEncoder
+    public static final String PARALLEL_MAGIC = "CPRDB";
+    public static final int PARALLEL_VERSION = 1;
+    public static final int SECTION_LZ4 = 1;
+
     // OpCodes
     public static final int RDB_OPCODE_EOF = 0xFF;
     public static final int RDB_OPCODE_SELECTDB = 0xFE;
@@ -28,6 +33,17 @@ public class RdbConstants {
     public static final int RDB_TYPE_ZSET_ZIPLIST = 12;
     public static final int RDB_TYPE_HASH_ZIPLIST = 13;
     public static final int RDB_TYPE_LIST_QUICKLIST = 14;
+    // Carade extension: type name + serialized value (BLOOM, HYPERLOGLOG, TDIGEST, JSON).
+    // Written by older versions, still loaded
+    public static final int RDB_TYPE_CARADE_OBJECT = 0x40;
+    // Carade native types
+    public static final int RDB_TYPE_BLOOM = 0x41;       // bits, hashes, bit words (little-endian bytes)
+    public static final int RDB_TYPE_HYPERLOGLOG = 0x42; // HLL_DENSE registers | HLL_SPARSE (index, value) pairs
+    public static final int RDB_TYPE_TDIGEST = 0x43;     // compression, merged and buffered centroids
+    public static final int RDB_TYPE_JSON = 0x44;        // JSON text
+
+    public static final int HLL_DENSE = 0;
+    public static final int HLL_SPARSE = 1;
 
     // Length Encodings
     public static final int RDB_6BITLEN = 0;
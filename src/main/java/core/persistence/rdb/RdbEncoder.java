@@ -1,32 +1,54 @@
 package core.persistence.rdb;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import core.db.CaradeDatabase;
+import core.db.CowSnapshot;
 import core.db.DataType;
 import core.db.ValueEntry;
+import core.commands.json.JsonUtils;
+import core.structs.BloomFilter;
 import core.structs.CaradeZSet;
+import core.structs.HyperLogLog;
+import core.structs.PackedSet;
+import core.structs.ZNode;
+import core.structs.tdigest.Centroid;
+import core.structs.tdigest.TDigest;
+import core.utils.ByteStrings;
 import net.jpountz.lz4.LZ4Compressor;
 import net.jpountz.lz4.LZ4Factory;
 
 import java.io.*;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Deque;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentLinkedDeque;
 
 public class RdbEncoder {
 
+    /**
+     * Writes a point-in-time snapshot of db to a temp file next to filepath, forces it
+     * and renames it over filepath, so a crash never leaves a torn dump.
+     */
     public void save(CaradeDatabase db, String filepath) throws IOException {
-        try (DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(filepath)))) {
+        File target = new File(filepath).getAbsoluteFile();
+        File temp = new File(target.getParentFile(), "temp-" + target.getName());
+        try (FileOutputStream fos = new FileOutputStream(temp)) {
+            DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(fos, 1024 * 1024));
             encode(db, dos);
+            dos.flush();
+            fos.getFD().sync();
         }
+        Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
     }
 
     public void encodeValue(DataOutputStream dos, ValueEntry v) throws IOException {
         if (v.type == DataType.STRING) {
             writeString(dos, (byte[]) v.getValue());
         } else if (v.type == DataType.LIST) {
-            ConcurrentLinkedDeque<String> list = (ConcurrentLinkedDeque<String>) v.getValue();
+            Deque<String> list = (Deque<String>) v.getValue();
             writeLen(dos, list.size());
             for (String s : list) writeString(dos, s);
         } else if (v.type == DataType.SET) {
@@ -36,9 +58,9 @@ public class RdbEncoder {
         } else if (v.type == DataType.ZSET) {
             CaradeZSet zset = (CaradeZSet) v.getValue();
             writeLen(dos, zset.size());
-            for (Map.Entry<String, Double> e : zset.scores.entrySet()) {
-                writeString(dos, e.getKey());
-                double score = e.getValue();
+            for (ZNode e : zset) {
+                writeString(dos, e.member);
+                double score = e.score;
                 String sScore;
                 if (Double.isInfinite(score)) {
                     sScore = (score > 0) ? "+inf" : "-inf"; 
@@ -50,17 +72,112 @@ public class RdbEncoder {
                 dos.write(bScore);
             }
         } else if (v.type == DataType.HASH) {
-            ConcurrentHashMap<String, String> map = (ConcurrentHashMap<String, String>) v.getValue();
+            Map<String, String> map = (Map<String, String>) v.getValue();
             writeLen(dos, map.size());
             for (Map.Entry<String, String> e : map.entrySet()) {
                 writeString(dos, e.getKey());
                 writeString(dos, e.getValue());
             }
+        } else if (v.type == DataType.JSON) {
+            writeString(dos, JsonUtils.stringify((JsonNode) v.getValue()).getBytes(StandardCharsets.UTF_8));
+        } else if (v.type == DataType.BLOOM) {
+            BloomFilter bf = (BloomFilter) v.getValue();
+            byte[] bits = bf.toByteArray();
+            writeLen(dos, bf.getBitSize());
+            writeLen(dos, bf.getHashCount());
+            writeLen(dos, bits.length);
+            dos.write(bits);
+        } else if (v.type == DataType.HYPERLOGLOG) {
+            writeHyperLogLog(dos, (HyperLogLog) v.getValue());
+        } else if (v.type == DataType.TDIGEST) {
+            TDigest digest = (TDigest) v.getValue();
+            dos.writeDouble(digest.getCompression());
+            writeCentroids(dos, digest.getCentroids());
+            writeCentroids(dos, digest.getBuffer());
+        } else {
+            throw new IOException("Cannot encode value of type " + v.type);
+        }
+    }
+
+    // Dense: the register array as is. Sparse, when under a third of the registers are set:
+    // (index short, value byte) per set register
+    private void writeHyperLogLog(DataOutputStream dos, HyperLogLog hll) throws IOException {
+        byte[] registers = hll.getRegisters();
+        int set = 0;
+        for (byte r : registers) {
+            if (r != 0) set++;
+        }
+        if (set * 3 < registers.length) {
+            dos.write(RdbConstants.HLL_SPARSE);
+            writeLen(dos, set);
+            for (int i = 0; i < registers.length; i++) {
+                if (registers[i] == 0) continue;
+                dos.writeShort(i);
+                dos.write(registers[i]);
+            }
+        } else {
+            dos.write(RdbConstants.HLL_DENSE);
+            dos.write(registers);
+        }
+    }
+
+    private void writeCentroids(DataOutputStream dos, List<Centroid> centroids) throws IOException {
+        writeLen(dos, centroids.size());
+        for (Centroid c : centroids) {
+            dos.writeDouble(c.getMean());
+            dos.writeLong(c.getCount());
+        }
+    }
+
+    /**
+     * RDB type byte of a value.
+     */
+    public static int typeOf(ValueEntry v) {
+        switch (v.type) {
+            case STRING: return RdbConstants.RDB_TYPE_STRING;
+            case LIST: return RdbConstants.RDB_TYPE_LIST;
+            case SET: return RdbConstants.RDB_TYPE_SET;
+            case ZSET: return RdbConstants.RDB_TYPE_ZSET; // Use 3 (string score) for better compatibility
+            case HASH: return RdbConstants.RDB_TYPE_HASH;
+            case BLOOM: return RdbConstants.RDB_TYPE_BLOOM;
+            case HYPERLOGLOG: return RdbConstants.RDB_TYPE_HYPERLOGLOG;
+            case TDIGEST: return RdbConstants.RDB_TYPE_TDIGEST;
+            case JSON: return RdbConstants.RDB_TYPE_JSON;
+            default: return RdbConstants.RDB_TYPE_CARADE_OBJECT;
         }
     }
 
     public void encode(CaradeDatabase db, DataOutputStream dos) throws IOException {
-        // Header
+        encode(db, dos, null);
+    }
+
+    /**
+     * Encodes a copy-on-write snapshot of db (see {@link CowSnapshot}); writers keep going
+     * while it streams. atEpoch, if given, runs at the snapshot's quiescent point, e.g. to
+     * switch the AOF to a new segment exactly where the snapshot starts.
+     */
+    public void encode(CaradeDatabase db, DataOutputStream dos, Runnable atEpoch) throws IOException {
+        CowSnapshot snapshot = CowSnapshot.begin(db, atEpoch);
+        try {
+            writeHeader(dos);
+            snapshot.write(new CowSnapshot.Visitor() {
+                @Override
+                public void db(int dbIndex, long size) throws IOException {
+                    writeDbHeader(dos, dbIndex, size);
+                }
+
+                @Override
+                public void entry(String key, ValueEntry value) throws IOException {
+                    writeEntry(dos, key, value);
+                }
+            });
+            writeFooter(dos);
+        } finally {
+            snapshot.end();
+        }
+    }
+
+    public void writeHeader(DataOutputStream dos) throws IOException {
         dos.write(RdbConstants.RDB_MAGIC.getBytes(StandardCharsets.US_ASCII));
         dos.write("0009".getBytes(StandardCharsets.US_ASCII));
         
@@ -68,47 +185,58 @@ public class RdbEncoder {
         dos.write(RdbConstants.RDB_OPCODE_AUX);
         writeString(dos, "redis-ver");
         writeString(dos, "6.0.0"); // Pretend to be Redis 6
+    }
+
+    public void writeDbHeader(DataOutputStream dos, int dbIndex, long size) throws IOException {
+        // Select DB
+        dos.write(RdbConstants.RDB_OPCODE_SELECTDB);
+        writeLen(dos, dbIndex);
         
-        for (int i = 0; i < CaradeDatabase.DB_COUNT; i++) {
-            if (db.size(i) == 0) continue;
-
-            // Select DB
-            dos.write(RdbConstants.RDB_OPCODE_SELECTDB);
-            writeLen(dos, i);
-            
-            // Resize DB (optional)
-            dos.write(RdbConstants.RDB_OPCODE_RESIZEDB);
-            writeLen(dos, db.size(i));
-            writeLen(dos, 0); // Expires size (we don't track separately easily, so 0)
-            
-            for (Map.Entry<String, ValueEntry> entry : db.entrySet(i)) {
-                ValueEntry v = entry.getValue();
-                if (v.isExpired()) continue;
-                
-                // Expire
-                if (v.expireAt != -1) {
-                    dos.write(RdbConstants.RDB_OPCODE_EXPIRETIMEMS);
-                    dos.writeLong(v.expireAt);
-                }
-                
-                // Type
-                int type = 0;
-                if (v.type == DataType.STRING) type = RdbConstants.RDB_TYPE_STRING;
-                else if (v.type == DataType.LIST) type = RdbConstants.RDB_TYPE_LIST;
-                else if (v.type == DataType.SET) type = RdbConstants.RDB_TYPE_SET;
-                else if (v.type == DataType.ZSET) type = RdbConstants.RDB_TYPE_ZSET; // Use 3 (string score) for better compatibility
-                else if (v.type == DataType.HASH) type = RdbConstants.RDB_TYPE_HASH;
-                
-                dos.write(type);
-                
-                // Key
-                writeString(dos, entry.getKey());
-                
-                // Value
-                encodeValue(dos, v);
+        // Resize DB (optional)
+        dos.write(RdbConstants.RDB_OPCODE_RESIZEDB);
+        writeLen(dos, size);
+        writeLen(dos, 0); // Expires size (we don't track separately easily, so 0)
+    }
+
+    public void writeEntry(DataOutputStream dos, String key, ValueEntry v) throws IOException {
+        // Expire
+        if (v.expireAt != -1) {
+            dos.write(RdbConstants.RDB_OPCODE_EXPIRETIMEMS);
+            dos.writeLong(v.expireAt);
+        }
+        
+        // Not decoded since a lazy load, or spilled to the tiered store: copied as is
+        Object stored = v.peekValue();
+        if (stored instanceof SerializedValue) {
+            SerializedValue lazy = (SerializedValue) stored;
+            dos.write(lazy.rdbType());
+            writeString(dos, key);
+            lazy.writeTo(dos);
+            return;
+        }
+
+        // Intset-encoded sets: the intset is the RDB encoding
+        if (stored instanceof PackedSet) {
+            byte[] intset = ((PackedSet) stored).intset();
+            if (intset != null) {
+                dos.write(RdbConstants.RDB_TYPE_SET_INTSET);
+                writeString(dos, key);
+                writeString(dos, intset);
+                return;
             }
         }
+
+        // Type
+        dos.write(typeOf(v));
+        
+        // Key
+        writeString(dos, key);
         
+        // Value
+        encodeValue(dos, v);
+    }
+
+    public void writeFooter(DataOutputStream dos) throws IOException {
         // EOF
         dos.write(RdbConstants.RDB_OPCODE_EOF);
         
@@ -129,7 +257,7 @@ public class RdbEncoder {
     }
     
     private void writeString(DataOutputStream dos, String s) throws IOException {
-        writeString(dos, s.getBytes(StandardCharsets.UTF_8));
+        writeString(dos, s.getBytes(ByteStrings.CHARSET));
     }
     
     private void writeString(DataOutputStream dos, byte[] bytes) throws IOException {
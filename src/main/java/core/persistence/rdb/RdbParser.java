@@ -3,15 +3,23 @@ package core.persistence.rdb;
 import core.db.CaradeDatabase;
 import core.db.DataType;
 import core.db.ValueEntry;
+import core.commands.json.JsonUtils;
+import core.structs.BloomFilter;
 import core.structs.CaradeZSet;
+import core.structs.HyperLogLog;
+import core.structs.IntSet;
+import core.structs.tdigest.Centroid;
+import core.structs.tdigest.TDigest;
+import core.structs.PackedHash;
+import core.structs.PackedSet;
+import core.structs.PackedList;
+import core.utils.ByteStrings;
 import net.jpountz.lz4.LZ4Factory;
 import net.jpountz.lz4.LZ4SafeDecompressor;
 
 import java.io.*;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentLinkedDeque;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 
@@ -65,11 +73,11 @@ public class RdbParser {
         if (isEncoded.value) {
             switch ((int)len) {
                 case RdbConstants.RDB_ENC_INT8:
-                    return String.valueOf(in.readByte()).getBytes(StandardCharsets.UTF_8);
+                    return String.valueOf(in.readByte()).getBytes(ByteStrings.CHARSET);
                 case RdbConstants.RDB_ENC_INT16:
-                    return String.valueOf(in.readShort()).getBytes(StandardCharsets.UTF_8);
+                    return String.valueOf(in.readShort()).getBytes(ByteStrings.CHARSET);
                 case RdbConstants.RDB_ENC_INT32:
-                    return String.valueOf(in.readInt()).getBytes(StandardCharsets.UTF_8);
+                    return String.valueOf(in.readInt()).getBytes(ByteStrings.CHARSET);
                 case RdbConstants.RDB_ENC_LZF:
                     long lzfClen = loadLen();
                     long lzfUlen = loadLen();
@@ -121,20 +129,20 @@ public class RdbParser {
                 int len = entryHeader & 0x3F;
                 byte[] str = new byte[len];
                 System.arraycopy(blob, pos, str, 0, len);
-                entries.add(new String(str, StandardCharsets.UTF_8));
+                entries.add(new String(str, ByteStrings.CHARSET));
                 pos += len;
             } else if ((entryHeader & 0xC0) == 0x40) { // 01pppppp|qqqqqqqq: string, 14 bit
                 int len = ((entryHeader & 0x3F) << 8) | (blob[pos++] & 0xFF);
                 byte[] str = new byte[len];
                 System.arraycopy(blob, pos, str, 0, len);
-                entries.add(new String(str, StandardCharsets.UTF_8));
+                entries.add(new String(str, ByteStrings.CHARSET));
                 pos += len;
             } else if ((entryHeader & 0xC0) == 0x80) { // 10______: string, 32 bit len
                  int actualLen = (blob[pos] & 0xFF) << 24 | (blob[pos+1] & 0xFF) << 16 | (blob[pos+2] & 0xFF) << 8 | (blob[pos+3] & 0xFF);
                  pos += 4;
                  byte[] str = new byte[actualLen];
                  System.arraycopy(blob, pos, str, 0, actualLen);
-                 entries.add(new String(str, StandardCharsets.UTF_8));
+                 entries.add(new String(str, ByteStrings.CHARSET));
                  pos += actualLen;
             } else if ((entryHeader & 0xC0) == 0xC0) { // 11... Integer
                  int v = entryHeader & 0xF0;
@@ -169,21 +177,6 @@ public class RdbParser {
         return entries;
     }
     
-    private List<String> loadIntSet() throws IOException {
-        byte[] blob = loadString();
-        ByteBuffer bb = ByteBuffer.wrap(blob).order(ByteOrder.LITTLE_ENDIAN);
-        int encoding = bb.getInt();
-        int len = bb.getInt();
-        List<String> list = new ArrayList<>();
-        
-        for (int i=0; i<len; i++) {
-            if (encoding == 2) list.add(String.valueOf(bb.getShort()));
-            else if (encoding == 4) list.add(String.valueOf(bb.getInt()));
-            else if (encoding == 8) list.add(String.valueOf(bb.getLong()));
-        }
-        return list;
-    }
-    
     private List<String> loadQuickList() throws IOException {
         long len = loadLen(); // Number of ziplists
         List<String> entries = new ArrayList<>();
@@ -201,17 +194,17 @@ public class RdbParser {
             
         } else if (type == RdbConstants.RDB_TYPE_LIST) {
             long len = loadLen();
-            ConcurrentLinkedDeque<String> list = new ConcurrentLinkedDeque<>();
+            Deque<String> list = new PackedList();
             for (int i = 0; i < len; i++) {
-                list.add(new String(loadString(), StandardCharsets.UTF_8));
+                list.add(new String(loadString(), ByteStrings.CHARSET));
             }
             return new ValueEntry(list, DataType.LIST, -1);
             
         } else if (type == RdbConstants.RDB_TYPE_SET) {
             long len = loadLen();
-            Set<String> set = ConcurrentHashMap.newKeySet();
+            Set<String> set = new PackedSet();
             for (int i = 0; i < len; i++) {
-                set.add(new String(loadString(), StandardCharsets.UTF_8));
+                set.add(new String(loadString(), ByteStrings.CHARSET));
             }
             return new ValueEntry(set, DataType.SET, -1);
             
@@ -219,12 +212,12 @@ public class RdbParser {
             long len = loadLen();
             CaradeZSet zset = new CaradeZSet();
             for (int i = 0; i < len; i++) {
-                String member = new String(loadString(), StandardCharsets.UTF_8);
+                String member = new String(loadString(), ByteStrings.CHARSET);
                 double score;
                 if (type == RdbConstants.RDB_TYPE_ZSET_2) {
                     score = in.readDouble();
                 } else {
-                    String scoreStr = new String(loadString(), StandardCharsets.UTF_8);
+                    String scoreStr = new String(loadString(), ByteStrings.CHARSET);
                     try {
                         score = Double.parseDouble(scoreStr);
                     } catch (NumberFormatException e) {
@@ -239,28 +232,27 @@ public class RdbParser {
             
         } else if (type == RdbConstants.RDB_TYPE_HASH) {
             long len = loadLen();
-            ConcurrentHashMap<String, String> map = new ConcurrentHashMap<>();
+            Map<String, String> map = new PackedHash();
             for (int i = 0; i < len; i++) {
-                String k = new String(loadString(), StandardCharsets.UTF_8);
-                String v = new String(loadString(), StandardCharsets.UTF_8);
+                String k = new String(loadString(), ByteStrings.CHARSET);
+                String v = new String(loadString(), ByteStrings.CHARSET);
                 map.put(k, v);
             }
             return new ValueEntry(map, DataType.HASH, -1);
             
         } else if (type == RdbConstants.RDB_TYPE_LIST_ZIPLIST) {
             List<String> entries = loadZipList(null);
-            ConcurrentLinkedDeque<String> list = new ConcurrentLinkedDeque<>(entries);
+            Deque<String> list = new PackedList(entries);
             return new ValueEntry(list, DataType.LIST, -1);
             
         } else if (type == RdbConstants.RDB_TYPE_SET_INTSET) {
-            List<String> entries = loadIntSet();
-            Set<String> set = ConcurrentHashMap.newKeySet();
-            set.addAll(entries);
-            return new ValueEntry(set, DataType.SET, -1);
+            byte[] intset = loadString();
+            if (!IntSet.isValid(intset)) throw new IOException("Corrupt intset");
+            return new ValueEntry(PackedSet.ofIntSet(intset), DataType.SET, -1);
             
         } else if (type == RdbConstants.RDB_TYPE_HASH_ZIPLIST) {
             List<String> entries = loadZipList(null);
-            ConcurrentHashMap<String, String> map = new ConcurrentHashMap<>();
+            Map<String, String> map = new PackedHash();
             for (int i=0; i<entries.size(); i+=2) {
                 map.put(entries.get(i), entries.get(i+1));
             }
@@ -278,19 +270,204 @@ public class RdbParser {
             
         } else if (type == RdbConstants.RDB_TYPE_LIST_QUICKLIST) {
             List<String> entries = loadQuickList();
-            ConcurrentLinkedDeque<String> list = new ConcurrentLinkedDeque<>(entries);
+            Deque<String> list = new PackedList(entries);
             return new ValueEntry(list, DataType.LIST, -1);
             
+        } else if (type == RdbConstants.RDB_TYPE_BLOOM) {
+            int bitSize = (int) loadLen();
+            int hashCount = (int) loadLen();
+            byte[] bits = readBytes((int) loadLen());
+            try {
+                return new ValueEntry(BloomFilter.fromByteArray(bitSize, hashCount, ByteBuffer.wrap(bits)), DataType.BLOOM, -1);
+            } catch (IllegalArgumentException e) {
+                throw new IOException(e.getMessage());
+            }
+
+        } else if (type == RdbConstants.RDB_TYPE_HYPERLOGLOG) {
+            HyperLogLog hll = new HyperLogLog();
+            byte[] registers = hll.getRegisters();
+            int encoding = in.readUnsignedByte();
+            if (encoding == RdbConstants.HLL_DENSE) {
+                in.readFully(registers);
+            } else if (encoding == RdbConstants.HLL_SPARSE) {
+                long n = loadLen();
+                for (long i = 0; i < n; i++) {
+                    int idx = in.readUnsignedShort();
+                    if (idx >= registers.length) throw new IOException("HyperLogLog register out of range: " + idx);
+                    registers[idx] = in.readByte();
+                }
+            } else {
+                throw new IOException("Unknown HyperLogLog encoding: " + encoding);
+            }
+            return new ValueEntry(hll, DataType.HYPERLOGLOG, -1);
+
+        } else if (type == RdbConstants.RDB_TYPE_TDIGEST) {
+            double compression = in.readDouble();
+            List<Centroid> centroids = loadCentroids();
+            List<Centroid> buffer = loadCentroids();
+            return new ValueEntry(TDigest.restore(compression, centroids, buffer), DataType.TDIGEST, -1);
+
+        } else if (type == RdbConstants.RDB_TYPE_JSON) {
+            return new ValueEntry(JsonUtils.parse(new String(loadString(), StandardCharsets.UTF_8)), DataType.JSON, -1);
+
+        } else if (type == RdbConstants.RDB_TYPE_CARADE_OBJECT) {
+            DataType dataType;
+            try {
+                dataType = DataType.valueOf(new String(loadString(), ByteStrings.CHARSET));
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Unknown Carade object type: " + e.getMessage());
+            }
+            byte[] payload = loadString();
+            if (dataType == DataType.JSON) {
+                return new ValueEntry(JsonUtils.parse(new String(payload, StandardCharsets.UTF_8)), DataType.JSON, -1);
+            }
+            try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(payload))) {
+                return new ValueEntry(ois.readObject(), dataType, -1);
+            } catch (ClassNotFoundException e) {
+                throw new IOException("Cannot decode " + dataType + " value: " + e.getMessage());
+            }
+            
         } else {
             throw new IOException("Unsupported RDB type: " + type);
         }
     }
 
+    /**
+     * Moves past a string without decoding it.
+     */
+    public void skipString() throws IOException {
+        MutableBoolean isEncoded = new MutableBoolean();
+        long len = loadLen(isEncoded);
+        if (isEncoded.value) {
+            switch ((int) len) {
+                case RdbConstants.RDB_ENC_INT8: len = 1; break;
+                case RdbConstants.RDB_ENC_INT16: len = 2; break;
+                case RdbConstants.RDB_ENC_INT32: len = 4; break;
+                case RdbConstants.RDB_ENC_LZF:
+                case RdbConstants.RDB_ENC_LZ4:
+                    len = loadLen(); // Compressed length
+                    loadLen();       // Uncompressed length
+                    break;
+                default:
+                    throw new IOException("Unknown string encoding: " + len);
+            }
+        }
+        in.skipNBytes(len);
+    }
+
+    /**
+     * Moves past a value of the given type without decoding it.
+     */
+    public void skipObject(int type) throws IOException {
+        switch (type) {
+            case RdbConstants.RDB_TYPE_STRING:
+            case RdbConstants.RDB_TYPE_LIST_ZIPLIST:
+            case RdbConstants.RDB_TYPE_SET_INTSET:
+            case RdbConstants.RDB_TYPE_ZSET_ZIPLIST:
+            case RdbConstants.RDB_TYPE_HASH_ZIPLIST:
+            case RdbConstants.RDB_TYPE_JSON:
+                skipString();
+                break;
+            case RdbConstants.RDB_TYPE_LIST:
+            case RdbConstants.RDB_TYPE_SET:
+            case RdbConstants.RDB_TYPE_LIST_QUICKLIST:
+                for (long i = loadLen(); i > 0; i--) skipString();
+                break;
+            case RdbConstants.RDB_TYPE_ZSET:
+            case RdbConstants.RDB_TYPE_HASH:
+            case RdbConstants.RDB_TYPE_CARADE_OBJECT:
+                for (long i = type == RdbConstants.RDB_TYPE_CARADE_OBJECT ? 1 : loadLen(); i > 0; i--) {
+                    skipString();
+                    skipString();
+                }
+                break;
+            case RdbConstants.RDB_TYPE_ZSET_2:
+                for (long i = loadLen(); i > 0; i--) {
+                    skipString();
+                    in.skipNBytes(8);
+                }
+                break;
+            case RdbConstants.RDB_TYPE_BLOOM:
+                loadLen();
+                loadLen();
+                in.skipNBytes(loadLen());
+                break;
+            case RdbConstants.RDB_TYPE_HYPERLOGLOG:
+                int encoding = in.readUnsignedByte();
+                in.skipNBytes(encoding == RdbConstants.HLL_DENSE ? HyperLogLog.registerCount() : loadLen() * 3);
+                break;
+            case RdbConstants.RDB_TYPE_TDIGEST:
+                in.skipNBytes(8);
+                in.skipNBytes(loadLen() * 16);
+                in.skipNBytes(loadLen() * 16);
+                break;
+            default:
+                throw new IOException("Unsupported RDB type: " + type);
+        }
+    }
+
+    /**
+     * Data type of a value with the given RDB type byte, null for the generic Carade object.
+     */
+    public static DataType dataTypeOf(int type) throws IOException {
+        switch (type) {
+            case RdbConstants.RDB_TYPE_STRING: return DataType.STRING;
+            case RdbConstants.RDB_TYPE_LIST:
+            case RdbConstants.RDB_TYPE_LIST_ZIPLIST:
+            case RdbConstants.RDB_TYPE_LIST_QUICKLIST: return DataType.LIST;
+            case RdbConstants.RDB_TYPE_SET:
+            case RdbConstants.RDB_TYPE_SET_INTSET: return DataType.SET;
+            case RdbConstants.RDB_TYPE_ZSET:
+            case RdbConstants.RDB_TYPE_ZSET_2:
+            case RdbConstants.RDB_TYPE_ZSET_ZIPLIST: return DataType.ZSET;
+            case RdbConstants.RDB_TYPE_HASH:
+            case RdbConstants.RDB_TYPE_HASH_ZIPLIST: return DataType.HASH;
+            case RdbConstants.RDB_TYPE_BLOOM: return DataType.BLOOM;
+            case RdbConstants.RDB_TYPE_HYPERLOGLOG: return DataType.HYPERLOGLOG;
+            case RdbConstants.RDB_TYPE_TDIGEST: return DataType.TDIGEST;
+            case RdbConstants.RDB_TYPE_JSON: return DataType.JSON;
+            case RdbConstants.RDB_TYPE_CARADE_OBJECT: return null;
+            default: throw new IOException("Unsupported RDB type: " + type);
+        }
+    }
+
+    private List<Centroid> loadCentroids() throws IOException {
+        int n = (int) loadLen();
+        List<Centroid> centroids = new ArrayList<>(Math.min(n, 1 << 16));
+        for (int i = 0; i < n; i++) {
+            double mean = in.readDouble();
+            centroids.add(new Centroid(mean, in.readLong()));
+        }
+        return centroids;
+    }
+
     public static class MutableBoolean {
         public boolean value;
     }
+
+    /**
+     * Receives the decoded keys.
+     */
+    public interface EntrySink {
+        void accept(int dbIndex, String key, ValueEntry value);
+    }
+
+    /**
+     * Reads the value of one key, given its RDB type byte.
+     */
+    public interface ObjectLoader {
+        ValueEntry load(int type) throws IOException;
+    }
     
     public void parse(CaradeDatabase db) throws IOException {
+        readHeader();
+        parseBody(db::put);
+    }
+
+    /**
+     * Checks the magic and skips the version.
+     */
+    public void readHeader() throws IOException {
         byte[] magic = new byte[5];
         in.readFully(magic);
         if (!Arrays.equals(magic, RdbConstants.RDB_MAGIC.getBytes(StandardCharsets.US_ASCII))) {
@@ -299,7 +476,20 @@ public class RdbParser {
         
         byte[] ver = new byte[4];
         in.readFully(ver); // Version (e.g. 0009) - we can ignore strict check for now
-        
+    }
+
+    /**
+     * Decodes opcodes and keys up to EOF (or the end of the stream), without the header.
+     * Also used for the sections of a parallel snapshot.
+     */
+    public void parseBody(EntrySink sink) throws IOException {
+        parseBody(sink, this::loadObject);
+    }
+
+    /**
+     * Same, values read by loader (which may skip them, see {@link #skipObject}).
+     */
+    public void parseBody(EntrySink sink, ObjectLoader loader) throws IOException {
         long expireAt = -1;
         int dbIndex = 0;
         
@@ -308,6 +498,12 @@ public class RdbParser {
             if (type == -1) break; // EOF check redundant with RDB_OPCODE_EOF but good for safety
             
             if (type == RdbConstants.RDB_OPCODE_EOF) {
+                // Checksum (8 bytes, absent before RDB v5): consumed so an AOF tail can follow
+                try {
+                    in.readLong();
+                } catch (EOFException e) {
+                    // No checksum
+                }
                 break;
             } else if (type == RdbConstants.RDB_OPCODE_SELECTDB) {
                 dbIndex = (int) loadLen(); 
@@ -331,12 +527,12 @@ public class RdbParser {
                 expireAt = in.readLong();
             } else {
                 // Key-Value pair
-                String key = new String(loadString(), StandardCharsets.UTF_8);
-                ValueEntry val = loadObject(type);
+                String key = new String(loadString(), ByteStrings.CHARSET);
+                ValueEntry val = loader.load(type);
                 val.expireAt = expireAt;
                 
                 if (!val.isExpired()) {
-                    db.put(dbIndex, key, val);
+                    sink.accept(dbIndex, key, val);
                 }
                 
                 expireAt = -1; // Reset expire
@@ -0,0 +1,22 @@
+package core.persistence.rdb;
+
+import core.db.LazyValue;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * A {@link LazyValue} kept as its RDB serialization (a lazily loaded dump, a spilled value
+ * of the tiered store). {@link RdbEncoder} copies it as is instead of decoding it.
+ */
+public interface SerializedValue extends LazyValue {
+    /**
+     * RDB type byte of the value.
+     */
+    int rdbType();
+
+    /**
+     * Writes the serialized value (what follows type and key in a dump).
+     */
+    void writeTo(DataOutputStream out) throws IOException;
+}
@@ -1,5 +1,7 @@
 package core.protocol;
 
+import core.utils.ByteStrings;
+
 import java.io.*;
 import java.util.*;
 
@@ -22,42 +24,37 @@ public class Resp {
     
     // --- SERIALIZATION ---
     public static byte[] simpleString(String s) { 
-        return ("+" + s + "\r\n").getBytes(java.nio.charset.StandardCharsets.UTF_8); 
+        return ("+" + s + "\r\n").getBytes(ByteStrings.CHARSET); 
     }
     
     public static byte[] error(String s) { 
-        return ("-" + s + "\r\n").getBytes(java.nio.charset.StandardCharsets.UTF_8); 
+        return ("-" + s + "\r\n").getBytes(ByteStrings.CHARSET); 
     }
     
     public static byte[] integer(long i) { 
-        return (":" + i + "\r\n").getBytes(java.nio.charset.StandardCharsets.UTF_8); 
+        return (":" + i + "\r\n").getBytes(ByteStrings.CHARSET); 
     }
     
     // Legacy support for String args (converts to UTF-8 bytes)
     public static byte[] bulkString(String s) { 
-        if (s == null) return "$-1\r\n".getBytes(java.nio.charset.StandardCharsets.UTF_8);
-        byte[] b = s.getBytes(java.nio.charset.StandardCharsets.UTF_8);
+        if (s == null) return "$-1\r\n".getBytes(ByteStrings.CHARSET);
+        byte[] b = s.getBytes(ByteStrings.CHARSET);
         return bulkString(b);
     }
     
     public static byte[] bulkString(byte[] b) {
-        if (b == null) return "$-1\r\n".getBytes(java.nio.charset.StandardCharsets.UTF_8);
-        try {
-            ByteArrayOutputStream bos = new ByteArrayOutputStream();
-            String header = "$" + (b != null ? b.length : 0) + "\r\n";
-            bos.write(header.getBytes(java.nio.charset.StandardCharsets.UTF_8));
-            bos.write(b);
-            bos.write("\r\n".getBytes(java.nio.charset.StandardCharsets.UTF_8));
-            return bos.toByteArray();
-        } catch (IOException e) { return null; }
+        if (b == null) return "$-1\r\n".getBytes(ByteStrings.CHARSET);
+        byte[] out = new byte[bulkSize(b)];
+        writeBulk(out, 0, b);
+        return out;
     }
 
     public static byte[] mixedArray(List<Object> list) {
-        if (list == null) return "*-1\r\n".getBytes(java.nio.charset.StandardCharsets.UTF_8);
+        if (list == null) return "*-1\r\n".getBytes(ByteStrings.CHARSET);
         try {
             ByteArrayOutputStream bos = new ByteArrayOutputStream();
             String header = "*" + list.size() + "\r\n";
-            bos.write(header.getBytes(java.nio.charset.StandardCharsets.UTF_8));
+            bos.write(header.getBytes(ByteStrings.CHARSET));
             for (Object o : list) {
                 if (o instanceof byte[]) {
                     bos.write(bulkString((byte[]) o));
@@ -66,24 +63,67 @@ public class Resp {
                 } else if (o instanceof List) {
                     bos.write(mixedArray((List<Object>) o));
                 } else if (o == null) {
-                    bos.write("$-1\r\n".getBytes(java.nio.charset.StandardCharsets.UTF_8));
+                    bos.write("$-1\r\n".getBytes(ByteStrings.CHARSET));
                 }
             }
             return bos.toByteArray();
         } catch (IOException e) { return null; }
     }
     
+    // Serializes into one exactly sized array: this runs for every logged write
     public static byte[] array(List<byte[]> list) {
-        if (list == null) return "*-1\r\n".getBytes(java.nio.charset.StandardCharsets.UTF_8);
-        try {
-            ByteArrayOutputStream bos = new ByteArrayOutputStream();
-            String header = "*" + list.size() + "\r\n";
-            bos.write(header.getBytes(java.nio.charset.StandardCharsets.UTF_8));
-            for (byte[] b : list) {
-                bos.write(bulkString(b));
-            }
-            return bos.toByteArray();
-        } catch (IOException e) { return null; }
+        if (list == null) return "*-1\r\n".getBytes(ByteStrings.CHARSET);
+        int n = list.size();
+        int size = 1 + digits(n) + 2;
+        for (int i = 0; i < n; i++) size += bulkSize(list.get(i));
+        byte[] out = new byte[size];
+        out[0] = ARRAY;
+        int p = writeDecimal(out, 1, n);
+        for (int i = 0; i < n; i++) p = writeBulk(out, p, list.get(i));
+        return out;
+    }
+
+    private static int bulkSize(byte[] b) {
+        if (b == null) return 5; // $-1\r\n
+        return 1 + digits(b.length) + 2 + b.length + 2;
+    }
+
+    private static int writeBulk(byte[] out, int p, byte[] b) {
+        out[p++] = BULK_STRING;
+        if (b == null) {
+            out[p++] = '-';
+            out[p++] = '1';
+            out[p++] = '\r';
+            out[p++] = '\n';
+            return p;
+        }
+        p = writeDecimal(out, p, b.length);
+        System.arraycopy(b, 0, out, p, b.length);
+        p += b.length;
+        out[p++] = '\r';
+        out[p++] = '\n';
+        return p;
+    }
+
+    private static int digits(int v) {
+        int d = 1;
+        while (v >= 10) {
+            v /= 10;
+            d++;
+        }
+        return d;
+    }
+
+    // Non-negative v followed by CRLF
+    private static int writeDecimal(byte[] out, int p, int v) {
+        int end = p + digits(v);
+        for (int i = end - 1; i >= p; i--) {
+            out[i] = (byte) ('0' + v % 10);
+            v /= 10;
+        }
+        out[end] = '\r';
+        out[end + 1] = '\n';
+        return end + 2;
     }
 
     // --- PARSING ---
@@ -161,9 +201,9 @@ public class Resp {
         while (m.find()) {
             String match = m.group(1);
             if (match.startsWith("\"") && match.endsWith("\"")) {
-                list.add(match.substring(1, match.length() - 1).getBytes(java.nio.charset.StandardCharsets.UTF_8));
+                list.add(match.substring(1, match.length() - 1).getBytes(ByteStrings.CHARSET));
             } else {
-                list.add(match.getBytes(java.nio.charset.StandardCharsets.UTF_8));
+                list.add(match.getBytes(ByteStrings.CHARSET));
             }
         }
         return list;
@@ -1,18 +1,30 @@
 package core.protocol.netty;
 
+import core.utils.ByteStrings;
+
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.ByteToMessageDecoder;
-import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
 
 /**
  * Netty decoder for RESP (Redis Serialization Protocol).
  * Replaces the custom Resp.parse() logic.
+ *
+ * Two output modes:
+ * - legacy (default): every command is an {@code ArrayList<byte[]>}, each bulk string copied.
+ * - zero-copy: every command is a {@link RespArgs} holding retained slices of the input
+ *   buffer. The consumer must release it once the command has executed.
+ *
+ * In both modes length lines are parsed directly from the buffer.
  */
 public class NettyRespDecoder extends ByteToMessageDecoder {
 
+    // Same cap as Redis' proto-max-bulk-len default (512MB)
+    private static final int MAX_BULK_LENGTH = 512 * 1024 * 1024;
+    private static final int MAX_MULTIBULK_LENGTH = 1024 * 1024;
+
     private enum State {
         READ_TYPE,
         READ_LINE_LENGTH,
@@ -20,23 +32,34 @@ public class NettyRespDecoder extends ByteToMessageDecoder {
         READ_BULK_CONTENT
     }
 
+    private final boolean zeroCopy;
+
     private State state = State.READ_TYPE;
-    
+
     // Multi-bulk parsing state
     private int multiBulkLength = 0; // Number of elements expected in array
-    private List<byte[]> currentArray = null; // Accumulating args
-    
+    private List<byte[]> currentArray = null; // Accumulating args (legacy mode)
+    private RespArgs currentArgs = null; // Accumulating args (zero-copy mode)
+
     // Bulk string parsing state
     private int currentBulkLength = 0; // Length of current bulk string
 
+    public NettyRespDecoder() {
+        this(false);
+    }
+
+    public NettyRespDecoder(boolean zeroCopy) {
+        this.zeroCopy = zeroCopy;
+    }
+
     @Override
     protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) throws Exception {
         while (true) {
             if (state == State.READ_TYPE) {
                 if (!in.isReadable()) return;
-                
+
                 // If we are not currently parsing an array, we expect a new command
-                if (currentArray == null) {
+                if (!inArray()) {
                     // Peek first byte
                     byte type = in.readByte();
                     if (type == '*') {
@@ -58,7 +81,6 @@ public class NettyRespDecoder extends ByteToMessageDecoder {
                         // Integer
                         // Not typical for commands but possible
                          state = State.READ_LINE_LENGTH;
-                         // Handling logic...
                     } else {
                          // Unexpected for command args, likely inline or error
                          // For now assume strictly Bulk Strings for args
@@ -70,51 +92,62 @@ public class NettyRespDecoder extends ByteToMessageDecoder {
 
             if (state == State.READ_LINE_LENGTH) {
                 // Read until \r\n
-                // ByteBufUtils or simple loop
                 int eol = findEndOfLine(in);
                 if (eol == -1) return; // Wait for more data
 
-                int length = eol - in.readerIndex();
-                String line = in.toString(in.readerIndex(), length, StandardCharsets.UTF_8);
-
+                int start = in.readerIndex();
                 int terminatorLength = (in.getByte(eol) == '\r') ? 2 : 1;
-                in.readerIndex(eol + terminatorLength);
 
                 if (multiBulkLength == 0) {
                      // We just read *<count>
+                     int count;
                      try {
-                        int count = Integer.parseInt(line);
-                        if (count <= 0) {
-                            // Empty array
-                            state = State.READ_TYPE;
-                            return; 
-                        }
-                        multiBulkLength = count;
-                        currentArray = new ArrayList<>(count);
-                        state = State.READ_TYPE; // Go back to read elements
+                        count = parseLength(in, start, eol);
                      } catch (NumberFormatException e) {
                          // Error
                          ctx.close();
                          return;
                      }
+                     in.readerIndex(eol + terminatorLength);
+                     if (count <= 0) {
+                         // Empty array
+                         state = State.READ_TYPE;
+                         return;
+                     }
+                     if (count > MAX_MULTIBULK_LENGTH) {
+                         ctx.close();
+                         return;
+                     }
+                     multiBulkLength = count;
+                     if (zeroCopy) {
+                         currentArgs = new RespArgs(count);
+                     } else {
+                         currentArray = new ArrayList<>(count);
+                     }
+                     state = State.READ_TYPE; // Go back to read elements
                 } else if (multiBulkLength == -1) {
                     // Inline command: "PING" or "SET key val"
+                    String line = in.toString(start, eol - start, ByteStrings.CHARSET);
+                    in.readerIndex(eol + terminatorLength);
                     String[] parts = line.split("\\s+");
                     List<byte[]> args = new ArrayList<>();
                     for (String part : parts) {
-                        if (!part.isEmpty()) args.add(part.getBytes(StandardCharsets.UTF_8));
+                        if (!part.isEmpty()) args.add(part.getBytes(ByteStrings.CHARSET));
                     }
                     if (!args.isEmpty()) out.add(args);
                     state = State.READ_TYPE;
                     multiBulkLength = 0;
-                    currentArray = null;
                     return; // Emitted one command
                 } else {
-                    // We are reading a line inside an array (maybe integer arg?)
-                    // But usually we go via READ_BULK_LENGTH for $
-                    // If we got here, it might be a simple string or integer arg
-                    // Add to array
-                    currentArray.add(line.getBytes(StandardCharsets.UTF_8));
+                    // We are reading a line inside an array (simple string or integer arg)
+                    if (zeroCopy) {
+                        currentArgs.addSlice(in.retainedSlice(start, eol - start));
+                    } else {
+                        byte[] line = new byte[eol - start];
+                        in.getBytes(start, line);
+                        currentArray.add(line);
+                    }
+                    in.readerIndex(eol + terminatorLength);
                     checkArrayComplete(out);
                 }
             }
@@ -122,28 +155,28 @@ public class NettyRespDecoder extends ByteToMessageDecoder {
             if (state == State.READ_BULK_LENGTH) {
                  int eol = findEndOfLine(in);
                  if (eol == -1) return;
-                 
-                 int length = eol - in.readerIndex();
-                 String line = in.toString(in.readerIndex(), length, StandardCharsets.UTF_8);
-                 
+
                  int terminatorLength = (in.getByte(eol) == '\r') ? 2 : 1;
-                 in.readerIndex(eol + terminatorLength);
-                 
                  try {
-                     currentBulkLength = Integer.parseInt(line);
-                     if (currentBulkLength == -1) {
-                         // Null bulk string
-                         currentArray.add(null);
-                         checkArrayComplete(out);
-                     } else {
-                         state = State.READ_BULK_CONTENT;
-                     }
+                     currentBulkLength = parseLength(in, in.readerIndex(), eol);
                  } catch (NumberFormatException e) {
                      ctx.close();
                      return;
                  }
+                 in.readerIndex(eol + terminatorLength);
+
+                 if (currentBulkLength == -1) {
+                     // Null bulk string
+                     if (zeroCopy) currentArgs.addSlice(null); else currentArray.add(null);
+                     checkArrayComplete(out);
+                 } else if (currentBulkLength < 0 || currentBulkLength > MAX_BULK_LENGTH) {
+                     ctx.close();
+                     return;
+                 } else {
+                     state = State.READ_BULK_CONTENT;
+                 }
             }
-            
+
             if (state == State.READ_BULK_CONTENT) {
                 // Check if we have enough data to determine terminator
                 if (in.readableBytes() < currentBulkLength + 1) return;
@@ -151,36 +184,89 @@ public class NettyRespDecoder extends ByteToMessageDecoder {
                 int terminatorLength = (in.getByte(in.readerIndex() + currentBulkLength) == '\r') ? 2 : 1;
 
                 if (in.readableBytes() < currentBulkLength + terminatorLength) return; // Need content + terminator
-                
-                byte[] content = new byte[currentBulkLength];
-                in.readBytes(content);
-                in.skipBytes(terminatorLength); 
-                
-                currentArray.add(content);
+
+                if (zeroCopy) {
+                    currentArgs.addSlice(in.retainedSlice(in.readerIndex(), currentBulkLength));
+                    in.skipBytes(currentBulkLength);
+                } else {
+                    byte[] content = new byte[currentBulkLength];
+                    in.readBytes(content);
+                    currentArray.add(content);
+                }
+                in.skipBytes(terminatorLength);
+
                 checkArrayComplete(out);
             }
         }
     }
-    
+
+    private boolean inArray() {
+        return zeroCopy ? currentArgs != null : currentArray != null;
+    }
+
     private void checkArrayComplete(List<Object> out) {
-        if (currentArray.size() == multiBulkLength) {
+        if (zeroCopy) {
+            if (currentArgs.isComplete()) {
+                out.add(currentArgs);
+                currentArgs = null;
+                multiBulkLength = 0;
+            }
+        } else if (currentArray.size() == multiBulkLength) {
             out.add(currentArray);
             currentArray = null;
             multiBulkLength = 0;
-            state = State.READ_TYPE;
-        } else {
-            state = State.READ_TYPE; // Read next element
         }
+        state = State.READ_TYPE; // Read next element (or next command)
     }
 
-private int findEndOfLine(ByteBuf in) {
-    int n = in.writerIndex();
-    for (int i = in.readerIndex(); i < n; i++) {
-        byte b = in.getByte(i);
-        if (b == '\n') { // Accept any line that ends with \n
-            return (i > in.readerIndex() && in.getByte(i - 1) == '\r') ? i - 1 : i;
+    @Override
+    protected void handlerRemoved0(ChannelHandlerContext ctx) throws Exception {
+        // Drop slices of a half-received command
+        if (currentArgs != null) {
+            currentArgs.release();
+            currentArgs = null;
         }
     }
-    return -1;
-}
+
+    /**
+     * Parses a RESP length ("-1", "3", ...) without materializing the line as a String.
+     */
+    static int parseLength(ByteBuf in, int start, int end) {
+        long value = parseLong(in, start, end);
+        if (value > Integer.MAX_VALUE || value < Integer.MIN_VALUE) {
+            throw new NumberFormatException("length out of range");
+        }
+        return (int) value;
+    }
+
+    static long parseLong(ByteBuf in, int start, int end) {
+        if (start >= end) throw new NumberFormatException("empty");
+        boolean negative = false;
+        int i = start;
+        byte first = in.getByte(i);
+        if (first == '-' || first == '+') {
+            negative = first == '-';
+            if (++i == end) throw new NumberFormatException("sign only");
+        }
+        long result = 0;
+        for (; i < end; i++) {
+            int digit = in.getByte(i) - '0';
+            if (digit < 0 || digit > 9) throw new NumberFormatException("not a digit");
+            // Accumulate negatively so Long.MIN_VALUE is representable
+            if (result < (Long.MIN_VALUE + digit) / 10) throw new NumberFormatException("overflow");
+            result = result * 10 - digit;
+        }
+        if (!negative) {
+            if (result == Long.MIN_VALUE) throw new NumberFormatException("overflow");
+            return -result;
+        }
+        return result;
+    }
+
+    private int findEndOfLine(ByteBuf in) {
+        int lf = in.indexOf(in.readerIndex(), in.writerIndex(), (byte) '\n');
+        if (lf == -1) return -1;
+        // Accept any line that ends with \n
+        return (lf > in.readerIndex() && in.getByte(lf - 1) == '\r') ? lf - 1 : lf;
+    }
 }
@@ -1,25 +1,30 @@
 package core.protocol.netty;
 
+import core.utils.ByteStrings;
+
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.MessageToByteEncoder;
-import java.nio.charset.StandardCharsets;
 
 /**
  * Encodes Java Objects (Strings, Integers, Lists, byte[]) into RESP format.
+ * ByteBufs (e.g. from {@link RespWriter}) are already encoded and bypass this
+ * encoder untouched, so they reach the socket without another copy.
  */
 public class NettyRespEncoder extends MessageToByteEncoder<Object> {
+
+    @Override
+    public boolean acceptOutboundMessage(Object msg) throws Exception {
+        return !(msg instanceof ByteBuf) && super.acceptOutboundMessage(msg);
+    }
     
     @Override
     protected void encode(ChannelHandlerContext ctx, Object msg, ByteBuf out) throws Exception {
-        if (msg instanceof ByteBuf) {
-            // Already encoded bytes (raw)
-            out.writeBytes((ByteBuf) msg);
-        } else if (msg instanceof byte[]) {
+        if (msg instanceof byte[]) {
              out.writeBytes((byte[]) msg);
         } else if (msg instanceof String) {
              // If we receive a raw String, write it as bytes (handling text response mode)
-             out.writeBytes(((String)msg).getBytes(StandardCharsets.UTF_8));
+             out.writeBytes(((String)msg).getBytes(ByteStrings.CHARSET));
         } else {
              // Fallback
         }
@@ -0,0 +1,212 @@
+package core.protocol.netty;
+
+import core.utils.ByteStrings;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.util.IllegalReferenceCountException;
+import io.netty.util.ReferenceCounted;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * Argument vector produced by {@link NettyRespDecoder} in zero-copy mode.
+ *
+ * Each argument is a retained slice of the decoder's cumulation buffer, so no
+ * bytes are copied while parsing. Migrated code reads the slices directly
+ * ({@link #slice(int)}, {@link #parseLong(int)}, {@link #equalsIgnoreCase(int, String)}).
+ *
+ * The vector is also a {@code List<byte[]>}: {@link #get(int)} lazily copies
+ * an argument into a cached {@code byte[]} so commands that have not been
+ * migrated keep working unchanged. Copies are owned by the caller and stay
+ * valid after {@link #release()}; slices do not.
+ */
+public final class RespArgs extends AbstractList<byte[]> implements ReferenceCounted {
+
+    private static final AtomicIntegerFieldUpdater<RespArgs> REFCNT =
+            AtomicIntegerFieldUpdater.newUpdater(RespArgs.class, "refCnt");
+
+    private final ByteBuf[] slices;
+    private final byte[][] copies;
+    private int size;
+    private volatile int refCnt = 1;
+
+    RespArgs(int capacity) {
+        this.slices = new ByteBuf[capacity];
+        this.copies = new byte[capacity][];
+    }
+
+    /**
+     * Appends a retained slice (or null for a RESP null bulk string).
+     */
+    void addSlice(ByteBuf slice) {
+        slices[size++] = slice;
+    }
+
+    boolean isComplete() {
+        return size == slices.length;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public byte[] get(int index) {
+        checkIndex(index);
+        byte[] copy = copies[index];
+        if (copy == null) {
+            ensureAccessible();
+            ByteBuf slice = slices[index];
+            if (slice == null) return null;
+            copy = new byte[slice.readableBytes()];
+            slice.getBytes(slice.readerIndex(), copy);
+            copies[index] = copy;
+        }
+        return copy;
+    }
+
+    /**
+     * Returns the argument without copying. The slice is only valid until the
+     * vector is released and must not be released by the caller.
+     */
+    public ByteBuf slice(int index) {
+        checkIndex(index);
+        ensureAccessible();
+        return slices[index];
+    }
+
+    public int length(int index) {
+        checkIndex(index);
+        ByteBuf slice = slices[index];
+        return slice == null ? -1 : slice.readableBytes();
+    }
+
+    /**
+     * ASCII case-insensitive comparison against a literal (e.g. option names).
+     */
+    public boolean equalsIgnoreCase(int index, String ascii) {
+        ByteBuf slice = slice(index);
+        if (slice == null || slice.readableBytes() != ascii.length()) return false;
+        int base = slice.readerIndex();
+        for (int i = 0; i < ascii.length(); i++) {
+            int a = slice.getByte(base + i);
+            int b = ascii.charAt(i);
+            if (a != b && toUpper(a) != toUpper(b)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Parses a signed decimal argument straight from the buffer.
+     * @throws NumberFormatException if the argument is not a valid 64-bit integer
+     */
+    public long parseLong(int index) {
+        ByteBuf slice = slice(index);
+        if (slice == null) throw new NumberFormatException("null");
+        return NettyRespDecoder.parseLong(slice, slice.readerIndex(), slice.writerIndex());
+    }
+
+    /**
+     * Same value as {@code Arrays.hashCode(get(index))}, without copying.
+     */
+    public int hash(int index) {
+        ByteBuf slice = slice(index);
+        if (slice == null) return 0;
+        int h = 1;
+        for (int i = slice.readerIndex(), end = slice.writerIndex(); i < end; i++) {
+            h = 31 * h + slice.getByte(i);
+        }
+        return h;
+    }
+
+    public String getString(int index) {
+        ByteBuf slice = slice(index);
+        return slice == null ? null : slice.toString(ByteStrings.CHARSET);
+    }
+
+    /**
+     * Copies every argument into a plain list that outlives this vector.
+     * Used when a command has to be kept around (MULTI queue, paused clients).
+     */
+    public List<byte[]> detach() {
+        List<byte[]> list = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) list.add(get(i));
+        return list;
+    }
+
+    private static int toUpper(int c) {
+        return (c >= 'a' && c <= 'z') ? c - 32 : c;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
+
+    private void ensureAccessible() {
+        if (refCnt == 0) throw new IllegalReferenceCountException(0);
+    }
+
+    // --- ReferenceCounted ---
+
+    @Override
+    public int refCnt() {
+        return refCnt;
+    }
+
+    @Override
+    public RespArgs retain() {
+        return retain(1);
+    }
+
+    @Override
+    public RespArgs retain(int increment) {
+        for (;;) {
+            int current = refCnt;
+            if (current == 0) throw new IllegalReferenceCountException(0, increment);
+            if (REFCNT.compareAndSet(this, current, current + increment)) return this;
+        }
+    }
+
+    @Override
+    public RespArgs touch() {
+        return this;
+    }
+
+    @Override
+    public RespArgs touch(Object hint) {
+        return this;
+    }
+
+    @Override
+    public boolean release() {
+        return release(1);
+    }
+
+    @Override
+    public boolean release(int decrement) {
+        for (;;) {
+            int current = refCnt;
+            if (current < decrement) throw new IllegalReferenceCountException(current, -decrement);
+            if (REFCNT.compareAndSet(this, current, current - decrement)) {
+                if (current == decrement) {
+                    deallocate();
+                    return true;
+                }
+                return false;
+            }
+        }
+    }
+
+    private void deallocate() {
+        for (int i = 0; i < size; i++) {
+            if (slices[i] != null) {
+                slices[i].release();
+                slices[i] = null;
+            }
+        }
+    }
+}
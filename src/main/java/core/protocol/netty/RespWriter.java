@@ -0,0 +1,238 @@
+package core.protocol.netty;
+
+import core.utils.ByteStrings;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.Unpooled;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Streaming RESP reply writer.
+ *
+ * Counterpart of the byte[] builders in {@link core.protocol.Resp}: replies are
+ * sized up front and encoded straight into one buffer from the channel allocator
+ * (pooled and direct by default), so the transport can write them without any
+ * further copy. Headers for small lengths and integers are pre-encoded, and the
+ * most common replies are shared read-only buffers.
+ */
+public final class RespWriter {
+
+    private static final byte[] CRLF = {'\r', '\n'};
+
+    // Pre-encoded "$<n>\r\n" / "*<n>\r\n" for common lengths and ":<n>\r\n" for small integers
+    private static final int CACHED_HEADERS = 1024;
+    private static final int CACHED_INTEGERS = 10000;
+    private static final byte[][] BULK_HEADERS = new byte[CACHED_HEADERS][];
+    private static final byte[][] ARRAY_HEADERS = new byte[CACHED_HEADERS][];
+    private static final byte[][] INTEGERS = new byte[CACHED_INTEGERS][];
+
+    static {
+        for (int i = 0; i < CACHED_HEADERS; i++) {
+            BULK_HEADERS[i] = ascii("$" + i + "\r\n");
+            ARRAY_HEADERS[i] = ascii("*" + i + "\r\n");
+        }
+        for (int i = 0; i < CACHED_INTEGERS; i++) {
+            INTEGERS[i] = ascii(":" + i + "\r\n");
+        }
+    }
+
+    // Shared replies; callers always get a duplicate so reader indexes stay independent
+    private static final ByteBuf OK = shared("+OK\r\n");
+    private static final ByteBuf PONG = shared("+PONG\r\n");
+    private static final ByteBuf QUEUED = shared("+QUEUED\r\n");
+    private static final ByteBuf ZERO = shared(":0\r\n");
+    private static final ByteBuf ONE = shared(":1\r\n");
+    private static final ByteBuf NULL_BULK = shared("$-1\r\n");
+    private static final ByteBuf NULL_ARRAY = shared("*-1\r\n");
+    private static final ByteBuf EMPTY_ARRAY = shared("*0\r\n");
+
+    private RespWriter() { }
+
+    private static byte[] ascii(String s) {
+        return s.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static ByteBuf shared(String s) {
+        byte[] bytes = ascii(s);
+        return Unpooled.unreleasableBuffer(Unpooled.directBuffer(bytes.length).writeBytes(bytes).asReadOnly());
+    }
+
+    // --- Replies ---
+
+    public static ByteBuf ok() { return OK.duplicate(); }
+    public static ByteBuf pong() { return PONG.duplicate(); }
+    public static ByteBuf nullBulk() { return NULL_BULK.duplicate(); }
+    public static ByteBuf nullArray() { return NULL_ARRAY.duplicate(); }
+
+    public static ByteBuf simpleString(ByteBufAllocator alloc, String s) {
+        switch (s) {
+            case "OK": return ok();
+            case "PONG": return pong();
+            case "QUEUED": return QUEUED.duplicate();
+            default: return line(alloc, '+', s);
+        }
+    }
+
+    public static ByteBuf error(ByteBufAllocator alloc, String s) {
+        return line(alloc, '-', s);
+    }
+
+    public static ByteBuf integer(ByteBufAllocator alloc, long i) {
+        if (i == 0) return ZERO.duplicate();
+        if (i == 1) return ONE.duplicate();
+        ByteBuf buf = alloc.directBuffer(integerSize(i));
+        writeInteger(buf, i);
+        return buf;
+    }
+
+    public static ByteBuf bulkString(ByteBufAllocator alloc, byte[] b) {
+        if (b == null) return nullBulk();
+        ByteBuf buf = alloc.directBuffer(bulkSize(b));
+        writeBulk(buf, b);
+        return buf;
+    }
+
+    public static ByteBuf bulkString(ByteBufAllocator alloc, String s) {
+        return s == null ? nullBulk() : bulkString(alloc, s.getBytes(ByteStrings.CHARSET));
+    }
+
+    public static ByteBuf array(ByteBufAllocator alloc, List<byte[]> list) {
+        if (list == null) return nullArray();
+        if (list.isEmpty()) return EMPTY_ARRAY.duplicate();
+        int size = headerSize(list.size());
+        for (byte[] b : list) size += bulkSize(b);
+        ByteBuf buf = alloc.directBuffer(size);
+        writeHeader(buf, '*', ARRAY_HEADERS, list.size());
+        for (byte[] b : list) writeBulk(buf, b);
+        return buf;
+    }
+
+    /**
+     * Same element rules as {@link core.protocol.Resp#mixedArray(List)}:
+     * byte[] as bulk string, Long/Integer as integer, List as nested array, null as null bulk.
+     */
+    @SuppressWarnings("unchecked")
+    public static ByteBuf mixedArray(ByteBufAllocator alloc, List<Object> list) {
+        if (list == null) return nullArray();
+        ByteBuf buf = alloc.directBuffer(mixedSize(list));
+        writeMixed(buf, list);
+        return buf;
+    }
+
+    // --- Encoding into an existing buffer ---
+
+    public static void writeBulk(ByteBuf buf, byte[] b) {
+        if (b == null) {
+            buf.writeBytes(NULL_BULK, NULL_BULK.readerIndex(), NULL_BULK.readableBytes());
+            return;
+        }
+        writeHeader(buf, '$', BULK_HEADERS, b.length);
+        buf.writeBytes(b);
+        buf.writeBytes(CRLF);
+    }
+
+    public static void writeInteger(ByteBuf buf, long i) {
+        if (i >= 0 && i < CACHED_INTEGERS) {
+            buf.writeBytes(INTEGERS[(int) i]);
+            return;
+        }
+        buf.writeByte(':');
+        writeDecimal(buf, i);
+        buf.writeBytes(CRLF);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void writeMixed(ByteBuf buf, List<Object> list) {
+        writeHeader(buf, '*', ARRAY_HEADERS, list.size());
+        for (Object o : list) {
+            if (o instanceof byte[]) {
+                writeBulk(buf, (byte[]) o);
+            } else if (o instanceof Long || o instanceof Integer) {
+                writeInteger(buf, ((Number) o).longValue());
+            } else if (o instanceof List) {
+                writeMixed(buf, (List<Object>) o);
+            } else if (o == null) {
+                writeBulk(buf, null);
+            }
+        }
+    }
+
+    private static ByteBuf line(ByteBufAllocator alloc, char type, String s) {
+        byte[] b = s.getBytes(ByteStrings.CHARSET);
+        ByteBuf buf = alloc.directBuffer(b.length + 3);
+        buf.writeByte(type);
+        buf.writeBytes(b);
+        buf.writeBytes(CRLF);
+        return buf;
+    }
+
+    private static void writeHeader(ByteBuf buf, char type, byte[][] cache, int n) {
+        if (n < CACHED_HEADERS) {
+            buf.writeBytes(cache[n]);
+            return;
+        }
+        buf.writeByte(type);
+        writeDecimal(buf, n);
+        buf.writeBytes(CRLF);
+    }
+
+    private static void writeDecimal(ByteBuf buf, long v) {
+        if (v < 0) {
+            buf.writeByte('-');
+        } else {
+            v = -v; // Work with negatives so Long.MIN_VALUE needs no special case
+        }
+        int digits = digits(v);
+        int end = buf.writerIndex() + digits;
+        buf.ensureWritable(digits);
+        for (int i = end - 1; i >= end - digits; i--) {
+            buf.setByte(i, '0' - (int) (v % 10));
+            v /= 10;
+        }
+        buf.writerIndex(end);
+    }
+
+    // --- Sizing ---
+
+    // Number of decimal digits of a non-positive value
+    private static int digits(long negative) {
+        int n = 1;
+        while (negative <= -10) {
+            negative /= 10;
+            n++;
+        }
+        return n;
+    }
+
+    private static int headerSize(int n) {
+        return digits(-(long) n) + 3;
+    }
+
+    private static int bulkSize(byte[] b) {
+        return b == null ? 5 : headerSize(b.length) + b.length + 2;
+    }
+
+    private static int integerSize(long i) {
+        return (i < 0 ? digits(i) + 1 : digits(-i)) + 3;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static int mixedSize(List<Object> list) {
+        int size = headerSize(list.size());
+        for (Object o : list) {
+            if (o instanceof byte[]) {
+                size += bulkSize((byte[]) o);
+            } else if (o instanceof Long || o instanceof Integer) {
+                size += integerSize(((Number) o).longValue());
+            } else if (o instanceof List) {
+                size += mixedSize((List<Object>) o);
+            } else if (o == null) {
+                size += 5;
+            }
+        }
+        return size;
+    }
+}
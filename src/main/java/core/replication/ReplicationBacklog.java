@@ -19,12 +19,23 @@ public class ReplicationBacklog {
 
     /**
      * Appends data to the backlog.
-     * Thread-safety: This must be called under a lock (Sequencer's lock).
+     * Thread-safety: single writer (the Sequencer's pipeline thread).
      */
     public void write(byte[] data) {
-        for (byte b : data) {
-            buffer[writeIndex] = b;
-            writeIndex = (writeIndex + 1) % size;
+        int offset = 0;
+        int remaining = data.length;
+        // Only the last `size` bytes can survive anyway
+        if (remaining > size) {
+            offset = remaining - size;
+            writeIndex = (writeIndex + offset) % size;
+            remaining = size;
+        }
+        while (remaining > 0) {
+            int chunk = Math.min(remaining, size - writeIndex);
+            System.arraycopy(data, offset, buffer, writeIndex, chunk);
+            offset += chunk;
+            remaining -= chunk;
+            writeIndex = (writeIndex + chunk) % size;
         }
         globalOffset.addAndGet(data.length);
     }
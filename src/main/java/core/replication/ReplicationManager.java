@@ -3,11 +3,12 @@ package core.replication;
 import core.Carade;
 import core.network.ClientHandler;
 import core.protocol.Resp;
+import core.server.LockManager;
 import core.server.WriteSequencer;
+import core.utils.ByteStrings;
 
 import java.io.*;
 import java.net.Socket;
-import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
@@ -91,24 +92,24 @@ public class ReplicationManager {
 
                 // 1. Handshake
                 // PING
-                out.write(Resp.array(Arrays.asList("PING".getBytes(StandardCharsets.UTF_8))));
+                out.write(Resp.array(Arrays.asList("PING".getBytes(ByteStrings.CHARSET))));
                 out.flush();
                 Resp.parse(in); // Expect PONG
 
                 // REPLCONF listening-port <port>
                 out.write(Resp.array(Arrays.asList(
-                    "REPLCONF".getBytes(StandardCharsets.UTF_8), 
-                    "listening-port".getBytes(StandardCharsets.UTF_8), 
-                    String.valueOf(Carade.config.port).getBytes(StandardCharsets.UTF_8)
+                    "REPLCONF".getBytes(ByteStrings.CHARSET), 
+                    "listening-port".getBytes(ByteStrings.CHARSET), 
+                    String.valueOf(Carade.config.port).getBytes(ByteStrings.CHARSET)
                 )));
                 out.flush();
                 Resp.parse(in); // Expect OK
 
                 // PSYNC ? -1
                 out.write(Resp.array(Arrays.asList(
-                    "PSYNC".getBytes(StandardCharsets.UTF_8), 
-                    "?".getBytes(StandardCharsets.UTF_8), 
-                    "-1".getBytes(StandardCharsets.UTF_8)
+                    "PSYNC".getBytes(ByteStrings.CHARSET), 
+                    "?".getBytes(ByteStrings.CHARSET), 
+                    "-1".getBytes(ByteStrings.CHARSET)
                 )));
                 out.flush();
                 
@@ -143,10 +144,8 @@ public class ReplicationManager {
                     byte[] rawCmd = Resp.array(parts);
                     
                     // Execute locally using WriteSequencer to ensure AOF/Backlog consistency
-                    WriteSequencer.getInstance().executeWrite(() -> {
-                         // Calls the internal command execution logic
-                         Carade.executeAofCommand(parts);
-                    }, rawCmd);
+                    int keys = LockManager.getInstance().countKeys(new String(parts.get(0), ByteStrings.CHARSET).toUpperCase(), parts);
+                    WriteSequencer.getInstance().executeWrite(() -> Carade.executeReplicatedCommand(parts), rawCmd, keys);
                 }
 
             } catch (Exception e) {
@@ -8,11 +8,12 @@ import org.luaj.vm2.lib.LibFunction;
 import org.luaj.vm2.lib.TwoArgFunction;
 import core.commands.Command;
 import core.commands.CommandRegistry;
+import core.db.CowSnapshot;
 import core.network.ClientHandler;
+import core.utils.ByteStrings;
 
 import org.luaj.vm2.LuaString;
 import java.io.ByteArrayOutputStream;
-import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -108,7 +109,7 @@ public class RedisLuaBinding extends TwoArgFunction {
                          cmdArgs.add(b);
                      } else {
                          String s = arg.toString();
-                         cmdArgs.add(s.getBytes(StandardCharsets.UTF_8));
+                         cmdArgs.add(s.getBytes(ByteStrings.CHARSET));
                      }
                 }
                 
@@ -117,7 +118,9 @@ public class RedisLuaBinding extends TwoArgFunction {
                 client.setCaptureBuffer(capture);
                 
                 try {
+                    if (CowSnapshot.isActive()) client.preserveForSnapshot(cmdName, cmdArgs);
                     command.execute(client, cmdArgs);
+                    client.accountMemory(cmdName, cmdArgs);
                 } finally {
                     client.setCaptureBuffer(null);
                 }
@@ -4,6 +4,7 @@ import org.luaj.vm2.*;
 import org.luaj.vm2.lib.ZeroArgFunction;
 import org.luaj.vm2.lib.jse.JsePlatform;
 import core.network.ClientHandler;
+import core.utils.ByteStrings;
 import core.utils.Log;
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
@@ -69,13 +70,13 @@ public class ScriptManager {
             // Prepare KEYS and ARGV
             LuaTable keysTable = new LuaTable();
             for (int i = 0; i < keys.size(); i++) {
-                keysTable.set(i + 1, LuaValue.valueOf(keys.get(i)));
+                keysTable.set(i + 1, LuaValue.valueOf(ByteStrings.bytes(keys.get(i))));
             }
             globals.set("KEYS", keysTable);
             
             LuaTable argvTable = new LuaTable();
             for (int i = 0; i < args.size(); i++) {
-                argvTable.set(i + 1, LuaValue.valueOf(args.get(i)));
+                argvTable.set(i + 1, LuaValue.valueOf(ByteStrings.bytes(args.get(i))));
             }
             globals.set("ARGV", argvTable);
             
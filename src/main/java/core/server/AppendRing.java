@@ -0,0 +1,115 @@
+package core.server;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Bounded multi-producer / single-consumer ring of serialized commands.
+ *
+ * Producers claim a sequence number with one atomic increment, store the entry in
+ * slot (sequence & mask) and publish it by writing the sequence into the slot's
+ * marker. The consumer reads published slots strictly in sequence order, so the
+ * claim order is the order every entry reaches the AOF / backlog / replicas.
+ * No locks: a full ring makes producers spin (backpressure) until the consumer frees slots.
+ */
+final class AppendRing {
+    static final byte FULL = 0;     // backlog + AOF + replicas
+    static final byte AOF_ONLY = 1; // AOF only (expirations, evictions, blocking pops)
+
+    private final byte[][] entries;
+    private final byte[] kinds;
+    private final AtomicLongArray published;
+    private final int mask;
+
+    private final AtomicLong claimed = new AtomicLong();
+    private volatile long consumed; // every sequence below this has been processed
+
+    private volatile Thread consumer;
+    private volatile boolean consumerParked;
+
+    AppendRing(int capacity) {
+        int n = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.entries = new byte[n][];
+        this.kinds = new byte[n];
+        this.published = new AtomicLongArray(n);
+        for (int i = 0; i < n; i++) published.set(i, -1);
+        this.mask = n - 1;
+    }
+
+    void setConsumer(Thread consumer) {
+        this.consumer = consumer;
+    }
+
+    int capacity() {
+        return entries.length;
+    }
+
+    /**
+     * Claims the next sequence and publishes the entry. Returns its sequence.
+     */
+    long publish(byte[] entry, byte kind) {
+        long seq = claimed.getAndIncrement();
+        while (seq - consumed >= entries.length) {
+            wakeConsumer();
+            Thread.onSpinWait();
+        }
+        int idx = (int) (seq & mask);
+        entries[idx] = entry;
+        kinds[idx] = kind;
+        published.set(idx, seq); // Volatile write: makes the entry visible to the consumer
+        if (consumerParked) wakeConsumer();
+        return seq;
+    }
+
+    /**
+     * Consumer side: copies up to max contiguous published entries, starting at the
+     * consumed cursor. Returns how many; call {@link #release(int)} once they are processed.
+     */
+    int drain(byte[][] outEntries, byte[] outKinds, int max) {
+        long next = consumed;
+        int n = 0;
+        while (n < max) {
+            int idx = (int) ((next + n) & mask);
+            if (published.get(idx) != next + n) break;
+            outEntries[n] = entries[idx];
+            outKinds[n] = kinds[idx];
+            entries[idx] = null;
+            n++;
+        }
+        return n;
+    }
+
+    void release(int n) {
+        consumed = consumed + n;
+    }
+
+    /**
+     * Consumer side: parks until something is published (or the timeout elapses).
+     */
+    void awaitPublished(long timeoutNanos) {
+        consumerParked = true;
+        // Re-check after announcing the park, a producer may have published in between
+        if (published.get((int) (consumed & mask)) != consumed) {
+            LockSupport.parkNanos(this, timeoutNanos);
+        }
+        consumerParked = false;
+    }
+
+    boolean hasPending() {
+        return consumed < claimed.get();
+    }
+
+    long claimed() {
+        return claimed.get();
+    }
+
+    long consumed() {
+        return consumed;
+    }
+
+    void wakeConsumer() {
+        Thread c = consumer;
+        if (c != null) LockSupport.unpark(c);
+    }
+}
@@ -0,0 +1,265 @@
+package core.server;
+
+import core.Carade;
+import core.commands.Args;
+import core.commands.CommandMetadata;
+import core.commands.CommandRegistry;
+import core.utils.ByteStrings;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Striped key locking.
+ * Replaces "every command takes Carade.globalRWLock" with:
+ * 1. Keyspace commands: global lock in shared mode + the stripes of their keys
+ *    (write or read stripe lock depending on the "write" flag).
+ * 2. FLUSHALL, FLUSHDB, SWAPDB, EXEC, SAVE, BGREWRITEAOF and scripts: global lock in exclusive mode.
+ *
+ * Keys come from CommandMetadata (firstKey/lastKey/step); commands flagged
+ * "movablekeys" (numkeys style or STORE options) are resolved in {@link #collectKeys}.
+ * Stripes are always acquired in ascending order, so multi-key commands cannot deadlock.
+ * Stripes hash the key name only (not the DB), so MOVE/COPY across DBs stay covered.
+ */
+public class LockManager {
+    private static LockManager INSTANCE;
+
+    public static final int DEFAULT_STRIPES = 1024;
+
+    private static final Set<String> EXCLUSIVE = Set.of(
+            "FLUSHALL", "FLUSHDB", "SWAPDB", "EXEC", "SAVE", "BGREWRITEAOF",
+            "EVAL", "EVALSHA", "EVAL_RO", "EVALSHA_RO", "SCRIPT");
+
+    private static final int[] NO_STRIPES = new int[0];
+
+    private final ReentrantReadWriteLock global = Carade.globalRWLock;
+    private final ReentrantReadWriteLock[] stripes;
+    private final int mask;
+    // Lock scopes held by the current thread (commands can nest, e.g. EXEC, scripts)
+    private final ThreadLocal<int[]> depth = ThreadLocal.withInitial(() -> new int[1]);
+
+    private LockManager(int stripeCount) {
+        int n = Integer.highestOneBit(Math.max(1, stripeCount - 1)) << 1;
+        this.stripes = new ReentrantReadWriteLock[n];
+        for (int i = 0; i < n; i++) stripes[i] = new ReentrantReadWriteLock();
+        this.mask = n - 1;
+    }
+
+    public static synchronized LockManager getInstance() {
+        if (INSTANCE == null) {
+            INSTANCE = new LockManager(DEFAULT_STRIPES);
+        }
+        return INSTANCE;
+    }
+
+    public static synchronized void resetSingleton() {
+        INSTANCE = null;
+    }
+
+    /**
+     * Locks held for one command; released in reverse order by {@link #release()}.
+     */
+    public final class Scope {
+        private final boolean exclusive;
+        private final boolean write;
+        private final int[] held;
+
+        private Scope(boolean exclusive, boolean write, int[] held) {
+            this.exclusive = exclusive;
+            this.write = write;
+            this.held = held;
+        }
+
+        public boolean isExclusive() {
+            return exclusive;
+        }
+
+        public void release() {
+            for (int i = held.length - 1; i >= 0; i--) {
+                if (write) stripes[held[i]].writeLock().unlock();
+                else stripes[held[i]].readLock().unlock();
+            }
+            if (exclusive) global.writeLock().unlock();
+            else global.readLock().unlock();
+            depth.get()[0]--;
+        }
+    }
+
+    /**
+     * Acquires everything the command needs. cmd is the upper-case command name.
+     */
+    public Scope acquire(String cmd, List<byte[]> args) {
+        if (EXCLUSIVE.contains(cmd)) {
+            global.writeLock().lock();
+            depth.get()[0]++;
+            return new Scope(true, true, NO_STRIPES);
+        }
+
+        CommandMetadata meta = CommandRegistry.getMetadata(cmd);
+        boolean write = meta != null && meta.getFlags().contains("write");
+        int[] held = meta != null ? stripesFor(cmd, meta, args) : NO_STRIPES;
+
+        global.readLock().lock();
+        for (int stripe : held) {
+            if (write) stripes[stripe].writeLock().lock();
+            else stripes[stripe].readLock().lock();
+        }
+        depth.get()[0]++;
+        return new Scope(false, write, held);
+    }
+
+    /**
+     * Global lock in shared mode without key stripes, for callers that already own
+     * the keys (shard threads, see ShardManager).
+     */
+    public Scope acquireShared() {
+        global.readLock().lock();
+        depth.get()[0]++;
+        return new Scope(false, false, NO_STRIPES);
+    }
+
+    /**
+     * Write lock of the key's stripe for a background pass (eviction, active expiry)
+     * removing a key it does not own; never waits. Returns null if a command holds the
+     * stripe or an exclusive command runs, and the caller skips the key.
+     */
+    public Scope tryAcquireKey(String key) {
+        if (!global.readLock().tryLock()) return null;
+        int stripe = stripeOf(key);
+        if (!stripes[stripe].writeLock().tryLock()) {
+            global.readLock().unlock();
+            return null;
+        }
+        depth.get()[0]++;
+        return new Scope(false, true, new int[] { stripe });
+    }
+
+    public static boolean isExclusive(String cmd) {
+        return EXCLUSIVE.contains(cmd);
+    }
+
+    /**
+     * True while the current thread executes inside an acquired scope.
+     * Writers outside any scope (replication stream, loaders) must serialize themselves.
+     */
+    public boolean isHeldByCurrentThread() {
+        return depth.get()[0] > 0;
+    }
+
+    public int getStripeCount() {
+        return stripes.length;
+    }
+
+    public int stripeOf(byte[] key) {
+        return spread(Arrays.hashCode(key));
+    }
+
+    public int stripeOf(String key) {
+        return stripeOf(key.getBytes(ByteStrings.CHARSET));
+    }
+
+    private int spread(int h) {
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    // Sorted, de-duplicated stripe indexes of all keys touched by the command
+    private int[] stripesFor(String cmd, CommandMetadata meta, List<byte[]> args) {
+        int[] keyIndexes = collectKeys(cmd, meta, args);
+        if (keyIndexes.length == 0) return NO_STRIPES;
+        int[] result = new int[keyIndexes.length];
+        int n = 0;
+        for (int idx : keyIndexes) {
+            if (!Args.isNull(args, idx)) result[n++] = spread(Args.hash(args, idx));
+        }
+        Arrays.sort(result, 0, n);
+        int unique = 0;
+        for (int i = 0; i < n; i++) {
+            if (unique == 0 || result[unique - 1] != result[i]) result[unique++] = result[i];
+        }
+        return unique == result.length ? result : Arrays.copyOf(result, unique);
+    }
+
+    /**
+     * Number of keys the command names, at least 1: the changes a write adds to the
+     * dirty counter (see WriteSequencer#getDirty).
+     */
+    public int countKeys(String cmd, List<byte[]> args) {
+        CommandMetadata meta = CommandRegistry.getMetadata(cmd);
+        if (meta == null) return 1;
+        return Math.max(1, collectKeys(cmd, meta, args).length);
+    }
+
+    /**
+     * Argument positions holding keys.
+     */
+    public int[] collectKeys(String cmd, CommandMetadata meta, List<byte[]> args) {
+        int argc = args.size();
+        KeyList keys = new KeyList();
+
+        int first = meta.getFirstKey();
+        int step = meta.getStep();
+        if (first > 0 && step > 0) {
+            int last = meta.getLastKey() < 0 ? argc + meta.getLastKey() : meta.getLastKey();
+            for (int i = first; i <= last && i < argc; i += step) keys.add(i);
+        }
+
+        if (meta.getFlags().contains("movablekeys")) {
+            switch (cmd) {
+                case "ZUNION": case "ZINTER": case "ZDIFF": case "ZINTERCARD":
+                case "SINTERCARD": case "LMPOP": case "ZMPOP":
+                    numKeys(args, 1, keys);
+                    break;
+                case "BLMPOP": case "BZMPOP":
+                case "ZUNIONSTORE": case "ZINTERSTORE": case "ZDIFFSTORE":
+                    numKeys(args, 2, keys);
+                    break;
+                case "SORT": case "GEORADIUS": case "GEORADIUSBYMEMBER":
+                    // Destination of STORE / STOREDIST
+                    for (int i = 2; i + 1 < argc; i++) {
+                        String opt = new String(args.get(i), ByteStrings.CHARSET);
+                        if (opt.equalsIgnoreCase("STORE") || opt.equalsIgnoreCase("STOREDIST")) keys.add(i + 1);
+                    }
+                    break;
+                case "MIGRATE":
+                    // MIGRATE host port "" db timeout ... KEYS k1 k2
+                    for (int i = 6; i < argc; i++) {
+                        if (new String(args.get(i), ByteStrings.CHARSET).equalsIgnoreCase("KEYS")) {
+                            for (int k = i + 1; k < argc; k++) keys.add(k);
+                            break;
+                        }
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+        return keys.toArray();
+    }
+
+    private static void numKeys(List<byte[]> args, int numKeysIndex, KeyList keys) {
+        if (numKeysIndex >= args.size()) return;
+        int count;
+        try {
+            count = Integer.parseInt(new String(args.get(numKeysIndex), ByteStrings.CHARSET));
+        } catch (NumberFormatException e) {
+            return; // The command reports the syntax error itself
+        }
+        for (int i = numKeysIndex + 1; i <= numKeysIndex + count && i < args.size(); i++) keys.add(i);
+    }
+
+    private static final class KeyList {
+        private int[] items = new int[4];
+        private int size;
+
+        void add(int index) {
+            if (size == items.length) items = Arrays.copyOf(items, size * 2);
+            items[size++] = index;
+        }
+
+        int[] toArray() {
+            return size == 0 ? NO_STRIPES : Arrays.copyOf(items, size);
+        }
+    }
+}
@@ -0,0 +1,333 @@
+package core.server;
+
+import core.Carade;
+import core.commands.Args;
+import core.commands.CommandMetadata;
+import core.commands.CommandRegistry;
+import core.utils.Log;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Shared-nothing execution mode ("shards N" in the config).
+ *
+ * The keyspace of every DB is hash-partitioned into N logical shards, each owned by
+ * one thread ("Shard-i") draining its own queue. A command whose keys all live in one
+ * shard runs on the owning thread without any key locks; commands spanning several
+ * shards go through the coordinator, which holds the involved shards one after the
+ * other (in ascending order) and runs the command on the last one while they are held.
+ * Keyless and exclusive commands (FLUSHALL, EXEC, scripts) keep the LockManager path.
+ *
+ * Nothing here waits for a shard: {@link #submit} queues the command and calls back
+ * on the shard thread once it ran, so an event loop keeps serving its other
+ * connections while one of them has a command in flight.
+ *
+ * Shard tasks still hold the global lock in shared mode, so exclusive commands and the
+ * replication stream exclude them exactly as in the default (striped lock) mode.
+ */
+public class ShardManager {
+    private static ShardManager INSTANCE;
+
+    // Task run on behalf of a client, may throw like Command.execute
+    public interface ShardTask {
+        void run() throws Exception;
+    }
+
+    private static final int KEYLESS = -1;
+    private static final int MULTI_SHARD = -2;
+
+    private final Shard[] shards;
+    private final AtomicLong crossShardCommands = new AtomicLong();
+
+    private ShardManager(int count) {
+        this.shards = new Shard[Math.max(0, count)];
+        for (int i = 0; i < shards.length; i++) shards[i] = new Shard(i);
+        if (shards.length > 0) Log.info("🧩 Shard execution mode: " + shards.length + " shards");
+    }
+
+    public static synchronized ShardManager getInstance() {
+        if (INSTANCE == null) {
+            INSTANCE = new ShardManager(Carade.config != null ? Carade.config.shards : 0);
+        }
+        return INSTANCE;
+    }
+
+    public static synchronized void resetSingleton() {
+        if (INSTANCE != null) INSTANCE.shutdown();
+        INSTANCE = null;
+    }
+
+    /**
+     * Creates a manager with the given shard count (tests, embedding).
+     */
+    public static synchronized ShardManager init(int count) {
+        resetSingleton();
+        INSTANCE = new ShardManager(count);
+        return INSTANCE;
+    }
+
+    public boolean isEnabled() {
+        return shards.length > 0;
+    }
+
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    public int shardOf(byte[] key) {
+        return spread(Arrays.hashCode(key));
+    }
+
+    private int shardOf(List<byte[]> args, int index) {
+        return spread(Args.hash(args, index));
+    }
+
+    private int spread(int h) {
+        h ^= (h >>> 16);
+        return (h & 0x7fffffff) % shards.length;
+    }
+
+    /**
+     * Whether the command is routed to a shard (it has keys and is not exclusive).
+     */
+    public boolean routes(String cmd, List<byte[]> args) {
+        return isEnabled() && route(cmd, args) != KEYLESS;
+    }
+
+    /**
+     * Queues the task on the shard owning the command's keys (or on the coordinator when
+     * they span several shards) and returns. done gets null or what the task threw, on
+     * the thread that ran it. Returns false, running nothing, if the command is not
+     * routed to a shard.
+     */
+    public boolean submit(String cmd, List<byte[]> args, ShardTask task, Consumer<Throwable> done) {
+        int target = isEnabled() ? route(cmd, args) : KEYLESS;
+        if (target == KEYLESS) return false;
+        if (target == MULTI_SHARD) {
+            crossShardCommands.incrementAndGet();
+            hold(ownersOf(cmd, args), 0, task, done);
+        } else {
+            Shard shard = shards[target];
+            shard.post(() -> {
+                long start = System.nanoTime();
+                Throwable error = runShared(task);
+                shard.commands.incrementAndGet();
+                shard.busyNanos.addAndGet(System.nanoTime() - start);
+                done.accept(error);
+            });
+        }
+        return true;
+    }
+
+    /**
+     * Like {@link #submit}, waiting for the task; keyless commands run on the caller
+     * under a regular LockManager scope. For callers that may block (tests, embedding),
+     * never an event loop.
+     */
+    public void execute(String cmd, List<byte[]> args, ShardTask task) throws Exception {
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        boolean routed = submit(cmd, args, task, error -> {
+            if (error == null) result.complete(null);
+            else result.completeExceptionally(error);
+        });
+        if (!routed) {
+            LockManager.Scope scope = LockManager.getInstance().acquire(cmd, args);
+            try {
+                task.run();
+            } finally {
+                scope.release();
+            }
+            return;
+        }
+        try {
+            result.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) throw (Exception) cause;
+            throw e;
+        }
+    }
+
+    /**
+     * Whether the caller is the thread of the shard owning key.
+     */
+    public boolean isOwner(byte[] key) {
+        return isEnabled() && shards[shardOf(key)].thread == Thread.currentThread();
+    }
+
+    /**
+     * Queues the task on the shard owning key, for work started outside it (eviction,
+     * active expiry); does not wait, errors are logged.
+     */
+    public void post(byte[] key, ShardTask task) {
+        Shard shard = shards[shardOf(key)];
+        shard.post(() -> {
+            Throwable error = runShared(task);
+            if (error != null) Log.error("⚠️ Shard-" + shard.id + " task failed: " + error.getMessage());
+        });
+    }
+
+    private static Throwable runShared(ShardTask task) {
+        LockManager.Scope scope = LockManager.getInstance().acquireShared();
+        try {
+            task.run();
+            return null;
+        } catch (Throwable t) {
+            return t;
+        } finally {
+            scope.release();
+        }
+    }
+
+    // Shard of the command's keys, KEYLESS or MULTI_SHARD
+    private int route(String cmd, List<byte[]> args) {
+        if (LockManager.isExclusive(cmd)) return KEYLESS;
+        CommandMetadata meta = CommandRegistry.getMetadata(cmd);
+        if (meta == null) return KEYLESS;
+        int[] keys = LockManager.getInstance().collectKeys(cmd, meta, args);
+        int owner = KEYLESS;
+        for (int idx : keys) {
+            int s = shardOf(args, idx);
+            if (owner == KEYLESS) owner = s;
+            else if (owner != s) return MULTI_SHARD;
+        }
+        return owner;
+    }
+
+    // Sorted, de-duplicated shards touched by the command
+    private int[] ownersOf(String cmd, List<byte[]> args) {
+        int[] keys = LockManager.getInstance().collectKeys(cmd, CommandRegistry.getMetadata(cmd), args);
+        boolean[] seen = new boolean[shards.length];
+        for (int idx : keys) seen[shardOf(args, idx)] = true;
+        int[] owners = new int[shards.length];
+        int n = 0;
+        for (int i = 0; i < seen.length; i++) if (seen[i]) owners[n++] = i;
+        return Arrays.copyOf(owners, n);
+    }
+
+    /**
+     * Cross-shard coordinator: holds owners[i] (its thread stops taking tasks once this
+     * one ran), then queues the same on the next owner. Shards are taken in ascending
+     * order, so two coordinators cannot hold each other's shards crosswise. The last
+     * owner runs the task while all of them are held, then releases them.
+     */
+    private void hold(int[] owners, int i, ShardTask task, Consumer<Throwable> done) {
+        Shard shard = shards[owners[i]];
+        shard.post(() -> {
+            shard.hold();
+            if (i + 1 < owners.length) {
+                hold(owners, i + 1, task, done);
+                return;
+            }
+            Throwable error = runShared(task);
+            for (int s : owners) shards[s].release();
+            done.accept(error);
+        });
+    }
+
+    public long getCrossShardCommands() {
+        return crossShardCommands.get();
+    }
+
+    public long[] getCommandCounts() {
+        long[] r = new long[shards.length];
+        for (int i = 0; i < r.length; i++) r[i] = shards[i].commands.get();
+        return r;
+    }
+
+    public long[] getBusyMicros() {
+        long[] r = new long[shards.length];
+        for (int i = 0; i < r.length; i++) r[i] = shards[i].busyNanos.get() / 1000;
+        return r;
+    }
+
+    public int[] getQueueDepths() {
+        int[] r = new int[shards.length];
+        for (int i = 0; i < r.length; i++) r[i] = shards[i].depth();
+        return r;
+    }
+
+    public void shutdown() {
+        for (Shard shard : shards) shard.stop();
+        for (Shard shard : shards) {
+            try {
+                shard.thread.join(5000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    // One shard thread and its queue. While held by a coordinator it takes no task.
+    private static final class Shard implements Runnable {
+        final int id;
+        final Thread thread;
+        final AtomicLong commands = new AtomicLong();
+        final AtomicLong busyNanos = new AtomicLong();
+        private final ArrayDeque<Runnable> queue = new ArrayDeque<>();
+        private boolean held;
+        private boolean stopped;
+
+        Shard(int id) {
+            this.id = id;
+            this.thread = new Thread(this, "Shard-" + id);
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        synchronized void post(Runnable task) {
+            queue.add(task);
+            if (queue.size() == 1) notify();
+        }
+
+        synchronized int depth() {
+            return queue.size();
+        }
+
+        // Called by a task of this shard: the thread waits for release() once it returns
+        synchronized void hold() {
+            held = true;
+        }
+
+        synchronized void release() {
+            held = false;
+            notify();
+        }
+
+        synchronized void stop() {
+            stopped = true;
+            notify();
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                Runnable task;
+                synchronized (this) {
+                    while (!stopped && (held || queue.isEmpty())) {
+                        try {
+                            wait();
+                        } catch (InterruptedException e) {
+                            return;
+                        }
+                    }
+                    // Drains what was queued before stop(), unless a coordinator holds it
+                    if (held || queue.isEmpty()) return;
+                    task = queue.poll();
+                }
+                try {
+                    task.run();
+                } catch (Throwable t) {
+                    Log.error("⚠️ Shard-" + id + " task failed: " + t.getMessage());
+                }
+            }
+        }
+    }
+}
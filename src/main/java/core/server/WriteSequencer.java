@@ -2,31 +2,96 @@ package core.server;
 
 import core.Carade;
 import core.persistence.CommandLogger;
+import core.protocol.Resp;
 import core.replication.ReplicationBacklog;
+import core.utils.ByteStrings;
+import core.utils.Log;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
  * Global Sequencer.
  * Coordinates all write operations to ensure:
- * 1. DB Order
- * 2. Backlog Order
- * 3. AOF Order
- * are identical.
+ * 1. Backlog Order
+ * 2. AOF Order
+ * 3. Replica Order
+ * are identical. Writes to the same key are ordered by its stripe lock,
+ * so the DB order of each key matches the log order as well.
+ *
+ * Pipeline: the writer applies the mutation and publishes the serialized command to
+ * a lock-free ring ({@link AppendRing}); the claimed slot is its sequence number.
+ * The "Write-Pipeline" thread drains the ring in sequence order and appends each
+ * batch to the backlog, the AOF and the replicas, so no I/O runs on the writer.
+ *
+ * With appendfsync always the pipeline also forces every batch (group commit: all
+ * writes of a batch share one fsync) and only then marks it durable; ClientHandler
+ * holds back the replies of a read burst until its last write is durable.
  */
 public class WriteSequencer {
     private static WriteSequencer INSTANCE;
-    
+
+    public static final int DEFAULT_RING_SIZE = 64 * 1024;
+    private static final int MAX_BATCH = 1024;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    // Pause between attempts to append batches that failed to reach the AOF
+    private static final long RETRY_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
     // The Global Lock (we reuse Carade's lock for now, or introduce a new one)
     // Using Carade.globalRWLock ensures compatibility with existing code that might grab it.
     private final ReentrantReadWriteLock lock = Carade.globalRWLock;
-    
+
     private final ReplicationBacklog backlog;
     private final CommandLogger commandLogger;
 
+    private final AppendRing ring;
+    private final Thread consumer;
+    private volatile boolean running = true;
+
+    // Keys changed by client and replicated writes (AOF-only side effects excluded), and
+    // the count covered by the last successful snapshot: the difference is "dirty"
+    private final AtomicLong changes = new AtomicLong();
+    private volatile long savedChanges = 0;
+
+    // Every sequence below this has been appended (and forced, with appendfsync always)
+    private volatile long durable = 0;
+    // Pipeline thread only: next attempt at batches that failed to reach the AOF
+    private long nextRetry = 0;
+    private final PriorityQueue<Waiter> waiters = new PriorityQueue<>();
+    // Sequence of the last write published by the current thread, -1 if none
+    private static final ThreadLocal<long[]> LAST_SEQUENCE = ThreadLocal.withInitial(() -> new long[]{-1});
+
+    private static final class Waiter implements Comparable<Waiter> {
+        final long sequence;
+        final Runnable callback;
+
+        Waiter(long sequence, Runnable callback) {
+            this.sequence = sequence;
+            this.callback = callback;
+        }
+
+        @Override
+        public int compareTo(Waiter o) {
+            return Long.compare(sequence, o.sequence);
+        }
+    }
+
     private WriteSequencer() {
         // 1MB Backlog for demo
-        this.backlog = new ReplicationBacklog(1024 * 1024); 
+        this.backlog = new ReplicationBacklog(1024 * 1024);
         this.commandLogger = CommandLogger.getInstance();
+        this.ring = new AppendRing(Carade.config != null ? Carade.config.appendRingSize : DEFAULT_RING_SIZE);
+        this.consumer = new Thread(this::consume, "Write-Pipeline");
+        this.consumer.setDaemon(true);
+        ring.setConsumer(consumer);
+        consumer.start();
     }
 
     public static synchronized WriteSequencer getInstance() {
@@ -36,41 +101,335 @@ public class WriteSequencer {
         return INSTANCE;
     }
 
+    /**
+     * {@link #sync()} on the running sequencer, if any.
+     */
+    public static void syncPending() {
+        WriteSequencer s;
+        synchronized (WriteSequencer.class) {
+            s = INSTANCE;
+        }
+        if (s != null) s.sync();
+    }
+
     public static synchronized void resetSingleton() {
+        if (INSTANCE != null) INSTANCE.shutdown();
         INSTANCE = null;
     }
 
     /**
      * Executes a write operation atomically.
+     *
+     * Commands dispatched by ClientHandler already hold the stripe locks of their keys
+     * (see {@link LockManager}), so the RAM update runs without the big lock; the command
+     * is then published to the ring while the stripes are still held.
+     * Callers outside a LockManager scope (replication stream, tests) still take the
+     * global write lock.
+     *
      * @param dbOperation The lambda updating the RAM (HashMap)
      * @param commandBytes The raw bytes of the command (already transformed/normalized) for logging
      */
     public void executeWrite(Runnable dbOperation, byte[] commandBytes) {
+        executeWrite(dbOperation, commandBytes, 1);
+    }
+
+    /**
+     * Like {@link #executeWrite(Runnable, byte[])} for a write changing the given number
+     * of keys (an MSET of 100 keys is 100 changes for the save points).
+     */
+    public void executeWrite(Runnable dbOperation, byte[] commandBytes, int keys) {
+        if (LockManager.getInstance().isHeldByCurrentThread()) {
+            dbOperation.run();
+            publish(commandBytes, AppendRing.FULL, keys);
+            return;
+        }
         lock.writeLock().lock();
         try {
-            // 1. Update RAM
             dbOperation.run();
-            
-            // 2. Append to Replication Backlog
-            if (backlog != null && commandBytes != null) {
-                backlog.write(commandBytes);
+            publish(commandBytes, AppendRing.FULL, keys);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Logs a command to the AOF only (not replicated), in order with all other writes.
+     * Used for side effects that are not commands of their own: active expiration,
+     * eviction, blocking pops served by a push.
+     */
+    public void appendAof(String cmd, Object... args) {
+        publish(serialize(cmd, args), AppendRing.AOF_ONLY, 0);
+    }
+
+    /**
+     * Like {@link #appendAof(String, Object...)} for a command of another DB than the
+     * caller's: SELECT and the command go into one ring entry, so no other write can
+     * land between them.
+     */
+    public void appendAof(int dbIndex, String cmd, Object... args) {
+        byte[] select = serialize("SELECT", String.valueOf(dbIndex));
+        byte[] command = serialize(cmd, args);
+        byte[] entry = Arrays.copyOf(select, select.length + command.length);
+        System.arraycopy(command, 0, entry, select.length, command.length);
+        publish(entry, AppendRing.AOF_ONLY, 0);
+    }
+
+    private static byte[] serialize(String cmd, Object... args) {
+        List<byte[]> parts = new ArrayList<>(args.length + 1);
+        parts.add(cmd.getBytes(ByteStrings.CHARSET));
+        for (Object arg : args) {
+            if (arg instanceof byte[]) parts.add((byte[]) arg);
+            else parts.add(String.valueOf(arg).getBytes(ByteStrings.CHARSET));
+        }
+        return Resp.array(parts);
+    }
+
+    private void publish(byte[] commandBytes, byte kind, int keys) {
+        if (commandBytes == null) return;
+        if (commandLogger != null && commandLogger.isLoading()) return; // Replaying the AOF
+        if (keys > 0) changes.addAndGet(keys);
+        if (!running) {
+            // Pipeline stopped (shutdown): append synchronously
+            synchronized (this) {
+                write(new byte[][]{commandBytes}, new byte[]{kind}, 1);
             }
-            
-            // 3. Write to AOF
-            if (commandLogger != null && commandBytes != null) {
-                commandLogger.log(commandBytes);
+            return;
+        }
+        LAST_SEQUENCE.get()[0] = ring.publish(commandBytes, kind);
+    }
+
+    /**
+     * Returns and clears the sequence of the last write published by the current thread
+     * (-1 if none), so the caller can wait for it with {@link #whenDurable}.
+     */
+    public static long takeLastSequence() {
+        long[] last = LAST_SEQUENCE.get();
+        long seq = last[0];
+        last[0] = -1;
+        return seq;
+    }
+
+    /**
+     * Whether replies to writes must wait until the write is on disk (appendfsync always).
+     */
+    public boolean isDurableRepliesRequired() {
+        return commandLogger != null && commandLogger.getFsyncPolicy() == CommandLogger.FsyncPolicy.ALWAYS;
+    }
+
+    public boolean isDurable(long sequence) {
+        return sequence < durable;
+    }
+
+    /**
+     * Runs the callback (on the pipeline thread, or right away) once the write with the
+     * given sequence is durable.
+     */
+    public void whenDurable(long sequence, Runnable callback) {
+        if (sequence >= durable) {
+            synchronized (waiters) {
+                if (sequence >= durable) {
+                    waiters.add(new Waiter(sequence, callback));
+                    return;
+                }
             }
+        }
+        callback.run();
+    }
 
-            // 4. Propagate to Replicas
-            if (commandBytes != null) {
-                core.replication.ReplicationManager.getInstance().propagate(commandBytes);
+    private void markDurable(long upTo) {
+        durable = upTo;
+        List<Waiter> ready = null;
+        synchronized (waiters) {
+            while (!waiters.isEmpty() && waiters.peek().sequence < upTo) {
+                if (ready == null) ready = new ArrayList<>();
+                ready.add(waiters.poll());
+            }
+        }
+        if (ready == null) return;
+        for (Waiter w : ready) {
+            try {
+                w.callback.run();
+            } catch (Throwable t) {
+                Log.error("⚠️ Durability callback failed: " + t.getMessage());
             }
-        } finally {
-            lock.writeLock().unlock();
         }
     }
-    
+
+    // Consumer loop of the "Write-Pipeline" thread
+    private void consume() {
+        byte[][] entries = new byte[MAX_BATCH][];
+        byte[] kinds = new byte[MAX_BATCH];
+        while (running || ring.hasPending()) {
+            int n = ring.drain(entries, kinds, MAX_BATCH);
+            if (n == 0) {
+                if (durable < ring.consumed()) retryAof();
+                ring.awaitPublished(IDLE_PARK_NANOS);
+                continue;
+            }
+            boolean logged = false;
+            try {
+                synchronized (this) {
+                    logged = write(entries, kinds, n);
+                }
+            } catch (Throwable t) {
+                Log.error("⚠️ Write pipeline failed to append batch: " + t.getMessage());
+            } finally {
+                for (int i = 0; i < n; i++) entries[i] = null;
+                ring.release(n);
+                // A batch that did not reach the AOF is not durable, nor is anything after it:
+                // its replies stay held until a later write or retryAof gets it to disk
+                if (logged) markDurable(ring.consumed());
+            }
+        }
+    }
+
+    // Idle pipeline with batches that failed to reach the AOF: tries again, at most every RETRY_NANOS
+    private void retryAof() {
+        long now = System.nanoTime();
+        if (now - nextRetry < 0) return;
+        nextRetry = now + RETRY_NANOS;
+        try {
+            if (isDurableRepliesRequired()) commandLogger.fsync();
+            else commandLogger.flush();
+            markDurable(ring.consumed());
+            Log.info("💾 AOF writes succeeded again.");
+        } catch (IOException e) {
+            // Still failing; writes stay refused (see getAofError)
+        }
+    }
+
+    /**
+     * The AOF error writes are refused for (MISCONF), or null when the AOF is healthy.
+     */
+    public String getAofError() {
+        return commandLogger != null ? commandLogger.getLastError() : null;
+    }
+
+    /**
+     * Appends one batch, in sequence order, to backlog, AOF and replicas. Returns false if
+     * it did not reach the AOF (or the disk, with appendfsync always); the AOF keeps it
+     * buffered for the next attempt.
+     */
+    private boolean write(byte[][] entries, byte[] kinds, int n) {
+        int replicated = 0;
+        for (int i = 0; i < n; i++) {
+            if (kinds[i] == AppendRing.FULL) replicated += entries[i].length;
+        }
+
+        // 1. Append to Replication Backlog
+        byte[] stream = null;
+        if (replicated > 0) {
+            stream = new byte[replicated];
+            int pos = 0;
+            for (int i = 0; i < n; i++) {
+                if (kinds[i] != AppendRing.FULL) continue;
+                System.arraycopy(entries[i], 0, stream, pos, entries[i].length);
+                pos += entries[i].length;
+            }
+            if (backlog != null) backlog.write(stream);
+        }
+
+        // 2. Write to AOF, 3. group commit: one fsync for the whole batch
+        boolean logged = true;
+        if (commandLogger != null) {
+            try {
+                commandLogger.log(entries, n);
+                if (isDurableRepliesRequired()) {
+                    commandLogger.fsync();
+                }
+            } catch (IOException e) {
+                logged = false;
+                Log.error("⚠️ Failed to append batch to the AOF, refusing writes until it succeeds: " + commandLogger.getLastError());
+            }
+        }
+
+        // 4. Propagate to Replicas (one message per batch)
+        if (stream != null) {
+            core.replication.ReplicationManager.getInstance().propagate(stream);
+        }
+        return logged;
+    }
+
+    /**
+     * Waits until every write published so far reached the backlog, the AOF and the replicas.
+     */
+    public void sync() {
+        if (Thread.currentThread() == consumer) return;
+        long target = ring.claimed();
+        while (ring.consumed() < target && consumer.isAlive()) {
+            ring.wakeConsumer();
+            LockSupport.parkNanos(50_000);
+        }
+    }
+
+    /**
+     * Drains the pipeline and stops the consumer; later writes are appended synchronously.
+     */
+    public void shutdown() {
+        if (!running) return;
+        sync();
+        running = false;
+        ring.wakeConsumer();
+        try {
+            consumer.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Writers that raced with the stop
+        byte[][] entries = new byte[MAX_BATCH][];
+        byte[] kinds = new byte[MAX_BATCH];
+        int n;
+        while ((n = ring.drain(entries, kinds, MAX_BATCH)) > 0) {
+            synchronized (this) {
+                write(entries, kinds, n);
+            }
+            ring.release(n);
+        }
+        markDurable(ring.claimed());
+    }
+
+    /**
+     * Number of writes published so far; defines the global AOF / backlog order.
+     */
+    public long getSequence() {
+        return ring.claimed();
+    }
+
+    /**
+     * Keys changed by writes so far. Expirations, evictions and the other AOF-only side
+     * effects do not count.
+     */
+    public long getChanges() {
+        return changes.get();
+    }
+
+    /**
+     * Key changes since the last successful snapshot (save points, rdb_changes_since_last_save).
+     */
+    public long getDirty() {
+        return changes.get() - savedChanges;
+    }
+
+    /**
+     * Records a successful snapshot started at the given {@link #getChanges()}; changes
+     * made while it was being written stay dirty.
+     */
+    public void markSaved(long changes) {
+        if (changes > savedChanges) savedChanges = changes;
+    }
+
+    /**
+     * Writes published but not yet appended (ring occupancy).
+     */
+    public long getPendingWrites() {
+        return ring.claimed() - ring.consumed();
+    }
+
+    /**
+     * The backlog, with every write published so far already appended.
+     */
     public ReplicationBacklog getBacklog() {
+        sync();
         return backlog;
     }
 }
@@ -1,8 +1,9 @@
 package core.structs;
 
+import core.utils.ByteStrings;
+
 import java.io.Serializable;
 import java.util.BitSet;
-import java.nio.charset.StandardCharsets;
 
 public class BloomFilter implements Serializable {
     private static final long serialVersionUID = 1L;
@@ -33,8 +34,40 @@ public class BloomFilter implements Serializable {
         this(10000, 0.01);
     }
 
+    private BloomFilter(int bitSize, int hashCount, BitSet bitSet) {
+        this.bitSize = bitSize;
+        this.hashCount = hashCount;
+        this.bitSet = bitSet;
+    }
+
+    /**
+     * Rebuilds a filter from {@link #getBitSize()}, {@link #getHashCount()} and the
+     * little-endian bit words of {@link #toByteArray()}.
+     */
+    public static BloomFilter fromByteArray(int bitSize, int hashCount, java.nio.ByteBuffer bits) {
+        if (bitSize <= 0 || hashCount < 0 || bits.remaining() > (bitSize + 7) / 8 + 8) {
+            throw new IllegalArgumentException("Invalid bloom filter: " + bitSize + " bits, " + hashCount + " hashes");
+        }
+        return new BloomFilter(bitSize, hashCount, BitSet.valueOf(bits));
+    }
+
+    public int getBitSize() {
+        return bitSize;
+    }
+
+    public int getHashCount() {
+        return hashCount;
+    }
+
+    /**
+     * The bits as little-endian bytes (trailing zero bytes omitted).
+     */
+    public byte[] toByteArray() {
+        return bitSet.toByteArray();
+    }
+
     public int add(String item) {
-        byte[] bytes = item.getBytes(StandardCharsets.UTF_8);
+        byte[] bytes = item.getBytes(ByteStrings.CHARSET);
         boolean changed = false;
         int h1 = murmur3(bytes, 0);
         int h2 = murmur3(bytes, h1);
@@ -50,7 +83,7 @@ public class BloomFilter implements Serializable {
     }
 
     public int exists(String item) {
-        byte[] bytes = item.getBytes(StandardCharsets.UTF_8);
+        byte[] bytes = item.getBytes(ByteStrings.CHARSET);
         int h1 = murmur3(bytes, 0);
         int h2 = murmur3(bytes, h1);
         
@@ -1,101 +1,795 @@
 package core.structs;
 
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentSkipListSet;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
-import java.util.NavigableSet;
-
-public class CaradeZSet implements Serializable {
-    private static final long serialVersionUID = 1L;
-    
-    public final ConcurrentHashMap<String, Double> scores = new ConcurrentHashMap<>();
-    public final ConcurrentSkipListSet<ZNode> sorted = new ConcurrentSkipListSet<>();
-
-    public NavigableSet<ZNode> rangeByScore(double min, boolean minInclusive, double max, boolean maxInclusive) {
-        ZNode start = null;
-        if (min == Double.NEGATIVE_INFINITY && minInclusive) {
-            start = null;
-        } else {
-            if (minInclusive) {
-                start = new ZNode(min, "");
-            } else {
-                start = new ZNode(Math.nextUp(min), "");
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Sorted set value. While it has at most zset-max-listpack-entries members, none longer
+ * than zset-max-listpack-value bytes, it is a {@link Listpack} of member, score pairs in
+ * (score, member) order, scanned linearly. Past that it is promoted for good to a skip
+ * list ordered by (score, member), as Redis' zskiplist, plus a member to node map. Every
+ * link carries its span (how many elements it skips), so the rank of a member and the
+ * member at a rank are found in O(log n) like a lookup; ZSCORE is a map lookup. Scores
+ * are primitive doubles in the nodes (8-byte entries in the listpack).
+ *
+ * Not thread-safe: commands on a key are serialized by its lock (see LockManager), and
+ * snapshots work on copies.
+ */
+public class CaradeZSet implements Iterable<ZNode>, Serializable {
+    private static final long serialVersionUID = 2L;
+
+    static final int MAX_LEVEL = 32;
+
+    private static final class Node extends ZNode {
+        final Node[] next;
+        // span[i]: elements from this node to next[i] (to the end of the list if null)
+        final int[] span;
+        Node prev;
+
+        Node(int level, double score, String member) {
+            super(score, member);
+            next = new Node[level];
+            span = new int[level];
+        }
+    }
+
+    // Member, score pairs while listpack-encoded, else null
+    private transient byte[] packed;
+    private transient Node head;
+    private transient Node tail;
+    private transient int level;
+    // Elements, in either encoding
+    private transient int length;
+    private transient HashMap<String, Node> dict;
+
+    public CaradeZSet() {
+        packed = Listpack.EMPTY;
+    }
+
+    /**
+     * OBJECT ENCODING name of the current encoding.
+     */
+    public String encoding() {
+        return packed != null ? "listpack" : "skiplist";
+    }
+
+    /**
+     * Bytes of the listpack array, or -1 once promoted.
+     */
+    public int packedBytes() {
+        return packed != null ? packed.length : -1;
+    }
+
+    private void initSkipList() {
+        packed = null;
+        head = new Node(MAX_LEVEL, 0, null);
+        tail = null;
+        level = 1;
+        length = 0;
+        dict = new HashMap<>();
+    }
+
+    // Each next level with probability 1/4
+    private static int randomLevel() {
+        int lvl = 1;
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (lvl < MAX_LEVEL && random.nextInt(4) == 0) lvl++;
+        return lvl;
+    }
+
+    // Whether x sorts before (score, member)
+    private static boolean before(Node x, double score, String member) {
+        int c = Double.compare(x.score, score);
+        return c < 0 || (c == 0 && x.member.compareTo(member) < 0);
+    }
+
+    private Node insert(double score, String member) {
+        Node[] update = new Node[MAX_LEVEL];
+        int[] rank = new int[MAX_LEVEL];
+        Node x = head;
+        for (int i = level - 1; i >= 0; i--) {
+            rank[i] = i == level - 1 ? 0 : rank[i + 1];
+            while (x.next[i] != null && before(x.next[i], score, member)) {
+                rank[i] += x.span[i];
+                x = x.next[i];
+            }
+            update[i] = x;
+        }
+        int lvl = randomLevel();
+        if (lvl > level) {
+            for (int i = level; i < lvl; i++) {
+                rank[i] = 0;
+                update[i] = head;
+                head.span[i] = length;
             }
+            level = lvl;
+        }
+        Node n = new Node(lvl, score, member);
+        for (int i = 0; i < lvl; i++) {
+            n.next[i] = update[i].next[i];
+            update[i].next[i] = n;
+            n.span[i] = update[i].span[i] - (rank[0] - rank[i]);
+            update[i].span[i] = rank[0] - rank[i] + 1;
         }
+        for (int i = lvl; i < level; i++) update[i].span[i]++;
+        n.prev = update[0] == head ? null : update[0];
+        if (n.next[0] != null) n.next[0].prev = n;
+        else tail = n;
+        length++;
+        return n;
+    }
 
-        ZNode end = null;
-        if (max == Double.POSITIVE_INFINITY && maxInclusive) {
-            end = null;
-        } else {
-            if (maxInclusive) {
-                if (max == Double.POSITIVE_INFINITY) end = null;
-                else end = new ZNode(Math.nextUp(max), "");
+    // Unlinks x, given its predecessor at every level
+    private void unlink(Node x, Node[] update) {
+        for (int i = 0; i < level; i++) {
+            if (update[i].next[i] == x) {
+                update[i].span[i] += x.span[i] - 1;
+                update[i].next[i] = x.next[i];
             } else {
-                end = new ZNode(max, "");
+                update[i].span[i]--;
+            }
+        }
+        if (x.next[0] != null) x.next[0].prev = x.prev;
+        else tail = x.prev;
+        while (level > 1 && head.next[level - 1] == null) level--;
+        length--;
+    }
+
+    private void delete(Node n) {
+        Node[] update = new Node[MAX_LEVEL];
+        Node x = head;
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.next[i] != null && before(x.next[i], n.score, n.member)) x = x.next[i];
+            update[i] = x;
+        }
+        unlink(n, update);
+    }
+
+    // 0-based rank of n
+    private long rank(Node n) {
+        long rank = 0;
+        Node x = head;
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.next[i] != null && (x.next[i] == n || before(x.next[i], n.score, n.member))) {
+                rank += x.span[i];
+                x = x.next[i];
             }
+            if (x == n) return rank - 1;
+        }
+        return -1;
+    }
+
+    // Node at 0-based rank, or null
+    private Node nodeAt(long rank) {
+        if (rank < 0 || rank >= length) return null;
+        long target = rank + 1;
+        long traversed = 0;
+        Node x = head;
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.next[i] != null && traversed + x.span[i] <= target) {
+                traversed += x.span[i];
+                x = x.next[i];
+            }
+            if (traversed == target) return x;
+        }
+        return null;
+    }
+
+    // Removes the elements of 0-based ranks start..stop (valid), in order
+    private List<ZNode> removeRanks(long start, long stop) {
+        byte[] lp = packed;
+        if (lp != null) {
+            int from = Listpack.offset(lp, (int) start * 2);
+            List<ZNode> removed = elements(lp, from, (int) (stop - start + 1));
+            int to = Listpack.offset(lp, (int) (stop + 1) * 2);
+            packed = Listpack.remove(lp, from, to);
+            length -= removed.size();
+            return removed;
+        }
+        Node[] update = new Node[MAX_LEVEL];
+        long traversed = 0;
+        Node x = head;
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.next[i] != null && traversed + x.span[i] <= start) {
+                traversed += x.span[i];
+                x = x.next[i];
+            }
+            update[i] = x;
+        }
+        List<ZNode> removed = new ArrayList<>((int) Math.min(stop - start + 1, 1024));
+        x = x.next[0];
+        for (long r = start; x != null && r <= stop; r++) {
+            Node next = x.next[0];
+            unlink(x, update);
+            dict.remove(x.member);
+            removed.add(x);
+            x = next;
+        }
+        return removed;
+    }
+
+    // --- Listpack encoding ---
+
+    // The element whose member entry is at pos
+    private static ZNode element(byte[] lp, int pos) {
+        return new ZNode(Listpack.score(lp, Listpack.next(lp, pos)), Listpack.get(lp, pos));
+    }
+
+    // count elements from the member entry at pos on, in order
+    private static List<ZNode> elements(byte[] lp, int pos, int count) {
+        List<ZNode> out = new ArrayList<>(count);
+        for (int i = 0; i < count && pos < lp.length; i++) {
+            out.add(element(lp, pos));
+            pos = Listpack.next(lp, Listpack.next(lp, pos));
+        }
+        return out;
+    }
+
+    // Position of the first pair that sorts after (score, member)
+    private static int insertPosition(byte[] lp, double score, String member) {
+        int pos = 0;
+        while (pos < lp.length) {
+            int s = Listpack.next(lp, pos);
+            int c = Double.compare(Listpack.score(lp, s), score);
+            if (c > 0 || (c == 0 && Listpack.get(lp, pos).compareTo(member) > 0)) return pos;
+            pos = Listpack.next(lp, s);
         }
+        return pos;
+    }
+
+    private static boolean fits(int count, byte[] member) {
+        return count <= Listpack.config().zsetMaxListpackEntries
+                && member.length <= Listpack.config().zsetMaxListpackValue;
+    }
 
-        if (start == null && end == null) return sorted;
-        if (start == null) return sorted.headSet(end);
-        if (end == null) return sorted.tailSet(start);
-        return sorted.subSet(start, end);
+    // Moves the elements to a skip list
+    private void promote() {
+        List<ZNode> elements = elements(packed, 0, length);
+        initSkipList();
+        appendAll(elements);
+    }
+
+    // Takes the elements (in order, distinct) in the encoding they fit
+    private void load(List<ZNode> elements) {
+        int count = elements.size();
+        byte[][] entries = count <= Listpack.config().zsetMaxListpackEntries ? new byte[count * 2][] : null;
+        for (int i = 0; entries != null && i < count; i++) {
+            ZNode e = elements.get(i);
+            byte[] m = Listpack.bytes(e.member);
+            if (!fits(count, m)) {
+                entries = null;
+            } else {
+                entries[2 * i] = m;
+                entries[2 * i + 1] = Listpack.scoreBytes(e.score);
+            }
+        }
+        if (entries != null) {
+            packed = Listpack.insert(Listpack.EMPTY, 0, entries);
+            length = count;
+        } else {
+            initSkipList();
+            appendAll(elements);
+        }
     }
 
     public int add(double score, String member) {
-        Double oldScore = scores.get(member);
-        if (oldScore != null) {
-            if (oldScore == score) return 0;
-            sorted.remove(new ZNode(oldScore, member));
-            scores.put(member, score);
-            sorted.add(new ZNode(score, member));
+        byte[] lp = packed;
+        if (lp != null) {
+            byte[] m = Listpack.bytes(member);
+            int pos = Listpack.find(lp, m, 2);
+            if (pos >= 0) {
+                int s = Listpack.next(lp, pos);
+                if (Listpack.score(lp, s) == score) return 0;
+                lp = Listpack.remove(lp, pos, Listpack.next(lp, s));
+                packed = Listpack.insert(lp, insertPosition(lp, score, member), m, Listpack.scoreBytes(score));
+                return 0; // Updated
+            }
+            if (fits(length + 1, m)) {
+                packed = Listpack.insert(lp, insertPosition(lp, score, member), m, Listpack.scoreBytes(score));
+                length++;
+                return 1; // New
+            }
+            promote();
+        }
+        Node n = dict.get(member);
+        if (n != null) {
+            if (n.score == score) return 0;
+            if ((n.prev == null || before(n.prev, score, member))
+                    && (n.next[0] == null || !before(n.next[0], score, member))) {
+                n.score = score; // Same place in the order
+            } else {
+                delete(n);
+                dict.put(member, insert(score, member));
+            }
             return 0; // Updated
         }
-        scores.put(member, score);
-        sorted.add(new ZNode(score, member));
+        dict.put(member, insert(score, member));
         return 1; // New
     }
 
     public Double score(String member) {
-        return scores.get(member);
+        byte[] lp = packed;
+        if (lp != null) {
+            int pos = Listpack.find(lp, Listpack.bytes(member), 2);
+            return pos < 0 ? null : Listpack.score(lp, Listpack.next(lp, pos));
+        }
+        Node n = dict.get(member);
+        return n == null ? null : n.score;
+    }
+
+    public boolean contains(String member) {
+        byte[] lp = packed;
+        if (lp != null) return Listpack.find(lp, Listpack.bytes(member), 2) >= 0;
+        return dict.containsKey(member);
     }
 
     public int size() {
-        return scores.size();
+        return length;
+    }
+
+    public boolean isEmpty() {
+        return length == 0;
     }
 
     public double incrBy(double increment, String member) {
-        Double oldScore = scores.get(member);
-        double newScore = (oldScore == null ? 0 : oldScore) + increment;
+        Double old = score(member);
+        double newScore = (old == null ? 0 : old) + increment;
         add(newScore, member);
         return newScore;
     }
 
-    public java.util.List<ZNode> popMin(int count) {
-        java.util.List<ZNode> result = new java.util.ArrayList<>();
-        for (int i = 0; i < count; i++) {
-            ZNode node = sorted.pollFirst();
-            if (node == null) break;
-            scores.remove(node.member);
-            result.add(node);
+    public boolean remove(String member) {
+        byte[] lp = packed;
+        if (lp != null) {
+            int pos = Listpack.find(lp, Listpack.bytes(member), 2);
+            if (pos < 0) return false;
+            packed = Listpack.remove(lp, pos, Listpack.next(lp, Listpack.next(lp, pos)));
+            length--;
+            return true;
+        }
+        Node n = dict.remove(member);
+        if (n == null) return false;
+        delete(n);
+        return true;
+    }
+
+    public void clear() {
+        if (packed != null) {
+            packed = Listpack.EMPTY;
+            length = 0;
+        } else {
+            initSkipList();
+        }
+    }
+
+    /**
+     * 0-based rank of member by ascending score, or -1 if absent.
+     */
+    public long rank(String member) {
+        byte[] lp = packed;
+        if (lp != null) {
+            byte[] m = Listpack.bytes(member);
+            long rank = 0;
+            for (int pos = 0; pos < lp.length; pos = Listpack.next(lp, Listpack.next(lp, pos)), rank++) {
+                if (Listpack.matches(lp, pos, m)) return rank;
+            }
+            return -1;
+        }
+        Node n = dict.get(member);
+        return n == null ? -1 : rank(n);
+    }
+
+    /**
+     * 0-based rank of member by descending score, or -1 if absent.
+     */
+    public long revRank(String member) {
+        long rank = rank(member);
+        return rank < 0 ? -1 : length - 1 - rank;
+    }
+
+    /**
+     * The element at a 0-based ascending rank, or null.
+     */
+    public ZNode byRank(long rank) {
+        byte[] lp = packed;
+        if (lp != null) {
+            if (rank < 0 || rank >= length) return null;
+            return element(lp, Listpack.offset(lp, (int) rank * 2));
+        }
+        return nodeAt(rank);
+    }
+
+    public ZNode first() {
+        return packed != null ? byRank(0) : head.next[0];
+    }
+
+    public ZNode last() {
+        return packed != null ? byRank(length - 1L) : tail;
+    }
+
+    public List<ZNode> popMin(int count) {
+        if (count <= 0 || length == 0) return new ArrayList<>();
+        return removeRanks(0, Math.min(count, length) - 1L);
+    }
+
+    public List<ZNode> popMax(int count) {
+        if (count <= 0 || length == 0) return new ArrayList<>();
+        List<ZNode> removed = removeRanks(Math.max(0, length - count), length - 1L);
+        Collections.reverse(removed);
+        return removed;
+    }
+
+    /**
+     * Elements from start to stop, ZRANGE indexes: 0-based ascending ranks, negative ones
+     * counting from the end, clamped to the set.
+     */
+    public Range rangeByRank(long start, long stop) {
+        if (start < 0) start += length;
+        if (stop < 0) stop += length;
+        if (start < 0) start = 0;
+        if (stop >= length) stop = length - 1L;
+        return new Range(start, stop);
+    }
+
+    /**
+     * Elements from start to stop of the descending order (ZREVRANGE indexes), as the
+     * ascending range they span: iterate it with {@link Range#descendingIterator}.
+     */
+    public Range revRangeByRank(long start, long stop) {
+        if (start < 0) start += length;
+        if (stop < 0) stop += length;
+        if (start < 0) start = 0;
+        if (stop >= length) stop = length - 1L;
+        return new Range(length - 1 - stop, length - 1 - start);
+    }
+
+    public Range rangeByScore(double min, boolean minInclusive, double max, boolean maxInclusive) {
+        if (min > max || (min == max && !(minInclusive && maxInclusive))) return empty();
+        byte[] lp = packed;
+        if (lp != null) {
+            long first = -1;
+            long last = -1;
+            long rank = 0;
+            for (int pos = 0; pos < lp.length; rank++) {
+                int s = Listpack.next(lp, pos);
+                double score = Listpack.score(lp, s);
+                if (!belowMax(score, max, maxInclusive)) break;
+                if (first < 0 && aboveMin(score, min, minInclusive)) first = rank;
+                if (first >= 0) last = rank;
+                pos = Listpack.next(lp, s);
+            }
+            return first < 0 ? empty() : new Range(first, last);
+        }
+        // First node in range: skip every node under min
+        Node x = head;
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.next[i] != null && !aboveMin(x.next[i].score, min, minInclusive)) x = x.next[i];
+        }
+        Node first = x.next[0];
+        if (first == null || !belowMax(first.score, max, maxInclusive)) return empty();
+        // Last node in range: go as far as max allows
+        x = head;
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.next[i] != null && belowMax(x.next[i].score, max, maxInclusive)) x = x.next[i];
+        }
+        return new Range(rank(first), rank(x));
+    }
+
+    private static boolean aboveMin(double score, double min, boolean inclusive) {
+        return inclusive ? score >= min : score > min;
+    }
+
+    private static boolean belowMax(double score, double max, boolean inclusive) {
+        return inclusive ? score <= max : score < max;
+    }
+
+    /**
+     * Members between min and max in byte order, which is the set order when all scores
+     * are equal (ZRANGEBYLEX and friends).
+     */
+    public Range rangeByLex(LexRange range) {
+        if (range.isEmpty()) return empty();
+        byte[] lp = packed;
+        if (lp != null) {
+            long first = -1;
+            long last = -1;
+            long rank = 0;
+            for (int pos = 0; pos < lp.length; rank++) {
+                String member = Listpack.get(lp, pos);
+                if (!range.belowMax(member)) break;
+                if (first < 0 && range.aboveMin(member)) first = rank;
+                if (first >= 0) last = rank;
+                pos = Listpack.next(lp, Listpack.next(lp, pos));
+            }
+            return first < 0 ? empty() : new Range(first, last);
+        }
+        Node x = head;
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.next[i] != null && !range.aboveMin(x.next[i].member)) x = x.next[i];
+        }
+        Node first = x.next[0];
+        if (first == null || !range.belowMax(first.member)) return empty();
+        x = head;
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.next[i] != null && range.belowMax(x.next[i].member)) x = x.next[i];
+        }
+        return new Range(rank(first), rank(x));
+    }
+
+    private Range empty() {
+        return new Range(0, -1);
+    }
+
+    /**
+     * A run of consecutive elements, the ascending ranks first to last. Valid until the
+     * set changes.
+     */
+    public final class Range implements Iterable<ZNode> {
+        private final long first;
+        // Before first if empty
+        private final long last;
+
+        private Range(long first, long last) {
+            this.first = first;
+            this.last = last;
+        }
+
+        public boolean isEmpty() {
+            return first > last;
+        }
+
+        public long size() {
+            return isEmpty() ? 0 : last - first + 1;
+        }
+
+        @Override
+        public Iterator<ZNode> iterator() {
+            return iterator(0);
+        }
+
+        /**
+         * Ascending, from the offset-th element of the range (found by rank).
+         */
+        public Iterator<ZNode> iterator(long offset) {
+            if (offset < 0 || first + offset > last) return Collections.emptyIterator();
+            return ascending(first + offset, last);
+        }
+
+        public Iterator<ZNode> descendingIterator() {
+            return descendingIterator(0);
+        }
+
+        /**
+         * Descending, from the offset-th element from the end of the range.
+         */
+        public Iterator<ZNode> descendingIterator(long offset) {
+            if (offset < 0 || last - offset < first) return Collections.emptyIterator();
+            return descending(last - offset, first);
+        }
+
+        /**
+         * Removes the elements of the range from the set; returns how many.
+         */
+        public long remove() {
+            if (isEmpty()) return 0;
+            return removeRanks(first, last).size();
+        }
+    }
+
+    // Elements of ranks from..to (valid, from <= to), ascending
+    private Iterator<ZNode> ascending(long from, long to) {
+        byte[] lp = packed;
+        if (lp != null) return elements(lp, Listpack.offset(lp, (int) from * 2), (int) (to - from + 1)).iterator();
+        return new Walk(nodeAt(from), nodeAt(to), false);
+    }
+
+    // Elements of ranks from..to (valid, from >= to), descending
+    private Iterator<ZNode> descending(long from, long to) {
+        byte[] lp = packed;
+        if (lp != null) {
+            List<ZNode> elements = elements(lp, Listpack.offset(lp, (int) to * 2), (int) (from - to + 1));
+            Collections.reverse(elements);
+            return elements.iterator();
         }
-        return result;
+        return new Walk(nodeAt(from), nodeAt(to), true);
     }
 
-    public java.util.List<ZNode> popMax(int count) {
-        java.util.List<ZNode> result = new java.util.ArrayList<>();
-        for (int i = 0; i < count; i++) {
-            ZNode node = sorted.pollLast();
-            if (node == null) break;
-            scores.remove(node.member);
-            result.add(node);
+    // Follows the level 0 links from start to end, both included
+    private static final class Walk implements Iterator<ZNode> {
+        private Node next;
+        private final Node end;
+        private final boolean descending;
+
+        Walk(Node start, Node end, boolean descending) {
+            this.next = start;
+            this.end = end;
+            this.descending = descending;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public ZNode next() {
+            Node n = next;
+            if (n == null) throw new NoSuchElementException();
+            next = n == end ? null : descending ? n.prev : n.next[0];
+            return n;
         }
-        return result;
+    }
+
+    @Override
+    public Iterator<ZNode> iterator() {
+        if (packed != null) return elements(packed, 0, length).iterator();
+        return new Walk(head.next[0], tail, false);
+    }
+
+    public Iterator<ZNode> descendingIterator() {
+        if (packed == null) return new Walk(tail, head.next[0], true);
+        return length == 0 ? Collections.emptyIterator() : descending(length - 1L, 0);
+    }
+
+    /**
+     * Iterator for ZSCAN cursors, which live across commands: walks the members as they
+     * were when it was created, skipping those removed since, with their current scores.
+     */
+    public Iterator<ZNode> scanIterator() {
+        String[] members = new String[length];
+        int i = 0;
+        for (Iterator<ZNode> it = iterator(); it.hasNext(); ) members[i++] = it.next().member;
+        return new Iterator<ZNode>() {
+            private int pos;
+            private ZNode next;
+
+            @Override
+            public boolean hasNext() {
+                while (next == null && pos < members.length) {
+                    String member = members[pos++];
+                    Double score = score(member);
+                    if (score != null) next = new ZNode(score, member);
+                }
+                return next != null;
+            }
+
+            @Override
+            public ZNode next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                ZNode n = next;
+                next = null;
+                return n;
+            }
+        };
+    }
+
+    /**
+     * A member picked uniformly at random (by rank), or null if empty.
+     */
+    public ZNode randomMember() {
+        return length == 0 ? null : byRank(ThreadLocalRandom.current().nextInt(length));
     }
 
     public CaradeZSet copy() {
         CaradeZSet copy = new CaradeZSet();
-        copy.scores.putAll(this.scores);
-        copy.sorted.addAll(this.sorted);
+        if (packed != null) {
+            copy.packed = packed; // Never changed in place
+            copy.length = length;
+        } else {
+            copy.initSkipList();
+            copy.appendAll(this);
+        }
         return copy;
     }
+
+    // Appends the elements of source, all after the current ones, without searching
+    private void appendAll(Iterable<ZNode> source) {
+        Node[] update = new Node[MAX_LEVEL];
+        int[] rank = new int[MAX_LEVEL];
+        Arrays.fill(update, head);
+        for (ZNode e : source) {
+            int lvl = randomLevel();
+            if (lvl > level) level = lvl;
+            Node n = new Node(lvl, e.score, e.member);
+            int r = length + 1;
+            for (int i = 0; i < lvl; i++) {
+                update[i].next[i] = n;
+                update[i].span[i] = r - rank[i];
+                update[i] = n;
+                rank[i] = r;
+            }
+            n.prev = tail;
+            tail = n;
+            length = r;
+            dict.put(n.member, n);
+        }
+        for (int i = 0; i < level; i++) update[i].span[i] = length - rank[i];
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        out.writeInt(length);
+        for (ZNode e : this) {
+            out.writeObject(e.member);
+            out.writeDouble(e.score);
+        }
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        List<ZNode> elements = new ArrayList<>();
+        for (int i = in.readInt(); i > 0; i--) {
+            String member = (String) in.readObject();
+            elements.add(new ZNode(in.readDouble(), member));
+        }
+        load(elements);
+    }
+
+    /**
+     * A ZRANGEBYLEX interval: "-" and "+" for the ends, "[m" for m included, "(m" for
+     * excluded.
+     */
+    public static final class LexRange {
+        // null: unbounded
+        final String min;
+        final String max;
+        final boolean minInclusive;
+        final boolean maxInclusive;
+        // "+" as min or "-" as max: nothing
+        private final boolean nothing;
+
+        private LexRange(String min, boolean minInclusive, String max, boolean maxInclusive, boolean nothing) {
+            this.min = min;
+            this.minInclusive = minInclusive;
+            this.max = max;
+            this.maxInclusive = maxInclusive;
+            this.nothing = nothing;
+        }
+
+        /**
+         * The interval of two ZRANGEBYLEX bounds, or null if one is malformed.
+         */
+        public static LexRange parse(String min, String max) {
+            boolean nothing = min.equals("+") || max.equals("-");
+            if (!valid(min) || !valid(max)) return null;
+            return new LexRange(bound(min), min.startsWith("["), bound(max), max.startsWith("["), nothing);
+        }
+
+        private static boolean valid(String bound) {
+            return bound.equals("-") || bound.equals("+") || bound.startsWith("[") || bound.startsWith("(");
+        }
+
+        private static String bound(String bound) {
+            return bound.equals("-") || bound.equals("+") ? null : bound.substring(1);
+        }
+
+        boolean isEmpty() {
+            if (nothing) return true;
+            if (min == null || max == null) return false;
+            int c = min.compareTo(max);
+            return c > 0 || (c == 0 && !(minInclusive && maxInclusive));
+        }
+
+        boolean aboveMin(String member) {
+            if (min == null) return true;
+            int c = member.compareTo(min);
+            return minInclusive ? c >= 0 : c > 0;
+        }
+
+        boolean belowMax(String member) {
+            if (max == null) return true;
+            int c = member.compareTo(max);
+            return maxInclusive ? c <= 0 : c < 0;
+        }
+    }
 }
@@ -1,5 +1,7 @@
 package core.structs;
 
+import core.utils.ByteStrings;
+
 import java.io.Serializable;
 
 /**
@@ -22,6 +24,21 @@ public class HyperLogLog implements Serializable {
     public HyperLogLog() {
         this.registers = new byte[M];
     }
+
+    /**
+     * Number of registers.
+     */
+    public static int registerCount() {
+        return M;
+    }
+
+    /**
+     * The live register array (one byte per register), for serialization: a snapshot reads it
+     * as is and a loader fills a fresh instance in place.
+     */
+    public byte[] getRegisters() {
+        return registers;
+    }
     
     /**
      * Merge another HLL into this one.
@@ -40,7 +57,7 @@ public class HyperLogLog implements Serializable {
      * Add an element. Returns true if internal state changed.
      */
     public boolean add(String element) {
-        long hash = MurmurHash64A.hash(element.getBytes());
+        long hash = MurmurHash64A.hash(element.getBytes(ByteStrings.CHARSET));
         return add(hash);
     }
     
@@ -0,0 +1,226 @@
+package core.structs;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+/**
+ * Encoding of sets of integers, laid out as a Redis intset: the encoding (bytes per
+ * value: 2, 4 or 8) and the length as little-endian 32-bit ints, then the values sorted
+ * ascending, little-endian. The RDB intset type stores the array as is.
+ *
+ * All values share the narrowest width that fits the largest; adding a value that does
+ * not fit rewrites the array at the next width. Like {@link Listpack}, arrays are never
+ * changed once built.
+ */
+public final class IntSet {
+    public static final int ENC_INT16 = 2;
+    public static final int ENC_INT32 = 4;
+    public static final int ENC_INT64 = 8;
+    private static final int HEADER = 8;
+
+    private static final VarHandle SHORT = MethodHandles.byteArrayViewVarHandle(short[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final VarHandle INT = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final VarHandle LONG = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    public static final byte[] EMPTY = create(ENC_INT16, 0);
+
+    private IntSet() {}
+
+    private static byte[] create(int encoding, int length) {
+        byte[] is = new byte[HEADER + length * encoding];
+        INT.set(is, 0, encoding);
+        INT.set(is, 4, length);
+        return is;
+    }
+
+    public static int encoding(byte[] is) {
+        return (int) INT.get(is, 0);
+    }
+
+    public static int length(byte[] is) {
+        return (int) INT.get(is, 4);
+    }
+
+    public static long get(byte[] is, int index) {
+        return get(is, encoding(is), index);
+    }
+
+    private static long get(byte[] is, int encoding, int index) {
+        int pos = HEADER + index * encoding;
+        switch (encoding) {
+            case ENC_INT16: return (short) SHORT.get(is, pos);
+            case ENC_INT32: return (int) INT.get(is, pos);
+            default: return (long) LONG.get(is, pos);
+        }
+    }
+
+    private static void set(byte[] is, int encoding, int index, long value) {
+        int pos = HEADER + index * encoding;
+        switch (encoding) {
+            case ENC_INT16: SHORT.set(is, pos, (short) value); break;
+            case ENC_INT32: INT.set(is, pos, (int) value); break;
+            default: LONG.set(is, pos, value);
+        }
+    }
+
+    /**
+     * Bytes per value needed for value.
+     */
+    public static int encodingOf(long value) {
+        if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) return ENC_INT16;
+        if (value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE) return ENC_INT32;
+        return ENC_INT64;
+    }
+
+    /**
+     * Index of value, or -(insertion point) - 1 like {@link java.util.Arrays#binarySearch}.
+     */
+    public static int search(byte[] is, long value) {
+        int encoding = encoding(is);
+        if (encodingOf(value) > encoding) return value < 0 ? -1 : -length(is) - 1;
+        return search(is, encoding, 0, length(is), value);
+    }
+
+    private static int search(byte[] is, int encoding, int from, int to, long value) {
+        int lo = from, hi = to - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            long v = get(is, encoding, mid);
+            if (v < value) lo = mid + 1;
+            else if (v > value) hi = mid - 1;
+            else return mid;
+        }
+        return -(lo + 1);
+    }
+
+    public static boolean contains(byte[] is, long value) {
+        return search(is, value) >= 0;
+    }
+
+    /**
+     * A copy of is with value added, upgrading the width if needed, or is itself if value
+     * is already in.
+     */
+    public static byte[] add(byte[] is, long value) {
+        int encoding = encoding(is);
+        int length = length(is);
+        int needed = encodingOf(value);
+        if (needed > encoding) {
+            // Out of range of every current value: goes first if negative, else last
+            byte[] out = create(needed, length + 1);
+            int shift = value < 0 ? 1 : 0;
+            for (int i = 0; i < length; i++) set(out, needed, i + shift, get(is, encoding, i));
+            set(out, needed, value < 0 ? 0 : length, value);
+            return out;
+        }
+        int index = search(is, encoding, 0, length, value);
+        if (index >= 0) return is;
+        index = -index - 1;
+        byte[] out = create(encoding, length + 1);
+        int at = HEADER + index * encoding;
+        System.arraycopy(is, HEADER, out, HEADER, at - HEADER);
+        set(out, encoding, index, value);
+        System.arraycopy(is, at, out, at + encoding, is.length - at);
+        return out;
+    }
+
+    /**
+     * A copy of is without value, or is itself if value is not in.
+     */
+    public static byte[] remove(byte[] is, long value) {
+        int index = search(is, value);
+        if (index < 0) return is;
+        int encoding = encoding(is);
+        byte[] out = create(encoding, length(is) - 1);
+        int at = HEADER + index * encoding;
+        System.arraycopy(is, HEADER, out, HEADER, at - HEADER);
+        System.arraycopy(is, at + encoding, out, at, is.length - at - encoding);
+        return out;
+    }
+
+    /**
+     * The values in both a and b: a merge when they have similar lengths, else a binary
+     * search of each value of the shorter in the longer.
+     */
+    public static byte[] intersect(byte[] a, byte[] b) {
+        if (length(a) > length(b)) {
+            byte[] t = a;
+            a = b;
+            b = t;
+        }
+        int encA = encoding(a), encB = encoding(b);
+        int lenA = length(a), lenB = length(b);
+        long[] out = new long[lenA];
+        int n = 0;
+        if ((long) lenA * 32 < lenB) {
+            int from = 0;
+            for (int i = 0; i < lenA && from < lenB; i++) {
+                long v = get(a, encA, i);
+                int index = search(b, encB, from, lenB, v);
+                if (index >= 0) {
+                    out[n++] = v;
+                    from = index + 1;
+                } else {
+                    from = -index - 1;
+                }
+            }
+        } else {
+            int i = 0, j = 0;
+            while (i < lenA && j < lenB) {
+                long x = get(a, encA, i), y = get(b, encB, j);
+                if (x < y) i++;
+                else if (x > y) j++;
+                else {
+                    out[n++] = x;
+                    i++;
+                    j++;
+                }
+            }
+        }
+        // Every value fits the narrower of the two widths
+        int encoding = Math.min(encA, encB);
+        byte[] is = create(encoding, n);
+        for (int i = 0; i < n; i++) set(is, encoding, i, out[i]);
+        return is;
+    }
+
+    /**
+     * Whether is is a well-formed intset: a known encoding, the length matching the size,
+     * values strictly ascending.
+     */
+    public static boolean isValid(byte[] is) {
+        if (is.length < HEADER) return false;
+        int encoding = encoding(is);
+        if (encoding != ENC_INT16 && encoding != ENC_INT32 && encoding != ENC_INT64) return false;
+        int length = length(is);
+        if (length < 0 || (long) HEADER + (long) length * encoding != is.length) return false;
+        for (int i = 1; i < length; i++) {
+            if (get(is, encoding, i - 1) >= get(is, encoding, i)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Whether s is the canonical decimal form of a long (no sign on 0, no leading zeros or
+     * '+'), so that it can be stored as one and printed back unchanged.
+     */
+    public static boolean isInteger(String s) {
+        int len = s.length();
+        if (len == 0 || len > 20) return false;
+        int start = s.charAt(0) == '-' ? 1 : 0;
+        if (start == len) return false;
+        if (s.charAt(start) == '0') return len == 1;
+        for (int i = start; i < len; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') return false;
+        }
+        if (len - start < 19) return true;
+        try {
+            Long.parseLong(s);
+            return true;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+}
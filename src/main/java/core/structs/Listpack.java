@@ -0,0 +1,181 @@
+package core.structs;
+
+import core.Config;
+import core.utils.ByteStrings;
+
+/**
+ * Packed encoding of small collections: the elements one after the other in a single
+ * byte[], each a varint length and its bytes (elements are byte strings, see ByteStrings).
+ *
+ * Arrays are never changed once built: every insert, removal or replacement returns a new
+ * array (like the realloc of a Redis listpack). An iterator can keep walking the array it
+ * started on, whatever the collection does meanwhile.
+ *
+ * Positions are byte offsets of entries; the entry at pos ends at {@link #next}.
+ */
+public final class Listpack {
+    public static final byte[] EMPTY = new byte[0];
+
+    // Config of the current database, for the *-max-listpack-* thresholds
+    private static volatile Config config = new Config();
+
+    private Listpack() {}
+
+    public static void use(Config config) {
+        Listpack.config = config;
+    }
+
+    public static Config config() {
+        return config;
+    }
+
+    /**
+     * Whether a list of count elements taking bytes bytes fits list-max-listpack-size:
+     * a number of elements if positive, else a size class (-1: 4KB ... -5: 64KB).
+     */
+    public static boolean listFits(int count, int bytes) {
+        int limit = config.listMaxListpackSize;
+        if (limit > 0) return count <= limit;
+        int sizeClass = Math.min(5, Math.max(1, -limit));
+        return bytes <= 4096 << (sizeClass - 1);
+    }
+
+    public static byte[] bytes(Object s) {
+        return ((String) s).getBytes(ByteStrings.CHARSET);
+    }
+
+    // Length of the entry at pos
+    private static int length(byte[] lp, int pos) {
+        int len = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = lp[pos++];
+            len |= (b & 0x7F) << shift;
+            if (b >= 0) return len;
+        }
+    }
+
+    private static int headerSize(int len) {
+        int n = 1;
+        while ((len >>>= 7) != 0) n++;
+        return n;
+    }
+
+    private static int data(byte[] lp, int pos) {
+        while (lp[pos] < 0) pos++;
+        return pos + 1;
+    }
+
+    public static int next(byte[] lp, int pos) {
+        int len = length(lp, pos);
+        return pos + headerSize(len) + len;
+    }
+
+    public static String get(byte[] lp, int pos) {
+        int len = length(lp, pos);
+        return new String(lp, pos + headerSize(len), len, ByteStrings.CHARSET);
+    }
+
+    /**
+     * A sorted set score entry: the 8 bytes of the double, big-endian.
+     */
+    public static byte[] scoreBytes(double score) {
+        long bits = Double.doubleToLongBits(score);
+        byte[] b = new byte[8];
+        for (int i = 7; i >= 0; i--) {
+            b[i] = (byte) bits;
+            bits >>>= 8;
+        }
+        return b;
+    }
+
+    public static double score(byte[] lp, int pos) {
+        int d = data(lp, pos);
+        long bits = 0;
+        for (int i = 0; i < 8; i++) bits = (bits << 8) | (lp[d + i] & 0xFF);
+        return Double.longBitsToDouble(bits);
+    }
+
+    public static boolean matches(byte[] lp, int pos, byte[] value) {
+        int len = length(lp, pos);
+        if (len != value.length) return false;
+        int d = data(lp, pos);
+        for (int i = 0; i < len; i++) {
+            if (lp[d + i] != value[i]) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Position of the first of every stride entries (1: all, 2: map keys) equal to value,
+     * or -1.
+     */
+    public static int find(byte[] lp, byte[] value, int stride) {
+        int pos = 0;
+        while (pos < lp.length) {
+            if (matches(lp, pos, value)) return pos;
+            for (int i = 0; i < stride; i++) pos = next(lp, pos);
+        }
+        return -1;
+    }
+
+    /**
+     * Position of the index-th entry (lp.length past the last one).
+     */
+    public static int offset(byte[] lp, int index) {
+        int pos = 0;
+        for (int i = 0; i < index && pos < lp.length; i++) pos = next(lp, pos);
+        return pos;
+    }
+
+    public static int entrySize(byte[] value) {
+        return headerSize(value.length) + value.length;
+    }
+
+    /**
+     * A copy of lp with values inserted as entries at pos.
+     */
+    public static byte[] insert(byte[] lp, int pos, byte[]... values) {
+        int added = 0;
+        for (byte[] v : values) added += entrySize(v);
+        byte[] out = new byte[lp.length + added];
+        System.arraycopy(lp, 0, out, 0, pos);
+        int p = pos;
+        for (byte[] v : values) p = write(out, p, v);
+        System.arraycopy(lp, pos, out, p, lp.length - pos);
+        return out;
+    }
+
+    /**
+     * A copy of lp without the bytes from..to (whole entries).
+     */
+    public static byte[] remove(byte[] lp, int from, int to) {
+        if (from == 0 && to == lp.length) return EMPTY;
+        byte[] out = new byte[lp.length - (to - from)];
+        System.arraycopy(lp, 0, out, 0, from);
+        System.arraycopy(lp, to, out, from, lp.length - to);
+        return out;
+    }
+
+    /**
+     * A copy of lp with the entry at pos replaced by value.
+     */
+    public static byte[] replace(byte[] lp, int pos, byte[] value) {
+        int end = next(lp, pos);
+        byte[] out = new byte[lp.length - (end - pos) + entrySize(value)];
+        System.arraycopy(lp, 0, out, 0, pos);
+        int p = write(out, pos, value);
+        System.arraycopy(lp, end, out, p, lp.length - end);
+        return out;
+    }
+
+    private static int write(byte[] out, int p, byte[] value) {
+        int len = value.length;
+        while ((len & ~0x7F) != 0) {
+            out[p++] = (byte) ((len & 0x7F) | 0x80);
+            len >>>= 7;
+        }
+        out[p++] = (byte) len;
+        System.arraycopy(value, 0, out, p, value.length);
+        return p + value.length;
+    }
+}
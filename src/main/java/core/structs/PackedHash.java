@@ -0,0 +1,191 @@
+package core.structs;
+
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Hash value: fields and values packed in a {@link Listpack} while the hash is small,
+ * promoted for good to a ConcurrentHashMap once it has more than hash-max-listpack-entries
+ * fields or a field or value longer than hash-max-listpack-value bytes.
+ *
+ * Writers are serialized by the key lock; readers outside it (snapshots) see either
+ * encoding consistently.
+ */
+public class PackedHash extends AbstractMap<String, String> implements Serializable {
+    // field, value, field, value... (null once promoted)
+    private volatile byte[] packed = Listpack.EMPTY;
+    private int size;
+    private volatile ConcurrentHashMap<String, String> table;
+
+    public PackedHash() {}
+
+    public PackedHash(Map<String, String> m) {
+        putAll(m);
+    }
+
+    /**
+     * OBJECT ENCODING name of the current encoding.
+     */
+    public String encoding() {
+        return packed != null ? "listpack" : "hashtable";
+    }
+
+    /**
+     * Bytes of the packed array, or -1 once promoted.
+     */
+    public int packedBytes() {
+        byte[] lp = packed;
+        return lp != null ? lp.length : -1;
+    }
+
+    /**
+     * The table once promoted, else null.
+     */
+    public Map<String, String> table() {
+        return packed != null ? null : table;
+    }
+
+    @Override
+    public int size() {
+        return packed != null ? size : table.size();
+    }
+
+    @Override
+    public String get(Object key) {
+        byte[] lp = packed;
+        if (lp == null) return table.get(key);
+        if (!(key instanceof String)) return null;
+        int pos = Listpack.find(lp, Listpack.bytes(key), 2);
+        return pos < 0 ? null : Listpack.get(lp, Listpack.next(lp, pos));
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        byte[] lp = packed;
+        if (lp == null) return table.containsKey(key);
+        return key instanceof String && Listpack.find(lp, Listpack.bytes(key), 2) >= 0;
+    }
+
+    @Override
+    public String put(String key, String value) {
+        if (key == null || value == null) throw new NullPointerException();
+        byte[] lp = packed;
+        if (lp == null) return table.put(key, value);
+        byte[] k = Listpack.bytes(key);
+        byte[] v = Listpack.bytes(value);
+        int max = Listpack.config().hashMaxListpackValue;
+        int pos = Listpack.find(lp, k, 2);
+        if (k.length > max || v.length > max || (pos < 0 && size >= Listpack.config().hashMaxListpackEntries)) {
+            return promote().put(key, value);
+        }
+        if (pos >= 0) {
+            int valuePos = Listpack.next(lp, pos);
+            String old = Listpack.get(lp, valuePos);
+            packed = Listpack.replace(lp, valuePos, v);
+            return old;
+        }
+        packed = Listpack.insert(lp, lp.length, k, v);
+        size++;
+        return null;
+    }
+
+    @Override
+    public String remove(Object key) {
+        byte[] lp = packed;
+        if (lp == null) return table.remove(key);
+        if (!(key instanceof String)) return null;
+        int pos = Listpack.find(lp, Listpack.bytes(key), 2);
+        if (pos < 0) return null;
+        int valuePos = Listpack.next(lp, pos);
+        String old = Listpack.get(lp, valuePos);
+        packed = Listpack.remove(lp, pos, Listpack.next(lp, valuePos));
+        size--;
+        return old;
+    }
+
+    @Override
+    public void clear() {
+        if (packed == null) {
+            table.clear();
+            return;
+        }
+        packed = Listpack.EMPTY;
+        size = 0;
+    }
+
+    private ConcurrentHashMap<String, String> promote() {
+        byte[] lp = packed;
+        ConcurrentHashMap<String, String> t = new ConcurrentHashMap<>(Math.max(16, size * 2));
+        for (int pos = 0; pos < lp.length; ) {
+            int valuePos = Listpack.next(lp, pos);
+            t.put(Listpack.get(lp, pos), Listpack.get(lp, valuePos));
+            pos = Listpack.next(lp, valuePos);
+        }
+        table = t;
+        packed = null;
+        size = 0;
+        return t;
+    }
+
+    @Override
+    public Set<Map.Entry<String, String>> entrySet() {
+        return new AbstractSet<Map.Entry<String, String>>() {
+            @Override
+            public Iterator<Map.Entry<String, String>> iterator() {
+                byte[] lp = packed;
+                return lp == null ? table.entrySet().iterator() : new PackedIterator(lp);
+            }
+
+            @Override
+            public int size() {
+                return PackedHash.this.size();
+            }
+        };
+    }
+
+    // Walks the array as it was when the iteration started
+    private final class PackedIterator implements Iterator<Map.Entry<String, String>> {
+        private final byte[] lp;
+        private int pos;
+        private String last;
+
+        PackedIterator(byte[] lp) {
+            this.lp = lp;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return pos < lp.length;
+        }
+
+        @Override
+        public Map.Entry<String, String> next() {
+            if (pos >= lp.length) throw new NoSuchElementException();
+            String key = Listpack.get(lp, pos);
+            int valuePos = Listpack.next(lp, pos);
+            String value = Listpack.get(lp, valuePos);
+            pos = Listpack.next(lp, valuePos);
+            last = key;
+            return new AbstractMap.SimpleEntry<String, String>(key, value) {
+                @Override
+                public String setValue(String v) {
+                    super.setValue(v);
+                    return PackedHash.this.put(key, v);
+                }
+            };
+        }
+
+        @Override
+        public void remove() {
+            if (last == null) throw new IllegalStateException();
+            PackedHash.this.remove(last);
+            last = null;
+        }
+    }
+}
@@ -0,0 +1,420 @@
+package core.structs;
+
+import java.io.Serializable;
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * List value: elements packed in a {@link Listpack} while the list fits
+ * list-max-listpack-size, promoted for good to a {@link Quicklist} of such chunks once it
+ * outgrows it.
+ *
+ * Writers are serialized by the key lock; readers outside it (snapshots) see either
+ * encoding consistently.
+ */
+public class PackedList extends AbstractCollection<String> implements Deque<String>, Serializable {
+    // Elements, head first (null once promoted)
+    private volatile byte[] packed = Listpack.EMPTY;
+    private int size;
+    private volatile Quicklist table;
+
+    public PackedList() {}
+
+    public PackedList(Collection<String> c) {
+        addAll(c);
+    }
+
+    /**
+     * A copy; a quicklist shares its chunks with the original.
+     */
+    public PackedList copy() {
+        PackedList copy = new PackedList();
+        byte[] lp = packed;
+        if (lp != null) {
+            copy.packed = lp;
+            copy.size = size;
+        } else {
+            copy.table = table.copy();
+            copy.packed = null;
+        }
+        return copy;
+    }
+
+    /**
+     * OBJECT ENCODING name of the current encoding.
+     */
+    public String encoding() {
+        return packed != null ? "listpack" : "quicklist";
+    }
+
+    /**
+     * Bytes of the packed array, or -1 once promoted.
+     */
+    public int packedBytes() {
+        byte[] lp = packed;
+        return lp != null ? lp.length : -1;
+    }
+
+    /**
+     * The quicklist once promoted, else null.
+     */
+    public Quicklist table() {
+        return packed != null ? null : table;
+    }
+
+    @Override
+    public int size() {
+        return packed != null ? size : table.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return packed != null ? size == 0 : table.isEmpty();
+    }
+
+    @Override
+    public void clear() {
+        if (packed == null) {
+            table.clear();
+            return;
+        }
+        packed = Listpack.EMPTY;
+        size = 0;
+    }
+
+    // Inserts at the head or the tail, promoting first if the list would not fit
+    private void insert(String e, boolean head) {
+        if (e == null) throw new NullPointerException();
+        byte[] lp = packed;
+        if (lp != null) {
+            byte[] v = Listpack.bytes(e);
+            if (Listpack.listFits(size + 1, lp.length + Listpack.entrySize(v))) {
+                packed = Listpack.insert(lp, head ? 0 : lp.length, v);
+                size++;
+                return;
+            }
+            promote();
+        }
+        if (head) table.addFirst(e);
+        else table.addLast(e);
+    }
+
+    private void promote() {
+        byte[] lp = packed;
+        Quicklist t = new Quicklist();
+        for (int pos = 0; pos < lp.length; pos = Listpack.next(lp, pos)) t.addLast(Listpack.get(lp, pos));
+        table = t;
+        packed = null;
+        size = 0;
+    }
+
+    // Removes the element at index of the packed array
+    private String removeAt(int index) {
+        byte[] lp = packed;
+        int pos = Listpack.offset(lp, index);
+        String e = Listpack.get(lp, pos);
+        packed = Listpack.remove(lp, pos, Listpack.next(lp, pos));
+        size--;
+        return e;
+    }
+
+    @Override
+    public void addFirst(String e) {
+        insert(e, true);
+    }
+
+    @Override
+    public void addLast(String e) {
+        insert(e, false);
+    }
+
+    @Override
+    public boolean offerFirst(String e) {
+        addFirst(e);
+        return true;
+    }
+
+    @Override
+    public boolean offerLast(String e) {
+        addLast(e);
+        return true;
+    }
+
+    @Override
+    public String pollFirst() {
+        if (packed == null) return table.pollFirst();
+        return size == 0 ? null : removeAt(0);
+    }
+
+    @Override
+    public String pollLast() {
+        if (packed == null) return table.pollLast();
+        return size == 0 ? null : removeAt(size - 1);
+    }
+
+    @Override
+    public String peekFirst() {
+        byte[] lp = packed;
+        if (lp == null) return table.peekFirst();
+        return lp.length == 0 ? null : Listpack.get(lp, 0);
+    }
+
+    @Override
+    public String peekLast() {
+        byte[] lp = packed;
+        if (lp == null) return table.peekLast();
+        if (lp.length == 0) return null;
+        int pos = 0;
+        for (int next; (next = Listpack.next(lp, pos)) < lp.length; ) pos = next;
+        return Listpack.get(lp, pos);
+    }
+
+    @Override
+    public String removeFirst() {
+        String e = pollFirst();
+        if (e == null) throw new NoSuchElementException();
+        return e;
+    }
+
+    @Override
+    public String removeLast() {
+        String e = pollLast();
+        if (e == null) throw new NoSuchElementException();
+        return e;
+    }
+
+    @Override
+    public String getFirst() {
+        String e = peekFirst();
+        if (e == null) throw new NoSuchElementException();
+        return e;
+    }
+
+    @Override
+    public String getLast() {
+        String e = peekLast();
+        if (e == null) throw new NoSuchElementException();
+        return e;
+    }
+
+    @Override
+    public boolean removeFirstOccurrence(Object o) {
+        byte[] lp = packed;
+        if (lp == null) return table.removeFirstOccurrence(o);
+        if (!(o instanceof String)) return false;
+        int pos = Listpack.find(lp, Listpack.bytes(o), 1);
+        if (pos < 0) return false;
+        packed = Listpack.remove(lp, pos, Listpack.next(lp, pos));
+        size--;
+        return true;
+    }
+
+    @Override
+    public boolean removeLastOccurrence(Object o) {
+        byte[] lp = packed;
+        if (lp == null) return table.removeLastOccurrence(o);
+        if (!(o instanceof String)) return false;
+        byte[] v = Listpack.bytes(o);
+        int found = -1;
+        for (int pos = 0; pos < lp.length; pos = Listpack.next(lp, pos)) {
+            if (Listpack.matches(lp, pos, v)) found = pos;
+        }
+        if (found < 0) return false;
+        packed = Listpack.remove(lp, found, Listpack.next(lp, found));
+        size--;
+        return true;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        byte[] lp = packed;
+        if (lp == null) return table.contains(o);
+        return o instanceof String && Listpack.find(lp, Listpack.bytes(o), 1) >= 0;
+    }
+
+    @Override
+    public boolean add(String e) {
+        addLast(e);
+        return true;
+    }
+
+    @Override
+    public boolean offer(String e) {
+        return offerLast(e);
+    }
+
+    @Override
+    public String remove() {
+        return removeFirst();
+    }
+
+    @Override
+    public String poll() {
+        return pollFirst();
+    }
+
+    @Override
+    public String element() {
+        return getFirst();
+    }
+
+    @Override
+    public String peek() {
+        return peekFirst();
+    }
+
+    @Override
+    public void push(String e) {
+        addFirst(e);
+    }
+
+    @Override
+    public String pop() {
+        return removeFirst();
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        return removeFirstOccurrence(o);
+    }
+
+    /**
+     * The element at a 0-based index, or null if out of range.
+     */
+    public String get(long index) {
+        byte[] lp = packed;
+        if (lp == null) return table.get(index);
+        if (index < 0 || index >= size) return null;
+        return Listpack.get(lp, Listpack.offset(lp, (int) index));
+    }
+
+    /**
+     * Replaces the element at a 0-based index; false if out of range.
+     */
+    public boolean set(long index, String e) {
+        byte[] lp = packed;
+        if (lp == null) return table.set(index, e);
+        if (index < 0 || index >= size) return false;
+        byte[] v = Listpack.bytes(e);
+        int pos = Listpack.offset(lp, (int) index);
+        int grown = lp.length - (Listpack.next(lp, pos) - pos) + Listpack.entrySize(v);
+        if (!Listpack.listFits(size, grown)) {
+            promote();
+            return table.set(index, e);
+        }
+        packed = Listpack.replace(lp, pos, v);
+        return true;
+    }
+
+    /**
+     * Inserts e before (or after) the first occurrence of pivot (LINSERT); false if there
+     * is none.
+     */
+    public boolean insert(String pivot, String e, boolean before) {
+        byte[] lp = packed;
+        if (lp == null) return table.insert(pivot, e, before);
+        int pos = Listpack.find(lp, Listpack.bytes(pivot), 1);
+        if (pos < 0) return false;
+        byte[] v = Listpack.bytes(e);
+        if (!Listpack.listFits(size + 1, lp.length + Listpack.entrySize(v))) {
+            promote();
+            return table.insert(pivot, e, before);
+        }
+        packed = Listpack.insert(lp, before ? pos : Listpack.next(lp, pos), v);
+        size++;
+        return true;
+    }
+
+    /**
+     * Keeps the elements from start to stop (LTRIM, valid 0-based indexes, start &lt;= stop).
+     */
+    public void trim(long start, long stop) {
+        byte[] lp = packed;
+        if (lp == null) {
+            table.trim(start, stop);
+            return;
+        }
+        int from = Listpack.offset(lp, (int) start);
+        packed = Arrays.copyOfRange(lp, from, Listpack.offset(lp, (int) stop + 1));
+        size = (int) (stop - start + 1);
+    }
+
+    /**
+     * Ascending from a 0-based index (LRANGE).
+     */
+    public Iterator<String> iterator(long index) {
+        byte[] lp = packed;
+        if (lp == null) return table.iterator(index);
+        PackedIterator it = new PackedIterator(decode(lp), false);
+        it.next = (int) Math.min(Math.max(index, 0), it.elements.length);
+        return it;
+    }
+
+    @Override
+    public Iterator<String> iterator() {
+        byte[] lp = packed;
+        if (lp == null) return table.iterator();
+        return new PackedIterator(decode(lp), false);
+    }
+
+    @Override
+    public Iterator<String> descendingIterator() {
+        byte[] lp = packed;
+        if (lp == null) return table.descendingIterator();
+        return new PackedIterator(decode(lp), true);
+    }
+
+    private static String[] decode(byte[] lp) {
+        int n = 0;
+        for (int pos = 0; pos < lp.length; pos = Listpack.next(lp, pos)) n++;
+        String[] out = new String[n];
+        int i = 0;
+        for (int pos = 0; pos < lp.length; pos = Listpack.next(lp, pos)) out[i++] = Listpack.get(lp, pos);
+        return out;
+    }
+
+    // Walks the elements as they were when the iteration started
+    private final class PackedIterator implements Iterator<String> {
+        private final String[] elements;
+        private final boolean descending;
+        private int next;
+        private int last = -1;
+        private int removed;
+
+        PackedIterator(String[] elements, boolean descending) {
+            this.elements = elements;
+            this.descending = descending;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next < elements.length;
+        }
+
+        @Override
+        public String next() {
+            if (next >= elements.length) throw new NoSuchElementException();
+            last = next++;
+            return elements[descending ? elements.length - 1 - last : last];
+        }
+
+        @Override
+        public void remove() {
+            if (last < 0) throw new IllegalStateException();
+            if (packed == null) {
+                // Promoted meanwhile: fall back on the value
+                PackedList.this.removeFirstOccurrence(elements[descending ? elements.length - 1 - last : last]);
+            } else if (descending) {
+                removeAt(elements.length - 1 - last);
+            } else {
+                removeAt(last - removed);
+            }
+            removed++;
+            last = -1;
+        }
+    }
+}
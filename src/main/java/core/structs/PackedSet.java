@@ -0,0 +1,276 @@
+package core.structs;
+
+import core.Config;
+
+import java.io.Serializable;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Set value, in the most compact encoding its members allow:
+ * <ul>
+ *   <li>an {@link IntSet} while every member is an integer and there are at most
+ *   set-max-intset-entries of them;</li>
+ *   <li>else a {@link Listpack} while there are at most set-max-listpack-entries members,
+ *   none longer than set-max-listpack-value bytes;</li>
+ *   <li>else a concurrent hash set.</li>
+ * </ul>
+ * A set only ever moves down that list.
+ *
+ * Writers are serialized by the key lock; readers outside it (snapshots) see either
+ * encoding consistently.
+ */
+public class PackedSet extends AbstractSet<String> implements Serializable {
+    // Integer members (null once converted)
+    private volatile byte[] ints = IntSet.EMPTY;
+    // Members (null unless listpack-encoded)
+    private volatile byte[] packed;
+    private int size;
+    private volatile Set<String> table;
+
+    public PackedSet() {}
+
+    /**
+     * A set of the members of intset (an RDB intset), kept as is if it is small enough.
+     */
+    public static PackedSet ofIntSet(byte[] intset) {
+        PackedSet set = new PackedSet();
+        if (IntSet.length(intset) <= Listpack.config().setMaxIntsetEntries) {
+            set.ints = intset;
+        } else {
+            for (int i = 0; i < IntSet.length(intset); i++) set.add(String.valueOf(IntSet.get(intset, i)));
+        }
+        return set;
+    }
+
+    public PackedSet(Collection<String> c) {
+        addAll(c);
+    }
+
+    /**
+     * OBJECT ENCODING name of the current encoding.
+     */
+    public String encoding() {
+        if (ints != null) return "intset";
+        return packed != null ? "listpack" : "hashtable";
+    }
+
+    /**
+     * Bytes of the intset or listpack array, or -1 once promoted.
+     */
+    public int packedBytes() {
+        byte[] is = ints;
+        if (is != null) return is.length;
+        byte[] lp = packed;
+        return lp != null ? lp.length : -1;
+    }
+
+    /**
+     * The intset array while intset-encoded, else null.
+     */
+    public byte[] intset() {
+        return ints;
+    }
+
+    /**
+     * The table once promoted, else null.
+     */
+    public Set<String> table() {
+        return ints != null || packed != null ? null : table;
+    }
+
+    @Override
+    public int size() {
+        byte[] is = ints;
+        if (is != null) return IntSet.length(is);
+        return packed != null ? size : table.size();
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        byte[] is = ints;
+        if (is != null) {
+            return o instanceof String && IntSet.isInteger((String) o) && IntSet.contains(is, Long.parseLong((String) o));
+        }
+        byte[] lp = packed;
+        if (lp == null) return table.contains(o);
+        return o instanceof String && Listpack.find(lp, Listpack.bytes(o), 1) >= 0;
+    }
+
+    @Override
+    public boolean add(String member) {
+        if (member == null) throw new NullPointerException();
+        byte[] is = ints;
+        if (is != null) {
+            if (IntSet.isInteger(member)) {
+                long value = Long.parseLong(member);
+                if (IntSet.contains(is, value)) return false;
+                if (IntSet.length(is) < Listpack.config().setMaxIntsetEntries) {
+                    ints = IntSet.add(is, value);
+                    return true;
+                }
+            }
+            convert(is, member);
+        }
+        byte[] lp = packed;
+        if (lp == null) return table.add(member);
+        byte[] m = Listpack.bytes(member);
+        if (Listpack.find(lp, m, 1) >= 0) return false;
+        if (m.length > Listpack.config().setMaxListpackValue || size >= Listpack.config().setMaxListpackEntries) {
+            return promote().add(member);
+        }
+        packed = Listpack.insert(lp, lp.length, m);
+        size++;
+        return true;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        byte[] is = ints;
+        if (is != null) {
+            if (!(o instanceof String) || !IntSet.isInteger((String) o)) return false;
+            byte[] out = IntSet.remove(is, Long.parseLong((String) o));
+            if (out == is) return false;
+            ints = out;
+            return true;
+        }
+        byte[] lp = packed;
+        if (lp == null) return table.remove(o);
+        if (!(o instanceof String)) return false;
+        int pos = Listpack.find(lp, Listpack.bytes(o), 1);
+        if (pos < 0) return false;
+        packed = Listpack.remove(lp, pos, Listpack.next(lp, pos));
+        size--;
+        return true;
+    }
+
+    @Override
+    public void clear() {
+        if (ints != null) {
+            ints = IntSet.EMPTY;
+            return;
+        }
+        if (packed == null) {
+            table.clear();
+            return;
+        }
+        packed = Listpack.EMPTY;
+        size = 0;
+    }
+
+    /**
+     * The intersection of sets as an intset if they are all intset-encoded, else null.
+     */
+    public static byte[] intersectIntSets(List<Set<String>> sets) {
+        byte[] result = null;
+        for (Set<String> set : sets) {
+            byte[] is = set instanceof PackedSet ? ((PackedSet) set).ints : null;
+            if (is == null) return null;
+            result = result == null ? is : IntSet.intersect(result, is);
+        }
+        return result;
+    }
+
+    // Leaves the intset for a listpack if the members and member to come fit, else the table
+    private void convert(byte[] is, String member) {
+        int length = IntSet.length(is);
+        Config config = Listpack.config();
+        boolean fits = length + 1 <= config.setMaxListpackEntries
+                && Listpack.bytes(member).length <= config.setMaxListpackValue;
+        if (fits) {
+            byte[][] members = new byte[length][];
+            for (int i = 0; i < length; i++) {
+                members[i] = Listpack.bytes(String.valueOf(IntSet.get(is, i)));
+                if (members[i].length > config.setMaxListpackValue) fits = false;
+            }
+            if (fits) {
+                size = length;
+                packed = Listpack.insert(Listpack.EMPTY, 0, members);
+                ints = null;
+                return;
+            }
+        }
+        Set<String> t = ConcurrentHashMap.newKeySet(Math.max(16, length * 2));
+        for (int i = 0; i < length; i++) t.add(String.valueOf(IntSet.get(is, i)));
+        table = t;
+        ints = null;
+    }
+
+    private Set<String> promote() {
+        byte[] lp = packed;
+        Set<String> t = ConcurrentHashMap.newKeySet(Math.max(16, size * 2));
+        for (int pos = 0; pos < lp.length; pos = Listpack.next(lp, pos)) t.add(Listpack.get(lp, pos));
+        table = t;
+        packed = null;
+        size = 0;
+        return t;
+    }
+
+    @Override
+    public Iterator<String> iterator() {
+        byte[] is = ints;
+        if (is != null) return new IntSetIterator(is);
+        byte[] lp = packed;
+        if (lp == null) return table.iterator();
+        // Walks the array as it was when the iteration started
+        return new Iterator<String>() {
+            private int pos;
+            private String last;
+
+            @Override
+            public boolean hasNext() {
+                return pos < lp.length;
+            }
+
+            @Override
+            public String next() {
+                if (pos >= lp.length) throw new NoSuchElementException();
+                last = Listpack.get(lp, pos);
+                pos = Listpack.next(lp, pos);
+                return last;
+            }
+
+            @Override
+            public void remove() {
+                if (last == null) throw new IllegalStateException();
+                PackedSet.this.remove(last);
+                last = null;
+            }
+        };
+    }
+
+    // Walks the values as they were when the iteration started
+    private final class IntSetIterator implements Iterator<String> {
+        private final byte[] is;
+        private int next;
+        private String last;
+
+        IntSetIterator(byte[] is) {
+            this.is = is;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next < IntSet.length(is);
+        }
+
+        @Override
+        public String next() {
+            if (next >= IntSet.length(is)) throw new NoSuchElementException();
+            last = String.valueOf(IntSet.get(is, next++));
+            return last;
+        }
+
+        @Override
+        public void remove() {
+            if (last == null) throw new IllegalStateException();
+            PackedSet.this.remove(last);
+            last = null;
+        }
+    }
+}
@@ -0,0 +1,600 @@
+package core.structs;
+
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4FastDecompressor;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * List value past the listpack thresholds, as a Redis quicklist: a doubly linked list of
+ * {@link Listpack} chunks, each filled up to list-max-listpack-size, with the element
+ * count kept up to date. Pushes and pops touch one chunk at an end; an index skips whole
+ * chunks by their counts, so it costs O(n / chunk size).
+ *
+ * With list-compress-depth N &gt; 0, the chunks more than N from either end are kept LZ4
+ * compressed, since queues are mostly used at their ends. Chunks are immutable arrays,
+ * replaced on every change, so copies share them.
+ *
+ * Not thread-safe: commands on a key are serialized by its lock (see LockManager).
+ */
+public class Quicklist extends AbstractCollection<String> implements Deque<String>, Serializable {
+    private static final long serialVersionUID = 1L;
+
+    // Chunks smaller than this are not worth compressing
+    private static final int MIN_COMPRESS_BYTES = 48;
+    private static final LZ4Compressor COMPRESSOR = LZ4Factory.fastestInstance().fastCompressor();
+    private static final LZ4FastDecompressor DECOMPRESSOR = LZ4Factory.fastestInstance().fastDecompressor();
+
+    private static final class Node {
+        Node prev;
+        Node next;
+        // The listpack, or null while compressed
+        byte[] lp;
+        byte[] compressed;
+        // Uncompressed size
+        int bytes;
+        int count;
+    }
+
+    private transient Node head;
+    private transient Node tail;
+    private transient int count;
+    private transient int nodes;
+
+    public Quicklist() {}
+
+    public Quicklist(Collection<String> c) {
+        addAll(c);
+    }
+
+    /**
+     * A copy sharing the chunks, which are never changed in place.
+     */
+    public Quicklist copy() {
+        Quicklist copy = new Quicklist();
+        for (Node n = head; n != null; n = n.next) {
+            Node c = new Node();
+            c.lp = n.lp;
+            c.compressed = n.compressed;
+            c.bytes = n.bytes;
+            c.count = n.count;
+            copy.linkLast(c);
+        }
+        copy.count = count;
+        return copy;
+    }
+
+    public int nodeCount() {
+        return nodes;
+    }
+
+    /**
+     * Bytes held by the chunks, compressed ones at their compressed size.
+     */
+    public long storedBytes() {
+        long total = 0;
+        for (Node n = head; n != null; n = n.next) total += n.lp != null ? n.lp.length : n.compressed.length;
+        return total;
+    }
+
+    // Chunks -------------------------------------------------------------
+
+    private static byte[] raw(Node n) {
+        byte[] lp = n.lp;
+        return lp != null ? lp : DECOMPRESSOR.decompress(n.compressed, n.bytes);
+    }
+
+    private static void store(Node n, byte[] lp, int count) {
+        n.lp = lp;
+        n.compressed = null;
+        n.bytes = lp.length;
+        n.count = count;
+    }
+
+    private static void decompressNode(Node n) {
+        if (n.lp != null) return;
+        n.lp = raw(n);
+        n.compressed = null;
+    }
+
+    private static void compressNode(Node n) {
+        byte[] lp = n.lp;
+        if (lp == null || lp.length < MIN_COMPRESS_BYTES) return;
+        byte[] out = COMPRESSOR.compress(lp);
+        if (out.length + 8 >= lp.length) return; // Not worth it
+        n.compressed = out;
+        n.lp = null;
+    }
+
+    /**
+     * Keeps the list-compress-depth chunks at each end uncompressed and compresses node
+     * (just changed) and the first chunks past the depth, as Redis' __quicklistCompress.
+     */
+    private void compress(Node node) {
+        int depth = Listpack.config().listCompressDepth;
+        if (depth <= 0) return;
+        if (nodes <= depth * 2) {
+            for (Node n = head; n != null; n = n.next) decompressNode(n);
+            return;
+        }
+        Node forward = head;
+        Node reverse = tail;
+        for (int i = 0; i < depth; i++) {
+            decompressNode(forward);
+            decompressNode(reverse);
+            if (forward == node || reverse == node) node = null;
+            forward = forward.next;
+            reverse = reverse.prev;
+        }
+        if (node != null) compressNode(node);
+        compressNode(forward);
+        compressNode(reverse);
+    }
+
+    private static boolean fits(Node n, byte[] v) {
+        return Listpack.listFits(n.count + 1, n.bytes + Listpack.entrySize(v));
+    }
+
+    private static Node chunk(byte[] lp, int count) {
+        Node n = new Node();
+        store(n, lp, count);
+        return n;
+    }
+
+    private void linkLast(Node n) {
+        n.prev = tail;
+        n.next = null;
+        if (tail == null) head = n;
+        else tail.next = n;
+        tail = n;
+        nodes++;
+    }
+
+    private void linkFirst(Node n) {
+        n.next = head;
+        n.prev = null;
+        if (head == null) tail = n;
+        else head.prev = n;
+        head = n;
+        nodes++;
+    }
+
+    private void linkAfter(Node at, Node n) {
+        n.prev = at;
+        n.next = at.next;
+        if (at.next == null) tail = n;
+        else at.next.prev = n;
+        at.next = n;
+        nodes++;
+    }
+
+    // Keeps n.next, so that an iterator on n moves on
+    private void unlink(Node n) {
+        if (n.prev == null) head = n.next;
+        else n.prev.next = n.next;
+        if (n.next == null) tail = n.prev;
+        else n.next.prev = n.prev;
+        nodes--;
+    }
+
+    // Splits a chunk that outgrew the fill limit in two halves
+    private void splitIfFull(Node n, byte[] lp) {
+        if (n.count < 2 || Listpack.listFits(n.count, lp.length)) {
+            store(n, lp, n.count);
+            compress(n);
+            return;
+        }
+        int half = n.count / 2;
+        int mid = Listpack.offset(lp, half);
+        Node right = chunk(Arrays.copyOfRange(lp, mid, lp.length), n.count - half);
+        store(n, Arrays.copyOf(lp, mid), half);
+        linkAfter(n, right);
+        compress(n);
+        compress(right);
+    }
+
+    // Removes the element at index i of n
+    private void removeAt(Node n, int i) {
+        if (n.count == 1) {
+            unlink(n);
+            count--;
+            compress(null);
+            return;
+        }
+        byte[] lp = raw(n);
+        int pos = Listpack.offset(lp, i);
+        store(n, Listpack.remove(lp, pos, Listpack.next(lp, pos)), n.count - 1);
+        count--;
+        compress(n);
+    }
+
+    // The chunk holding index, and the index within it in at[0]
+    private Node locate(long index, int[] at) {
+        if (index < 0 || index >= count) return null;
+        if (index < count / 2) {
+            Node n = head;
+            while (index >= n.count) {
+                index -= n.count;
+                n = n.next;
+            }
+            at[0] = (int) index;
+            return n;
+        }
+        long fromEnd = count - 1 - index;
+        Node n = tail;
+        while (fromEnd >= n.count) {
+            fromEnd -= n.count;
+            n = n.prev;
+        }
+        at[0] = (int) (n.count - 1 - fromEnd);
+        return n;
+    }
+
+    // Deque ---------------------------------------------------------------
+
+    @Override
+    public int size() {
+        return count;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    @Override
+    public void clear() {
+        head = tail = null;
+        count = 0;
+        nodes = 0;
+    }
+
+    @Override
+    public void addFirst(String e) {
+        byte[] v = Listpack.bytes(e);
+        if (head != null && fits(head, v)) {
+            store(head, Listpack.insert(raw(head), 0, v), head.count + 1);
+        } else {
+            linkFirst(chunk(Listpack.insert(Listpack.EMPTY, 0, v), 1));
+        }
+        count++;
+        compress(head);
+    }
+
+    @Override
+    public void addLast(String e) {
+        byte[] v = Listpack.bytes(e);
+        if (tail != null && fits(tail, v)) {
+            byte[] lp = raw(tail);
+            store(tail, Listpack.insert(lp, lp.length, v), tail.count + 1);
+        } else {
+            linkLast(chunk(Listpack.insert(Listpack.EMPTY, 0, v), 1));
+        }
+        count++;
+        compress(tail);
+    }
+
+    @Override
+    public boolean offerFirst(String e) {
+        addFirst(e);
+        return true;
+    }
+
+    @Override
+    public boolean offerLast(String e) {
+        addLast(e);
+        return true;
+    }
+
+    @Override
+    public String pollFirst() {
+        if (head == null) return null;
+        String e = Listpack.get(raw(head), 0);
+        removeAt(head, 0);
+        return e;
+    }
+
+    @Override
+    public String pollLast() {
+        if (tail == null) return null;
+        byte[] lp = raw(tail);
+        String e = Listpack.get(lp, Listpack.offset(lp, tail.count - 1));
+        removeAt(tail, tail.count - 1);
+        return e;
+    }
+
+    @Override
+    public String peekFirst() {
+        return head == null ? null : Listpack.get(raw(head), 0);
+    }
+
+    @Override
+    public String peekLast() {
+        if (tail == null) return null;
+        byte[] lp = raw(tail);
+        return Listpack.get(lp, Listpack.offset(lp, tail.count - 1));
+    }
+
+    @Override
+    public String removeFirst() {
+        String e = pollFirst();
+        if (e == null) throw new NoSuchElementException();
+        return e;
+    }
+
+    @Override
+    public String removeLast() {
+        String e = pollLast();
+        if (e == null) throw new NoSuchElementException();
+        return e;
+    }
+
+    @Override
+    public String getFirst() {
+        String e = peekFirst();
+        if (e == null) throw new NoSuchElementException();
+        return e;
+    }
+
+    @Override
+    public String getLast() {
+        String e = peekLast();
+        if (e == null) throw new NoSuchElementException();
+        return e;
+    }
+
+    @Override
+    public boolean removeFirstOccurrence(Object o) {
+        return removeOccurrence(iterator(), o);
+    }
+
+    @Override
+    public boolean removeLastOccurrence(Object o) {
+        return removeOccurrence(descendingIterator(), o);
+    }
+
+    private static boolean removeOccurrence(Iterator<String> it, Object o) {
+        while (it.hasNext()) {
+            if (it.next().equals(o)) {
+                it.remove();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        if (!(o instanceof String)) return false;
+        byte[] v = Listpack.bytes(o);
+        for (Node n = head; n != null; n = n.next) {
+            if (Listpack.find(raw(n), v, 1) >= 0) return true;
+        }
+        return false;
+    }
+
+    @Override
+    public boolean add(String e) {
+        addLast(e);
+        return true;
+    }
+
+    @Override
+    public boolean offer(String e) {
+        return offerLast(e);
+    }
+
+    @Override
+    public String remove() {
+        return removeFirst();
+    }
+
+    @Override
+    public String poll() {
+        return pollFirst();
+    }
+
+    @Override
+    public String element() {
+        return getFirst();
+    }
+
+    @Override
+    public String peek() {
+        return peekFirst();
+    }
+
+    @Override
+    public void push(String e) {
+        addFirst(e);
+    }
+
+    @Override
+    public String pop() {
+        return removeFirst();
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        return removeFirstOccurrence(o);
+    }
+
+    // Indexes -------------------------------------------------------------
+
+    /**
+     * The element at a 0-based index, or null if out of range.
+     */
+    public String get(long index) {
+        int[] at = new int[1];
+        Node n = locate(index, at);
+        if (n == null) return null;
+        byte[] lp = raw(n);
+        return Listpack.get(lp, Listpack.offset(lp, at[0]));
+    }
+
+    /**
+     * Replaces the element at a 0-based index; false if out of range.
+     */
+    public boolean set(long index, String e) {
+        int[] at = new int[1];
+        Node n = locate(index, at);
+        if (n == null) return false;
+        byte[] lp = raw(n);
+        splitIfFull(n, Listpack.replace(lp, Listpack.offset(lp, at[0]), Listpack.bytes(e)));
+        return true;
+    }
+
+    /**
+     * Inserts e before (or after) the first occurrence of pivot; false if there is none.
+     */
+    public boolean insert(String pivot, String e, boolean before) {
+        byte[] p = Listpack.bytes(pivot);
+        for (Node n = head; n != null; n = n.next) {
+            byte[] lp = raw(n);
+            int pos = Listpack.find(lp, p, 1);
+            if (pos < 0) continue;
+            int at = before ? pos : Listpack.next(lp, pos);
+            n.count++;
+            count++;
+            splitIfFull(n, Listpack.insert(lp, at, Listpack.bytes(e)));
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Keeps the elements from start to stop (valid 0-based indexes, start &lt;= stop),
+     * dropping whole chunks at both ends.
+     */
+    public void trim(long start, long stop) {
+        long fromTail = count - 1 - stop;
+        while (start > 0) {
+            Node n = head;
+            if (n.count <= start) {
+                start -= n.count;
+                count -= n.count;
+                unlink(n);
+            } else {
+                byte[] lp = raw(n);
+                store(n, Arrays.copyOfRange(lp, Listpack.offset(lp, (int) start), lp.length), n.count - (int) start);
+                count -= (int) start;
+                start = 0;
+            }
+        }
+        while (fromTail > 0) {
+            Node n = tail;
+            if (n.count <= fromTail) {
+                fromTail -= n.count;
+                count -= n.count;
+                unlink(n);
+            } else {
+                byte[] lp = raw(n);
+                int keep = n.count - (int) fromTail;
+                store(n, Arrays.copyOf(lp, Listpack.offset(lp, keep)), keep);
+                count -= (int) fromTail;
+                fromTail = 0;
+            }
+        }
+        compress(null);
+    }
+
+    // Iteration -----------------------------------------------------------
+
+    @Override
+    public Iterator<String> iterator() {
+        return new Itr(head, 0, false);
+    }
+
+    /**
+     * Ascending from a 0-based index, reached by skipping whole chunks.
+     */
+    public Iterator<String> iterator(long index) {
+        int[] at = new int[1];
+        Node n = locate(index, at);
+        return n == null ? new Itr(null, 0, false) : new Itr(n, at[0], false);
+    }
+
+    @Override
+    public Iterator<String> descendingIterator() {
+        return new Itr(tail, tail == null ? 0 : tail.count - 1, true);
+    }
+
+    // Decodes one chunk at a time; remove() deletes the last element returned
+    private final class Itr implements Iterator<String> {
+        private final boolean descending;
+        private Node node;
+        private String[] elements;
+        private int next;
+        // Elements of node removed through this iterator, before next (ascending)
+        private int removed;
+        private Node lastNode;
+        private int lastIndex = -1;
+
+        Itr(Node node, int index, boolean descending) {
+            this.descending = descending;
+            enter(node);
+            next = index;
+        }
+
+        private void enter(Node n) {
+            node = n;
+            removed = 0;
+            if (n == null) {
+                elements = new String[0];
+                return;
+            }
+            byte[] lp = raw(n);
+            elements = new String[n.count];
+            int i = 0;
+            for (int pos = 0; pos < lp.length; pos = Listpack.next(lp, pos)) elements[i++] = Listpack.get(lp, pos);
+            next = descending ? elements.length - 1 : 0;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (node != null && (descending ? next < 0 : next >= elements.length)) {
+                enter(descending ? node.prev : node.next);
+            }
+            return node != null;
+        }
+
+        @Override
+        public String next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            lastNode = node;
+            lastIndex = descending ? next : next - removed;
+            String e = elements[next];
+            next += descending ? -1 : 1;
+            return e;
+        }
+
+        @Override
+        public void remove() {
+            if (lastIndex < 0) throw new IllegalStateException();
+            removeAt(lastNode, lastIndex);
+            if (!descending) removed++;
+            lastIndex = -1;
+        }
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        out.writeInt(count);
+        for (String e : this) out.writeObject(e);
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        for (int i = in.readInt(); i > 0; i--) addLast((String) in.readObject());
+    }
+}
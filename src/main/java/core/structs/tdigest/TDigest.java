@@ -174,6 +174,36 @@ public class TDigest implements Serializable {
         return compression;
     }
 
+    /**
+     * Copies of the merged centroids, sorted by mean.
+     */
+    public synchronized List<Centroid> getCentroids() {
+        List<Centroid> out = new ArrayList<>(centroids.size());
+        for (Centroid c : centroids) out.add(c.copy());
+        return out;
+    }
+
+    /**
+     * Copies of the centroids added since the last merge, in insertion order.
+     */
+    public synchronized List<Centroid> getBuffer() {
+        List<Centroid> out = new ArrayList<>(buffer.size());
+        for (Centroid c : buffer) out.add(c.copy());
+        return out;
+    }
+
+    /**
+     * Rebuilds a digest from {@link #getCentroids()} and {@link #getBuffer()}.
+     */
+    public static TDigest restore(double compression, List<Centroid> centroids, List<Centroid> buffer) {
+        TDigest digest = new TDigest(compression);
+        digest.centroids.addAll(centroids);
+        digest.buffer.addAll(buffer);
+        for (Centroid c : centroids) digest.totalCount += c.getCount();
+        for (Centroid c : buffer) digest.totalCount += c.getCount();
+        return digest;
+    }
+
     public synchronized TDigest copy() {
         TDigest copy = new TDigest(this.compression);
         copy.totalCount = this.totalCount;
@@ -0,0 +1,44 @@
+package core.utils;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Keys, elements and channel names are byte strings: the exact bytes a client sent,
+ * held in a java.lang.String one char per byte (ISO-8859-1).
+ *
+ * Every byte maps to one char and back, so any payload survives a round trip, binary
+ * or not. Such strings always use the JVM's compact LATIN1 coder (one byte per char),
+ * cache their hash and compare with an intrinsic array compare; compareTo orders them
+ * like memcmp, as Redis does. Decoding an argument is a plain copy, no UTF-8 validation.
+ *
+ * Text that really is text (config values, passwords, scripts, JSON documents) is
+ * decoded as UTF-8 instead; {@link #text} and {@link #fromText} convert between the two.
+ */
+public final class ByteStrings {
+    public static final Charset CHARSET = StandardCharsets.ISO_8859_1;
+
+    private ByteStrings() {}
+
+    public static String of(byte[] bytes) {
+        return new String(bytes, CHARSET);
+    }
+
+    public static byte[] bytes(String s) {
+        return s.getBytes(CHARSET);
+    }
+
+    /**
+     * The UTF-8 text a byte string holds.
+     */
+    public static String text(String s) {
+        return new String(s.getBytes(CHARSET), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * The byte string of some text, as its UTF-8 bytes.
+     */
+    public static String fromText(String text) {
+        return new String(text.getBytes(StandardCharsets.UTF_8), CHARSET);
+    }
+}
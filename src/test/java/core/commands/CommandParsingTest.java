@@ -1,10 +1,13 @@
 package core.commands;
 
 import core.Carade;
+import core.commands.list.RPushCommand;
 import core.commands.string.GetCommand;
 import core.commands.string.SetCommand;
 import core.db.CaradeDatabase;
+import core.db.ValueEntry;
 import core.network.ClientHandler;
+import core.utils.ByteStrings;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import java.nio.charset.StandardCharsets;
@@ -69,4 +72,30 @@ public class CommandParsingTest {
         assertNotNull(client.lastError);
         assertTrue(client.lastError.contains("integer"));
     }
+
+    @Test
+    public void testBinaryKeysAndValues() {
+        Carade.db.clearAll();
+        MockClientHandler client = new MockClientHandler();
+        // Not valid UTF-8: both keys would decode to the same replacement characters
+        byte[] key1 = {(byte) 0xFF, 0, 'k', (byte) 0xC3};
+        byte[] key2 = {(byte) 0xFE, 0, 'k', (byte) 0xC3};
+        byte[] value = {(byte) 0x80, 0, (byte) 0xFE, '\r', '\n'};
+
+        new SetCommand().execute(client, List.of("SET".getBytes(), key1, value));
+        new SetCommand().execute(client, List.of("SET".getBytes(), key2, "other".getBytes()));
+        assertNull(client.lastError);
+        assertEquals(2, Carade.db.size(0));
+        ValueEntry entry = Carade.db.get(0, ByteStrings.of(key1));
+        assertArrayEquals(value, (byte[]) entry.getValue());
+
+        byte[] listKey = {'l', (byte) 0xE9};
+        new RPushCommand().execute(client, List.of("RPUSH".getBytes(), listKey, value, key2));
+        assertNull(client.lastError);
+        Object list = Carade.db.get(0, ByteStrings.of(listKey)).getValue();
+        List<byte[]> elements = new ArrayList<>();
+        for (Object e : (Iterable<?>) list) elements.add(ByteStrings.bytes((String) e));
+        assertArrayEquals(value, elements.get(0));
+        assertArrayEquals(key2, elements.get(1));
+    }
 }
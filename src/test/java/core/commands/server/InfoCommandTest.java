@@ -56,6 +56,68 @@ class InfoCommandTest {
         
         assertTrue(response.contains("carade_version:1.0.0-TEST"), "Should verify version from context");
         assertTrue(response.contains("tcp_port:6379"), "Should verify port from context");
+        assertTrue(response.contains("evicted_keys:3"), "Should verify evictions from context");
+    }
+
+    @Test
+    void testInfoWithCommandName() {
+        command.execute(client, List.of("INFO".getBytes(StandardCharsets.UTF_8), "memory".getBytes(StandardCharsets.UTF_8)));
+        String response = client.lastResponse;
+
+        assertTrue(response.contains("# Memory"), "Should contain Memory section");
+        assertFalse(response.contains("# Server"), "Should NOT contain Server section");
+    }
+
+    @Test
+    void testInfoPersistenceFsyncMetrics() {
+        command.execute(client, List.of("persistence".getBytes(StandardCharsets.UTF_8)));
+        String response = client.lastResponse;
+
+        assertTrue(response.contains("aof_fsync_policy:always"));
+        assertTrue(response.contains("aof_fsyncs:7"));
+        assertTrue(response.contains("aof_max_fsync_latency_us:900"));
+        assertTrue(response.contains("aof_pending_bytes:64"));
+        assertTrue(response.contains("aof_delayed_fsync:2"));
+    }
+
+    @Test
+    void testInfoPersistenceSaveState() {
+        command.execute(client, List.of("persistence".getBytes(StandardCharsets.UTF_8)));
+        String response = client.lastResponse;
+
+        assertTrue(response.contains("rdb_changes_since_last_save:42"));
+        assertTrue(response.contains("rdb_bgsave_in_progress:1"));
+        assertTrue(response.contains("rdb_last_bgsave_status:err"));
+        assertTrue(response.contains("rdb_last_bgsave_time_sec:3"));
+        assertTrue(response.contains("rdb_current_bgsave_time_sec:1"));
+    }
+
+    @Test
+    void testInfoMemoryDatasetAndTier() {
+        command.execute(client, List.of("memory".getBytes(StandardCharsets.UTF_8)));
+        String response = client.lastResponse;
+
+        assertTrue(response.contains("used_memory_dataset:700"));
+        assertTrue(response.contains("used_memory_string:500"));
+        assertTrue(response.contains("used_memory_zset:200"));
+        assertTrue(response.contains("used_memory_hash:0"));
+        assertTrue(response.contains("maxmemory_policy:tiered"));
+        assertTrue(response.contains("tier_faults:4"));
+        assertTrue(response.contains("tier_hit_rate:0.6000"));
+        assertTrue(response.contains("tier_max_fault_latency_us:400"));
+        assertTrue(response.contains("tier_disk_bytes:4096"));
+    }
+
+    @Test
+    void testInfoShards() {
+        command.execute(client, List.of("shards".getBytes(StandardCharsets.UTF_8)));
+        String response = client.lastResponse;
+
+        assertTrue(response.contains("# Shards"), "Should contain Shards section");
+        assertTrue(response.contains("shards:2"));
+        assertTrue(response.contains("cross_shard_commands:3"));
+        assertTrue(response.contains("shard1:commands=60,busy_us=200,queued=1"));
+        assertTrue(response.contains("shard_balance:0.67"));
     }
 
     // Mock Context
@@ -68,13 +130,47 @@ class InfoCommandTest {
         @Override public String getJavaVersion() { return "11"; }
         @Override public int getActiveConnections() { return 5; }
         @Override public long getUsedMemory() { return 1024; }
+        @Override public long getUsedMemoryDataset() { return 700; }
+        @Override public long[] getUsedMemoryByType() {
+            long[] bytes = new long[core.db.DataType.values().length];
+            bytes[core.db.DataType.STRING.ordinal()] = 500;
+            bytes[core.db.DataType.ZSET.ordinal()] = 200;
+            return bytes;
+        }
         @Override public long getMaxMemory() { return 2048; }
+        @Override public String getMaxMemoryPolicy() { return "tiered"; }
+        @Override public long getTierSpills() { return 30; }
+        @Override public long getTierFaults() { return 4; }
+        @Override public long getTierAvgFaultMicros() { return 80; }
+        @Override public long getTierMaxFaultMicros() { return 400; }
+        @Override public long getTierDiskBytes() { return 4096; }
+        @Override public int getTierSegments() { return 1; }
+        @Override public long getTierCompactedSegments() { return 0; }
         @Override public long getTotalCommandsProcessed() { return 100; }
         @Override public long getKeyspaceHits() { return 10; }
         @Override public long getKeyspaceMisses() { return 5; }
+        @Override public long getEvictedKeys() { return 3; }
         @Override public boolean isAofEnabled() { return true; }
         @Override public long getLastSaveTime() { return 123456789; }
+        @Override public long getRdbChangesSinceLastSave() { return 42; }
+        @Override public boolean isRdbSaveInProgress() { return true; }
+        @Override public boolean isRdbLastSaveOk() { return false; }
+        @Override public long getRdbLastSaveDurationSec() { return 3; }
+        @Override public long getRdbCurrentSaveDurationSec() { return 1; }
+        @Override public String getAofFsyncPolicy() { return "always"; }
+        @Override public long getAofFsyncCount() { return 7; }
+        @Override public long getAofLastFsyncMicros() { return 150; }
+        @Override public long getAofAvgFsyncMicros() { return 120; }
+        @Override public long getAofMaxFsyncMicros() { return 900; }
+        @Override public long getAofPendingBytes() { return 64; }
+        @Override public long getAofDelayedFsyncs() { return 2; }
+        @Override public boolean isAofLastWriteOk() { return true; }
         @Override public int getAvailableProcessors() { return 4; }
         @Override public int getDbSize() { return 50; }
+        @Override public int getShardCount() { return 2; }
+        @Override public long getCrossShardCommands() { return 3; }
+        @Override public long[] getShardCommandCounts() { return new long[]{40, 60}; }
+        @Override public long[] getShardBusyMicros() { return new long[]{100, 200}; }
+        @Override public int[] getShardQueueDepths() { return new int[]{0, 1}; }
     }
 }
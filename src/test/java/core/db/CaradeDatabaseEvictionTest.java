@@ -1,7 +1,13 @@
 package core.db;
 
 import core.Config;
+import core.server.LockManager;
+import core.utils.Time;
 import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 public class CaradeDatabaseEvictionTest {
@@ -31,6 +37,11 @@ public class CaradeDatabaseEvictionTest {
         }
     }
 
+    // LRU clock of an access the given seconds ago
+    private static int idleFor(int seconds) {
+        return (Eviction.lruClock() - seconds) & Eviction.LRU_CLOCK_MAX;
+    }
+
     @Test
     public void testAllKeysLRU() {
         Config config = new Config();
@@ -41,15 +52,15 @@ public class CaradeDatabaseEvictionTest {
         
         // Add 3 keys
         ValueEntry v1 = new ValueEntry("val1".getBytes(), DataType.STRING, -1);
-        v1.lastAccessed = 1000;
+        v1.lru = idleFor(1000);
         db.put(0, "k1", v1);
         
         ValueEntry v2 = new ValueEntry("val2".getBytes(), DataType.STRING, -1);
-        v2.lastAccessed = 2000; // More recent
+        v2.lru = idleFor(500); // More recent
         db.put(0, "k2", v2);
         
         ValueEntry v3 = new ValueEntry("val3".getBytes(), DataType.STRING, -1);
-        v3.lastAccessed = 500; // Oldest
+        v3.lru = idleFor(2000); // Oldest
         db.put(0, "k3", v3);
 
         // Force eviction
@@ -75,12 +86,12 @@ public class CaradeDatabaseEvictionTest {
         
         // k1: No expire, very old
         ValueEntry v1 = new ValueEntry("val1".getBytes(), DataType.STRING, -1);
-        v1.lastAccessed = 100; 
+        v1.lru = idleFor(2000); 
         db.put(0, "k1", v1);
         
         // k2: Expire set, newer
         ValueEntry v2 = new ValueEntry("val2".getBytes(), DataType.STRING, System.currentTimeMillis() + 10000);
-        v2.lastAccessed = 200; 
+        v2.lru = idleFor(1000); 
         db.put(0, "k2", v2);
         
         db.setMockedUsedMemory(200);
@@ -91,4 +102,127 @@ public class CaradeDatabaseEvictionTest {
         assertFalse(db.exists(0, "k2"), "Volatile key k2 should be evicted");
         assertTrue(db.exists(0, "k1"), "Persistent key k1 should NOT be evicted even if old");
     }
+
+    @Test
+    public void testPoolSpansAllDbs() {
+        Config config = new Config();
+        config.maxMemory = 100;
+        config.maxMemoryPolicy = "allkeys-lru";
+        TestableCaradeDatabase db = new TestableCaradeDatabase(config);
+
+        for (int i = 0; i < 20; i++) {
+            ValueEntry v = new ValueEntry("val".getBytes(), DataType.STRING, -1);
+            v.lru = idleFor(10);
+            db.put(0, "k" + i, v);
+        }
+        ValueEntry old = new ValueEntry("val".getBytes(), DataType.STRING, -1);
+        old.lru = idleFor(5000);
+        db.put(5, "old", old);
+
+        db.setMockedUsedMemory(200);
+        db.performEvictionIfNeeded(0);
+
+        assertFalse(db.exists(5, "old"), "The idlest key of any DB goes first");
+        assertEquals(20, db.size(0));
+        assertEquals(1, db.getEvictedKeys());
+    }
+
+    @Test
+    public void testSkipsVictimHeldByACommand() throws Exception {
+        Config config = new Config();
+        config.maxMemory = 100;
+        config.maxMemoryPolicy = "allkeys-lru";
+        TestableCaradeDatabase db = new TestableCaradeDatabase(config);
+
+        ValueEntry busy = new ValueEntry("val".getBytes(), DataType.STRING, -1);
+        busy.lru = idleFor(5000);
+        db.put(0, "busy", busy);
+        ValueEntry idle = new ValueEntry("val".getBytes(), DataType.STRING, -1);
+        idle.lru = idleFor(1000);
+        db.put(0, "idle", idle);
+
+        // Another client is in the middle of a command on "busy"
+        CountDownLatch held = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(1);
+        Thread client = new Thread(() -> {
+            LockManager.Scope scope = LockManager.getInstance().acquire("SET", List.of("SET".getBytes(), "busy".getBytes(), "v".getBytes()));
+            held.countDown();
+            try {
+                done.await();
+            } catch (InterruptedException ignored) {
+            } finally {
+                scope.release();
+            }
+        });
+        client.start();
+        held.await();
+        try {
+            db.setMockedUsedMemory(200);
+            db.performEvictionIfNeeded(0);
+            assertTrue(db.exists(0, "busy"), "The locked key is left alone");
+            assertFalse(db.exists(0, "idle"), "The next candidate goes instead");
+        } finally {
+            done.countDown();
+            client.join();
+        }
+    }
+
+    @Test
+    public void testVolatileRandomWithoutTtlsEvictsNothing() {
+        Config config = new Config();
+        config.maxMemory = 100;
+        config.maxMemoryPolicy = "volatile-random";
+        TestableCaradeDatabase db = new TestableCaradeDatabase(config);
+        for (int i = 0; i < 10; i++) db.put(0, "k" + i, new ValueEntry("val".getBytes(), DataType.STRING, -1));
+
+        db.setMockedUsedMemory(200);
+        db.performEvictionIfNeeded(0);
+        assertEquals(10, db.size(0));
+    }
+
+    @Test
+    public void testLfuCounterGrowsLogarithmically() {
+        int counter = Eviction.LFU_INIT_VAL;
+        for (int i = 0; i < 1000; i++) counter = Eviction.lfuLogIncr(counter, 10);
+        assertTrue(counter > 10 && counter < 40, "counter " + counter);
+
+        counter = Eviction.LFU_INIT_VAL;
+        for (int i = 0; i < 1000; i++) counter = Eviction.lfuLogIncr(counter, 0);
+        assertEquals(255, counter, "Saturates");
+    }
+
+    @Test
+    public void testLfuDecaysFormerlyHotKeys() {
+        long[] now = {System.currentTimeMillis()};
+        Time.setClock(() -> now[0]);
+        try {
+            Config config = new Config();
+            config.maxMemory = 100;
+            config.maxMemoryPolicy = "allkeys-lfu";
+            config.lfuDecayTime = 1;
+            TestableCaradeDatabase db = new TestableCaradeDatabase(config);
+
+            ValueEntry hot = new ValueEntry("val".getBytes(), DataType.STRING, -1);
+            db.put(0, "hot", hot);
+            for (int i = 0; i < 1000; i++) hot.touch();
+            db.put(0, "new1", new ValueEntry("val".getBytes(), DataType.STRING, -1));
+            assertTrue(hot.getFrequency() > Eviction.LFU_INIT_VAL);
+
+            db.setMockedUsedMemory(200);
+            db.performEvictionIfNeeded(0);
+            assertTrue(db.getStore(0).containsKey("hot"));
+            assertFalse(db.getStore(0).containsKey("new1"), "New key goes before the hot one");
+
+            // An hour without access: one point per minute
+            now[0] += 60 * 60_000L;
+            assertEquals(0, hot.getFrequency());
+            db.put(0, "new2", new ValueEntry("val".getBytes(), DataType.STRING, -1));
+            db.setMockedUsedMemory(200);
+            db.performEvictionIfNeeded(0);
+            assertFalse(db.getStore(0).containsKey("hot"), "Formerly hot key goes first");
+            assertTrue(db.getStore(0).containsKey("new2"));
+        } finally {
+            Time.useSystemClock();
+        }
+    }
 }
@@ -0,0 +1,82 @@
+package core.db;
+
+import core.Config;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CowSnapshotTest {
+
+    private static ValueEntry str(String s) {
+        return new ValueEntry(s.getBytes(StandardCharsets.UTF_8), DataType.STRING, -1);
+    }
+
+    @Test
+    public void testWritesAfterEpochAreNotVisible() throws Exception {
+        CaradeDatabase db = new CaradeDatabase(new Config(), null);
+        for (int i = 0; i < 100; i++) db.put(0, "k" + i, str("v" + i));
+        db.put(1, "other", str("x"));
+
+        Map<String, String> seen = new HashMap<>();
+        CowSnapshot snapshot = CowSnapshot.begin(db);
+        try {
+            assertTrue(CowSnapshot.isActive());
+            snapshot.write(new CowSnapshot.Visitor() {
+                boolean mutated;
+
+                @Override
+                public void db(int dbIndex, long size) {
+                }
+
+                @Override
+                public void entry(String key, ValueEntry value) {
+                    String prev = seen.put(key, new String((byte[]) value.getValue(), StandardCharsets.UTF_8));
+                    assertNull(prev, "key written twice: " + key);
+                    if (mutated) return;
+                    mutated = true;
+                    // Writers racing with the snapshot thread
+                    for (int i = 0; i < 100; i++) db.put(0, "k" + i, str("changed"));
+                    db.remove(0, "k7");
+                    db.put(0, "new", str("n"));
+                    db.clear(1);
+                }
+            });
+        } finally {
+            snapshot.end();
+        }
+        assertFalse(CowSnapshot.isActive());
+
+        assertEquals(101, seen.size());
+        for (int i = 0; i < 100; i++) assertEquals("v" + i, seen.get("k" + i));
+        assertEquals("x", seen.get("other"));
+        assertFalse(seen.containsKey("new"));
+        assertTrue(snapshot.getPreservedKeys() > 0);
+    }
+
+    @Test
+    public void testKeysWrittenBeforeChangeAreNotCopied() throws Exception {
+        CaradeDatabase db = new CaradeDatabase(new Config(), null);
+        db.put(0, "a", str("1"));
+
+        CowSnapshot snapshot = CowSnapshot.begin(db);
+        try {
+            snapshot.write(new CowSnapshot.Visitor() {
+                @Override
+                public void db(int dbIndex, long size) {
+                }
+
+                @Override
+                public void entry(String key, ValueEntry value) {
+                }
+            });
+            db.put(0, "a", str("2"));
+            assertEquals(0, snapshot.getPreservedKeys());
+        } finally {
+            snapshot.end();
+        }
+    }
+}
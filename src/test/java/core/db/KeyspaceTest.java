@@ -0,0 +1,125 @@
+package core.db;
+
+import core.Config;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ConcurrentLinkedDeque;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class KeyspaceTest {
+
+    private static ValueEntry string(int length) {
+        return new ValueEntry("x".repeat(length).getBytes(StandardCharsets.UTF_8), DataType.STRING, -1);
+    }
+
+    @Test
+    public void testChargedAndReleasedOnEveryWrite() {
+        Keyspace map = new Keyspace();
+        ValueEntry a = string(100);
+        map.put("a", a);
+        assertTrue(a.getMemory() > 100);
+        assertEquals(a.getMemory(), map.memory());
+        assertEquals(a.getMemory(), map.memory(DataType.STRING));
+
+        // Overwrite: the old entry is released
+        ValueEntry bigger = string(1000);
+        map.put("a", bigger);
+        assertEquals(0, a.getMemory());
+        assertEquals(bigger.getMemory(), map.memory());
+
+        map.compute("b", (k, v) -> string(10));
+        map.computeIfAbsent("c", k -> string(10));
+        map.merge("b", string(20), (o, n) -> n);
+        long expected = bigger.getMemory() + map.get("b").getMemory() + map.get("c").getMemory();
+        assertEquals(expected, map.memory());
+
+        assertTrue(map.remove("c", map.get("c")));
+        map.remove("b");
+        assertEquals(bigger.getMemory(), map.memory());
+        map.clear();
+        assertEquals(0, map.memory());
+        assertEquals(0, map.memory(DataType.STRING));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testInPlaceChangesAreResized() {
+        Keyspace map = new Keyspace();
+        ValueEntry list = new ValueEntry(new ConcurrentLinkedDeque<String>(), DataType.LIST, -1);
+        map.put("l", list);
+        long empty = map.memory();
+
+        ConcurrentLinkedDeque<String> deque = (ConcurrentLinkedDeque<String>) list.getValue();
+        for (int i = 0; i < 1000; i++) deque.add("element-" + i);
+        // Nothing told the map yet
+        assertEquals(empty, map.memory());
+        list.resized();
+        assertTrue(map.memory() > empty + 1000 * 40, "estimate " + map.memory());
+        assertEquals(map.memory(DataType.LIST), map.memory());
+
+        // Sampled estimate stays close to the exact one
+        long exact = MemoryEstimator.estimate("l", list, 0);
+        assertEquals(exact, list.getMemory(), exact / 10.0);
+    }
+
+    @Test
+    public void testMovingAnEntryBetweenMaps() {
+        Keyspace from = new Keyspace();
+        Keyspace to = new Keyspace();
+        ValueEntry v = string(100);
+        from.put("k", v);
+        // MOVE style: put into the target before removing from the source
+        to.put("k", v);
+        from.remove("k");
+        assertEquals(0, from.memory());
+        assertEquals(v.getMemory(), to.memory());
+    }
+
+    @Test
+    public void testEvictionStopsAtTheLimit() {
+        Config config = new Config();
+        config.maxMemoryPolicy = "allkeys-random";
+        config.maxMemory = 0;
+        CaradeDatabase db = new CaradeDatabase(config, null);
+        for (int i = 0; i < 1000; i++) db.put(0, "k" + i, string(200));
+        long perKey = db.getDatasetMemory() / 1000;
+
+        config.maxMemory = perKey * 600;
+        // Checked every 50 writes, at most 100 keys per pass
+        for (int i = 0; i < 5000 && db.getDatasetMemory() > config.maxMemory; i++) db.performEvictionIfNeeded(0);
+        assertTrue(db.getDatasetMemory() <= config.maxMemory);
+        // Only what was needed to get under the limit
+        assertTrue(db.size(0) >= 590, "left " + db.size(0));
+    }
+
+    @Test
+    public void testSampling() {
+        Keyspace map = new Keyspace();
+        assertNull(map.randomKey());
+        for (int i = 0; i < 3; i++) map.put("k" + i, string(10));
+        // Small maps are sampled whole
+        String[] keys = new String[5];
+        ValueEntry[] entries = new ValueEntry[5];
+        assertEquals(3, map.sample(keys, entries));
+        assertEquals(java.util.Set.of("k0", "k1", "k2"), java.util.Set.of(keys[0], keys[1], keys[2]));
+
+        for (int i = 3; i < 1000; i++) map.put("k" + i, string(10));
+        for (int i = 0; i < 1000; i += 2) map.remove("k" + i);
+        map.put("k1", string(20));
+        map.compute("k3", (k, v) -> null);
+        java.util.Set<String> seen = new java.util.HashSet<>();
+        for (int round = 0; round < 2000; round++) {
+            int n = map.sample(keys, entries);
+            assertEquals(5, n);
+            for (int i = 0; i < n; i++) {
+                assertSame(map.get(keys[i]), entries[i], keys[i]);
+                seen.add(keys[i]);
+            }
+        }
+        assertEquals(map.size(), seen.size(), "Every key can be picked");
+        map.clear();
+        assertNull(map.randomKey());
+    }
+}
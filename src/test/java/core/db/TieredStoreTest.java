@@ -0,0 +1,153 @@
+package core.db;
+
+import core.Config;
+import core.persistence.rdb.RdbEncoder;
+import core.persistence.rdb.RdbParser;
+import core.structs.CaradeZSet;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Deque;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TieredStoreTest {
+
+    @TempDir
+    File dir;
+
+    private Config config;
+    private CaradeDatabase db;
+
+    @BeforeEach
+    public void setUp() {
+        config = new Config();
+        config.tierDir = dir.getPath();
+        config.tierSegmentSize = 4096;
+        config.tierMinValueBytes = 16;
+        db = new CaradeDatabase(config, null);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        if (db.getTieredStore() != null) db.getTieredStore().shutdown();
+    }
+
+    private static byte[] bytes(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    // Does not compress below the spill threshold
+    private static String text(int seed, int length) {
+        StringBuilder sb = new StringBuilder();
+        Random random = new Random(seed);
+        while (sb.length() < length) sb.append((char) ('a' + random.nextInt(26)));
+        return sb.toString();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testSpillAndFaultIn() throws Exception {
+        ValueEntry s = new ValueEntry(bytes(text(1, 100)), DataType.STRING, System.currentTimeMillis() + 60_000);
+        ConcurrentLinkedDeque<String> list = new ConcurrentLinkedDeque<>();
+        for (int i = 0; i < 20; i++) list.add("item-" + i);
+        ValueEntry l = new ValueEntry(list, DataType.LIST, -1);
+        ConcurrentHashMap<String, String> map = new ConcurrentHashMap<>();
+        map.put("field", text(2, 50));
+        ValueEntry h = new ValueEntry(map, DataType.HASH, -1);
+        ValueEntry small = new ValueEntry(bytes("tiny"), DataType.STRING, -1);
+        db.put(0, "s", s);
+        db.put(0, "l", l);
+        db.put(0, "h", h);
+        db.put(0, "small", small);
+
+        TieredStore tier = db.tieredStore();
+        assertEquals(3, tier.spillColdValues(0, 10));
+        assertTrue(s.peekValue() instanceof TieredStore.Spilled);
+        assertTrue(l.peekValue() instanceof TieredStore.Spilled);
+        // Not worth a segment record
+        assertFalse(small.peekValue() instanceof LazyValue);
+        assertTrue(tier.getDiskBytes() > 150);
+
+        // Key and metadata stay in heap
+        assertEquals(DataType.STRING, db.get(0, "s").type);
+        assertEquals(s.expireAt, db.get(0, "s").expireAt);
+
+        assertArrayEquals(bytes(text(1, 100)), (byte[]) db.get(0, "s").getValue());
+        assertEquals(20, ((Deque<String>) db.get(0, "l").getValue()).size());
+        assertEquals("item-19", ((Deque<String>) db.get(0, "l").getValue()).getLast());
+        assertEquals(2, tier.getFaults());
+        assertFalse(s.peekValue() instanceof LazyValue);
+        assertTrue(h.peekValue() instanceof TieredStore.Spilled);
+        assertEquals(3, tier.getSpills());
+    }
+
+    @Test
+    public void testDumpCopiesSpilledValues() throws Exception {
+        CaradeZSet zset = new CaradeZSet();
+        for (int i = 0; i < 10; i++) zset.add(i, "member-" + i);
+        ValueEntry z = new ValueEntry(zset, DataType.ZSET, -1);
+        db.put(3, "z", z);
+        for (int i = 0; i < 50; i++) db.put(0, "k" + i, new ValueEntry(bytes(text(i, 40)), DataType.STRING, -1));
+        TieredStore tier = db.tieredStore();
+        assertEquals(51, tier.spillColdValues(0, 100) + tier.spillColdValues(3, 100));
+
+        File file = new File(dir, "dump.rdb");
+        new RdbEncoder().save(db, file.getPath());
+        // Written without faulting anything back in
+        assertEquals(0, tier.getFaults());
+        assertTrue(z.peekValue() instanceof TieredStore.Spilled);
+
+        CaradeDatabase reloaded = new CaradeDatabase(new Config(), null);
+        try (FileInputStream in = new FileInputStream(file)) {
+            new RdbParser(new BufferedInputStream(in)).parse(reloaded);
+        }
+        assertEquals(50, reloaded.size(0));
+        assertArrayEquals(bytes(text(7, 40)), (byte[]) reloaded.get(0, "k7").getValue());
+        assertEquals(9.0, ((CaradeZSet) reloaded.get(3, "z").getValue()).score("member-9"));
+    }
+
+    @Test
+    public void testCompactionMovesLiveValues() throws Exception {
+        for (int i = 0; i < 200; i++) db.put(0, "k" + i, new ValueEntry(bytes(text(i, 80)), DataType.STRING, -1));
+        TieredStore tier = db.tieredStore();
+        assertEquals(200, tier.spillColdValues(0, 200));
+        assertTrue(tier.getSegments() > 3);
+
+        // Most values come back to heap, a few stay spilled in every segment
+        for (int i = 0; i < 200; i++) {
+            if (i % 10 != 0) db.get(0, "k" + i).getValue();
+        }
+        assertTrue(tier.compact() > 0);
+        for (int i = 0; i < 200; i += 10) {
+            ValueEntry v = db.get(0, "k" + i);
+            assertTrue(v.peekValue() instanceof TieredStore.Spilled);
+            assertArrayEquals(bytes(text(i, 80)), (byte[]) v.getValue());
+        }
+    }
+
+    @Test
+    public void testPolicySpillsInsteadOfEvicting() throws Exception {
+        config.maxMemory = 1; // Always over
+        config.maxMemoryPolicy = "tiered";
+        for (int i = 0; i < 100; i++) db.put(0, "k" + i, new ValueEntry(bytes(text(i, 64)), DataType.STRING, -1));
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while ((db.getTieredStore() == null || db.getTieredStore().getSpills() == 0) && System.currentTimeMillis() < deadline) {
+            db.performEvictionIfNeeded(0);
+            Thread.sleep(10);
+        }
+        assertTrue(db.getTieredStore().getSpills() > 0);
+        assertEquals(100, db.size(0));
+        for (int i = 0; i < 100; i++) assertArrayEquals(bytes(text(i, 64)), (byte[]) db.get(0, "k" + i).getValue());
+    }
+}
@@ -1,12 +1,19 @@
 package core.network;
 
 import core.Carade;
+import core.Config;
+import core.protocol.netty.NettyRespEncoder;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.embedded.EmbeddedChannel;
 import org.junit.jupiter.api.Test;
 
 import java.io.ByteArrayOutputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -45,4 +52,47 @@ public class ClientBufferTest {
         // This test serves as a benchmark/verification that pumping data works.
         assertTrue(true);
     }
+
+    @Test
+    public void testPipelinedRepliesFlushOnce() {
+        AtomicInteger flushes = new AtomicInteger();
+        ClientHandler client = new ClientHandler();
+        client.setCurrentUser(new Config.User("default", "pass", true, true));
+        EmbeddedChannel channel = new EmbeddedChannel(new NettyRespEncoder(), new ChannelOutboundHandlerAdapter() {
+            @Override
+            public void flush(ChannelHandlerContext ctx) throws Exception {
+                flushes.incrementAndGet();
+                super.flush(ctx);
+            }
+        }, client);
+        flushes.set(0);
+
+        List<byte[]> ping = new ArrayList<>();
+        ping.add("PING".getBytes(StandardCharsets.UTF_8));
+        // One read burst carrying three commands, then channelReadComplete
+        channel.writeInbound(ping, ping, ping);
+
+        assertEquals(1, flushes.get());
+        for (int i = 0; i < 3; i++) {
+            ByteBuf reply = channel.readOutbound();
+            assertEquals("+PONG\r\n", reply.toString(StandardCharsets.UTF_8));
+            reply.release();
+        }
+        assertNull(channel.readOutbound());
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    public void testPushOutsideReadBurstFlushesImmediately() {
+        ClientHandler client = new ClientHandler();
+        EmbeddedChannel channel = new EmbeddedChannel(client);
+
+        client.send("news", "hello", null);
+
+        ByteBuf push = channel.readOutbound();
+        assertNotNull(push);
+        assertTrue(push.toString(StandardCharsets.UTF_8).endsWith("$5\r\nhello\r\n"));
+        push.release();
+        channel.finishAndReleaseAll();
+    }
 }
@@ -0,0 +1,148 @@
+package core.network;
+
+import core.Carade;
+import core.Config;
+import core.db.CaradeDatabase;
+import core.db.DataType;
+import core.db.ValueEntry;
+import core.protocol.netty.NettyRespDecoder;
+import core.protocol.netty.NettyRespEncoder;
+import core.server.ShardManager;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.DefaultEventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.local.LocalAddress;
+import io.netty.channel.local.LocalChannel;
+import io.netty.channel.local.LocalServerChannel;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ShardedPipelineTest {
+
+    private DefaultEventLoopGroup serverLoop; // One thread: every connection shares it
+    private DefaultEventLoopGroup clientLoop;
+    private Channel server;
+    private ShardManager shards;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        if (Carade.db == null) Carade.db = CaradeDatabase.getInstance();
+        Carade.db.clearAll();
+        shards = ShardManager.init(4);
+        serverLoop = new DefaultEventLoopGroup(1);
+        clientLoop = new DefaultEventLoopGroup(1);
+        Config.User user = new Config.User("default", "pass", true, true);
+        server = new ServerBootstrap()
+                .group(serverLoop)
+                .channel(LocalServerChannel.class)
+                .childHandler(new ChannelInitializer<LocalChannel>() {
+                    @Override
+                    protected void initChannel(LocalChannel ch) {
+                        ClientHandler client = new ClientHandler();
+                        client.setCurrentUser(user);
+                        ch.pipeline().addLast(new NettyRespDecoder(true), new NettyRespEncoder(), client);
+                    }
+                })
+                .bind(new LocalAddress("sharded-pipeline-test")).sync().channel();
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        server.close().sync();
+        clientLoop.shutdownGracefully(0, 0, TimeUnit.SECONDS).sync();
+        serverLoop.shutdownGracefully(0, 0, TimeUnit.SECONDS).sync();
+        ShardManager.resetSingleton();
+    }
+
+    // Client connection collecting what the server sends
+    private Channel connect(BlockingQueue<String> replies) throws Exception {
+        return new Bootstrap()
+                .group(clientLoop)
+                .channel(LocalChannel.class)
+                .handler(new SimpleChannelInboundHandler<ByteBuf>() {
+                    @Override
+                    protected void channelRead0(ChannelHandlerContext ctx, ByteBuf msg) {
+                        replies.add(msg.toString(StandardCharsets.UTF_8));
+                    }
+                })
+                .connect(server.localAddress()).sync().channel();
+    }
+
+    private static String get(String key) {
+        return "*2\r\n$3\r\nGET\r\n$" + key.length() + "\r\n" + key + "\r\n";
+    }
+
+    @Test
+    public void testSlowShardDoesNotStallOtherConnections() throws Exception {
+        String slowKey = "a";
+        String fastKey = "b";
+        int n = 0;
+        while (shards.shardOf(slowKey.getBytes(StandardCharsets.UTF_8)) == shards.shardOf(fastKey.getBytes(StandardCharsets.UTF_8))) {
+            fastKey = "b" + (n++);
+        }
+        Carade.db.put(0, fastKey, new ValueEntry("fast".getBytes(StandardCharsets.UTF_8), DataType.STRING, -1));
+
+        // A slow command occupies the shard of slowKey
+        CountDownLatch slow = new CountDownLatch(1);
+        shards.post(slowKey.getBytes(StandardCharsets.UTF_8), slow::await);
+
+        BlockingQueue<String> slowReplies = new LinkedBlockingQueue<>();
+        BlockingQueue<String> fastReplies = new LinkedBlockingQueue<>();
+        Channel slowClient = connect(slowReplies);
+        Channel fastClient = connect(fastReplies);
+        try {
+            slowClient.writeAndFlush(Unpooled.copiedBuffer(get(slowKey), StandardCharsets.UTF_8)).sync();
+            fastClient.writeAndFlush(Unpooled.copiedBuffer(get(fastKey), StandardCharsets.UTF_8)).sync();
+
+            assertEquals("$4\r\nfast\r\n", fastReplies.poll(5, TimeUnit.SECONDS), "Served while the other shard is busy");
+            assertNull(slowReplies.poll(100, TimeUnit.MILLISECONDS));
+        } finally {
+            slow.countDown();
+        }
+        assertEquals("$-1\r\n", slowReplies.poll(5, TimeUnit.SECONDS));
+        slowClient.close().sync();
+        fastClient.close().sync();
+    }
+
+    @Test
+    public void testPipelineKeepsOrderAcrossShards() throws Exception {
+        BlockingQueue<String> replies = new LinkedBlockingQueue<>();
+        Channel client = connect(replies);
+        StringBuilder pipeline = new StringBuilder();
+        for (int i = 0; i < 50; i++) {
+            String key = "k" + i;
+            pipeline.append("*3\r\n$3\r\nSET\r\n$").append(key.length()).append("\r\n").append(key)
+                    .append("\r\n$").append(String.valueOf(i).length()).append("\r\n").append(i).append("\r\n");
+            pipeline.append(get(key));
+        }
+        client.writeAndFlush(Unpooled.copiedBuffer(pipeline, StandardCharsets.UTF_8)).sync();
+
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 50; i++) {
+            expected.append("+OK\r\n$").append(String.valueOf(i).length()).append("\r\n").append(i).append("\r\n");
+        }
+        StringBuilder received = new StringBuilder();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (received.length() < expected.length() && System.nanoTime() < deadline) {
+            String r = replies.poll(100, TimeUnit.MILLISECONDS);
+            if (r != null) received.append(r);
+        }
+        assertEquals(expected.toString(), received.toString());
+        client.close().sync();
+    }
+}
@@ -0,0 +1,66 @@
+package core.persistence;
+
+import core.db.CaradeDatabase;
+import core.protocol.Resp;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AofLoaderTest {
+
+    private static byte[] command(String... args) {
+        List<byte[]> parts = new ArrayList<>();
+        for (String a : args) parts.add(a.getBytes(StandardCharsets.UTF_8));
+        return Resp.array(parts);
+    }
+
+    @Test
+    public void testCommandsAcrossWindowsAndTruncatedTail() throws IOException {
+        File f = File.createTempFile("loader", ".aof");
+        String big = "x".repeat(300); // Larger than the window below
+        try (FileOutputStream out = new FileOutputStream(f)) {
+            for (int i = 0; i < 100; i++) out.write(command("SET", "k" + i, "v" + i));
+            out.write(command("SET", "big", big));
+            out.write(command("DEL", "k1"));
+            byte[] partial = command("SET", "lost", "value");
+            out.write(Arrays.copyOf(partial, partial.length - 3));
+        }
+        try {
+            List<List<byte[]>> seen = new ArrayList<>();
+            AofLoader loader = new AofLoader(64);
+            loader.load(f, new CaradeDatabase(new core.Config(), null), seen::add);
+
+            assertEquals(102, seen.size());
+            assertEquals(102, loader.getCommands());
+            assertEquals("v42", new String(seen.get(42).get(2), StandardCharsets.UTF_8));
+            assertEquals(big, new String(seen.get(100).get(2), StandardCharsets.UTF_8));
+            assertEquals("DEL", new String(seen.get(101).get(0), StandardCharsets.UTF_8));
+        } finally {
+            f.delete();
+        }
+    }
+
+    @Test
+    public void testRejectsGarbage() throws IOException {
+        File f = File.createTempFile("loader", ".aof");
+        try (FileOutputStream out = new FileOutputStream(f)) {
+            out.write(command("SET", "a", "1"));
+            out.write("*2\r\n$3\r\nGET\r\n:5\r\n".getBytes(StandardCharsets.UTF_8));
+        }
+        try {
+            List<List<byte[]>> seen = new ArrayList<>();
+            assertThrows(IOException.class, () -> new AofLoader().load(f, new CaradeDatabase(new core.Config(), null), seen::add));
+            assertEquals(1, seen.size());
+        } finally {
+            f.delete();
+        }
+    }
+}
@@ -5,12 +5,17 @@ import core.db.CaradeDatabase;
 import core.db.DataType;
 import core.db.ValueEntry;
 import core.server.WriteSequencer;
+import core.structs.BloomFilter;
+import core.utils.ByteStrings;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -47,7 +52,7 @@ public class AofPersistenceTest {
     }
 
     @Test
-    public void testAofReplay() {
+    public void testAofReplay() throws IOException {
         // Log some commands
         logger.log("SET", "key1", "val1");
         logger.log("RPUSH", "list1", "item1", "item2");
@@ -64,6 +69,22 @@ public class AofPersistenceTest {
         assertTrue(CaradeDatabase.getInstance().exists(0, "list1"));
     }
 
+    @Test
+    public void testAofReplayBinaryArguments() throws IOException {
+        byte[] key = {(byte) 0xFF, 0, 'k', (byte) 0xC3};
+        byte[] value = {(byte) 0x80, 0, (byte) 0xFE, '\r', '\n'};
+        logger.log("SET", key, value);
+        logger.log("SADD", ByteStrings.of(value), ByteStrings.of(key));
+        logger.flush();
+
+        CaradeDatabase.getInstance().clearAll();
+        logger.replay(Carade::executeAofCommand);
+
+        assertArrayEquals(value, (byte[]) CaradeDatabase.getInstance().get(0, ByteStrings.of(key)).getValue());
+        ValueEntry set = CaradeDatabase.getInstance().get(0, ByteStrings.of(value));
+        assertTrue(((java.util.Set<?>) set.getValue()).contains(ByteStrings.of(key)));
+    }
+
     @Test
     public void testTruncatedAof() throws IOException {
         // Generate valid AOF
@@ -116,4 +137,117 @@ public class AofPersistenceTest {
         
         // Ensure k1 only exists once (implied by correct replay)
     }
+
+    @Test
+    public void testFsyncPolicyAndGroupCommit() throws IOException {
+        assertEquals(CommandLogger.FsyncPolicy.ALWAYS, CommandLogger.FsyncPolicy.parse("always"));
+        assertEquals(CommandLogger.FsyncPolicy.NO, CommandLogger.FsyncPolicy.parse("NO"));
+        assertEquals(CommandLogger.FsyncPolicy.EVERYSEC, CommandLogger.FsyncPolicy.parse("bogus"));
+
+        logger.setFsyncPolicy(CommandLogger.FsyncPolicy.ALWAYS);
+        logger.log("SET", "k1", "v1");
+        assertTrue(logger.getPendingBytes() > 0, "Buffered command is pending");
+
+        logger.fsync();
+        assertEquals(0, logger.getPendingBytes());
+        assertEquals(1, logger.getFsyncCount());
+        assertTrue(aofFile.length() > 0, "fsync writes the buffer to the file");
+
+        // Nothing new since the last force: callers share it instead of forcing again
+        logger.fsync();
+        assertEquals(1, logger.getFsyncCount());
+
+        logger.log("SET", "k2", "v2");
+        logger.fsync();
+        assertEquals(2, logger.getFsyncCount());
+        assertTrue(logger.getMaxFsyncMicros() >= logger.getAvgFsyncMicros());
+    }
+
+    @Test
+    public void testFailedWritesAreKeptAndRetried() throws IOException {
+        logger.setFsyncPolicy(CommandLogger.FsyncPolicy.ALWAYS);
+        FileChannel broken = CommandLogger.openAppend(aofFile);
+        broken.close();
+        logger.replaceChannel(broken);
+
+        logger.log("SET", "k1", "v1");
+        assertThrows(IOException.class, () -> logger.fsync());
+        assertNotNull(logger.getLastError());
+        assertTrue(logger.getPendingBytes() > 0, "The command stays buffered");
+        assertEquals(0, aofFile.length());
+
+        logger.replaceChannel(CommandLogger.openAppend(aofFile));
+        logger.fsync();
+        assertNull(logger.getLastError());
+        assertEquals(0, logger.getPendingBytes());
+        assertTrue(new String(Files.readAllBytes(aofFile.toPath()), StandardCharsets.UTF_8).contains("v1"));
+    }
+
+    @Test
+    public void testFailedBatchIsNotDurable() throws Exception {
+        logger.setFsyncPolicy(CommandLogger.FsyncPolicy.ALWAYS);
+        FileChannel broken = CommandLogger.openAppend(aofFile);
+        broken.close();
+        logger.replaceChannel(broken);
+
+        WriteSequencer sequencer = WriteSequencer.getInstance();
+        byte[] set = "*3\r\n$3\r\nSET\r\n$2\r\nk1\r\n$2\r\nv1\r\n".getBytes(StandardCharsets.UTF_8);
+        sequencer.executeWrite(() -> {}, set);
+        long seq = WriteSequencer.takeLastSequence();
+        sequencer.sync();
+        assertFalse(sequencer.isDurable(seq), "Replies to a write that is not on disk stay held");
+        assertNotNull(sequencer.getAofError(), "Writes are refused meanwhile");
+
+        // The pipeline retries on its own once the disk is back
+        logger.replaceChannel(CommandLogger.openAppend(aofFile));
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!sequencer.isDurable(seq) && System.currentTimeMillis() < deadline) Thread.sleep(10);
+        assertTrue(sequencer.isDurable(seq));
+        assertNull(sequencer.getAofError());
+        assertTrue(new String(Files.readAllBytes(aofFile.toPath()), StandardCharsets.UTF_8).contains("v1"));
+    }
+
+    @Test
+    public void testMultiPartRewriteAndReplay() throws IOException {
+        File dir = Files.createTempDirectory("carade_aof").toFile();
+        // Not carade.aof: a legacy single-file AOF of that name in the working directory would be migrated
+        CommandLogger multi = new CommandLogger(dir, "multipart-test.aof");
+        CaradeDatabase db = CaradeDatabase.getInstance();
+        try {
+            BloomFilter bf = new BloomFilter(100, 0.01);
+            bf.add("member");
+            db.put(0, "k1", new ValueEntry("v1".getBytes(), DataType.STRING, -1));
+            db.put(0, "bf", new ValueEntry(bf, DataType.BLOOM, -1));
+            multi.log("SELECT", "2");
+            multi.log("SET", "k2", "v2");
+            db.put(2, "k2", new ValueEntry("v2".getBytes(), DataType.STRING, -1));
+
+            // Snapshot becomes the base of a new segment; the old segment is dropped
+            multi.rewrite(db);
+            multi.log("SET", "k3", "v3");
+            multi.flush();
+
+            assertTrue(new File(dir, "multipart-test.aof.2.base.rdb").exists());
+            assertTrue(new File(dir, "multipart-test.aof.2.incr.aof").exists());
+            assertFalse(new File(dir, "multipart-test.aof.1.incr.aof").exists());
+            String manifest = new String(Files.readAllBytes(new File(dir, "multipart-test.aof.manifest").toPath()), StandardCharsets.UTF_8);
+            assertEquals("file multipart-test.aof.2.base.rdb seq 2 type b\nfile multipart-test.aof.2.incr.aof seq 2 type i\n", manifest);
+
+            db.clearAll();
+            Carade.resetAofClient();
+            multi.replay(db, Carade::executeAofCommand);
+
+            assertEquals("v1", new String((byte[]) db.get(0, "k1").getValue()));
+            assertEquals(1, ((BloomFilter) db.get(0, "bf").getValue()).exists("member"));
+            assertEquals("v2", new String((byte[]) db.get(2, "k2").getValue()));
+            // The new segment restates the DB selected before the rotation
+            assertEquals("v3", new String((byte[]) db.get(2, "k3").getValue()));
+            assertTrue(multi.hasData());
+        } finally {
+            multi.close();
+            Carade.resetAofClient();
+            for (File f : dir.listFiles()) f.delete();
+            dir.delete();
+        }
+    }
 }
@@ -0,0 +1,165 @@
+package core.persistence;
+
+import core.protocol.Resp;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BinaryAofTest {
+
+    private static List<byte[]> args(String... args) {
+        List<byte[]> parts = new ArrayList<>();
+        for (String a : args) parts.add(a.getBytes(StandardCharsets.UTF_8));
+        return parts;
+    }
+
+    private static List<String> strings(List<byte[]> args) {
+        List<String> out = new ArrayList<>();
+        for (byte[] a : args) out.add(new String(a, StandardCharsets.UTF_8));
+        return out;
+    }
+
+    private static List<List<String>> load(File f, int window) throws IOException {
+        List<List<String>> seen = new ArrayList<>();
+        new AofLoader(window).loadCommands(f, 0, a -> seen.add(strings(a)));
+        return seen;
+    }
+
+    @Test
+    public void testRoundTripThroughConverter() throws IOException {
+        File resp = File.createTempFile("aof", ".resp");
+        File bin = File.createTempFile("aof", ".bin");
+        File back = File.createTempFile("aof", ".resp");
+        try {
+            try (FileOutputStream out = new FileOutputStream(resp)) {
+                out.write(Resp.array(args("SET", "k", "-42")));
+                out.write(Resp.array(args("SET", "big", "x".repeat(300))));
+                out.write(Resp.array(args("RPUSH", "list", "007", "-0", "9223372036854775807", "-9223372036854775808")));
+                out.write(Resp.array(args("SELECT", "0")));
+                out.write(Resp.array(args("DEL", "a")));
+                out.write(Resp.array(args("SELECT", "0")));
+                out.write(Resp.array(args("DEL", "b")));
+                out.write(Resp.array(args("SELECT", "3")));
+                out.write(Resp.array(args("DEL", "c")));
+                out.write(Resp.array(args("NOSUCHCOMMAND", "x")));
+                out.write(Resp.array(args("EXPIREAT", "k", "2000000000")));
+            }
+            assertEquals(11, AofConverter.toBinary(resp, bin));
+            assertTrue(BinaryAofEncoder.isBinary(java.nio.file.Files.readAllBytes(bin.toPath())));
+
+            assertEquals(9, AofConverter.toResp(bin, back));
+            List<List<String>> seen = load(back, 64);
+            assertEquals(List.of("SET", "k", "-42"), seen.get(0));
+            assertEquals("x".repeat(300), seen.get(1).get(2));
+            // Non-canonical integers stay as they were
+            assertEquals(List.of("RPUSH", "list", "007", "-0", "9223372036854775807", "-9223372036854775808"), seen.get(2));
+            // The repeated SELECT is dropped and the DELs of one DB merged
+            assertEquals(List.of("SELECT", "0"), seen.get(3));
+            assertEquals(List.of("DEL", "a", "b"), seen.get(4));
+            assertEquals(List.of("SELECT", "3"), seen.get(5));
+            assertEquals(List.of("DEL", "c"), seen.get(6));
+            assertEquals(List.of("NOSUCHCOMMAND", "x"), seen.get(7));
+            assertEquals(List.of("PEXPIREAT", "k", "2000000000000"), seen.get(8));
+        } finally {
+            resp.delete();
+            bin.delete();
+            back.delete();
+        }
+    }
+
+    @Test
+    public void testRelativeExpiryBecomesAbsolute() throws IOException {
+        BinaryAofEncoder encoder = new BinaryAofEncoder(List.of("SET", "PEXPIREAT"));
+        long before = System.currentTimeMillis();
+        encoder.add(Resp.array(args("SET", "k", "v", "EX", "100")));
+        encoder.add(Resp.array(args("PSETEX", "p", "5000", "v")));
+        long after = System.currentTimeMillis();
+
+        File f = File.createTempFile("aof", ".bin");
+        try (FileOutputStream out = new FileOutputStream(f)) {
+            encoder.writeHeader(out);
+            ByteArrayOutputStream block = new ByteArrayOutputStream();
+            encoder.finishBlock(block);
+            block.writeTo(out);
+        }
+        try {
+            List<List<String>> seen = load(f, 1024);
+            assertEquals(4, seen.size());
+            assertEquals(List.of("SET", "k", "v"), seen.get(0));
+            assertEquals("PEXPIREAT", seen.get(1).get(0));
+            long at = Long.parseLong(seen.get(1).get(2));
+            assertTrue(at >= before + 100_000 && at <= after + 100_000);
+            assertEquals(List.of("SET", "p", "v"), seen.get(2));
+            at = Long.parseLong(seen.get(3).get(2));
+            assertTrue(at >= before + 5000 && at <= after + 5000);
+        } finally {
+            f.delete();
+        }
+    }
+
+    @Test
+    public void testChecksums() throws IOException {
+        File f = File.createTempFile("aof", ".bin");
+        BinaryAofEncoder encoder = new BinaryAofEncoder();
+        long[] blockEnds = new long[3];
+        try (FileOutputStream out = new FileOutputStream(f)) {
+            encoder.writeHeader(out);
+            for (int b = 0; b < 3; b++) {
+                for (int i = 0; i < 10; i++) encoder.add(args("SET", "k" + b + "-" + i, "value"));
+                ByteArrayOutputStream block = new ByteArrayOutputStream();
+                encoder.finishBlock(block);
+                block.writeTo(out);
+                blockEnds[b] = out.getChannel().position();
+            }
+        }
+        try {
+            assertEquals(30, load(f, 64).size());
+
+            // A damaged last block is a torn append: ignored
+            flipByte(f, blockEnds[2] - 6);
+            assertEquals(20, load(f, 64).size());
+
+            // Anywhere else it fails the load
+            flipByte(f, blockEnds[0] - 6);
+            assertThrows(IOException.class, () -> load(f, 64));
+        } finally {
+            f.delete();
+        }
+    }
+
+    @Test
+    public void testExpirationStreamIsSmaller() throws IOException {
+        // The janitor's "SELECT n" + "DEL key" per expired key, then integer-heavy writes
+        ByteArrayOutputStream resp = new ByteArrayOutputStream();
+        BinaryAofEncoder encoder = new BinaryAofEncoder();
+        for (int i = 0; i < 1000; i++) {
+            List<List<byte[]>> cmds = List.of(args("SELECT", "0"), args("DEL", "session:" + i),
+                    args("INCRBY", "counter:" + (i % 10), String.valueOf(i * 1000)));
+            for (List<byte[]> c : cmds) {
+                resp.write(Resp.array(c));
+                encoder.add(c);
+            }
+        }
+        ByteArrayOutputStream bin = new ByteArrayOutputStream();
+        encoder.finishBlock(bin);
+        assertTrue(bin.size() * 2 < resp.size(), "binary " + bin.size() + " vs resp " + resp.size());
+    }
+
+    private static void flipByte(File f, long pos) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(f, "rw")) {
+            raf.seek(pos);
+            int b = raf.read();
+            raf.seek(pos);
+            raf.write(b ^ 0xFF);
+        }
+    }
+}
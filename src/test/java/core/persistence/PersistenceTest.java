@@ -3,12 +3,30 @@ package core.persistence;
 import core.db.CaradeDatabase;
 import core.db.DataType;
 import core.db.ValueEntry;
+import core.db.LazyValue;
+import core.persistence.rdb.LazyRdbLoader;
+import core.persistence.rdb.ParallelRdbEncoder;
+import core.persistence.rdb.ParallelRdbLoader;
+import core.commands.json.JsonUtils;
+import core.persistence.rdb.RdbConstants;
 import core.persistence.rdb.RdbEncoder;
 import core.persistence.rdb.RdbParser;
+import core.structs.BloomFilter;
 import core.structs.CaradeZSet;
+import core.structs.HyperLogLog;
+import core.structs.PackedHash;
+import core.structs.PackedList;
+import core.structs.PackedSet;
+import core.structs.tdigest.TDigest;
+import core.utils.ByteStrings;
 import org.junit.jupiter.api.Test;
 
 import java.io.*;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentLinkedDeque;
 import java.util.concurrent.ConcurrentHashMap;
 import java.nio.charset.StandardCharsets;
@@ -63,13 +81,13 @@ public class PersistenceTest {
         
         ValueEntry vL = db.get(0, "l");
         assertEquals(DataType.LIST, vL.type);
-        ConcurrentLinkedDeque<String> lLoaded = (ConcurrentLinkedDeque<String>) vL.getValue();
+        Deque<String> lLoaded = (Deque<String>) vL.getValue();
         assertEquals(2, lLoaded.size());
         assertTrue(lLoaded.contains("l1"));
         
         ValueEntry vH = db.get(0, "h");
         assertEquals(DataType.HASH, vH.type);
-        ConcurrentHashMap<String, String> hLoaded = (ConcurrentHashMap<String, String>) vH.getValue();
+        Map<String, String> hLoaded = (Map<String, String>) vH.getValue();
         assertEquals("v1", hLoaded.get("f1"));
         
         ValueEntry vZ = db.get(0, "z");
@@ -79,4 +97,272 @@ public class PersistenceTest {
         assertEquals(10.5, zLoaded.score("m1"));
         assertEquals(20.0, zLoaded.score("m2"));
     }
+
+    @Test
+    public void testIntSetReload() throws IOException {
+        CaradeDatabase db = new CaradeDatabase(new core.Config(), null);
+        PackedSet ids = new PackedSet(Arrays.asList("-7", "3", "100000", "5000000000"));
+        db.put(0, "ids", new ValueEntry(ids, DataType.SET, -1));
+        db.put(0, "names", new ValueEntry(new PackedSet(Arrays.asList("1", "a")), DataType.SET, -1));
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        DataOutputStream dos = new DataOutputStream(baos);
+        new RdbEncoder().encode(db, dos);
+        dos.close();
+        byte[] rdb = baos.toByteArray();
+        // Written as the RDB intset type
+        byte[] entry = {(byte) RdbConstants.RDB_TYPE_SET_INTSET, 3, 'i', 'd', 's'};
+        assertTrue(indexOf(rdb, entry) > 0);
+
+        CaradeDatabase loaded = new CaradeDatabase(new core.Config(), null);
+        new RdbParser(new ByteArrayInputStream(rdb)).parse(loaded);
+        PackedSet set = (PackedSet) loaded.get(0, "ids").getValue();
+        assertEquals("intset", set.encoding());
+        assertEquals(new HashSet<>(ids), set);
+        assertEquals(Set.of("1", "a"), loaded.get(0, "names").getValue());
+    }
+
+    @Test
+    public void testBinaryKeysAndElementsReload() throws IOException {
+        CaradeDatabase db = new CaradeDatabase(new core.Config(), null);
+        // Not valid UTF-8
+        String key = ByteStrings.of(new byte[] {(byte) 0xFF, 0, 'k', (byte) 0xC3});
+        String element = ByteStrings.of(new byte[] {(byte) 0x80, 0, (byte) 0xFE, '\r', '\n'});
+        db.put(0, key, new ValueEntry(ByteStrings.bytes(element), DataType.STRING, -1));
+        db.put(0, key + "l", new ValueEntry(new PackedList(Arrays.asList(element, key)), DataType.LIST, -1));
+        PackedHash hash = new PackedHash();
+        hash.put(element, key);
+        db.put(0, key + "h", new ValueEntry(hash, DataType.HASH, -1));
+        CaradeZSet zset = new CaradeZSet();
+        zset.add(1, element);
+        zset.add(2, key);
+        db.put(0, key + "z", new ValueEntry(zset, DataType.ZSET, -1));
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        DataOutputStream dos = new DataOutputStream(baos);
+        new RdbEncoder().encode(db, dos);
+        dos.close();
+        byte[] rdb = baos.toByteArray();
+        // The dump holds the raw bytes
+        assertTrue(indexOf(rdb, ByteStrings.bytes(key)) > 0);
+
+        CaradeDatabase loaded = new CaradeDatabase(new core.Config(), null);
+        new RdbParser(new ByteArrayInputStream(rdb)).parse(loaded);
+        assertEquals(4, loaded.size(0));
+        assertArrayEquals(ByteStrings.bytes(element), (byte[]) loaded.get(0, key).getValue());
+        assertEquals(Arrays.asList(element, key), Arrays.asList(((Deque<?>) loaded.get(0, key + "l").getValue()).toArray()));
+        assertEquals(key, ((Map<?, ?>) loaded.get(0, key + "h").getValue()).get(element));
+        CaradeZSet z = (CaradeZSet) loaded.get(0, key + "z").getValue();
+        assertEquals(1.0, z.score(element));
+        assertEquals(0, z.rank(element));
+    }
+
+    private static int indexOf(byte[] data, byte[] part) {
+        outer:
+        for (int i = 0; i + part.length <= data.length; i++) {
+            for (int j = 0; j < part.length; j++) {
+                if (data[i + j] != part[j]) continue outer;
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    @Test
+    public void testParallelRdbReload() throws IOException {
+        CaradeDatabase db = new CaradeDatabase(new core.Config(), null);
+        int keys = ParallelRdbEncoder.SECTION_KEYS * 2 + 100; // Several sections in DB 0
+        for (int i = 0; i < keys; i++) {
+            db.put(0, "k" + i, new ValueEntry(("v" + i).getBytes(StandardCharsets.UTF_8), DataType.STRING, -1));
+        }
+        ConcurrentHashMap<String, String> hash = new ConcurrentHashMap<>();
+        hash.put("f1", "v1");
+        db.put(3, "h", new ValueEntry(hash, DataType.HASH, -1));
+        ValueEntry expiring = new ValueEntry("x".getBytes(StandardCharsets.UTF_8), DataType.STRING, -1);
+        expiring.expireAt = System.currentTimeMillis() + 60_000;
+        db.put(3, "e", expiring);
+
+        File file = File.createTempFile("parallel", ".rdb");
+        try {
+            ParallelRdbEncoder encoder = new ParallelRdbEncoder(4, true);
+            encoder.save(db, file.getPath());
+            assertTrue(encoder.getSectionCount() >= 3);
+
+            CaradeDatabase loaded = new CaradeDatabase(new core.Config(), null);
+            assertEquals(keys + 2, new ParallelRdbLoader(4).load(loaded, file));
+            assertEquals(keys, loaded.size(0));
+            assertEquals(2, loaded.size(3));
+            assertArrayEquals("v77".getBytes(StandardCharsets.UTF_8), (byte[]) loaded.get(0, "k77").getValue());
+            assertEquals("v1", ((Map<String, String>) loaded.get(3, "h").getValue()).get("f1"));
+            assertEquals(expiring.expireAt, loaded.get(3, "e").expireAt);
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testParallelRdbRejectsCorruptSection() throws IOException {
+        CaradeDatabase db = new CaradeDatabase(new core.Config(), null);
+        for (int i = 0; i < 1000; i++) {
+            db.put(0, "k" + i, new ValueEntry("value".getBytes(StandardCharsets.UTF_8), DataType.STRING, -1));
+        }
+        File file = File.createTempFile("parallel", ".rdb");
+        try {
+            new ParallelRdbEncoder(2, false).save(db, file.getPath());
+            try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                raf.seek(20);
+                raf.write(raf.read() ^ 0xFF);
+            }
+            CaradeDatabase loaded = new CaradeDatabase(new core.Config(), null);
+            assertThrows(IOException.class, () -> new ParallelRdbLoader(2).load(loaded, file));
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testNativeProbabilisticAndJsonTypes() throws IOException {
+        CaradeDatabase db = new CaradeDatabase(new core.Config(), null);
+        BloomFilter bf = new BloomFilter(100000, 0.01);
+        for (int i = 0; i < 1000; i++) bf.add("item" + i);
+        db.put(0, "bf", new ValueEntry(bf, DataType.BLOOM, -1));
+
+        HyperLogLog sparse = new HyperLogLog();
+        for (int i = 0; i < 100; i++) sparse.add("u" + i);
+        db.put(0, "hll-sparse", new ValueEntry(sparse, DataType.HYPERLOGLOG, -1));
+        HyperLogLog dense = new HyperLogLog();
+        for (int i = 0; i < 100000; i++) dense.add("u" + i);
+        db.put(0, "hll-dense", new ValueEntry(dense, DataType.HYPERLOGLOG, -1));
+
+        TDigest td = new TDigest(100);
+        for (int i = 1; i <= 10005; i++) td.add(i); // Leaves some values unmerged in the buffer
+        db.put(0, "td", new ValueEntry(td, DataType.TDIGEST, -1));
+
+        db.put(0, "json", new ValueEntry(JsonUtils.parse("{\"a\":[1,2,{\"b\":\"c\"}]}"), DataType.JSON, -1));
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        DataOutputStream dos = new DataOutputStream(baos);
+        new RdbEncoder().encode(db, dos);
+        dos.close();
+        // Raw bloom bits, one dense HLL, 16 bytes per centroid; the sparse HLL takes a few hundred bytes
+        long expected = bf.getBitSize() / 8 + HyperLogLog.registerCount() + 16L * td.centroidCount();
+        assertTrue(baos.size() < expected + 2048, "dump is " + baos.size() + " bytes, expected about " + expected);
+
+        CaradeDatabase loaded = new CaradeDatabase(new core.Config(), null);
+        new RdbParser(new ByteArrayInputStream(baos.toByteArray())).parse(loaded);
+
+        BloomFilter bf2 = (BloomFilter) loaded.get(0, "bf").getValue();
+        assertEquals(bf.getBitSize(), bf2.getBitSize());
+        assertEquals(bf.getHashCount(), bf2.getHashCount());
+        assertArrayEquals(bf.toByteArray(), bf2.toByteArray());
+        assertEquals(1, bf2.exists("item500"));
+
+        assertArrayEquals(sparse.getRegisters(), ((HyperLogLog) loaded.get(0, "hll-sparse").getValue()).getRegisters());
+        HyperLogLog dense2 = (HyperLogLog) loaded.get(0, "hll-dense").getValue();
+        assertArrayEquals(dense.getRegisters(), dense2.getRegisters());
+        assertEquals(dense.count(), dense2.count());
+
+        TDigest td2 = (TDigest) loaded.get(0, "td").getValue();
+        assertEquals(td.size(), td2.size());
+        assertEquals(td.centroidCount(), td2.centroidCount());
+        assertEquals(td.quantile(0.5), td2.quantile(0.5), 1e-9);
+
+        assertEquals("c", ((com.fasterxml.jackson.databind.JsonNode) loaded.get(0, "json").getValue()).get("a").get(2).get("b").asText());
+    }
+
+    @Test
+    public void testLegacyCaradeObjectStillLoads() throws IOException {
+        // Type 0x40 as written by older versions: type name + Java-serialized struct or JSON text
+        HyperLogLog hll = new HyperLogLog();
+        hll.add("x");
+        ByteArrayOutputStream serialized = new ByteArrayOutputStream();
+        try (ObjectOutputStream oos = new ObjectOutputStream(serialized)) {
+            oos.writeObject(hll);
+        }
+
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        DataOutputStream dos = new DataOutputStream(baos);
+        dos.write("REDIS0009".getBytes(StandardCharsets.US_ASCII));
+        dos.write(RdbConstants.RDB_OPCODE_SELECTDB);
+        dos.write(0);
+        dos.write(RdbConstants.RDB_TYPE_CARADE_OBJECT);
+        writeRaw(dos, "h".getBytes(StandardCharsets.UTF_8));
+        writeRaw(dos, "HYPERLOGLOG".getBytes(StandardCharsets.UTF_8));
+        writeRaw(dos, serialized.toByteArray());
+        dos.write(RdbConstants.RDB_TYPE_CARADE_OBJECT);
+        writeRaw(dos, "j".getBytes(StandardCharsets.UTF_8));
+        writeRaw(dos, "JSON".getBytes(StandardCharsets.UTF_8));
+        writeRaw(dos, "{\"k\":1}".getBytes(StandardCharsets.UTF_8));
+        dos.write(RdbConstants.RDB_OPCODE_EOF);
+        dos.close();
+
+        CaradeDatabase loaded = new CaradeDatabase(new core.Config(), null);
+        new RdbParser(new ByteArrayInputStream(baos.toByteArray())).parse(loaded);
+        assertArrayEquals(hll.getRegisters(), ((HyperLogLog) loaded.get(0, "h").getValue()).getRegisters());
+        assertEquals(DataType.JSON, loaded.get(0, "j").type);
+    }
+
+    // Uncompressed RDB string with a 6, 14 or 32 bit length
+    private static void writeRaw(DataOutputStream dos, byte[] b) throws IOException {
+        if (b.length < 64) {
+            dos.write(b.length);
+        } else if (b.length < 16384) {
+            dos.write(0x40 | (b.length >> 8));
+            dos.write(b.length & 0xFF);
+        } else {
+            dos.write(0x80);
+            dos.writeInt(b.length);
+        }
+        dos.write(b);
+    }
+
+    @Test
+    public void testLazyRdbLoad() throws Exception {
+        CaradeDatabase db = new CaradeDatabase(new core.Config(), null);
+        for (int i = 0; i < 500; i++) {
+            db.put(0, "k" + i, new ValueEntry(("value-" + i).repeat(5).getBytes(StandardCharsets.UTF_8), DataType.STRING, -1));
+        }
+        ConcurrentLinkedDeque<String> list = new ConcurrentLinkedDeque<>();
+        list.add("a"); list.add("b");
+        ValueEntry expiring = new ValueEntry(list, DataType.LIST, System.currentTimeMillis() + 60_000);
+        db.put(2, "l", expiring);
+        CaradeZSet zset = new CaradeZSet();
+        zset.add(1.5, "m");
+        db.put(2, "z", new ValueEntry(zset, DataType.ZSET, -1));
+        HyperLogLog hll = new HyperLogLog();
+        hll.add("x");
+        db.put(2, "h", new ValueEntry(hll, DataType.HYPERLOGLOG, -1));
+
+        File file = File.createTempFile("lazy", ".rdb");
+        File copy = File.createTempFile("lazy-copy", ".rdb");
+        try {
+            new RdbEncoder().save(db, file.getPath());
+
+            CaradeDatabase lazy = new CaradeDatabase(new core.Config(), null);
+            assertEquals(503, new LazyRdbLoader().load(lazy, file));
+            // Index only: types and expiry are known, values are not decoded yet
+            ValueEntry l = lazy.get(2, "l");
+            assertEquals(DataType.LIST, l.type);
+            assertEquals(expiring.expireAt, l.expireAt);
+            assertTrue(l.peekValue() instanceof LazyValue);
+            assertEquals(2, ((Deque<String>) l.getValue()).size());
+            assertFalse(l.peekValue() instanceof LazyValue);
+
+            // Values still in the old file are copied as they are
+            new RdbEncoder().save(lazy, copy.getPath());
+            CaradeDatabase reloaded = new CaradeDatabase(new core.Config(), null);
+            new RdbParser(new BufferedInputStream(new FileInputStream(copy))).parse(reloaded);
+            assertEquals(500, reloaded.size(0));
+            assertArrayEquals("value-7".repeat(5).getBytes(StandardCharsets.UTF_8), (byte[]) reloaded.get(0, "k7").getValue());
+            assertEquals(1.5, ((CaradeZSet) reloaded.get(2, "z").getValue()).score("m"));
+            assertArrayEquals(hll.getRegisters(), ((HyperLogLog) reloaded.get(2, "h").getValue()).getRegisters());
+
+            LazyRdbLoader.warm(lazy).join();
+            for (ValueEntry v : lazy.getStore(0).values()) assertFalse(v.peekValue() instanceof LazyValue);
+            assertArrayEquals("value-42".repeat(5).getBytes(StandardCharsets.UTF_8), (byte[]) lazy.get(0, "k42").getValue());
+        } finally {
+            file.delete();
+            copy.delete();
+        }
+    }
 }
@@ -0,0 +1,62 @@
+package core.persistence;
+
+import core.Carade;
+import core.commands.CommandRegistry;
+import core.db.CaradeDatabase;
+import core.network.ClientHandler;
+import core.server.WriteSequencer;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SavePointsTest {
+
+    @Test
+    public void testAnyRuleTriggers() {
+        SavePoints points = SavePoints.parse("3600 1 300 100 60 10000");
+        assertFalse(points.isEmpty());
+        assertFalse(points.isDue(0, 100000), "Nothing changed");
+        assertFalse(points.isDue(50, 299));
+        assertTrue(points.isDue(100, 300));
+        assertTrue(points.isDue(1, 3600));
+        assertTrue(points.isDue(10000, 60));
+        assertFalse(points.isDue(9999, 60));
+    }
+
+    @Test
+    public void testDirtyCountsChangedKeys() {
+        if (Carade.db == null) Carade.db = CaradeDatabase.getInstance();
+        WriteSequencer sequencer = WriteSequencer.getInstance();
+        long before = sequencer.getDirty();
+
+        List<byte[]> mset = new ArrayList<>();
+        for (String s : new String[] {"MSET", "a", "1", "b", "2", "c", "3"}) mset.add(s.getBytes(StandardCharsets.UTF_8));
+        CommandRegistry.get("MSET").execute(new ClientHandler(), mset);
+        assertEquals(before + 3, sequencer.getDirty(), "One change per key");
+
+        sequencer.appendAof(0, "DEL", "a");
+        assertEquals(before + 3, sequencer.getDirty(), "AOF-only side effects are not changes");
+
+        sequencer.markSaved(sequencer.getChanges());
+        assertEquals(0, sequencer.getDirty());
+    }
+
+    @Test
+    public void testEmptyDisables() {
+        assertTrue(SavePoints.parse("").isEmpty());
+        assertTrue(SavePoints.parse("\"\"").isEmpty());
+        assertFalse(SavePoints.parse("").isDue(1000000, 1000000));
+    }
+
+    @Test
+    public void testInvalidRules() {
+        assertThrows(IllegalArgumentException.class, () -> SavePoints.parse("900"));
+        assertThrows(IllegalArgumentException.class, () -> SavePoints.parse("0 1"));
+        assertThrows(NumberFormatException.class, () -> SavePoints.parse("900 many"));
+        assertEquals("900 1 300 10", SavePoints.parse(" 900 1  300 10 ").toString());
+    }
+}
@@ -1,7 +1,9 @@
 package core.protocol;
 
 import core.protocol.netty.NettyRespEncoder;
+import core.protocol.netty.RespWriter;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
 import io.netty.channel.embedded.EmbeddedChannel;
 import org.junit.jupiter.api.Test;
 
@@ -74,4 +76,54 @@ public class NettyRespEncoderTest {
         assertEquals("-ERR unknown command\r\n", out.toString(StandardCharsets.UTF_8));
         out.release();
     }
+
+    @Test
+    public void testByteBufPassesThrough() {
+        EmbeddedChannel channel = new EmbeddedChannel(new NettyRespEncoder());
+
+        ByteBuf reply = RespWriter.integer(ByteBufAllocator.DEFAULT, 42);
+        assertTrue(channel.writeOutbound(reply));
+
+        ByteBuf out = channel.readOutbound();
+        assertSame(reply, out);
+        assertEquals(":42\r\n", out.toString(StandardCharsets.UTF_8));
+        out.release();
+    }
+
+    @Test
+    public void testRespWriterMatchesResp() {
+        ByteBufAllocator alloc = ByteBufAllocator.DEFAULT;
+
+        List<byte[]> elements = new ArrayList<>();
+        elements.add("a".getBytes(StandardCharsets.UTF_8));
+        elements.add(null);
+        elements.add(new byte[2000]);
+
+        List<Object> mixed = new ArrayList<>();
+        mixed.add("foo".getBytes(StandardCharsets.UTF_8));
+        mixed.add(-12345678901L);
+        mixed.add(Long.MIN_VALUE);
+        mixed.add(List.of((Object) 7L));
+        mixed.add(null);
+
+        assertEncodes(Resp.simpleString("OK"), RespWriter.simpleString(alloc, "OK"));
+        assertEncodes(Resp.simpleString("FOO"), RespWriter.simpleString(alloc, "FOO"));
+        assertEncodes(Resp.error("ERR x"), RespWriter.error(alloc, "ERR x"));
+        assertEncodes(Resp.integer(0), RespWriter.integer(alloc, 0));
+        assertEncodes(Resp.integer(9999), RespWriter.integer(alloc, 9999));
+        assertEncodes(Resp.integer(-1), RespWriter.integer(alloc, -1));
+        assertEncodes(Resp.integer(Long.MAX_VALUE), RespWriter.integer(alloc, Long.MAX_VALUE));
+        assertEncodes(Resp.bulkString((String) null), RespWriter.bulkString(alloc, (String) null));
+        assertEncodes(Resp.bulkString("héllo"), RespWriter.bulkString(alloc, "héllo"));
+        assertEncodes(Resp.array(elements), RespWriter.array(alloc, elements));
+        assertEncodes(Resp.array(new ArrayList<>()), RespWriter.array(alloc, new ArrayList<>()));
+        assertEncodes(Resp.mixedArray(mixed), RespWriter.mixedArray(alloc, mixed));
+    }
+
+    private static void assertEncodes(byte[] expected, ByteBuf actual) {
+        byte[] bytes = new byte[actual.readableBytes()];
+        actual.getBytes(actual.readerIndex(), bytes);
+        assertArrayEquals(expected, bytes);
+        actual.release();
+    }
 }
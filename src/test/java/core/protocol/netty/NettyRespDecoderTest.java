@@ -1,5 +1,7 @@
 package core.protocol.netty;
 
+import core.commands.Args;
+import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
 import io.netty.channel.embedded.EmbeddedChannel;
 import org.junit.jupiter.api.Test;
@@ -30,4 +32,87 @@ public class NettyRespDecoderTest {
         assertArrayEquals("key".getBytes(StandardCharsets.UTF_8), args.get(1));
         assertArrayEquals("val".getBytes(StandardCharsets.UTF_8), args.get(2));
     }
+
+    @Test
+    public void testZeroCopyFragmentedCommand() {
+        EmbeddedChannel channel = new EmbeddedChannel(new NettyRespDecoder(true));
+
+        channel.writeInbound(Unpooled.wrappedBuffer("*3\r\n$3\r\nse".getBytes(StandardCharsets.UTF_8)));
+        assertNull(channel.readInbound());
+
+        channel.writeInbound(Unpooled.wrappedBuffer("t\r\n$3\r\nkey\r\n$2\r\n42\r\n".getBytes(StandardCharsets.UTF_8)));
+
+        Object msg = channel.readInbound();
+        assertTrue(msg instanceof RespArgs);
+        RespArgs args = (RespArgs) msg;
+        assertEquals(3, args.size());
+        assertTrue(args.equalsIgnoreCase(0, "SET"));
+        assertEquals("key", args.getString(1));
+        assertEquals(42L, args.parseLong(2));
+
+        byte[] key = args.get(1);
+        assertTrue(args.release());
+        // Copies taken before release stay valid, slices do not
+        assertArrayEquals("key".getBytes(StandardCharsets.UTF_8), key);
+        assertThrows(RuntimeException.class, () -> args.slice(2));
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    public void testZeroCopyReleasesInputBuffer() {
+        EmbeddedChannel channel = new EmbeddedChannel(new NettyRespDecoder(true));
+        ByteBuf in = Unpooled.buffer();
+        in.writeBytes("*2\r\n$4\r\nECHO\r\n$5\r\nhello\r\n".getBytes(StandardCharsets.UTF_8));
+        in.retain();
+
+        channel.writeInbound(in);
+        RespArgs args = channel.readInbound();
+        assertEquals(3, in.refCnt()); // ours + one per argument slice
+        args.release();
+        assertEquals(1, in.refCnt());
+        in.release();
+    }
+
+    @Test
+    public void testZeroCopyPartialCommandReleasedOnClose() {
+        EmbeddedChannel channel = new EmbeddedChannel(new NettyRespDecoder(true));
+        ByteBuf in = Unpooled.buffer();
+        in.writeBytes("*2\r\n$4\r\nECHO\r\n$5\r\nhel".getBytes(StandardCharsets.UTF_8));
+        in.retain();
+
+        channel.writeInbound(in);
+        assertNull(channel.readInbound());
+        channel.finishAndReleaseAll();
+        assertEquals(1, in.refCnt());
+        in.release();
+    }
+
+    @Test
+    public void testParseLong() {
+        ByteBuf buf = Unpooled.copiedBuffer("-9223372036854775808", StandardCharsets.US_ASCII);
+        assertEquals(Long.MIN_VALUE, NettyRespDecoder.parseLong(buf, 0, buf.writerIndex()));
+        ByteBuf overflow = Unpooled.copiedBuffer("9223372036854775808", StandardCharsets.US_ASCII);
+        assertThrows(NumberFormatException.class, () -> NettyRespDecoder.parseLong(overflow, 0, overflow.writerIndex()));
+        ByteBuf garbage = Unpooled.copiedBuffer("12a", StandardCharsets.US_ASCII);
+        assertThrows(NumberFormatException.class, () -> NettyRespDecoder.parseLong(garbage, 0, garbage.writerIndex()));
+    }
+
+    @Test
+    public void testArgsReadSlicesLikeCopies() {
+        EmbeddedChannel channel = new EmbeddedChannel(new NettyRespDecoder(true));
+        channel.writeInbound(Unpooled.copiedBuffer("*5\r\n$3\r\nSET\r\n$3\r\nk\u00e9y\r\n$1\r\nv\r\n$2\r\nex\r\n$3\r\n-42\r\n", StandardCharsets.ISO_8859_1));
+        RespArgs args = channel.readInbound();
+        List<byte[]> copies = args.detach();
+
+        for (List<byte[]> list : List.of(args, copies)) {
+            assertEquals("k\u00e9y", Args.string(list, 1));
+            assertEquals(java.util.Arrays.hashCode(copies.get(1)), Args.hash(list, 1));
+            assertTrue(Args.is(list, 3, "EX"));
+            assertFalse(Args.is(list, 3, "PX"));
+            assertEquals(-42, Args.parseLong(list, 4));
+            assertThrows(NumberFormatException.class, () -> Args.parseLong(list, 2));
+        }
+        args.release();
+        channel.finishAndReleaseAll();
+    }
 }
@@ -1,15 +1,27 @@
 package core.replication;
 
 import core.Carade;
+import core.Config;
 import core.MockClientHandler;
 import core.db.CaradeDatabase;
 import core.db.ValueEntry;
+import core.persistence.rdb.RdbEncoder;
+import core.persistence.rdb.RdbParser;
+import core.protocol.Resp;
+import core.server.WriteSequencer;
+import core.structs.CaradeZSet;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -63,6 +75,59 @@ public class ReplicationTest {
         assertNotNull(entry);
     }
 
+    private static List<byte[]> command(String... args) {
+        List<byte[]> parts = new ArrayList<>();
+        for (String a : args) parts.add(a.getBytes(StandardCharsets.UTF_8));
+        return parts;
+    }
+
+    // Applies a command of the master's stream the way ReplicationManager does
+    private static void replicate(String... args) {
+        List<byte[]> parts = command(args);
+        WriteSequencer.getInstance().executeWrite(() -> Carade.executeReplicatedCommand(parts), Resp.array(parts));
+    }
+
+    private static int sizeOf(CaradeDatabase db, String key) {
+        Object v = db.get(0, key).getValue();
+        if (v instanceof Map) return ((Map<?, ?>) v).size();
+        if (v instanceof CaradeZSet) return ((CaradeZSet) v).size();
+        return ((Collection<?>) v).size();
+    }
+
+    @Test
+    public void testReplicaBgsaveWithInPlaceWrites() throws Exception {
+        Carade.resetAofClient();
+        replicate("RPUSH", "list", "a", "b");
+        replicate("SADD", "set", "a");
+        replicate("SADD", "set", "b");
+        replicate("HSET", "hash", "a", "1", "b", "2");
+        replicate("ZADD", "zset", "1", "a", "2", "b");
+
+        // The master's stream goes on while the replica's BGSAVE streams its epoch view
+        boolean[] written = {false};
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new RdbEncoder() {
+            @Override
+            public void writeDbHeader(DataOutputStream dos, int dbIndex, long size) throws IOException {
+                super.writeDbHeader(dos, dbIndex, size);
+                if (written[0]) return;
+                written[0] = true;
+                replicate("RPUSH", "list", "c");
+                replicate("SADD", "set", "c");
+                replicate("HSET", "hash", "c", "3");
+                replicate("ZADD", "zset", "3", "c");
+            }
+        }.encode(Carade.db, new DataOutputStream(out));
+        assertTrue(written[0]);
+
+        CaradeDatabase loaded = new CaradeDatabase(new Config(), null);
+        new RdbParser(new ByteArrayInputStream(out.toByteArray())).parse(loaded);
+        for (String key : new String[] {"list", "set", "hash", "zset"}) {
+            assertEquals(2, sizeOf(loaded, key), key + " as of the epoch");
+            assertEquals(3, sizeOf(Carade.db, key), key + " on the replica");
+        }
+    }
+
     @Test
     public void testPartialResync() {
         // 1. Generate some write traffic to fill backlog
@@ -0,0 +1,97 @@
+package core.server;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AppendRingTest {
+
+    private static byte[] entry(int producer, int n) {
+        return ByteBuffer.allocate(8).putInt(producer).putInt(n).array();
+    }
+
+    @Test
+    public void testDrainInClaimOrder() {
+        AppendRing ring = new AppendRing(8);
+        assertEquals(8, ring.capacity());
+        for (int i = 0; i < 5; i++) {
+            assertEquals(i, ring.publish(entry(0, i), i % 2 == 0 ? AppendRing.FULL : AppendRing.AOF_ONLY));
+        }
+
+        byte[][] out = new byte[16][];
+        byte[] kinds = new byte[16];
+        int n = ring.drain(out, kinds, 3);
+        assertEquals(3, n);
+        assertEquals(2, ByteBuffer.wrap(out[2]).getInt(4));
+        assertEquals(AppendRing.AOF_ONLY, kinds[1]);
+        ring.release(n);
+
+        n = ring.drain(out, kinds, 16);
+        assertEquals(2, n);
+        assertEquals(3, ByteBuffer.wrap(out[0]).getInt(4));
+        ring.release(n);
+        assertFalse(ring.hasPending());
+        assertEquals(0, ring.drain(out, kinds, 16));
+    }
+
+    @Test
+    public void testConcurrentProducersWrapAround() throws Exception {
+        AppendRing ring = new AppendRing(64);
+        int producers = 4;
+        int perProducer = 10_000;
+        List<int[]> seen = new ArrayList<>();
+
+        Thread consumer = new Thread(() -> {
+            byte[][] out = new byte[32][];
+            byte[] kinds = new byte[32];
+            int total = 0;
+            while (total < producers * perProducer) {
+                int n = ring.drain(out, kinds, 32);
+                if (n == 0) {
+                    ring.awaitPublished(1_000_000);
+                    continue;
+                }
+                for (int i = 0; i < n; i++) {
+                    ByteBuffer b = ByteBuffer.wrap(out[i]);
+                    seen.add(new int[]{b.getInt(), b.getInt()});
+                }
+                ring.release(n);
+                total += n;
+            }
+        });
+        ring.setConsumer(consumer);
+        consumer.start();
+
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            int id = p;
+            Thread t = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < perProducer; i++) ring.publish(entry(id, i), AppendRing.FULL);
+            });
+            threads.add(t);
+            t.start();
+        }
+        start.countDown();
+        for (Thread t : threads) t.join(10_000);
+        consumer.join(10_000);
+
+        assertEquals(producers * perProducer, seen.size());
+        // Every producer's entries come out in its own publish order
+        int[] next = new int[producers];
+        for (int[] e : seen) {
+            assertEquals(next[e[0]], e[1]);
+            next[e[0]]++;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package core.server;
+
+import core.Carade;
+import core.commands.CommandMetadata;
+import core.commands.CommandRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LockManagerTest {
+
+    private static List<byte[]> args(String... parts) {
+        List<byte[]> list = new ArrayList<>();
+        for (String p : parts) list.add(p.getBytes(StandardCharsets.UTF_8));
+        return list;
+    }
+
+    private static int[] keys(String... parts) {
+        String cmd = parts[0].toUpperCase();
+        CommandMetadata meta = CommandRegistry.getMetadata(cmd);
+        assertNotNull(meta, "metadata for " + cmd);
+        return LockManager.getInstance().collectKeys(cmd, meta, args(parts));
+    }
+
+    @Test
+    public void testKeyPositions() {
+        assertArrayEquals(new int[]{1}, keys("SET", "k", "v", "EX", "10"));
+        assertArrayEquals(new int[]{1, 3, 5}, keys("MSET", "a", "1", "b", "2", "c", "3"));
+        assertArrayEquals(new int[]{1, 2, 3}, keys("DEL", "a", "b", "c"));
+        assertArrayEquals(new int[]{1, 2}, keys("RENAME", "a", "b"));
+        assertArrayEquals(new int[]{1, 2}, keys("BLPOP", "a", "b", "0"));
+        assertArrayEquals(new int[0], keys("PING"));
+    }
+
+    @Test
+    public void testMovableKeys() {
+        assertArrayEquals(new int[]{1, 3, 4}, keys("ZUNIONSTORE", "dst", "2", "a", "b", "WEIGHTS", "1", "2"));
+        assertArrayEquals(new int[]{2, 3}, keys("LMPOP", "2", "a", "b", "LEFT"));
+        assertArrayEquals(new int[]{3, 4}, keys("BLMPOP", "0", "2", "a", "b", "LEFT"));
+        assertArrayEquals(new int[]{1, 3}, keys("SORT", "src", "STORE", "dst"));
+    }
+
+    @Test
+    public void testEveryCommandHasMetadata() {
+        for (String name : CommandRegistry.getAll().keySet()) {
+            assertNotNull(CommandRegistry.getMetadata(name), "missing metadata for " + name);
+        }
+    }
+
+    @Test
+    public void testDisjointWritesRunInParallel() throws Exception {
+        LockManager lm = LockManager.getInstance();
+        String a = "key:a";
+        String b = "key:b";
+        int n = 0;
+        while (lm.stripeOf(a) == lm.stripeOf(b)) b = "key:b" + (n++);
+
+        LockManager.Scope first = lm.acquire("SET", args("SET", a, "1"));
+        ExecutorService es = Executors.newSingleThreadExecutor();
+        try {
+            // Different stripe: not blocked by the first writer
+            Future<?> other = es.submit(() -> lm.acquire("SET", args("SET", "x", "1")).release());
+            String otherKey = b;
+            es.submit(() -> lm.acquire("SET", args("SET", otherKey, "1")).release()).get(2, TimeUnit.SECONDS);
+            other.get(2, TimeUnit.SECONDS);
+
+            // Same stripe: waits for the first writer
+            Future<?> same = es.submit(() -> lm.acquire("SET", args("SET", a, "2")).release());
+            assertThrows(TimeoutException.class, () -> same.get(200, TimeUnit.MILLISECONDS));
+            first.release();
+            first = null;
+            same.get(2, TimeUnit.SECONDS);
+        } finally {
+            if (first != null) first.release();
+            es.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testExclusiveCommandsTakeGlobalWriteLock() {
+        LockManager lm = LockManager.getInstance();
+        LockManager.Scope scope = lm.acquire("FLUSHALL", args("FLUSHALL"));
+        try {
+            assertTrue(scope.isExclusive());
+            assertTrue(Carade.globalRWLock.isWriteLockedByCurrentThread());
+            assertTrue(lm.isHeldByCurrentThread());
+        } finally {
+            scope.release();
+        }
+        assertFalse(lm.isHeldByCurrentThread());
+
+        scope = lm.acquire("GET", args("GET", "k"));
+        try {
+            assertFalse(scope.isExclusive());
+            assertFalse(Carade.globalRWLock.isWriteLocked());
+        } finally {
+            scope.release();
+        }
+    }
+}
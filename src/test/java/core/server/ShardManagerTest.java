@@ -0,0 +1,99 @@
+package core.server;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ShardManagerTest {
+
+    private ShardManager shards;
+
+    @BeforeEach
+    public void setUp() {
+        shards = ShardManager.init(4);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        ShardManager.resetSingleton();
+    }
+
+    private static List<byte[]> args(String... parts) {
+        List<byte[]> list = new ArrayList<>();
+        for (String p : parts) list.add(p.getBytes(StandardCharsets.UTF_8));
+        return list;
+    }
+
+    @Test
+    public void testSingleKeyRunsOnOwningShard() throws Exception {
+        AtomicReference<String> thread = new AtomicReference<>();
+        shards.execute("SET", args("SET", "k", "v"), () -> thread.set(Thread.currentThread().getName()));
+
+        int owner = shards.shardOf("k".getBytes(StandardCharsets.UTF_8));
+        assertEquals("Shard-" + owner, thread.get());
+        assertEquals(1, shards.getCommandCounts()[owner]);
+        assertFalse(LockManager.getInstance().isHeldByCurrentThread());
+    }
+
+    @Test
+    public void testKeylessRunsOnCaller() throws Exception {
+        AtomicReference<Thread> thread = new AtomicReference<>();
+        shards.execute("PING", args("PING"), () -> thread.set(Thread.currentThread()));
+        assertSame(Thread.currentThread(), thread.get());
+        assertFalse(shards.routes("PING", args("PING")));
+    }
+
+    @Test
+    public void testCrossShardUsesCoordinator() throws Exception {
+        String a = "a";
+        String b = "b";
+        int n = 0;
+        while (shards.shardOf(a.getBytes(StandardCharsets.UTF_8)) == shards.shardOf(b.getBytes(StandardCharsets.UTF_8))) {
+            b = "b" + (n++);
+        }
+
+        AtomicReference<Boolean> inScope = new AtomicReference<>();
+        shards.execute("MSET", args("MSET", a, "1", b, "2"), () -> inScope.set(LockManager.getInstance().isHeldByCurrentThread()));
+        assertTrue(inScope.get());
+        assertEquals(1, shards.getCrossShardCommands());
+    }
+
+    @Test
+    public void testSubmitDoesNotWaitForBusyShards() throws Exception {
+        String a = "a";
+        String b = "b";
+        int n = 0;
+        while (shards.shardOf(a.getBytes(StandardCharsets.UTF_8)) == shards.shardOf(b.getBytes(StandardCharsets.UTF_8))) {
+            b = "b" + (n++);
+        }
+        CountDownLatch busy = new CountDownLatch(1);
+        shards.post(a.getBytes(StandardCharsets.UTF_8), busy::await);
+
+        CountDownLatch single = new CountDownLatch(1);
+        CountDownLatch cross = new CountDownLatch(1);
+        assertTrue(shards.submit("GET", args("GET", a), () -> {}, error -> single.countDown()));
+        assertTrue(shards.submit("MSET", args("MSET", a, "1", b, "2"), () -> {}, error -> cross.countDown()));
+        assertFalse(single.await(50, TimeUnit.MILLISECONDS));
+        assertEquals(1, cross.getCount());
+
+        busy.countDown();
+        assertTrue(single.await(5, TimeUnit.SECONDS));
+        assertTrue(cross.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testErrorsPropagateToCaller() {
+        Exception e = assertThrows(IllegalStateException.class,
+                () -> shards.execute("GET", args("GET", "k"), () -> { throw new IllegalStateException("boom"); }));
+        assertEquals("boom", e.getMessage());
+    }
+}
@@ -1,10 +1,35 @@
 package core.structs;
 
+import core.Config;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 public class CaradeZSetTest {
 
+    @AfterEach
+    public void restoreConfig() {
+        Listpack.use(new Config());
+    }
+
+    private static void use(int entries, int value) {
+        Config config = new Config();
+        config.zsetMaxListpackEntries = entries;
+        config.zsetMaxListpackValue = value;
+        Listpack.use(config);
+    }
+
     @Test
     public void testScoreUpdate() {
         CaradeZSet zset = new CaradeZSet();
@@ -20,12 +45,12 @@ public class CaradeZSetTest {
         assertEquals(20.0, zset.score("A")); // Score updated
         
         // Check sorted structure (iterator)
-        ZNode first = zset.sorted.first();
+        ZNode first = zset.first();
         assertEquals("A", first.member);
         assertEquals(20.0, first.score);
         
         // Ensure no ghost node at 10.0
-        assertEquals(1, zset.sorted.size());
+        assertEquals(1, zset.rangeByRank(0, -1).size());
     }
     
     @Test
@@ -41,4 +66,177 @@ public class CaradeZSetTest {
         // Range check
         assertEquals(3, zset.rangeByScore(Double.NEGATIVE_INFINITY, true, Double.POSITIVE_INFINITY, true).size());
     }
+
+    @Test
+    public void testRanksMatchSortedOrder() {
+        CaradeZSet zset = new CaradeZSet();
+        TreeSet<ZNode> expected = new TreeSet<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 5000; i++) {
+            String member = "m" + random.nextInt(1000);
+            Double old = zset.score(member);
+            if (old != null) expected.remove(new ZNode(old, member));
+            if (random.nextInt(4) == 0) {
+                zset.remove(member);
+            } else {
+                double score = random.nextInt(200);
+                zset.add(score, member);
+                expected.add(new ZNode(score, member));
+            }
+        }
+        assertEquals(expected.size(), zset.size());
+        long rank = 0;
+        for (ZNode node : expected) {
+            assertEquals(rank, zset.rank(node.member));
+            assertEquals(zset.size() - 1 - rank, zset.revRank(node.member));
+            assertEquals(node, zset.byRank(rank));
+            rank++;
+        }
+        assertEquals(-1, zset.rank("absent"));
+        assertNull(zset.byRank(zset.size()));
+        assertEquals(new ArrayList<>(expected), toList(zset.copy().iterator()));
+    }
+
+    @Test
+    public void testRangesAndRemoval() {
+        CaradeZSet zset = new CaradeZSet();
+        for (int i = 0; i < 10; i++) zset.add(i, "m" + i);
+
+        assertEquals(List.of("m2", "m3", "m4"), members(zset.rangeByRank(2, 4).iterator()));
+        assertEquals(List.of("m9", "m8"), members(zset.revRangeByRank(0, 1).descendingIterator()));
+        assertEquals(List.of("m8", "m9"), members(zset.rangeByRank(-2, -1).iterator()));
+        assertTrue(zset.rangeByRank(5, 2).isEmpty());
+
+        CaradeZSet.Range byScore = zset.rangeByScore(3, false, 7, true);
+        assertEquals(4, byScore.size());
+        assertEquals(List.of("m6", "m7"), members(byScore.iterator(2)));
+        assertEquals(List.of("m5", "m4"), members(byScore.descendingIterator(2)));
+        assertFalse(byScore.iterator(4).hasNext());
+
+        assertEquals(4, byScore.remove());
+        assertEquals(6, zset.size());
+        assertEquals(4, zset.rank("m8"));
+        assertEquals(3, zset.rangeByRank(0, 2).remove());
+        assertEquals(List.of("m3", "m8", "m9"), members(zset.iterator()));
+
+        assertEquals(List.of("m3"), members(zset.popMin(1).iterator()));
+        assertEquals(List.of("m9", "m8"), members(zset.popMax(5).iterator()));
+        assertTrue(zset.isEmpty());
+    }
+
+    @Test
+    public void testLexRange() {
+        CaradeZSet zset = new CaradeZSet();
+        for (String m : new String[]{"a", "b", "c", "d", "e"}) zset.add(0, m);
+
+        assertEquals(List.of("b", "c"), members(zset.rangeByLex(CaradeZSet.LexRange.parse("[b", "(d")).iterator()));
+        assertEquals(5, zset.rangeByLex(CaradeZSet.LexRange.parse("-", "+")).size());
+        assertEquals(0, zset.rangeByLex(CaradeZSet.LexRange.parse("+", "-")).size());
+        assertEquals(0, zset.rangeByLex(CaradeZSet.LexRange.parse("(c", "[b")).size());
+        assertNull(CaradeZSet.LexRange.parse("b", "+"));
+    }
+
+    @Test
+    public void testScanIteratorSkipsRemoved() {
+        CaradeZSet zset = new CaradeZSet();
+        zset.add(1, "a");
+        zset.add(2, "b");
+        zset.add(3, "c");
+        Iterator<ZNode> it = zset.scanIterator();
+        zset.remove("b");
+        zset.add(5, "a");
+        List<ZNode> seen = toList(it);
+        assertEquals(List.of("a", "c"), members(seen.iterator()));
+        assertEquals(5.0, seen.get(0).score);
+    }
+
+    @Test
+    public void testListpackPromotesOnEntriesAndMemberLength() throws Exception {
+        use(4, 8);
+        CaradeZSet zset = new CaradeZSet();
+        for (int i = 0; i < 4; i++) zset.add(4 - i, "m" + i);
+        assertEquals("listpack", zset.encoding());
+        assertEquals(List.of("m3", "m2", "m1", "m0"), members(zset.iterator()));
+        assertEquals(0, zset.add(0.5, "m0"));
+        assertEquals(List.of("m0", "m3", "m2", "m1"), members(zset.iterator()));
+        assertEquals("listpack", zset.copy().encoding());
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(zset);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            CaradeZSet read = (CaradeZSet) in.readObject();
+            assertEquals("listpack", read.encoding());
+            assertEquals(toList(zset.iterator()), toList(read.iterator()));
+        }
+
+        assertEquals(1, zset.add(9, "m4"));
+        assertEquals("skiplist", zset.encoding());
+        assertEquals(List.of("m0", "m3", "m2", "m1", "m4"), members(zset.iterator()));
+        assertEquals(1.0, zset.score("m3"));
+        zset.remove("m4");
+        assertEquals("skiplist", zset.encoding(), "Promoted for good");
+
+        CaradeZSet longMember = new CaradeZSet();
+        longMember.add(1, "123456789");
+        assertEquals("skiplist", longMember.encoding());
+    }
+
+    @Test
+    public void testListpackMatchesSkipList() {
+        use(0, 0);
+        CaradeZSet skipList = new CaradeZSet();
+        skipList.add(0, "x");
+        skipList.remove("x");
+        use(1000, 64);
+        CaradeZSet packed = new CaradeZSet();
+
+        Random random = new Random(7);
+        for (int i = 0; i < 2000; i++) {
+            String member = "m" + random.nextInt(60);
+            if (random.nextInt(4) == 0) {
+                assertEquals(skipList.remove(member), packed.remove(member));
+            } else {
+                double score = random.nextInt(20);
+                assertEquals(skipList.add(score, member), packed.add(score, member));
+            }
+        }
+        assertEquals("skiplist", skipList.encoding());
+        assertEquals("listpack", packed.encoding());
+        assertEquals(toList(skipList.iterator()), toList(packed.iterator()));
+        assertEquals(toList(skipList.descendingIterator()), toList(packed.descendingIterator()));
+        for (ZNode node : toList(skipList.iterator())) {
+            assertEquals(skipList.rank(node.member), packed.rank(node.member));
+            assertEquals(skipList.score(node.member), packed.score(node.member));
+        }
+        assertEquals(skipList.byRank(3), packed.byRank(3));
+        assertEquals(skipList.last(), packed.last());
+
+        CaradeZSet.Range a = skipList.rangeByScore(5, false, 12, true);
+        CaradeZSet.Range b = packed.rangeByScore(5, false, 12, true);
+        assertEquals(a.size(), b.size());
+        assertEquals(toList(a.iterator(2)), toList(b.iterator(2)));
+        assertEquals(toList(a.descendingIterator(2)), toList(b.descendingIterator(2)));
+        assertEquals(toList(skipList.revRangeByRank(2, 6).descendingIterator()), toList(packed.revRangeByRank(2, 6).descendingIterator()));
+
+        assertEquals(skipList.popMin(2), packed.popMin(2));
+        assertEquals(skipList.popMax(2), packed.popMax(2));
+        assertEquals(skipList.rangeByScore(3, true, 8, false).remove(), packed.rangeByScore(3, true, 8, false).remove());
+        assertEquals(skipList.rangeByRank(-3, -1).remove(), packed.rangeByRank(-3, -1).remove());
+        assertEquals(toList(skipList.iterator()), toList(packed.iterator()));
+        assertEquals(skipList.size(), packed.size());
+    }
+
+    private static List<ZNode> toList(Iterator<ZNode> it) {
+        List<ZNode> out = new ArrayList<>();
+        it.forEachRemaining(out::add);
+        return out;
+    }
+
+    private static List<String> members(Iterator<ZNode> it) {
+        List<String> out = new ArrayList<>();
+        it.forEachRemaining(n -> out.add(n.member));
+        return out;
+    }
 }
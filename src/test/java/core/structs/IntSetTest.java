@@ -0,0 +1,110 @@
+package core.structs;
+
+import core.Config;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IntSetTest {
+
+    @AfterEach
+    public void restoreConfig() {
+        Listpack.use(new Config());
+    }
+
+    private static List<Long> values(byte[] is) {
+        List<Long> out = new ArrayList<>();
+        for (int i = 0; i < IntSet.length(is); i++) out.add(IntSet.get(is, i));
+        return out;
+    }
+
+    @Test
+    public void testSortedWithWidthUpgrade() {
+        byte[] is = IntSet.EMPTY;
+        is = IntSet.add(is, 5);
+        is = IntSet.add(is, -3);
+        is = IntSet.add(is, 100);
+        assertSame(is, IntSet.add(is, 5));
+        assertEquals(IntSet.ENC_INT16, IntSet.encoding(is));
+        assertEquals(8 + 3 * 2, is.length);
+
+        is = IntSet.add(is, 70_000);
+        assertEquals(IntSet.ENC_INT32, IntSet.encoding(is));
+        is = IntSet.add(is, Long.MIN_VALUE);
+        assertEquals(IntSet.ENC_INT64, IntSet.encoding(is));
+        assertEquals(Arrays.asList(Long.MIN_VALUE, -3L, 5L, 100L, 70_000L), values(is));
+
+        assertTrue(IntSet.contains(is, 70_000));
+        assertFalse(IntSet.contains(is, 6));
+        is = IntSet.remove(is, -3);
+        assertSame(is, IntSet.remove(is, -3));
+        assertEquals(Arrays.asList(Long.MIN_VALUE, 5L, 100L, 70_000L), values(is));
+        assertTrue(IntSet.isValid(is));
+    }
+
+    @Test
+    public void testIntersectMatchesTreeSet() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int[] sizes : new int[][] {{50, 60}, {10, 5000}, {0, 10}}) {
+            TreeSet<Long> a = new TreeSet<>(), b = new TreeSet<>();
+            byte[] ia = IntSet.EMPTY, ib = IntSet.EMPTY;
+            for (int i = 0; i < sizes[0]; i++) {
+                long v = random.nextLong(-200, 200);
+                a.add(v);
+                ia = IntSet.add(ia, v);
+            }
+            for (int i = 0; i < sizes[1]; i++) {
+                long v = random.nextLong(-200, 200) * (i % 2 == 0 ? 1 : 1_000_000L);
+                b.add(v);
+                ib = IntSet.add(ib, v);
+            }
+            a.retainAll(b);
+            assertEquals(new ArrayList<>(a), values(IntSet.intersect(ia, ib)));
+            assertEquals(new ArrayList<>(a), values(IntSet.intersect(ib, ia)));
+        }
+    }
+
+    @Test
+    public void testOnlyCanonicalIntegers() {
+        for (String s : new String[] {"0", "-1", "42", "9223372036854775807", "-9223372036854775808"}) {
+            assertTrue(IntSet.isInteger(s), s);
+        }
+        for (String s : new String[] {"", "-", "01", "-0", "+1", "1.0", " 1", "9223372036854775808", "12a"}) {
+            assertFalse(IntSet.isInteger(s), s);
+        }
+    }
+
+    @Test
+    public void testSetLeavesIntSet() {
+        PackedSet set = new PackedSet(Arrays.asList("3", "1", "2"));
+        assertEquals("intset", set.encoding());
+        assertTrue(set.contains("2"));
+        assertFalse(set.contains("02"));
+        assertEquals(Arrays.asList("1", "2", "3"), new ArrayList<>(set));
+
+        // A non-integer member: listpack, members unchanged
+        set.add("x");
+        assertEquals("listpack", set.encoding());
+        assertEquals(new TreeSet<>(Arrays.asList("1", "2", "3", "x")), new TreeSet<>(set));
+
+        // Too many integers for a listpack too: hash table
+        Config config = new Config();
+        config.setMaxIntsetEntries = 4;
+        config.setMaxListpackEntries = 4;
+        Listpack.use(config);
+        PackedSet ints = new PackedSet(Arrays.asList("1", "2", "3", "4"));
+        assertEquals("intset", ints.encoding());
+        ints.add("5");
+        assertEquals("hashtable", ints.encoding());
+        assertEquals(5, ints.size());
+        assertTrue(ints.remove("1"));
+        assertFalse(ints.contains("1"));
+    }
+}
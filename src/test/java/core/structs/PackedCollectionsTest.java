@@ -0,0 +1,152 @@
+package core.structs;
+
+import core.Config;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PackedCollectionsTest {
+
+    @AfterEach
+    public void restoreConfig() {
+        Listpack.use(new Config());
+    }
+
+    private static void use(int entries, int value, int listSize) {
+        Config config = new Config();
+        config.hashMaxListpackEntries = entries;
+        config.hashMaxListpackValue = value;
+        config.setMaxListpackEntries = entries;
+        config.setMaxListpackValue = value;
+        config.listMaxListpackSize = listSize;
+        Listpack.use(config);
+    }
+
+    @Test
+    public void testHashPromotesOnEntriesAndValueLength() {
+        use(3, 8, -2);
+        PackedHash hash = new PackedHash();
+        assertNull(hash.put("a", "1"));
+        assertNull(hash.put("b", "2"));
+        assertEquals("1", hash.put("a", "one"));
+        assertEquals("listpack", hash.encoding());
+        assertEquals("one", hash.get("a"));
+        assertEquals("2", hash.remove("b"));
+        assertNull(hash.get("b"));
+        assertEquals(1, hash.size());
+
+        // Too long a value
+        hash.put("c", "123456789");
+        assertEquals("hashtable", hash.encoding());
+        assertEquals(-1, hash.packedBytes());
+        assertEquals("one", hash.get("a"));
+        assertEquals("123456789", hash.get("c"));
+
+        // Too many fields
+        PackedHash wide = new PackedHash();
+        for (int i = 0; i < 3; i++) wide.put("f" + i, "v");
+        assertEquals("listpack", wide.encoding());
+        wide.put("f3", "v");
+        assertEquals("hashtable", wide.encoding());
+        assertEquals(4, wide.size());
+    }
+
+    @Test
+    public void testHashIteratorWritesThrough() {
+        PackedHash hash = new PackedHash(Map.of("a", "1", "b", "2", "c", "3"));
+        Iterator<Map.Entry<String, String>> it = hash.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, String> e = it.next();
+            if (e.getKey().equals("b")) it.remove();
+            else e.setValue(e.getValue() + "!");
+        }
+        assertEquals(Map.of("a", "1!", "c", "3!"), hash);
+    }
+
+    @Test
+    public void testSetPromotes() {
+        use(2, 4, -2);
+        PackedSet set = new PackedSet();
+        assertTrue(set.add("x"));
+        assertFalse(set.add("x"));
+        assertTrue(set.add("y"));
+        assertEquals("listpack", set.encoding());
+        assertTrue(set.contains("y"));
+        assertTrue(set.add("z"));
+        assertEquals("hashtable", set.encoding());
+        assertEquals(3, set.size());
+        assertTrue(set.remove("x"));
+        assertFalse(set.contains("x"));
+
+        assertEquals("hashtable", new PackedSet(Arrays.asList("a", "toolong")).encoding());
+    }
+
+    @Test
+    public void testIteratorSurvivesWrites() {
+        PackedSet set = new PackedSet(Arrays.asList("a", "b", "c"));
+        Iterator<String> it = set.iterator();
+        set.add("d");
+        set.remove("a");
+        List<String> seen = new ArrayList<>();
+        it.forEachRemaining(seen::add);
+        // The members as of the start of the iteration
+        assertEquals(Arrays.asList("a", "b", "c"), seen);
+    }
+
+    @Test
+    public void testListDequeOperations() {
+        PackedList list = new PackedList();
+        list.addLast("b");
+        list.addFirst("a");
+        list.addLast("c");
+        assertEquals("listpack", list.encoding());
+        assertEquals(3, list.size());
+        assertEquals("a", list.peekFirst());
+        assertEquals("c", list.peekLast());
+        assertEquals(Arrays.asList("c", "b", "a"), toList(list.descendingIterator()));
+
+        assertTrue(list.removeLastOccurrence("b"));
+        assertEquals("a", list.pollFirst());
+        assertEquals("c", list.pollLast());
+        assertNull(list.pollFirst());
+        assertTrue(list.isEmpty());
+
+        list.addAll(Arrays.asList("1", "2", "3", "4"));
+        Iterator<String> it = list.iterator();
+        while (it.hasNext()) {
+            if (Integer.parseInt(it.next()) % 2 == 0) it.remove();
+        }
+        assertEquals(Arrays.asList("1", "3"), new ArrayList<>(list));
+    }
+
+    @Test
+    public void testListPromotesOnSize() {
+        use(128, 64, 3);
+        PackedList list = new PackedList(Arrays.asList("a", "b", "c"));
+        assertEquals("listpack", list.encoding());
+        list.addFirst("z");
+        assertEquals("quicklist", list.encoding());
+        assertEquals(Arrays.asList("z", "a", "b", "c"), new ArrayList<>(list));
+
+        // Size classes: -1 is 4KB of entries
+        use(128, 64, -1);
+        PackedList big = new PackedList();
+        big.add("x".repeat(4000));
+        assertEquals("listpack", big.encoding());
+        big.add("x".repeat(200));
+        assertEquals("quicklist", big.encoding());
+    }
+
+    private static List<String> toList(Iterator<String> it) {
+        List<String> out = new ArrayList<>();
+        it.forEachRemaining(out::add);
+        return out;
+    }
+}
@@ -0,0 +1,128 @@
+package core.structs;
+
+import core.Config;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class QuicklistTest {
+
+    @AfterEach
+    public void restoreConfig() {
+        Listpack.use(new Config());
+    }
+
+    private static void use(int listSize, int compressDepth) {
+        Config config = new Config();
+        config.listMaxListpackSize = listSize;
+        config.listCompressDepth = compressDepth;
+        Listpack.use(config);
+    }
+
+    @Test
+    public void testMatchesArrayList() {
+        use(4, 1);
+        Quicklist list = new Quicklist();
+        List<String> expected = new ArrayList<>();
+        Random random = new Random(7);
+        for (int i = 0; i < 5000; i++) {
+            String e = "e" + random.nextInt(50);
+            int size = expected.size();
+            switch (random.nextInt(8)) {
+                case 0: list.addFirst(e); expected.add(0, e); break;
+                case 1: case 2: list.addLast(e); expected.add(e); break;
+                case 3:
+                    assertEquals(size == 0 ? null : expected.remove(0), list.pollFirst());
+                    break;
+                case 4:
+                    assertEquals(size == 0 ? null : expected.remove(size - 1), list.pollLast());
+                    break;
+                case 5:
+                    if (size > 0) {
+                        int index = random.nextInt(size);
+                        assertEquals(expected.get(index), list.get(index));
+                        assertTrue(list.set(index, e));
+                        expected.set(index, e);
+                    }
+                    break;
+                case 6: {
+                    String pivot = "e" + random.nextInt(50);
+                    int at = expected.indexOf(pivot);
+                    boolean before = random.nextBoolean();
+                    assertEquals(at >= 0, list.insert(pivot, e, before));
+                    if (at >= 0) expected.add(before ? at : at + 1, e);
+                    break;
+                }
+                default:
+                    assertEquals(expected.remove(e), list.removeFirstOccurrence(e));
+            }
+            assertEquals(expected.size(), list.size());
+        }
+        assertEquals(expected, new ArrayList<>(list));
+        assertTrue(list.nodeCount() > 1);
+        assertNull(list.get(expected.size()));
+    }
+
+    @Test
+    public void testTrimAndIndexIterator() {
+        use(3, 0);
+        Quicklist list = new Quicklist();
+        for (int i = 0; i < 20; i++) list.add(String.valueOf(i));
+        assertEquals(7, list.nodeCount());
+
+        List<String> fromSeven = new ArrayList<>();
+        list.iterator(7).forEachRemaining(fromSeven::add);
+        assertEquals(13, fromSeven.size());
+        assertEquals("7", fromSeven.get(0));
+
+        list.trim(4, 15);
+        assertEquals(12, list.size());
+        assertEquals("4", list.peekFirst());
+        assertEquals("15", list.peekLast());
+        assertEquals("10", list.get(6));
+    }
+
+    @Test
+    public void testIteratorRemoveBothWays() {
+        use(3, 0);
+        Quicklist list = new Quicklist(List.of("1", "2", "3", "4", "5", "6", "7"));
+        Iterator<String> it = list.iterator();
+        while (it.hasNext()) {
+            if (Integer.parseInt(it.next()) % 2 == 1) it.remove();
+        }
+        assertEquals(List.of("2", "4", "6"), new ArrayList<>(list));
+
+        it = list.descendingIterator();
+        assertEquals("6", it.next());
+        assertEquals("4", it.next());
+        it.remove();
+        assertEquals("2", it.next());
+        it.remove();
+        assertEquals(List.of("6"), new ArrayList<>(list));
+    }
+
+    @Test
+    public void testMiddleChunksCompressed() {
+        use(8, 1);
+        Quicklist list = new Quicklist();
+        for (int i = 0; i < 800; i++) list.add("element-" + (i % 10) + "-padding-padding");
+        long raw = 0;
+        for (String e : list) raw += 1 + e.length();
+        assertTrue(list.storedBytes() < raw / 2, "stored " + list.storedBytes() + " of " + raw);
+        assertEquals("element-3-padding-padding", list.get(403));
+
+        // Copies share chunks but not changes
+        Quicklist copy = list.copy();
+        list.set(403, "changed");
+        list.pollFirst();
+        assertEquals("element-3-padding-padding", copy.get(403));
+        assertEquals(800, copy.size());
+        assertEquals("changed", list.get(402));
+    }
+}
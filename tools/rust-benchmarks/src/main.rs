@@ -39,6 +39,10 @@ struct Args {
 
     #[arg(long, value_enum, default_value_t = Scenario::Basic)]
     scenario: Scenario,
+
+    /// Connect through the server's Unix domain socket instead of TCP (host/port are ignored)
+    #[arg(long)]
+    unix_socket: Option<String>,
 }
 
 #[tokio::main]
@@ -46,11 +50,17 @@ async fn main() -> anyhow::Result<()> {
     let args = Args::parse();
 
     println!("\n🏋️  CARADE BENCHMARK (RUST)");
-    println!("Target: {}:{}", args.host, args.port);
+    match &args.unix_socket {
+        Some(path) => println!("Target: unix:{}", path),
+        None => println!("Target: {}:{}", args.host, args.port),
+    }
     println!("Scenario: {:?}", args.scenario);
 
-    // Construct connection string: redis://:password@host:port/
-    let conn_str = format!("redis://:{}@{}:{}/", args.password, args.host, args.port);
+    // Construct connection string: redis://:password@host:port/ or redis+unix:///path?pass=password
+    let conn_str = match &args.unix_socket {
+        Some(path) => format!("redis+unix://{}?pass={}", path, args.password),
+        None => format!("redis://:{}@{}:{}/", args.password, args.host, args.port),
+    };
     let client = redis::Client::open(conn_str)?;
 
     // Feature Check